@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.util.impl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import ddf.catalog.data.Result;
+
+/**
+ * Keeps the best {@code capacity} {@link Result}s offered to it according to a result
+ * {@link Comparator}. The worst retained result sits at the head of the heap, so a result that
+ * cannot make the page is rejected with a single comparison and nothing is allocated for it.
+ * <p>
+ * Results that compare as equal keep the order in which they were offered, which makes the
+ * retained page identical to a stable sort of every offered result truncated to
+ * {@code capacity}.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class BoundedResultHeap {
+
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
+    private final Comparator<Result> comparator;
+
+    private final int capacity;
+
+    private final PriorityQueue<Entry> heap;
+
+    private long sequence = 0;
+
+    /**
+     * @param comparator the comparator that defines the result order, best result first
+     * @param capacity   the maximum number of results to retain
+     */
+    public BoundedResultHeap(Comparator<Result> comparator, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be greater than zero.");
+        }
+        this.comparator = comparator;
+        this.capacity = capacity;
+        this.heap = new PriorityQueue<>(Math.min(capacity, MAX_INITIAL_CAPACITY),
+                this::compareWorstFirst);
+    }
+
+    /**
+     * Offers every result of a list, such as one source response, to the heap.
+     *
+     * @param results the results to offer
+     * @return the number of results that were retained
+     */
+    public int offer(List<Result> results) {
+        int retained = 0;
+        for (Result result : results) {
+            if (offer(result)) {
+                retained++;
+            }
+        }
+        return retained;
+    }
+
+    /**
+     * Offers a single result to the heap.
+     *
+     * @param result the result to offer
+     * @return {@code true} if the result is currently part of the page
+     */
+    public boolean offer(Result result) {
+        if (heap.size() < capacity) {
+            heap.add(new Entry(result, sequence++));
+            return true;
+        }
+
+        // A new result has a higher sequence than every retained one, so it only replaces the
+        // current worst result if it is strictly better.
+        if (comparator.compare(result, heap.peek().result) < 0) {
+            heap.poll();
+            heap.add(new Entry(result, sequence++));
+            return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Removes every retained result from the heap.
+     *
+     * @return the retained results, best result first
+     */
+    public List<Result> drain() {
+        Result[] page = new Result[heap.size()];
+        for (int i = page.length - 1; i >= 0; i--) {
+            page[i] = heap.poll().result;
+        }
+        return Arrays.asList(page);
+    }
+
+    private int compareWorstFirst(Entry a, Entry b) {
+        int order = comparator.compare(b.result, a.result);
+        return order != 0 ? order : Long.compare(b.sequence, a.sequence);
+    }
+
+    private static class Entry {
+
+        private final Result result;
+
+        private final long sequence;
+
+        Entry(Result result, long sequence) {
+            this.result = result;
+            this.sequence = sequence;
+        }
+    }
+}
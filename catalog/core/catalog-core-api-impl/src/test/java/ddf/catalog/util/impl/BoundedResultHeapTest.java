@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.util.impl;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.opengis.filter.sort.SortOrder;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+
+public class BoundedResultHeapTest {
+
+    private static final RelevanceResultComparator COMPARATOR = new RelevanceResultComparator(
+            SortOrder.DESCENDING);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroCapacity() {
+        new BoundedResultHeap(COMPARATOR, 0);
+    }
+
+    @Test
+    public void retainsBestResults() {
+        BoundedResultHeap heap = new BoundedResultHeap(COMPARATOR, 3);
+
+        assertThat(heap.offer(results(0.1, 0.5, 0.3)), is(3));
+        assertThat(heap.offer(results(0.9, 0.2, 0.4)), is(2));
+
+        assertThat(heap.size(), is(3));
+        assertThat(scores(heap.drain()), contains(0.9, 0.5, 0.4));
+        assertThat(heap.size(), is(0));
+    }
+
+    @Test
+    public void rejectsResultsThatDoNotImproveFullPage() {
+        BoundedResultHeap heap = new BoundedResultHeap(COMPARATOR, 2);
+        heap.offer(results(0.8, 0.7));
+
+        assertThat(heap.offer(result(0.7)), is(false));
+        assertThat(heap.offer(result(0.1)), is(false));
+        assertThat(heap.offer(result(0.75)), is(true));
+        assertThat(scores(heap.drain()), contains(0.8, 0.75));
+    }
+
+    @Test
+    public void equalResultsKeepOfferOrder() {
+        BoundedResultHeap heap = new BoundedResultHeap(COMPARATOR, 2);
+        Result first = result(0.5);
+        Result second = result(0.5);
+        Result third = result(0.5);
+
+        heap.offer(first);
+        heap.offer(second);
+        heap.offer(third);
+
+        assertThat(heap.drain(), contains(first, second));
+    }
+
+    @Test
+    public void matchesStableSortOfAllResults() {
+        Random random = new Random(42);
+        List<Result> all = new ArrayList<>();
+        BoundedResultHeap heap = new BoundedResultHeap(COMPARATOR, 50);
+
+        for (int source = 0; source < 10; source++) {
+            List<Result> sourceResults = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                // Round the scores so that plenty of ties are produced
+                sourceResults.add(result(Math.round(random.nextDouble() * 20) / 20.0));
+            }
+            sourceResults.sort(COMPARATOR);
+            all.addAll(sourceResults);
+            heap.offer(sourceResults);
+        }
+
+        Collections.sort(all, COMPARATOR);
+        assertThat(heap.drain(), is(all.subList(0, 50)));
+    }
+
+    private static List<Result> results(double... scores) {
+        List<Result> results = new ArrayList<>();
+        for (double score : scores) {
+            results.add(result(score));
+        }
+        return results;
+    }
+
+    private static Result result(double score) {
+        ResultImpl result = new ResultImpl(new MetacardImpl());
+        result.setRelevanceScore(score);
+        return result;
+    }
+
+    private static List<Double> scores(List<Result> results) {
+        List<Double> scores = new ArrayList<>();
+        for (Result result : results) {
+            scores.add(result.getRelevanceScore());
+        }
+        return scores;
+    }
+}
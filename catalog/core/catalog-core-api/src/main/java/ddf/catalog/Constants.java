@@ -163,6 +163,18 @@ public final class Constants {
 
     public static final String CONTENT_PATHS = "content-paths";
 
+    /**
+     * Property key of the checksums calculated while content was ingested, as a map of content
+     * item URI to a map of checksum algorithm to lower case hexadecimal checksum value
+     */
+    public static final String CONTENT_CHECKSUMS = "content-checksums";
+
+    /**
+     * Property key of the mime types detected from the leading bytes of content while it was
+     * ingested, as a map of content item URI to mime type
+     */
+    public static final String CONTENT_MIME_HINTS = "content-mime-hints";
+
     public static final String ATTRIBUTE_OVERRIDES_KEY = "attributeOverrides";
 
     public static final String ATTRIBUTE_UPDATE_MAP_KEY = "attributeUpdateMap";
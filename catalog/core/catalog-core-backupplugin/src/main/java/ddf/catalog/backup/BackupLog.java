@@ -0,0 +1,698 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.backup;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+
+/**
+ * An append-only log of metacard backups, split into numbered segment files.
+ * <p/>
+ * Each record holds either a Java-serialized metacard or a tombstone for a deleted metacard ID. A
+ * group of records is written with one write and one fsync. Segments are scanned once when the log
+ * is opened to build an in-memory index of the latest record for each ID; a torn record at the end
+ * of the last segment is truncated.
+ * <p/>
+ * Sealed segments in which less than half of the bytes still belong to live metacards are
+ * compacted in the background: their live records are appended to the active segment and the
+ * segment file is deleted. The index also counts the records of each ID in the remaining
+ * segments, so a tombstone is only carried over while an older record of its ID remains that it
+ * has to hide.
+ * <p/>
+ * A log can also be opened read-only with {@link #openReadOnly(Path)}, e.g., to restore the
+ * backups with {@code catalog:ingest --backup}.
+ */
+public class BackupLog implements Closeable {
+
+    static final String SEGMENT_PREFIX = "segment-";
+
+    static final String SEGMENT_EXTENSION = ".log";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackupLog.class);
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE = 2;
+
+    private static final int FRAME_HEADER_LENGTH = 8;
+
+    private static final int MAX_RECORD_LENGTH = 256 * 1024 * 1024;
+
+    private static final double COMPACTION_THRESHOLD = 0.5;
+
+    private final Path directory;
+
+    private final long maxSegmentSize;
+
+    private final boolean readOnly;
+
+    private final TreeMap<Long, FileChannel> segments = new TreeMap<>();
+
+    private final Map<Long, AtomicLong> liveBytes = new HashMap<>();
+
+    private final Map<String, IndexEntry> index = new HashMap<>();
+
+    private int liveCount;
+
+    private final ScheduledExecutorService compactor;
+
+    private long activeSegment;
+
+    private boolean closed;
+
+    /**
+     * Opens the log in {@code directory}, creating the directory if needed, and indexes the
+     * existing segments.
+     *
+     * @param directory                 the directory that holds the segment files
+     * @param maxSegmentSize            the size in bytes after which a new segment is started
+     * @param compactionIntervalSeconds the interval between background compactions, or 0 to
+     *                                  disable them
+     */
+    BackupLog(Path directory, long maxSegmentSize, long compactionIntervalSeconds)
+            throws IOException {
+        this(directory, maxSegmentSize, compactionIntervalSeconds, false);
+    }
+
+    private BackupLog(Path directory, long maxSegmentSize, long compactionIntervalSeconds,
+            boolean readOnly) throws IOException {
+        this.directory = directory;
+        this.maxSegmentSize = maxSegmentSize;
+        this.readOnly = readOnly;
+
+        if (readOnly) {
+            if (!Files.isDirectory(directory)) {
+                throw new NoSuchFileException(directory.toString());
+            }
+        } else {
+            Files.createDirectories(directory);
+        }
+        List<Long> existingSegments = listSegments();
+        for (int i = 0; i < existingSegments.size(); i++) {
+            long segment = existingSegments.get(i);
+            try {
+                openSegment(segment);
+                scan(segment, i == existingSegments.size() - 1);
+            } catch (NoSuchFileException e) {
+                if (!readOnly) {
+                    throw e;
+                }
+                // Compacted since it was listed; its live records were moved to a later segment
+                LOGGER.debug("Backup segment {} no longer exists", segment, e);
+                FileChannel channel = segments.remove(segment);
+                if (channel != null) {
+                    channel.close();
+                }
+                liveBytes.remove(segment);
+            }
+        }
+        if (segments.isEmpty() && !readOnly) {
+            openSegment(1);
+        }
+        activeSegment = segments.isEmpty() ? 0 : segments.lastKey();
+        LOGGER.debug("Opened backup log {} with {} segments and {} metacards",
+                directory,
+                segments.size(),
+                liveCount);
+
+        if (compactionIntervalSeconds > 0) {
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "catalogBackupCompactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactQuietly,
+                    compactionIntervalSeconds,
+                    compactionIntervalSeconds,
+                    TimeUnit.SECONDS);
+        } else {
+            compactor = null;
+        }
+    }
+
+    /**
+     * Opens the log in {@code directory} for reading only, so that it can be read while the
+     * catalog backup plugin is still writing to it. Records appended after the log is opened are
+     * not read. Nothing is truncated, appended or compacted.
+     *
+     * @param directory the directory that holds the segment files
+     * @throws IOException if the directory does not exist or a segment could not be read
+     */
+    public static BackupLog openReadOnly(Path directory) throws IOException {
+        return new BackupLog(directory, Long.MAX_VALUE, 0, true);
+    }
+
+    /**
+     * Serializes a metacard into a record that replaces any earlier record for its ID.
+     */
+    static Entry put(Metacard metacard) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(new MetacardImpl(metacard));
+        }
+        return new Entry(PUT, metacard.getId(), bytes.toByteArray());
+    }
+
+    /**
+     * Creates a tombstone for a deleted metacard ID.
+     */
+    static Entry delete(String id) {
+        return new Entry(DELETE, id, new byte[0]);
+    }
+
+    /**
+     * Appends a group of records with a single write, and forces them to disk before returning.
+     */
+    synchronized void append(List<Entry> entries) throws IOException {
+        checkWritable();
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<Integer> frameLengths = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            int before = bytes.size();
+            writeFrame(bytes, entry);
+            frameLengths.add(bytes.size() - before);
+        }
+
+        FileChannel channel = segments.get(activeSegment);
+        if (channel.size() > 0 && channel.size() + bytes.size() > maxSegmentSize) {
+            channel.force(true);
+            activeSegment++;
+            channel = openSegment(activeSegment);
+        }
+
+        long position = channel.size();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        long writePosition = position;
+        try {
+            while (buffer.hasRemaining()) {
+                writePosition += channel.write(buffer, writePosition);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // Records appended after a partial group would be unreachable when the log is scanned
+            channel.truncate(position);
+            throw e;
+        }
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            int frameLength = frameLengths.get(i);
+            apply(entry.type, entry.id, new Location(activeSegment, position, frameLength));
+            position += frameLength;
+        }
+    }
+
+    /**
+     * @return the latest backup of the metacard, or null if there is none
+     */
+    synchronized Metacard read(String id) throws IOException {
+        checkOpen();
+        IndexEntry indexEntry = index.get(id);
+        return indexEntry == null || indexEntry.latest == null ?
+                null :
+                readMetacard(indexEntry.latest);
+    }
+
+    /**
+     * @return the number of metacards in the backup
+     */
+    public synchronized int size() {
+        return liveCount;
+    }
+
+    /**
+     * @return the number of segment files
+     */
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Reads the latest backup of every metacard and passes it to {@code consumer}. The segments are
+     * read in parallel, each one in file order, so {@code consumer} must be thread-safe. Writes
+     * wait until the restore completes.
+     *
+     * @param consumer    receives each backed up metacard
+     * @param parallelism the number of segments read at the same time
+     * @return the number of metacards restored
+     */
+    public synchronized int restore(Consumer<Metacard> consumer, int parallelism)
+            throws IOException {
+        checkOpen();
+        Map<Long, List<Location>> locationsBySegment = new TreeMap<>();
+        index.values()
+                .stream()
+                .map(indexEntry -> indexEntry.latest)
+                .filter(Objects::nonNull)
+                .forEach(location -> locationsBySegment.computeIfAbsent(location.segment,
+                        segment -> new ArrayList<>())
+                        .add(location));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1,
+                Math.min(parallelism, locationsBySegment.size())));
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (List<Location> locations : locationsBySegment.values()) {
+                locations.sort((first, second) -> Long.compare(first.position, second.position));
+                futures.add(executor.submit(() -> {
+                    for (Location location : locations) {
+                        consumer.accept(readMetacard(location));
+                    }
+                    return locations.size();
+                }));
+            }
+
+            int restored = 0;
+            for (Future<Integer> future : futures) {
+                restored += future.get();
+            }
+            return restored;
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            throw new IOException("Interrupted restoring metacards", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to restore metacards", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Rewrites the live records of the sealed segments that are mostly garbage and deletes those
+     * segments. A tombstone is rewritten only while another segment still holds a record of the
+     * deleted metacard.
+     */
+    synchronized void compact() throws IOException {
+        checkWritable();
+        for (long segment : new ArrayList<>(segments.headMap(activeSegment)
+                .keySet())) {
+            FileChannel channel = segments.get(segment);
+            long size = channel.size();
+            if (size > 0 && liveBytes.get(segment)
+                    .get() >= size * COMPACTION_THRESHOLD) {
+                continue;
+            }
+
+            List<Entry> retained = new ArrayList<>();
+            Set<String> tombstones = new LinkedHashSet<>();
+            Map<String, Integer> putsInSegment = new HashMap<>();
+            forEachFrame(segment, (entry, location) -> {
+                IndexEntry indexEntry = index.get(entry.id);
+                if (entry.type == PUT) {
+                    putsInSegment.merge(entry.id, 1, Integer::sum);
+                    if (indexEntry != null && location.equals(indexEntry.latest)) {
+                        retained.add(entry);
+                    }
+                } else if (indexEntry != null && indexEntry.latest == null) {
+                    tombstones.add(entry.id);
+                }
+            });
+            for (String id : tombstones) {
+                if (index.get(id).puts > putsInSegment.getOrDefault(id, 0)) {
+                    retained.add(delete(id));
+                }
+            }
+            append(retained);
+
+            channel.close();
+            segments.remove(segment);
+            liveBytes.remove(segment);
+            Files.deleteIfExists(segmentPath(segment));
+            putsInSegment.forEach(this::removePuts);
+            LOGGER.debug("Compacted backup segment {}, keeping {} records",
+                    segment,
+                    retained.size());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+        IOException closeException = null;
+        for (FileChannel channel : segments.values()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                closeException = e;
+            }
+        }
+        segments.clear();
+        if (closeException != null) {
+            throw closeException;
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Unable to compact catalog backup log {}", directory, e);
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Backup log " + directory + " is closed");
+        }
+    }
+
+    private void checkWritable() throws IOException {
+        checkOpen();
+        if (readOnly) {
+            throw new IOException("Backup log " + directory + " is read-only");
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_EXTENSION)) {
+            for (Path path : stream) {
+                String name = path.getFileName()
+                        .toString();
+                try {
+                    numbers.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_EXTENSION.length())));
+                } catch (NumberFormatException e) {
+                    LOGGER.debug("Ignoring file {} in backup directory", path);
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%012d%s",
+                SEGMENT_PREFIX,
+                segment,
+                SEGMENT_EXTENSION));
+    }
+
+    private FileChannel openSegment(long segment) throws IOException {
+        FileChannel channel = readOnly ?
+                FileChannel.open(segmentPath(segment), StandardOpenOption.READ) :
+                FileChannel.open(segmentPath(segment),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        segments.put(segment, channel);
+        liveBytes.put(segment, new AtomicLong());
+        return channel;
+    }
+
+    private void scan(long segment, boolean lastSegment) throws IOException {
+        long validLength = forEachFrame(segment,
+                (entry, location) -> apply(entry.type, entry.id, location));
+
+        FileChannel channel = segments.get(segment);
+        if (validLength < channel.size()) {
+            if (lastSegment && readOnly) {
+                LOGGER.debug("Ignoring incomplete record at the end of backup segment {}",
+                        segmentPath(segment));
+            } else if (lastSegment) {
+                LOGGER.info("Truncating incomplete record at the end of backup segment {}",
+                        segmentPath(segment));
+                channel.truncate(validLength);
+            } else {
+                LOGGER.warn("Ignoring corrupt records at the end of backup segment {}",
+                        segmentPath(segment));
+            }
+        }
+    }
+
+    /**
+     * Reads the valid records of a segment in order.
+     *
+     * @return the length of the segment up to the first incomplete or corrupt record
+     */
+    private long forEachFrame(long segment, FrameConsumer consumer) throws IOException {
+        long position = 0;
+        try (InputStream inputStream = Files.newInputStream(segmentPath(segment));
+                DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream))) {
+            while (true) {
+                byte[] body;
+                long checksum;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                        return position;
+                    }
+                    checksum = in.readInt() & 0xffffffffL;
+                    body = new byte[length];
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    return position;
+                }
+                if (checksum(body) != checksum) {
+                    return position;
+                }
+
+                int frameLength = FRAME_HEADER_LENGTH + body.length;
+                consumer.accept(readBody(body),
+                        new Location(segment, position, frameLength));
+                position += frameLength;
+            }
+        }
+    }
+
+    private void apply(byte type, String id, Location location) {
+        IndexEntry indexEntry = index.get(id);
+        if (indexEntry == null) {
+            if (type != PUT) {
+                // No record of the ID is left for the tombstone to hide
+                return;
+            }
+            indexEntry = new IndexEntry();
+            index.put(id, indexEntry);
+        }
+
+        Location previous = indexEntry.latest;
+        if (previous != null) {
+            AtomicLong previousLiveBytes = liveBytes.get(previous.segment);
+            if (previousLiveBytes != null) {
+                previousLiveBytes.addAndGet(-previous.length);
+            }
+        } else if (type == PUT) {
+            liveCount++;
+        }
+
+        if (type == PUT) {
+            indexEntry.latest = location;
+            indexEntry.puts++;
+            liveBytes.get(location.segment)
+                    .addAndGet(location.length);
+        } else {
+            if (previous != null) {
+                liveCount--;
+            }
+            indexEntry.latest = null;
+        }
+    }
+
+    /**
+     * Forgets the records of an ID in a deleted segment, and the ID itself once it is deleted and
+     * has no records left.
+     */
+    private void removePuts(String id, int puts) {
+        IndexEntry indexEntry = index.get(id);
+        if (indexEntry == null) {
+            return;
+        }
+        indexEntry.puts -= puts;
+        if (indexEntry.puts <= 0 && indexEntry.latest == null) {
+            index.remove(id);
+        }
+    }
+
+    private Metacard readMetacard(Location location) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(location.length);
+        long position = location.position;
+        FileChannel channel = segments.get(location.segment);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of backup segment " + location.segment);
+            }
+            position += read;
+        }
+
+        byte[] body = new byte[location.length - FRAME_HEADER_LENGTH];
+        buffer.position(FRAME_HEADER_LENGTH);
+        buffer.get(body);
+        Entry entry = readBody(body);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(
+                entry.payload))) {
+            return (Metacard) ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unable to read backup of metacard " + entry.id, e);
+        }
+    }
+
+    private static void writeFrame(ByteArrayOutputStream bytes, Entry entry) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(entry.payload.length + 64);
+        DataOutputStream bodyOut = new DataOutputStream(body);
+        bodyOut.writeByte(entry.type);
+        bodyOut.writeUTF(entry.id);
+        bodyOut.write(entry.payload);
+        bodyOut.flush();
+        byte[] bodyBytes = body.toByteArray();
+
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(bodyBytes.length);
+        out.writeInt((int) checksum(bodyBytes));
+        out.write(bodyBytes);
+        out.flush();
+    }
+
+    private static Entry readBody(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = in.readByte();
+        String id = in.readUTF();
+        byte[] payload = new byte[in.available()];
+        in.readFully(payload);
+        return new Entry(type, id, payload);
+    }
+
+    private static long checksum(byte[] bytes) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes);
+        return crc32.getValue();
+    }
+
+    /**
+     * A record to append to the log.
+     */
+    static final class Entry {
+
+        private final byte type;
+
+        private final String id;
+
+        private final byte[] payload;
+
+        private Entry(byte type, String id, byte[] payload) {
+            this.type = type;
+            this.id = id;
+            this.payload = payload;
+        }
+
+        String getId() {
+            return id;
+        }
+
+        boolean isDelete() {
+            return type == DELETE;
+        }
+    }
+
+    /**
+     * The latest record of an ID, or {@code null} once it is deleted, and the number of its
+     * records in the segments.
+     */
+    private static final class IndexEntry {
+
+        private Location latest;
+
+        private int puts;
+    }
+
+    private static final class Location {
+
+        private final long segment;
+
+        private final long position;
+
+        private final int length;
+
+        private Location(long segment, long position, int length) {
+            this.segment = segment;
+            this.position = position;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Location)) {
+                return false;
+            }
+            Location location = (Location) o;
+            return segment == location.segment && position == location.position;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(segment) + Long.hashCode(position);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FrameConsumer {
+        void accept(Entry entry, Location location) throws IOException;
+    }
+}
@@ -15,13 +15,13 @@
 
 import java.io.File;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.codice.ddf.configuration.AbsolutePathResolver;
@@ -29,7 +29,6 @@
 import org.slf4j.LoggerFactory;
 
 import ddf.catalog.data.Metacard;
-import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteResponse;
 import ddf.catalog.operation.Update;
@@ -41,7 +40,11 @@
  * PostIngestPlugin, so it processes CreateResponses, DeleteResponses, and
  * UpdateResponses.
  * <p/>
- * The root backup directory and subdirectory levels can be configured in the
+ * Metacards are appended to a {@link BackupLog} in the root backup directory. Deleted metacards
+ * are recorded as tombstones. The changes queued while a group is being written are written
+ * together as the next group, with a single fsync.
+ * <p/>
+ * The root backup directory, segment size and compaction interval can be configured in the
  * Backup Post-Ingest Plugin section in the admin console.
  * <p/>
  * This feature can be installed/uninstalled with the following commands:
@@ -58,17 +61,23 @@ public class CatalogBackupPlugin implements PostIngestPlugin {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CatalogBackupPlugin.class);
 
-    private static final String TEMP_FILE_EXTENSION = ".tmp";
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private final Queue<PendingChange> pendingChanges = new ConcurrentLinkedQueue<>();
 
     private long terminationTimeoutSeconds;
 
     private int subDirLevels = 0;
 
+    private long maxSegmentSizeMegabytes = 64;
+
+    private long compactionIntervalMinutes = 10;
+
     private String rootBackupDir;
 
     private ExecutorService executor;
 
-    private File rootDirOjbect;
+    private BackupLog backupLog;
 
     /**
      * Backs up created metacards to the file system backup.
@@ -79,7 +88,10 @@ public class CatalogBackupPlugin implements PostIngestPlugin {
     @Override
     public CreateResponse process(CreateResponse input) {
 
-        execute(() -> create(input.getCreatedMetacards()));
+        input.getCreatedMetacards()
+                .forEach(metacard -> pendingChanges.add(new PendingChange(metacard.getId(),
+                        metacard)));
+        execute(this::flush);
         return input;
     }
 
@@ -91,16 +103,16 @@ public CreateResponse process(CreateResponse input) {
      */
     @Override
     public UpdateResponse process(UpdateResponse input) {
-        int size = input.getUpdatedMetacards()
-                .size();
-        List<Metacard> toDelete = new ArrayList<>(size);
-        List<Metacard> toCreate = new ArrayList<>(size);
         for (Update update : input.getUpdatedMetacards()) {
-            toDelete.add(update.getOldMetacard());
-            toCreate.add(update.getNewMetacard());
+            Metacard oldMetacard = update.getOldMetacard();
+            Metacard newMetacard = update.getNewMetacard();
+            if (oldMetacard != null && !oldMetacard.getId()
+                    .equals(newMetacard.getId())) {
+                pendingChanges.add(new PendingChange(oldMetacard.getId(), null));
+            }
+            pendingChanges.add(new PendingChange(newMetacard.getId(), newMetacard));
         }
-        execute(() -> delete(toDelete));
-        execute(() -> create(toCreate));
+        execute(this::flush);
         return input;
     }
 
@@ -113,7 +125,10 @@ public UpdateResponse process(UpdateResponse input) {
     @Override
     public DeleteResponse process(DeleteResponse input) {
 
-        execute(() -> delete(input.getDeletedMetacards()));
+        input.getDeletedMetacards()
+                .forEach(metacard -> pendingChanges.add(new PendingChange(metacard.getId(),
+                        null)));
+        execute(this::flush);
         return input;
     }
 
@@ -124,7 +139,7 @@ public DeleteResponse process(DeleteResponse input) {
     public void shutdown() {
 
         getExecutor().shutdown();
-        if (!executor.isShutdown()) {
+        if (!executor.isTerminated()) {
             try {
                 executor.awaitTermination(getTerminationTimeoutSeconds(), TimeUnit.SECONDS);
                 // If the remaining jobs in the queue are not completed TERMINATION_TIMEOUT elapses
@@ -132,6 +147,7 @@ public void shutdown() {
             } catch (InterruptedException e) {
                 LOGGER.warn(
                         "Backup of metacards interrupted. Some metacards might not be backed up.");
+                closeBackupLog();
                 throw new IllegalStateException(e);
             }
             final List<Runnable> failures = executor.shutdownNow();
@@ -140,6 +156,7 @@ public void shutdown() {
                         "Cancelled tasks to backup metacards. Some metacards might not be backed up.");
             }
         }
+        closeBackupLog();
     }
 
     ExecutorService getExecutor() {
@@ -155,45 +172,44 @@ private void execute(Runnable task) {
         executor.execute(task);
     }
 
-    private void create(List<Metacard> metacards) {
-
-        List<String> errors = new ArrayList<>();
-        for (Metacard metacard : metacards) {
+    /**
+     * Writes the queued changes as one group.
+     */
+    private synchronized void flush() {
+
+        List<BackupLog.Entry> entries = new ArrayList<>();
+        List<String> createErrors = new ArrayList<>();
+        List<String> deleteErrors = new ArrayList<>();
+        PendingChange change;
+        while ((change = pendingChanges.poll()) != null) {
+            if (change.metacard == null) {
+                entries.add(BackupLog.delete(change.id));
+                continue;
+            }
             try {
-                createFile(metacard);
-            } catch (RuntimeException | IOException e) {
-                errors.add(metacard.getId());
+                entries.add(BackupLog.put(change.metacard));
+            } catch (IOException | RuntimeException e) {
+                LOGGER.debug("Unable to serialize metacard {}", change.id, e);
+                createErrors.add(change.id);
             }
         }
 
-        if (!errors.isEmpty()) {
-            LOGGER.warn(getExceptionMessage(errors, CREATE));
-        }
-    }
-
-    private void delete(List<Metacard> cards) {
-        List<String> errors = new ArrayList<>();
-        for (Metacard metacard : cards) {
+        if (!entries.isEmpty()) {
             try {
-                deleteFile(metacard);
+                getBackupLog().append(entries);
             } catch (IOException | RuntimeException e) {
-                errors.add(metacard.getId());
+                LOGGER.debug("Unable to write catalog backup", e);
+                for (BackupLog.Entry entry : entries) {
+                    (entry.isDelete() ? deleteErrors : createErrors).add(entry.getId());
+                }
             }
         }
 
-        if (!errors.isEmpty()) {
-            LOGGER.warn(getExceptionMessage(errors, DELETE));
+        if (!createErrors.isEmpty()) {
+            LOGGER.warn(getExceptionMessage(createErrors, CREATE));
         }
-    }
-
-    private void renameTempFile(File source) throws IOException {
-        File destination = new File(StringUtils.removeEnd(source.getAbsolutePath(),
-                TEMP_FILE_EXTENSION));
-        boolean success = source.renameTo(destination);
-        if (!success) {
-            LOGGER.debug("Failed to move {} to {}.",
-                    source.getAbsolutePath(),
-                    destination.getAbsolutePath());
+        if (!deleteErrors.isEmpty()) {
+            LOGGER.warn(getExceptionMessage(deleteErrors, DELETE));
         }
     }
 
@@ -203,58 +219,27 @@ private String getExceptionMessage(List<String> metacardsIdsInError, String oper
                 + " metacard(s) [" + StringUtils.join(metacardsIdsInError, ",") + "]. ";
     }
 
-    private void createFile(Metacard metacard) throws IOException {
-
-        // Metacards written to temp files. Each temp file is renamed when the write is
-        // complete. This makes it easy to find and remove failed files.
-        File tempFile = getFile(metacard.getId(), TEMP_FILE_EXTENSION);
-
-        try (ObjectOutputStream oos = new ObjectOutputStream(FileUtils.openOutputStream(tempFile))) {
-            oos.writeObject(new MetacardImpl(metacard));
-        }
-
-        renameTempFile(tempFile);
-    }
-
-    private void deleteFile(Metacard metacard) throws IOException {
-
-        File metacardToDelete = getFile(metacard.getId(), "");
-        FileUtils.forceDelete(metacardToDelete);
-    }
-
-    private File getFile(String id, String extension) throws IOException {
-
-        int depth = getDepth(id.length());
-        return new File(getCompleteDirectory(depth, id), id + extension);
-    }
-
-    private File getCompleteDirectory(int depth, String id) throws IOException {
-
-        File parent = getRootDirObject();
-        for (int i = 0; i < depth; i++) {
-            parent = new File(parent, id.substring(i * 2, i * 2 + 2));
-        }
-
-        return parent;
-    }
-
-    private int getDepth(int idLength) {
-        int levels = getSubDirLevels();
-        if (idLength == 1 || idLength < getSubDirLevels() * 2) {
-            levels = idLength / 2;
-        }
-        return levels;
-    }
-
-    private File getRootDirObject() throws IOException {
-        if (rootDirOjbect == null) {
+    private synchronized BackupLog getBackupLog() throws IOException {
+        if (backupLog == null) {
             Validate.notNull(getRootBackupDir());
             File directory = new File(getRootBackupDir());
-            FileUtils.forceMkdir(directory);
+            backupLog = new BackupLog(directory.toPath(),
+                    maxSegmentSizeMegabytes * BYTES_PER_MEGABYTE,
+                    TimeUnit.MINUTES.toSeconds(compactionIntervalMinutes));
             validateDirectory(directory);
-            rootDirOjbect = directory;
         }
-        return rootDirOjbect;
+        return backupLog;
+    }
+
+    private synchronized void closeBackupLog() {
+        if (backupLog != null) {
+            try {
+                backupLog.close();
+            } catch (IOException e) {
+                LOGGER.info("Unable to close catalog backup log", e);
+            }
+            backupLog = null;
+        }
     }
 
     private void validateDirectory(File directory) {
@@ -286,7 +271,42 @@ public String getRootBackupDir() {
     public void setRootBackupDir(String dir) {
 
         rootBackupDir = new AbsolutePathResolver(dir).getPath();
-        rootDirOjbect = null;
+        closeBackupLog();
+    }
+
+    public long getMaxSegmentSizeMegabytes() {
+        return maxSegmentSizeMegabytes;
+    }
+
+    /**
+     * Sets the size of a backup segment file after which a new one is started.
+     *
+     * @param megabytes maximum segment size in megabytes
+     */
+    public void setMaxSegmentSizeMegabytes(long megabytes) {
+        Validate.isTrue(megabytes > 0,
+                "Segment size for the catalog backup plugin must be greater than zero. Actual value was ",
+                megabytes);
+        this.maxSegmentSizeMegabytes = megabytes;
+        closeBackupLog();
+    }
+
+    public long getCompactionIntervalMinutes() {
+        return compactionIntervalMinutes;
+    }
+
+    /**
+     * Sets the interval at which backup segments that mostly hold replaced or deleted metacards
+     * are compacted.
+     *
+     * @param minutes compaction interval in minutes, or 0 to disable compaction
+     */
+    public void setCompactionIntervalMinutes(long minutes) {
+        Validate.isTrue(minutes >= 0,
+                "Compaction interval for the catalog backup plugin must be zero or greater. Actual value was ",
+                minutes);
+        this.compactionIntervalMinutes = minutes;
+        closeBackupLog();
     }
 
     public int getSubDirLevels() {
@@ -294,16 +314,32 @@ public int getSubDirLevels() {
     }
 
     /**
-     * Sets the number of subdirectory levels to create. Two characters from
-     * each metacard ID will be used to name each subdirectory level.
+     * Backups are no longer written to a directory per metacard, so the number of subdirectory
+     * levels is ignored. It is kept so that existing configurations can still be applied.
      *
      * @param levels number of subdirectory levels to create
+     * @deprecated backups are written to segment files in the root backup directory
      */
+    @Deprecated
     public void setSubDirLevels(int levels) {
         Validate.isTrue(levels >= 0,
                 "Depth of directory hierarchy for the catalog backup plugin must be zero or greater. Actual value was ",
                 levels);
         this.subDirLevels = levels;
     }
-}
 
+    private static final class PendingChange {
+
+        private final String id;
+
+        private final Metacard metacard;
+
+        /**
+         * @param metacard the metacard to back up, or null if the metacard was deleted
+         */
+        private PendingChange(String id, Metacard metacard) {
+            this.id = id;
+            this.metacard = metacard;
+        }
+    }
+}
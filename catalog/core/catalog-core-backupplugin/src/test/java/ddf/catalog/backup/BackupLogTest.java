@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.backup;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.IsNull.nullValue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Strings;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+
+public class BackupLogTest {
+
+    private static final long SEGMENT_SIZE = 16 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void setup() {
+        directory = temporaryFolder.getRoot()
+                .toPath();
+    }
+
+    @Test
+    public void testLatestRecordWins() throws Exception {
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            log.append(Collections.singletonList(BackupLog.put(metacard("1", "first"))));
+            log.append(Collections.singletonList(BackupLog.put(metacard("1", "second"))));
+
+            assertThat(log.read("1")
+                    .getTitle(), is("second"));
+            assertThat(log.size(), is(1));
+        }
+    }
+
+    @Test
+    public void testTombstoneSurvivesReopen() throws Exception {
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            log.append(Collections.singletonList(BackupLog.put(metacard("1", "title"))));
+            log.append(Collections.singletonList(BackupLog.delete("1")));
+        }
+
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            assertThat(log.read("1"), is(nullValue()));
+            assertThat(log.size(), is(0));
+        }
+    }
+
+    @Test
+    public void testIncompleteRecordIsTruncated() throws Exception {
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            log.append(Collections.singletonList(BackupLog.put(metacard("1", "title"))));
+        }
+        Path segment = segments().get(0);
+        long validLength = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 1, 0, 1, 2}));
+        }
+
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            assertThat(Files.size(segment), is(validLength));
+            log.append(Collections.singletonList(BackupLog.put(metacard("2", "title"))));
+        }
+
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            assertThat(log.size(), is(2));
+        }
+    }
+
+    @Test
+    public void testCompactionRemovesReplacedRecords() throws Exception {
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < 20; i++) {
+                    log.append(Collections.singletonList(BackupLog.put(metacard("id" + i,
+                            "round" + round))));
+                }
+            }
+            log.append(Collections.singletonList(BackupLog.delete("id0")));
+            int segmentCount = log.getSegmentCount();
+
+            log.compact();
+
+            assertThat(log.getSegmentCount(), is(lessThan(segmentCount)));
+            assertThat(log.size(), is(19));
+            assertThat(log.read("id1")
+                    .getTitle(), is("round4"));
+        }
+
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            assertThat(log.size(), is(19));
+            assertThat(log.read("id0"), is(nullValue()));
+            assertThat(log.read("id19")
+                    .getTitle(), is("round4"));
+        }
+    }
+
+    @Test
+    public void testCompactionDropsTombstonesOfCompactedRecords() throws Exception {
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            // the first segment stays live, so it is never compacted
+            log.append(Collections.singletonList(BackupLog.put(metacard("kept",
+                    title(SEGMENT_SIZE)))));
+            for (int i = 0; i < 100; i++) {
+                log.append(Collections.singletonList(BackupLog.put(metacard("id" + i,
+                        "title"))));
+            }
+            for (int i = 0; i < 100; i++) {
+                log.append(Collections.singletonList(BackupLog.delete("id" + i)));
+            }
+            log.append(Collections.singletonList(BackupLog.put(metacard("live", "title"))));
+
+            for (int round = 0; round < 5; round++) {
+                log.compact();
+                // rolls over to a new segment so that the last segment can be compacted
+                log.append(Collections.singletonList(BackupLog.put(metacard("live",
+                        "round" + round))));
+                log.append(Collections.singletonList(BackupLog.put(metacard("filler",
+                        title(SEGMENT_SIZE)))));
+            }
+            log.compact();
+
+            assertThat(log.size(), is(3));
+            assertThat(log.getSegmentCount(), is(lessThan(5)));
+        }
+
+        assertThat(segmentsContain("id0"), is(false));
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            assertThat(log.size(), is(3));
+            assertThat(log.read("id0"), is(nullValue()));
+            assertThat(log.read("live")
+                    .getTitle(), is("round4"));
+        }
+    }
+
+    @Test
+    public void testCompactionKeepsTombstoneOfOlderRecord() throws Exception {
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            // the first segment stays mostly live, so it is not compacted
+            log.append(Collections.singletonList(BackupLog.put(metacard("deleted", "title"))));
+            log.append(Collections.singletonList(BackupLog.put(metacard("kept",
+                    title(SEGMENT_SIZE / 2)))));
+            log.append(Collections.singletonList(BackupLog.put(metacard("filler",
+                    title(SEGMENT_SIZE)))));
+            log.append(Collections.singletonList(BackupLog.delete("deleted")));
+            log.append(Collections.singletonList(BackupLog.put(metacard("filler",
+                    title(SEGMENT_SIZE)))));
+
+            log.compact();
+        }
+
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            assertThat(log.read("deleted"), is(nullValue()));
+            assertThat(log.size(), is(2));
+        }
+    }
+
+    @Test
+    public void testRestoreReadsAllSegments() throws Exception {
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            List<BackupLog.Entry> entries = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                entries.add(BackupLog.put(metacard("id" + i, "title" + i)));
+                if (entries.size() == 10) {
+                    log.append(entries);
+                    entries = new ArrayList<>();
+                }
+            }
+            Map<String, Metacard> restored = new ConcurrentHashMap<>();
+
+            int count = log.restore(metacard -> restored.put(metacard.getId(), metacard), 4);
+
+            assertThat(count, is(100));
+            assertThat(restored.size(), is(100));
+            assertThat(restored.get("id42")
+                    .getTitle(), is("title42"));
+        }
+    }
+
+    @Test
+    public void testReadOnlyLeavesLogUntouched() throws Exception {
+        try (BackupLog log = new BackupLog(directory, SEGMENT_SIZE, 0)) {
+            log.append(Collections.singletonList(BackupLog.put(metacard("1", "title"))));
+            log.append(Collections.singletonList(BackupLog.delete("1")));
+            log.append(Collections.singletonList(BackupLog.put(metacard("2", "title"))));
+        }
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 1, 0, 1, 2}));
+        }
+        long length = Files.size(segment);
+
+        try (BackupLog log = BackupLog.openReadOnly(directory)) {
+            Map<String, Metacard> restored = new ConcurrentHashMap<>();
+
+            assertThat(log.restore(metacard -> restored.put(metacard.getId(), metacard), 2),
+                    is(1));
+            assertThat(restored.keySet(), is(Collections.singleton("2")));
+            assertThat(Files.size(segment), is(length));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadOnlyRejectsAppend() throws Exception {
+        try (BackupLog log = BackupLog.openReadOnly(directory)) {
+            log.append(Collections.singletonList(BackupLog.put(metacard("1", "title"))));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadOnlyRequiresDirectory() throws Exception {
+        BackupLog.openReadOnly(directory.resolve("missing"));
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                BackupLog.SEGMENT_PREFIX + "*")) {
+            stream.forEach(segments::add);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private boolean segmentsContain(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        for (Path segment : segments()) {
+            byte[] content = Files.readAllBytes(segment);
+            for (int i = 0; i + bytes.length <= content.length; i++) {
+                if (Arrays.equals(Arrays.copyOfRange(content, i, i + bytes.length), bytes)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String title(long length) {
+        return Strings.repeat("x", (int) length);
+    }
+
+    private Metacard metacard(String id, String title) {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId(id);
+        metacard.setTitle(title);
+        return metacard;
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.backup;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+
+/**
+ * Compares backing up a batch of created metacards to a {@link BackupLog} with writing each
+ * metacard to its own file under a two-level hashed directory tree, which is how the plugin used
+ * to back up metacards. Every invocation backs up the same metacard IDs, so the per-file backup
+ * replaces its files and the log appends newer records for them. The log forces every batch to
+ * disk; the per-file backup never did. Benchmarks are not run as part of the build; run them
+ * through {@link #main(String[])} with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CatalogBackupBenchmark {
+
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    private static final int SUB_DIR_LEVELS = 2;
+
+    @Param({"1", "100", "1000"})
+    private int batchSize;
+
+    private Path directory;
+
+    private BackupLog backupLog;
+
+    private List<Metacard> metacards;
+
+    @Setup(Level.Trial)
+    public void createBackups() throws IOException {
+        directory = Files.createTempDirectory("backup");
+        backupLog = new BackupLog(directory.resolve("log"), 64L * 1024 * 1024, 0);
+
+        metacards = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            MetacardImpl metacard = new MetacardImpl();
+            metacard.setId(UUID.randomUUID()
+                    .toString()
+                    .replaceAll("-", ""));
+            metacard.setTitle("Metacard " + i);
+            metacard.setMetadata("<metadata>" + metacard.getId() + "</metadata>");
+            metacards.add(metacard);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteBackups() throws IOException {
+        backupLog.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder())
+                    .collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public int backupLog() throws IOException {
+        List<BackupLog.Entry> entries = new ArrayList<>(metacards.size());
+        for (Metacard metacard : metacards) {
+            entries.add(BackupLog.put(metacard));
+        }
+        backupLog.append(entries);
+        return backupLog.size();
+    }
+
+    @Benchmark
+    public int perFileBackup() throws IOException {
+        Path root = directory.resolve("files");
+        for (Metacard metacard : metacards) {
+            String id = metacard.getId();
+            Path parent = root;
+            for (int i = 0; i < SUB_DIR_LEVELS; i++) {
+                parent = parent.resolve(id.substring(i * 2, i * 2 + 2));
+            }
+            Files.createDirectories(parent);
+
+            Path tempFile = parent.resolve(id + TEMP_FILE_EXTENSION);
+            try (OutputStream out = Files.newOutputStream(tempFile);
+                    ObjectOutputStream oos = new ObjectOutputStream(out)) {
+                oos.writeObject(new MetacardImpl(metacard));
+            }
+            Files.move(tempFile, parent.resolve(id), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return metacards.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CatalogBackupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
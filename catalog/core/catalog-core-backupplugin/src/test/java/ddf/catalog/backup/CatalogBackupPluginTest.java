@@ -15,7 +15,10 @@
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.core.IsNull.notNullValue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
@@ -24,13 +27,13 @@
 import static org.mockito.Mockito.when;
 import static junit.framework.Assert.fail;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -73,63 +76,78 @@ public void testCreateResponseNotNull() throws PluginExecutionException {
         assertThat(getPlugin().process(getCreateResponse(METACARD_IDS)), is(notNullValue()));
     }
 
-    @Test
-    public void testCreateResponseSubdirectoryLevelsIsZero() throws Exception {
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateResponseSubdirectoryLevelsIsNegative() throws Exception {
         // Setup
-        int subDirLevels = 0;
+        getPlugin(-1).process(getCreateResponse(METACARD_IDS));
 
-        // Perform test
-        getPlugin(0).process(getCreateResponse(METACARD_IDS));
+    }
 
-        // Verify
-        assertFilesExist(METACARD_IDS, subDirLevels);
+    @Test(expected = IllegalArgumentException.class)
+    public void testSegmentSizeIsZero() {
+        getPlugin().setMaxSegmentSizeMegabytes(0);
     }
 
     @Test(expected = IllegalArgumentException.class)
-    public void testCreateResponseSubdirectoryLevelsIsNegative() throws Exception {
-        // Setup
-        getPlugin(-1).process(getCreateResponse(METACARD_IDS));
+    public void testCompactionIntervalIsNegative() {
+        getPlugin().setCompactionIntervalMinutes(-1);
+    }
 
+    @Test
+    public void testCreateResponseCreateSuccessful() throws Exception {
+
+        CatalogBackupPlugin plugin = getPlugin();
+        plugin.process(getCreateResponse(METACARD_IDS));
+        assertThat(restore().keySet(), containsInAnyOrder(METACARD_IDS));
     }
 
-    /**
-     * If too many subdirectories are specified (two characters from metacardId
-     * are used to name each subdirectory), then the CatalogBackupPlugin makes
-     * as many subdirectories as it can for each metacardId.
-     */
     @Test
-    public void testCreateResponseSubdirectoryLevelsTooBigForMetacardId() throws Exception {
-        //Setup
-        String[] ids = {"6c38", "0283"};
-        getPlugin(1000).process(getCreateResponse(ids));
+    public void testBackupSurvivesRestart() throws Exception {
+
+        CatalogBackupPlugin plugin = getPlugin();
+        plugin.process(getCreateResponse(METACARD_IDS));
+        plugin.process(getDeleteResponse(Collections.singletonList(METACARD_IDS[1])));
+        plugin.shutdown();
 
-        //Verify
-        assertFilesExist(ids, 2);
+        Map<String, Metacard> restored = restore();
+        assertThat(restored.keySet(), contains(METACARD_IDS[0]));
+        assertThat(restored.get(METACARD_IDS[0])
+                .getTitle(), is(BASE_OLD_TITLE));
     }
 
     @Test
-    public void testCreateResponseCreateSuccessful() throws Exception {
+    public void testBulkIngestWritesFewFiles() throws Exception {
 
-        int subDirLevels = 3;
-        getPlugin(subDirLevels).process(getCreateResponse(METACARD_IDS));
-        assertFilesExist(METACARD_IDS, subDirLevels);
+        CatalogBackupPlugin plugin = getPlugin();
+        plugin.setMaxSegmentSizeMegabytes(1);
+        for (int batch = 0; batch < 100; batch++) {
+            int first = batch * 100;
+            String[] ids = IntStream.range(first, first + 100)
+                    .mapToObj(i -> "metacard" + i)
+                    .toArray(String[]::new);
+            plugin.process(getCreateResponse(ids));
+        }
+
+        assertThat(restore().size(), is(10000));
+        String[] files = backupDirObject.getRoot()
+                .list();
+        assertThat(files.length, is(lessThan(50)));
     }
 
     @Test
     public void testDeleteResponseDeleteSuccessful() throws Exception {
 
         // Setup
-        int subDirLevels = 3;
-        CatalogBackupPlugin plugin = getPlugin(subDirLevels);
+        CatalogBackupPlugin plugin = getPlugin();
         DeleteResponse mockDeleteResponse = getDeleteResponse(Arrays.asList(METACARD_IDS));
         plugin.process(getCreateResponse(METACARD_IDS));
 
-        // Delete files
+        // Delete metacards
         DeleteResponse postPluginDeleteResponse = plugin.process(mockDeleteResponse);
 
-        // Ensure files were deleted
+        // Ensure metacards were deleted
         assertThat(postPluginDeleteResponse, is(notNullValue()));
-        assertFilesDoNotExist(METACARD_IDS, subDirLevels);
+        assertThat(restore().isEmpty(), is(true));
     }
 
     @Test
@@ -159,8 +177,7 @@ public void testDeleteResponseFailToDeleteOneMetacard() throws PluginExecutionEx
     @Test
     public void testUpdateResponseUpdateSuccessful() throws Exception {
         // Setup
-        int subDirLevels = 3;
-        CatalogBackupPlugin plugin = getPlugin(3);
+        CatalogBackupPlugin plugin = getPlugin();
         plugin.process(getCreateResponse(METACARD_IDS));
         UpdateResponse mockUpdateResponse = getUpdateResponse(Arrays.asList(METACARD_IDS));
 
@@ -170,16 +187,16 @@ public void testUpdateResponseUpdateSuccessful() throws Exception {
         // Verify
         assertThat(postPluginUpdateResponse, is(notNullValue()));
 
+        Map<String, Metacard> restored = restore();
         IntStream.range(0, METACARD_IDS.length)
                 .forEach(index -> {
                     String oldId = METACARD_IDS[index];
 
                     // Perform test
-                    File updatedFile = getFileFor(oldId, subDirLevels);
-                    Metacard updatedCard = readMetacard(updatedFile);
+                    Metacard updatedCard = restored.get(oldId);
 
-                    // Verify expected file exists
-                    assertThat(updatedFile.exists(), is(Boolean.TRUE));
+                    // Verify expected backup exists
+                    assertThat(updatedCard, is(notNullValue()));
 
                     // Verify that the metacard id has not changed
                     assertThat(updatedCard.getId(), is(oldId));
@@ -314,56 +331,13 @@ private Metacard getMetacard(String metacardId, String title) {
         return metacard;
     }
 
-    private String getMetacardPath(String metacardId, int subDirLevels) {
-        StringBuilder builder = new StringBuilder();
-
-        if (subDirLevels < 0) {
-            subDirLevels = 0;
-        } else if (metacardId.length() == 1 || metacardId.length() < subDirLevels * 2) {
-            subDirLevels = (int) Math.floor(metacardId.length() / 2);
-        }
-
-        for (int i = 0; i < subDirLevels; i++) {
-            builder.append(File.separator);
-            builder.append(metacardId.substring(i * 2, i * 2 + 2));
-        }
-
-        builder.append(File.separator);
-
-        return builder.toString();
-    }
-
-    private Metacard readMetacard(File file) {
-
-        Metacard metacard = null;
-        try (FileInputStream fis = new FileInputStream(file);
-                ObjectInputStream ois = new ObjectInputStream(fis)) {
-            metacard = (Metacard) ois.readObject();
-        } catch (ClassNotFoundException | IOException e) {
-            fail();
-        }
-
-        return metacard;
-    }
-
-    private File getFileFor(String metacardId, int subDirLevels) {
-        return new File(backupDirObject.getRoot()
-                .getAbsolutePath() + getMetacardPath(metacardId, subDirLevels) + metacardId);
-    }
-
-    private void assertFilesDoNotExist(String[] metacardIds, int subDirLevels) {
-        assertFiles(Boolean.FALSE, metacardIds, subDirLevels);
-
-    }
-
-    private void assertFilesExist(String[] metacardIds, int subDirLevels) {
-        assertFiles(Boolean.TRUE, metacardIds, subDirLevels);
-    }
-
-    private void assertFiles(Boolean test, String[] metacardIds, int subDirLevels) {
-        for (String id : metacardIds) {
-            assertThat(getFileFor(id, subDirLevels).exists(), is(test));
+    private Map<String, Metacard> restore() throws IOException {
+        Map<String, Metacard> restored = new ConcurrentHashMap<>();
+        try (BackupLog backupLog = BackupLog.openReadOnly(backupDirObject.getRoot()
+                .toPath())) {
+            backupLog.restore(metacard -> restored.put(metacard.getId(), metacard), 2);
         }
+        return restored;
     }
 
     private CatalogBackupPlugin getPlugin() {
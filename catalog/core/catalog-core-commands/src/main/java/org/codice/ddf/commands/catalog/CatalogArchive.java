@@ -0,0 +1,492 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.commands.catalog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+
+/**
+ * Reads and writes the single file archive used by {@code catalog:dump --archive} and
+ * {@code catalog:ingest --archive}.
+ * <p>
+ * An archive is a header followed by chunks. Each chunk holds one batch of metacards, serialized
+ * as {@link MetacardImpl}s and compressed together, behind its metacard count, compressed length
+ * and CRC32. Chunks can be read one after the other and decoded independently, and a chunk with a
+ * count of 0 marks the end of a complete archive.
+ * <p>
+ * While a command runs, it keeps a checkpoint file next to the archive with the offset of the
+ * first chunk it has not finished, so that running the command again resumes from that chunk.
+ * An ingest checkpoint also lists the chunks after that offset that were already ingested, so
+ * they are skipped when the ingest resumes.
+ */
+final class CatalogArchive {
+
+    static final String CHECKPOINT_EXTENSION = ".checkpoint";
+
+    static final String OFFSET = "offset";
+
+    static final String COUNT = "count";
+
+    static final String COMPLETED = "completed";
+
+    private static final byte[] MAGIC = {'D', 'D', 'F', 'A', 'R', 'C', 'H', 1};
+
+    private static final int CHUNK_HEADER_LENGTH = 12;
+
+    private CatalogArchive() {
+    }
+
+    /**
+     * Serializes and compresses {@code metacards} into the body of one chunk.
+     */
+    static byte[] encode(List<Metacard> metacards) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(bytes,
+                deflater))) {
+            for (Metacard metacard : metacards) {
+                out.writeObject(new MetacardImpl(metacard));
+            }
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decompresses and deserializes the metacards of a chunk.
+     *
+     * @throws IOException if the chunk is corrupt
+     */
+    static List<Metacard> decode(Chunk chunk) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(chunk.data);
+        if ((int) crc.getValue() != chunk.checksum) {
+            throw new IOException("Chunk at offset " + chunk.offset + " is corrupt");
+        }
+
+        List<Metacard> metacards = new ArrayList<>(chunk.count);
+        try (ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(chunk.data)))) {
+            for (int i = 0; i < chunk.count; i++) {
+                metacards.add((Metacard) in.readObject());
+            }
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Chunk at offset " + chunk.offset + " is not a metacard chunk",
+                    e);
+        }
+        return metacards;
+    }
+
+    static Path getCheckpointPath(Path archive) {
+        return archive.resolveSibling(archive.getFileName() + CHECKPOINT_EXTENSION);
+    }
+
+    /**
+     * @return the checkpoint of {@code archive}, or null if there is none
+     */
+    static Properties readCheckpoint(Path archive) throws IOException {
+        Path checkpointPath = getCheckpointPath(archive);
+        if (!Files.exists(checkpointPath)) {
+            return null;
+        }
+        Properties checkpoint = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointPath)) {
+            checkpoint.load(in);
+        }
+        if (checkpoint.getProperty(OFFSET) == null) {
+            throw new IOException("Checkpoint " + checkpointPath + " has no offset");
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Replaces the checkpoint of {@code archive}, so that it is never left partially written.
+     */
+    static void writeCheckpoint(Path archive, Properties checkpoint) throws IOException {
+        Path checkpointPath = getCheckpointPath(archive);
+        Path temporaryPath = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporaryPath)) {
+            checkpoint.store(out, null);
+        }
+        Files.move(temporaryPath,
+                checkpointPath,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static void deleteCheckpoint(Path archive) throws IOException {
+        Files.deleteIfExists(getCheckpointPath(archive));
+    }
+
+    /**
+     * @return the offsets of the chunks listed as already ingested in {@code checkpoint}
+     * @throws IOException if an offset is not a number
+     */
+    static Set<Long> readCompletedOffsets(Properties checkpoint) throws IOException {
+        Set<Long> offsets = new HashSet<>();
+        String completed = checkpoint.getProperty(COMPLETED, "");
+        try {
+            for (String offset : completed.split(",")) {
+                if (!offset.trim()
+                        .isEmpty()) {
+                    offsets.add(Long.parseLong(offset.trim()));
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Checkpoint has an invalid list of completed chunks", e);
+        }
+        return offsets;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("The archive is incomplete");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * One chunk read from an archive.
+     */
+    static final class Chunk {
+
+        final long offset;
+
+        final long end;
+
+        final int count;
+
+        private final int checksum;
+
+        private final byte[] data;
+
+        private Chunk(long offset, int count, int checksum, byte[] data) {
+            this.offset = offset;
+            this.end = offset + CHUNK_HEADER_LENGTH + data.length;
+            this.count = count;
+            this.checksum = checksum;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Appends chunks to an archive.
+     */
+    static final class Writer implements Closeable {
+
+        private final FileChannel channel;
+
+        private Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Creates a new archive and flushes its header to disk.
+         */
+        static Writer create(Path archive) throws IOException {
+            Writer writer = new Writer(FileChannel.open(archive,
+                    StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE));
+            try {
+                writer.writeFully(ByteBuffer.wrap(MAGIC));
+                writer.channel.force(true);
+            } catch (IOException e) {
+                writer.close();
+                throw e;
+            }
+            return writer;
+        }
+
+        /**
+         * Opens an existing archive and discards everything after {@code offset}, the end of the
+         * last chunk recorded in its checkpoint.
+         */
+        static Writer resume(Path archive, long offset) throws IOException {
+            FileChannel channel = FileChannel.open(archive, StandardOpenOption.WRITE);
+            if (offset < MAGIC.length || channel.size() < offset) {
+                channel.close();
+                throw new IOException(
+                        "Archive " + archive + " is shorter than its checkpoint, unable to resume");
+            }
+            channel.truncate(offset);
+            channel.position(offset);
+            return new Writer(channel);
+        }
+
+        /**
+         * Writes a chunk encoded by {@link CatalogArchive#encode(List)} and flushes it to disk.
+         *
+         * @return the offset after the chunk
+         */
+        long write(byte[] data, int count) throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_LENGTH);
+            header.putInt(count)
+                    .putInt(data.length)
+                    .putInt((int) crc.getValue())
+                    .flip();
+            writeFully(header, ByteBuffer.wrap(data));
+            channel.force(false);
+            return channel.position();
+        }
+
+        /**
+         * @return the offset after the last chunk written
+         */
+        long getOffset() throws IOException {
+            return channel.position();
+        }
+
+        /**
+         * Marks the archive as complete.
+         */
+        void finish() throws IOException {
+            writeFully(ByteBuffer.allocate(CHUNK_HEADER_LENGTH));
+            channel.force(true);
+        }
+
+        private void writeFully(ByteBuffer... buffers) throws IOException {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the chunks of an archive in order.
+     */
+    static final class Reader implements Closeable {
+
+        private final FileChannel channel;
+
+        Reader(Path archive) throws IOException {
+            channel = FileChannel.open(archive, StandardOpenOption.READ);
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            try {
+                readFully(channel, magic);
+            } catch (EOFException e) {
+                channel.close();
+                throw new IOException(archive + " is not a catalog archive", e);
+            }
+            if (!Arrays.equals(magic.array(), MAGIC)) {
+                channel.close();
+                throw new IOException(archive + " is not a catalog archive");
+            }
+        }
+
+        /**
+         * Continues reading from {@code offset}, the end of a chunk that was already processed.
+         */
+        void skipTo(long offset) throws IOException {
+            if (offset < MAGIC.length || offset > channel.size()) {
+                throw new IOException("Offset " + offset + " is outside of the archive");
+            }
+            channel.position(offset);
+        }
+
+        /**
+         * @return the offset of the next chunk
+         */
+        long getOffset() throws IOException {
+            return channel.position();
+        }
+
+        /**
+         * Counts the metacards from the current position to the end of the archive by reading the
+         * chunk headers only.
+         */
+        long countMetacards() throws IOException {
+            long position = channel.position();
+            long count = 0;
+            try {
+                ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_LENGTH);
+                long offset = position;
+                while (offset + CHUNK_HEADER_LENGTH <= channel.size()) {
+                    header.clear();
+                    channel.read(header, offset);
+                    int chunkCount = header.getInt(0);
+                    if (chunkCount == 0) {
+                        break;
+                    }
+                    count += chunkCount;
+                    offset += CHUNK_HEADER_LENGTH + header.getInt(4);
+                }
+            } finally {
+                channel.position(position);
+            }
+            return count;
+        }
+
+        /**
+         * @return the next chunk, or null at the end of the archive
+         * @throws EOFException if the archive ends without its end marker
+         */
+        Chunk next() throws IOException {
+            long offset = channel.position();
+            ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_LENGTH);
+            readFully(channel, header);
+            int count = header.getInt();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (count == 0) {
+                return null;
+            }
+            if (count < 0 || length < 0) {
+                throw new IOException("Chunk at offset " + offset + " is corrupt");
+            }
+            ByteBuffer data = ByteBuffer.allocate(length);
+            readFully(channel, data);
+            return new Chunk(offset, count, checksum, data.array());
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Tracks the chunks being ingested in parallel and moves the checkpoint past every chunk once
+     * all the chunks before it are done too. Chunks done ahead of that are listed in the
+     * checkpoint. A chunk that failed is never done, so the checkpoint stays before it and
+     * running the ingest again retries it.
+     */
+    static final class IngestCheckpoint {
+
+        private final Path archive;
+
+        /* The end offset and metacard count of each chunk started, by start offset */
+        private final TreeMap<Long, long[]> pendingChunks = new TreeMap<>();
+
+        private final Set<Long> completedOffsets;
+
+        private long offset;
+
+        private long count;
+
+        private int failedChunks;
+
+        /**
+         * @param archive          the archive being ingested
+         * @param offset           the offset of the first chunk to ingest
+         * @param count            the number of metacards ingested before {@code offset}
+         * @param completedOffsets the chunks after {@code offset} that were already ingested
+         */
+        IngestCheckpoint(Path archive, long offset, long count, Set<Long> completedOffsets) {
+            this.archive = archive;
+            this.offset = offset;
+            this.count = count;
+            this.completedOffsets = new HashSet<>(completedOffsets);
+        }
+
+        /**
+         * @return whether the chunk was ingested before the ingest resumed
+         */
+        synchronized boolean isCompleted(Chunk chunk) {
+            return completedOffsets.contains(chunk.offset);
+        }
+
+        synchronized void started(Chunk chunk) {
+            pendingChunks.put(chunk.offset, new long[] {chunk.end, chunk.count});
+        }
+
+        /**
+         * Records a chunk that was ingested before the ingest resumed, without writing the
+         * checkpoint.
+         */
+        synchronized void skipped(Chunk chunk) {
+            started(chunk);
+            advance();
+        }
+
+        /**
+         * @throws IOException if the checkpoint cannot be written
+         */
+        synchronized void completed(Chunk chunk) throws IOException {
+            completedOffsets.add(chunk.offset);
+            advance();
+
+            Properties checkpoint = new Properties();
+            checkpoint.setProperty(OFFSET, Long.toString(offset));
+            checkpoint.setProperty(COUNT, Long.toString(count));
+            if (!completedOffsets.isEmpty()) {
+                checkpoint.setProperty(COMPLETED,
+                        completedOffsets.stream()
+                                .sorted()
+                                .map(String::valueOf)
+                                .collect(Collectors.joining(",")));
+            }
+            writeCheckpoint(archive, checkpoint);
+        }
+
+        /**
+         * Records a chunk that was not fully ingested.
+         */
+        synchronized void failed(Chunk chunk) {
+            failedChunks++;
+        }
+
+        synchronized int getFailedChunks() {
+            return failedChunks;
+        }
+
+        private void advance() {
+            while (!pendingChunks.isEmpty() && completedOffsets.remove(pendingChunks.firstKey())) {
+                long[] completedChunk = pendingChunks.pollFirstEntry()
+                        .getValue();
+                offset = completedChunk[0];
+                count += completedChunk[1];
+            }
+        }
+    }
+}
@@ -18,18 +18,27 @@
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Properties;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
@@ -71,6 +80,20 @@ public class DumpCommand extends CqlCommands {
 
     private static final String ZIP_COMPRESSION = "zipCompression";
 
+    /**
+     * Query request property that makes the Solr catalog provider page with a cursor; the provider
+     * returns the cursor for the next page in the {@link #NEXT_CURSOR_MARK} response property.
+     */
+    private static final String CURSOR_MARK = "cursorMark";
+
+    private static final String NEXT_CURSOR_MARK = "nextCursorMark";
+
+    private static final String CURSOR_MARK_START = "*";
+
+    private static final String START_INDEX = "startIndex";
+
+    private static final int DEFAULT_ARCHIVE_PAGE_SIZE = 1000;
+
     private static List<MetacardTransformer> transformers = null;
 
     private final PeriodFormatter timeFormatter = new PeriodFormatterBuilder().printZeroRarelyLast()
@@ -119,6 +142,9 @@ public class DumpCommand extends CqlCommands {
     @Option(name = "--include-content", required = false, aliases = {}, multiValued = false, description = "Dump the entire Catalog and local content into a zip file with the specified name using the default transformer.")
     String zipFileName;
 
+    @Option(name = "--archive", required = false, aliases = {}, multiValued = false, description = "Dump the metacards into a single compressed archive file with the specified name, which can be loaded with catalog:ingest --archive.  If a dump into the same archive was interrupted, running the same command again resumes it.  The --transformer, --extension and --dirlevel options do not apply.")
+    String archiveFileName;
+
     private Map<String, Serializable> zipArgs;
 
     @Override
@@ -141,6 +167,10 @@ protected Object executeWithSubject() throws Exception {
             return null;
         }
 
+        if (StringUtils.isNotBlank(archiveFileName)) {
+            return dumpArchive(new File(dumpDir, archiveFileName).toPath());
+        }
+
         if (!SERIALIZED_OBJECT_ID.matches(transformerId)) {
             transformers = getTransformers();
             if (transformers == null) {
@@ -263,6 +293,155 @@ protected Object executeWithSubject() throws Exception {
         return null;
     }
 
+    /*
+     * Pages through the catalog with a cursor when the provider supports one, and with the start
+     * index otherwise. Pages are encoded on the thread pool while the next pages are queried, and
+     * written to the archive in order, with a checkpoint after each one.
+     */
+    private Object dumpArchive(Path archive) throws Exception {
+        Properties checkpoint = CatalogArchive.readCheckpoint(archive);
+        if (checkpoint == null && archive.toFile()
+                .exists()) {
+            console.println(
+                    "Cannot dump Catalog.  Archive " + archive.getFileName() + " already exists.");
+            return null;
+        }
+
+        SecurityLogger.audit("Called catalog:dump command with path : {}", archive);
+
+        CatalogFacade catalog = getCatalog();
+
+        int archivePageSize = pageSize > 0 ? pageSize : DEFAULT_ARCHIVE_PAGE_SIZE;
+        QueryImpl query = new QueryImpl(getFilter());
+        query.setRequestsTotalResultsCount(false);
+        query.setPageSize(archivePageSize);
+
+        String cursorMark = CURSOR_MARK_START;
+        long count = 0;
+        CatalogArchive.Writer writer;
+        if (checkpoint != null) {
+            cursorMark = checkpoint.getProperty(CURSOR_MARK);
+            query.setStartIndex(Integer.parseInt(checkpoint.getProperty(START_INDEX, "1")));
+            count = Long.parseLong(checkpoint.getProperty(CatalogArchive.COUNT, "0"));
+            writer = CatalogArchive.Writer.resume(archive,
+                    Long.parseLong(checkpoint.getProperty(CatalogArchive.OFFSET)));
+            console.printf(" Resuming dump into %s after %d metacard(s)%n", archive, count);
+        } else {
+            writer = CatalogArchive.Writer.create(archive);
+        }
+
+        long start = System.currentTimeMillis();
+        long previousCount = count;
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1,
+                multithreaded));
+        Deque<PendingChunk> pendingChunks = new ArrayDeque<>();
+        try (CatalogArchive.Writer archiveWriter = writer) {
+            if (checkpoint == null) {
+                // Lets a dump interrupted before its first chunk resume instead of refusing to
+                // overwrite the archive
+                writeCheckpoint(archive,
+                        archiveWriter.getOffset(),
+                        count,
+                        cursorMark,
+                        query.getStartIndex());
+            }
+
+            boolean morePages = true;
+            while (morePages) {
+                Map<String, Serializable> props = new HashMap<>();
+                // Avoid caching all results while dumping with native query mode
+                props.put("mode", "native");
+                if (cursorMark != null) {
+                    props.put(CURSOR_MARK, cursorMark);
+                }
+
+                SourceResponse response = catalog.query(new QueryRequestImpl(query, props));
+                int resultCount = response.getResults()
+                        .size();
+                List<Metacard> metacards = response.getResults()
+                        .stream()
+                        .map(Result::getMetacard)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+
+                Serializable nextCursorMark = null;
+                if (cursorMark != null && response.getProperties() != null) {
+                    nextCursorMark = response.getProperties()
+                            .get(NEXT_CURSOR_MARK);
+                }
+                morePages = resultCount == archivePageSize;
+                if (nextCursorMark != null) {
+                    morePages &= !nextCursorMark.equals(cursorMark);
+                    cursorMark = nextCursorMark.toString();
+                } else {
+                    // The provider does not support cursors
+                    cursorMark = null;
+                    query.setStartIndex(query.getStartIndex() + archivePageSize);
+                }
+
+                if (!metacards.isEmpty()) {
+                    Future<byte[]> data = executorService.submit(() -> CatalogArchive.encode(
+                            metacards));
+                    pendingChunks.add(new PendingChunk(data,
+                            metacards.size(),
+                            cursorMark,
+                            query.getStartIndex()));
+                }
+
+                while (pendingChunks.size() > multithreaded || (!morePages
+                        && !pendingChunks.isEmpty())) {
+                    count = writeChunk(archive, archiveWriter, pendingChunks.remove(), count);
+                    printArchiveStatus(count);
+                }
+            }
+            archiveWriter.finish();
+            CatalogArchive.deleteCheckpoint(archive);
+        } catch (IOException | ExecutionException e) {
+            LOGGER.info("Unable to dump metacards into archive {}", archive, e);
+            printErrorMessage(String.format(
+                    "Unable to dump into archive [%s]: %s  Run the same command again to resume.",
+                    archive,
+                    e.getMessage()));
+            return null;
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        long end = System.currentTimeMillis();
+        String elapsedTime = timeFormatter.print(new Period(start, end).withMillis(0));
+        console.printf(" %d metacard(s) dumped in %s\t%n", count, elapsedTime);
+        LOGGER.debug("{} metacard(s) dumped in {}", count, elapsedTime);
+        console.println();
+        SecurityLogger.audit("Exported {} metacards to {}", count - previousCount, archive);
+        return null;
+    }
+
+    private long writeChunk(Path archive, CatalogArchive.Writer writer, PendingChunk chunk,
+            long count) throws IOException, ExecutionException, InterruptedException {
+        long offset = writer.write(chunk.data.get(), chunk.count);
+        long newCount = count + chunk.count;
+        writeCheckpoint(archive, offset, newCount, chunk.nextCursorMark, chunk.nextStartIndex);
+        return newCount;
+    }
+
+    private void writeCheckpoint(Path archive, long offset, long count, String cursorMark,
+            int startIndex) throws IOException {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty(CatalogArchive.OFFSET, Long.toString(offset));
+        checkpoint.setProperty(CatalogArchive.COUNT, Long.toString(count));
+        if (cursorMark != null) {
+            checkpoint.setProperty(CURSOR_MARK, cursorMark);
+        } else {
+            checkpoint.setProperty(START_INDEX, Integer.toString(startIndex));
+        }
+        CatalogArchive.writeCheckpoint(archive, checkpoint);
+    }
+
+    private void printArchiveStatus(long count) {
+        console.print(String.format(" %d metacard(s) dumped\t\r", count));
+        console.flush();
+    }
+
     private void exportMetacard(File dumpLocation, Metacard metacard)
             throws IOException, CatalogTransformerException {
         if (SERIALIZED_OBJECT_ID.matches(transformerId)) {
@@ -338,4 +517,25 @@ private Optional<QueryResponseTransformer> getZipCompression() throws InvalidSyn
         return getServiceByFilter(QueryResponseTransformer.class,
                 "(|" + "(" + Constants.SERVICE_ID + "=" + ZIP_COMPRESSION + ")" + ")");
     }
+
+    /**
+     * A page of metacards being encoded, with the position of the page after it.
+     */
+    private static class PendingChunk {
+
+        private final Future<byte[]> data;
+
+        private final int count;
+
+        private final String nextCursorMark;
+
+        private final int nextStartIndex;
+
+        PendingChunk(Future<byte[]> data, int count, String nextCursorMark, int nextStartIndex) {
+            this.data = data;
+            this.count = count;
+            this.nextCursorMark = nextCursorMark;
+            this.nextStartIndex = nextStartIndex;
+        }
+    }
 }
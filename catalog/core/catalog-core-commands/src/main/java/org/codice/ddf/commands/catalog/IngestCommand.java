@@ -29,11 +29,14 @@
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
@@ -68,6 +71,7 @@
 import com.google.common.io.ByteSource;
 
 import ddf.catalog.Constants;
+import ddf.catalog.backup.BackupLog;
 import ddf.catalog.content.StorageException;
 import ddf.catalog.content.StorageProvider;
 import ddf.catalog.content.data.ContentItem;
@@ -177,6 +181,12 @@ public class IngestCommand extends CatalogCommands {
     @Option(name = "--include-content", required = false, aliases = {}, multiValued = false, description = "Ingest a zip file that contains metacards and content using the default transformer.  The specified zip must be signed externally using DDF certificates.")
     boolean includeContent = false;
 
+    @Option(name = "--archive", required = false, aliases = {}, multiValued = false, description = "Ingest an archive created with catalog:dump --archive.  If an ingest of the same archive was interrupted, running the same command again resumes it, skipping the chunks of metacards that were fully ingested.  The batches of a partially ingested chunk are ingested again.")
+    boolean archive = false;
+
+    @Option(name = "--backup", required = false, aliases = {}, multiValued = false, description = "Ingest the metacards backed up by the Catalog Backup Plugin.  The path is the root backup directory of the plugin.  The latest backup of every metacard that has not been deleted is ingested.")
+    boolean backup = false;
+
     @Reference
     StorageProvider storageProvider;
 
@@ -194,6 +204,10 @@ protected Object executeWithSubject() throws Exception {
                     MAX_QUEUE_SIZE));
         }
 
+        if (archive) {
+            return ingestArchive();
+        }
+
         final File inputFile = getInputFile();
         if (inputFile == null) {
             return null;
@@ -246,6 +260,143 @@ protected Object executeWithSubject() throws Exception {
             LOGGER.info("Executor service shutdown was not permitted: {}", e);
         }
 
+        printSummary(start);
+        SecurityLogger.audit("Ingested {} files from {}", ingestCount.get(), filePath);
+        return null;
+    }
+
+    // Metacards are counted as files in the progress and summary, like the other ingest modes
+    private Object ingestArchive() throws IOException, InterruptedException {
+        SecurityLogger.audit("Called catalog:ingest command with path : {}", filePath);
+
+        Path archivePath = Paths.get(filePath);
+        if (!Files.isRegularFile(archivePath)) {
+            printErrorMessage(String.format("File [%s] must exist.", filePath));
+            console.println("If the file does indeed exist, try putting the path in quotes.");
+            return null;
+        }
+
+        if (batchSize <= 0) {
+            printErrorMessage(String.format(
+                    "A batch size of [%d] was supplied. Batch size must be greater than 0.",
+                    batchSize));
+            return null;
+        }
+
+        final CatalogFacade catalog = getCatalog();
+        final long start = System.currentTimeMillis();
+        boolean complete = false;
+        int failedChunks = 0;
+
+        try (CatalogArchive.Reader reader = new CatalogArchive.Reader(archivePath)) {
+            Properties checkpoint = CatalogArchive.readCheckpoint(archivePath);
+            long previousCount = 0;
+            Set<Long> completedOffsets = Collections.emptySet();
+            if (checkpoint != null) {
+                previousCount = Long.parseLong(checkpoint.getProperty(CatalogArchive.COUNT, "0"));
+                completedOffsets = CatalogArchive.readCompletedOffsets(checkpoint);
+                reader.skipTo(Long.parseLong(checkpoint.getProperty(CatalogArchive.OFFSET)));
+                console.printf(" Resuming ingest of %s after %d metacard(s)%n",
+                        filePath,
+                        previousCount);
+            }
+            fileCount.set((int) reader.countMetacards());
+            printProgressAndFlush(start, fileCount.get(), 0);
+
+            CatalogArchive.IngestCheckpoint ingestCheckpoint = new CatalogArchive.IngestCheckpoint(
+                    archivePath,
+                    reader.getOffset(),
+                    previousCount,
+                    completedOffsets);
+            ExecutorService executorService = new ThreadPoolExecutor(multithreaded,
+                    multithreaded,
+                    0L,
+                    TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(multithreaded),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            try {
+                CatalogArchive.Chunk chunk;
+                while ((chunk = reader.next()) != null) {
+                    final CatalogArchive.Chunk currentChunk = chunk;
+                    if (ingestCheckpoint.isCompleted(currentChunk)) {
+                        ingestCheckpoint.skipped(currentChunk);
+                        fileCount.addAndGet(-currentChunk.count);
+                        continue;
+                    }
+                    ingestCheckpoint.started(currentChunk);
+                    executorService.submit(() -> ingestChunk(catalog,
+                            currentChunk,
+                            ingestCheckpoint,
+                            start));
+                }
+                complete = true;
+            } catch (IOException e) {
+                LOGGER.info("Unable to read archive {}", filePath, e);
+                printErrorMessage(String.format("Unable to read all of archive [%s]: %s",
+                        filePath,
+                        e.getMessage()));
+            } finally {
+                executorService.shutdown();
+                executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            failedChunks = ingestCheckpoint.getFailedChunks();
+        } catch (IOException e) {
+            LOGGER.info("Unable to open archive {}", filePath, e);
+            printErrorMessage(String.format("Unable to open archive [%s]: %s",
+                    filePath,
+                    e.getMessage()));
+            return null;
+        }
+
+        if (failedChunks > 0) {
+            printErrorMessage(String.format(
+                    "%d chunk(s) of archive [%s] were not fully ingested.  "
+                            + "Run the same command again to retry them.",
+                    failedChunks,
+                    filePath));
+        } else if (complete) {
+            CatalogArchive.deleteCheckpoint(archivePath);
+        }
+
+        printSummary(start);
+        SecurityLogger.audit("Ingested {} metacards from {}", ingestCount.get(), filePath);
+        return null;
+    }
+
+    private void ingestChunk(CatalogFacade catalog, CatalogArchive.Chunk chunk,
+            CatalogArchive.IngestCheckpoint ingestCheckpoint, long start) {
+        boolean ingested = false;
+        try {
+            List<Metacard> metacards = CatalogArchive.decode(chunk);
+            ingested = true;
+            for (int i = 0; i < metacards.size(); i += batchSize) {
+                ingested &= ingestBatch(catalog,
+                        metacards.subList(i, Math.min(i + batchSize, metacards.size())));
+                printProgressAndFlush(start, fileCount.get(), ingestCount.get());
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to decode archive chunk at offset {}", chunk.offset, e);
+            INGEST_LOGGER.warn("Failed to ingest {} metacards from chunk at offset {} of {}",
+                    chunk.count,
+                    chunk.offset,
+                    filePath,
+                    e);
+        }
+
+        // The checkpoint must not move past a chunk with metacards that were not created
+        if (!ingested) {
+            ingestCheckpoint.failed(chunk);
+            return;
+        }
+
+        try {
+            ingestCheckpoint.completed(chunk);
+        } catch (IOException e) {
+            LOGGER.info("Unable to write the checkpoint for archive {}", filePath, e);
+        }
+    }
+
+    private void printSummary(long start) {
         printProgressAndFlush(start, fileCount.get(), ingestCount.get() + ignoreCount.get());
         long end = System.currentTimeMillis();
         console.println();
@@ -280,8 +431,6 @@ protected Object executeWithSubject() throws Exception {
             }
         }
         console.println();
-        SecurityLogger.audit("Ingested {} files from {}", ingestCount.get(), filePath);
-        return null;
     }
 
     private File getInputFile() {
@@ -300,6 +449,11 @@ private File getInputFile() {
             return null;
         }
 
+        if (backup && !inputFile.isDirectory()) {
+            printErrorMessage(String.format("[%s] must be the root backup directory.", filePath));
+            return null;
+        }
+
         if (deprecatedBatchSize != DEFAULT_BATCH_SIZE) {
             // user specified the old style batch size, so use that
             printErrorMessage(
@@ -334,7 +488,7 @@ private File getInputFile() {
             batchSize = 1;
         }
 
-        if (!SERIALIZED_OBJECT_ID.matches(transformerId)) {
+        if (!backup && !SERIALIZED_OBJECT_ID.matches(transformerId)) {
             transformer = getTransformer();
             if (!transformer.isPresent()) {
                 console.println(transformerId + " is an invalid input transformer.");
@@ -364,7 +518,7 @@ private int totalFileCount(File inputFile) throws IOException {
     /**
      * Helper method to build ingest log strings
      */
-    private String buildIngestLog(ArrayList<Metacard> metacards) {
+    private String buildIngestLog(List<Metacard> metacards) {
         StringBuilder strBuilder = new StringBuilder();
 
         for (int i = 0; i < metacards.size(); i++) {
@@ -486,6 +640,15 @@ private void makeFailedIngestDirectory() {
 
     private boolean processBatch(CatalogFacade catalog, ArrayList<Metacard> metacards)
             throws SourceUnavailableException {
+        try {
+            return ingestBatch(catalog, metacards);
+        } finally {
+            IntStream.range(0, metacards.size())
+                    .forEach(i -> phaser.arriveAndDeregister());
+        }
+    }
+
+    private boolean ingestBatch(CatalogFacade catalog, List<Metacard> metacards) {
         CreateResponse createResponse = null;
 
         try {
@@ -505,9 +668,6 @@ private boolean processBatch(CatalogFacade catalog, ArrayList<Metacard> metacard
                         buildIngestLog(metacards),
                         e);
             }
-        } finally {
-            IntStream.range(0, metacards.size())
-                    .forEach(i -> phaser.arriveAndDeregister());
         }
 
         if (createResponse != null) {
@@ -531,6 +691,8 @@ private void buildQueue(File inputFile, ArrayBlockingQueue<Metacard> metacardQue
         try {
             if (includeContent) {
                 processIncludeContent(metacardQueue);
+            } else if (backup) {
+                processBackup(metacardQueue);
             } else {
                 try {
                     Stream<Path> ingestStream = Files.walk(inputFile.toPath(),
@@ -629,6 +791,20 @@ private void processIncludeContent(ArrayBlockingQueue<Metacard> metacardQueue) {
         }
     }
 
+    private void processBackup(ArrayBlockingQueue<Metacard> metacardQueue) {
+        try (BackupLog backupLog = BackupLog.openReadOnly(Paths.get(filePath))) {
+            fileCount.set(backupLog.size());
+            backupLog.restore(metacard -> putMetacardOnQueue(metacardQueue, metacard),
+                    multithreaded);
+        } catch (IOException e) {
+            LOGGER.info("Unable to read catalog backup {}", filePath, e);
+            INGEST_LOGGER.warn("Unable to read catalog backup {}", filePath, e);
+            printErrorMessage(String.format("Unable to read catalog backup [%s]: %s",
+                    filePath,
+                    e.getMessage()));
+        }
+    }
+
     private void submitToStorageProvider(List<Metacard> metacardList) {
         metacardList.stream()
                 .filter(metacard -> metacardFileMapping.containsKey(metacard.getId()))
@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.commands.catalog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+
+/**
+ * Compares dumping and reading back one serialized file per metacard, as {@code catalog:dump}
+ * does by default, with a {@link CatalogArchive} of {@code chunkSize} metacards per chunk. The
+ * dump benchmarks write into an empty directory on every invocation. Benchmarks are not run as
+ * part of the build; run them through {@link #main(String[])} with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CatalogArchiveBenchmark {
+
+    @Param({"10000"})
+    private int metacardCount;
+
+    @Param({"1000"})
+    private int chunkSize;
+
+    private Path directory;
+
+    private Path perFileDirectory;
+
+    private Path archive;
+
+    private Path dumpDirectory;
+
+    private List<Metacard> metacards;
+
+    @Setup(Level.Trial)
+    public void createDumps() throws IOException {
+        metacards = new ArrayList<>(metacardCount);
+        for (int i = 0; i < metacardCount; i++) {
+            MetacardImpl metacard = new MetacardImpl();
+            metacard.setId("id" + i);
+            metacard.setTitle("title" + i);
+            metacard.setMetadata("<metadata><title>title" + i + "</title></metadata>");
+            metacards.add(metacard);
+        }
+
+        directory = Files.createTempDirectory("archive");
+        perFileDirectory = Files.createDirectory(directory.resolve("perfile"));
+        writeFiles(perFileDirectory);
+        archive = directory.resolve("catalog.archive");
+        writeArchive(archive);
+    }
+
+    @Setup(Level.Invocation)
+    public void createDumpDirectory() throws IOException {
+        dumpDirectory = Files.createDirectory(directory.resolve("dump"));
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteDumpDirectory() throws IOException {
+        delete(dumpDirectory);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDumps() throws IOException {
+        delete(directory);
+    }
+
+    @Benchmark
+    public int perFileDump() throws IOException {
+        return writeFiles(dumpDirectory);
+    }
+
+    @Benchmark
+    public long archiveDump() throws IOException {
+        return writeArchive(dumpDirectory.resolve("catalog.archive"));
+    }
+
+    @Benchmark
+    public int perFileRead() throws IOException, ClassNotFoundException {
+        int count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(perFileDirectory)) {
+            for (Path file : files) {
+                try (InputStream in = Files.newInputStream(file);
+                        ObjectInputStream ois = new ObjectInputStream(in)) {
+                    if (ois.readObject() instanceof Metacard) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int archiveRead() throws IOException {
+        int count = 0;
+        try (CatalogArchive.Reader reader = new CatalogArchive.Reader(archive)) {
+            CatalogArchive.Chunk chunk;
+            while ((chunk = reader.next()) != null) {
+                count += CatalogArchive.decode(chunk)
+                        .size();
+            }
+        }
+        return count;
+    }
+
+    private int writeFiles(Path target) throws IOException {
+        for (Metacard metacard : metacards) {
+            try (OutputStream out = Files.newOutputStream(target.resolve(metacard.getId()));
+                    ObjectOutputStream oos = new ObjectOutputStream(out)) {
+                oos.writeObject(new MetacardImpl(metacard));
+            }
+        }
+        return metacards.size();
+    }
+
+    private long writeArchive(Path target) throws IOException {
+        try (CatalogArchive.Writer writer = CatalogArchive.Writer.create(target)) {
+            for (int i = 0; i < metacards.size(); i += chunkSize) {
+                List<Metacard> chunk = metacards.subList(i,
+                        Math.min(i + chunkSize, metacards.size()));
+                writer.write(CatalogArchive.encode(chunk), chunk.size());
+            }
+            writer.finish();
+            return writer.getOffset();
+        }
+    }
+
+    private static void delete(Path path) throws IOException {
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path file : paths.sorted(Comparator.reverseOrder())
+                    .collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CatalogArchiveBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
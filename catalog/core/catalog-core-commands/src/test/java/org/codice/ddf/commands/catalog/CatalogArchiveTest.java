@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.commands.catalog;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+
+public class CatalogArchiveTest {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Path archive = testFolder.getRoot()
+                .toPath()
+                .resolve("catalog.archive");
+        writeArchive(archive, 25, 10);
+
+        List<Metacard> metacards = readArchive(archive);
+
+        assertThat(metacards.size(), is(25));
+        for (int i = 0; i < metacards.size(); i++) {
+            assertThat(metacards.get(i)
+                    .getId(), is("id" + i));
+            assertThat(metacards.get(i)
+                    .getTitle(), is("title" + i));
+        }
+    }
+
+    @Test
+    public void testCountMetacards() throws Exception {
+        Path archive = testFolder.getRoot()
+                .toPath()
+                .resolve("catalog.archive");
+        writeArchive(archive, 25, 10);
+
+        try (CatalogArchive.Reader reader = new CatalogArchive.Reader(archive)) {
+            assertThat(reader.countMetacards(), is(25L));
+            CatalogArchive.Chunk chunk = reader.next();
+            reader.skipTo(chunk.end);
+            assertThat(reader.countMetacards(), is(15L));
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void testIncompleteArchive() throws Exception {
+        Path archive = testFolder.getRoot()
+                .toPath()
+                .resolve("catalog.archive");
+        try (CatalogArchive.Writer writer = CatalogArchive.Writer.create(archive)) {
+            writer.write(CatalogArchive.encode(createMetacards(0, 10)), 10);
+        }
+
+        readArchive(archive);
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptChunk() throws Exception {
+        Path archive = testFolder.getRoot()
+                .toPath()
+                .resolve("catalog.archive");
+        writeArchive(archive, 10, 10);
+        try (RandomAccessFile file = new RandomAccessFile(archive.toFile(), "rw")) {
+            long position = file.length() - 20;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xFF);
+        }
+
+        readArchive(archive);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAnArchive() throws Exception {
+        File file = testFolder.newFile("notanarchive.txt");
+        Files.write(file.toPath(), "not an archive".getBytes());
+
+        new CatalogArchive.Reader(file.toPath()).close();
+    }
+
+    @Test
+    public void testResumeDiscardsPartialChunk() throws Exception {
+        Path archive = testFolder.getRoot()
+                .toPath()
+                .resolve("catalog.archive");
+        long offset;
+        try (CatalogArchive.Writer writer = CatalogArchive.Writer.create(archive)) {
+            offset = writer.write(CatalogArchive.encode(createMetacards(0, 10)), 10);
+            writer.write(CatalogArchive.encode(createMetacards(10, 10)), 10);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(archive.toFile(), "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        try (CatalogArchive.Writer writer = CatalogArchive.Writer.resume(archive, offset)) {
+            writer.write(CatalogArchive.encode(createMetacards(10, 5)), 5);
+            writer.finish();
+        }
+
+        assertThat(readArchive(archive).size(), is(15));
+    }
+
+    @Test
+    public void testIngestCheckpointWaitsForEarlierChunks() throws Exception {
+        Path archive = testFolder.getRoot()
+                .toPath()
+                .resolve("catalog.archive");
+        writeArchive(archive, 30, 10);
+
+        List<CatalogArchive.Chunk> chunks = new ArrayList<>();
+        try (CatalogArchive.Reader reader = new CatalogArchive.Reader(archive)) {
+            CatalogArchive.Chunk chunk;
+            while ((chunk = reader.next()) != null) {
+                chunks.add(chunk);
+            }
+        }
+
+        CatalogArchive.IngestCheckpoint ingestCheckpoint = new CatalogArchive.IngestCheckpoint(
+                archive,
+                chunks.get(0).offset,
+                0,
+                Collections.emptySet());
+        chunks.forEach(ingestCheckpoint::started);
+
+        ingestCheckpoint.completed(chunks.get(1));
+        Properties checkpoint = CatalogArchive.readCheckpoint(archive);
+        assertThat(checkpoint.getProperty(CatalogArchive.OFFSET),
+                is(Long.toString(chunks.get(0).offset)));
+        assertThat(checkpoint.getProperty(CatalogArchive.COUNT), is("0"));
+        assertThat(CatalogArchive.readCompletedOffsets(checkpoint),
+                is(Collections.singleton(chunks.get(1).offset)));
+
+        ingestCheckpoint.completed(chunks.get(0));
+        checkpoint = CatalogArchive.readCheckpoint(archive);
+        assertThat(checkpoint.getProperty(CatalogArchive.OFFSET),
+                is(Long.toString(chunks.get(1).end)));
+        assertThat(checkpoint.getProperty(CatalogArchive.COUNT), is("20"));
+        assertThat(checkpoint.getProperty(CatalogArchive.COMPLETED), is(nullValue()));
+
+        ingestCheckpoint.completed(chunks.get(2));
+        checkpoint = CatalogArchive.readCheckpoint(archive);
+        assertThat(checkpoint.getProperty(CatalogArchive.OFFSET),
+                is(Long.toString(chunks.get(2).end)));
+        assertThat(checkpoint.getProperty(CatalogArchive.COUNT), is("30"));
+    }
+
+    private void writeArchive(Path archive, int count, int chunkSize) throws IOException {
+        try (CatalogArchive.Writer writer = CatalogArchive.Writer.create(archive)) {
+            for (int i = 0; i < count; i += chunkSize) {
+                int size = Math.min(chunkSize, count - i);
+                writer.write(CatalogArchive.encode(createMetacards(i, size)), size);
+            }
+            writer.finish();
+        }
+    }
+
+    private List<Metacard> readArchive(Path archive) throws IOException {
+        List<Metacard> metacards = new ArrayList<>();
+        try (CatalogArchive.Reader reader = new CatalogArchive.Reader(archive)) {
+            CatalogArchive.Chunk chunk;
+            while ((chunk = reader.next()) != null) {
+                metacards.addAll(CatalogArchive.decode(chunk));
+            }
+        }
+        return metacards;
+    }
+
+    private List<Metacard> createMetacards(int first, int count) {
+        List<Metacard> metacards = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            MetacardImpl metacard = new MetacardImpl();
+            metacard.setId("id" + i);
+            metacard.setTitle("title" + i);
+            metacard.setMetadata("<metadata><title>title" + i + "</title></metadata>");
+            metacards.add(metacard);
+        }
+        return metacards;
+    }
+}
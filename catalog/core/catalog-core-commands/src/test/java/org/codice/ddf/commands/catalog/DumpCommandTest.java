@@ -15,21 +15,36 @@
 
 import static org.codice.ddf.commands.catalog.CommandSupport.ERROR_COLOR;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.io.Serializable;
 import java.net.URI;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
 
 import org.fusesource.jansi.Ansi;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 
+import ddf.catalog.CatalogFramework;
 import ddf.catalog.data.Result;
 import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.source.SourceUnavailableException;
 
 /**
  * Tests the {@link DumpCommand} output.
@@ -173,4 +188,157 @@ public void testNormalOperationWithContent() throws Exception {
         // then
         assertThat(consoleOutput.getOutput(), containsString(" 2 file(s) dumped in "));
     }
+
+    /**
+     * Check for normal operation when dumping into an archive
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testArchive() throws Exception {
+        // given
+        DumpCommand dumpCommand = new DumpCommand();
+        dumpCommand.catalogFramework = givenCatalogFramework(getResultList("id1", "id2"));
+        dumpCommand.filterBuilder = new GeotoolsFilterBuilder();
+        File outputDirectory = testFolder.newFolder("somedirectory");
+        dumpCommand.dirPath = outputDirectory.getAbsolutePath();
+        dumpCommand.archiveFileName = "catalog.archive";
+
+        // when
+        dumpCommand.executeWithSubject();
+
+        // then
+        assertThat(consoleOutput.getOutput(), containsString(" 2 metacard(s) dumped in "));
+        Path archive = new File(outputDirectory, "catalog.archive").toPath();
+        assertThat(outputDirectory.list().length, is(1));
+        assertThat(CatalogArchive.readCheckpoint(archive), is(nullValue()));
+        try (CatalogArchive.Reader reader = new CatalogArchive.Reader(archive)) {
+            assertThat(reader.countMetacards(), is(2L));
+        }
+    }
+
+    /**
+     * Check that the archive is not overwritten when there is nothing to resume
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testArchiveAlreadyExists() throws Exception {
+        // given
+        DumpCommand dumpCommand = new DumpCommand();
+        dumpCommand.catalogFramework = givenCatalogFramework(getResultList("id1", "id2"));
+        dumpCommand.filterBuilder = new GeotoolsFilterBuilder();
+        File outputDirectory = testFolder.newFolder("somedirectory");
+        File archive = new File(outputDirectory, "catalog.archive");
+        archive.createNewFile();
+        dumpCommand.dirPath = outputDirectory.getAbsolutePath();
+        dumpCommand.archiveFileName = archive.getName();
+
+        // when
+        dumpCommand.executeWithSubject();
+
+        // then
+        assertThat(consoleOutput.getOutput(),
+                startsWith("Cannot dump Catalog.  Archive catalog.archive already exists."));
+        assertThat(archive.length(), is(0L));
+    }
+
+    /**
+     * Check that a dump interrupted before its first chunk resumes instead of refusing to
+     * overwrite the archive
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testArchiveResumeBeforeFirstChunk() throws Exception {
+        // given
+        CatalogFramework catalogFramework = mock(CatalogFramework.class);
+        QueryResponse page = givenQueryResponse(getResultList("id1", "id2"), "cursor1");
+        when(catalogFramework.query(isA(QueryRequest.class))).thenThrow(
+                new SourceUnavailableException("Provider unavailable"))
+                .thenReturn(page);
+        File outputDirectory = testFolder.newFolder("somedirectory");
+        Path archive = new File(outputDirectory, "catalog.archive").toPath();
+
+        DumpCommand interruptedCommand = new DumpCommand();
+        interruptedCommand.catalogFramework = catalogFramework;
+        interruptedCommand.filterBuilder = new GeotoolsFilterBuilder();
+        interruptedCommand.dirPath = outputDirectory.getAbsolutePath();
+        interruptedCommand.archiveFileName = "catalog.archive";
+        try {
+            interruptedCommand.executeWithSubject();
+        } catch (SourceUnavailableException e) {
+            // the dump stops before its first chunk is written
+        }
+        assertThat(CatalogArchive.readCheckpoint(archive)
+                .getProperty(CatalogArchive.COUNT), is("0"));
+
+        DumpCommand dumpCommand = new DumpCommand();
+        dumpCommand.catalogFramework = catalogFramework;
+        dumpCommand.filterBuilder = new GeotoolsFilterBuilder();
+        dumpCommand.dirPath = outputDirectory.getAbsolutePath();
+        dumpCommand.archiveFileName = "catalog.archive";
+
+        // when
+        dumpCommand.executeWithSubject();
+
+        // then
+        assertThat(consoleOutput.getOutput(), containsString("Resuming dump into"));
+        assertThat(consoleOutput.getOutput(), containsString(" 2 metacard(s) dumped in "));
+        assertThat(CatalogArchive.readCheckpoint(archive), is(nullValue()));
+        try (CatalogArchive.Reader reader = new CatalogArchive.Reader(archive)) {
+            assertThat(reader.countMetacards(), is(2L));
+        }
+        ArgumentCaptor<QueryRequest> requests = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(catalogFramework, times(2)).query(requests.capture());
+        assertThat(requests.getAllValues()
+                .get(1)
+                .getPropertyValue("cursorMark"), is("*"));
+    }
+
+    /**
+     * Check that the archive pages through the catalog with the cursor returned by the provider
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testArchiveWithCursor() throws Exception {
+        // given
+        CatalogFramework catalogFramework = mock(CatalogFramework.class);
+        QueryResponse firstPage = givenQueryResponse(getResultList("id1", "id2"), "cursor1");
+        QueryResponse lastPage = givenQueryResponse(getResultList("id3"), "cursor2");
+        when(catalogFramework.query(isA(QueryRequest.class))).thenReturn(
+                firstPage,
+                lastPage);
+
+        DumpCommand dumpCommand = new DumpCommand();
+        dumpCommand.catalogFramework = catalogFramework;
+        dumpCommand.filterBuilder = new GeotoolsFilterBuilder();
+        File outputDirectory = testFolder.newFolder("somedirectory");
+        dumpCommand.dirPath = outputDirectory.getAbsolutePath();
+        dumpCommand.archiveFileName = "catalog.archive";
+        dumpCommand.pageSize = 2;
+
+        // when
+        dumpCommand.executeWithSubject();
+
+        // then
+        ArgumentCaptor<QueryRequest> requests = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(catalogFramework, times(2)).query(requests.capture());
+        assertThat(requests.getAllValues()
+                .get(0)
+                .getPropertyValue("cursorMark"), is("*"));
+        assertThat(requests.getAllValues()
+                .get(1)
+                .getPropertyValue("cursorMark"), is("cursor1"));
+        assertThat(consoleOutput.getOutput(), containsString(" 3 metacard(s) dumped in "));
+    }
+
+    private QueryResponse givenQueryResponse(List<Result> results, String nextCursorMark) {
+        QueryResponse queryResponse = mock(QueryResponse.class);
+        when(queryResponse.getResults()).thenReturn(results);
+        when(queryResponse.getProperties()).thenReturn(Collections.singletonMap("nextCursorMark",
+                (Serializable) nextCursorMark));
+        return queryResponse;
+    }
 }
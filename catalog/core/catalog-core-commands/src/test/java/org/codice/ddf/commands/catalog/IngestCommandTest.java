@@ -13,26 +13,46 @@
  */
 package org.codice.ddf.commands.catalog;
 
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assume.assumeFalse;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.SystemUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
 
+import ddf.catalog.backup.CatalogBackupPlugin;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.operation.CreateRequest;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteResponse;
+import ddf.catalog.source.IngestException;
 import ddf.catalog.transform.InputTransformer;
 
 /**
@@ -178,4 +198,259 @@ public void testIncludeContentNonZipFile() throws Exception {
         String expectedMessage = "must be a zip file";
         assertThat(consoleOutput.getOutput(), containsString(expectedMessage));
     }
-}
\ No newline at end of file
+
+    /**
+     * Check that all the metacards of an archive are ingested in batches
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testArchive() throws Exception {
+        // given
+        Path archive = givenArchive(5, 2);
+        when(ingestCommand.catalogFramework.create(any(CreateRequest.class))).thenReturn(mock(
+                CreateResponse.class));
+        ingestCommand.archive = true;
+        ingestCommand.filePath = archive.toString();
+        ingestCommand.batchSize = 2;
+
+        // when
+        ingestCommand.executeWithSubject();
+
+        // then
+        assertThat(consoleOutput.getOutput(), containsString("10 file(s) ingested"));
+        assertThat(consoleOutput.getOutput(), not(containsString("failed")));
+        verify(ingestCommand.catalogFramework, times(5)).create(any(CreateRequest.class));
+        assertThat(CatalogArchive.readCheckpoint(archive), is(nullValue()));
+    }
+
+    /**
+     * Check that an interrupted ingest resumes after the last chunk in the checkpoint
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testArchiveResume() throws Exception {
+        // given
+        Path archive = givenArchive(5, 2);
+        long offset;
+        try (CatalogArchive.Reader reader = new CatalogArchive.Reader(archive)) {
+            reader.next();
+            offset = reader.next().end;
+        }
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty(CatalogArchive.OFFSET, Long.toString(offset));
+        checkpoint.setProperty(CatalogArchive.COUNT, "4");
+        CatalogArchive.writeCheckpoint(archive, checkpoint);
+
+        when(ingestCommand.catalogFramework.create(any(CreateRequest.class))).thenReturn(mock(
+                CreateResponse.class));
+        ingestCommand.archive = true;
+        ingestCommand.filePath = archive.toString();
+
+        // when
+        ingestCommand.executeWithSubject();
+
+        // then
+        assertThat(consoleOutput.getOutput(), containsString("after 4 metacard(s)"));
+        assertThat(consoleOutput.getOutput(), containsString("6 file(s) ingested"));
+        verify(ingestCommand.catalogFramework, times(3)).create(any(CreateRequest.class));
+        assertThat(CatalogArchive.readCheckpoint(archive), is(nullValue()));
+    }
+
+    /**
+     * Check that an archive without its end marker keeps its checkpoint
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testIncompleteArchive() throws Exception {
+        // given
+        Path archive = new File(testFolder.getRoot(), "catalog.archive").toPath();
+        try (CatalogArchive.Writer writer = CatalogArchive.Writer.create(archive)) {
+            writer.write(CatalogArchive.encode(getMetacards("id1", "id2")), 2);
+        }
+        when(ingestCommand.catalogFramework.create(any(CreateRequest.class))).thenReturn(mock(
+                CreateResponse.class));
+        ingestCommand.archive = true;
+        ingestCommand.filePath = archive.toString();
+
+        // when
+        ingestCommand.executeWithSubject();
+
+        // then
+        assertThat(consoleOutput.getOutput(), containsString("Unable to read all of archive"));
+        assertThat(consoleOutput.getOutput(), containsString("2 file(s) ingested"));
+        assertThat(CatalogArchive.readCheckpoint(archive)
+                .getProperty(CatalogArchive.COUNT), is("2"));
+    }
+
+    /**
+     * Check that the checkpoint does not move past a chunk that failed to be ingested
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testArchiveFailedChunk() throws Exception {
+        // given
+        Path archive = givenArchive(3, 2);
+        List<Long> offsets = getChunkOffsets(archive);
+        when(ingestCommand.catalogFramework.create(any(CreateRequest.class))).thenAnswer(
+                invocation -> {
+                    CreateRequest request = (CreateRequest) invocation.getArguments()[0];
+                    if (request.getMetacards()
+                            .get(0)
+                            .getId()
+                            .equals("id2")) {
+                        throw new IngestException("Unable to create id2");
+                    }
+                    return mock(CreateResponse.class);
+                });
+        ingestCommand.archive = true;
+        ingestCommand.filePath = archive.toString();
+
+        // when
+        ingestCommand.executeWithSubject();
+
+        // then
+        assertThat(consoleOutput.getOutput(), containsString("4 file(s) ingested"));
+        assertThat(consoleOutput.getOutput(),
+                containsString("1 chunk(s) of archive [" + archive + "] were not fully ingested"));
+        Properties checkpoint = CatalogArchive.readCheckpoint(archive);
+        assertThat(checkpoint.getProperty(CatalogArchive.OFFSET),
+                is(Long.toString(offsets.get(1))));
+        assertThat(checkpoint.getProperty(CatalogArchive.COUNT), is("2"));
+        assertThat(checkpoint.getProperty(CatalogArchive.COMPLETED),
+                is(Long.toString(offsets.get(2))));
+    }
+
+    /**
+     * Check that resuming an ingest skips the chunks that were ingested after a failed chunk
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testArchiveResumeSkipsCompletedChunks() throws Exception {
+        // given
+        Path archive = givenArchive(3, 2);
+        List<Long> offsets = getChunkOffsets(archive);
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty(CatalogArchive.OFFSET, Long.toString(offsets.get(1)));
+        checkpoint.setProperty(CatalogArchive.COUNT, "2");
+        checkpoint.setProperty(CatalogArchive.COMPLETED, Long.toString(offsets.get(2)));
+        CatalogArchive.writeCheckpoint(archive, checkpoint);
+
+        when(ingestCommand.catalogFramework.create(any(CreateRequest.class))).thenReturn(mock(
+                CreateResponse.class));
+        ingestCommand.archive = true;
+        ingestCommand.filePath = archive.toString();
+
+        // when
+        ingestCommand.executeWithSubject();
+
+        // then
+        assertThat(consoleOutput.getOutput(), containsString("2 file(s) ingested"));
+        assertThat(consoleOutput.getOutput(), not(containsString("failed")));
+        ArgumentCaptor<CreateRequest> captor = ArgumentCaptor.forClass(CreateRequest.class);
+        verify(ingestCommand.catalogFramework).create(captor.capture());
+        assertThat(captor.getValue()
+                .getMetacards()
+                .stream()
+                .map(Metacard::getId)
+                .collect(Collectors.toList()), containsInAnyOrder("id2", "id3"));
+        assertThat(CatalogArchive.readCheckpoint(archive), is(nullValue()));
+    }
+
+    /**
+     * Check that the latest backup of every metacard that was not deleted is ingested
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBackup() throws Exception {
+        // given
+        File backupDir = testFolder.newFolder("backup");
+        CatalogBackupPlugin backupPlugin = new CatalogBackupPlugin();
+        backupPlugin.setExecutor(Executors.newSingleThreadExecutor());
+        backupPlugin.setTerminationTimeoutSeconds(10);
+        backupPlugin.setRootBackupDir(backupDir.getAbsolutePath());
+        CreateResponse createResponse = mock(CreateResponse.class);
+        when(createResponse.getCreatedMetacards()).thenReturn(getMetacards("id1", "id2", "id3"));
+        backupPlugin.process(createResponse);
+        DeleteResponse deleteResponse = mock(DeleteResponse.class);
+        when(deleteResponse.getDeletedMetacards()).thenReturn(getMetacards("id2"));
+        backupPlugin.process(deleteResponse);
+        backupPlugin.shutdown();
+
+        when(ingestCommand.catalogFramework.create(any(CreateRequest.class))).thenReturn(mock(
+                CreateResponse.class));
+        ingestCommand.backup = true;
+        ingestCommand.filePath = backupDir.getAbsolutePath();
+
+        // when
+        ingestCommand.executeWithSubject();
+
+        // then
+        assertThat(consoleOutput.getOutput(), containsString("2 file(s) ingested"));
+        ArgumentCaptor<CreateRequest> captor = ArgumentCaptor.forClass(CreateRequest.class);
+        verify(ingestCommand.catalogFramework).create(captor.capture());
+        assertThat(captor.getValue()
+                .getMetacards()
+                .stream()
+                .map(Metacard::getId)
+                .collect(Collectors.toList()), containsInAnyOrder("id1", "id3"));
+    }
+
+    /**
+     * Check that a backup must be read from the root backup directory
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBackupRequiresDirectory() throws Exception {
+        // given
+        File file = testFolder.newFile("somefile1.txt");
+        ingestCommand.backup = true;
+        ingestCommand.filePath = file.getAbsolutePath();
+
+        // when
+        ingestCommand.executeWithSubject();
+
+        // then
+        assertThat(consoleOutput.getOutput(),
+                containsString("must be the root backup directory"));
+        verify(ingestCommand.catalogFramework, times(0)).create(any(CreateRequest.class));
+    }
+
+    private Path givenArchive(int chunks, int chunkSize) throws Exception {
+        Path archive = new File(testFolder.getRoot(), "catalog.archive").toPath();
+        try (CatalogArchive.Writer writer = CatalogArchive.Writer.create(archive)) {
+            for (int i = 0; i < chunks; i++) {
+                String[] ids = new String[chunkSize];
+                for (int j = 0; j < chunkSize; j++) {
+                    ids[j] = "id" + (i * chunkSize + j);
+                }
+                writer.write(CatalogArchive.encode(getMetacards(ids)), chunkSize);
+            }
+            writer.finish();
+        }
+        return archive;
+    }
+
+    private List<Long> getChunkOffsets(Path archive) throws Exception {
+        List<Long> offsets = new ArrayList<>();
+        try (CatalogArchive.Reader reader = new CatalogArchive.Reader(archive)) {
+            CatalogArchive.Chunk chunk;
+            while ((chunk = reader.next()) != null) {
+                offsets.add(chunk.offset);
+            }
+        }
+        return offsets;
+    }
+
+    private List<Metacard> getMetacards(String... ids) {
+        return getResultList(ids).stream()
+                .map(Result::getMetacard)
+                .collect(Collectors.toList());
+    }
+}
@@ -14,6 +14,7 @@
 package org.codice.ddf.catalog.content.resource.reader;
 
 import java.io.BufferedInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
@@ -177,10 +178,14 @@ public ResourceResponse retrieveResource(URI resourceUri, Map<String, Serializab
                     String fileName = contentItem.getFilename();
                     LOGGER.debug("resource name: {}", fileName);
                     InputStream is = contentItem.getInputStream();
-                    response =
-                            new ResourceResponseImpl(new ResourceImpl(new BufferedInputStream(is),
-                                    contentItem.getMimeType(),
-                                    fileName));
+                    // Content stored in files is left unbuffered so that it can be served
+                    // straight from the file's channel
+                    if (!(is instanceof FileInputStream)) {
+                        is = new BufferedInputStream(is);
+                    }
+                    response = new ResourceResponseImpl(new ResourceImpl(is,
+                            contentItem.getMimeType(),
+                            fileName));
                 } catch (StorageException e) {
                     throw new ResourceNotFoundException(e);
                 }
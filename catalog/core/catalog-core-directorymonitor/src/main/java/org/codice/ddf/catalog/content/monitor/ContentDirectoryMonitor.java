@@ -15,7 +15,10 @@
 
 import static org.codice.ddf.security.common.Security.runAsAdmin;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -36,7 +39,9 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ddf.catalog.CatalogFramework;
 import ddf.catalog.Constants;
+import ddf.mime.MimeTypeMapper;
 import ddf.security.common.util.Security;
 import net.jodah.failsafe.Failsafe;
 import net.jodah.failsafe.RetryPolicy;
@@ -44,10 +49,23 @@
 /**
  * Container class for managing the configuration of a Camel Route that allows content to be
  * automatically ingested when dropped into the specified monitored directory.
+ * <p>
+ * When the monitor mode is {@link #WATCH_MODE}, the directory is monitored by a
+ * {@link WatchingDirectoryIngester} instead, which ingests files in parallel batches.
  */
 public class ContentDirectoryMonitor implements DirectoryMonitor {
+    public static final String POLLING_MODE = "polling";
+
+    public static final String WATCH_MODE = "watch";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(ContentDirectoryMonitor.class);
 
+    private static final int DEFAULT_NUM_THREADS = 4;
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final int DEFAULT_READ_LOCK_INTERVAL_MILLISECONDS = 1000;
+
     private String monitoredDirectory = null;
 
     private boolean copyIngestedFiles = false;
@@ -58,6 +76,20 @@ public class ContentDirectoryMonitor implements DirectoryMonitor {
 
     private List<String> attributeOverrides;
 
+    private String monitorMode = POLLING_MODE;
+
+    private int numThreads = DEFAULT_NUM_THREADS;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private int readLockIntervalMilliseconds = DEFAULT_READ_LOCK_INTERVAL_MILLISECONDS;
+
+    private CatalogFramework catalogFramework;
+
+    private MimeTypeMapper mimeTypeMapper;
+
+    private WatchingDirectoryIngester directoryIngester;
+
     private final int maxRetries;
 
     private final int delayBetweenRetries;
@@ -66,6 +98,8 @@ public class ContentDirectoryMonitor implements DirectoryMonitor {
 
     Processor systemSubjectBinder = new SystemSubjectBinder();
 
+    Runnable ingestSubjectBinder = () -> ThreadContext.bind(Security.getSystemSubject());
+
     /**
      * Constructs a monitor for a specific directory that will ingest files into
      * the Content Framework.
@@ -117,6 +151,7 @@ public void init() {
         } else {
             LOGGER.debug("No routes to remove before configuring a new route");
         }
+        stopDirectoryIngester();
 
         runAsAdmin(this::configure);
     }
@@ -127,7 +162,11 @@ private Object configure() {
             return null;
         }
 
-        CompletableFuture.runAsync(this::attemptAddRoutes, configurationExecutor);
+        if (WATCH_MODE.equals(monitorMode)) {
+            CompletableFuture.runAsync(this::startDirectoryIngester, configurationExecutor);
+        } else {
+            CompletableFuture.runAsync(this::attemptAddRoutes, configurationExecutor);
+        }
         return null;
     }
 
@@ -155,6 +194,7 @@ public void destroy(int code) {
                 LOGGER.warn("Unable to stop Camel route with route ID = {}", routeDef.getId(), e);
             }
         }
+        stopDirectoryIngester();
     }
 
     /**
@@ -172,6 +212,22 @@ public void updateCallback(Map<String, Object> properties) {
             if (parameterArray != null) {
                 setAttributeOverrides(Arrays.asList(parameterArray));
             }
+            String mode = (String) properties.get("monitorMode");
+            if (mode != null) {
+                setMonitorMode(mode);
+            }
+            Integer threads = (Integer) properties.get("numThreads");
+            if (threads != null) {
+                setNumThreads(threads);
+            }
+            Integer size = (Integer) properties.get("batchSize");
+            if (size != null) {
+                setBatchSize(size);
+            }
+            Integer interval = (Integer) properties.get("readLockIntervalMilliseconds");
+            if (interval != null) {
+                setReadLockIntervalMilliseconds(interval);
+            }
             init();
         }
     }
@@ -197,6 +253,44 @@ public void setAttributeOverrides(List<String> attributeOverrides) {
         this.attributeOverrides = attributeOverrides;
     }
 
+    /**
+     * @param monitorMode - {@link #POLLING_MODE} to ingest files with a Camel route, or
+     *                    {@link #WATCH_MODE} to ingest them in parallel batches
+     */
+    public void setMonitorMode(String monitorMode) {
+        this.monitorMode = monitorMode;
+    }
+
+    /**
+     * @param numThreads - number of batches ingested in parallel in {@link #WATCH_MODE}
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    /**
+     * @param batchSize - maximum number of files in each create request in {@link #WATCH_MODE}
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * @param readLockIntervalMilliseconds - time a file must stay unchanged before it is ingested
+     *                                     in {@link #WATCH_MODE}
+     */
+    public void setReadLockIntervalMilliseconds(int readLockIntervalMilliseconds) {
+        this.readLockIntervalMilliseconds = Math.max(1, readLockIntervalMilliseconds);
+    }
+
+    public void setCatalogFramework(CatalogFramework catalogFramework) {
+        this.catalogFramework = catalogFramework;
+    }
+
+    public void setMimeTypeMapper(MimeTypeMapper mimeTypeMapper) {
+        this.mimeTypeMapper = mimeTypeMapper;
+    }
+
     public List<RouteDefinition> getRouteDefinitions() {
         return camelContext.getRouteDefinitions();
     }
@@ -225,6 +319,62 @@ private void attemptAddRoutes() {
         }
     }
 
+    private synchronized void startDirectoryIngester() {
+        if (catalogFramework == null || mimeTypeMapper == null) {
+            LOGGER.warn("{} {}",
+                    "Unable to watch the monitored directory without a catalog framework.",
+                    "This content directory monitor will be unusable.");
+            return;
+        }
+
+        WatchingDirectoryIngester ingester = new WatchingDirectoryIngester(Paths.get(
+                monitoredDirectory),
+                catalogFramework,
+                mimeTypeMapper,
+                ingestSubjectBinder,
+                copyIngestedFiles,
+                createAttributeOverrideMap(),
+                numThreads,
+                batchSize,
+                readLockIntervalMilliseconds);
+        try {
+            ingester.start();
+            directoryIngester = ingester;
+        } catch (IOException e) {
+            ingester.close();
+            LOGGER.warn("Unable to watch {}. This content directory monitor will be unusable.",
+                    monitoredDirectory,
+                    e);
+        }
+    }
+
+    private synchronized void stopDirectoryIngester() {
+        if (directoryIngester != null) {
+            LOGGER.debug("Stopping the directory ingester for {}", monitoredDirectory);
+            directoryIngester.close();
+            directoryIngester = null;
+        }
+    }
+
+    /*
+        Parses the attribute overrides the same way as the content component does for the
+        header set by the Camel route.
+     */
+    private HashMap<String, String> createAttributeOverrideMap() {
+        if (attributeOverrides == null || attributeOverrides.isEmpty()) {
+            return null;
+        }
+        HashMap<String, String> attributeOverrideMap = new HashMap<>();
+        for (String attributeOverride : attributeOverrides) {
+            String[] keyValuePair = attributeOverride.trim()
+                    .split("=");
+            if (keyValuePair.length == 2) {
+                attributeOverrideMap.put(keyValuePair[0], keyValuePair[1]);
+            }
+        }
+        return attributeOverrideMap;
+    }
+
     /*
         Do not attempt to add routes to the CamelContext until we know the content scheme is ready.
      */
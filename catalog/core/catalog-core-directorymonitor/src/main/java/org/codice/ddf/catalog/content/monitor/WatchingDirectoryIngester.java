@@ -0,0 +1,456 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.content.monitor;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.shiro.util.ThreadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.ByteSource;
+
+import ddf.catalog.CatalogFramework;
+import ddf.catalog.Constants;
+import ddf.catalog.content.data.ContentItem;
+import ddf.catalog.content.data.impl.ContentItemImpl;
+import ddf.catalog.content.operation.CreateStorageRequest;
+import ddf.catalog.content.operation.impl.CreateStorageRequestImpl;
+import ddf.catalog.source.IngestException;
+import ddf.catalog.source.SourceUnavailableException;
+import ddf.mime.MimeTypeMapper;
+import ddf.mime.MimeTypeResolutionException;
+
+/**
+ * Ingests the files placed in a directory without going through a Camel file route.
+ * <p>
+ * New and changed files are detected with a {@link WatchService}. A file is ingested once its size
+ * and modification time have not changed for one {@code stabilityInterval}, which replaces the
+ * {@code readLock=changed} check of the Camel route. Ready files are sent to the
+ * {@link CatalogFramework} in {@link CreateStorageRequest}s of up to {@code batchSize} items, on a
+ * pool of {@code threads} workers. If a batch fails, its files are retried one at a time so that
+ * only the files that cannot be ingested are moved to the {@code .errors} directory.
+ */
+class WatchingDirectoryIngester implements Closeable {
+
+    static final String INGESTED_DIRECTORY = ".ingested";
+
+    static final String ERRORS_DIRECTORY = ".errors";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WatchingDirectoryIngester.class);
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final Path directory;
+
+    private final CatalogFramework catalogFramework;
+
+    private final MimeTypeMapper mimeTypeMapper;
+
+    private final Runnable subjectBinder;
+
+    private final boolean copyIngestedFiles;
+
+    private final HashMap<String, String> attributeOverrides;
+
+    private final int batchSize;
+
+    private final int maxPendingBatches;
+
+    private final long stabilityIntervalMillis;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ExecutorService workers;
+
+    /* Only accessed from the scheduler thread. */
+    private final Map<Path, FileState> candidates = new HashMap<>();
+
+    /* Only accessed from the scheduler thread. */
+    private final Queue<Path> readyFiles = new ArrayDeque<>();
+
+    private final Set<Path> filesInProgress = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger pendingBatches = new AtomicInteger();
+
+    private WatchService watchService;
+
+    /**
+     * @param directory               the directory to monitor
+     * @param catalogFramework        the framework the files are ingested into
+     * @param mimeTypeMapper          resolves the mime type of each file
+     * @param subjectBinder           binds the subject used for the ingest to the worker thread
+     * @param copyIngestedFiles       move ingested files to {@code .ingested} instead of deleting
+     *                                them
+     * @param attributeOverrides      the attribute overrides added to each request, or null
+     * @param threads                 the number of batches ingested in parallel
+     * @param batchSize               the maximum number of files in each request
+     * @param stabilityIntervalMillis the time a file must stay unchanged before it is ingested
+     */
+    WatchingDirectoryIngester(Path directory, CatalogFramework catalogFramework,
+            MimeTypeMapper mimeTypeMapper, Runnable subjectBinder, boolean copyIngestedFiles,
+            Map<String, String> attributeOverrides, int threads, int batchSize,
+            long stabilityIntervalMillis) {
+        this.directory = directory.toAbsolutePath();
+        this.catalogFramework = catalogFramework;
+        this.mimeTypeMapper = mimeTypeMapper;
+        this.subjectBinder = subjectBinder;
+        this.copyIngestedFiles = copyIngestedFiles;
+        this.attributeOverrides = attributeOverrides == null ? null : new HashMap<>(
+                attributeOverrides);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxPendingBatches = Math.max(1, threads) * 2;
+        this.stabilityIntervalMillis = Math.max(1, stabilityIntervalMillis);
+
+        String name = this.directory.getFileName() == null ?
+                this.directory.toString() :
+                this.directory.getFileName()
+                        .toString();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> newThread(runnable,
+                "directoryMonitor-" + name));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads),
+                runnable -> newThread(runnable,
+                        "directoryMonitor-" + name + "-" + threadCount.incrementAndGet()));
+    }
+
+    /**
+     * Starts watching the directory and queues the files that are already in it.
+     *
+     * @throws IOException if the directory cannot be created or watched
+     */
+    void start() throws IOException {
+        Files.createDirectories(directory);
+        watchService = directory.getFileSystem()
+                .newWatchService();
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        scheduler.execute(this::scanDirectory);
+        scheduler.scheduleWithFixedDelay(this::checkFiles,
+                stabilityIntervalMillis,
+                stabilityIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        LOGGER.debug("Watching {} for files to ingest", directory);
+    }
+
+    /**
+     * Stops watching the directory and waits for the batches being ingested to complete. Files
+     * that have not been sent to the framework are left in the directory.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        workers.shutdown();
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+            if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Stopped monitoring {} before all files were ingested", directory);
+                workers.shutdownNow();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to close the watch service for {}", directory, e);
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread()
+                    .interrupt();
+        }
+    }
+
+    private void scanDirectory() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            files.forEach(this::addCandidate);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to list the files in {}", directory, e);
+        }
+    }
+
+    private void checkFiles() {
+        try {
+            // Files found by this check are compared on the next one, one interval later
+            checkStability();
+            pollEvents();
+            dispatchBatches();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to check {} for files to ingest", directory, e);
+        }
+    }
+
+    private void pollEvents() {
+        WatchKey key;
+        while ((key = watchService.poll()) != null) {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    LOGGER.debug("Missed file events for {}, listing the directory", directory);
+                    scanDirectory();
+                } else {
+                    addCandidate(directory.resolve((Path) event.context()));
+                }
+            }
+            key.reset();
+        }
+    }
+
+    private void addCandidate(Path file) {
+        String fileName = file.getFileName()
+                .toString();
+        if (fileName.startsWith(".") || filesInProgress.contains(file) || candidates.containsKey(
+                file)) {
+            return;
+        }
+        FileState state = FileState.of(file);
+        if (state != null) {
+            candidates.put(file, state);
+        }
+    }
+
+    /*
+        A file is ready once two consecutive checks see the same size and modification time.
+     */
+    private void checkStability() {
+        Iterator<Map.Entry<Path, FileState>> iterator = candidates.entrySet()
+                .iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, FileState> candidate = iterator.next();
+            FileState current = FileState.of(candidate.getKey());
+            if (current == null) {
+                iterator.remove();
+            } else if (current.equals(candidate.getValue())) {
+                iterator.remove();
+                filesInProgress.add(candidate.getKey());
+                readyFiles.add(candidate.getKey());
+            } else {
+                candidate.setValue(current);
+            }
+        }
+    }
+
+    private void dispatchBatches() {
+        while (!readyFiles.isEmpty() && pendingBatches.get() < maxPendingBatches) {
+            List<Path> batch = new ArrayList<>(Math.min(batchSize, readyFiles.size()));
+            while (batch.size() < batchSize && !readyFiles.isEmpty()) {
+                batch.add(readyFiles.remove());
+            }
+            pendingBatches.incrementAndGet();
+            try {
+                workers.execute(() -> ingestBatch(batch));
+            } catch (RejectedExecutionException e) {
+                LOGGER.debug("Not ingesting {} files, the monitor is stopping", batch.size());
+                pendingBatches.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void ingestBatch(List<Path> files) {
+        try {
+            Map<Path, ContentItem> contentItems = new LinkedHashMap<>();
+            for (Path file : files) {
+                try {
+                    contentItems.put(file, createContentItem(file));
+                } catch (IOException | MimeTypeResolutionException | IllegalArgumentException e) {
+                    LOGGER.debug("Unable to read {}", file, e);
+                    moveToErrors(file);
+                }
+            }
+            if (contentItems.isEmpty()) {
+                return;
+            }
+
+            try {
+                create(new ArrayList<>(contentItems.values()));
+                contentItems.keySet()
+                        .forEach(this::completeIngest);
+            } catch (IngestException | SourceUnavailableException | RuntimeException e) {
+                if (contentItems.size() == 1) {
+                    LOGGER.debug("Unable to ingest {}", files, e);
+                    contentItems.keySet()
+                            .forEach(this::moveToErrors);
+                } else {
+                    LOGGER.debug("Unable to ingest {} files together, ingesting them one at a time",
+                            contentItems.size(),
+                            e);
+                    contentItems.forEach(this::ingestFile);
+                }
+            }
+        } finally {
+            files.forEach(filesInProgress::remove);
+            pendingBatches.decrementAndGet();
+            try {
+                scheduler.execute(this::dispatchBatches);
+            } catch (RejectedExecutionException e) {
+                LOGGER.trace("The monitor for {} is stopping", directory, e);
+            }
+        }
+    }
+
+    private void ingestFile(Path file, ContentItem contentItem) {
+        try {
+            create(Collections.singletonList(contentItem));
+            completeIngest(file);
+        } catch (IngestException | SourceUnavailableException | RuntimeException e) {
+            LOGGER.debug("Unable to ingest {}", file, e);
+            moveToErrors(file);
+        }
+    }
+
+    private ContentItem createContentItem(Path file)
+            throws IOException, MimeTypeResolutionException {
+        ByteSource byteSource = com.google.common.io.Files.asByteSource(file.toFile());
+        String fileName = file.getFileName()
+                .toString();
+        String fileExtension = StringUtils.substringAfterLast(fileName, ".");
+
+        String mimeType;
+        if (fileExtension.equals("xml")) {
+            try (InputStream inputStream = byteSource.openStream()) {
+                mimeType = mimeTypeMapper.guessMimeType(inputStream, fileExtension);
+            }
+        } else {
+            mimeType = mimeTypeMapper.getMimeTypeForFileExtension(fileExtension);
+        }
+
+        if (StringUtils.isEmpty(mimeType)) {
+            throw new IllegalArgumentException(
+                    "Unable to determine mime type for the file " + fileName);
+        }
+        return new ContentItemImpl(byteSource, mimeType, fileName, null);
+    }
+
+    private void create(List<ContentItem> contentItems)
+            throws IngestException, SourceUnavailableException {
+        CreateStorageRequest createRequest = new CreateStorageRequestImpl(contentItems, null);
+        createRequest.getProperties()
+                .put(Constants.ATTRIBUTE_OVERRIDES_KEY,
+                        attributeOverrides == null ? null : new HashMap<>(attributeOverrides));
+        subjectBinder.run();
+        try {
+            catalogFramework.create(createRequest);
+        } finally {
+            ThreadContext.unbindSubject();
+        }
+    }
+
+    private void completeIngest(Path file) {
+        try {
+            if (copyIngestedFiles) {
+                moveTo(file, INGESTED_DIRECTORY);
+            } else {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to remove ingested file {} from the monitored directory", file, e);
+        }
+    }
+
+    private void moveToErrors(Path file) {
+        try {
+            moveTo(file, ERRORS_DIRECTORY);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to move {} to the {} directory", file, ERRORS_DIRECTORY, e);
+        }
+    }
+
+    private void moveTo(Path file, String subDirectory) throws IOException {
+        Path target = Files.createDirectories(directory.resolve(subDirectory))
+                .resolve(file.getFileName());
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class FileState {
+
+        private final long size;
+
+        private final long lastModified;
+
+        private FileState(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        /*
+            Returns null if the path is not a regular file or no longer exists.
+         */
+        static FileState of(Path file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file,
+                        BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) {
+                    return null;
+                }
+                return new FileState(attributes.size(),
+                        attributes.lastModifiedTime()
+                                .toMillis());
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                LOGGER.debug("Unable to read the attributes of {}", file, e);
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof FileState)) {
+                return false;
+            }
+            FileState state = (FileState) other;
+            return size == state.size && lastModified == state.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(size) + Long.hashCode(lastModified);
+        }
+    }
+}
@@ -18,6 +18,12 @@
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.util.Arrays;
@@ -44,7 +50,10 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ddf.catalog.CatalogFramework;
 import ddf.catalog.Constants;
+import ddf.catalog.content.operation.CreateStorageRequest;
+import ddf.mime.MimeTypeMapper;
 import net.jodah.failsafe.Failsafe;
 import net.jodah.failsafe.RetryPolicy;
 
@@ -184,6 +193,33 @@ public void testRouteCreationMissingMonitoredDirectory() throws Exception {
                 empty());
     }
 
+    @Test
+    public void testWatchModeIngestsWithoutCamelRoute() throws Exception {
+        CatalogFramework catalogFramework = mock(CatalogFramework.class);
+        MimeTypeMapper mimeTypeMapper = mock(MimeTypeMapper.class);
+        when(mimeTypeMapper.getMimeTypeForFileExtension(anyString())).thenReturn("text/plain");
+
+        ContentDirectoryMonitor monitor = createContentDirectoryMonitor();
+        monitor.setCatalogFramework(catalogFramework);
+        monitor.setMimeTypeMapper(mimeTypeMapper);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("monitoredDirectoryPath", monitoredDirectoryPath);
+        properties.put("copyIngestedFiles", true);
+        properties.put("monitorMode", ContentDirectoryMonitor.WATCH_MODE);
+        properties.put("readLockIntervalMilliseconds", 100);
+        monitor.updateCallback(properties);
+
+        try {
+            assertThat("Camel context should not have any route definitions",
+                    camelContext.getRouteDefinitions(),
+                    empty());
+            doAndVerifyFileMove(monitoredDirectory, monitoredDirectory, "input1.txt");
+            verify(catalogFramework, atLeastOnce()).create(any(CreateStorageRequest.class));
+        } finally {
+            monitor.destroy(0);
+        }
+    }
+
     private void doAndVerifyFileMove(File destinationFolder, File monitoredFolder,
             String inputFileName) throws Exception {
         doFileMove(destinationFolder, inputFileName);
@@ -268,6 +304,8 @@ private ContentDirectoryMonitor createContentDirectoryMonitor() {
                 Runnable::run);
         monitor.systemSubjectBinder = exchange -> {
         };
+        monitor.ingestSubjectBinder = () -> {
+        };
         return monitor;
     }
 }
@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.content.monitor;
+
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ddf.catalog.CatalogFramework;
+import ddf.catalog.Constants;
+import ddf.catalog.content.data.ContentItem;
+import ddf.catalog.content.operation.CreateStorageRequest;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.source.IngestException;
+import ddf.mime.MimeTypeMapper;
+
+public class WatchingDirectoryIngesterTest {
+
+    private static final int FILE_COUNT = 5000;
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final long TIMEOUT_SECONDS = 60;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<CreateStorageRequest> requests =
+            Collections.synchronizedList(new ArrayList<>());
+
+    private Path directory;
+
+    private CatalogFramework catalogFramework;
+
+    private MimeTypeMapper mimeTypeMapper;
+
+    private WatchingDirectoryIngester ingester;
+
+    @Before
+    public void setup() throws Exception {
+        directory = temporaryFolder.newFolder("inbox")
+                .toPath();
+
+        catalogFramework = mock(CatalogFramework.class);
+        when(catalogFramework.create(any(CreateStorageRequest.class))).thenAnswer(invocation -> {
+            CreateStorageRequest request = (CreateStorageRequest) invocation.getArguments()[0];
+            for (ContentItem contentItem : request.getContentItems()) {
+                if (contentItem.getFilename()
+                        .startsWith("bad")) {
+                    throw new IngestException("Unable to ingest " + contentItem.getFilename());
+                }
+            }
+            requests.add(request);
+            return mock(CreateResponse.class);
+        });
+
+        mimeTypeMapper = mock(MimeTypeMapper.class);
+        when(mimeTypeMapper.getMimeTypeForFileExtension(anyString())).thenReturn("text/plain");
+    }
+
+    @After
+    public void tearDown() {
+        if (ingester != null) {
+            ingester.close();
+        }
+    }
+
+    @Test
+    public void testIngestsThousandsOfFilesInBatches() throws Exception {
+        ingester = createIngester(false, null);
+        ingester.start();
+
+        for (int i = 0; i < FILE_COUNT; i++) {
+            writeFile("input" + i + ".txt");
+        }
+        waitFor(() -> countItems() == FILE_COUNT);
+
+        assertThat(requests.size(), is(lessThan(FILE_COUNT / 10)));
+        List<Integer> batchSizes = new ArrayList<>();
+        requests.forEach(request -> batchSizes.add(request.getContentItems()
+                .size()));
+        assertThat(batchSizes, everyItem(is(lessThanOrEqualTo(BATCH_SIZE))));
+        waitFor(() -> listFiles(directory).isEmpty());
+    }
+
+    @Test
+    public void testFilesAlreadyInDirectoryAreIngested() throws Exception {
+        writeFile("existing.txt");
+
+        ingester = createIngester(false, null);
+        ingester.start();
+
+        waitFor(() -> countItems() == 1);
+        waitFor(() -> listFiles(directory).isEmpty());
+    }
+
+    @Test
+    public void testIngestedFilesAreMoved() throws Exception {
+        ingester = createIngester(true, null);
+        ingester.start();
+
+        writeFile("input.txt");
+
+        waitFor(() -> Files.exists(directory.resolve(WatchingDirectoryIngester.INGESTED_DIRECTORY)
+                .resolve("input.txt")));
+        assertThat(Files.exists(directory.resolve("input.txt")), is(false));
+    }
+
+    @Test
+    public void testOnlyFailedFilesAreMovedToErrors() throws Exception {
+        ingester = createIngester(false, null);
+        for (int i = 0; i < 10; i++) {
+            writeFile("input" + i + ".txt");
+        }
+        writeFile("bad.txt");
+        ingester.start();
+
+        Path errors = directory.resolve(WatchingDirectoryIngester.ERRORS_DIRECTORY);
+        waitFor(() -> Files.exists(errors.resolve("bad.txt")));
+        waitFor(() -> countItems() == 10);
+        assertThat(listFiles(errors).size(), is(1));
+    }
+
+    @Test
+    public void testFileIsNotIngestedWhileBeingWritten() throws Exception {
+        ingester = createIngester(false, null);
+        ingester.start();
+
+        Path file = directory.resolve("growing.txt");
+        for (int i = 0; i < 25; i++) {
+            Files.write(file,
+                    ("line" + i + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+
+        waitFor(() -> countItems() == 1);
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertThat(countItems(), is(1));
+    }
+
+    @Test
+    public void testAttributeOverridesAreAddedToRequests() throws Exception {
+        ingester = createIngester(false, Collections.singletonMap("test1", "value1"));
+        ingester.start();
+
+        writeFile("input.txt");
+
+        waitFor(() -> countItems() == 1);
+        Map<String, Serializable> properties = requests.get(0)
+                .getProperties();
+        assertThat(((Map<?, ?>) properties.get(Constants.ATTRIBUTE_OVERRIDES_KEY)).get("test1"),
+                is("value1"));
+    }
+
+    private WatchingDirectoryIngester createIngester(boolean copyIngestedFiles,
+            Map<String, String> attributeOverrides) {
+        return new WatchingDirectoryIngester(directory,
+                catalogFramework,
+                mimeTypeMapper,
+                () -> {
+                },
+                copyIngestedFiles,
+                attributeOverrides,
+                4,
+                BATCH_SIZE,
+                100);
+    }
+
+    private void writeFile(String fileName) throws IOException {
+        Files.write(directory.resolve(fileName), fileName.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int countItems() {
+        synchronized (requests) {
+            return requests.stream()
+                    .mapToInt(request -> request.getContentItems()
+                            .size())
+                    .sum();
+        }
+    }
+
+    private List<Path> listFiles(Path folder) {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder,
+                file -> Files.isRegularFile(file))) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return files;
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!condition.getAsBoolean()) {
+            assertThat("Timed out waiting for the directory to be ingested",
+                    System.nanoTime() < deadline,
+                    is(true));
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+}
@@ -15,7 +15,6 @@
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
@@ -47,6 +46,7 @@
 import ddf.catalog.plugin.PostFederatedQueryPlugin;
 import ddf.catalog.plugin.PreFederatedQueryPlugin;
 import ddf.catalog.source.Source;
+import ddf.catalog.util.impl.BoundedResultHeap;
 import ddf.catalog.util.impl.DistanceResultComparator;
 import ddf.catalog.util.impl.RelevanceResultComparator;
 import ddf.catalog.util.impl.TemporalResultComparator;
@@ -57,7 +57,8 @@
  * are {@link Metacard.EFFECTIVE}, {@link Result.TEMPORAL}, {@link Result.DISTANCE}, or
  * {@link Result.RELEVANCE} . The supported ordering includes {@link SortOrder.DESCENDING} and
  * {@link SortOrder.ASCENDING}. For this class to function properly a sort value and sort order must
- * be provided.
+ * be provided. Each source response is merged into a {@link BoundedResultHeap} as it is retrieved,
+ * so only the requested page of results is retained.
  *
  * @see Metacard
  * @see Query
@@ -145,7 +146,9 @@ public void run() {
                 }
             }
 
-            List<Result> resultList = new ArrayList<Result>();
+            int maxResults = query.getPageSize() > 0 ? query.getPageSize() : Integer.MAX_VALUE;
+            BoundedResultHeap page = new BoundedResultHeap(coreComparator, maxResults);
+            int resultCount = 0;
             long totalHits = 0;
             Set<ProcessingDetails> processingDetails = returnResults.getProcessingDetails();
 
@@ -177,7 +180,8 @@ public void run() {
                 }
                 if (sourceResponse != null) {
                     List<Result> sourceResults = sourceResponse.getResults();
-                    resultList.addAll(sourceResults);
+                    page.offer(sourceResults);
+                    resultCount += sourceResults.size();
                     long sourceHits = sourceResponse.getHits();
 
                     totalHits += sourceHits;
@@ -223,16 +227,10 @@ public void run() {
 
                 }
             }
-            LOGGER.debug("all sites finished returning results: {}", resultList.size());
-
-            Collections.sort(resultList, coreComparator);
+            LOGGER.debug("all sites finished returning results: {}", resultCount);
 
             returnResults.setHits(totalHits);
-            int maxResults = query.getPageSize() > 0 ? query.getPageSize() : Integer.MAX_VALUE;
-
-            returnResults.addResults(
-                    resultList.size() > maxResults ? resultList.subList(0, maxResults) : resultList,
-                    true);
+            returnResults.addResults(page.drain(), true);
         }
 
         private long getTimeRemaining(long deadline) {
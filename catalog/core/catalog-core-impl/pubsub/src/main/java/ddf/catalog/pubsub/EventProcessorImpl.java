@@ -24,7 +24,6 @@
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
-import org.apache.lucene.store.Directory;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.event.Event;
@@ -49,10 +48,11 @@
 import ddf.catalog.plugin.PostIngestPlugin;
 import ddf.catalog.plugin.PreDeliveryPlugin;
 import ddf.catalog.plugin.PreSubscriptionPlugin;
-import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluator;
+import ddf.catalog.pubsub.criteria.contextual.ContextualIndex;
 import ddf.catalog.pubsub.internal.PubSubConstants;
 import ddf.catalog.pubsub.internal.PubSubThread;
 import ddf.catalog.pubsub.internal.SubscriptionFilterVisitor;
+import ddf.catalog.pubsub.internal.SubscriptionIndex;
 import ddf.catalog.pubsub.predicate.Predicate;
 import ddf.catalog.util.impl.Requests;
 
@@ -71,10 +71,13 @@ public class EventProcessorImpl implements EventProcessor, EventHandler, PostIng
 
     protected CatalogFramework catalog;
 
-    private Map<String, ServiceRegistration> existingSubscriptions;
+    private final SubscriptionIndex<PublishedEventHandler> subscriptionIndex =
+            new SubscriptionIndex<>();
 
     private final ExecutorService threadPool = Executors.newCachedThreadPool();
 
+    private ServiceRegistration dispatcherRegistration;
+
     public EventProcessorImpl() {
         LOGGER.debug("INSIDE: EventProcessorImpl default constructor");
     }
@@ -89,7 +92,6 @@ public EventProcessorImpl(BundleContext bundleContext, EventAdmin eventAdmin,
         this.preSubscription = preSubscription;
         this.preDelivery = preDelivery;
         this.catalog = catalog;
-        this.existingSubscriptions = new HashMap<>();
 
         if (this.preSubscription == null) {
             LOGGER.debug("preSubscription plugins list is NULL");
@@ -168,29 +170,14 @@ public static void processEntry(Metacard metacard, String operation, EventAdmin
 
             // CONTEXTUAL INFORMATION
             if (metacard.getMetadata() != null) {
-                try {
-                    // Build Lucene search index on entry's entire metadata using
-                    // default XPaths (specified
-                    // in ContextualEvaluator) - this index will be used by all
-                    // contextual predicates that do
-                    // *NOT* specify any textPaths. (Building index here optimizes
-                    // code so that this index is
-                    // not built for every contextual subscription that has no
-                    // textPaths.)
-                    Directory index = ContextualEvaluator.buildIndex(metacard.getMetadata());
-
-                    // Build contextual info to be sent in event for this entry.
-                    // Include the default Lucene search
-                    // index and the entry's metadata (in case subscription has
-                    // textPaths, then it can create Lucene
-                    // search indices on the metadata using its textPaths)
-                    Map<String, Object> contextualMap = new HashMap<>(2, 1);
-                    contextualMap.put("DEFAULT_INDEX", index);
-                    contextualMap.put("METADATA", metacard.getMetadata());
-                    properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
-                } catch (Exception e) {
-                    LOGGER.info("Exception updating context map", e);
-                }
+                // Send the entry's metadata along with a lazily built Lucene index of it. The index
+                // is only built if a contextual predicate evaluates the event, and is then shared
+                // by all contextual predicates evaluating it.
+                Map<String, Object> contextualMap = new HashMap<>(2, 1);
+                contextualMap.put(ContextualIndex.INDEX_KEY,
+                        new ContextualIndex(metacard.getMetadata()));
+                contextualMap.put("METADATA", metacard.getMetadata());
+                properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
             }
 
             if (eventAdmin != null) {
@@ -218,6 +205,13 @@ public void destroy() {
         String methodName = "destroy";
         LOGGER.debug("ENTERING: {}", methodName);
 
+        synchronized (this) {
+            if (dispatcherRegistration != null) {
+                dispatcherRegistration.unregister();
+                dispatcherRegistration = null;
+            }
+        }
+
         LOGGER.debug("EXITING: {}", methodName);
     }
 
@@ -233,7 +227,7 @@ public void handleEvent(Event event) {
 
         LOGGER.debug("Received event: {}", event.getTopic());
 
-        if (!existingSubscriptions.isEmpty()) {
+        if (!subscriptionIndex.isEmpty()) {
             String topic = event.getTopic();
             Metacard entry = (Metacard) event.getProperty(EventProcessor.EVENT_METACARD);
             LOGGER.debug("metacard ID = {}", entry.getId());
@@ -282,20 +276,14 @@ public void createSubscription(Subscription subscription, String subscriptionId)
             Predicate finalPredicate = (Predicate) subscription.accept(visitor, null);
             LOGGER.debug("predicate from filter visitor: {}", finalPredicate);
 
-            String[] topics = new String[] {PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME};
-
-            Dictionary<String, String[]> props = new Hashtable<>(1, 1);
-            props.put(EventConstants.EVENT_TOPIC, topics);
-            ServiceRegistration serviceRegistration =
-                    bundleContext.registerService(EventHandler.class.getName(),
-                            new PublishedEventHandler(finalPredicate,
-                                    subscription,
-                                    preDelivery,
-                                    catalog,
-                                    threadPool),
-                            props);
-
-            existingSubscriptions.put(subscriptionId, serviceRegistration);
+            registerDispatcher();
+            subscriptionIndex.add(subscriptionId,
+                    finalPredicate,
+                    new PublishedEventHandler(finalPredicate,
+                            subscription,
+                            preDelivery,
+                            catalog,
+                            threadPool));
 
             LOGGER.debug("Subscription {} created.", subscriptionId);
         } catch (Exception e) {
@@ -333,12 +321,8 @@ public void deleteSubscription(String subscriptionId) throws SubscriptionNotFoun
 
         try {
             LOGGER.debug("Removing subscription: {}", subscriptionId);
-            ServiceRegistration sr =
-                    (ServiceRegistration) existingSubscriptions.get(subscriptionId);
-            if (sr != null) {
-                sr.unregister();
+            if (subscriptionIndex.remove(subscriptionId)) {
                 LOGGER.debug("Removal complete");
-                existingSubscriptions.remove(subscriptionId);
             } else {
                 LOGGER.debug("Unable to find existing subscription: {}.  May already be deleted.",
                         subscriptionId);
@@ -352,6 +336,22 @@ public void deleteSubscription(String subscriptionId) throws SubscriptionNotFoun
         LOGGER.debug("EXITING: " + methodName);
     }
 
+    /**
+     * Registers the single {@link EventHandler} that dispatches published events to the
+     * subscriptions found by the {@link SubscriptionIndex}.
+     */
+    private synchronized void registerDispatcher() {
+        if (dispatcherRegistration == null) {
+            String[] topics = new String[] {PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME};
+
+            Dictionary<String, String[]> props = new Hashtable<>(1, 1);
+            props.put(EventConstants.EVENT_TOPIC, topics);
+            dispatcherRegistration = bundleContext.registerService(EventHandler.class.getName(),
+                    new SubscriptionDispatcher(),
+                    props);
+        }
+    }
+
     @Override
     public void notifyCreated(Metacard newMetacard) {
         LOGGER.trace("ENTERING: notifyCreated");
@@ -435,6 +435,20 @@ public DeleteResponse process(DeleteResponse deleteResponse) throws PluginExecut
         return deleteResponse;
     }
 
+    /**
+     * Hands published events to the subscriptions that may match them. Each subscription's
+     * {@link PublishedEventHandler} still evaluates its predicate before delivering the event.
+     */
+    private class SubscriptionDispatcher implements EventHandler {
+
+        @Override
+        public void handleEvent(Event event) {
+            for (PublishedEventHandler handler : subscriptionIndex.getCandidates(event)) {
+                handler.handleEvent(event);
+            }
+        }
+    }
+
     public static enum DateType {
         modified, effective, expiration, created
     }
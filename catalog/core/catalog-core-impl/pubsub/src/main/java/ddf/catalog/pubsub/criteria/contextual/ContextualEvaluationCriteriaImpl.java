@@ -72,6 +72,21 @@ public ContextualEvaluationCriteriaImpl(String criteria, boolean fuzzy,
         this.index = ContextualEvaluator.buildIndex(metadata, this.textPaths);
     }
 
+    /**
+     * Creates criteria for text paths that evaluates against an index that was already built for
+     * the metadata and text paths.
+     */
+    public ContextualEvaluationCriteriaImpl(String criteria, boolean fuzzy,
+            boolean caseSensitiveSearch, String[] textPaths, String metadata, Directory index) {
+        super();
+        this.criteria = criteria;
+        this.fuzzy = fuzzy;
+        this.caseSensitiveSearch = caseSensitiveSearch;
+        this.textPaths = textPaths == null ? null : Arrays.copyOf(textPaths, textPaths.length);
+        this.metadata = metadata;
+        this.index = index;
+    }
+
     public String getCriteria() {
         return criteria;
     }
@@ -17,18 +17,24 @@
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.PerFieldAnalyzerWrapper;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.apache.lucene.analysis.tokenattributes.TermAttribute;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermEnum;
 import org.apache.lucene.queryParser.ParseException;
 import org.apache.lucene.queryParser.QueryParser;
 import org.apache.lucene.search.IndexSearcher;
@@ -197,9 +203,14 @@ public static Directory buildIndex(String fullDocument, String[] xpathSelectors)
 
         // LOGGER.debug( XPathHelper.xmlToString( fullDocument ) );
 
-        // 0. Specify the analyzer for tokenizing text.
-        // The same analyzer should be used for indexing and searching
-        ContextualAnalyzer contextualAnalyzer = new ContextualAnalyzer(Version.LUCENE_30);
+        // 0. Specify the analyzers for tokenizing text.
+        // The same analyzer should be used for indexing and searching: the case-insensitive
+        // analyzer for the case-insensitive field and the custom case-sensitive analyzer for the
+        // case-sensitive field
+        PerFieldAnalyzerWrapper analyzer =
+                new PerFieldAnalyzerWrapper(new ContextualAnalyzer(Version.LUCENE_30));
+        analyzer.addAnalyzer(CASE_SENSITIVE_FIELD_NAME,
+                new CaseSensitiveContextualAnalyzer(Version.LUCENE_30));
 
         // 1. create the index
         Directory index = new RAMDirectory();
@@ -208,37 +219,73 @@ public static Directory buildIndex(String fullDocument, String[] xpathSelectors)
         // selectors
         String indexableText = getIndexableText(fullDocument, xpathSelectors);
 
-        // Create an IndexWriter using the case-insensitive StandardAnalyzer
+        // Create a single IndexWriter for both fields, so the index is only written and
+        // committed once
         // NOTE: the boolean arg in the IndexWriter constructor means to create a new index,
         // overwriting any existing index
         IndexWriter indexWriter = new IndexWriter(index,
-                contextualAnalyzer,
+                analyzer,
                 true,
                 IndexWriter.MaxFieldLength.UNLIMITED);
-        logTokens(indexWriter.getAnalyzer(), FIELD_NAME, fullDocument, "ContextualAnalyzer");
+        logTokens(analyzer, FIELD_NAME, fullDocument, "ContextualAnalyzer");
 
-        // Add the indexable text to the case-insensitive index writer, assigning it the
-        // "case-insensitive" field name
+        // Add the indexable text under both the "case-insensitive" and the "case-sensitive"
+        // field names
         addDoc(indexWriter, FIELD_NAME, indexableText);
+        addDoc(indexWriter, CASE_SENSITIVE_FIELD_NAME, indexableText);
         indexWriter.close();
 
-        CaseSensitiveContextualAnalyzer caseSensitiveStandardAnalyzer =
-                new CaseSensitiveContextualAnalyzer(Version.LUCENE_30);
+        return index;
+    }
 
-        // Create a second IndexWriter using the custom case-sensitive StandardAnalyzer
-        // NOTE: set boolean to false to append the case-sensitive indexed text to the existing
-        // index (populated by first IndexWriter)
-        IndexWriter csIndexWriter = new IndexWriter(index,
-                caseSensitiveStandardAnalyzer,
-                false,
-                IndexWriter.MaxFieldLength.UNLIMITED);
+    /**
+     * Returns the case-insensitive terms in an index built by {@link #buildIndex(String)}. A
+     * search phrase can only match the index if the index contains the terms of the phrase.
+     *
+     * @param index the Lucene index for an XML document
+     * @return the terms in the index
+     * @throws IOException
+     */
+    public static Set<String> getIndexedTerms(Directory index) throws IOException {
+        Set<String> indexedTerms = new HashSet<>();
 
-        // Add the indexable text to the case-sensitive index writer, assigning it the
-        // "case-sensitive" field name
-        addDoc(csIndexWriter, CASE_SENSITIVE_FIELD_NAME, indexableText);
-        csIndexWriter.close();
+        IndexReader reader = IndexReader.open(index, true);
+        TermEnum terms = reader.terms(new Term(FIELD_NAME, ""));
+        try {
+            do {
+                Term term = terms.term();
+                if (term == null || !FIELD_NAME.equals(term.field())) {
+                    break;
+                }
+                indexedTerms.add(term.text());
+            } while (terms.next());
+        } finally {
+            terms.close();
+            reader.close();
+        }
 
-        return index;
+        return indexedTerms;
+    }
+
+    /**
+     * Analyzes text the same way case-insensitive text is indexed by {@link #buildIndex(String)}.
+     *
+     * @param text the text to analyze
+     * @return the terms of the text, in order
+     * @throws IOException
+     */
+    public static List<String> getTerms(String text) throws IOException {
+        List<String> terms = new ArrayList<>();
+
+        TokenStream tokenStream = new ContextualAnalyzer(Version.LUCENE_30).tokenStream(FIELD_NAME,
+                new StringReader(text));
+        TermAttribute termAttribute = tokenStream.getAttribute(TermAttribute.class);
+        while (tokenStream.incrementToken()) {
+            terms.add(termAttribute.term());
+        }
+        tokenStream.close();
+
+        return terms;
     }
 
     private static void logTokens(Analyzer analyzer, String fieldName, String fullDocument,
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.criteria.contextual;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.store.Directory;
+
+/**
+ * The Lucene indexes of the metadata of one published entry, shared by every subscription that
+ * evaluates the entry's event.
+ * <p>
+ * Nothing is indexed until a contextual criteria asks for it, so entries published while there
+ * are no contextual subscriptions never pay for indexing. The index over the default XPath
+ * selectors is built at most once, and the index for a set of text paths is built once for all
+ * subscriptions that use the same text paths.
+ */
+public class ContextualIndex {
+
+    /**
+     * Key of the {@link ContextualIndex} in the contextual map of a published event.
+     */
+    public static final String INDEX_KEY = "CONTEXTUAL_INDEX";
+
+    private static final String DEFAULT_INDEX_KEY = "DEFAULT_INDEX";
+
+    private static final String METADATA_KEY = "METADATA";
+
+    private final String metadata;
+
+    private final Map<List<String>, Directory> textPathIndexes = new HashMap<>();
+
+    private Directory defaultIndex;
+
+    private Set<String> indexedTerms;
+
+    /**
+     * @param metadata the XML metadata of the published entry
+     */
+    public ContextualIndex(String metadata) {
+        this(metadata, null);
+    }
+
+    /**
+     * @param metadata     the XML metadata of the published entry
+     * @param defaultIndex an index already built for the metadata with the default XPath
+     *                     selectors, or {@code null} to build it when needed
+     */
+    public ContextualIndex(String metadata, Directory defaultIndex) {
+        this.metadata = metadata;
+        this.defaultIndex = defaultIndex;
+    }
+
+    /**
+     * Returns the index carried by the contextual map of a published event. Maps that only carry
+     * a prebuilt default index and the metadata are wrapped in a new index.
+     *
+     * @param contextualMap the contextual map of the event
+     * @return the index for the event's entry, or {@code null} if the map is {@code null}
+     */
+    public static ContextualIndex fromContextualMap(Map<String, Object> contextualMap) {
+        if (contextualMap == null) {
+            return null;
+        }
+
+        Object index = contextualMap.get(INDEX_KEY);
+        if (index instanceof ContextualIndex) {
+            return (ContextualIndex) index;
+        }
+
+        Object defaultIndex = contextualMap.get(DEFAULT_INDEX_KEY);
+        return new ContextualIndex((String) contextualMap.get(METADATA_KEY),
+                defaultIndex instanceof Directory ? (Directory) defaultIndex : null);
+    }
+
+    public String getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * @return the index of the text selected by the default XPath selectors
+     * @throws IOException if the index cannot be built
+     */
+    public synchronized Directory getDefaultIndex() throws IOException {
+        if (defaultIndex == null) {
+            defaultIndex = ContextualEvaluator.buildIndex(metadata);
+        }
+        return defaultIndex;
+    }
+
+    /**
+     * @param textPaths the XPath selectors of the text to index, or {@code null} for the default
+     *                  selectors
+     * @return the index of the text selected by the text paths
+     * @throws IOException if the index cannot be built
+     */
+    public synchronized Directory getIndex(String[] textPaths) throws IOException {
+        if (textPaths == null || textPaths.length == 0) {
+            return getDefaultIndex();
+        }
+
+        List<String> key = Arrays.asList(textPaths.clone());
+        Directory index = textPathIndexes.get(key);
+        if (index == null) {
+            index = ContextualEvaluator.buildIndex(metadata, textPaths);
+            textPathIndexes.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return the case-insensitive terms of the default index
+     * @throws IOException if the index cannot be built or read
+     * @see ContextualEvaluator#getIndexedTerms(Directory)
+     */
+    public synchronized Set<String> getIndexedTerms() throws IOException {
+        if (indexedTerms == null) {
+            indexedTerms = ContextualEvaluator.getIndexedTerms(getDefaultIndex());
+        }
+        return indexedTerms;
+    }
+}
@@ -0,0 +1,517 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.geotools.geometry.jts.WKTReader2;
+import org.osgi.service.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.index.intervalrtree.SortedPackedIntervalRTree;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import com.vividsolutions.jts.io.ParseException;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.pubsub.EventProcessorImpl.DateType;
+import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluator;
+import ddf.catalog.pubsub.criteria.contextual.ContextualIndex;
+import ddf.catalog.pubsub.predicate.AndPredicate;
+import ddf.catalog.pubsub.predicate.ContentTypePredicate;
+import ddf.catalog.pubsub.predicate.ContextualPredicate;
+import ddf.catalog.pubsub.predicate.EntryPredicate;
+import ddf.catalog.pubsub.predicate.GeospatialPredicate;
+import ddf.catalog.pubsub.predicate.OrPredicate;
+import ddf.catalog.pubsub.predicate.Predicate;
+import ddf.catalog.pubsub.predicate.TemporalPredicate;
+
+/**
+ * Finds the subscriptions that can match a published event without evaluating the
+ * {@link Predicate} of every subscription.
+ * <p>
+ * When a subscription is added its predicate tree, as built by {@link SubscriptionFilterVisitor},
+ * is compiled into guards: conditions of which an event must satisfy at least one for the
+ * predicate to match. Guards are kept in shared indexes: hash lookups for entry ids, content
+ * types and contextual terms, an R-tree of bounding boxes for geospatial criteria and an interval
+ * tree per date type for absolute temporal criteria. Subscriptions whose predicates cannot be
+ * guarded, such as negations, fuzzy, case-sensitive or wildcard searches, searches on text paths and relative
+ * temporal criteria, are candidates for every event.
+ * <p>
+ * The index only rules out subscriptions that cannot match, so each candidate still has to be
+ * evaluated with its predicate. The indexes are rebuilt on the first event after subscriptions
+ * change, which keeps lookups lock free.
+ *
+ * @param <T> the type of the subscribers
+ */
+public class SubscriptionIndex<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SubscriptionIndex.class);
+
+    private static final String METADATA_KEY = "METADATA";
+
+    /**
+     * Search phrases made only of words, optionally quoted as an exact phrase. Anything else may
+     * contain wildcards or Lucene syntax that cannot be reduced to required terms.
+     */
+    private static final Pattern LITERAL_PHRASE = Pattern.compile(
+            "\"[\\p{L}\\p{N} ]+\"|[\\p{L}\\p{N} ]+");
+
+    /**
+     * Content types without characters that {@code ContentTypeEvaluator} treats as a regular
+     * expression.
+     */
+    private static final Pattern LITERAL_CONTENT_TYPE = Pattern.compile("[\\w\\-:/ ]+");
+
+    private final Map<String, Registration<T>> registrations = new LinkedHashMap<>();
+
+    private volatile Snapshot<T> snapshot;
+
+    /**
+     * Adds a subscription, replacing any subscription already added with the same id.
+     *
+     * @param subscriptionId the id of the subscription
+     * @param predicate      the predicate of the subscription, {@code null} to match every event
+     * @param subscriber     the subscriber to return when the subscription is a candidate
+     */
+    public synchronized void add(String subscriptionId, Predicate predicate, T subscriber) {
+        registrations.put(subscriptionId, new Registration<>(subscriber, getGuards(predicate)));
+        snapshot = null;
+    }
+
+    /**
+     * Removes a subscription.
+     *
+     * @param subscriptionId the id of the subscription
+     * @return {@code true} if the subscription was in the index
+     */
+    public synchronized boolean remove(String subscriptionId) {
+        if (registrations.remove(subscriptionId) == null) {
+            return false;
+        }
+        snapshot = null;
+        return true;
+    }
+
+    public synchronized int size() {
+        return registrations.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the subscribers of every subscription that may match the event.
+     *
+     * @param event the event published for a created, updated or deleted entry
+     * @return the candidate subscribers, each at most once
+     */
+    public Collection<T> getCandidates(Event event) {
+        Set<Registration<T>> candidates = getSnapshot().getCandidates(event);
+
+        List<T> subscribers = new ArrayList<>(candidates.size());
+        for (Registration<T> registration : candidates) {
+            subscribers.add(registration.subscriber);
+        }
+        return subscribers;
+    }
+
+    private Snapshot<T> getSnapshot() {
+        Snapshot<T> current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = new Snapshot<>(registrations.values());
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Compiles a predicate into guards.
+     *
+     * @return the guards, one of which an event must satisfy to match the predicate, or
+     * {@code null} if no such guards can be derived
+     */
+    static List<Guard> getGuards(Predicate predicate) {
+        if (predicate instanceof AndPredicate) {
+            AndPredicate and = (AndPredicate) predicate;
+            return mostSelective(getGuards(and.getLeft()), getGuards(and.getRight()));
+        } else if (predicate instanceof OrPredicate) {
+            OrPredicate or = (OrPredicate) predicate;
+            List<Guard> left = getGuards(or.getLeft());
+            List<Guard> right = getGuards(or.getRight());
+            if (left == null || right == null) {
+                return null;
+            }
+            List<Guard> guards = new ArrayList<>(left);
+            guards.addAll(right);
+            return guards;
+        } else if (predicate instanceof EntryPredicate) {
+            String catalogId = ((EntryPredicate) predicate).getCatalogId();
+            return catalogId == null ? null : guard(Guard.Kind.ENTRY_ID, catalogId);
+        } else if (predicate instanceof ContentTypePredicate) {
+            String type = ((ContentTypePredicate) predicate).getType();
+            return type == null || !LITERAL_CONTENT_TYPE.matcher(type)
+                    .matches() ? null : guard(Guard.Kind.CONTENT_TYPE, type);
+        } else if (predicate instanceof ContextualPredicate) {
+            return getTermGuards((ContextualPredicate) predicate);
+        } else if (predicate instanceof GeospatialPredicate) {
+            GeospatialPredicate geospatial = (GeospatialPredicate) predicate;
+            if (geospatial.getGeoCriteria() == null) {
+                return null;
+            }
+            Envelope envelope = new Envelope(geospatial.getGeoCriteria()
+                    .getEnvelopeInternal());
+            envelope.expandBy(geospatial.getDistance());
+            return Collections.singletonList(new Guard(envelope));
+        } else if (predicate instanceof TemporalPredicate) {
+            TemporalPredicate temporal = (TemporalPredicate) predicate;
+            Date start = temporal.getStart();
+            Date end = temporal.getEnd();
+            if (temporal.getOffset() != 0 || start == null || end == null
+                    || temporal.getType() == null) {
+                return null;
+            }
+            return Collections.singletonList(new Guard(temporal.getType(),
+                    start.getTime(),
+                    end.getTime()));
+        }
+
+        return null;
+    }
+
+    private static List<Guard> getTermGuards(ContextualPredicate predicate) {
+        String phrase = predicate.getSearchPhrase();
+        if (predicate.hasTextPaths() || predicate.isFuzzy() || predicate.isCaseSensitive()
+                || phrase == null
+                || !LITERAL_PHRASE.matcher(phrase)
+                .matches()) {
+            return null;
+        }
+
+        List<String> terms;
+        try {
+            terms = ContextualEvaluator.getTerms(phrase.replace("\"", ""));
+        } catch (IOException e) {
+            LOGGER.debug("Unable to analyze search phrase [{}]", phrase, e);
+            return null;
+        }
+
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        if (phrase.startsWith("\"")) {
+            // Every term of an exact phrase is required, so one is enough
+            String longest = terms.get(0);
+            for (String term : terms) {
+                if (term.length() > longest.length()) {
+                    longest = term;
+                }
+            }
+            return guard(Guard.Kind.TERM, longest);
+        }
+
+        List<Guard> guards = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(terms)) {
+            guards.add(new Guard(Guard.Kind.TERM, term));
+        }
+        return guards;
+    }
+
+    private static List<Guard> mostSelective(List<Guard> left, List<Guard> right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        }
+        return cost(right) < cost(left) ? right : left;
+    }
+
+    private static int cost(List<Guard> guards) {
+        int cost = 0;
+        for (Guard guard : guards) {
+            cost += guard.kind.ordinal() + 1;
+        }
+        return cost;
+    }
+
+    private static List<Guard> guard(Guard.Kind kind, String key) {
+        return Collections.singletonList(new Guard(kind, key));
+    }
+
+    /**
+     * Mirrors how {@code ContentTypeEvaluator} reads the content type of an event.
+     */
+    static String getInputType(Object contentType) {
+        String input = contentType == null ? null : contentType.toString();
+        if (input == null || input.matches(",")) {
+            return "null";
+        }
+
+        String type = input.split(",")[0];
+        return type.isEmpty() ? "null" : type;
+    }
+
+    static Date getDate(Metacard entry, DateType type) {
+        switch (type) {
+        case modified:
+            return entry.getModifiedDate();
+        case effective:
+            return entry.getEffectiveDate();
+        case created:
+            return entry.getCreatedDate();
+        case expiration:
+            return entry.getExpirationDate();
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * A condition an event must satisfy for a predicate to match. Kinds are declared from the
+     * most to the least selective.
+     */
+    static final class Guard {
+
+        enum Kind {
+            ENTRY_ID, TERM, LOCATION, CONTENT_TYPE, DATE
+        }
+
+        private final Kind kind;
+
+        private final String key;
+
+        private final Envelope envelope;
+
+        private final DateType dateType;
+
+        private final long start;
+
+        private final long end;
+
+        Guard(Kind kind, String key) {
+            this(kind, key, null, null, 0, 0);
+        }
+
+        Guard(Envelope envelope) {
+            this(Kind.LOCATION, null, envelope, null, 0, 0);
+        }
+
+        Guard(DateType dateType, long start, long end) {
+            this(Kind.DATE, null, null, dateType, start, end);
+        }
+
+        private Guard(Kind kind, String key, Envelope envelope, DateType dateType, long start,
+                long end) {
+            this.kind = kind;
+            this.key = key;
+            this.envelope = envelope;
+            this.dateType = dateType;
+            this.start = start;
+            this.end = end;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        String getKey() {
+            return key;
+        }
+    }
+
+    private static final class Registration<T> {
+
+        private final T subscriber;
+
+        private final List<Guard> guards;
+
+        Registration(T subscriber, List<Guard> guards) {
+            this.subscriber = subscriber;
+            this.guards = guards;
+        }
+    }
+
+    /**
+     * Immutable indexes over the subscriptions at the time it was built.
+     */
+    private static final class Snapshot<T> {
+
+        private final List<Registration<T>> all;
+
+        private final List<Registration<T>> unguarded = new ArrayList<>();
+
+        private final Map<String, List<Registration<T>>> entryIds = new HashMap<>();
+
+        private final Map<String, List<Registration<T>>> contentTypes = new HashMap<>();
+
+        private final Map<String, List<Registration<T>>> terms = new HashMap<>();
+
+        private final STRtree locations = new STRtree();
+
+        private final Map<DateType, SortedPackedIntervalRTree> dates =
+                new EnumMap<>(DateType.class);
+
+        Snapshot(Collection<Registration<T>> registrations) {
+            all = new ArrayList<>(registrations);
+
+            for (Registration<T> registration : all) {
+                if (registration.guards == null) {
+                    unguarded.add(registration);
+                    continue;
+                }
+
+                for (Guard guard : registration.guards) {
+                    switch (guard.kind) {
+                    case ENTRY_ID:
+                        post(entryIds, guard.key, registration);
+                        break;
+                    case CONTENT_TYPE:
+                        post(contentTypes, guard.key, registration);
+                        break;
+                    case TERM:
+                        post(terms, guard.key, registration);
+                        break;
+                    case LOCATION:
+                        locations.insert(guard.envelope, registration);
+                        break;
+                    case DATE:
+                        dates.computeIfAbsent(guard.dateType,
+                                type -> new SortedPackedIntervalRTree())
+                                .insert(guard.start, guard.end, registration);
+                        break;
+                    default:
+                        unguarded.add(registration);
+                        break;
+                    }
+                }
+            }
+
+            locations.build();
+
+            LOGGER.debug(
+                    "Indexed {} subscriptions: {} unguarded, {} entry ids, {} content types, {} terms, {} locations.",
+                    all.size(),
+                    unguarded.size(),
+                    entryIds.size(),
+                    contentTypes.size(),
+                    terms.size(),
+                    locations.size());
+        }
+
+        Set<Registration<T>> getCandidates(Event event) {
+            Map<String, Object> contextualMap = (Map<String, Object>) event.getProperty(
+                    PubSubConstants.HEADER_CONTEXTUAL_KEY);
+
+            // Predicates match every deleted entry that was published without metadata
+            if (PubSubConstants.DELETE.equals(event.getProperty(PubSubConstants.HEADER_OPERATION_KEY))
+                    && contextualMap != null && PubSubConstants.METADATA_DELETED.equals(
+                    contextualMap.get(METADATA_KEY))) {
+                return new LinkedHashSet<>(all);
+            }
+
+            Set<Registration<T>> candidates = new LinkedHashSet<>(unguarded);
+
+            Object id = event.getProperty(PubSubConstants.HEADER_ID_KEY);
+            if (id != null) {
+                addAll(candidates, entryIds.get(id.toString()));
+            }
+
+            addAll(candidates,
+                    contentTypes.get(getInputType(event.getProperty(PubSubConstants.HEADER_CONTENT_TYPE_KEY))));
+
+            if (!terms.isEmpty() && contextualMap != null) {
+                addTermCandidates(candidates, ContextualIndex.fromContextualMap(contextualMap));
+            }
+
+            Metacard entry = (Metacard) event.getProperty(PubSubConstants.HEADER_ENTRY_KEY);
+            if (entry != null) {
+                addLocationCandidates(candidates, entry.getLocation());
+
+                for (Map.Entry<DateType, SortedPackedIntervalRTree> tree : dates.entrySet()) {
+                    Date date = getDate(entry, tree.getKey());
+                    if (date != null) {
+                        tree.getValue()
+                                .query(date.getTime(),
+                                        date.getTime(),
+                                        item -> candidates.add((Registration<T>) item));
+                    }
+                }
+            }
+
+            return candidates;
+        }
+
+        private void addTermCandidates(Set<Registration<T>> candidates, ContextualIndex index) {
+            try {
+                for (String term : index.getIndexedTerms()) {
+                    addAll(candidates, terms.get(term));
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Unable to read indexed terms, evaluating all contextual criteria.",
+                        e);
+                for (List<Registration<T>> postings : terms.values()) {
+                    candidates.addAll(postings);
+                }
+            }
+        }
+
+        private void addLocationCandidates(Set<Registration<T>> candidates, String location) {
+            if (location == null || locations.size() == 0) {
+                return;
+            }
+
+            try {
+                Geometry geometry = new WKTReader2().read(location);
+                for (Object item : locations.query(geometry.getEnvelopeInternal())) {
+                    candidates.add((Registration<T>) item);
+                }
+            } catch (ParseException e) {
+                LOGGER.debug("Unable to parse location [{}] of published entry.", location, e);
+            }
+        }
+
+        private static <T> void post(Map<String, List<Registration<T>>> postings, String key,
+                Registration<T> registration) {
+            postings.computeIfAbsent(key, k -> new ArrayList<>())
+                    .add(registration);
+        }
+
+        private static <T> void addAll(Set<Registration<T>> candidates,
+                List<Registration<T>> postings) {
+            if (postings != null) {
+                candidates.addAll(postings);
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@
 import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluationCriteria;
 import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluationCriteriaImpl;
 import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluator;
+import ddf.catalog.pubsub.criteria.contextual.ContextualIndex;
 import ddf.catalog.pubsub.criteria.contextual.ContextualTokenizer;
 import ddf.catalog.pubsub.internal.PubSubConstants;
 
@@ -234,34 +235,26 @@ public boolean matches(Event properties) {
             return true;
         }
 
-        // If predicate specified one or more text paths, then extract the entry's metadata from the
-        // Event properties and
-        // pass it and the text path(s) to the evaluation criteria (which will build a Lucene index
-        // on the metadata using the
-        // text paths)
-        if (this.textPaths != null && !this.textPaths.isEmpty()) {
-            LOGGER.debug("creating criteria with textPaths and metadata document");
-            try {
-                cec = new ContextualEvaluationCriteriaImpl(searchPhrase,
-                        fuzzy,
-                        caseSensitiveSearch,
-                        this.textPaths.toArray(new String[this.textPaths.size()]),
-                        (String) contextualMap.get("METADATA"));
-            } catch (IOException e) {
-                LOGGER.debug("IO exception during context evaluation", e);
-                return false;
-            }
-
-            // This predicate has no text paths specified, so can use default Lucene search index, which
-            // indexed the entry's entire metadata
-            // per the default XPath expressions in ContextualEvaluator, from the event's properties
-            // data
-        } else {
-            LOGGER.debug("using default Lucene search index for metadata");
+        // If predicate specified one or more text paths, then evaluate against the index of the
+        // text at those paths, otherwise against the default index of the entry's entire
+        // metadata. Both are built on first use and shared with every other subscription
+        // evaluating this event.
+        ContextualIndex contextualIndex = ContextualIndex.fromContextualMap(contextualMap);
+        String[] paths = this.textPaths == null || this.textPaths.isEmpty() ? null
+                : this.textPaths.toArray(new String[this.textPaths.size()]);
+        try {
+            // A criteria without a search phrase only checks that the text paths exist, which
+            // does not need an index
+            Directory index = searchPhrase.isEmpty() ? null : contextualIndex.getIndex(paths);
             cec = new ContextualEvaluationCriteriaImpl(searchPhrase,
                     fuzzy,
                     caseSensitiveSearch,
-                    (Directory) contextualMap.get("DEFAULT_INDEX"));
+                    paths,
+                    metadata,
+                    index);
+        } catch (IOException e) {
+            LOGGER.debug("IO exception during context evaluation", e);
+            return false;
         }
 
         try {
@@ -150,6 +150,10 @@ public Date getStart() {
         return DateUtils.copy(start);
     }
 
+    public long getOffset() {
+        return offset;
+    }
+
     public DateType getType() {
         return type;
     }
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.criteria.contextual;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.store.Directory;
+import org.junit.Test;
+
+import ddf.catalog.pubsub.TestDataLibrary;
+
+public class ContextualIndexTest {
+
+    private static final String[] TITLE_PATH = {"//title"};
+
+    @Test
+    public void testDefaultIndexBuiltOnce() throws Exception {
+        ContextualIndex index = new ContextualIndex(TestDataLibrary.getCatAndDogEntry());
+
+        Directory defaultIndex = index.getDefaultIndex();
+
+        assertThat(index.getDefaultIndex(), sameInstance(defaultIndex));
+        assertThat(index.getIndex(null), sameInstance(defaultIndex));
+        assertThat(index.getIndexedTerms(), hasItems("cat", "dog", "serengeti"));
+    }
+
+    @Test
+    public void testIndexSharedPerTextPaths() throws Exception {
+        ContextualIndex index = new ContextualIndex(TestDataLibrary.getCatAndDogEntry());
+
+        Directory titleIndex = index.getIndex(TITLE_PATH);
+
+        assertThat(index.getIndex(new String[] {"//title"}), sameInstance(titleIndex));
+        assertThat(index.getIndex(new String[] {"//surname"}), not(sameInstance(titleIndex)));
+        assertThat(ContextualEvaluator.evaluate(new ContextualEvaluationCriteriaImpl("serengeti",
+                false,
+                false,
+                TITLE_PATH,
+                index.getMetadata(),
+                titleIndex)), is(true));
+        assertThat(ContextualEvaluator.evaluate(new ContextualEvaluationCriteriaImpl("cat",
+                false,
+                false,
+                TITLE_PATH,
+                index.getMetadata(),
+                titleIndex)), is(false));
+    }
+
+    @Test
+    public void testFromContextualMap() throws Exception {
+        String metadata = TestDataLibrary.getDogEntry();
+        ContextualIndex index = new ContextualIndex(metadata);
+        Map<String, Object> contextualMap = new HashMap<>();
+        contextualMap.put(ContextualIndex.INDEX_KEY, index);
+
+        assertThat(ContextualIndex.fromContextualMap(contextualMap), sameInstance(index));
+        assertThat(ContextualIndex.fromContextualMap(null), nullValue());
+    }
+
+    @Test
+    public void testFromContextualMapWithPrebuiltIndex() throws Exception {
+        String metadata = TestDataLibrary.getDogEntry();
+        Directory defaultIndex = ContextualEvaluator.buildIndex(metadata);
+        Map<String, Object> contextualMap = new HashMap<>();
+        contextualMap.put("DEFAULT_INDEX", defaultIndex);
+        contextualMap.put("METADATA", metadata);
+
+        ContextualIndex index = ContextualIndex.fromContextualMap(contextualMap);
+
+        assertThat(index.getDefaultIndex(), sameInstance(defaultIndex));
+        assertThat(index.getMetadata(), is(metadata));
+    }
+}
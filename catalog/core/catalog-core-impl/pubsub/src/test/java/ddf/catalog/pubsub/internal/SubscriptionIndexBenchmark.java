@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.osgi.service.event.Event;
+
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.pubsub.EventProcessorImpl.DateType;
+import ddf.catalog.pubsub.TestDataLibrary;
+import ddf.catalog.pubsub.criteria.contextual.ContextualIndex;
+import ddf.catalog.pubsub.predicate.AndPredicate;
+import ddf.catalog.pubsub.predicate.ContentTypePredicate;
+import ddf.catalog.pubsub.predicate.ContextualPredicate;
+import ddf.catalog.pubsub.predicate.EntryPredicate;
+import ddf.catalog.pubsub.predicate.GeospatialPredicate;
+import ddf.catalog.pubsub.predicate.Predicate;
+import ddf.catalog.pubsub.predicate.TemporalPredicate;
+
+/**
+ * Compares evaluating every subscription's predicate against a published event with evaluating
+ * only the candidates found by the {@link SubscriptionIndex}. Benchmarks are not run as part of
+ * the build; run them through {@link #main(String[])} with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SubscriptionIndexBenchmark {
+
+    @Param({"1000", "10000"})
+    private int subscriptionCount;
+
+    private List<Predicate> predicates;
+
+    private SubscriptionIndex<Predicate> index;
+
+    private Event event;
+
+    @Setup(Level.Trial)
+    public void createSubscriptions() {
+        Random random = new Random(7);
+        predicates = new ArrayList<>(subscriptionCount);
+        index = new SubscriptionIndex<>();
+        for (int i = 0; i < subscriptionCount; i++) {
+            Predicate predicate = new AndPredicate(randomPredicate(random),
+                    randomPredicate(random));
+            predicates.add(predicate);
+            index.add(String.valueOf(i), predicate, predicate);
+        }
+
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId("id-7");
+        metacard.setLocation("POINT (10 20)");
+        metacard.setModifiedDate(new Date(500000L));
+
+        String metadata = TestDataLibrary.getCatAndDogEntry();
+        Map<String, Object> contextualMap = new HashMap<>();
+        contextualMap.put(ContextualIndex.INDEX_KEY, new ContextualIndex(metadata));
+        contextualMap.put("METADATA", metadata);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.CREATE);
+        properties.put(PubSubConstants.HEADER_ENTRY_KEY, metacard);
+        properties.put(PubSubConstants.HEADER_ID_KEY, metacard.getId());
+        properties.put(PubSubConstants.HEADER_CONTENT_TYPE_KEY, "nitf,1.0");
+        properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
+        event = new Event("topic", properties);
+
+        // Build the index outside of the measurements
+        index.getCandidates(event);
+    }
+
+    @Benchmark
+    public int evaluateAll() {
+        return countMatches(predicates);
+    }
+
+    @Benchmark
+    public int evaluateCandidates() {
+        return countMatches(index.getCandidates(event));
+    }
+
+    private int countMatches(Iterable<Predicate> subscriptions) {
+        int matches = 0;
+        for (Predicate predicate : subscriptions) {
+            if (predicate.matches(event)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private static Predicate randomPredicate(Random random) {
+        switch (random.nextInt(5)) {
+        case 0:
+            return new EntryPredicate("id-" + random.nextInt(1000));
+        case 1:
+            return new ContentTypePredicate("type-" + random.nextInt(50), null);
+        case 2:
+            return new ContextualPredicate("word" + random.nextInt(500), false, false, null);
+        case 3:
+            int x = random.nextInt(340) - 170;
+            int y = random.nextInt(160) - 80;
+            return new GeospatialPredicate(String.format(
+                    "POLYGON ((%1$d %2$d, %3$d %2$d, %3$d %4$d, %1$d %4$d, %1$d %2$d))",
+                    x,
+                    y,
+                    x + 5,
+                    y + 5), "overlaps", 0);
+        default:
+            long start = random.nextInt(1000) * 1000L;
+            return new TemporalPredicate(new Date(start),
+                    new Date(start + 10000L),
+                    DateType.modified);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SubscriptionIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
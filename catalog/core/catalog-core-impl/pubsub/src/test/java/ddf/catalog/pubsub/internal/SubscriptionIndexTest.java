@@ -0,0 +1,261 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.pubsub.EventProcessorImpl.DateType;
+import ddf.catalog.pubsub.TestDataLibrary;
+import ddf.catalog.pubsub.criteria.contextual.ContextualIndex;
+import ddf.catalog.pubsub.predicate.AndPredicate;
+import ddf.catalog.pubsub.predicate.ContentTypePredicate;
+import ddf.catalog.pubsub.predicate.ContextualPredicate;
+import ddf.catalog.pubsub.predicate.EntryPredicate;
+import ddf.catalog.pubsub.predicate.GeospatialPredicate;
+import ddf.catalog.pubsub.predicate.NotPredicate;
+import ddf.catalog.pubsub.predicate.OrPredicate;
+import ddf.catalog.pubsub.predicate.Predicate;
+import ddf.catalog.pubsub.predicate.TemporalPredicate;
+
+public class SubscriptionIndexTest {
+
+    private static final String[] TYPES = {"nitf", "video", "image", "type*"};
+
+    private static final String[] PHRASES =
+            {"dog", "cat", "miles", "serengeti event", "\"serengeti event\"", "dog*", "zebra"};
+
+    @Test
+    public void testEntryIdCandidates() throws Exception {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("sub-1", new EntryPredicate("id-1"), "sub-1");
+        index.add("sub-2", new EntryPredicate("id-2"), "sub-2");
+
+        assertThat(index.getCandidates(event("id-1", "nitf,1.0", TestDataLibrary.getDogEntry())),
+                contains("sub-1"));
+    }
+
+    @Test
+    public void testAndUsesMostSelectiveGuard() {
+        List<SubscriptionIndex.Guard> guards = SubscriptionIndex.getGuards(new AndPredicate(
+                new ContentTypePredicate("nitf", null),
+                new EntryPredicate("id-1")));
+
+        assertThat(guards.size(), is(1));
+        assertThat(guards.get(0)
+                .getKind(), is(SubscriptionIndex.Guard.Kind.ENTRY_ID));
+        assertThat(guards.get(0)
+                .getKey(), is("id-1"));
+    }
+
+    @Test
+    public void testUnindexablePredicates() {
+        assertThat(SubscriptionIndex.getGuards(new NotPredicate(new EntryPredicate("id-1"))),
+                nullValue());
+        assertThat(SubscriptionIndex.getGuards(new ContentTypePredicate("type*", null)),
+                nullValue());
+        assertThat(SubscriptionIndex.getGuards(new ContextualPredicate("dog*",
+                false,
+                false,
+                null)), nullValue());
+        assertThat(SubscriptionIndex.getGuards(new TemporalPredicate(1000L, DateType.modified)),
+                nullValue());
+        assertThat(SubscriptionIndex.getGuards(new OrPredicate(new EntryPredicate("id-1"),
+                new NotPredicate(new EntryPredicate("id-2")))), nullValue());
+    }
+
+    @Test
+    public void testUnguardedSubscriptionIsAlwaysCandidate() throws Exception {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("sub-1", new NotPredicate(new EntryPredicate("id-1")), "sub-1");
+        index.add("sub-2", new EntryPredicate("id-2"), "sub-2");
+
+        assertThat(index.getCandidates(event("id-3", "nitf,1.0", TestDataLibrary.getDogEntry())),
+                contains("sub-1"));
+    }
+
+    @Test
+    public void testContextualCandidates() throws Exception {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("cat", new ContextualPredicate("cat", false, false, null), "cat");
+        index.add("dog", new ContextualPredicate("dog", false, false, null), "dog");
+        index.add("phrase",
+                new ContextualPredicate("\"serengeti event\"", false, false, null),
+                "phrase");
+
+        assertThat(index.getCandidates(event("id-1", "nitf,1.0", TestDataLibrary.getDogEntry())),
+                contains("dog"));
+        assertThat(index.getCandidates(event("id-1",
+                "nitf,1.0",
+                TestDataLibrary.getCatAndDogEntry())), containsInAnyOrder("cat", "dog", "phrase"));
+    }
+
+    @Test
+    public void testDeletedEntryReturnsAllSubscriptions() throws Exception {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("sub-1", new EntryPredicate("id-1"), "sub-1");
+        index.add("sub-2", new ContentTypePredicate("video", null), "sub-2");
+
+        Map<String, Object> contextualMap = new HashMap<>();
+        contextualMap.put("METADATA", PubSubConstants.METADATA_DELETED);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.DELETE);
+        properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
+        properties.put(PubSubConstants.HEADER_ID_KEY, "id-3");
+
+        assertThat(index.getCandidates(new Event("topic", properties)),
+                containsInAnyOrder("sub-1", "sub-2"));
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("sub-1", new EntryPredicate("id-1"), "sub-1");
+
+        assertThat(index.remove("sub-1"), is(true));
+        assertThat(index.remove("sub-1"), is(false));
+        assertThat(index.isEmpty(), is(true));
+        assertThat(index.getCandidates(event("id-1", "nitf,1.0", TestDataLibrary.getDogEntry())),
+                empty());
+    }
+
+    /**
+     * Every subscription whose predicate matches an event has to be a candidate for the event,
+     * while a good share of those that do not match are ruled out.
+     */
+    @Test
+    public void testCandidatesIncludeEveryMatch() throws Exception {
+        Random random = new Random(11);
+        SubscriptionIndex<Predicate> index = new SubscriptionIndex<>();
+        List<Predicate> predicates = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Predicate predicate = randomPredicate(random, 2);
+            predicates.add(predicate);
+            index.add(String.valueOf(i), predicate, predicate);
+        }
+
+        int candidateCount = 0;
+        for (int i = 0; i < 20; i++) {
+            Event event = randomEvent(random);
+            Set<Predicate> candidates = new HashSet<>(index.getCandidates(event));
+            candidateCount += candidates.size();
+
+            for (Predicate predicate : predicates) {
+                if (predicate.matches(event)) {
+                    assertThat(predicate.toString(), candidates, hasItem(predicate));
+                }
+            }
+        }
+
+        assertThat(candidateCount, lessThan(20 * predicates.size() * 3 / 4));
+    }
+
+    private static Predicate randomPredicate(Random random, int depth) {
+        int choice = random.nextInt(depth > 0 ? 8 : 5);
+        switch (choice) {
+        case 0:
+            return new EntryPredicate("id-" + random.nextInt(50));
+        case 1:
+            return new ContentTypePredicate(TYPES[random.nextInt(TYPES.length)], null);
+        case 2:
+            return new ContextualPredicate(PHRASES[random.nextInt(PHRASES.length)],
+                    false,
+                    false,
+                    null);
+        case 3:
+            double x = random.nextInt(340) - 170;
+            double y = random.nextInt(160) - 80;
+            String wkt = String.format(
+                    "POLYGON ((%1$s %2$s, %3$s %2$s, %3$s %4$s, %1$s %4$s, %1$s %2$s))",
+                    x,
+                    y,
+                    x + 10,
+                    y + 10);
+            return new GeospatialPredicate(wkt,
+                    random.nextBoolean() ? "contains" : "overlaps",
+                    random.nextBoolean() ? 0 : random.nextInt(5) + 1);
+        case 4:
+            long start = random.nextInt(1000) * 1000L;
+            return new TemporalPredicate(new Date(start),
+                    new Date(start + random.nextInt(100) * 1000L),
+                    DateType.values()[random.nextInt(DateType.values().length)]);
+        case 5:
+            return new AndPredicate(randomPredicate(random, depth - 1),
+                    randomPredicate(random, depth - 1));
+        case 6:
+            return new OrPredicate(randomPredicate(random, depth - 1),
+                    randomPredicate(random, depth - 1));
+        default:
+            return new NotPredicate(randomPredicate(random, depth - 1));
+        }
+    }
+
+    private static Event randomEvent(Random random) throws Exception {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId("id-" + random.nextInt(50));
+        metacard.setLocation(String.format("POINT (%s %s)",
+                random.nextInt(340) - 170,
+                random.nextInt(160) - 80));
+        metacard.setModifiedDate(new Date(random.nextInt(1000) * 1000L));
+        metacard.setEffectiveDate(new Date(random.nextInt(1000) * 1000L));
+        metacard.setCreatedDate(new Date(random.nextInt(1000) * 1000L));
+        metacard.setExpirationDate(new Date(random.nextInt(1000) * 1000L));
+
+        return event(metacard,
+                TYPES[random.nextInt(TYPES.length - 1)] + ",1.0",
+                random.nextBoolean() ? TestDataLibrary.getDogEntry()
+                        : TestDataLibrary.getCatAndDogEntry());
+    }
+
+    private static Event event(String id, String contentType, String metadata) throws Exception {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId(id);
+        metacard.setLocation("POINT (0 0)");
+        return event(metacard, contentType, metadata);
+    }
+
+    private static Event event(MetacardImpl metacard, String contentType, String metadata)
+            throws Exception {
+        Map<String, Object> contextualMap = new HashMap<>();
+        contextualMap.put(ContextualIndex.INDEX_KEY, new ContextualIndex(metadata));
+        contextualMap.put("METADATA", metadata);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.CREATE);
+        properties.put(PubSubConstants.HEADER_ENTRY_KEY, metacard);
+        properties.put(PubSubConstants.HEADER_ID_KEY, metacard.getId());
+        properties.put(PubSubConstants.HEADER_CONTENT_TYPE_KEY, contentType);
+        properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
+        return new Event("topic", properties);
+    }
+}
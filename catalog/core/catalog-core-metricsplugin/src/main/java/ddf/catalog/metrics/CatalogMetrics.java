@@ -15,7 +15,6 @@
 
 import java.util.Iterator;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
 import org.codice.ddf.configuration.SystemInfo;
@@ -24,7 +23,6 @@
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.SlidingTimeWindowReservoir;
 
 import ddf.catalog.federation.FederationException;
 import ddf.catalog.filter.FilterAdapter;
@@ -44,6 +42,9 @@
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.UnsupportedQueryException;
 import ddf.catalog.util.impl.Requests;
+import ddf.metrics.collector.histogram.HdrReservoir;
+import ddf.metrics.collector.rrd4j.RrdJmxCollector;
+import ddf.metrics.collector.rrd4j.RrdMetricsSampler;
 
 /**
  * Catalog plug-in to capture metrics on catalog operations.
@@ -107,7 +108,7 @@ public CatalogMetrics(FilterAdapter filterAdapter) {
         this.filterAdapter = filterAdapter;
 
         resultCount = metrics.register(MetricRegistry.name(QUERIES_SCOPE, "TotalResults"),
-                new Histogram(new SlidingTimeWindowReservoir(1, TimeUnit.MINUTES)));
+                new Histogram(new HdrReservoir()));
 
         queries = metrics.meter(MetricRegistry.name(QUERIES_SCOPE));
         federatedQueries = metrics.meter(MetricRegistry.name(QUERIES_SCOPE, "Federated"));
@@ -133,6 +134,43 @@ public CatalogMetrics(FilterAdapter filterAdapter) {
         reporter.start();
     }
 
+    /**
+     * Creates the catalog metrics and registers them with the given sampler, which records them
+     * in the RRD files shown on the Metrics tab of the Web Admin console.
+     */
+    public CatalogMetrics(FilterAdapter filterAdapter, RrdMetricsSampler sampler) {
+        this(filterAdapter);
+
+        sampler.register("catalogQueriesTotalResults",
+                RrdJmxCollector.GAUGE_DATA_SOURCE_TYPE,
+                () -> resultCount.getSnapshot()
+                        .getMean());
+
+        registerCount(sampler, "catalogQueries", queries);
+        registerCount(sampler, "catalogQueriesFederated", federatedQueries);
+        registerCount(sampler, "catalogQueriesComparison", comparisonQueries);
+        registerCount(sampler, "catalogQueriesSpatial", spatialQueries);
+        registerCount(sampler, "catalogQueriesXpath", xpathQueries);
+        registerCount(sampler, "catalogQueriesFuzzy", fuzzyQueries);
+        registerCount(sampler, "catalogQueriesTemporal", temporalQueries);
+
+        registerCount(sampler, "catalogExceptions", exceptions);
+        registerCount(sampler, "catalogExceptionsUnsupportedQuery", unsupportedQueryExceptions);
+        registerCount(sampler, "catalogExceptionsSourceUnavailable", sourceUnavailableExceptions);
+        registerCount(sampler, "catalogExceptionsFederation", federationExceptions);
+
+        registerCount(sampler, "catalogIngestCreated", createdMetacards);
+        registerCount(sampler, "catalogIngestUpdated", updatedMetacards);
+        registerCount(sampler, "catalogIngestDeleted", deletedMetacards);
+
+        registerCount(sampler, "catalogResourceRetrieval", resourceRetrival);
+    }
+
+    private static void registerCount(RrdMetricsSampler sampler, String rrdFilename,
+            Meter meter) {
+        sampler.register(rrdFilename, RrdJmxCollector.DERIVE_DATA_SOURCE_TYPE, meter::getCount);
+    }
+
     // PostQuery
     @Override
     public QueryResponse process(QueryResponse input)
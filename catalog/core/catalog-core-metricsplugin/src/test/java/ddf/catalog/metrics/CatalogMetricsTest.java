@@ -15,7 +15,12 @@
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -24,11 +29,13 @@
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.DoubleSupplier;
 
 import org.codice.ddf.configuration.SystemInfo;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.opengis.filter.Filter;
 
 import com.codahale.metrics.MetricRegistry;
@@ -56,6 +63,8 @@
 import ddf.catalog.operation.impl.QueryResponseImpl;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.UnsupportedQueryException;
+import ddf.metrics.collector.rrd4j.RrdJmxCollector;
+import ddf.metrics.collector.rrd4j.RrdMetricsSampler;
 
 /**
  * Tests {@link CatalogMetrics}
@@ -288,4 +297,27 @@ public void catalogResourceRetrievalMetric() throws Exception {
         assertThat(underTest.resourceRetrival.getCount(), is(1L));
     }
 
+    @Test
+    public void catalogMetricsRegisteredWithSampler() throws Exception {
+        RrdMetricsSampler sampler = mock(RrdMetricsSampler.class);
+        underTest.reporter.stop();
+        underTest = new CatalogMetrics(filterAdapter, sampler);
+
+        ArgumentCaptor<DoubleSupplier> queries = ArgumentCaptor.forClass(DoubleSupplier.class);
+        verify(sampler).register(eq("catalogQueries"),
+                eq(RrdJmxCollector.DERIVE_DATA_SOURCE_TYPE),
+                queries.capture());
+        verify(sampler).register(eq("catalogQueriesTotalResults"),
+                eq(RrdJmxCollector.GAUGE_DATA_SOURCE_TYPE),
+                any(DoubleSupplier.class));
+        verify(sampler, times(15)).register(anyString(),
+                eq(RrdJmxCollector.DERIVE_DATA_SOURCE_TYPE),
+                any(DoubleSupplier.class));
+
+        underTest.process(new QueryRequestImpl(new QueryImpl(idFilter)));
+
+        assertThat(queries.getValue()
+                .getAsDouble(), is(1.0));
+    }
+
 }
@@ -0,0 +1,376 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+
+/**
+ * Compact, versioned binary encoding for the values of {@link AttributeFormat#OBJECT} attributes
+ * and for the {@link MetacardType} stored with every Solr document.
+ * <p>
+ * Values of the types that make up the basic attribute formats (strings, numbers, booleans, dates
+ * and byte arrays) and metacard types built only from {@link BasicTypes} attribute types are
+ * written without reflection. Anything else is wrapped around standard Java serialization so no
+ * information is lost.
+ * <p>
+ * Encoded values start with {@link #MAGIC} followed by a format version. Java serialization
+ * streams always start with {@code 0xACED}, so values written before this codec existed are
+ * recognized and still decoded, which lets existing indexes be read without a migration.
+ */
+public final class BinaryFieldCodec {
+
+    static final byte MAGIC = (byte) 0xDD;
+
+    static final byte VERSION = 1;
+
+    private static final byte JAVA_SERIALIZATION_MAGIC = (byte) 0xAC;
+
+    private static final byte NULL = 0;
+
+    private static final byte STRING = 1;
+
+    private static final byte BOOLEAN = 2;
+
+    private static final byte SHORT = 3;
+
+    private static final byte INTEGER = 4;
+
+    private static final byte LONG = 5;
+
+    private static final byte FLOAT = 6;
+
+    private static final byte DOUBLE = 7;
+
+    private static final byte DATE = 8;
+
+    private static final byte BYTES = 9;
+
+    private static final byte METACARD_TYPE = 10;
+
+    private static final byte JAVA_SERIALIZED = 127;
+
+    private static final int INDEXED = 1;
+
+    private static final int STORED = 1 << 1;
+
+    private static final int TOKENIZED = 1 << 2;
+
+    private static final int MULTI_VALUED = 1 << 3;
+
+    private static final Map<AttributeFormat, AttributeType<?>> BASIC_TYPES =
+            new EnumMap<>(AttributeFormat.class);
+
+    static {
+        BASIC_TYPES.put(AttributeFormat.BINARY, BasicTypes.BINARY_TYPE);
+        BASIC_TYPES.put(AttributeFormat.BOOLEAN, BasicTypes.BOOLEAN_TYPE);
+        BASIC_TYPES.put(AttributeFormat.DATE, BasicTypes.DATE_TYPE);
+        BASIC_TYPES.put(AttributeFormat.DOUBLE, BasicTypes.DOUBLE_TYPE);
+        BASIC_TYPES.put(AttributeFormat.FLOAT, BasicTypes.FLOAT_TYPE);
+        BASIC_TYPES.put(AttributeFormat.GEOMETRY, BasicTypes.GEO_TYPE);
+        BASIC_TYPES.put(AttributeFormat.INTEGER, BasicTypes.INTEGER_TYPE);
+        BASIC_TYPES.put(AttributeFormat.LONG, BasicTypes.LONG_TYPE);
+        BASIC_TYPES.put(AttributeFormat.OBJECT, BasicTypes.OBJECT_TYPE);
+        BASIC_TYPES.put(AttributeFormat.SHORT, BasicTypes.SHORT_TYPE);
+        BASIC_TYPES.put(AttributeFormat.STRING, BasicTypes.STRING_TYPE);
+        BASIC_TYPES.put(AttributeFormat.XML, BasicTypes.XML_TYPE);
+    }
+
+    private BinaryFieldCodec() {
+    }
+
+    /**
+     * Encodes a single attribute value.
+     *
+     * @param value the value to encode, may be {@code null}
+     * @return the encoded value
+     * @throws IOException if the value falls back to Java serialization and cannot be serialized
+     */
+    public static byte[] encodeValue(Serializable value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeHeader(out);
+            writeValue(out, value);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a value written by {@link #encodeValue(Serializable)} or by Java serialization.
+     *
+     * @param bytes the encoded value
+     * @return the decoded value
+     * @throws IOException            if the bytes are not a supported encoding
+     * @throws ClassNotFoundException if a Java serialized value refers to an unknown class
+     */
+    public static Serializable decodeValue(byte[] bytes)
+            throws IOException, ClassNotFoundException {
+        if (isLegacy(bytes)) {
+            return javaDeserialize(bytes, 0, bytes.length);
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            readHeader(in);
+            return readValue(in, bytes);
+        }
+    }
+
+    /**
+     * Encodes a {@link MetacardType}. Types whose attribute descriptors all use a
+     * {@link BasicTypes} attribute type are written field by field; any other type is wrapped
+     * around Java serialization.
+     *
+     * @param metacardType the metacard type to encode
+     * @return the encoded metacard type
+     * @throws IOException if the metacard type cannot be serialized
+     */
+    public static byte[] encodeMetacardType(MetacardType metacardType) throws IOException {
+        if (!hasOnlyBasicTypes(metacardType)) {
+            return encodeValue(metacardType);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeHeader(out);
+            out.writeByte(METACARD_TYPE);
+            writeString(out, metacardType.getName());
+
+            Set<AttributeDescriptor> descriptors = metacardType.getAttributeDescriptors();
+            out.writeInt(descriptors.size());
+            for (AttributeDescriptor descriptor : descriptors) {
+                writeString(out, descriptor.getName());
+                out.writeByte(getFlags(descriptor));
+                writeString(out,
+                        descriptor.getType()
+                                .getAttributeFormat()
+                                .name());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a metacard type written by {@link #encodeMetacardType(MetacardType)} or by Java
+     * serialization.
+     *
+     * @param bytes the encoded metacard type
+     * @return the decoded metacard type
+     * @throws IOException            if the bytes are not a supported encoding
+     * @throws ClassNotFoundException if a Java serialized type refers to an unknown class
+     */
+    public static MetacardType decodeMetacardType(byte[] bytes)
+            throws IOException, ClassNotFoundException {
+        if (isLegacy(bytes)) {
+            return (MetacardType) javaDeserialize(bytes, 0, bytes.length);
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            readHeader(in);
+            byte tag = in.readByte();
+            if (tag == JAVA_SERIALIZED) {
+                return (MetacardType) readJavaSerialized(in, bytes);
+            } else if (tag != METACARD_TYPE) {
+                throw new IOException("Encoded value is not a metacard type: " + tag);
+            }
+
+            String name = readString(in);
+            int count = in.readInt();
+            Set<AttributeDescriptor> descriptors = new HashSet<>(count);
+            for (int i = 0; i < count; i++) {
+                String descriptorName = readString(in);
+                int flags = in.readByte();
+                AttributeType<?> type = BASIC_TYPES.get(AttributeFormat.valueOf(readString(in)));
+                descriptors.add(new AttributeDescriptorImpl(descriptorName,
+                        (flags & INDEXED) != 0,
+                        (flags & STORED) != 0,
+                        (flags & TOKENIZED) != 0,
+                        (flags & MULTI_VALUED) != 0,
+                        type));
+            }
+            return new MetacardTypeImpl(name, descriptors);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown attribute format in encoded metacard type.", e);
+        }
+    }
+
+    /**
+     * @param bytes an encoded value or metacard type
+     * @return {@code true} if the bytes were written with Java serialization instead of this codec
+     */
+    public static boolean isLegacy(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == JAVA_SERIALIZATION_MAGIC;
+    }
+
+    private static boolean hasOnlyBasicTypes(MetacardType metacardType) {
+        for (AttributeDescriptor descriptor : metacardType.getAttributeDescriptors()) {
+            AttributeType<?> type = descriptor.getType();
+            AttributeType<?> basicType = BASIC_TYPES.get(type.getAttributeFormat());
+            if (basicType == null || !basicType.getBinding()
+                    .equals(type.getBinding())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getFlags(AttributeDescriptor descriptor) {
+        int flags = 0;
+        flags |= descriptor.isIndexed() ? INDEXED : 0;
+        flags |= descriptor.isStored() ? STORED : 0;
+        flags |= descriptor.isTokenized() ? TOKENIZED : 0;
+        flags |= descriptor.isMultiValued() ? MULTI_VALUED : 0;
+        return flags;
+    }
+
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    private static void readHeader(DataInputStream in) throws IOException {
+        if (in.readByte() != MAGIC) {
+            throw new IOException("Unrecognized binary field encoding.");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary field encoding version: " + version);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Serializable value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value.getClass() == Date.class) {
+            // Subclasses such as java.sql.Timestamp carry more state and are serialized instead
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else {
+            out.writeByte(JAVA_SERIALIZED);
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(serialized)) {
+                objectOut.writeObject(value);
+            }
+            out.writeInt(serialized.size());
+            serialized.writeTo(out);
+        }
+    }
+
+    private static Serializable readValue(DataInputStream in, byte[] bytes)
+            throws IOException, ClassNotFoundException {
+        byte tag = in.readByte();
+        switch (tag) {
+        case NULL:
+            return null;
+        case STRING:
+            return readString(in);
+        case BOOLEAN:
+            return in.readBoolean();
+        case SHORT:
+            return in.readShort();
+        case INTEGER:
+            return in.readInt();
+        case LONG:
+            return in.readLong();
+        case FLOAT:
+            return in.readFloat();
+        case DOUBLE:
+            return in.readDouble();
+        case DATE:
+            return new Date(in.readLong());
+        case BYTES:
+            byte[] value = new byte[in.readInt()];
+            in.readFully(value);
+            return value;
+        case JAVA_SERIALIZED:
+            return readJavaSerialized(in, bytes);
+        default:
+            throw new IOException("Unknown binary field value type: " + tag);
+        }
+    }
+
+    private static Serializable readJavaSerialized(DataInputStream in, byte[] bytes)
+            throws IOException, ClassNotFoundException {
+        int length = in.readInt();
+        // the header, tag and length always precede the serialized object
+        int offset = bytes.length - in.available();
+        return javaDeserialize(bytes, offset, length);
+    }
+
+    private static Serializable javaDeserialize(byte[] bytes, int offset, int length)
+            throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes,
+                offset,
+                length))) {
+            return (Serializable) in.readObject();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[in.readInt()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
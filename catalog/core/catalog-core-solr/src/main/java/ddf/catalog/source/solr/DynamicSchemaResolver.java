@@ -13,11 +13,7 @@
  */
 package ddf.catalog.source.solr;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
@@ -31,6 +27,7 @@
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -149,6 +146,8 @@ public class DynamicSchemaResolver {
 
     protected Map<String, byte[]> metacardTypeNameToSerialCache = new HashMap<>();
 
+    private final Map<String, ResolvedField> resolvedFieldsCache = new ConcurrentHashMap<>();
+
     private Processor processor = new Processor(new Config());
 
     public DynamicSchemaResolver() {
@@ -255,14 +254,11 @@ public void addFields(Metacard metacard, SolrInputDocument solrInputDocument)
                         solrInputDocument.addField(specialStringIndexName + SchemaFields.HAS_CASE,
                                 parsedTexts);
                     } else if (AttributeFormat.OBJECT.equals(format)) {
-                        ByteArrayOutputStream byteArrayOS = new ByteArrayOutputStream();
                         List<Serializable> byteArrays = new ArrayList<>();
 
-                        try (ObjectOutputStream out = new ObjectOutputStream(byteArrayOS)) {
+                        try {
                             for (Serializable serializable : attributeValues) {
-                                out.writeObject(serializable);
-                                byteArrays.add(byteArrayOS.toByteArray());
-                                out.reset();
+                                byteArrays.add(BinaryFieldCodec.encodeValue(serializable));
                             }
                         } catch (IOException e) {
                             throw new MetacardCreationException(COULD_NOT_SERIALIZE_OBJECT_MESSAGE, e);
@@ -401,9 +397,10 @@ public List<Serializable> getDocValues(String solrFieldName, Collection<Object>
     }
 
     public Serializable getDocValue(String solrFieldName, Object docValue) {
+        return getDocValue(getType(solrFieldName), docValue);
+    }
 
-        AttributeFormat format = getType(solrFieldName);
-
+    Serializable getDocValue(AttributeFormat format, Object docValue) {
         if (AttributeFormat.SHORT.equals(format)) {
             /*
              * We have inside knowledge that user-given short objects are stored as Integers in
@@ -412,21 +409,13 @@ public Serializable getDocValue(String solrFieldName, Object docValue) {
              */
             return Short.parseShort(docValue.toString());
         } else if (AttributeFormat.OBJECT.equals(format)) {
-
-            ByteArrayInputStream bais = null;
-            ObjectInputStream in = null;
             try {
-                bais = new ByteArrayInputStream((byte[]) docValue);
-                in = new ObjectInputStream(bais);
-                return (Serializable) in.readObject();
+                return BinaryFieldCodec.decodeValue((byte[]) docValue);
             } catch (IOException e) {
                 LOGGER.info("IO exception loading input document", e);
             } catch (ClassNotFoundException e) {
                 LOGGER.info("Could not create object to return.", e);
                 // TODO which exception to throw?
-            } finally {
-                IOUtils.closeQuietly(bais);
-                IOUtils.closeQuietly(in);
             }
 
             return null;
@@ -453,6 +442,21 @@ public String resolveFieldName(String solrFieldName) {
         return solrFieldName;
     }
 
+    /**
+     * Returns the attribute name and format of a Solr field. Results are cached, so the suffix
+     * parsing done by {@link #resolveFieldName(String)} and {@link #getType(String)} happens once
+     * per field name rather than once per document.
+     *
+     * @param solrFieldName Solr index field name
+     * @return the resolved field
+     */
+    ResolvedField resolveField(String solrFieldName) {
+        return resolvedFieldsCache.computeIfAbsent(solrFieldName,
+                name -> new ResolvedField(resolveFieldName(name),
+                        getType(name),
+                        isPrivateField(name)));
+    }
+
     public boolean isPrivateField(String solrFieldName) {
         return PRIVATE_SOLR_FIELDS.contains(solrFieldName)
                 || solrFieldName.endsWith(SchemaFields.SORT_KEY_SUFFIX);
@@ -539,16 +543,8 @@ public MetacardType getMetacardType(SolrDocument doc) throws MetacardCreationExc
 
         byte[] bytes = (byte[]) doc.getFirstValue(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME);
 
-        ByteArrayInputStream bais = null;
-        ObjectInputStream in = null;
         try {
-
-            bais = new ByteArrayInputStream(bytes);
-
-            in = new ObjectInputStream(bais);
-
-            cachedMetacardType = (MetacardType) in.readObject();
-
+            cachedMetacardType = BinaryFieldCodec.decodeMetacardType(bytes);
         } catch (IOException e) {
 
             LOGGER.info("IO exception loading cached metacard type", e);
@@ -558,9 +554,11 @@ public MetacardType getMetacardType(SolrDocument doc) throws MetacardCreationExc
             LOGGER.info("Class exception loading cached metacard type", e);
 
             throw new MetacardCreationException(COULD_NOT_READ_METACARD_TYPE_MESSAGE);
-        } finally {
-            IOUtils.closeQuietly(bais);
-            IOUtils.closeQuietly(in);
+        }
+
+        if (BinaryFieldCodec.isLegacy(bytes)) {
+            // Documents written from now on store the type in the compact encoding
+            bytes = serialize(cachedMetacardType);
         }
 
         metacardTypeNameToSerialCache.put(mTypeFieldName, bytes);
@@ -627,18 +625,8 @@ private void addToFieldsCache(Set<AttributeDescriptor> descriptors) {
     }
 
     private byte[] serialize(MetacardType anywhereMType) throws MetacardCreationException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
         try {
-            ObjectOutputStream out = new ObjectOutputStream(baos);
-            out.writeObject(anywhereMType);
-
-            byte[] bytes = baos.toByteArray();
-
-            baos.close();
-            out.close();
-
-            return bytes;
+            return BinaryFieldCodec.encodeMetacardType(anywhereMType);
         } catch (IOException e) {
             throw new MetacardCreationException(COULD_NOT_READ_METACARD_TYPE_MESSAGE, e);
         }
@@ -775,4 +763,34 @@ public String getSortKey(String field) {
     public Stream<String> anyTextFields() {
         return anyTextFieldsCache.stream();
     }
+
+    /**
+     * Attribute name and format that a Solr field name resolves to.
+     */
+    static final class ResolvedField {
+
+        private final String attributeName;
+
+        private final AttributeFormat format;
+
+        private final boolean privateField;
+
+        ResolvedField(String attributeName, AttributeFormat format, boolean privateField) {
+            this.attributeName = attributeName;
+            this.format = format;
+            this.privateField = privateField;
+        }
+
+        String getAttributeName() {
+            return attributeName;
+        }
+
+        AttributeFormat getFormat() {
+            return format;
+        }
+
+        boolean isPrivateField() {
+            return privateField;
+        }
+    }
 }
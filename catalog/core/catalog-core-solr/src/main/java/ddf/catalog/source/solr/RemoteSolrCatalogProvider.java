@@ -17,12 +17,14 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Iterator;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 
@@ -34,6 +36,7 @@
 import org.slf4j.LoggerFactory;
 
 import ddf.catalog.data.ContentType;
+import ddf.catalog.data.Metacard;
 import ddf.catalog.filter.FilterAdapter;
 import ddf.catalog.operation.CreateRequest;
 import ddf.catalog.operation.CreateResponse;
@@ -187,6 +190,22 @@ public SourceResponse query(QueryRequest queryRequest) throws UnsupportedQueryEx
         return getProvider().query(queryRequest);
     }
 
+    /**
+     * @see SolrCatalogProvider#iterator(QueryRequest, int)
+     */
+    public Iterator<Metacard> iterator(QueryRequest queryRequest, int pageSize)
+            throws UnsupportedQueryException {
+        return getSolrCatalogProvider().iterator(queryRequest, pageSize);
+    }
+
+    /**
+     * @see SolrCatalogProvider#stream(QueryRequest, int)
+     */
+    public Stream<Metacard> stream(QueryRequest queryRequest, int pageSize)
+            throws UnsupportedQueryException {
+        return getSolrCatalogProvider().stream(queryRequest, pageSize);
+    }
+
     @Override
     public String getDescription() {
         return describableProperties.getProperty("description", "");
@@ -324,6 +343,14 @@ private CatalogProvider getProvider() {
 
     }
 
+    private SolrCatalogProvider getSolrCatalogProvider() throws UnsupportedQueryException {
+        CatalogProvider currentProvider = getProvider();
+        if (!(currentProvider instanceof SolrCatalogProvider)) {
+            throw new UnsupportedQueryException("Solr catalog provider is not available.");
+        }
+        return (SolrCatalogProvider) currentProvider;
+    }
+
     private boolean isClientConnected(SolrClient solr) {
 
         if (solr == null) {
@@ -18,15 +18,20 @@
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.math.NumberUtils;
@@ -220,6 +225,38 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         return response;
     }
 
+    /**
+     * Returns an {@link Iterator} over every {@link Metacard} that matches the request, fetching
+     * {@code pageSize} metacards from Solr at a time. Unlike {@link #query(QueryRequest)}, memory
+     * use does not grow with the number of matches, which makes this suitable for exports. The
+     * start index and page size of the request's query are ignored.
+     *
+     * @param request  the query to execute
+     * @param pageSize the number of metacards to fetch from Solr per request
+     * @return an iterator over the matching metacards
+     * @throws UnsupportedQueryException if the query cannot be translated for Solr
+     * @see SolrMetacardClient#iterator(QueryRequest, int)
+     */
+    public Iterator<Metacard> iterator(QueryRequest request, int pageSize)
+            throws UnsupportedQueryException {
+        return client.iterator(request, pageSize);
+    }
+
+    /**
+     * Returns a sequential {@link Stream} over every {@link Metacard} that matches the request.
+     *
+     * @param request  the query to execute
+     * @param pageSize the number of metacards to fetch from Solr per request
+     * @return a stream over the matching metacards
+     * @throws UnsupportedQueryException if the query cannot be translated for Solr
+     * @see #iterator(QueryRequest, int)
+     */
+    public Stream<Metacard> stream(QueryRequest request, int pageSize)
+            throws UnsupportedQueryException {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(request,
+                pageSize), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
     private void queryPendingNrtIndex(QueryRequest request, SourceResponse response)
             throws UnsupportedQueryException {
         if (request == null || request.getQuery() == null) {
@@ -611,8 +648,9 @@ public ProviderSolrMetacardClient(SolrClient client, FilterAdapter catalogFilter
         }
 
         @Override
-        public MetacardImpl createMetacard(SolrDocument doc) throws MetacardCreationException {
-            MetacardImpl metacard = super.createMetacard(doc);
+        public SolrDocumentMetacard createMetacard(SolrDocument doc)
+                throws MetacardCreationException {
+            SolrDocumentMetacard metacard = super.createMetacard(doc);
             metacard.setSourceId(getId());
             return metacard;
         }
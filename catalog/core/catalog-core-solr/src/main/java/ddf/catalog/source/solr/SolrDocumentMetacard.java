@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.solr.common.SolrDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+
+/**
+ * {@link Metacard} backed by the {@link SolrDocument} returned for a query.
+ * <p>
+ * Attribute values are only decoded from the document the first time they are requested, so
+ * results that are only partially rendered never pay for the attributes they do not use. The
+ * document itself is never modified: attributes set on this metacard are kept alongside it and
+ * take precedence over the values in the document. Callers that need an independent copy can use
+ * {@link #toMetacardImpl()}; serializing this metacard writes such a copy.
+ */
+public class SolrDocumentMetacard implements Metacard {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SolrDocumentMetacard.class);
+
+    private final SolrDocument document;
+
+    private final transient DynamicSchemaResolver resolver;
+
+    private final MetacardType metacardType;
+
+    /**
+     * Decoded and explicitly set attributes. A {@code null} value records an attribute that is
+     * absent or was removed, so it is not looked up in the document again.
+     */
+    private final Map<String, Attribute> attributes = new HashMap<>();
+
+    private Map<String, String> solrFieldNames;
+
+    private String sourceId;
+
+    public SolrDocumentMetacard(SolrDocument document, MetacardType metacardType,
+            DynamicSchemaResolver resolver) {
+        if (metacardType == null) {
+            throw new IllegalArgumentException(
+                    MetacardType.class.getName() + " instance should not be null.");
+        }
+        this.document = document;
+        this.metacardType = metacardType;
+        this.resolver = resolver;
+    }
+
+    @Override
+    public synchronized Attribute getAttribute(String name) {
+        if (attributes.containsKey(name)) {
+            return attributes.get(name);
+        }
+
+        Attribute attribute = decodeAttribute(name);
+        attributes.put(name, attribute);
+        return attribute;
+    }
+
+    @Override
+    public synchronized void setAttribute(Attribute attribute) {
+        if (attribute == null || attribute.getName() == null) {
+            return;
+        }
+
+        attributes.put(attribute.getName(), attribute.getValue() != null ? attribute : null);
+    }
+
+    @Override
+    public MetacardType getMetacardType() {
+        return metacardType;
+    }
+
+    @Override
+    public String getId() {
+        return requestData(Metacard.ID, String.class);
+    }
+
+    @Override
+    public String getMetadata() {
+        return requestData(Metacard.METADATA, String.class);
+    }
+
+    @Override
+    public Date getCreatedDate() {
+        return requestData(Metacard.CREATED, Date.class);
+    }
+
+    @Override
+    public Date getModifiedDate() {
+        return requestData(Metacard.MODIFIED, Date.class);
+    }
+
+    @Override
+    public Date getExpirationDate() {
+        return requestData(Metacard.EXPIRATION, Date.class);
+    }
+
+    @Override
+    public Date getEffectiveDate() {
+        return requestData(Metacard.EFFECTIVE, Date.class);
+    }
+
+    @Override
+    public String getLocation() {
+        return requestData(Metacard.GEOGRAPHY, String.class);
+    }
+
+    @Override
+    public synchronized String getSourceId() {
+        return sourceId;
+    }
+
+    @Override
+    public synchronized void setSourceId(String sourceId) {
+        this.sourceId = sourceId;
+    }
+
+    @Override
+    public String getTitle() {
+        return requestData(Metacard.TITLE, String.class);
+    }
+
+    @Override
+    public URI getResourceURI() {
+        String data = requestData(Metacard.RESOURCE_URI, String.class);
+        if (data != null) {
+            try {
+                return new URI(data);
+            } catch (URISyntaxException e) {
+                LOGGER.debug("Failed parsing resource URI string {}", data);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getResourceSize() {
+        return requestData(Metacard.RESOURCE_SIZE, String.class);
+    }
+
+    @Override
+    public byte[] getThumbnail() {
+        return requestData(Metacard.THUMBNAIL, byte[].class);
+    }
+
+    @Override
+    public String getContentTypeName() {
+        return requestData(Metacard.CONTENT_TYPE, String.class);
+    }
+
+    @Override
+    public String getContentTypeVersion() {
+        return requestData(Metacard.CONTENT_TYPE_VERSION, String.class);
+    }
+
+    @Override
+    public URI getContentTypeNamespace() {
+        String data = requestData(Metacard.TARGET_NAMESPACE, String.class);
+        if (data != null && !data.isEmpty()) {
+            return URI.create(data);
+        }
+        return null;
+    }
+
+    /**
+     * Creates a {@link MetacardImpl} holding every attribute of this metacard, decoding any that
+     * have not been requested yet.
+     *
+     * @return an independent copy of this metacard
+     */
+    public synchronized MetacardImpl toMetacardImpl() {
+        MetacardImpl metacard = new MetacardImpl(metacardType);
+
+        Set<String> names = new LinkedHashSet<>(getSolrFieldNames().keySet());
+        names.addAll(attributes.keySet());
+        for (String name : names) {
+            metacard.setAttribute(getAttribute(name));
+        }
+        metacard.setSourceId(sourceId);
+
+        return metacard;
+    }
+
+    private Object writeReplace() {
+        return toMetacardImpl();
+    }
+
+    private <T> T requestData(String name, Class<T> type) {
+        Attribute attribute = getAttribute(name);
+        if (attribute == null) {
+            return null;
+        }
+
+        Serializable value = attribute.getValue();
+        if (value != null && type.isAssignableFrom(value.getClass())) {
+            return type.cast(value);
+        }
+        return null;
+    }
+
+    private Attribute decodeAttribute(String name) {
+        String solrFieldName = getSolrFieldNames().get(name);
+        if (solrFieldName == null) {
+            return null;
+        }
+
+        DynamicSchemaResolver.ResolvedField field = resolver.resolveField(solrFieldName);
+        Collection<Object> docValues = document.getFieldValues(solrFieldName);
+        List<Serializable> values = new ArrayList<>(docValues.size());
+        for (Object docValue : docValues) {
+            values.add(resolver.getDocValue(field.getFormat(), docValue));
+        }
+
+        return new AttributeImpl(name, values);
+    }
+
+    /**
+     * Maps attribute names to the Solr fields that hold them. Built once per document using the
+     * field table cached by the {@link DynamicSchemaResolver}.
+     */
+    private Map<String, String> getSolrFieldNames() {
+        if (solrFieldNames == null) {
+            solrFieldNames = new HashMap<>();
+            for (String solrFieldName : document.getFieldNames()) {
+                DynamicSchemaResolver.ResolvedField field = resolver.resolveField(solrFieldName);
+                if (!field.isPrivateField()) {
+                    solrFieldNames.put(field.getAttributeName(), solrFieldName);
+                }
+            }
+        }
+        return solrFieldNames;
+    }
+}
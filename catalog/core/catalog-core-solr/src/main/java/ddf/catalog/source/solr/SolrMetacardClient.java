@@ -17,10 +17,12 @@
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -37,6 +39,7 @@
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CursorMarkParams;
 import org.locationtech.spatial4j.distance.DistanceUtils;
 import org.opengis.filter.sort.SortBy;
 import org.opengis.filter.sort.SortOrder;
@@ -49,9 +52,7 @@
 import ddf.catalog.data.MetacardCreationException;
 import ddf.catalog.data.MetacardType;
 import ddf.catalog.data.Result;
-import ddf.catalog.data.impl.AttributeImpl;
 import ddf.catalog.data.impl.ContentTypeImpl;
-import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.data.impl.ResultImpl;
 import ddf.catalog.filter.FilterAdapter;
 import ddf.catalog.operation.QueryRequest;
@@ -63,8 +64,27 @@
 
 public class SolrMetacardClient {
 
+    /**
+     * {@link QueryRequest} property that switches a query to cursor based paging. The value is the
+     * cursor mark returned by the previous page, or {@link #CURSOR_MARK_START} for the first page.
+     * The start index of the query is ignored when this property is set.
+     */
+    public static final String CURSOR_MARK = "cursorMark";
+
+    /**
+     * {@link SourceResponse} property holding the cursor mark to send with the next page. It is
+     * equal to the cursor mark of the request once every match has been returned.
+     */
+    public static final String NEXT_CURSOR_MARK = "nextCursorMark";
+
+    public static final String CURSOR_MARK_START = CursorMarkParams.CURSOR_MARK_START;
+
     protected static final String RELEVANCE_SORT_FIELD = "score";
 
+    private static final String ID_SORT_FIELD = Metacard.ID + SchemaFields.TEXT_SUFFIX;
+
+    private static final int DEFAULT_CURSOR_PAGE_SIZE = 1000;
+
     private static final String DISTANCE_SORT_FUNCTION = "geodist()";
 
     private static final String DISTANCE_SORT_FIELD = "_distance_";
@@ -101,11 +121,13 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         SolrQuery query = getSolrQuery(request, filterDelegateFactory.newInstance(resolver));
 
         long totalHits;
+        String nextCursorMark;
         List<Result> results = new ArrayList<>();
         try {
             QueryResponse solrResponse = client.query(query, SolrRequest.METHOD.POST);
             totalHits = solrResponse.getResults()
                     .getNumFound();
+            nextCursorMark = solrResponse.getNextCursorMark();
             SolrDocumentList docs = solrResponse.getResults();
 
             for (SolrDocument doc : docs) {
@@ -133,6 +155,11 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         /* Total Count */
         sourceResponseImpl.setHits(totalHits);
 
+        if (nextCursorMark != null) {
+            sourceResponseImpl.getProperties()
+                    .put(NEXT_CURSOR_MARK, nextCursorMark);
+        }
+
         return sourceResponseImpl;
     }
 
@@ -159,6 +186,36 @@ public List<Metacard> query(String queryString) throws UnsupportedQueryException
 
     }
 
+    /**
+     * Returns an {@link Iterator} over every {@link Metacard} that matches the request. Metacards
+     * are fetched from Solr {@code pageSize} at a time using cursor based paging, so only one page
+     * is held in memory regardless of the number of matches. The start index and page size of the
+     * request's query are ignored.
+     * <p>
+     * Since {@link Iterator} methods cannot throw checked exceptions, Solr failures while fetching
+     * a page are reported as an {@link IllegalStateException}.
+     *
+     * @param request  the query to execute
+     * @param pageSize the number of metacards to fetch from Solr per request
+     * @return an iterator over the matching metacards, in the order requested by the query
+     * @throws UnsupportedQueryException if the query cannot be translated for Solr
+     */
+    public Iterator<Metacard> iterator(QueryRequest request, int pageSize)
+            throws UnsupportedQueryException {
+        if (request == null || request.getQuery() == null) {
+            return Collections.emptyIterator();
+        }
+
+        SolrFilterDelegate solrFilterDelegate = filterDelegateFactory.newInstance(resolver);
+        solrFilterDelegate.setSortPolicy(request.getQuery()
+                .getSortBy());
+        SolrQuery query = filterAdapter.adapt(request.getQuery(), solrFilterDelegate);
+        setSortProperty(request, query, solrFilterDelegate);
+        setCursorPaging(query, pageSize);
+
+        return new CursorIterator(query);
+    }
+
     public Set<ContentType> getContentTypes() {
         Set<ContentType> finalSet = new HashSet<>();
 
@@ -269,6 +326,16 @@ protected SolrQuery postAdapt(QueryRequest request, SolrFilterDelegate filterDel
             }
         }
 
+        Serializable cursorMark = request.getPropertyValue(CURSOR_MARK);
+        if (cursorMark != null) {
+            setSortProperty(request, query, filterDelegate);
+            setCursorPaging(query,
+                    request.getQuery()
+                            .getPageSize());
+            query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark.toString());
+            return query;
+        }
+
         if (request.getQuery()
                 .getPageSize() < 1) {
             query.setRows(Integer.MAX_VALUE);
@@ -292,6 +359,28 @@ protected SolrQuery postAdapt(QueryRequest request, SolrFilterDelegate filterDel
         return query;
     }
 
+    /**
+     * Prepares a query for cursor based paging. Cursors require a start of 0 and a sort that ends
+     * on the unique key, so the id field is added as a tiebreak. Queries without an explicit sort
+     * keep Solr's default relevance order.
+     */
+    private void setCursorPaging(SolrQuery query, int pageSize) {
+        query.setStart(0);
+        query.setRows(pageSize < 1 ? DEFAULT_CURSOR_PAGE_SIZE : pageSize);
+
+        if (query.getSorts()
+                .isEmpty()) {
+            query.addSort(RELEVANCE_SORT_FIELD, SolrQuery.ORDER.desc);
+        }
+
+        boolean sortedById = query.getSorts()
+                .stream()
+                .anyMatch(sortClause -> ID_SORT_FIELD.equals(sortClause.getItem()));
+        if (!sortedById) {
+            query.addSort(ID_SORT_FIELD, SolrQuery.ORDER.asc);
+        }
+    }
+
     private void addDistanceSort(SolrQuery query, String sortField, SolrQuery.ORDER order,
             SolrFilterDelegate delegate) {
         if (delegate.isSortedByDistance()) {
@@ -383,20 +472,21 @@ private Double degreesToMeters(double distance) {
                 Distance.LinearUnit.KILOMETER).getAs(Distance.LinearUnit.METER);
     }
 
-    public MetacardImpl createMetacard(SolrDocument doc) throws MetacardCreationException {
+    /**
+     * Creates a {@link SolrDocumentMetacard} for the document, so attribute values are only
+     * decoded from the document when they are first requested. Attributes set on the metacard do
+     * not modify the document, and serializing it writes every attribute, including those outside
+     * its {@link MetacardType}.
+     *
+     * @param doc the document returned by Solr
+     * @return the metacard for the document
+     * @throws MetacardCreationException if the metacard type stored with the document cannot be
+     *                                   read
+     */
+    public SolrDocumentMetacard createMetacard(SolrDocument doc)
+            throws MetacardCreationException {
         MetacardType metacardType = resolver.getMetacardType(doc);
-        MetacardImpl metacard = new MetacardImpl(metacardType);
-
-        for (String solrFieldName : doc.getFieldNames()) {
-            if (!resolver.isPrivateField(solrFieldName)) {
-                Collection<Object> fieldValues = doc.getFieldValues(solrFieldName);
-                AttributeImpl attr = new AttributeImpl(resolver.resolveFieldName(solrFieldName),
-                        resolver.getDocValues(solrFieldName, fieldValues));
-                metacard.setAttribute(attr);
-            }
-        }
-
-        return metacard;
+        return new SolrDocumentMetacard(doc, metacardType, resolver);
     }
 
     public List<SolrInputDocument> add(List<Metacard> metacards, boolean forceAutoCommit)
@@ -483,6 +573,61 @@ public String getIdentifierQuery(String fieldName, List<? extends Serializable>
         return queryBuilder.toString();
     }
 
+    private class CursorIterator implements Iterator<Metacard> {
+
+        private final SolrQuery query;
+
+        private String cursorMark = CURSOR_MARK_START;
+
+        private Iterator<SolrDocument> page = Collections.emptyIterator();
+
+        private boolean lastPage = false;
+
+        CursorIterator(SolrQuery query) {
+            this.query = query;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && !lastPage) {
+                fetchNextPage();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public Metacard next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                return createMetacard(page.next());
+            } catch (MetacardCreationException e) {
+                throw new IllegalStateException("Could not create metacard.", e);
+            }
+        }
+
+        private void fetchNextPage() {
+            query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+            try {
+                QueryResponse solrResponse = client.query(query, SolrRequest.METHOD.POST);
+                SolrDocumentList docs = solrResponse.getResults();
+                String nextCursorMark = solrResponse.getNextCursorMark();
+
+                LOGGER.debug("Fetched {} documents for cursor mark [{}]",
+                        docs.size(),
+                        cursorMark);
+
+                lastPage = cursorMark.equals(nextCursorMark) || docs.size() < query.getRows();
+                cursorMark = nextCursorMark;
+                page = docs.iterator();
+            } catch (SolrServerException | IOException | SolrException e) {
+                throw new IllegalStateException("Could not complete solr query.", e);
+            }
+        }
+    }
+
     private org.apache.solr.client.solrj.response.UpdateResponse softCommit(
             List<SolrInputDocument> docs) throws SolrServerException, IOException {
         return new org.apache.solr.client.solrj.request.UpdateRequest().add(docs)
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+
+public class BinaryFieldCodecTest {
+
+    @Test
+    public void testBasicValuesRoundTrip() throws Exception {
+        for (Serializable value : Arrays.<Serializable>asList("text é中",
+                true,
+                (short) 7,
+                42,
+                Long.MAX_VALUE,
+                1.5f,
+                Math.PI,
+                new Date(1234567890L))) {
+            byte[] encoded = BinaryFieldCodec.encodeValue(value);
+
+            assertThat(BinaryFieldCodec.isLegacy(encoded), is(false));
+            assertThat(BinaryFieldCodec.decodeValue(encoded), is(value));
+        }
+    }
+
+    @Test
+    public void testNullAndBytesRoundTrip() throws Exception {
+        assertThat(BinaryFieldCodec.decodeValue(BinaryFieldCodec.encodeValue(null)), nullValue());
+
+        byte[] bytes = {1, 2, 3};
+        assertThat(BinaryFieldCodec.decodeValue(BinaryFieldCodec.encodeValue(bytes)), is(bytes));
+    }
+
+    @Test
+    public void testOtherValuesUseJavaSerialization() throws Exception {
+        ArrayList<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+
+        Serializable decoded = BinaryFieldCodec.decodeValue(BinaryFieldCodec.encodeValue(value));
+
+        assertThat(decoded, is(value));
+    }
+
+    @Test
+    public void testLegacyValue() throws Exception {
+        byte[] legacy = javaSerialize(42L);
+
+        assertThat(BinaryFieldCodec.isLegacy(legacy), is(true));
+        assertThat(BinaryFieldCodec.decodeValue(legacy), is(42L));
+    }
+
+    @Test
+    public void testMetacardTypeRoundTrip() throws Exception {
+        MetacardType metacardType = BasicTypes.BASIC_METACARD;
+
+        byte[] encoded = BinaryFieldCodec.encodeMetacardType(metacardType);
+        MetacardType decoded = BinaryFieldCodec.decodeMetacardType(encoded);
+
+        assertThat(encoded.length, lessThan(javaSerialize(metacardType).length));
+        assertThat(decoded.getName(), is(metacardType.getName()));
+        assertThat(decoded.getAttributeDescriptors(),
+                containsInAnyOrder(metacardType.getAttributeDescriptors()
+                        .toArray()));
+    }
+
+    @Test
+    public void testLegacyMetacardType() throws Exception {
+        MetacardType metacardType = metacardType(BasicTypes.STRING_TYPE);
+
+        MetacardType decoded =
+                BinaryFieldCodec.decodeMetacardType(javaSerialize(metacardType));
+
+        assertThat(decoded.getName(), is(metacardType.getName()));
+        assertThat(decoded.getAttributeDescriptors(), is(metacardType.getAttributeDescriptors()));
+    }
+
+    @Test
+    public void testCustomAttributeTypeUsesJavaSerialization() throws Exception {
+        MetacardType metacardType = metacardType(new UriType());
+
+        MetacardType decoded =
+                BinaryFieldCodec.decodeMetacardType(BinaryFieldCodec.encodeMetacardType(
+                        metacardType));
+
+        AttributeDescriptor descriptor = decoded.getAttributeDescriptor("uri");
+        assertThat(descriptor.getType(), instanceOf(UriType.class));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownEncoding() throws Exception {
+        BinaryFieldCodec.decodeValue(new byte[] {1, 2, 3});
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedVersion() throws Exception {
+        BinaryFieldCodec.decodeValue(new byte[] {BinaryFieldCodec.MAGIC, 99, 0});
+    }
+
+    private static MetacardType metacardType(AttributeType<?> type) {
+        Set<AttributeDescriptor> descriptors = new HashSet<>();
+        descriptors.add(new AttributeDescriptorImpl("uri", true, true, false, false, type));
+        return new MetacardTypeImpl("codec-test", descriptors);
+    }
+
+    private static byte[] javaSerialize(Serializable value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static class UriType implements AttributeType<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Class<String> getBinding() {
+            return String.class;
+        }
+
+        @Override
+        public AttributeFormat getAttributeFormat() {
+            return AttributeFormat.OBJECT;
+        }
+    }
+}
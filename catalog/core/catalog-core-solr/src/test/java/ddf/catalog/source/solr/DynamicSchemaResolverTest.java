@@ -21,14 +21,11 @@
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.solr.common.SolrInputDocument;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -92,12 +89,7 @@ public void testAddFields() throws Exception {
 
     private MetacardType deserializeMetacardType(byte[] serializedMetacardType)
             throws ClassNotFoundException, IOException {
-        ByteArrayInputStream bais = new ByteArrayInputStream((byte[]) serializedMetacardType);
-        ObjectInputStream in = new ObjectInputStream(bais);
-        MetacardType metacardType = (MetacardType) in.readObject();
-        IOUtils.closeQuietly(bais);
-        IOUtils.closeQuietly(in);
-        return metacardType;
+        return BinaryFieldCodec.decodeMetacardType(serializedMetacardType);
     }
 }
 
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Date;
+
+import org.apache.solr.common.SolrDocument;
+import org.junit.Before;
+import org.junit.Test;
+
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardImpl;
+
+public class SolrDocumentMetacardTest {
+
+    private static final Date CREATED = new Date(1000L);
+
+    private DynamicSchemaResolver resolver;
+
+    private SolrDocument document;
+
+    @Before
+    public void setUp() {
+        resolver = spy(new DynamicSchemaResolver());
+
+        document = new SolrDocument();
+        document.addField(Metacard.ID + SchemaFields.TEXT_SUFFIX, "1234");
+        document.addField(Metacard.TITLE + SchemaFields.TEXT_SUFFIX, "Title");
+        document.addField(Metacard.CREATED + SchemaFields.DATE_SUFFIX, CREATED);
+        document.addField(SchemaFields.METACARD_TYPE_FIELD_NAME,
+                BasicTypes.BASIC_METACARD.getName());
+        document.addField(Metacard.TITLE + SchemaFields.TEXT_SUFFIX + SchemaFields.SORT_KEY_SUFFIX,
+                "title");
+    }
+
+    @Test
+    public void testAttributesDecodedOnFirstAccess() {
+        SolrDocumentMetacard metacard = new SolrDocumentMetacard(document,
+                BasicTypes.BASIC_METACARD,
+                resolver);
+
+        verify(resolver, never()).getDocValue(any(AttributeFormat.class), anyObject());
+
+        assertThat(metacard.getTitle(), is("Title"));
+        assertThat(metacard.getTitle(), is("Title"));
+
+        verify(resolver, times(1)).getDocValue(any(AttributeFormat.class), anyObject());
+        assertThat(metacard.getId(), is("1234"));
+        assertThat(metacard.getCreatedDate(), is(CREATED));
+    }
+
+    @Test
+    public void testPrivateAndMissingFields() {
+        SolrDocumentMetacard metacard = new SolrDocumentMetacard(document,
+                BasicTypes.BASIC_METACARD,
+                resolver);
+
+        assertThat(metacard.getAttribute("metacard_type_name"), nullValue());
+        assertThat(metacard.getAttribute(Metacard.TITLE + SchemaFields.TEXT_SUFFIX),
+                nullValue());
+        assertThat(metacard.getAttribute(Metacard.DESCRIPTION), nullValue());
+    }
+
+    @Test
+    public void testSetAttributeDoesNotModifyDocument() {
+        SolrDocumentMetacard metacard = new SolrDocumentMetacard(document,
+                BasicTypes.BASIC_METACARD,
+                resolver);
+
+        metacard.setAttribute(new AttributeImpl(Metacard.TITLE, "New Title"));
+        metacard.setAttribute(new AttributeImpl(Metacard.ID, (String) null));
+
+        assertThat(metacard.getTitle(), is("New Title"));
+        assertThat(metacard.getId(), nullValue());
+        assertThat(document.getFirstValue(Metacard.TITLE + SchemaFields.TEXT_SUFFIX),
+                is("Title"));
+    }
+
+    @Test
+    public void testToMetacardImpl() {
+        SolrDocumentMetacard metacard = new SolrDocumentMetacard(document,
+                BasicTypes.BASIC_METACARD,
+                resolver);
+        metacard.setSourceId("source");
+        metacard.setAttribute(new AttributeImpl(Metacard.DESCRIPTION, "description"));
+
+        MetacardImpl copy = metacard.toMetacardImpl();
+
+        assertThat(copy.getId(), is("1234"));
+        assertThat(copy.getTitle(), is("Title"));
+        assertThat(copy.getCreatedDate(), is(CREATED));
+        assertThat(copy.getDescription(), is("description"));
+        assertThat(copy.getSourceId(), is("source"));
+        assertThat(copy.getMetacardType(), is(BasicTypes.BASIC_METACARD));
+    }
+
+    @Test
+    public void testSerializesAsMetacardImpl() throws Exception {
+        SolrDocumentMetacard metacard = new SolrDocumentMetacard(document,
+                BasicTypes.BASIC_METACARD,
+                resolver);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(metacard);
+        }
+        Object deserialized;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+                bytes.toByteArray()))) {
+            deserialized = in.readObject();
+        }
+
+        assertThat(deserialized, instanceOf(MetacardImpl.class));
+        assertThat(((Metacard) deserialized).getTitle(), is("Title"));
+    }
+
+    @Test
+    public void testSerializationKeepsAttributesOutsideType() throws Exception {
+        document.addField("extra" + SchemaFields.TEXT_SUFFIX, "extra value");
+        SolrDocumentMetacard metacard = new SolrDocumentMetacard(document,
+                BasicTypes.BASIC_METACARD,
+                resolver);
+        metacard.setSourceId("source");
+        metacard.setAttribute(new AttributeImpl("added", "added value"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(metacard);
+        }
+        Metacard deserialized;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+                bytes.toByteArray()))) {
+            deserialized = (Metacard) in.readObject();
+        }
+
+        assertThat(BasicTypes.BASIC_METACARD.getAttributeDescriptor("extra"), nullValue());
+        assertThat(deserialized.getAttribute("extra")
+                .getValue(), is("extra value"));
+        assertThat(deserialized.getAttribute("added")
+                .getValue(), is("added value"));
+        assertThat(deserialized.getId(), is("1234"));
+        assertThat(deserialized.getCreatedDate(), is(CREATED));
+        assertThat(deserialized.getSourceId(), is("source"));
+    }
+}
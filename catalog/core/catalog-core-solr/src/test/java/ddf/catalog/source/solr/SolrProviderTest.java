@@ -41,7 +41,9 @@
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -5833,6 +5835,95 @@ private void verifyDeletedRecord(MockMetacard metacard, CreateResponse createRes
         assertEquals(metacard.getLocation(), deletedMetacard.getLocation());
     }
 
+    @Test
+    public void testIteratorWithSorting() throws Exception {
+        deleteAllIn(provider);
+
+        List<Metacard> metacards = new ArrayList<>();
+        DateTime dt = new DateTime(1985, 1, 1, 1, 1, 1, 1, DateTimeZone.UTC);
+        for (int i = 0; i < 55; i++) {
+            MetacardImpl metacard = new MockMetacard(Library.getFlagstaffRecord());
+            // every fifth metacard shares an effective date so the id tiebreak is exercised
+            metacard.setEffectiveDate(dt.plusDays((i * 37) % 50)
+                    .toDate());
+            metacards.add(metacard);
+        }
+        create(metacards);
+
+        CommonQueryBuilder queryBuilder = new CommonQueryBuilder();
+        QueryImpl query = queryBuilder.queryByProperty(Metacard.CONTENT_TYPE,
+                MockMetacard.DEFAULT_TYPE);
+        query.setSortBy(new SortByImpl(queryBuilder.filterFactory.property(Metacard.EFFECTIVE),
+                SortOrder.ASCENDING));
+
+        Iterator<Metacard> iterator = provider.iterator(new QueryRequestImpl(query), 10);
+
+        Set<String> ids = new HashSet<>();
+        Date previous = null;
+        while (iterator.hasNext()) {
+            Metacard metacard = iterator.next();
+            assertTrue(ids.add(metacard.getId()));
+            if (previous != null) {
+                assertFalse(metacard.getEffectiveDate()
+                        .before(previous));
+            }
+            previous = metacard.getEffectiveDate();
+        }
+
+        assertEquals(metacards.size(), ids.size());
+        assertEquals(metacards.size(),
+                provider.stream(new QueryRequestImpl(query), 7)
+                        .count());
+    }
+
+    @Test
+    public void testCursorMarkPaging() throws Exception {
+        deleteAllIn(provider);
+
+        List<Metacard> metacards = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            metacards.add(new MockMetacard(Library.getFlagstaffRecord()));
+        }
+        create(metacards);
+
+        CommonQueryBuilder queryBuilder = new CommonQueryBuilder();
+        QueryImpl query = queryBuilder.queryByProperty(Metacard.CONTENT_TYPE,
+                MockMetacard.DEFAULT_TYPE);
+        query.setPageSize(10);
+        // start index is ignored when paging with a cursor
+        query.setStartIndex(5);
+
+        Set<String> ids = new HashSet<>();
+        Serializable cursorMark = SolrMetacardClient.CURSOR_MARK_START;
+        int pages = 0;
+        while (true) {
+            Map<String, Serializable> properties = new HashMap<>();
+            properties.put(SolrMetacardClient.CURSOR_MARK, cursorMark);
+            SourceResponse response = provider.query(new QueryRequestImpl(query, properties));
+
+            Serializable nextCursorMark = response.getPropertyValue(
+                    SolrMetacardClient.NEXT_CURSOR_MARK);
+            assertNotNull(nextCursorMark);
+            if (nextCursorMark.equals(cursorMark)) {
+                assertEquals(0,
+                        response.getResults()
+                                .size());
+                break;
+            }
+
+            assertEquals(metacards.size(), response.getHits());
+            for (Result result : response.getResults()) {
+                assertTrue(ids.add(result.getMetacard()
+                        .getId()));
+            }
+            cursorMark = nextCursorMark;
+            pages++;
+        }
+
+        assertEquals(3, pages);
+        assertEquals(metacards.size(), ids.size());
+    }
+
     private Date getCannedTime(int year, int month, int day, int hour) {
         Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
         calendar.clear();
@@ -19,8 +19,6 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
@@ -43,23 +41,23 @@
 import ddf.catalog.source.CatalogProvider;
 import ddf.catalog.source.FederatedSource;
 import ddf.catalog.source.Source;
-import ddf.metrics.collector.rrd4j.RrdJmxCollector;
+import ddf.metrics.collector.rrd4j.RrdMetricsSampler;
 
 /**
  * This class manages the metrics for individual {@link CatalogProvider} and {@link FederatedSource}
  * {@link Source}s. These metrics currently include the count of queries, results per query, and
  * exceptions per {@link Source}.
  *
- * The metrics and their associated {@link ddf.metrics.collector.JmxCollector}s are created when the {@link Source} is
- * created and deleted when the {@link Source} is deleted. (The associated RRD file remains
- * available indefinitely and accessible from the Metrics tab in the Web Admin console unless an
- * administrator manually deletes it).
+ * The metrics are created and registered with the {@link RrdMetricsSampler} when the
+ * {@link Source} is created and deleted when the {@link Source} is deleted. (The associated RRD
+ * file remains available indefinitely and accessible from the Metrics tab in the Web Admin console
+ * unless an administrator manually deletes it).
  *
  * If a {@link Source} is renamed, i.e., its ID changed, then the {@link Source}'s existing metrics'
- * MBeans and {@link ddf.metrics.collector.JmxCollector}s are deleted and new metrics created using the new {@link Source}
- * 's ID. However, the RRD file for the {@link Source}'s previous source ID remains available and
- * accessible from the Metrics tab in the Web Admin console unless an administrator manually deletes
- * it.
+ * MBeans and sampler registrations are deleted and new metrics created using the new
+ * {@link Source}'s ID. However, the RRD file for the {@link Source}'s previous source ID remains
+ * available and accessible from the Metrics tab in the Web Admin console unless an administrator
+ * manually deletes it.
  *
  * @author rodgersh
  * @author ddf.isgs@lmco.com
@@ -121,7 +119,11 @@ public class SourceMetricsImpl implements PreFederatedQueryPlugin, PostFederated
     // update
     private Map<Source, String> sourceToSourceIdMap = new HashMap<Source, String>();
 
-    private ExecutorService executorPool;
+    private final RrdMetricsSampler sampler;
+
+    public SourceMetricsImpl(RrdMetricsSampler sampler) {
+        this.sampler = sampler;
+    }
 
     public List<CatalogProvider> getCatalogProviders() {
         return catalogProviders;
@@ -298,7 +300,8 @@ private boolean createMetric(List<? extends Source> sources, String sourceId) {
 
     /**
      * Creates metrics for new CatalogProvider or FederatedSource when they are initially created.
-     * Metrics creation includes the JMX MBeans and associated ddf.metrics.collector.JmxCollector.
+     * Metrics creation includes the JMX MBeans and their registration with the
+     * {@link RrdMetricsSampler}, which creates the RRD files on its own thread.
      *
      * @param source
      * @param props
@@ -306,27 +309,15 @@ private boolean createMetric(List<? extends Source> sources, String sourceId) {
     public void addingSource(final Source source, Map props) {
         LOGGER.trace("ENTERING: addingSource");
 
-        if (executorPool == null) {
-            executorPool = Executors.newCachedThreadPool();
-        }
-
-        // Creating JmxCollectors for all of the source metrics can be time consuming,
-        // so do this in a separate thread to prevent blacklisting by EventAdmin
-        final Runnable metricsCreator = new Runnable() {
-            public void run() {
-                createSourceMetrics(source);
-            }
-        };
-
-        LOGGER.debug("Start metricsCreator thread for Source {}", source.getId());
-        executorPool.execute(metricsCreator);
+        createSourceMetrics(source);
 
         LOGGER.trace("EXITING: addingSource");
     }
 
     /**
      * Deletes metrics for existing CatalogProvider or FederatedSource when they are deleted.
-     * Metrics deletion includes the JMX MBeans and associated ddf.metrics.collector.JmxCollector.
+     * Metrics deletion includes the JMX MBeans and their registration with the
+     * {@link RrdMetricsSampler}.
      *
      * @param source
      * @param props
@@ -376,23 +367,26 @@ void createSourceMetrics(final Source source) {
     private void createMetric(String sourceId, String mbeanName, MetricType type) {
 
         // Create source-specific metrics for this source
-        // (Must be done prior to creating metrics collector so that
-        // JMX MBean exists for collector to detect).
         String key = sourceId + "." + mbeanName;
 
-        // Do not create metric and collector if they already exist for this source.
+        // Do not create and register metric if it already exists for this source.
         // (This can happen for ConnectedSources because they have the same sourceId
         // as the local catalog provider).
         if (!metrics.containsKey(key)) {
             if (type == MetricType.HISTOGRAM) {
                 Histogram histogram = metricsRegistry.histogram(MetricRegistry.name(sourceId,
                         mbeanName));
-                RrdJmxCollector collector = createGaugeMetricsCollector(sourceId, mbeanName);
-                metrics.put(key, new SourceMetric(histogram, collector, true));
+                String rrdFilename = getRrdFilename(sourceId, mbeanName);
+                sampler.register(rrdFilename,
+                        GAUGE_DATA_SOURCE_TYPE,
+                        () -> histogram.getSnapshot()
+                                .getMean());
+                metrics.put(key, new SourceMetric(histogram, rrdFilename, true));
             } else if (type == MetricType.METER) {
                 Meter meter = metricsRegistry.meter(MetricRegistry.name(sourceId, mbeanName));
-                RrdJmxCollector collector = createCounterMetricsCollector(sourceId, mbeanName);
-                metrics.put(key, new SourceMetric(meter, collector));
+                String rrdFilename = getRrdFilename(sourceId, mbeanName);
+                sampler.register(rrdFilename, DERIVE_DATA_SOURCE_TYPE, meter::getCount);
+                metrics.put(key, new SourceMetric(meter, rrdFilename));
             } else {
                 LOGGER.debug("Metric {} not created because unknown metric type {} specified.", key, type);
             }
@@ -401,69 +395,6 @@ private void createMetric(String sourceId, String mbeanName, MetricType type) {
         }
     }
 
-    /**
-     * Creates the Counter JMX Collector for an associated metric's JMX MBean.
-     *
-     * @param sourceId
-     * @param collectorName
-     * @return the ddf.metrics.collector.JmxCollector created
-     */
-    private RrdJmxCollector createCounterMetricsCollector(String sourceId, String collectorName) {
-        return createMetricsCollector(sourceId,
-                collectorName,
-                COUNT_MBEAN_ATTRIBUTE_NAME,
-                DERIVE_DATA_SOURCE_TYPE);
-    }
-
-    /**
-     * Creates the Gauge JMX Collector for an associated metric's JMX MBean.
-     *
-     * @param sourceId
-     * @param collectorName
-     * @return the ddf.metrics.collector.JmxCollector created
-     */
-    private RrdJmxCollector createGaugeMetricsCollector(String sourceId, String collectorName) {
-        return createMetricsCollector(sourceId,
-                collectorName,
-                MEAN_MBEAN_ATTRIBUTE_NAME,
-                GAUGE_DATA_SOURCE_TYPE);
-    }
-
-    /**
-     * Creates the JMX Collector for an associated metric's JMX MBean.
-     *
-     * @param sourceId
-     * @param collectorName
-     * @param mbeanAttributeName
-     *            usually "Count" or "Mean"
-     * @param dataSourceType
-     *            only "DERIVE", "COUNTER" or "GAUGE" are supported
-     * @return the ddf.metrics.collector.JmxCollector created
-     */
-    private RrdJmxCollector createMetricsCollector(String sourceId, String collectorName,
-            String mbeanAttributeName, String dataSourceType) {
-
-        LOGGER.trace(
-                "ENTERING: createMetricsCollector - sourceId = {},   collectorName = {},   mbeanAttributeName = {},   dataSourceType = {}",
-                sourceId,
-                collectorName,
-                mbeanAttributeName,
-                dataSourceType);
-
-        String rrdPath = getRrdFilename(sourceId, collectorName);
-
-        RrdJmxCollector collector = new RrdJmxCollector(
-                MBEAN_PACKAGE_NAME + ":name=" + sourceId + "." + collectorName,
-                mbeanAttributeName,
-                rrdPath,
-                dataSourceType);
-        collector.init();
-
-        LOGGER.trace("EXITING: createMetricsCollector - sourceId = {}", sourceId);
-
-        return collector;
-    }
-
     protected String getRrdFilename(String sourceId, String collectorName) {
 
         // Based on the sourceId and collectorName, generate the name of the RRD file.
@@ -501,28 +432,13 @@ private void deleteMetric(String sourceId, String mbeanName) {
         String key = sourceId + "." + mbeanName;
         if (metrics.containsKey(key)) {
             metricsRegistry.remove(MetricRegistry.name(sourceId, mbeanName));
-            deleteCollector(sourceId, mbeanName);
-            metrics.remove(key);
+            sampler.unregister(metrics.remove(key)
+                    .getRrdFilename());
         } else {
             LOGGER.debug("Did not remove metric {} because it was not in metrics map", key);
         }
     }
 
-    /**
-     * Delete the ddf.metrics.collector.JmxCollector for the specified Source and MBean.
-     *
-     * @param sourceId
-     * @param metricName
-     */
-    private void deleteCollector(String sourceId, String metricName) {
-        String mapKey = sourceId + "." + metricName;
-        SourceMetric sourceMetric = metrics.get(mapKey);
-        LOGGER.debug("Deleting {} ddf.metrics.collector.JmxCollector for source {}", metricName, sourceId);
-        sourceMetric.getCollector()
-                .destroy();
-        metrics.remove(mapKey);
-    }
-
     // The types of Yammer Metrics supported
     private enum MetricType {
         HISTOGRAM, METER
@@ -539,19 +455,19 @@ public static class SourceMetric {
         // The Yammer Metric
         private Metric metric;
 
-        // The ddf.metrics.collector.JmxCollector polling this metric's MBean
-        private RrdJmxCollector collector;
+        // The name of the RRD file this metric is sampled into
+        private String rrdFilename;
 
         // Whether this metric is a Histogram or Meter
         private boolean isHistogram = false;
 
-        public SourceMetric(Metric metric, RrdJmxCollector collector) {
-            this(metric, collector, false);
+        public SourceMetric(Metric metric, String rrdFilename) {
+            this(metric, rrdFilename, false);
         }
 
-        public SourceMetric(Metric metric, RrdJmxCollector collector, boolean isHistogram) {
+        public SourceMetric(Metric metric, String rrdFilename, boolean isHistogram) {
             this.metric = metric;
-            this.collector = collector;
+            this.rrdFilename = rrdFilename;
             this.isHistogram = isHistogram;
         }
 
@@ -559,8 +475,8 @@ public Metric getMetric() {
             return metric;
         }
 
-        public RrdJmxCollector getCollector() {
-            return collector;
+        public String getRrdFilename() {
+            return rrdFilename;
         }
 
         public boolean isHistogram() {
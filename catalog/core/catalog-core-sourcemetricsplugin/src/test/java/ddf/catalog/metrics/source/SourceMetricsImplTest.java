@@ -18,12 +18,17 @@
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
+import java.util.function.DoubleSupplier;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +39,7 @@
 import ddf.catalog.source.CatalogProvider;
 import ddf.catalog.source.FederatedSource;
 import ddf.catalog.source.SourceMetrics;
+import ddf.metrics.collector.rrd4j.RrdMetricsSampler;
 
 public class SourceMetricsImplTest {
 
@@ -45,6 +51,8 @@ public class SourceMetricsImplTest {
 
     private FederatedSource fedSource;
 
+    private RrdMetricsSampler sampler;
+
     @Test
     public void testAddDeleteSource() throws Exception {
         String sourceId = "cp-1";
@@ -60,6 +68,39 @@ public void testAddDeleteSource() throws Exception {
         sourceMetrics.deletingSource(catalogProvider, null);
         sourceMetric = sourceMetrics.metrics.get(key);
         assertThat(sourceMetric, is(nullValue()));
+        verify(sampler).unregister("sourceCp1Queries");
+        verify(sampler).unregister("sourceCp1QueriesTotalResults");
+        verify(sampler).unregister("sourceCp1Exceptions");
+    }
+
+    @Test
+    public void testAddSourceRegistersWithSampler() throws Exception {
+        String sourceId = "cp-1";
+
+        sourceMetrics = configureSourceMetrics(sourceId);
+        addSource();
+
+        ArgumentCaptor<DoubleSupplier> queries = ArgumentCaptor.forClass(DoubleSupplier.class);
+        verify(sampler).register(eq("sourceCp1Queries"),
+                eq(SourceMetricsImpl.DERIVE_DATA_SOURCE_TYPE),
+                queries.capture());
+        ArgumentCaptor<DoubleSupplier> totalResults =
+                ArgumentCaptor.forClass(DoubleSupplier.class);
+        verify(sampler).register(eq("sourceCp1QueriesTotalResults"),
+                eq(SourceMetricsImpl.GAUGE_DATA_SOURCE_TYPE),
+                totalResults.capture());
+        verify(sampler).register(eq("sourceCp1Exceptions"),
+                eq(SourceMetricsImpl.DERIVE_DATA_SOURCE_TYPE),
+                any(DoubleSupplier.class));
+
+        sourceMetrics.updateMetric(sourceId, SourceMetrics.QUERIES_SCOPE, 1);
+        sourceMetrics.updateMetric(sourceId, SourceMetrics.QUERIES_SCOPE, 1);
+        sourceMetrics.updateMetric(sourceId, SourceMetrics.QUERIES_TOTAL_RESULTS_SCOPE, 6);
+
+        assertThat(queries.getValue()
+                .getAsDouble(), is(2.0));
+        assertThat(totalResults.getValue()
+                .getAsDouble(), is(6.0));
     }
 
     @Test
@@ -254,7 +295,9 @@ private SourceMetricsImpl configureSourceMetrics(String sourceId) throws Excepti
         fedSource = mock(FederatedSource.class);
         when(fedSource.getId()).thenReturn("fs-1");
 
-        sourceMetrics = new SourceMetricsImpl();
+        sampler = mock(RrdMetricsSampler.class);
+
+        sourceMetrics = new SourceMetricsImpl(sampler);
         sourceMetrics.setCatalogProviders(Collections.singletonList(catalogProvider));
         sourceMetrics.setFederatedSources(Collections.singletonList(fedSource));
 
@@ -31,4 +31,44 @@ public interface SolrCacheMBean {
 
     List<Metacard> query(Filter filter) throws UnsupportedQueryException;
 
+    /**
+     * @return number of metacards added to the bulk cache backlog
+     */
+    long getBulkEnqueuedCount();
+
+    /**
+     * @return number of metacards dropped from the full bulk cache backlog without being cached
+     */
+    long getBulkDroppedCount();
+
+    /**
+     * @return number of metacards bulk written to the cache
+     */
+    long getBulkFlushedCount();
+
+    /**
+     * @return number of metacards in bulk writes to the cache that failed and were retried
+     */
+    long getBulkFailedCount();
+
+    /**
+     * @return number of metacards waiting in the bulk cache backlog
+     */
+    int getBulkBacklogSize();
+
+    /**
+     * @return number of batches bulk written to the cache
+     */
+    long getBulkBatchCount();
+
+    /**
+     * @return mean time in milliseconds to write a batch to the cache
+     */
+    double getBulkMeanBatchLatencyMillis();
+
+    /**
+     * @return longest time in milliseconds to write a batch to the cache
+     */
+    double getBulkMaxBatchLatencyMillis();
+
 }
@@ -0,0 +1,670 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.resource.data.ReliableResource;
+
+/**
+ * Single-node index of the products in the product cache directory.
+ * <p>
+ * The index is an append-only log of records that add or remove an entry, kept in one file next
+ * to the cached products. Only the key, file path, size and log position of each entry are kept
+ * in memory, in least recently used order, so entries are looked up, touched and evicted in
+ * constant time; the cached {@link ReliableResource} is read from the log when requested.
+ * Whenever an entry is added and the total size of the cached products exceeds the maximum size,
+ * the least recently used entries are removed and their products deleted. Only the products of
+ * entries count towards the maximum size; other files in the directory are ignored.
+ * <p>
+ * Every record is checksummed. Opening the index replays the log and truncates it at the first
+ * incomplete or corrupt record. The log is forced to disk before {@link #put(ReliableResource)}
+ * returns, so an index interrupted while writing recovers every entry added before the
+ * interruption. Removals are only forced with the next addition or when the index is closed, so
+ * an interrupted index may recover an entry that was removed; entries are only removed once
+ * their product is deleted or unreadable, which the cache detects again when the entry is next
+ * requested. Reading an entry does not write to the log: the order in which entries were used is
+ * written when the log is compacted, which it also is when the index is closed after entries were
+ * read, so an interrupted index recovers the order as of the last compaction.
+ * <p>
+ * The log is compacted into a new file, which then replaces the old one, once most of it
+ * describes entries that have since been replaced or removed. When a new index is started, the
+ * entries that the product cache used to keep as one serialized file per entry in the same
+ * directory are added to it, and those files are deleted.
+ * <p>
+ * ProductCacheIndex is thread-safe.
+ */
+public class ProductCacheIndex implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductCacheIndex.class);
+
+    private static final int MAGIC = 0x44445043;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+
+    private static final String LEGACY_ENTRY_EXTENSION = ".ser";
+
+    private static final byte PUT = 1;
+
+    private static final byte REMOVE = 3;
+
+    private final Path indexFile;
+
+    private final ClassLoader classLoader;
+
+    // Ordered from the least to the most recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private FileChannel channel;
+
+    private long maxSizeBytes;
+
+    private long sizeBytes;
+
+    private long liveLogBytes;
+
+    private boolean touchedSinceCompaction;
+
+    /**
+     * @param indexFile    the file of the index, created if it does not exist
+     * @param maxSizeBytes the maximum total size of the cached products, or 0 for no limit
+     * @throws IOException if the index cannot be opened
+     */
+    public ProductCacheIndex(Path indexFile, long maxSizeBytes) throws IOException {
+        this.indexFile = indexFile;
+        this.maxSizeBytes = maxSizeBytes;
+        this.classLoader = getClass().getClassLoader();
+        open();
+    }
+
+    /**
+     * Adds or replaces an entry, then evicts the least recently used entries while the cache is
+     * larger than its maximum size. The added entry is evicted too if its product alone exceeds
+     * the maximum size.
+     *
+     * @param resource the cached resource, whose product is already in the cache directory
+     * @throws IOException if the entry cannot be written
+     */
+    public synchronized void put(ReliableResource resource) throws IOException {
+        ensureOpen();
+        appendPut(resource);
+        evict();
+        channel.force(false);
+        compactIfNeeded();
+    }
+
+    /**
+     * Gets an entry and marks it as the most recently used.
+     *
+     * @param key the key of the entry
+     * @return the cached resource, or {@code null} if there is no entry for the key
+     * @throws IOException if the entry cannot be read
+     */
+    public synchronized ReliableResource get(String key) throws IOException {
+        ensureOpen();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        ReliableResource resource = readResource(entry);
+        entry.lastTouchedMillis = System.currentTimeMillis();
+        resource.setLastTouchedMillis(entry.lastTouchedMillis);
+        touchedSinceCompaction = true;
+        return resource;
+    }
+
+    /**
+     * @param key the key of the entry
+     * @return {@code true} if there is an entry for the key, without marking it as used
+     */
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Removes an entry. The entry's product is not deleted.
+     *
+     * @param key the key of the entry
+     * @return {@code true} if there was an entry for the key
+     * @throws IOException if the removal cannot be written
+     */
+    public synchronized boolean remove(String key) throws IOException {
+        ensureOpen();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return false;
+        }
+
+        removeEntry(entry);
+        compactIfNeeded();
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the total size of the cached products
+     */
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    /**
+     * Sets the maximum total size of the cached products, evicting entries if the cache is now
+     * larger.
+     *
+     * @param maxSizeBytes the maximum size, or 0 for no limit
+     * @throws IOException if evictions cannot be written
+     */
+    public synchronized void setMaxSizeBytes(long maxSizeBytes) throws IOException {
+        this.maxSizeBytes = maxSizeBytes;
+        if (channel != null) {
+            evict();
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Closes the index, first compacting the log if entries were read since it was last
+     * compacted, so the order in which they were used is kept.
+     *
+     * @throws IOException if the log cannot be compacted or closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            if (touchedSinceCompaction) {
+                compact();
+            } else {
+                channel.force(false);
+            }
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Rewrites the log with a single record per entry.
+     *
+     * @throws IOException if the log cannot be rewritten
+     */
+    public synchronized void compact() throws IOException {
+        ensureOpen();
+        Path compactFile = indexFile.resolveSibling(indexFile.getFileName() + ".compact");
+        List<Entry> compacted = new ArrayList<>(entries.size());
+
+        try (FileChannel compactChannel = FileChannel.open(compactFile,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            writeFully(compactChannel, header(), 0);
+            long position = HEADER_SIZE;
+            for (Entry entry : entries.values()) {
+                Entry copy = new Entry(entry.key,
+                        entry.filePath,
+                        entry.sizeBytes,
+                        entry.lastTouchedMillis);
+                ByteBuffer record = encodePut(copy, readResourceBytes(entry));
+                copy.offset = position;
+                copy.length = record.remaining();
+                position += writeFully(compactChannel, record, position);
+                compacted.add(copy);
+            }
+            compactChannel.force(true);
+        }
+
+        channel.close();
+        try {
+            Files.move(compactFile,
+                    indexFile,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(compactFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        channel = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+
+        entries.clear();
+        liveLogBytes = 0;
+        for (Entry entry : compacted) {
+            entries.put(entry.key, entry);
+            liveLogBytes += entry.length;
+        }
+        touchedSinceCompaction = false;
+        LOGGER.debug("Compacted product cache index {} to {} entries", indexFile, entries.size());
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(indexFile.toAbsolutePath()
+                .getParent());
+        channel = FileChannel.open(indexFile,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        if (channel.size() < HEADER_SIZE || !hasValidHeader()) {
+            if (channel.size() > 0) {
+                LOGGER.info("Product cache index {} is not valid, starting a new index",
+                        indexFile);
+            }
+            channel.truncate(0);
+            writeFully(channel, header(), 0);
+            channel.position(HEADER_SIZE);
+            importLegacyEntries();
+            channel.force(false);
+            return;
+        }
+
+        long validLength = replay();
+        if (validLength < channel.size()) {
+            LOGGER.info("Truncating incomplete product cache index {} from {} to {} bytes",
+                    indexFile,
+                    channel.size(),
+                    validLength);
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+        LOGGER.debug("Opened product cache index {} with {} entries totalling {} bytes",
+                indexFile,
+                entries.size(),
+                sizeBytes);
+    }
+
+    private boolean hasValidHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == VERSION;
+    }
+
+    /**
+     * Replays the log into the in-memory entries.
+     *
+     * @return the length of the log up to the first incomplete or corrupt record
+     */
+    private long replay() throws IOException {
+        long position = HEADER_SIZE;
+        long length = channel.size();
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+        while (position + RECORD_HEADER_SIZE <= length) {
+            recordHeader.clear();
+            readFully(recordHeader, position);
+            recordHeader.flip();
+            int payloadLength = recordHeader.getInt();
+            int checksum = recordHeader.getInt();
+            if (payloadLength <= 0 || payloadLength > MAX_RECORD_SIZE
+                    || position + RECORD_HEADER_SIZE + payloadLength > length) {
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+            readFully(payload, position + RECORD_HEADER_SIZE);
+            if (checksum(payload.array()) != checksum) {
+                break;
+            }
+
+            int recordLength = RECORD_HEADER_SIZE + payloadLength;
+            try {
+                applyRecord(payload.array(), position, recordLength);
+            } catch (IOException e) {
+                LOGGER.debug("Unreadable product cache index record at {}", position, e);
+                break;
+            }
+            position += recordLength;
+        }
+        return position;
+    }
+
+    private void applyRecord(byte[] payload, long position, int recordLength)
+            throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = input.readByte();
+        String key = input.readUTF();
+        Entry entry = entries.get(key);
+
+        switch (type) {
+        case PUT:
+            Entry added = new Entry(key, input.readUTF(), input.readLong(), input.readLong());
+            added.offset = position;
+            added.length = recordLength;
+            addEntry(added);
+            break;
+        case REMOVE:
+            if (entry != null) {
+                entries.remove(key);
+                sizeBytes -= entry.sizeBytes;
+                liveLogBytes -= entry.length;
+            }
+            break;
+        default:
+            throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    /**
+     * Adds the entries that the product cache kept as one serialized file per entry before it was
+     * indexed, in the order they were last used, and deletes those files. Entries whose product
+     * is missing or that cannot be read are dropped.
+     */
+    private void importLegacyEntries() throws IOException {
+        List<Path> legacyFiles;
+        try (Stream<Path> files = Files.list(indexFile.toAbsolutePath()
+                .getParent())) {
+            legacyFiles = files.filter(file -> file.getFileName()
+                    .toString()
+                    .endsWith(LEGACY_ENTRY_EXTENSION))
+                    .collect(Collectors.toList());
+        }
+
+        List<ReliableResource> resources = new ArrayList<>();
+        for (Path legacyFile : legacyFiles) {
+            try (ObjectInputStream input = new ClassLoaderObjectInputStream(new BufferedInputStream(
+                    Files.newInputStream(legacyFile)), classLoader)) {
+                Object value = input.readObject();
+                if (value instanceof ReliableResource && ((ReliableResource) value).hasProduct()) {
+                    resources.add((ReliableResource) value);
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                LOGGER.debug("Unable to read product cache entry {}", legacyFile, e);
+            }
+            Files.deleteIfExists(legacyFile);
+        }
+        if (resources.isEmpty()) {
+            return;
+        }
+
+        resources.sort(Comparator.comparingLong(ReliableResource::getLastTouchedMillis));
+        for (ReliableResource resource : resources) {
+            appendPut(resource);
+        }
+        evict();
+        LOGGER.info("Added {} existing product cache entries to product cache index {}",
+                resources.size(),
+                indexFile);
+    }
+
+    private void appendPut(ReliableResource resource) throws IOException {
+        byte[] resourceBytes = serialize(resource);
+        Entry entry = new Entry(resource.getKey(),
+                resource.getFilePath(),
+                Math.max(resource.getSize(), 0),
+                resource.getLastTouchedMillis());
+
+        append(encodePut(entry, resourceBytes), entry);
+        addEntry(entry);
+    }
+
+    private void addEntry(Entry entry) {
+        Entry replaced = entries.remove(entry.key);
+        if (replaced != null) {
+            sizeBytes -= replaced.sizeBytes;
+            liveLogBytes -= replaced.length;
+        }
+        entries.put(entry.key, entry);
+        sizeBytes += entry.sizeBytes;
+        liveLogBytes += entry.length;
+    }
+
+    private void removeEntry(Entry entry) throws IOException {
+        entries.remove(entry.key);
+        sizeBytes -= entry.sizeBytes;
+        liveLogBytes -= entry.length;
+        append(encode(REMOVE, entry.key, null), null);
+    }
+
+    private void evict() throws IOException {
+        if (maxSizeBytes <= 0) {
+            return;
+        }
+
+        Iterator<Entry> leastRecentlyUsed = entries.values()
+                .iterator();
+        List<Entry> evicted = new ArrayList<>();
+        long remainingBytes = sizeBytes;
+        while (remainingBytes > maxSizeBytes && leastRecentlyUsed.hasNext()) {
+            Entry entry = leastRecentlyUsed.next();
+            evicted.add(entry);
+            remainingBytes -= entry.sizeBytes;
+        }
+
+        for (Entry entry : evicted) {
+            LOGGER.debug("Evicting product cache entry {}", entry.key);
+            removeEntry(entry);
+            if (entry.filePath != null && !FileUtils.deleteQuietly(new File(entry.filePath))) {
+                LOGGER.debug("Could not delete evicted product {}", entry.filePath);
+            }
+        }
+    }
+
+    private void compactIfNeeded() throws IOException {
+        long logBytes = channel.size() - HEADER_SIZE;
+        if (logBytes > MIN_COMPACTION_SIZE && logBytes > 2 * liveLogBytes) {
+            compact();
+        }
+    }
+
+    private void append(ByteBuffer record, Entry entry) throws IOException {
+        long position = channel.size();
+        int length = record.remaining();
+        writeFully(channel, record, position);
+        channel.position(position + length);
+        if (entry != null) {
+            entry.offset = position;
+            entry.length = length;
+        }
+    }
+
+    private ByteBuffer encodePut(Entry entry, byte[] resourceBytes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(resourceBytes.length + 64);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeUTF(entry.filePath == null ? "" : entry.filePath);
+        output.writeLong(entry.sizeBytes);
+        output.writeLong(entry.lastTouchedMillis);
+        output.write(resourceBytes);
+        return encode(PUT, entry.key, bytes.toByteArray());
+    }
+
+    private ByteBuffer encode(byte type, String key, byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(type);
+        output.writeUTF(key);
+        if (body != null) {
+            output.write(body);
+        }
+        byte[] payload = bytes.toByteArray();
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload);
+        record.flip();
+        return record;
+    }
+
+    private ReliableResource readResource(Entry entry) throws IOException {
+        try (ObjectInputStream input = new ClassLoaderObjectInputStream(new ByteArrayInputStream(
+                readResourceBytes(entry)), classLoader)) {
+            return (ReliableResource) input.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Could not read cached resource " + entry.key, e);
+        }
+    }
+
+    private byte[] readResourceBytes(Entry entry) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(entry.length);
+        readFully(record, entry.offset);
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(record.array(),
+                RECORD_HEADER_SIZE,
+                entry.length - RECORD_HEADER_SIZE));
+        input.readByte();
+        input.readUTF();
+        input.readUTF();
+        input.readLong();
+        input.readLong();
+
+        byte[] resourceBytes = new byte[input.available()];
+        input.readFully(resourceBytes);
+        return resourceBytes;
+    }
+
+    private byte[] serialize(ReliableResource resource) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(resource);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, offset);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of product cache index " + indexFile);
+            }
+            offset += count;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel == null) {
+            throw new IOException("Product cache index " + indexFile + " is closed");
+        }
+    }
+
+    private static int writeFully(FileChannel fileChannel, ByteBuffer buffer, long position)
+            throws IOException {
+        int length = buffer.remaining();
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += fileChannel.write(buffer, offset);
+        }
+        return length;
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC)
+                .putInt(VERSION);
+        header.flip();
+        return header;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    private static class Entry {
+
+        private final String key;
+
+        private final String filePath;
+
+        private final long sizeBytes;
+
+        private long lastTouchedMillis;
+
+        private long offset;
+
+        private int length;
+
+        Entry(String key, String filePath, long sizeBytes, long lastTouchedMillis) {
+            this.key = key;
+            this.filePath = filePath == null || filePath.isEmpty() ? null : filePath;
+            this.sizeBytes = sizeBytes;
+            this.lastTouchedMillis = lastTouchedMillis;
+        }
+    }
+
+    /**
+     * Resolves the classes of cached resources with this bundle's class loader, since the class
+     * loader of the calling thread may not see them.
+     */
+    private static class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+        private final ClassLoader classLoader;
+
+        ClassLoaderObjectInputStream(InputStream in, ClassLoader classLoader) throws IOException {
+            super(in);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc)
+                throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, classLoader);
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+}
@@ -16,28 +16,17 @@
 import static ddf.catalog.cache.impl.CachedResourceMetacardComparator.isSame;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.net.URL;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
-import org.osgi.framework.Bundle;
-import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.hazelcast.config.Config;
-import com.hazelcast.config.MapConfig;
-import com.hazelcast.config.MapStoreConfig;
-import com.hazelcast.config.XmlConfigBuilder;
-import com.hazelcast.core.Hazelcast;
-import com.hazelcast.core.HazelcastInstance;
-import com.hazelcast.core.IMap;
-
 import ddf.catalog.cache.ResourceCacheInterface;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.impl.MetacardImpl;
@@ -62,6 +51,11 @@ public class ResourceCacheImpl implements ResourceCacheInterface {
 
     private static final long DEFAULT_MAX_CACHE_DIR_SIZE_BYTES = 10737418240L;  //10 GB
 
+    /**
+     * Name of the index of the cached products, in the product cache directory
+     */
+    static final String INDEX_FILE_NAME = ".product-cache-index";
+
     private List<String> pendingCache = new ArrayList<>();
 
     /**
@@ -69,101 +63,70 @@ public class ResourceCacheImpl implements ResourceCacheInterface {
      */
     private String productCacheDirectory;
 
-    private HazelcastInstance instance;
-
-    private IMap<Object, Object> cache;
-
-    private ProductCacheDirListener<Object, Object> cacheListener = new ProductCacheDirListener<>(
-            DEFAULT_MAX_CACHE_DIR_SIZE_BYTES);
-
-    private BundleContext context;
+    private long cacheDirMaxSizeBytes = DEFAULT_MAX_CACHE_DIR_SIZE_BYTES;
 
-    private String xmlConfigFilename;
+    private ProductCacheIndex index;
 
     /**
-     * Called after all parameters are set
+     * Opens the index of the products in the product cache directory. Called after all
+     * parameters are set.
      */
-    public void setCache(HazelcastInstance instance) {
-        LOGGER.trace("ENTERING: setCache()");
-        this.instance = instance;
-        if (this.instance == null) {
-            Config cfg = getHazelcastConfig(context, xmlConfigFilename);
-            cfg.setClassLoader(getClass().getClassLoader());
-            this.instance = Hazelcast.newHazelcastInstance(cfg);
+    public synchronized void setupCache() {
+        LOGGER.trace("ENTERING: setupCache()");
+        closeIndex();
+        if (StringUtils.isEmpty(productCacheDirectory)) {
+            LOGGER.debug("No product cache directory, product cache index not opened.");
+            return;
         }
 
-        cache = this.instance.getMap(PRODUCT_CACHE_NAME);
-        cacheListener.setHazelcastInstance(this.instance);
-        cache.addEntryListener(cacheListener, true);
+        try {
+            index = new ProductCacheIndex(Paths.get(productCacheDirectory, INDEX_FILE_NAME),
+                    cacheDirMaxSizeBytes);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to open product cache index in {}. Products will not be cached.",
+                    productCacheDirectory,
+                    e);
+            index = null;
+        }
     }
 
-    public void setupCache() {
-        setCache(null);
+    public synchronized void teardownCache() {
+        closeIndex();
     }
 
-    private Config getHazelcastConfig(BundleContext context, String xmlConfigFilename) {
-        Config cfg = null;
-        Bundle bundle = context.getBundle();
-
-        URL xmlConfigFileUrl = null;
-        if (StringUtils.isNotBlank(xmlConfigFilename)) {
-            xmlConfigFileUrl = bundle.getResource(xmlConfigFilename);
-        }
-
-        XmlConfigBuilder xmlConfigBuilder = null;
-
-        if (xmlConfigFileUrl != null) {
+    private void closeIndex() {
+        if (index != null) {
             try {
-                xmlConfigBuilder = new XmlConfigBuilder(xmlConfigFileUrl.openStream());
-                cfg = xmlConfigBuilder.build();
-                LOGGER.debug("Successfully built hazelcast config from XML config file {}",
-                        xmlConfigFilename);
-            } catch (FileNotFoundException e) {
-                LOGGER.info("FileNotFoundException trying to build hazelcast config from XML file "
-                        + xmlConfigFilename, e);
-                cfg = null;
+                index.close();
             } catch (IOException e) {
-                LOGGER.info("IOException trying to build hazelcast config from XML file "
-                        + xmlConfigFilename, e);
-                cfg = null;
-            }
-        }
-
-        if (cfg == null) {
-            LOGGER.info("Falling back to using generic Config for hazelcast");
-            cfg = new Config();
-        } else if (LOGGER.isDebugEnabled()) {
-            MapConfig mapConfig = cfg.getMapConfig("Product_Cache");
-            if (mapConfig == null) {
-                LOGGER.debug("mapConfig is NULL for persistentNotifications - try persistent*");
-                mapConfig = cfg.getMapConfig("persistent*");
-                if (mapConfig == null) {
-                    LOGGER.debug("mapConfig is NULL for persistent*");
-                }
-            } else {
-                MapStoreConfig mapStoreConfig = mapConfig.getMapStoreConfig();
-                if (null != mapStoreConfig) {
-                    LOGGER.debug("mapStoreConfig factoryClassName = {}",
-                            mapStoreConfig.getFactoryClassName());
-                }
+                LOGGER.debug("Unable to close product cache index.", e);
             }
+            index = null;
         }
-
-        return cfg;
     }
 
-    public void teardownCache() {
-        instance.shutdown();
+    private synchronized ProductCacheIndex getIndex() {
+        if (index == null && StringUtils.isNotEmpty(productCacheDirectory)) {
+            setupCache();
+        }
+        return index;
     }
 
-    public long getCacheDirMaxSizeMegabytes() {
+    public synchronized long getCacheDirMaxSizeMegabytes() {
         LOGGER.debug("Getting max size for cache directory.");
-        return cacheListener.getMaxDirSizeBytes() / BYTES_IN_MEGABYTES;
+        return cacheDirMaxSizeBytes / BYTES_IN_MEGABYTES;
     }
 
-    public void setCacheDirMaxSizeMegabytes(long cacheDirMaxSizeMegabytes) {
+    public synchronized void setCacheDirMaxSizeMegabytes(long cacheDirMaxSizeMegabytes) {
         LOGGER.debug("Setting max size for cache directory: {}", cacheDirMaxSizeMegabytes);
-        cacheListener.setMaxDirSizeBytes(cacheDirMaxSizeMegabytes * BYTES_IN_MEGABYTES);
+        cacheDirMaxSizeBytes = cacheDirMaxSizeMegabytes * BYTES_IN_MEGABYTES;
+        if (index != null) {
+            try {
+                index.setMaxSizeBytes(cacheDirMaxSizeBytes);
+            } catch (IOException e) {
+                LOGGER.info("Unable to evict products exceeding the product cache size.", e);
+            }
+        }
     }
 
     public String getProductCacheDirectory() {
@@ -217,29 +180,18 @@ public void setProductCacheDirectory(final String productCacheDirectory) {
             }
         }
 
-        this.productCacheDirectory = newProductCacheDirectoryDir;
+        synchronized (this) {
+            boolean changed = !newProductCacheDirectoryDir.equals(this.productCacheDirectory);
+            this.productCacheDirectory = newProductCacheDirectoryDir;
+            // The index belongs to the products of a directory, so move to the new one's index
+            if (changed && index != null) {
+                setupCache();
+            }
+        }
 
         LOGGER.debug("Set product cache directory to: {}", this.productCacheDirectory);
     }
 
-    public BundleContext getContext() {
-        return context;
-    }
-
-    public void setContext(BundleContext context) {
-        LOGGER.debug("Setting context");
-        this.context = context;
-    }
-
-    public String getXmlConfigFilename() {
-        return xmlConfigFilename;
-    }
-
-    public void setXmlConfigFilename(String xmlConfigFilename) {
-        LOGGER.debug("Setting xmlConfigFilename to: {}", xmlConfigFilename);
-        this.xmlConfigFilename = xmlConfigFilename;
-    }
-
     /**
      * Returns true if resource with specified cache key is already in the process of
      * being cached. This check helps clients prevent attempting to cache the same resource
@@ -263,7 +215,16 @@ public boolean isPending(String key) {
     public void put(ReliableResource reliableResource) {
         LOGGER.trace("ENTERING: put(ReliableResource)");
         reliableResource.setLastTouchedMillis(System.currentTimeMillis());
-        cache.put(reliableResource.getKey(), reliableResource);
+        ProductCacheIndex productCacheIndex = getIndex();
+        if (productCacheIndex != null) {
+            try {
+                productCacheIndex.put(reliableResource);
+            } catch (IOException e) {
+                LOGGER.info("Unable to add product with key {} to the product cache index.",
+                        reliableResource.getKey(),
+                        e);
+            }
+        }
         removePendingCacheEntry(reliableResource.getKey());
 
         LOGGER.trace("EXITING: put(ReliableResource)");
@@ -305,7 +266,7 @@ public Resource getValid(String key, Metacard latestMetacard) {
         }
         LOGGER.debug("key {}", key);
 
-        ReliableResource cachedResource = (ReliableResource) cache.get(key);
+        ReliableResource cachedResource = getCachedResource(key);
 
         // Check that ReliableResource actually maps to a file (product) in the
         // product cache directory. This check handles the case if the product
@@ -322,7 +283,7 @@ public Resource getValid(String key, Metacard latestMetacard) {
                 LOGGER.trace("EXITING: get() for key {}", key);
                 return cachedResource;
             } else {
-                cache.remove(key);
+                removeCachedResource(key);
                 LOGGER.debug(
                         "Entry found in the cache, but no product found in cache directory for key = {} "
                                 + key);
@@ -346,7 +307,7 @@ public boolean containsValid(String key, Metacard latestMetacard) {
         if (key == null) {
             return false;
         }
-        ReliableResource cachedResource = (ReliableResource) cache.get(key);
+        ReliableResource cachedResource = getCachedResource(key);
         return (cachedResource != null) && (validateCacheEntry(cachedResource, latestMetacard));
     }
 
@@ -384,8 +345,38 @@ protected boolean validateCacheEntry(ReliableResource cachedResource, Metacard l
                     cachedResource.getFilePath());
         }
 
-        cache.remove(cachedResource.getKey());
+        removeCachedResource(cachedResource.getKey());
         LOGGER.trace("EXITING: validateCacheEntry");
         return false;
     }
+
+    private ReliableResource getCachedResource(String key) {
+        ProductCacheIndex productCacheIndex = getIndex();
+        if (productCacheIndex == null) {
+            return null;
+        }
+
+        try {
+            return productCacheIndex.get(key);
+        } catch (IOException e) {
+            LOGGER.info("Unable to read product with key {} from the product cache index.",
+                    key,
+                    e);
+            removeCachedResource(key);
+            return null;
+        }
+    }
+
+    private void removeCachedResource(String key) {
+        ProductCacheIndex productCacheIndex = getIndex();
+        if (productCacheIndex != null) {
+            try {
+                productCacheIndex.remove(key);
+            } catch (IOException e) {
+                LOGGER.info("Unable to remove product with key {} from the product cache index.",
+                        key,
+                        e);
+            }
+        }
+    }
 }
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the {@link CacheBulkProcessor}, exposed through the
+ * {@link ddf.catalog.cache.SolrCacheMBean}.
+ */
+class CacheBulkMetrics {
+
+    private final LongAdder enqueued = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder flushed = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder batchNanos = new LongAdder();
+
+    private final AtomicLong maxBatchNanos = new AtomicLong();
+
+    private final AtomicInteger backlogSize = new AtomicInteger();
+
+    void enqueued(int count) {
+        enqueued.add(count);
+    }
+
+    void dropped(int count) {
+        dropped.add(count);
+    }
+
+    void failed(int count) {
+        failed.add(count);
+    }
+
+    void flushed(int count, long latencyNanos) {
+        flushed.add(count);
+        batches.increment();
+        batchNanos.add(latencyNanos);
+        maxBatchNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    void setBacklogSize(int size) {
+        backlogSize.set(size);
+    }
+
+    long getEnqueuedCount() {
+        return enqueued.sum();
+    }
+
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    long getFlushedCount() {
+        return flushed.sum();
+    }
+
+    long getFailedCount() {
+        return failed.sum();
+    }
+
+    long getBatchCount() {
+        return batches.sum();
+    }
+
+    double getMeanBatchLatencyMillis() {
+        long count = batches.sum();
+        if (count == 0) {
+            return 0;
+        }
+        return batchNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    double getMaxBatchLatencyMillis() {
+        return maxBatchNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    int getBacklogSize() {
+        return backlogSize.get();
+    }
+}
@@ -14,34 +14,61 @@
 package ddf.catalog.cache.solr.impl;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Lists;
-
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 
 /**
  * Bulk adds metacards to the cache that are not needed immediately.
+ * <p>
+ * Metacards wait in a bounded backlog, coalesced by ID so only the latest version of a metacard
+ * is written. Writer threads wait until a full batch is available or the flush interval has
+ * passed since the last write, and write batches to the cache in parallel. When the backlog is
+ * full, the oldest metacards are dropped to make room for new ones. A batch that fails to be
+ * written is put back in the backlog and retried after the retry delay.
  */
 class CacheBulkProcessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CacheBulkProcessor.class);
 
-    private final ScheduledExecutorService batchScheduler =
-            Executors.newSingleThreadScheduledExecutor();
+    private static final int DEFAULT_WRITER_COUNT = 2;
+
+    private final SolrCache cache;
+
+    private final long retryDelayMillis;
+
+    private final ExecutorService writers = Executors.newCachedThreadPool();
+
+    private final CacheBulkMetrics metrics = new CacheBulkMetrics();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition backlogChanged = lock.newCondition();
+
+    // Guarded by lock; ordered from the oldest to the most recently added metacard
+    private final LinkedHashMap<String, Metacard> backlog = new LinkedHashMap<>();
 
-    private final Map<String, Metacard> metacardsToCache = new ConcurrentHashMap<>();
+    private int inFlight;
+
+    private int writerCount;
+
+    private int runningWriters;
+
+    private boolean shutdown;
+
+    private long lastBulkAdd = System.currentTimeMillis();
 
     private long flushInterval = TimeUnit.SECONDS.toMillis(10);
 
@@ -49,92 +76,258 @@ class CacheBulkProcessor {
 
     private int batchSize = 500;
 
-    private Date lastBulkAdd = new Date();
-
     public CacheBulkProcessor(final SolrCache cache) {
-        this(cache, 1, TimeUnit.SECONDS);
+        this(cache, DEFAULT_WRITER_COUNT, 1, TimeUnit.SECONDS);
     }
 
     /**
-     * Create a new cache bulk processor that will check added metacards for bulk processing at
-     * the configured delay interval.
+     * Create a new cache bulk processor that writes batches of added metacards to the cache.
      *
-     * @param cache target Solr cache to bulk add metacards
-     * @param delay delay between decision to bulk add
-     * @param delayUnit units of the delay
+     * @param cache          target Solr cache to bulk add metacards
+     * @param writerCount    number of batches written to the cache in parallel
+     * @param retryDelay     delay before a writer retries after a batch failed to be written
+     * @param retryDelayUnit units of the retry delay
      */
-    public CacheBulkProcessor(final SolrCache cache, final long delay, final TimeUnit delayUnit) {
-        batchScheduler.scheduleWithFixedDelay(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    if (metacardsToCache.size() > 0 && (metacardsToCache.size() >= batchSize
-                            || timeToFlush())) {
-                        LOGGER.debug("{} metacards to batch add to cache", metacardsToCache.size());
-
-                        List<Metacard> metacards = new ArrayList<>(metacardsToCache.values());
-                        for (Collection<Metacard> batch : Lists.partition(metacards, batchSize)) {
-                            LOGGER.debug("Caching a batch of {} metacards", batch.size());
-                            cache.create(batch);
-
-                            for (Metacard metacard : batch) {
-                                metacardsToCache.remove(metacard.getId());
-                            }
-                        }
-
-                        lastBulkAdd = new Date();
-                    }
-                } catch (Throwable throwable) {
-                    LOGGER.warn("Scheduled bulk ingest to cache failed", throwable);
-                }
-            }
-        }, delay, delay, delayUnit);
-    }
-
-    private boolean timeToFlush() {
-        Date now = new Date();
-        return now.getTime() - lastBulkAdd.getTime() > flushInterval;
+    public CacheBulkProcessor(final SolrCache cache, final int writerCount, final long retryDelay,
+            final TimeUnit retryDelayUnit) {
+        this.cache = cache;
+        this.retryDelayMillis = retryDelayUnit.toMillis(retryDelay);
+        cache.setBulkMetrics(metrics);
+        setWriterCount(writerCount);
     }
 
     /**
-     * Adds metacards to be bulk added to cache.  Metacards will be ignored if backlog grows too
-     * large.  Metacard currently in backlog will be updated if added again.
+     * Adds metacards to be bulk added to cache. Metacards currently in the backlog are replaced
+     * if added again. If the backlog grows too large, the oldest metacards are dropped.
      *
-     * @param results metacards to add to current batch
+     * @param results metacards to add to the backlog
      */
     public void add(final List<Result> results) {
-        if (metacardsToCache.size() < maximumBacklogSize) {
+        lock.lock();
+        try {
+            if (shutdown) {
+                return;
+            }
+
+            int added = 0;
             for (Result result : results) {
                 if (result != null) {
                     Metacard metacard = result.getMetacard();
                     if (metacard != null) {
-                        metacardsToCache.put(metacard.getId(), metacard);
+                        // Remove first so a replaced metacard counts as the most recent
+                        backlog.remove(metacard.getId());
+                        backlog.put(metacard.getId(), metacard);
+                        added++;
                     }
                 }
             }
+            metrics.enqueued(added);
+
+            int dropped = evictOldest(maximumBacklogSize);
+            if (dropped > 0) {
+                LOGGER.debug("Cache backlog is full, dropped {} metacards", dropped);
+                metrics.dropped(dropped);
+            }
+
+            if (added > 0) {
+                backlogChanged.signalAll();
+            }
+            metrics.setBacklogSize(backlog.size());
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
-     * Shutdown scheduled tasks.
+     * Shutdown the batch writers. Metacards still in the backlog are not cached.
      */
     public void shutdown() {
-        batchScheduler.shutdown();
+        lock.lock();
+        try {
+            shutdown = true;
+            backlogChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        writers.shutdown();
     }
 
     int pendingMetacards() {
-        return metacardsToCache.size();
+        lock.lock();
+        try {
+            return backlog.size() + inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    CacheBulkMetrics getMetrics() {
+        return metrics;
     }
 
     public void setFlushInterval(long flushInterval) {
-        this.flushInterval = flushInterval;
+        lock.lock();
+        try {
+            this.flushInterval = flushInterval;
+            backlogChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void setBatchSize(int batchSize) {
-        this.batchSize = batchSize;
+        lock.lock();
+        try {
+            this.batchSize = Math.max(batchSize, 1);
+            backlogChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void setMaximumBacklogSize(int maximumBacklogSize) {
-        this.maximumBacklogSize = maximumBacklogSize;
+        lock.lock();
+        try {
+            this.maximumBacklogSize = Math.max(maximumBacklogSize, 0);
+            metrics.dropped(evictOldest(this.maximumBacklogSize));
+            metrics.setBacklogSize(backlog.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the number of batches written to the cache in parallel. Writers beyond a lowered count
+     * stop once their current batch is written.
+     *
+     * @param writerCount number of batch writers
+     */
+    public void setWriterCount(int writerCount) {
+        lock.lock();
+        try {
+            this.writerCount = Math.max(writerCount, 1);
+            while (!shutdown && runningWriters < this.writerCount) {
+                runningWriters++;
+                writers.execute(this::write);
+            }
+            backlogChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write() {
+        List<Metacard> batch;
+        while ((batch = takeBatch()) != null) {
+            long start = System.nanoTime();
+            try {
+                LOGGER.debug("Caching a batch of {} metacards", batch.size());
+                cache.create(batch);
+                metrics.flushed(batch.size(), System.nanoTime() - start);
+                finishBatch(batch, false);
+            } catch (Throwable throwable) {
+                LOGGER.warn("Bulk add of {} metacards to cache failed", batch.size(), throwable);
+                metrics.failed(batch.size());
+                finishBatch(batch, true);
+                if (!awaitRetry()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until a batch is due and removes it from the backlog.
+     *
+     * @return the batch to write, or {@code null} if this writer should stop
+     */
+    private List<Metacard> takeBatch() {
+        lock.lock();
+        try {
+            while (true) {
+                if (shutdown || runningWriters > writerCount) {
+                    runningWriters--;
+                    return null;
+                }
+
+                long flushDelay = lastBulkAdd + flushInterval - System.currentTimeMillis();
+                if (backlog.size() >= batchSize || (!backlog.isEmpty() && flushDelay <= 0)) {
+                    break;
+                }
+
+                if (backlog.isEmpty()) {
+                    backlogChanged.await();
+                } else {
+                    backlogChanged.await(flushDelay, TimeUnit.MILLISECONDS);
+                }
+            }
+
+            List<Metacard> batch = new ArrayList<>(Math.min(batchSize, backlog.size()));
+            Iterator<Metacard> iterator = backlog.values()
+                    .iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            inFlight += batch.size();
+            lastBulkAdd = System.currentTimeMillis();
+            metrics.setBacklogSize(backlog.size());
+            return batch;
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            runningWriters--;
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finishBatch(List<Metacard> batch, boolean retry) {
+        lock.lock();
+        try {
+            inFlight -= batch.size();
+            if (retry && !shutdown) {
+                // Newer versions added while the batch was written take precedence
+                for (Metacard metacard : batch) {
+                    backlog.putIfAbsent(metacard.getId(), metacard);
+                }
+                metrics.dropped(evictOldest(maximumBacklogSize));
+                metrics.setBacklogSize(backlog.size());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean awaitRetry() {
+        lock.lock();
+        try {
+            long deadline = System.currentTimeMillis() + retryDelayMillis;
+            long delay;
+            while (!shutdown && (delay = deadline - System.currentTimeMillis()) > 0) {
+                backlogChanged.await(delay, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            runningWriters--;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int evictOldest(int maximumSize) {
+        int evicted = 0;
+        Iterator<Map.Entry<String, Metacard>> iterator = backlog.entrySet()
+                .iterator();
+        while (backlog.size() > maximumSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evicted++;
+        }
+        return evicted;
     }
 }
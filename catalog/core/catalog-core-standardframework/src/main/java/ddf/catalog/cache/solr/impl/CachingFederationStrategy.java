@@ -157,6 +157,8 @@ public class CachingFederationStrategy implements FederationStrategy, PostIngest
 
     private boolean showWarnings = true;
 
+    private boolean mergeResultsAsSourcesComplete = false;
+
     /**
      * Instantiates an {@code AbstractFederationStrategy} with the provided {@link ExecutorService}.
      *
@@ -456,6 +458,18 @@ public void setCachingEverything(boolean cachingEverything) {
         this.isCachingEverything = cachingEverything;
     }
 
+    public void setCacheWriterCount(int cacheWriterCount) {
+        cacheBulkProcessor.setWriterCount(cacheWriterCount);
+    }
+
+    public void setCacheBatchSize(int cacheBatchSize) {
+        cacheBulkProcessor.setBatchSize(cacheBatchSize);
+    }
+
+    public void setCacheBacklogSize(int cacheBacklogSize) {
+        cacheBulkProcessor.setMaximumBacklogSize(cacheBacklogSize);
+    }
+
     public boolean isCacheRemoteIngests() {
         return cacheRemoteIngests;
     }
@@ -468,6 +482,15 @@ protected Runnable createMonitor(final CompletionService<SourceResponse> complet
             final Map<Future<SourceResponse>, QueryRequest> futures,
             final QueryResponseImpl returnResults, final QueryRequest request) {
 
+        if (mergeResultsAsSourcesComplete) {
+            return new MergingQueryMonitor(this,
+                    completionService,
+                    futures,
+                    returnResults,
+                    request,
+                    postQuery);
+        }
+
         return new SortedQueryMonitor(this,
                 completionService,
                 futures,
@@ -635,4 +658,12 @@ public boolean getShowWarnings() {
         return showWarnings;
     }
 
+    public void setMergeResultsAsSourcesComplete(boolean mergeResultsAsSourcesComplete) {
+        this.mergeResultsAsSourcesComplete = mergeResultsAsSourcesComplete;
+    }
+
+    public boolean isMergeResultsAsSourcesComplete() {
+        return mergeResultsAsSourcesComplete;
+    }
+
 }
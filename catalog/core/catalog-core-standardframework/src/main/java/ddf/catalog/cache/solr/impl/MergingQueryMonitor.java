@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.catalog.plugin.PostFederatedQueryPlugin;
+import ddf.catalog.util.impl.BoundedResultHeap;
+
+/**
+ * {@link SortedQueryMonitor} that merges each source response into a {@link BoundedResultHeap}
+ * as soon as the source completes, instead of concatenating every result and sorting the whole
+ * list once the last source has returned.
+ * <p>
+ * Only the requested page is ever retained, so memory is bounded by the page size rather than by
+ * the number of sources, and the work left once the slowest source returns is a merge of that
+ * source's results plus an ordering of the page itself.
+ * <p>
+ * The page is still only published once every source has completed, failed or timed out. Sources
+ * report neither their hit counts nor bounds on their sort values before they complete, so no
+ * pending source can be proven unable to displace a result of a full page, and publishing earlier
+ * could return a different page than the one sorted over every result.
+ */
+class MergingQueryMonitor extends SortedQueryMonitor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MergingQueryMonitor.class);
+
+    private final BoundedResultHeap page;
+
+    MergingQueryMonitor(CachingFederationStrategy cachingFederationStrategy,
+            CompletionService<SourceResponse> completionService,
+            Map<Future<SourceResponse>, QueryRequest> futures, QueryResponseImpl returnResults,
+            QueryRequest request, List<PostFederatedQueryPlugin> postQuery) {
+        super(cachingFederationStrategy,
+                completionService,
+                futures,
+                returnResults,
+                request,
+                postQuery);
+        page = new BoundedResultHeap(getComparator(), getMaxResults());
+    }
+
+    @Override
+    void collectResults(List<Result> sourceResults) {
+        int retained = page.offer(sourceResults);
+        LOGGER.debug("Merged {} of {} source results into the page.",
+                retained,
+                sourceResults.size());
+    }
+
+    @Override
+    List<Result> getPageResults() {
+        return page.drain();
+    }
+}
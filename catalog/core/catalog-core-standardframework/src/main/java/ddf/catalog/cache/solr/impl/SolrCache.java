@@ -56,7 +56,7 @@
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.MetacardCreationException;
 import ddf.catalog.data.Result;
-import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.AttributeImpl;
 import ddf.catalog.filter.FilterAdapter;
 import ddf.catalog.operation.DeleteRequest;
 import ddf.catalog.operation.QueryRequest;
@@ -67,6 +67,7 @@
 import ddf.catalog.source.solr.DynamicSchemaResolver;
 import ddf.catalog.source.solr.SchemaFields;
 import ddf.catalog.source.solr.SolrFilterDelegate;
+import ddf.catalog.source.solr.SolrDocumentMetacard;
 import ddf.catalog.source.solr.SolrFilterDelegateFactory;
 import ddf.catalog.source.solr.SolrMetacardClient;
 
@@ -110,6 +111,8 @@ public class SolrCache implements SolrCacheMBean {
 
     private MBeanServer mbeanServer;
 
+    private volatile CacheBulkMetrics bulkMetrics = new CacheBulkMetrics();
+
     /**
      * Convenience constructor that creates a the Solr server
      *
@@ -315,6 +318,50 @@ public void shutdown() {
         }
     }
 
+    void setBulkMetrics(CacheBulkMetrics bulkMetrics) {
+        this.bulkMetrics = bulkMetrics;
+    }
+
+    @Override
+    public long getBulkEnqueuedCount() {
+        return bulkMetrics.getEnqueuedCount();
+    }
+
+    @Override
+    public long getBulkDroppedCount() {
+        return bulkMetrics.getDroppedCount();
+    }
+
+    @Override
+    public long getBulkFlushedCount() {
+        return bulkMetrics.getFlushedCount();
+    }
+
+    @Override
+    public long getBulkFailedCount() {
+        return bulkMetrics.getFailedCount();
+    }
+
+    @Override
+    public int getBulkBacklogSize() {
+        return bulkMetrics.getBacklogSize();
+    }
+
+    @Override
+    public long getBulkBatchCount() {
+        return bulkMetrics.getBatchCount();
+    }
+
+    @Override
+    public double getBulkMeanBatchLatencyMillis() {
+        return bulkMetrics.getMeanBatchLatencyMillis();
+    }
+
+    @Override
+    public double getBulkMaxBatchLatencyMillis() {
+        return bulkMetrics.getMaxBatchLatencyMillis();
+    }
+
     @Override
     public void removeAll() throws IOException, SolrServerException {
         client.deleteByQuery("*:*");
@@ -375,11 +422,12 @@ public CacheSolrMetacardClient(SolrClient client, FilterAdapter catalogFilterAda
         }
 
         @Override
-        public MetacardImpl createMetacard(SolrDocument doc) throws MetacardCreationException {
-            MetacardImpl metacard = super.createMetacard(doc);
+        public SolrDocumentMetacard createMetacard(SolrDocument doc)
+                throws MetacardCreationException {
+            SolrDocumentMetacard metacard = super.createMetacard(doc);
 
             metacard.setSourceId(getMetacardSource(doc));
-            metacard.setId(getMetacardId(doc));
+            metacard.setAttribute(new AttributeImpl(Metacard.ID, getMetacardId(doc)));
 
             return metacard;
         }
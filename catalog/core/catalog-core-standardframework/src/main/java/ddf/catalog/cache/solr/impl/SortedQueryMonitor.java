@@ -74,6 +74,10 @@ class SortedQueryMonitor implements Runnable {
 
     private long deadline;
 
+    private final Comparator<Result> comparator;
+
+    private final List<Result> resultList = new ArrayList<>();
+
     public SortedQueryMonitor(CachingFederationStrategy cachingFederationStrategy,
             CompletionService<SourceResponse> completionService,
             Map<Future<SourceResponse>, QueryRequest> futures, QueryResponseImpl returnResults,
@@ -86,11 +90,10 @@ public SortedQueryMonitor(CachingFederationStrategy cachingFederationStrategy,
         this.futures = futures;
         this.postQuery = postQuery;
         deadline = System.currentTimeMillis() + query.getTimeoutMillis();
+        comparator = createComparator(query.getSortBy());
     }
 
-    @Override
-    public void run() {
-        SortBy sortBy = query.getSortBy();
+    private static Comparator<Result> createComparator(SortBy sortBy) {
         // Prepare the Comparators that we will use
         Comparator<Result> coreComparator = CachingFederationStrategy.DEFAULT_COMPARATOR;
 
@@ -111,8 +114,12 @@ public void run() {
                 coreComparator = new RelevanceResultComparator(sortOrder);
             }
         }
+        return coreComparator;
+    }
 
-        List<Result> resultList = new ArrayList<>();
+    @Override
+    public void run() {
+        int resultCount = 0;
         long totalHits = 0;
         Set<ProcessingDetails> processingDetails = returnResults.getProcessingDetails();
 
@@ -150,7 +157,9 @@ public void run() {
                 } else {
                     sourceResponse = executePostFederationQueryPlugins(sourceResponse,
                             queryRequest);
-                    resultList.addAll(sourceResponse.getResults());
+                    List<Result> sourceResults = sourceResponse.getResults();
+                    collectResults(sourceResults);
+                    resultCount += sourceResults.size();
                     long hits = sourceResponse.getHits();
                     totalHits += hits;
                     hitsPerSource.merge(sourceId, hits, (l1, l2) -> l1 + l2);
@@ -183,7 +192,7 @@ public void run() {
             }
         }
         returnProperties.put("hitsPerSource", hitsPerSource);
-        LOGGER.debug("All sources finished returning results: {}", resultList.size());
+        LOGGER.debug("All sources finished returning results: {}", resultCount);
 
         returnResults.setHits(totalHits);
         if (CachingFederationStrategy.INDEX_QUERY_MODE.equals(request.getPropertyValue(
@@ -191,17 +200,41 @@ public void run() {
             QueryResponse result = cachingFederationStrategy.queryCache(request);
             returnResults.addResults(result.getResults(), true);
         } else {
-            returnResults.addResults(sortedResults(resultList, coreComparator), true);
+            returnResults.addResults(getPageResults(), true);
         }
     }
 
+    /**
+     * Collects the results of a single source once its post-federated query plugins have run.
+     * Sources are handed to this method in the order they complete.
+     *
+     * @param sourceResults the results returned by one source
+     */
+    void collectResults(List<Result> sourceResults) {
+        resultList.addAll(sourceResults);
+    }
+
+    /**
+     * Returns the sorted page of results once every source has completed, failed or timed out.
+     *
+     * @return the results to publish, best result first
+     */
+    List<Result> getPageResults() {
+        return sortedResults(resultList, comparator);
+    }
+
+    Comparator<Result> getComparator() {
+        return comparator;
+    }
+
+    int getMaxResults() {
+        return query.getPageSize() > 0 ? query.getPageSize() : Integer.MAX_VALUE;
+    }
+
     List<Result> sortedResults(List<Result> results, Comparator<? super Result> comparator) {
         Collections.sort(results, comparator);
 
-        int maxResults = Integer.MAX_VALUE;
-        if (query.getPageSize() > 0) {
-            maxResults = query.getPageSize();
-        }
+        int maxResults = getMaxResults();
 
         return results.size() > maxResults ? results.subList(0, maxResults) : results;
     }
@@ -48,6 +48,7 @@
 import ddf.catalog.source.ConnectedSource;
 import ddf.catalog.source.FederatedSource;
 import ddf.catalog.util.impl.SourcePoller;
+import ddf.metrics.collector.histogram.LatencyMetrics;
 import ddf.mime.MimeTypeMapper;
 import ddf.mime.MimeTypeToTransformerMapper;
 
@@ -121,6 +122,8 @@ public class FrameworkProperties {
 
     private List<AttributeInjector> attributeInjectors = new ArrayList<>();
 
+    private LatencyMetrics latencyMetrics = new LatencyMetrics("ddf.metrics.latency.catalog");
+
     public List<CatalogProvider> getCatalogProviders() {
         return catalogProviders;
     }
@@ -383,4 +386,12 @@ public void setAttributeInjectors(List<AttributeInjector> attributeInjectors) {
     public List<AttributeInjector> getAttributeInjectors() {
         return attributeInjectors;
     }
+
+    public void setLatencyMetrics(LatencyMetrics latencyMetrics) {
+        this.latencyMetrics = latencyMetrics;
+    }
+
+    public LatencyMetrics getLatencyMetrics() {
+        return latencyMetrics;
+    }
 }
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * Inspects content while it is copied during ingest, so it only has to be read once.
+ * <p>
+ * Every byte read through this stream updates the content's size and checksums, and the first
+ * {@code headLimit} bytes are kept in memory. The head serves mime type detection and, through
+ * {@link #openStream(Path)}, the start of every later read of the copied content, which is then
+ * only read from disk past the head, or not at all for content that fits in the head.
+ * <p>
+ * ContentTeeInputStream is not thread-safe.
+ */
+class ContentTeeInputStream extends FilterInputStream {
+
+    private static final String ADLER32 = "Adler32";
+
+    private static final String CRC32 = "CRC32";
+
+    private final Map<String, Checksum> checksums = new LinkedHashMap<>();
+
+    private final Map<String, MessageDigest> digests = new LinkedHashMap<>();
+
+    private final byte[] head;
+
+    private int headLength;
+
+    private long size;
+
+    /**
+     * @param in                 the content to inspect
+     * @param headLimit          the number of bytes at the start of the content to keep
+     * @param checksumAlgorithms the checksums to calculate: {@code Adler32}, {@code CRC32} or the
+     *                           name of a {@link MessageDigest} algorithm
+     * @throws NoSuchAlgorithmException if a checksum algorithm is not supported
+     */
+    ContentTeeInputStream(InputStream in, int headLimit, Iterable<String> checksumAlgorithms)
+            throws NoSuchAlgorithmException {
+        super(in);
+        this.head = new byte[headLimit];
+        for (String algorithm : checksumAlgorithms) {
+            if (ADLER32.equalsIgnoreCase(algorithm)) {
+                checksums.put(algorithm, new Adler32());
+            } else if (CRC32.equalsIgnoreCase(algorithm)) {
+                checksums.put(algorithm, new CRC32());
+            } else {
+                digests.put(algorithm, MessageDigest.getInstance(algorithm));
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            update(new byte[] {(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int count = super.read(b, off, len);
+        if (count > 0) {
+            update(b, off, count);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes have to be inspected too
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (count == -1) {
+                break;
+            }
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // not supported, since re-read bytes would be inspected twice
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * @return the number of bytes read
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the bytes kept from the start of the content
+     */
+    byte[] getHead() {
+        return Arrays.copyOf(head, headLength);
+    }
+
+    /**
+     * @return {@code true} if every byte read is in the head
+     */
+    boolean isHeadComplete() {
+        return size == headLength;
+    }
+
+    /**
+     * @return the checksums of the bytes read, as lower case hexadecimal strings keyed by
+     * algorithm
+     */
+    HashMap<String, String> getChecksums() {
+        HashMap<String, String> values = new HashMap<>();
+        checksums.forEach((algorithm, checksum) -> values.put(algorithm,
+                Long.toHexString(checksum.getValue())));
+        digests.forEach((algorithm, digest) -> values.put(algorithm, toHex(digest.digest())));
+        return values;
+    }
+
+    /**
+     * Opens the content that was copied to a file from this stream, reading the head from memory.
+     *
+     * @param copy the file holding a copy of all bytes read from this stream
+     * @return the content
+     * @throws IOException if the file cannot be opened
+     */
+    InputStream openStream(Path copy) throws IOException {
+        InputStream headStream = new ByteArrayInputStream(head, 0, headLength);
+        if (isHeadComplete()) {
+            return headStream;
+        }
+
+        FileChannel channel = FileChannel.open(copy);
+        try {
+            channel.position(headLength);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new SequenceInputStream(headStream, Channels.newInputStream(channel));
+    }
+
+    private void update(byte[] b, int off, int len) {
+        size += len;
+
+        if (headLength < head.length) {
+            int count = Math.min(len, head.length - headLength);
+            System.arraycopy(b, off, head, headLength, count);
+            headLength += count;
+        }
+
+        for (Checksum checksum : checksums.values()) {
+            checksum.update(b, off, len);
+        }
+        for (MessageDigest digest : digests.values()) {
+            digest.update(b, off, len);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
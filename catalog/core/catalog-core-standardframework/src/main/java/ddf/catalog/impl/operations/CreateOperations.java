@@ -13,6 +13,8 @@
  */
 package ddf.catalog.impl.operations;
 
+import static ddf.catalog.Constants.CONTENT_CHECKSUMS;
+import static ddf.catalog.Constants.CONTENT_MIME_HINTS;
 import static ddf.catalog.Constants.CONTENT_PATHS;
 
 import java.io.IOException;
@@ -76,6 +78,7 @@
 import ddf.catalog.source.InternalIngestException;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.util.impl.Requests;
+import ddf.metrics.collector.histogram.StageTimer;
 
 /**
  * Support class for create delegate operations for the {@code CatalogFrameworkImpl}.
@@ -92,6 +95,8 @@ public class CreateOperations {
 
     private static final String PRE_INGEST_ERROR = "Error during pre-ingest:\n\n";
 
+    private static final String CREATE_OPERATION = "create";
+
     // Inject properties
     private final FrameworkProperties frameworkProperties;
 
@@ -107,6 +112,8 @@ public class CreateOperations {
 
     private final OperationsStorageSupport opsStorageSupport;
 
+    private PostIngestPluginExecutor postIngestExecutor;
+
     public CreateOperations(FrameworkProperties frameworkProperties,
             QueryOperations queryOperations, SourceOperations sourceOperations,
             OperationsSecuritySupport opsSecuritySupport,
@@ -122,14 +129,25 @@ public CreateOperations(FrameworkProperties frameworkProperties,
         this.opsStorageSupport = opsStorageSupport;
     }
 
+    public void setPostIngestExecutor(PostIngestPluginExecutor postIngestExecutor) {
+        this.postIngestExecutor = postIngestExecutor;
+    }
+
     //
     // Delegate methods
     //
     public CreateResponse create(CreateRequest createRequest)
             throws IngestException, SourceUnavailableException {
-        CreateResponse createResponse = doCreate(createRequest);
-        createResponse = doPostIngest(createResponse);
-        return createResponse;
+        StageTimer stageTimer = frameworkProperties.getLatencyMetrics()
+                .time(CREATE_OPERATION);
+        try {
+            CreateResponse createResponse = doCreate(createRequest, stageTimer);
+            createResponse = doPostIngest(createResponse);
+            stageTimer.stage("postIngestPlugins");
+            return createResponse;
+        } finally {
+            stageTimer.stop();
+        }
     }
 
     public CreateResponse create(CreateStorageRequest streamCreateRequest,
@@ -139,89 +157,108 @@ public CreateResponse create(CreateStorageRequest streamCreateRequest,
                 .size());
         HashMap<String, Path> tmpContentPaths = new HashMap<>(streamCreateRequest.getContentItems()
                 .size());
+        HashMap<String, HashMap<String, String>> contentChecksums = new HashMap<>();
+        HashMap<String, String> contentMimeHints = new HashMap<>();
         CreateResponse createResponse = null;
         CreateStorageRequest createStorageRequest = null;
         CreateStorageResponse createStorageResponse;
+        StageTimer stageTimer = frameworkProperties.getLatencyMetrics()
+                .time(CREATE_OPERATION);
 
-        streamCreateRequest = opsStorageSupport.prepareStorageRequest(streamCreateRequest,
-                streamCreateRequest::getContentItems);
-
-        // Operation populates the metacardMap, contentItems, and tmpContentPaths
-        opsMetacardSupport.generateMetacardAndContentItems(streamCreateRequest.getContentItems(),
-                retrieveSubject(),
-                metacardMap,
-                contentItems,
-                tmpContentPaths);
-
-        if (blockCreateMetacards(metacardMap.values(), fanoutTagBlacklist)) {
-            String message =
-                    "Fanout proxy does not support create operations with blacklisted metacard tag";
-            LOGGER.debug("{}. Tags blacklist: {}", message, fanoutTagBlacklist);
-            throw new IngestException(message);
-        }
+        try {
+            streamCreateRequest = opsStorageSupport.prepareStorageRequest(streamCreateRequest,
+                    streamCreateRequest::getContentItems);
+
+            // Operation populates the metacardMap, contentItems, and tmpContentPaths
+            opsMetacardSupport.generateMetacardAndContentItems(
+                    streamCreateRequest.getContentItems(),
+                    retrieveSubject(),
+                    metacardMap,
+                    contentItems,
+                    tmpContentPaths,
+                    contentChecksums,
+                    contentMimeHints);
+
+            if (blockCreateMetacards(metacardMap.values(), fanoutTagBlacklist)) {
+                String message = "Fanout proxy does not support create operations with "
+                        + "blacklisted metacard tag";
+                LOGGER.debug("{}. Tags blacklist: {}", message, fanoutTagBlacklist);
+                throw new IngestException(message);
+            }
 
-        streamCreateRequest.getProperties()
-                .put(CONTENT_PATHS, tmpContentPaths);
+            streamCreateRequest.getProperties()
+                    .put(CONTENT_PATHS, tmpContentPaths);
+            streamCreateRequest.getProperties()
+                    .put(CONTENT_CHECKSUMS, contentChecksums);
+            streamCreateRequest.getProperties()
+                    .put(CONTENT_MIME_HINTS, contentMimeHints);
 
-        injectAttributes(metacardMap);
-        setDefaultValues(metacardMap);
-        streamCreateRequest = applyAttributeOverrides(streamCreateRequest, metacardMap);
+            injectAttributes(metacardMap);
+            setDefaultValues(metacardMap);
+            streamCreateRequest = applyAttributeOverrides(streamCreateRequest, metacardMap);
 
-        try {
-            if (!contentItems.isEmpty()) {
-                createStorageRequest = new CreateStorageRequestImpl(contentItems,
-                        streamCreateRequest.getId(),
-                        streamCreateRequest.getProperties());
-                createStorageRequest = processPreCreateStoragePlugins(createStorageRequest);
-
-                try {
-                    createStorageResponse = sourceOperations.getStorage()
-                            .create(createStorageRequest);
-                    createStorageResponse.getProperties()
-                            .put(CONTENT_PATHS, tmpContentPaths);
-                } catch (StorageException e) {
-                    throw new IngestException("Could not store content items.", e);
+            try {
+                if (!contentItems.isEmpty()) {
+                    createStorageRequest = new CreateStorageRequestImpl(contentItems,
+                            streamCreateRequest.getId(),
+                            streamCreateRequest.getProperties());
+                    createStorageRequest = processPreCreateStoragePlugins(createStorageRequest,
+                            contentChecksums,
+                            contentMimeHints);
+
+                    try {
+                        createStorageResponse = sourceOperations.getStorage()
+                                .create(createStorageRequest);
+                        createStorageResponse.getProperties()
+                                .put(CONTENT_PATHS, tmpContentPaths);
+                    } catch (StorageException e) {
+                        throw new IngestException("Could not store content items.", e);
+                    }
+
+                    createStorageResponse = processPostCreateStoragePlugins(createStorageResponse);
+
+                    populateMetacardMap(metacardMap, createStorageResponse);
                 }
 
-                createStorageResponse = processPostCreateStoragePlugins(createStorageResponse);
+                CreateRequest createRequest =
+                        new CreateRequestImpl(new ArrayList<>(metacardMap.values()),
+                                Optional.ofNullable(createStorageRequest)
+                                        .map(StorageRequest::getProperties)
+                                        .orElseGet(HashMap::new));
+
+                stageTimer.stage("contentStorage");
+                createResponse = doCreate(createRequest, stageTimer);
+            } catch (IOException | RuntimeException e) {
+                if (createStorageRequest != null) {
+                    try {
+                        sourceOperations.getStorage()
+                                .rollback(createStorageRequest);
+                    } catch (StorageException e1) {
+                        LOGGER.info("Unable to remove temporary content for id: {}",
+                                createStorageRequest.getId(),
+                                e1);
+                    }
+                }
+                throw new IngestException(
+                        "Unable to store products for request: " + streamCreateRequest.getId(), e);
 
-                populateMetacardMap(metacardMap, createStorageResponse);
+            } finally {
+                opsStorageSupport.commitAndCleanup(createStorageRequest, tmpContentPaths);
             }
 
-            CreateRequest createRequest =
-                    new CreateRequestImpl(new ArrayList<>(metacardMap.values()),
-                            Optional.ofNullable(createStorageRequest)
-                                    .map(StorageRequest::getProperties)
-                                    .orElseGet(HashMap::new));
-
-            createResponse = doCreate(createRequest);
-        } catch (IOException | RuntimeException e) {
-            if (createStorageRequest != null) {
-                try {
-                    sourceOperations.getStorage()
-                            .rollback(createStorageRequest);
-                } catch (StorageException e1) {
-                    LOGGER.info("Unable to remove temporary content for id: {}",
-                            createStorageRequest.getId(),
-                            e1);
-                }
-            }
-            throw new IngestException(
-                    "Unable to store products for request: " + streamCreateRequest.getId(), e);
+            createResponse = doPostIngest(createResponse);
+            stageTimer.stage("postIngestPlugins");
 
+            return createResponse;
         } finally {
-            opsStorageSupport.commitAndCleanup(createStorageRequest, tmpContentPaths);
+            stageTimer.stop();
         }
-
-        createResponse = doPostIngest(createResponse);
-
-        return createResponse;
     }
 
     //
     // Private helper methods
     //
-    private CreateResponse doCreate(CreateRequest createRequest)
+    private CreateResponse doCreate(CreateRequest createRequest, StageTimer stageTimer)
             throws IngestException, SourceUnavailableException {
         CreateResponse createResponse = null;
 
@@ -230,13 +267,16 @@ private CreateResponse doCreate(CreateRequest createRequest)
         createRequest = queryOperations.setFlagsOnRequest(createRequest);
         createRequest = validateCreateRequest(createRequest);
         createRequest = validateLocalSource(createRequest);
+        stageTimer.stage("validation");
 
         try {
             createRequest = injectAttributes(createRequest);
             createRequest = setDefaultValues(createRequest);
+            stageTimer.stage("attributeInjection");
             createRequest = processPreAuthorizationPlugins(createRequest);
             createRequest = updateCreateRequestPolicyMap(createRequest);
             createRequest = processPrecreateAccessPlugins(createRequest);
+            stageTimer.stage("authorization");
 
             createRequest.getProperties()
                     .put(Constants.OPERATION_TRANSACTION_KEY,
@@ -245,8 +285,10 @@ private CreateResponse doCreate(CreateRequest createRequest)
 
             createRequest = processPreIngestPlugins(createRequest);
             createRequest = validateCreateRequest(createRequest);
+            stageTimer.stage("preIngestPlugins");
             createResponse = getCreateResponse(createRequest);
             createResponse = performRemoteCreate(createRequest, createResponse);
+            stageTimer.stage("ingest");
 
         } catch (IngestException iee) {
             INGEST_LOGGER.debug("Ingest error", iee);
@@ -276,6 +318,7 @@ private CreateResponse doCreate(CreateRequest createRequest)
                     "Exception during runtime while performing doing post create operations (plugins and pubsub)",
                     re);
         }
+        stageTimer.stage("responseValidation");
 
         return createResponse;
     }
@@ -533,6 +576,20 @@ private CreateResponse validateFixCreateResponse(CreateResponse createResponse,
     }
 
     private CreateResponse processPostIngestPlugins(CreateResponse createResponse) {
+        if (postIngestExecutor != null) {
+            if (createResponse != null) {
+                postIngestExecutor.execute(frameworkProperties.getPostIngest(),
+                        createResponse,
+                        createResponse.getCreatedMetacards()
+                                .stream()
+                                .filter(Objects::nonNull)
+                                .map(Metacard::getId)
+                                .collect(Collectors.toSet()),
+                        PostIngestPlugin::process);
+            }
+            return createResponse;
+        }
+
         for (final PostIngestPlugin plugin : frameworkProperties.getPostIngest()) {
             try {
                 createResponse = plugin.process(createResponse);
@@ -687,7 +744,11 @@ private CreateStorageResponse processPostCreateStoragePlugins(
     }
 
     private CreateStorageRequest processPreCreateStoragePlugins(
-            CreateStorageRequest createStorageRequest) {
+            CreateStorageRequest createStorageRequest,
+            Map<String, HashMap<String, String>> contentChecksums,
+            Map<String, String> contentMimeHints) {
+        List<ContentItem> generatedContentItems = 
+                new ArrayList<>(createStorageRequest.getContentItems());
         for (final PreCreateStoragePlugin plugin : frameworkProperties.getPreCreateStoragePlugins()) {
             try {
                 createStorageRequest = plugin.process(createStorageRequest);
@@ -695,6 +756,10 @@ private CreateStorageRequest processPreCreateStoragePlugins(
                 LOGGER.debug("Plugin processing failed. This is allowable. Skipping to next plugin.",
                         e);
             }
+            OperationsMetacardSupport.removeReplacedContentHints(generatedContentItems,
+                    createStorageRequest.getContentItems(),
+                    contentChecksums,
+                    contentMimeHints);
         }
         return createStorageRequest;
     }
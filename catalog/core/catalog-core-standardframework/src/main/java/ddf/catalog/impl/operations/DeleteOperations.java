@@ -68,6 +68,7 @@
 import ddf.catalog.source.InternalIngestException;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.util.impl.Requests;
+import ddf.metrics.collector.histogram.StageTimer;
 
 /**
  * Support class for delete delegate operations for the {@code CatalogFrameworkImpl}.
@@ -84,6 +85,8 @@ public class DeleteOperations {
 
     private static final String PRE_INGEST_ERROR = "Error during pre-ingest:\n\n";
 
+    private static final String DELETE_OPERATION = "delete";
+
     // Inject properties
     private final FrameworkProperties frameworkProperties;
 
@@ -99,6 +102,8 @@ public class DeleteOperations {
 
     private Historian historian;
 
+    private PostIngestPluginExecutor postIngestExecutor;
+
     public DeleteOperations(FrameworkProperties frameworkProperties,
             QueryOperations queryOperations, SourceOperations sourceOperations,
             OperationsSecuritySupport opsSecuritySupport,
@@ -116,6 +121,10 @@ public void setHistorian(Historian historian) {
         this.historian = historian;
     }
 
+    public void setPostIngestExecutor(PostIngestPluginExecutor postIngestExecutor) {
+        this.postIngestExecutor = postIngestExecutor;
+    }
+
     //
     // Delegate methods
     //
@@ -144,61 +153,76 @@ public DeleteResponse doDelete(DeleteRequest deleteRequest, List<String> fanoutT
         DeleteStorageRequest deleteStorageRequest = null;
 
         DeleteResponse deleteResponse = null;
-
-        deleteRequest = queryOperations.setFlagsOnRequest(deleteRequest);
-        deleteRequest = validateDeleteRequest(deleteRequest);
-        deleteRequest = validateLocalSource(deleteRequest);
+        StageTimer stageTimer = frameworkProperties.getLatencyMetrics()
+                .time(DELETE_OPERATION);
 
         try {
-            deleteRequest = populateMetacards(deleteRequest, fanoutTagBlacklist);
-            deleteRequest = preProcessPreAuthorizationPlugins(deleteRequest);
-
-            deleteStorageRequest = new DeleteStorageRequestImpl(getDeleteMetacards(deleteRequest),
-                    deleteRequest.getProperties());
-
-            deleteRequest = processPreDeletePolicyPlugins(deleteRequest);
-            deleteRequest = processPreDeleteAccessPlugins(deleteRequest);
-
-            deleteRequest = processPreIngestPlugins(deleteRequest);
+            deleteRequest = queryOperations.setFlagsOnRequest(deleteRequest);
             deleteRequest = validateDeleteRequest(deleteRequest);
+            deleteRequest = validateLocalSource(deleteRequest);
+            stageTimer.stage("validation");
 
-            // Call the Provider delete method
-            LOGGER.debug("Calling catalog.delete() with {} entries.",
-                    deleteRequest.getAttributeValues()
-                            .size());
-
-            deleteResponse = performLocalDelete(deleteRequest, deleteStorageRequest);
-            deleteResponse = performRemoteDelete(deleteRequest, deleteResponse);
-
-            deleteResponse = postProcessPreAuthorizationPlugins(deleteResponse);
-            deleteRequest = populateDeleteRequestPolicyMap(deleteRequest, deleteResponse);
-            deleteResponse = processPostDeleteAccessPlugins(deleteResponse);
-
-            // Post results to be available for pubsub
-            deleteResponse = validateFixDeleteResponse(deleteResponse, deleteRequest);
-
-        } catch (StopProcessingException see) {
-            LOGGER.debug(PRE_INGEST_ERROR + see.getMessage(), see);
-            throw new IngestException(PRE_INGEST_ERROR + see.getMessage());
-
-        } catch (RuntimeException re) {
-            LOGGER.info("Exception during runtime while performing delete", re);
-            throw new InternalIngestException("Exception during runtime while performing delete");
-
-        } finally {
-            if (deleteStorageRequest != null) {
-                try {
-                    sourceOperations.getStorage()
-                            .commit(deleteStorageRequest);
-                } catch (StorageException e) {
-                    LOGGER.info("Unable to remove stored content items.", e);
+            try {
+                deleteRequest = populateMetacards(deleteRequest, fanoutTagBlacklist);
+                stageTimer.stage("metacardLookup");
+                deleteRequest = preProcessPreAuthorizationPlugins(deleteRequest);
+
+                deleteStorageRequest = new DeleteStorageRequestImpl(getDeleteMetacards(
+                        deleteRequest), deleteRequest.getProperties());
+
+                deleteRequest = processPreDeletePolicyPlugins(deleteRequest);
+                deleteRequest = processPreDeleteAccessPlugins(deleteRequest);
+                stageTimer.stage("authorization");
+
+                deleteRequest = processPreIngestPlugins(deleteRequest);
+                deleteRequest = validateDeleteRequest(deleteRequest);
+                stageTimer.stage("preIngestPlugins");
+
+                // Call the Provider delete method
+                LOGGER.debug("Calling catalog.delete() with {} entries.",
+                        deleteRequest.getAttributeValues()
+                                .size());
+
+                deleteResponse = performLocalDelete(deleteRequest, deleteStorageRequest);
+                deleteResponse = performRemoteDelete(deleteRequest, deleteResponse);
+                stageTimer.stage("ingest");
+
+                deleteResponse = postProcessPreAuthorizationPlugins(deleteResponse);
+                deleteRequest = populateDeleteRequestPolicyMap(deleteRequest, deleteResponse);
+                deleteResponse = processPostDeleteAccessPlugins(deleteResponse);
+                stageTimer.stage("responseAuthorization");
+
+                // Post results to be available for pubsub
+                deleteResponse = validateFixDeleteResponse(deleteResponse, deleteRequest);
+                stageTimer.stage("responseValidation");
+
+            } catch (StopProcessingException see) {
+                LOGGER.debug(PRE_INGEST_ERROR + see.getMessage(), see);
+                throw new IngestException(PRE_INGEST_ERROR + see.getMessage());
+
+            } catch (RuntimeException re) {
+                LOGGER.info("Exception during runtime while performing delete", re);
+                throw new InternalIngestException(
+                        "Exception during runtime while performing delete");
+
+            } finally {
+                if (deleteStorageRequest != null) {
+                    try {
+                        sourceOperations.getStorage()
+                                .commit(deleteStorageRequest);
+                    } catch (StorageException e) {
+                        LOGGER.info("Unable to remove stored content items.", e);
+                    }
                 }
             }
-        }
 
-        deleteResponse = doPostIngest(deleteResponse);
+            deleteResponse = doPostIngest(deleteResponse);
+            stageTimer.stage("postIngestPlugins");
 
-        return deleteResponse;
+            return deleteResponse;
+        } finally {
+            stageTimer.stop();
+        }
     }
 
     private DeleteResponse doPostIngest(DeleteResponse currentDeleteResponse) {
@@ -255,6 +279,21 @@ private String buildDeleteLog(DeleteResponse deleteResponse) {
     }
 
     private DeleteResponse processPostIngestPlugins(DeleteResponse deleteResponse) {
+        if (postIngestExecutor != null) {
+            if (deleteResponse != null) {
+                postIngestExecutor.execute(frameworkProperties.getPostIngest(),
+                        deleteResponse,
+                        Optional.ofNullable(deleteResponse.getDeletedMetacards())
+                                .orElse(Collections.emptyList())
+                                .stream()
+                                .filter(Objects::nonNull)
+                                .map(Metacard::getId)
+                                .collect(Collectors.toSet()),
+                        PostIngestPlugin::process);
+            }
+            return deleteResponse;
+        }
+
         for (final PostIngestPlugin plugin : frameworkProperties.getPostIngest()) {
             try {
                 deleteResponse = plugin.process(deleteResponse);
@@ -27,6 +27,8 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.io.ByteSource;
+
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.MetacardCreationException;
 import ddf.catalog.data.impl.AttributeImpl;
@@ -57,6 +59,21 @@ public MetacardFactory(MimeTypeToTransformerMapper mimeTypeToTransformerMapper)
 
     Metacard generateMetacard(String mimeTypeRaw, String id, String fileName, Subject subject,
             Path tmpContentPath) throws MetacardCreationException, MimeTypeParseException {
+        return generateMetacard(mimeTypeRaw,
+                id,
+                fileName,
+                subject,
+                com.google.common.io.Files.asByteSource(tmpContentPath.toFile()));
+    }
+
+    /**
+     * Generates a metacard with the first candidate {@link InputTransformer} for the mime type
+     * that can transform the content. Each candidate reads the content from a new stream.
+     *
+     * @param content the content to transform
+     */
+    Metacard generateMetacard(String mimeTypeRaw, String id, String fileName, Subject subject,
+            ByteSource content) throws MetacardCreationException, MimeTypeParseException {
 
         Metacard generatedMetacard = null;
         InputTransformer transformer = null;
@@ -73,9 +90,7 @@ Metacard generateMetacard(String mimeTypeRaw, String id, String fileName, Subjec
             for (InputTransformer candidate : listOfCandidates) {
                 transformer = candidate;
 
-                try (InputStream transformerStream = com.google.common.io.Files.asByteSource(
-                        tmpContentPath.toFile())
-                        .openStream()) {
+                try (InputStream transformerStream = content.openStream()) {
                     generatedMetacard = transformer.transform(transformerStream);
                 }
                 if (generatedMetacard != null) {
@@ -14,6 +14,7 @@
 package ddf.catalog.impl.operations;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -21,8 +22,15 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
@@ -30,11 +38,12 @@
 import org.apache.tika.detect.DefaultProbDetector;
 import org.apache.tika.detect.Detector;
 import org.apache.tika.metadata.Metadata;
-import org.apache.tika.mime.MediaType;
 import org.codice.ddf.platform.util.InputValidation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.io.ByteSource;
+
 import ddf.catalog.content.data.ContentItem;
 import ddf.catalog.content.data.impl.ContentItemImpl;
 import ddf.catalog.data.Attribute;
@@ -59,6 +68,14 @@
 public class OperationsMetacardSupport {
     private static final Logger LOGGER = LoggerFactory.getLogger(OperationsMetacardSupport.class);
 
+    /**
+     * Number of leading bytes of each content item kept in memory during ingest, enough for
+     * magic byte mime type detection and for input transformers probing the content.
+     */
+    private static final int HEAD_BUFFER_SIZE = 64 * 1024;
+
+    private static final String DEFAULT_CHECKSUM_ALGORITHM = "Adler32";
+
     //
     // Injected properties
     //
@@ -66,6 +83,11 @@ public class OperationsMetacardSupport {
 
     private final MetacardFactory metacardFactory;
 
+    private final Detector mimeTypeDetector = new DefaultProbDetector();
+
+    private List<String> checksumAlgorithms =
+            Collections.singletonList(DEFAULT_CHECKSUM_ALGORITHM);
+
     public OperationsMetacardSupport(FrameworkProperties frameworkProperties,
             MetacardFactory metacardFactory) {
         this.frameworkProperties = frameworkProperties;
@@ -90,22 +112,55 @@ Metacard applyInjectors(Metacard original, List<AttributeInjector> injectors) {
     void generateMetacardAndContentItems(List<ContentItem> incomingContentItems, Subject subject,
             Map<String, Metacard> metacardMap, List<ContentItem> contentItems,
             Map<String, Path> tmpContentPaths) throws IngestException {
+        generateMetacardAndContentItems(incomingContentItems,
+                subject,
+                metacardMap,
+                contentItems,
+                tmpContentPaths,
+                new HashMap<>(),
+                new HashMap<>());
+    }
+
+    /**
+     * Copies the incoming content items to temporary files, generates their metacards and creates
+     * the content items to store. Each item's content is read from its incoming stream exactly
+     * once; its size, checksums and leading bytes are gathered during the copy, so mime type
+     * detection and metacard generation read the start of the content from memory.
+     *
+     * @param incomingContentItems the content items of the request
+     * @param subject              the subject of the request
+     * @param metacardMap          populated with the generated metacards by ID
+     * @param contentItems         populated with the content items to store
+     * @param tmpContentPaths      populated with the temporary file of each incoming item by ID
+     * @param contentChecksums     populated with the checksums of each content item to store by
+     *                             URI, as a map of algorithm to value
+     * @param contentMimeHints     populated with the mime type detected from the leading bytes of
+     *                             each content item to store by URI
+     * @throws IngestException if an item cannot be copied or its metacard cannot be generated
+     */
+    void generateMetacardAndContentItems(List<ContentItem> incomingContentItems, Subject subject,
+            Map<String, Metacard> metacardMap, List<ContentItem> contentItems,
+            Map<String, Path> tmpContentPaths,
+            Map<String, HashMap<String, String>> contentChecksums,
+            Map<String, String> contentMimeHints) throws IngestException {
         for (ContentItem contentItem : incomingContentItems) {
             try {
                 Path tmpPath = null;
-                long size;
+                ContentTeeInputStream teeStream;
                 try (InputStream inputStream = contentItem.getInputStream()) {
                     if (inputStream == null) {
                         throw new IngestException(
                                 "Could not copy bytes of content message.  Message was NULL.");
                     }
 
+                    teeStream = new ContentTeeInputStream(inputStream,
+                            HEAD_BUFFER_SIZE,
+                            checksumAlgorithms);
                     String sanitizedFilename =
                             InputValidation.sanitizeFilename(contentItem.getFilename());
                     tmpPath = Files.createTempFile(FilenameUtils.getBaseName(sanitizedFilename),
                             FilenameUtils.getExtension(sanitizedFilename));
-                    Files.copy(inputStream, tmpPath, StandardCopyOption.REPLACE_EXISTING);
-                    size = Files.size(tmpPath);
+                    Files.copy(teeStream, tmpPath, StandardCopyOption.REPLACE_EXISTING);
                     tmpContentPaths.put(contentItem.getId(), tmpPath);
                 } catch (IOException e) {
                     if (tmpPath != null) {
@@ -113,8 +168,14 @@ void generateMetacardAndContentItems(List<ContentItem> incomingContentItems, Sub
                     }
                     throw new IngestException("Could not copy bytes of content message.", e);
                 }
+                ByteSource content = asByteSource(teeStream, tmpPath);
+                String mimeTypeHint = detectMimeType(teeStream.getHead());
+
                 String mimeTypeRaw = contentItem.getMimeTypeRawData();
-                mimeTypeRaw = guessMimeType(mimeTypeRaw, contentItem.getFilename(), tmpPath);
+                mimeTypeRaw = guessMimeType(mimeTypeRaw,
+                        contentItem.getFilename(),
+                        content,
+                        mimeTypeHint);
 
                 if (!InputValidation.checkForClientSideVulnerableMimeType(mimeTypeRaw)) {
                     throw new IngestException("Unsupported mime type.");
@@ -125,16 +186,20 @@ void generateMetacardAndContentItems(List<ContentItem> incomingContentItems, Sub
                         contentItem.getId(),
                         fileName,
                         subject,
-                        tmpPath);
+                        content);
                 metacardMap.put(metacard.getId(), metacard);
 
                 ContentItem generatedContentItem = new ContentItemImpl(metacard.getId(),
-                        com.google.common.io.Files.asByteSource(tmpPath.toFile()),
+                        content,
                         mimeTypeRaw,
                         fileName,
-                        size,
+                        teeStream.getSize(),
                         metacard);
                 contentItems.add(generatedContentItem);
+                contentChecksums.put(generatedContentItem.getUri(), teeStream.getChecksums());
+                if (mimeTypeHint != null) {
+                    contentMimeHints.put(generatedContentItem.getUri(), mimeTypeHint);
+                }
             } catch (Exception e) {
                 tmpContentPaths.values()
                         .forEach(path -> FileUtils.deleteQuietly(path.toFile()));
@@ -144,6 +209,54 @@ void generateMetacardAndContentItems(List<ContentItem> incomingContentItems, Sub
         }
     }
 
+    /**
+     * Removes the checksums and mime type hints gathered while content was copied for content
+     * items that a storage plugin replaced, so that later plugins, e.g. the checksum plugin,
+     * inspect the new content instead of reusing values of the content it replaced.
+     *
+     * @param generatedContentItems the content items created by
+     *                              {@link #generateMetacardAndContentItems}
+     * @param contentItems          the content items of the storage request after a plugin ran
+     * @param contentChecksums      the checksums of the generated content items by URI
+     * @param contentMimeHints      the mime type hints of the generated content items by URI
+     */
+    static void removeReplacedContentHints(List<ContentItem> generatedContentItems,
+            List<ContentItem> contentItems,
+            Map<String, HashMap<String, String>> contentChecksums,
+            Map<String, String> contentMimeHints) {
+        if (contentChecksums.isEmpty() && contentMimeHints.isEmpty()) {
+            return;
+        }
+
+        Set<ContentItem> generated = Collections.newSetFromMap(new IdentityHashMap<>());
+        generated.addAll(generatedContentItems);
+        Set<String> unchangedUris = new HashSet<>();
+        Set<String> replacedUris = new HashSet<>();
+        for (ContentItem contentItem : contentItems) {
+            if (generated.contains(contentItem)) {
+                unchangedUris.add(contentItem.getUri());
+            } else {
+                replacedUris.add(contentItem.getUri());
+            }
+        }
+        unchangedUris.removeAll(replacedUris);
+
+        contentChecksums.keySet()
+                .retainAll(unchangedUris);
+        contentMimeHints.keySet()
+                .retainAll(unchangedUris);
+    }
+
+    /**
+     * Sets the checksums calculated while content is copied. {@code Adler32} and {@code CRC32}
+     * values are formatted like {@link Long#toHexString(long)}; other algorithms are
+     * {@link MessageDigest} algorithms with lower case hexadecimal values.
+     *
+     * @param checksumAlgorithms the names of the checksum algorithms
+     */
+    void setChecksumAlgorithms(List<String> checksumAlgorithms) {
+        this.checksumAlgorithms = new ArrayList<>(checksumAlgorithms);
+    }
 
     /**
      * Updates any empty metacard attributes with those defined in the
@@ -190,12 +303,34 @@ private String updateFileExtension(String mimeTypeRaw, String fileName) {
         return fileName;
     }
 
-    private String guessMimeType(String mimeTypeRaw, String fileName, Path tmpContentPath)
-            throws IOException {
+    private ByteSource asByteSource(ContentTeeInputStream teeStream, Path tmpContentPath) {
+        return new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                return teeStream.openStream(tmpContentPath);
+            }
+
+            @Override
+            public long size() {
+                return teeStream.getSize();
+            }
+        };
+    }
+
+    private String detectMimeType(byte[] head) {
+        try (InputStream headStream = new ByteArrayInputStream(head)) {
+            return mimeTypeDetector.detect(headStream, new Metadata())
+                    .toString();
+        } catch (IOException e) {
+            LOGGER.debug("Unable to detect mime type from content.", e);
+            return null;
+        }
+    }
+
+    private String guessMimeType(String mimeTypeRaw, String fileName, ByteSource content,
+            String mimeTypeHint) throws IOException {
         if (ContentItem.DEFAULT_MIME_TYPE.equals(mimeTypeRaw)) {
-            try (InputStream inputStreamMessageCopy = com.google.common.io.Files.asByteSource(
-                    tmpContentPath.toFile())
-                    .openStream()) {
+            try (InputStream inputStreamMessageCopy = content.openStream()) {
                 String mimeTypeGuess = frameworkProperties.getMimeTypeMapper()
                         .guessMimeType(inputStreamMessageCopy,
                                 FilenameUtils.getExtension(fileName));
@@ -205,21 +340,11 @@ private String guessMimeType(String mimeTypeRaw, String fileName, Path tmpConten
             } catch (MimeTypeResolutionException e) {
                 LOGGER.debug("Unable to guess mime type for file.", e);
             }
-            if (ContentItem.DEFAULT_MIME_TYPE.equals(mimeTypeRaw)) {
-                Detector detector = new DefaultProbDetector();
-                try (InputStream inputStreamMessageCopy = com.google.common.io.Files.asByteSource(
-                        tmpContentPath.toFile())
-                        .openStream()) {
-                    MediaType mediaType = detector.detect(inputStreamMessageCopy, new Metadata());
-                    mimeTypeRaw = mediaType.toString();
-                } catch (IOException e) {
-                    LOGGER.debug("Unable to guess mime type for file.", e);
-                }
+            if (ContentItem.DEFAULT_MIME_TYPE.equals(mimeTypeRaw) && mimeTypeHint != null) {
+                mimeTypeRaw = mimeTypeHint;
             }
             if (mimeTypeRaw.equals("text/plain")) {
-                try (InputStream inputStreamMessageCopy = com.google.common.io.Files.asByteSource(
-                        tmpContentPath.toFile())
-                        .openStream();
+                try (InputStream inputStreamMessageCopy = content.openStream();
                         BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(
                                 inputStreamMessageCopy,
                                 Charset.forName("UTF-8")))) {
@@ -0,0 +1,282 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.plugin.PluginExecutionException;
+import ddf.catalog.plugin.PostIngestPlugin;
+
+/**
+ * Runs the {@link PostIngestPlugin}s of create, update and delete operations on a bounded worker
+ * pool, so that the operations return without waiting for them.
+ * <p>
+ * The plugins for one response run one at a time, in their configured order, and a plugin that
+ * fails does not keep the plugins after it from running. Responses that share a metacard are
+ * processed in the order they were submitted. When {@code queueSize} responses are waiting or
+ * being processed, submitting another one blocks until one of them completes. A response
+ * submitted by a plugin running on the pool, for example a plugin that ingests metacards, is
+ * processed on that worker thread instead, since waiting for room in the queue from a worker could
+ * wait forever. On {@link #destroy()}, the responses already submitted are processed before the
+ * pool shuts down.
+ * <p>
+ * Setting {@code poolSize} to 0 runs the plugins on the calling thread.
+ */
+public class PostIngestPluginExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostIngestPluginExecutor.class);
+
+    private static final int DEFAULT_POOL_SIZE = 4;
+
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    private static final long DEFAULT_SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final ThreadLocal<Boolean> WORKER_THREAD = new ThreadLocal<>();
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, CompletableFuture<Void>> lastTasks = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition taskCompleted = lock.newCondition();
+
+    private int pendingTasks;
+
+    private volatile int poolSize = DEFAULT_POOL_SIZE;
+
+    private volatile int queueSize = DEFAULT_QUEUE_SIZE;
+
+    private volatile long shutdownTimeoutSeconds = DEFAULT_SHUTDOWN_TIMEOUT_SECONDS;
+
+    private volatile boolean shutdown;
+
+    public PostIngestPluginExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(DEFAULT_POOL_SIZE,
+                DEFAULT_POOL_SIZE,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "postIngestPlugins-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param poolSize the number of responses processed in parallel, or 0 to run the plugins on
+     *                 the calling thread
+     */
+    public synchronized void setPoolSize(int poolSize) {
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("poolSize must not be negative");
+        }
+        this.poolSize = poolSize;
+        if (poolSize == 0) {
+            return;
+        }
+        if (poolSize > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(poolSize);
+            executor.setCorePoolSize(poolSize);
+        } else {
+            executor.setCorePoolSize(poolSize);
+            executor.setMaximumPoolSize(poolSize);
+        }
+    }
+
+    /**
+     * @param queueSize the number of responses that can be waiting or being processed before
+     *                  submitting another one blocks
+     */
+    public void setQueueSize(int queueSize) {
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("queueSize must be greater than 0");
+        }
+        lock.lock();
+        try {
+            this.queueSize = queueSize;
+            taskCompleted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param shutdownTimeoutSeconds the time {@link #destroy()} waits for the submitted responses
+     *                               to be processed
+     */
+    public void setShutdownTimeoutSeconds(long shutdownTimeoutSeconds) {
+        this.shutdownTimeoutSeconds = Math.max(0, shutdownTimeoutSeconds);
+    }
+
+    /**
+     * Runs {@code plugins} on {@code response}, after the responses submitted earlier for any of
+     * {@code metacardIds} have been processed. The plugins run on the calling thread if the
+     * executor is disabled or shut down, if the calling thread is one of its workers, or if the
+     * calling thread is interrupted while waiting for room in the queue.
+     *
+     * @param plugins     the plugins to run, in order
+     * @param response    the create, update or delete response
+     * @param metacardIds the IDs of the metacards in {@code response}
+     * @param step        calls the plugin method that processes {@code response}
+     */
+    public <T> void execute(List<PostIngestPlugin> plugins, T response,
+            Collection<String> metacardIds, PluginStep<T> step) {
+        List<PostIngestPlugin> orderedPlugins = new ArrayList<>(plugins);
+        Runnable task = () -> process(orderedPlugins, response, step);
+
+        if (poolSize == 0 || WORKER_THREAD.get() != null || !acquire()) {
+            task.run();
+            return;
+        }
+
+        Runnable workerTask = () -> {
+            WORKER_THREAD.set(Boolean.TRUE);
+            try {
+                task.run();
+            } finally {
+                WORKER_THREAD.remove();
+            }
+        };
+        Subject subject = ThreadContext.getSubject();
+        Runnable subjectTask = subject == null ? workerTask : subject.associateWith(workerTask);
+        Set<String> ids = new HashSet<>(metacardIds);
+
+        CompletableFuture<Void> future;
+        synchronized (lastTasks) {
+            CompletableFuture<?>[] previousTasks = ids.stream()
+                    .map(lastTasks::get)
+                    .filter(previousTask -> previousTask != null)
+                    .toArray(CompletableFuture[]::new);
+            future = CompletableFuture.allOf(previousTasks)
+                    .exceptionally(e -> null)
+                    .thenRunAsync(subjectTask, executor);
+            ids.forEach(id -> lastTasks.put(id, future));
+        }
+
+        future.whenComplete((result, e) -> {
+            if (e != null) {
+                LOGGER.info("Could not run post-ingest plugins", e);
+            }
+            ids.forEach(id -> lastTasks.remove(id, future));
+            release();
+        });
+    }
+
+    /**
+     * Stops accepting responses and waits for the submitted ones to be processed.
+     */
+    public void destroy() {
+        lock.lock();
+        try {
+            shutdown = true;
+            long remainingNanos = TimeUnit.SECONDS.toNanos(shutdownTimeoutSeconds);
+            while (pendingTasks > 0 && remainingNanos > 0) {
+                remainingNanos = taskCompleted.awaitNanos(remainingNanos);
+            }
+            if (pendingTasks > 0) {
+                LOGGER.warn("Shutting down with {} responses not processed by post-ingest plugins",
+                        pendingTasks);
+            }
+        } catch (InterruptedException e) {
+            LOGGER.debug("Interrupted waiting for post-ingest plugins", e);
+            Thread.currentThread()
+                    .interrupt();
+        } finally {
+            lock.unlock();
+        }
+        executor.shutdown();
+    }
+
+    private boolean acquire() {
+        lock.lock();
+        try {
+            while (!shutdown && pendingTasks >= queueSize) {
+                LOGGER.debug("Post-ingest plugin queue is full, waiting");
+                taskCompleted.await();
+            }
+            if (shutdown) {
+                return false;
+            }
+            pendingTasks++;
+            return true;
+        } catch (InterruptedException e) {
+            LOGGER.debug("Interrupted waiting for the post-ingest plugin queue", e);
+            Thread.currentThread()
+                    .interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            pendingTasks--;
+            taskCompleted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static <T> void process(List<PostIngestPlugin> plugins, T response,
+            PluginStep<T> step) {
+        T currentResponse = response;
+        for (PostIngestPlugin plugin : plugins) {
+            try {
+                T processedResponse = step.process(plugin, currentResponse);
+                if (processedResponse != null) {
+                    currentResponse = processedResponse;
+                }
+            } catch (PluginExecutionException | RuntimeException e) {
+                LOGGER.info("Plugin processing failed. This is allowable. Skipping to next plugin.",
+                        e);
+            }
+        }
+    }
+
+    /**
+     * Calls the {@link PostIngestPlugin} method that processes a response.
+     */
+    @FunctionalInterface
+    public interface PluginStep<T> {
+        T process(PostIngestPlugin plugin, T response) throws PluginExecutionException;
+    }
+}
@@ -62,6 +62,7 @@
 import ddf.catalog.source.UnsupportedQueryException;
 import ddf.catalog.util.impl.DescribableImpl;
 import ddf.catalog.util.impl.Requests;
+import ddf.metrics.collector.histogram.StageTimer;
 import ddf.security.SecurityConstants;
 import ddf.security.Subject;
 import ddf.security.common.audit.SecurityLogger;
@@ -78,6 +79,8 @@
 public class QueryOperations extends DescribableImpl {
     private static final Logger LOGGER = LoggerFactory.getLogger(QueryOperations.class);
 
+    private static final String QUERY_OPERATION = "query";
+
     // Inject properties
     private final FrameworkProperties frameworkProperties;
 
@@ -131,17 +134,22 @@ QueryResponse query(QueryRequest queryRequest, FederationStrategy strategy,
 
         FederationStrategy fedStrategy = strategy;
         QueryResponse queryResponse;
+        StageTimer stageTimer = frameworkProperties.getLatencyMetrics()
+                .time(QUERY_OPERATION);
 
         queryRequest = setFlagsOnRequest(queryRequest);
 
         try {
             queryRequest = validateQueryRequest(queryRequest);
             queryRequest = getFanoutQuery(queryRequest, fanoutEnabled);
+            stageTimer.stage("validation");
             queryRequest = preProcessPreAuthorizationPlugins(queryRequest);
             queryRequest = populateQueryRequestPolicyMap(queryRequest);
             queryRequest = processPreQueryAccessPlugins(queryRequest);
+            stageTimer.stage("authorization");
             queryRequest = processPreQueryPlugins(queryRequest);
             queryRequest = validateQueryRequest(queryRequest);
+            stageTimer.stage("preQueryPlugins");
 
             if (fedStrategy == null) {
                 if (frameworkProperties.getFederationStrategy() == null) {
@@ -156,18 +164,24 @@ QueryResponse query(QueryRequest queryRequest, FederationStrategy strategy,
             }
 
             queryResponse = doQuery(queryRequest, fedStrategy);
+            stageTimer.stage("federation");
             queryResponse = injectAttributes(queryResponse);
             queryResponse = validateFixQueryResponse(queryResponse,
                     overrideFanoutRename,
                     fanoutEnabled);
+            stageTimer.stage("responseValidation");
             queryResponse = postProcessPreAuthorizationPlugins(queryResponse);
             queryResponse = populateQueryResponsePolicyMap(queryResponse);
             queryResponse = processPostQueryAccessPlugins(queryResponse);
+            stageTimer.stage("responseAuthorization");
             queryResponse = processPostQueryPlugins(queryResponse);
+            stageTimer.stage("postQueryPlugins");
 
         } catch (RuntimeException re) {
             throw new UnsupportedQueryException("Exception during runtime while performing query",
                     re);
+        } finally {
+            stageTimer.stop();
         }
 
         return queryResponse;
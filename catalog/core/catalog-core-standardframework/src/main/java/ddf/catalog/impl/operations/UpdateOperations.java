@@ -13,6 +13,8 @@
  */
 package ddf.catalog.impl.operations;
 
+import static ddf.catalog.Constants.CONTENT_CHECKSUMS;
+import static ddf.catalog.Constants.CONTENT_MIME_HINTS;
 import static ddf.catalog.Constants.CONTENT_PATHS;
 
 import java.io.Serializable;
@@ -78,6 +80,7 @@
 import ddf.catalog.source.InternalIngestException;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.util.impl.Requests;
+import ddf.metrics.collector.histogram.StageTimer;
 import ddf.security.SecurityConstants;
 import ddf.security.Subject;
 
@@ -96,6 +99,8 @@ public class UpdateOperations {
 
     private static final String PRE_INGEST_ERROR = "Error during pre-ingest:\n\n";
 
+    private static final String UPDATE_OPERATION = "update";
+
     // Inject properties
     private final FrameworkProperties frameworkProperties;
 
@@ -113,6 +118,8 @@ public class UpdateOperations {
 
     private Historian historian;
 
+    private PostIngestPluginExecutor postIngestExecutor;
+
     public UpdateOperations(FrameworkProperties frameworkProperties,
             QueryOperations queryOperations, SourceOperations sourceOperations,
             OperationsSecuritySupport opsSecuritySupport,
@@ -132,14 +139,25 @@ public void setHistorian(Historian historian) {
         this.historian = historian;
     }
 
+    public void setPostIngestExecutor(PostIngestPluginExecutor postIngestExecutor) {
+        this.postIngestExecutor = postIngestExecutor;
+    }
+
     //
     // Delegate methods
     //
     public UpdateResponse update(UpdateRequest updateRequest)
             throws IngestException, SourceUnavailableException {
-        UpdateResponse updateResponse = doUpdate(updateRequest);
-        updateResponse = doPostIngest(updateResponse);
-        return updateResponse;
+        StageTimer stageTimer = frameworkProperties.getLatencyMetrics()
+                .time(UPDATE_OPERATION);
+        try {
+            UpdateResponse updateResponse = doUpdate(updateRequest, stageTimer);
+            updateResponse = doPostIngest(updateResponse);
+            stageTimer.stage("postIngestPlugins");
+            return updateResponse;
+        } finally {
+            stageTimer.stop();
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -159,116 +177,142 @@ public UpdateResponse update(UpdateStorageRequest streamUpdateRequest)
                 .size());
         HashMap<String, Path> tmpContentPaths = new HashMap<>(streamUpdateRequest.getContentItems()
                 .size());
+        HashMap<String, HashMap<String, String>> contentChecksums = new HashMap<>();
+        HashMap<String, String> contentMimeHints = new HashMap<>();
         UpdateResponse updateResponse = null;
         UpdateStorageRequest updateStorageRequest = null;
         UpdateStorageResponse updateStorageResponse = null;
-
-        streamUpdateRequest = opsStorageSupport.prepareStorageRequest(streamUpdateRequest,
-                streamUpdateRequest::getContentItems);
-
-        // Operation populates the metacardMap, contentItems, and tmpContentPaths
-        opsMetacardSupport.generateMetacardAndContentItems(streamUpdateRequest.getContentItems(),
-                (Subject) streamUpdateRequest.getPropertyValue(SecurityConstants.SECURITY_SUBJECT),
-                metacardMap,
-                contentItems,
-                tmpContentPaths);
-
-        streamUpdateRequest.getProperties()
-                .put(CONTENT_PATHS, tmpContentPaths);
-
-        streamUpdateRequest = applyAttributeOverrides(streamUpdateRequest, metacardMap);
+        StageTimer stageTimer = frameworkProperties.getLatencyMetrics()
+                .time(UPDATE_OPERATION);
 
         try {
-            if (!contentItems.isEmpty()) {
-                updateStorageRequest = new UpdateStorageRequestImpl(contentItems,
-                        streamUpdateRequest.getId(),
-                        streamUpdateRequest.getProperties());
-                updateStorageRequest = processPreUpdateStoragePlugins(updateStorageRequest);
-
-                try {
-                    updateStorageResponse = sourceOperations.getStorage()
-                            .update(updateStorageRequest);
-                    updateStorageResponse.getProperties()
-                            .put(CONTENT_PATHS, tmpContentPaths);
-                } catch (StorageException e) {
-                    throw new IngestException(
-                            "Could not store content items. Removed created metacards.",
-                            e);
-                }
-
-                updateStorageResponse = processPostUpdateStoragePlugins(updateStorageResponse);
-
-                for (ContentItem contentItem : updateStorageResponse.getUpdatedContentItems()) {
-                    Metacard metacard = metacardMap.get(contentItem.getId());
-
-                    Metacard overrideMetacard = contentItem.getMetacard();
+            streamUpdateRequest = opsStorageSupport.prepareStorageRequest(streamUpdateRequest,
+                    streamUpdateRequest::getContentItems);
+
+            // Operation populates the metacardMap, contentItems, and tmpContentPaths
+            opsMetacardSupport.generateMetacardAndContentItems(
+                    streamUpdateRequest.getContentItems(),
+                    (Subject) streamUpdateRequest.getPropertyValue(
+                            SecurityConstants.SECURITY_SUBJECT),
+                    metacardMap,
+                    contentItems,
+                    tmpContentPaths,
+                    contentChecksums,
+                    contentMimeHints);
+
+            streamUpdateRequest.getProperties()
+                    .put(CONTENT_PATHS, tmpContentPaths);
+            streamUpdateRequest.getProperties()
+                    .put(CONTENT_CHECKSUMS, contentChecksums);
+            streamUpdateRequest.getProperties()
+                    .put(CONTENT_MIME_HINTS, contentMimeHints);
+
+            streamUpdateRequest = applyAttributeOverrides(streamUpdateRequest, metacardMap);
 
-                    Metacard updatedMetacard = OverrideAttributesSupport.overrideMetacard(metacard,
-                            overrideMetacard,
-                            true,
-                            true);
-
-                    updatedMetacard.setAttribute(new AttributeImpl(Metacard.RESOURCE_SIZE,
-                            String.valueOf(contentItem.getSize())));
-
-                    metacardMap.put(contentItem.getId(), updatedMetacard);
+            try {
+                if (!contentItems.isEmpty()) {
+                    updateStorageRequest = new UpdateStorageRequestImpl(contentItems,
+                            streamUpdateRequest.getId(),
+                            streamUpdateRequest.getProperties());
+                    updateStorageRequest = processPreUpdateStoragePlugins(updateStorageRequest,
+                            contentChecksums,
+                            contentMimeHints);
+
+                    try {
+                        updateStorageResponse = sourceOperations.getStorage()
+                                .update(updateStorageRequest);
+                        updateStorageResponse.getProperties()
+                                .put(CONTENT_PATHS, tmpContentPaths);
+                    } catch (StorageException e) {
+                        throw new IngestException(
+                                "Could not store content items. Removed created metacards.",
+                                e);
+                    }
+
+                    updateStorageResponse = processPostUpdateStoragePlugins(updateStorageResponse);
+
+                    for (ContentItem contentItem : updateStorageResponse.getUpdatedContentItems()) {
+                        Metacard metacard = metacardMap.get(contentItem.getId());
+
+                        Metacard overrideMetacard = contentItem.getMetacard();
+
+                        Metacard updatedMetacard = OverrideAttributesSupport.overrideMetacard(
+                                metacard,
+                                overrideMetacard,
+                                true,
+                                true);
+
+                        updatedMetacard.setAttribute(new AttributeImpl(Metacard.RESOURCE_SIZE,
+                                String.valueOf(contentItem.getSize())));
+
+                        metacardMap.put(contentItem.getId(), updatedMetacard);
+                    }
                 }
-            }
 
-            UpdateRequestImpl updateRequest =
-                    new UpdateRequestImpl(Iterables.toArray(metacardMap.values()
-                            .stream()
-                            .map(Metacard::getId)
-                            .collect(Collectors.toList()), String.class),
-                            new ArrayList<>(metacardMap.values()));
-            updateRequest.setProperties(streamUpdateRequest.getProperties());
-            historian.setSkipFlag(updateRequest);
-            updateResponse = doUpdate(updateRequest);
-            historian.version(streamUpdateRequest, updateStorageResponse, updateResponse);
-        } catch (Exception e) {
-            if (updateStorageRequest != null) {
-                try {
-                    sourceOperations.getStorage()
-                            .rollback(updateStorageRequest);
-                } catch (StorageException e1) {
-                    LOGGER.info("Unable to remove temporary content for id: {}",
-                            updateStorageRequest.getId(),
-                            e1);
+                UpdateRequestImpl updateRequest =
+                        new UpdateRequestImpl(Iterables.toArray(metacardMap.values()
+                                .stream()
+                                .map(Metacard::getId)
+                                .collect(Collectors.toList()), String.class),
+                                new ArrayList<>(metacardMap.values()));
+                updateRequest.setProperties(streamUpdateRequest.getProperties());
+                historian.setSkipFlag(updateRequest);
+                stageTimer.stage("contentStorage");
+                updateResponse = doUpdate(updateRequest, stageTimer);
+                historian.version(streamUpdateRequest, updateStorageResponse, updateResponse);
+            } catch (Exception e) {
+                if (updateStorageRequest != null) {
+                    try {
+                        sourceOperations.getStorage()
+                                .rollback(updateStorageRequest);
+                    } catch (StorageException e1) {
+                        LOGGER.info("Unable to remove temporary content for id: {}",
+                                updateStorageRequest.getId(),
+                                e1);
+                    }
                 }
+                throw new IngestException(
+                        "Unable to store products for request: " + streamUpdateRequest.getId(), e);
+
+            } finally {
+                opsStorageSupport.commitAndCleanup(updateStorageRequest, tmpContentPaths);
             }
-            throw new IngestException(
-                    "Unable to store products for request: " + streamUpdateRequest.getId(), e);
 
+            updateResponse = doPostIngest(updateResponse);
+            stageTimer.stage("postIngestPlugins");
+
+            return updateResponse;
         } finally {
-            opsStorageSupport.commitAndCleanup(updateStorageRequest, tmpContentPaths);
+            stageTimer.stop();
         }
-
-        updateResponse = doPostIngest(updateResponse);
-
-        return updateResponse;
     }
 
     //
     // Private helper methods
     //
-    private UpdateResponse doUpdate(UpdateRequest updateRequest)
+    private UpdateResponse doUpdate(UpdateRequest updateRequest, StageTimer stageTimer)
             throws IngestException, SourceUnavailableException {
         updateRequest = queryOperations.setFlagsOnRequest(updateRequest);
         updateRequest = validateUpdateRequest(updateRequest);
         updateRequest = validateLocalSource(updateRequest);
+        stageTimer.stage("validation");
 
         try {
             updateRequest = injectAttributes(updateRequest);
             updateRequest = setDefaultValues(updateRequest);
+            stageTimer.stage("attributeInjection");
 
             updateRequest = populateMetacards(updateRequest);
+            stageTimer.stage("metacardLookup");
             updateRequest = processPreAuthorizationPlugins(updateRequest);
 
             updateRequest = populateUpdateRequestPolicyMap(updateRequest);
             updateRequest = processPreUpdateAccessPlugins(updateRequest);
+            stageTimer.stage("authorization");
 
             updateRequest = processPreIngestPlugins(updateRequest);
             updateRequest = validateUpdateRequest(updateRequest);
+            stageTimer.stage("preIngestPlugins");
 
             // Call the update on the catalog
             LOGGER.debug("Calling catalog.update() with {} updates.",
@@ -277,9 +321,11 @@ private UpdateResponse doUpdate(UpdateRequest updateRequest)
 
             UpdateResponse updateResponse = performLocalUpdate(updateRequest);
             updateResponse = performRemoteUpdate(updateRequest, updateResponse);
+            stageTimer.stage("ingest");
 
             // Handle the posting of messages to pubsub
             updateResponse = validateFixUpdateResponse(updateResponse, updateRequest);
+            stageTimer.stage("responseValidation");
             return updateResponse;
         } catch (StopProcessingException see) {
             throw new IngestException(PRE_INGEST_ERROR, see);
@@ -496,6 +542,21 @@ private UpdateResponse validateFixUpdateResponse(UpdateResponse updateResponse,
     }
 
     private UpdateResponse processPostIngestPlugins(UpdateResponse updateResponse) {
+        if (postIngestExecutor != null) {
+            if (updateResponse != null) {
+                postIngestExecutor.execute(frameworkProperties.getPostIngest(),
+                        updateResponse,
+                        updateResponse.getUpdatedMetacards()
+                                .stream()
+                                .map(Update::getNewMetacard)
+                                .filter(Objects::nonNull)
+                                .map(Metacard::getId)
+                                .collect(Collectors.toSet()),
+                        PostIngestPlugin::process);
+            }
+            return updateResponse;
+        }
+
         for (final PostIngestPlugin plugin : frameworkProperties.getPostIngest()) {
             try {
                 updateResponse = plugin.process(updateResponse);
@@ -683,7 +744,11 @@ private UpdateStorageResponse processPostUpdateStoragePlugins(
     }
 
     private UpdateStorageRequest processPreUpdateStoragePlugins(
-            UpdateStorageRequest updateStorageRequest) {
+            UpdateStorageRequest updateStorageRequest,
+            Map<String, HashMap<String, String>> contentChecksums,
+            Map<String, String> contentMimeHints) {
+        List<ContentItem> generatedContentItems = 
+                new ArrayList<>(updateStorageRequest.getContentItems());
         for (final PreUpdateStoragePlugin plugin : frameworkProperties.getPreUpdateStoragePlugins()) {
             try {
                 updateStorageRequest = plugin.process(updateStorageRequest);
@@ -691,6 +756,10 @@ private UpdateStorageRequest processPreUpdateStoragePlugins(
                 LOGGER.debug("Plugin processing failed. This is allowable. Skipping to next plugin.",
                         e);
             }
+            OperationsMetacardSupport.removeReplacedContentHints(generatedContentItems,
+                    updateStorageRequest.getContentItems(),
+                    contentChecksums,
+                    contentMimeHints);
         }
         return updateStorageRequest;
     }
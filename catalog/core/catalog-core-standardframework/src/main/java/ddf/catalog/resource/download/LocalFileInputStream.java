@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.resource.download;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * The {@link FileInputStream} of a local file resource handed to the client, so the client can
+ * still read the file through its channel. It counts the bytes read through the stream and
+ * reports them once when the stream is closed. Bytes the client transfers through the channel
+ * are not counted.
+ */
+class LocalFileInputStream extends FileInputStream {
+
+    private final FileInputStream file;
+
+    private final LongConsumer closeListener;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * @param file          the stream of the file returned by the source
+     * @param closeListener called with the number of bytes read when the stream is first closed
+     */
+    LocalFileInputStream(FileInputStream file, LongConsumer closeListener) throws IOException {
+        super(file.getFD());
+        this.file = file;
+        this.closeListener = closeListener;
+    }
+
+    long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value >= 0) {
+            bytesRead.incrementAndGet();
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            bytesRead.addAndGet(n);
+        }
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed.compareAndSet(false, true)) {
+            try {
+                super.close();
+                file.close();
+            } finally {
+                closeListener.accept(bytesRead.get());
+            }
+        }
+    }
+}
@@ -13,6 +13,7 @@
  */
 package ddf.catalog.resource.download;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -136,10 +137,19 @@ public ResourceResponse download(ResourceRequest resourceRequest, Metacard metac
                     resourceResponse.getProperties(),
                     resourceResponse.getResource());
 
-            resourceResponse = startDownload(downloadIdentifier,
-                    resourceResponse,
-                    retriever,
-                    metacard);
+            if (isLocalFile(resourceResponse)) {
+                // A local file needs neither retries nor caching, and is served from its channel
+                LOGGER.debug("Resource for metacard ID = {} is a local file", metacard.getId());
+                resourceResponse = startLocalFileDownload(downloadIdentifier,
+                        resourceResponse,
+                        retriever,
+                        metacard);
+            } else {
+                resourceResponse = startDownload(downloadIdentifier,
+                        resourceResponse,
+                        retriever,
+                        metacard);
+            }
 
         }
         return resourceResponse;
@@ -178,6 +188,16 @@ public void setChunkSize(int chunkSize) {
         downloaderConfig.setChunkSize(chunkSize);
     }
 
+    public void setSegmentCount(int segmentCount) {
+        downloaderConfig.setSegmentCount(segmentCount);
+    }
+
+    public void setMinSegmentSize(int minSegmentSize) {
+        LOGGER.debug("Minimum segment size set to {} MB", minSegmentSize);
+        downloaderConfig.setMinSegmentSize(
+                (long) minSegmentSize * ReliableResourceDownloaderConfig.MB);
+    }
+
     public boolean isCacheEnabled() {
         return downloaderConfig.isCacheEnabled();
     }
@@ -201,6 +221,31 @@ public List<DownloadInfo> getDownloadsInProgress() {
         return downloadsInProgress;
     }
 
+    private boolean isLocalFile(ResourceResponse resourceResponse) {
+        Resource resource = resourceResponse.getResource();
+        return resource != null && resource.getInputStream() instanceof FileInputStream;
+    }
+
+    private ResourceResponse startLocalFileDownload(String downloadIdentifier,
+            ResourceResponse resourceResponse, ResourceRetriever retriever, Metacard metacard)
+            throws DownloadException {
+        ReliableResourceDownloader downloader = new ReliableResourceDownloader(downloaderConfig,
+                new AtomicBoolean(Boolean.FALSE),
+                downloadIdentifier,
+                resourceResponse,
+                retriever);
+
+        ResourceResponse response;
+        try {
+            response = downloader.setupLocalFileDownload(metacard, downloadStatusInfo);
+        } catch (IOException e) {
+            throw new DownloadException("Cannot download resource", e);
+        }
+        response.getProperties()
+                .put(DOWNLOAD_ID_PROPERTY_KEY, downloadIdentifier);
+        return response;
+    }
+
     private ResourceResponse startDownload(String downloadIdentifier,
             ResourceResponse resourceResponse, ResourceRetriever retriever, Metacard metacard) {
         AtomicBoolean downloadStarted = new AtomicBoolean(Boolean.FALSE);
@@ -14,9 +14,11 @@
 package ddf.catalog.resource.download;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Paths;
 import java.util.Timer;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
@@ -77,6 +79,8 @@ public class ReliableResourceDownloader implements Runnable {
 
     private ReliableResourceInputStream streamReadByClient;
 
+    private LocalFileInputStream localFileReadByClient;
+
     private FileOutputStream fos;
 
     private FileBackedOutputStream fbos;
@@ -105,6 +109,10 @@ public class ReliableResourceDownloader implements Runnable {
 
     private ResourceRetriever retriever;
 
+    private long productSize = -1;
+
+    private boolean acceptsByteRanges;
+
     /**
      * Only set to true if cacheEnabled is true *AND* product being downloaded is not already
      * pending caching, e.g., another client has already started downloading and caching it.
@@ -159,6 +167,9 @@ public ResourceResponse setupDownload(Metacard metacard,
 
         // Get handle to retrieved product's InputStream
         resourceInputStream = resource.getInputStream();
+        productSize = resource.getSize();
+        acceptsByteRanges = Boolean.TRUE.equals(resourceResponse.getPropertyValue(
+                ResourceRetriever.ACCEPTS_BYTE_RANGES));
 
         eventListener.setDownloadMap(downloadIdentifier, resourceResponse);
         downloadStatusInfo.addDownloadInfo(downloadIdentifier, this, resourceResponse);
@@ -206,6 +217,57 @@ public ResourceResponse setupDownload(Metacard metacard,
         return resourceResponse;
     }
 
+    /**
+     * Sets up serving a resource whose stream is a local file. The client reads the file itself,
+     * so nothing is retried or cached, but the download is reported like any other until the
+     * client closes the file.
+     *
+     * @param metacard           the metacard of the resource
+     * @param downloadStatusInfo the status of the downloads in progress
+     * @return the response the client reads the file from
+     * @throws IOException if the file is no longer open
+     */
+    public ResourceResponse setupLocalFileDownload(Metacard metacard,
+            DownloadStatusInfo downloadStatusInfo) throws IOException {
+        this.metacard = metacard;
+        Resource resource = resourceResponse.getResource();
+        resourceInputStream = resource.getInputStream();
+        productSize = resource.getSize();
+
+        localFileReadByClient = new LocalFileInputStream((FileInputStream) resourceInputStream,
+                this::localFileClosed);
+        ResourceImpl newResource = new ResourceImpl(localFileReadByClient,
+                resource.getMimeType(),
+                resource.getName());
+        newResource.setSize(productSize);
+        resourceResponse = new ResourceResponseImpl(resourceResponse.getRequest(),
+                resourceResponse.getProperties(),
+                newResource);
+
+        eventListener.setDownloadMap(downloadIdentifier, resourceResponse);
+        downloadStatusInfo.addDownloadInfo(downloadIdentifier, this, resourceResponse);
+
+        downloadState.setDownloadState(DownloadState.IN_PROGRESS);
+        eventPublisher.postRetrievalStatus(resourceResponse,
+                ProductRetrievalStatus.STARTED,
+                metacard,
+                null,
+                0L,
+                downloadIdentifier);
+        downloadStarted.set(Boolean.TRUE);
+        return resourceResponse;
+    }
+
+    private void localFileClosed(long bytesRead) {
+        downloadState.setDownloadState(DownloadState.COMPLETED);
+        eventPublisher.postRetrievalStatus(resourceResponse,
+                ProductRetrievalStatus.COMPLETE,
+                metacard,
+                null,
+                bytesRead,
+                downloadIdentifier);
+    }
+
     @Override
     public void run() {
         long bytesRead = 0;
@@ -220,11 +282,24 @@ public void run() {
                 downloadIdentifier);
 
         try {
-            reliableResourceCallable = new ReliableResourceCallable(resourceInputStream,
-                    countingFbos,
-                    fos,
-                    downloaderConfig.getChunkSize(),
-                    lock);
+            int segmentCount = getSegmentCount();
+            if (segmentCount > 1) {
+                reliableResourceCallable = new SegmentedResourceCallable(resourceInputStream,
+                        retriever,
+                        countingFbos,
+                        fos,
+                        Paths.get(filePath),
+                        productSize,
+                        segmentCount,
+                        downloaderConfig,
+                        lock);
+            } else {
+                reliableResourceCallable = new ReliableResourceCallable(resourceInputStream,
+                        countingFbos,
+                        fos,
+                        downloaderConfig.getChunkSize(),
+                        lock);
+            }
             downloadFuture = null;
             ResourceRetrievalMonitor resourceRetrievalMonitor = null;
             this.downloadState.setDownloadState(DownloadManagerState.DownloadState.IN_PROGRESS);
@@ -327,6 +402,14 @@ public void run() {
                 } else {
                     bytesRead = reliableResourceStatus.getBytesRead();
                     LOGGER.debug("Download not complete, only read {} bytes", bytesRead);
+                    boolean segmented =
+                            reliableResourceCallable instanceof SegmentedResourceCallable;
+                    if (segmented) {
+                        // The product's InputStream stopped at the end of the first segment and
+                        // closing it could read the rest of the product, so later attempts
+                        // continue sequentially from a new retrieval
+                        resourceInputStream = null;
+                    }
                     if (fos != null) {
                         fos.flush();
                     }
@@ -388,11 +471,15 @@ public void run() {
                             downloadState.setCacheEnabled(downloaderConfig.isCacheEnabled());
                             downloadState.setContinueCaching(doCaching);
                         }
-                        reliableResourceCallable = new ReliableResourceCallable(resourceInputStream,
-                                countingFbos,
-                                downloaderConfig.getChunkSize(),
-                                lock);
-                        reliableResourceCallable.setBytesRead(bytesRead);
+                        reliableResourceCallable = segmented ?
+                                retrieveResource(bytesRead, countingFbos, null) :
+                                new ReliableResourceCallable(resourceInputStream,
+                                        countingFbos,
+                                        downloaderConfig.getChunkSize(),
+                                        lock);
+                        if (reliableResourceCallable != null) {
+                            reliableResourceCallable.setBytesRead(bytesRead);
+                        }
 
                     } else if (DownloadStatus.CLIENT_OUTPUT_STREAM_EXCEPTION.equals(
                             reliableResourceStatus.getDownloadStatus())) {
@@ -412,11 +499,15 @@ public void run() {
                         IOUtils.closeQuietly(countingFbos);
                         LOGGER.debug("Cancelling resourceRetrievalMonitor");
                         resourceRetrievalMonitor.cancel();
-                        reliableResourceCallable = new ReliableResourceCallable(resourceInputStream,
-                                fos,
-                                downloaderConfig.getChunkSize(),
-                                lock);
-                        reliableResourceCallable.setBytesRead(bytesRead);
+                        reliableResourceCallable = segmented ?
+                                retrieveResource(bytesRead, null, fos) :
+                                new ReliableResourceCallable(resourceInputStream,
+                                        fos,
+                                        downloaderConfig.getChunkSize(),
+                                        lock);
+                        if (reliableResourceCallable != null) {
+                            reliableResourceCallable.setBytesRead(bytesRead);
+                        }
 
                     } else if (DownloadStatus.RESOURCE_DOWNLOAD_CANCELED.equals(
                             reliableResourceStatus.getDownloadStatus())) {
@@ -434,12 +525,15 @@ public void run() {
                                 downloadIdentifier);
                         if (doCaching && downloaderConfig.isCacheWhenCanceled()) {
                             LOGGER.debug("Continuing to cache product");
-                            reliableResourceCallable = new ReliableResourceCallable(
-                                    resourceInputStream,
-                                    fos,
-                                    downloaderConfig.getChunkSize(),
-                                    lock);
-                            reliableResourceCallable.setBytesRead(bytesRead);
+                            reliableResourceCallable = segmented ?
+                                    retrieveResource(bytesRead, null, fos) :
+                                    new ReliableResourceCallable(resourceInputStream,
+                                            fos,
+                                            downloaderConfig.getChunkSize(),
+                                            lock);
+                            if (reliableResourceCallable != null) {
+                                reliableResourceCallable.setBytesRead(bytesRead);
+                            }
                         } else {
                             break;
                         }
@@ -504,6 +598,11 @@ public void run() {
     }
 
     private ReliableResourceCallable retrieveResource(long bytesRead) {
+        return retrieveResource(bytesRead, countingFbos, fos);
+    }
+
+    private ReliableResourceCallable retrieveResource(long bytesRead,
+            CountingOutputStream countingFbos, FileOutputStream fos) {
 
         ReliableResourceCallable reliableResourceCallable = null;
 
@@ -537,6 +636,22 @@ private ReliableResourceCallable retrieveResource(long bytesRead) {
         return reliableResourceCallable;
     }
 
+    /**
+     * Returns the number of segments to retrieve the product in at the same time, or 1 to
+     * retrieve it sequentially. Segments are written to the cache file at their offsets, so
+     * they are only used when the product is being cached, its size is known and the source
+     * accepts byte ranges.
+     */
+    private int getSegmentCount() {
+        long minSegmentSize = Math.max(1, downloaderConfig.getMinSegmentSize());
+        if (downloaderConfig.getSegmentCount() <= 1
+                || downloaderConfig.getSegmentExecutor() == null || !doCaching || fos == null
+                || !acceptsByteRanges || productSize < 2 * minSegmentSize) {
+            return 1;
+        }
+        return (int) Math.min(downloaderConfig.getSegmentCount(), productSize / minSegmentSize);
+    }
+
     private void deleteCacheFile(FileOutputStream fos) {
         LOGGER.debug("Deleting partially cached file {}", filePath);
         IOUtils.closeQuietly(fos);
@@ -605,10 +720,17 @@ private void closeFileBackedOutputStream() {
     }
 
     public Long getReliableResourceInputStreamBytesCached() {
+        if (localFileReadByClient != null) {
+            return localFileReadByClient.getBytesRead();
+        }
         return streamReadByClient.getBytesCached();
     }
 
     public String getReliableResourceInputStreamState() {
+        if (localFileReadByClient != null) {
+            return downloadState.getDownloadState()
+                    .name();
+        }
         return streamReadByClient.getDownloadState()
                 .getDownloadState()
                 .name();
@@ -13,6 +13,8 @@
  */
 package ddf.catalog.resource.download;
 
+import java.util.concurrent.ExecutorService;
+
 import ddf.catalog.cache.impl.ResourceCacheImpl;
 import ddf.catalog.event.retrievestatus.DownloadsStatusEventListener;
 import ddf.catalog.event.retrievestatus.DownloadsStatusEventPublisher;
@@ -25,6 +27,8 @@ public class ReliableResourceDownloaderConfig {
 
     private static final int DEFAULT_CHUNK_SIZE = 1 * MB;
 
+    private static final long DEFAULT_MIN_SEGMENT_SIZE = 16 * MB;
+
     private int maxRetryAttempts = 3;
 
     private int delayBetweenAttemptsMS = 10000;
@@ -45,6 +49,12 @@ public class ReliableResourceDownloaderConfig {
 
     private int chunkSize = DEFAULT_CHUNK_SIZE;
 
+    private int segmentCount = 1;
+
+    private long minSegmentSize = DEFAULT_MIN_SEGMENT_SIZE;
+
+    private ExecutorService segmentExecutor;
+
     public int getChunkSize() {
         return chunkSize;
     }
@@ -124,4 +134,32 @@ public boolean isCacheWhenCanceled() {
     public void setCacheWhenCanceled(boolean cacheWhenCanceled) {
         this.cacheWhenCanceled = cacheWhenCanceled;
     }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public void setSegmentCount(int segmentCount) {
+        this.segmentCount = segmentCount;
+    }
+
+    public long getMinSegmentSize() {
+        return minSegmentSize;
+    }
+
+    public void setMinSegmentSize(long minSegmentSize) {
+        this.minSegmentSize = minSegmentSize;
+    }
+
+    /**
+     * Returns the executor that the segments of every parallel retrieval run on, or {@code null}
+     * if products are only retrieved sequentially.
+     */
+    public ExecutorService getSegmentExecutor() {
+        return segmentExecutor;
+    }
+
+    public void setSegmentExecutor(ExecutorService segmentExecutor) {
+        this.segmentExecutor = segmentExecutor;
+    }
 }
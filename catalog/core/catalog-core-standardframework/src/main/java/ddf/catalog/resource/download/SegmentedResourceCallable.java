@@ -0,0 +1,430 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.resource.download;
+
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.CountingOutputStream;
+
+import ddf.catalog.resource.ResourceNotFoundException;
+import ddf.catalog.resource.ResourceNotSupportedException;
+import ddf.catalog.resourceretriever.ResourceRetriever;
+
+/**
+ * Retrieves a product in byte range segments at the same time, writing each segment at its
+ * offset in the cache file. The first segment is read from the product's original InputStream
+ * and every other segment from its own ranged retrieval.
+ * <p>
+ * The client still receives the product in order: the bytes written contiguously from the start
+ * of the cache file are copied to the @FileBackedOutputStream as they become available, and
+ * {@link #getBytesRead()} counts only those bytes. When the download does not complete, the cache
+ * file and the client stream hold the same prefix of the product, so the
+ * @ReliableResourceDownloader can continue sequentially from {@link #getBytesRead()}.
+ * <p>
+ * Segments are retrieved on the executor shared by all downloads, see
+ * {@link ReliableResourceDownloaderConfig#getSegmentExecutor()}, so the number of segment threads
+ * is bounded no matter how many products are being downloaded. A segment that waits for a thread
+ * only delays the delivery of its own product.
+ */
+class SegmentedResourceCallable extends ReliableResourceCallable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentedResourceCallable.class);
+
+    private final InputStream input;
+
+    private final ResourceRetriever retriever;
+
+    private final CountingOutputStream countingFbos;
+
+    private final FileOutputStream cacheFileOutputStream;
+
+    private final Path cacheFile;
+
+    private final long productSize;
+
+    private final int chunkSize;
+
+    private final int maxRetryAttempts;
+
+    private final long delayBetweenAttemptsMS;
+
+    private final Object lock;
+
+    private final Segment[] segments;
+
+    private final Object progress = new Object();
+
+    private final ExecutorService segmentExecutor;
+
+    private final List<Future<?>> segmentTasks = new ArrayList<>();
+
+    private volatile boolean stopped = false;
+
+    private volatile ReliableResourceStatus segmentFailure;
+
+    /**
+     * @param input the product @InputStream, used for the first segment
+     * @param retriever the retriever used to open the other segments
+     * @param countingFbos the FileBackedOutputStream read by the client
+     * @param fos the @FileOutputStream that the cached product is written to
+     * @param cacheFile the path of the cache file, read back to deliver the product in order
+     * @param productSize the size of the product in bytes
+     * @param segmentCount the number of segments to retrieve at the same time
+     * @param config the downloader configuration, for the chunk size, segment retries and the
+     *               executor the segments are retrieved on
+     * @param lock the lock held while writing to the output streams
+     */
+    SegmentedResourceCallable(InputStream input, ResourceRetriever retriever,
+            CountingOutputStream countingFbos, FileOutputStream fos, Path cacheFile,
+            long productSize, int segmentCount, ReliableResourceDownloaderConfig config,
+            Object lock) {
+        super(input, countingFbos, fos, config.getChunkSize(), lock);
+        this.input = input;
+        this.retriever = retriever;
+        this.countingFbos = countingFbos;
+        this.cacheFileOutputStream = fos;
+        this.cacheFile = cacheFile;
+        this.productSize = productSize;
+        this.chunkSize = config.getChunkSize();
+        this.maxRetryAttempts = Math.max(1, config.getMaxRetryAttempts());
+        this.delayBetweenAttemptsMS = config.getDelayBetweenAttemptsMS();
+        this.lock = lock;
+        this.segmentExecutor = config.getSegmentExecutor();
+
+        segments = new Segment[segmentCount];
+        long segmentSize = productSize / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            long start = i * segmentSize;
+            long end = (i == segmentCount - 1) ? productSize : start + segmentSize;
+            segments[i] = new Segment(start, end);
+        }
+    }
+
+    @Override
+    public void setInterruptDownload(boolean interruptDownload) {
+        super.setInterruptDownload(interruptDownload);
+        stopSegments();
+    }
+
+    @Override
+    public void setCancelDownload(boolean cancelDownload) {
+        super.setCancelDownload(cancelDownload);
+        stopSegments();
+    }
+
+    @Override
+    public ReliableResourceStatus call() {
+        LOGGER.debug("Retrieving {} bytes in {} segments", productSize, segments.length);
+        synchronized (segmentTasks) {
+            for (int i = 0; i < segments.length && !stopped; i++) {
+                Segment segment = segments[i];
+                InputStream segmentInput = (i == 0) ? input : null;
+                try {
+                    segmentTasks.add(segmentExecutor.submit(() -> runSegment(segment,
+                            segmentInput)));
+                } catch (RejectedExecutionException e) {
+                    LOGGER.info("Unable to start retrieving segment at byte {}",
+                            segment.getPosition(),
+                            e);
+                    fail(DownloadStatus.PRODUCT_INPUT_STREAM_EXCEPTION);
+                    break;
+                }
+            }
+        }
+
+        try (FileChannel cacheFileChannel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            return deliver(cacheFileChannel);
+        } catch (IOException e) {
+            LOGGER.info("IOException during read of cached file {}", cacheFile, e);
+            return new ReliableResourceStatus(DownloadStatus.CACHED_FILE_OUTPUT_STREAM_EXCEPTION,
+                    getBytesRead());
+        } catch (InterruptedException e) {
+            LOGGER.debug("Segmented download interrupted");
+            Thread.currentThread()
+                    .interrupt();
+            return getStoppedStatus();
+        } finally {
+            stopSegments();
+            alignCacheFile();
+        }
+    }
+
+    /**
+     * Copies the contiguous bytes of the cache file to the client stream until the whole product
+     * is delivered or the download is stopped.
+     */
+    private ReliableResourceStatus deliver(FileChannel cacheFileChannel)
+            throws IOException, InterruptedException {
+        ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+        long delivered = getBytesRead();
+
+        while (delivered < productSize) {
+            if (stopped || Thread.currentThread()
+                    .isInterrupted()) {
+                return getStoppedStatus();
+            }
+            long available = contiguousBytes();
+            if (available <= delivered) {
+                // Report a failed segment once everything before it has been delivered
+                if (segmentFailure != null) {
+                    return new ReliableResourceStatus(segmentFailure.getDownloadStatus(),
+                            delivered);
+                }
+                synchronized (progress) {
+                    if (contiguousBytes() <= delivered && segmentFailure == null && !stopped) {
+                        progress.wait(TimeUnit.SECONDS.toMillis(1));
+                    }
+                }
+                continue;
+            }
+
+            buffer.clear();
+            buffer.limit((int) Math.min(chunkSize, available - delivered));
+            int n = cacheFileChannel.read(buffer, delivered);
+            if (n <= 0) {
+                continue;
+            }
+
+            // Synchronized to prevent being interrupted in the middle of writing to the
+            // client's OutputStream
+            synchronized (lock) {
+                if (stopped) {
+                    return getStoppedStatus();
+                }
+                if (countingFbos != null) {
+                    try {
+                        countingFbos.write(buffer.array(), 0, n);
+                        countingFbos.flush();
+                    } catch (IOException e) {
+                        LOGGER.info(
+                                "IOException during write to FileBackedOutputStream for client to read",
+                                e);
+                        return new ReliableResourceStatus(
+                                DownloadStatus.CLIENT_OUTPUT_STREAM_EXCEPTION,
+                                delivered);
+                    }
+                }
+                delivered += n;
+                setBytesRead(delivered);
+            }
+        }
+
+        LOGGER.debug("Entire file downloaded successfully in {} segments", segments.length);
+        ReliableResourceStatus status =
+                new ReliableResourceStatus(DownloadStatus.RESOURCE_DOWNLOAD_COMPLETE, delivered);
+        status.setMessage("Download completed successfully");
+        return status;
+    }
+
+    private ReliableResourceStatus getStoppedStatus() {
+        ReliableResourceStatus status = getReliableResourceStatus();
+        if (status == null) {
+            status = new ReliableResourceStatus(DownloadStatus.RESOURCE_DOWNLOAD_INTERRUPTED,
+                    getBytesRead());
+        }
+        return status;
+    }
+
+    /**
+     * Retrieves a segment, failing the whole download if the retrieval throws anything it does
+     * not handle itself so that {@link #deliver(FileChannel)} never waits for a segment that is
+     * no longer being retrieved.
+     */
+    private void runSegment(Segment segment, InputStream segmentInput) {
+        try {
+            retrieveSegment(segment, segmentInput);
+        } catch (Throwable t) {
+            LOGGER.info("Unexpected failure retrieving segment at byte {}",
+                    segment.getPosition(),
+                    t);
+            fail(DownloadStatus.PRODUCT_INPUT_STREAM_EXCEPTION);
+        }
+    }
+
+    /**
+     * Reads a segment into the cache file, re-retrieving the rest of the segment when a read
+     * fails.
+     */
+    private void retrieveSegment(Segment segment, InputStream segmentInput) {
+        InputStream in = segmentInput;
+        byte[] buffer = new byte[chunkSize];
+        int failedAttempts = 0;
+
+        while (!stopped && segment.getRemaining() > 0) {
+            try {
+                if (in == null) {
+                    in = retriever.retrieveResource(segment.getPosition(), segment.getRemaining())
+                            .getResource()
+                            .getInputStream();
+                }
+                int n = in.read(buffer, 0, (int) Math.min(chunkSize, segment.getRemaining()));
+                if (n == -1) {
+                    throw new EOFException("Product ended at byte " + segment.getPosition());
+                }
+                if (!write(buffer, n, segment.getPosition())) {
+                    return;
+                }
+                segment.advance(n);
+                signalProgress();
+            } catch (IOException | ResourceNotFoundException | ResourceNotSupportedException e) {
+                if (stopped) {
+                    break;
+                }
+                failedAttempts++;
+                LOGGER.debug("Unable to read segment at byte {} (attempt {} of {})",
+                        segment.getPosition(),
+                        failedAttempts,
+                        maxRetryAttempts,
+                        e);
+                closeSegmentInput(in, segmentInput);
+                in = null;
+                if (failedAttempts >= maxRetryAttempts) {
+                    LOGGER.info("Unable to read segment at byte {} after {} attempts",
+                            segment.getPosition(),
+                            failedAttempts);
+                    fail(DownloadStatus.PRODUCT_INPUT_STREAM_EXCEPTION);
+                    return;
+                }
+                delay();
+            }
+        }
+        closeSegmentInput(in, segmentInput);
+    }
+
+    private boolean write(byte[] buffer, int length, long position) {
+        ByteBuffer source = ByteBuffer.wrap(buffer, 0, length);
+        try {
+            FileChannel channel = cacheFileOutputStream.getChannel();
+            long offset = position;
+            while (source.hasRemaining()) {
+                offset += channel.write(source, offset);
+            }
+            return true;
+        } catch (IOException e) {
+            if (!stopped) {
+                LOGGER.info("IOException during write to cached file's OutputStream", e);
+                fail(DownloadStatus.CACHED_FILE_OUTPUT_STREAM_EXCEPTION);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of bytes written without gaps from the start of the cache file.
+     */
+    private long contiguousBytes() {
+        for (Segment segment : segments) {
+            if (segment.getRemaining() > 0) {
+                return segment.getPosition();
+            }
+        }
+        return productSize;
+    }
+
+    private void fail(DownloadStatus downloadStatus) {
+        synchronized (progress) {
+            if (segmentFailure == null) {
+                segmentFailure = new ReliableResourceStatus(downloadStatus, getBytesRead());
+            }
+            progress.notifyAll();
+        }
+    }
+
+    private void signalProgress() {
+        synchronized (progress) {
+            progress.notifyAll();
+        }
+    }
+
+    private void stopSegments() {
+        stopped = true;
+        synchronized (segmentTasks) {
+            segmentTasks.forEach(task -> task.cancel(true));
+        }
+        signalProgress();
+    }
+
+    /**
+     * Positions the cache file after the bytes delivered to the client so that a sequential retry
+     * continues writing where the client stream ends.
+     */
+    private void alignCacheFile() {
+        try {
+            cacheFileOutputStream.getChannel()
+                    .position(getBytesRead());
+        } catch (IOException e) {
+            LOGGER.debug("Unable to position cache file {}", cacheFile, e);
+        }
+    }
+
+    private void closeSegmentInput(InputStream in, InputStream productInput) {
+        // The product's original InputStream is not bounded by its segment, and closing it may
+        // read the rest of the product, so it is left to the @ReliableResourceDownloader
+        if (in != null && in != productInput) {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private void delay() {
+        try {
+            Thread.sleep(delayBetweenAttemptsMS);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            stopped = true;
+        }
+    }
+
+    private static class Segment {
+
+        private final long end;
+
+        private final AtomicLong position;
+
+        Segment(long start, long end) {
+            this.end = end;
+            this.position = new AtomicLong(start);
+        }
+
+        long getPosition() {
+            return position.get();
+        }
+
+        long getRemaining() {
+            return end - position.get();
+        }
+
+        void advance(long bytes) {
+            position.addAndGet(bytes);
+        }
+    }
+}
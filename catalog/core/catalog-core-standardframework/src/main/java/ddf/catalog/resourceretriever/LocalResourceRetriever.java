@@ -52,6 +52,12 @@ public ResourceResponse retrieveResource() throws ResourceNotFoundException {
 
     @Override
     public ResourceResponse retrieveResource(long bytesToSkip) throws ResourceNotFoundException {
+        return retrieveResource(bytesToSkip, -1);
+    }
+
+    @Override
+    public ResourceResponse retrieveResource(long bytesToSkip, long bytesToRead)
+            throws ResourceNotFoundException {
         final String methodName = "retrieveResource";
         LOGGER.trace("ENTERING: {}", methodName);
         ResourceResponse resource = null;
@@ -65,6 +71,9 @@ public ResourceResponse retrieveResource(long bytesToSkip) throws ResourceNotFou
         if (bytesToSkip > 0) {
             props.put(BYTES_TO_SKIP, Long.valueOf(bytesToSkip));
         }
+        if (bytesToRead >= 0) {
+            props.put(BYTES_TO_READ, Long.valueOf(bytesToRead));
+        }
 
         for (ResourceReader reader : resourceReaders) {
             if (reader != null) {
@@ -23,10 +23,32 @@ public interface ResourceRetriever {
 
     static final String BYTES_TO_SKIP = "BytesToSkip";
 
+    static final String BYTES_TO_READ = "BytesToRead";
+
+    /**
+     * Property of a retrieved {@link ResourceResponse} set to {@code true} when the resource can
+     * be retrieved in byte ranges.
+     */
+    static final String ACCEPTS_BYTE_RANGES = "AcceptsByteRanges";
+
     public ResourceResponse retrieveResource()
             throws ResourceNotFoundException, ResourceNotSupportedException, IOException;
 
     public ResourceResponse retrieveResource(long bytesToSkip)
             throws ResourceNotFoundException, ResourceNotSupportedException, IOException;
 
+    /**
+     * Retrieves a byte range of the resource. The returned resource may contain more than the
+     * requested number of bytes if the range cannot be requested from where the resource is
+     * stored, so callers only read the number of bytes they requested.
+     *
+     * @param bytesToSkip the number of bytes to skip at the beginning of the resource
+     * @param bytesToRead the number of bytes requested, or a negative number to retrieve the rest
+     *                    of the resource
+     */
+    default ResourceResponse retrieveResource(long bytesToSkip, long bytesToRead)
+            throws ResourceNotFoundException, ResourceNotSupportedException, IOException {
+        return retrieveResource(bytesToSkip);
+    }
+
 }
@@ -0,0 +1,356 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.activation.MimeType;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.resource.data.ReliableResource;
+
+public class ProductCacheIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File productCacheDir;
+
+    private Path indexFile;
+
+    private ProductCacheIndex index;
+
+    @Before
+    public void setUp() throws IOException {
+        productCacheDir = temporaryFolder.newFolder("product-cache");
+        indexFile = productCacheDir.toPath()
+                .resolve(ResourceCacheImpl.INDEX_FILE_NAME);
+        index = new ProductCacheIndex(indexFile, 0);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Test
+    public void testExceedCacheDirMaxSize() throws Exception {
+        index.setMaxSizeBytes(15);
+
+        addFileToProductCache("rr1", "10bytes.txt", "10bytes.txt");
+        verifyCached("rr1", "10bytes.txt");
+
+        addFileToProductCache("rr2", "15bytes.txt", "15bytes.txt");
+
+        verifyRemovedFromCache("rr1", "10bytes.txt");
+        verifyCached("rr2", "15bytes.txt");
+    }
+
+    @Test
+    public void testExceedCacheDirMaxSizeMultipleEvictions() throws Exception {
+        index.setMaxSizeBytes(28);
+
+        addFileToProductCache("rr1", "10bytes.txt", "10bytes.txt");
+        addFileToProductCache("rr2", "15bytes.txt", "15bytes.txt");
+        addFileToProductCache("rr3", "15bytes_B.txt", "15bytes_B.txt");
+
+        verifyRemovedFromCache("rr1", "10bytes.txt");
+        verifyRemovedFromCache("rr2", "15bytes.txt");
+        verifyCached("rr3", "15bytes_B.txt");
+        assertThat(index.getSizeBytes(), is(15L));
+    }
+
+    @Test
+    public void testNotExceedCacheDirMaxSize() throws Exception {
+        index.setMaxSizeBytes(50);
+
+        addFileToProductCache("rr1", "10bytes.txt", "10bytes.txt");
+        addFileToProductCache("rr2", "15bytes.txt", "15bytes.txt");
+        addFileToProductCache("rr3", "15bytes_B.txt", "15bytes_B.txt");
+
+        verifyCached("rr1", "10bytes.txt");
+        verifyCached("rr2", "15bytes.txt");
+        verifyCached("rr3", "15bytes_B.txt");
+        assertThat(index.getSizeBytes(), is(40L));
+    }
+
+    @Test
+    public void testSingleFileExceedCacheDirMaxSize() throws Exception {
+        index.setMaxSizeBytes(5);
+
+        addFileToProductCache("rr1", "10bytes.txt", "10bytes.txt");
+
+        verifyRemovedFromCache("rr1", "10bytes.txt");
+        assertThat(index.getSizeBytes(), is(0L));
+    }
+
+    @Test
+    public void testCacheDirMaxSizeManyEntries() throws Exception {
+        index.setMaxSizeBytes(10);
+
+        for (int i = 0; i < 12; i++) {
+            addFileToProductCache("rr" + i, "10bytes.txt", i + "10bytes.txt");
+        }
+
+        for (int i = 0; i < 11; i++) {
+            verifyRemovedFromCache("rr" + i, i + "10bytes.txt");
+        }
+        verifyCached("rr11", "1110bytes.txt");
+    }
+
+    @Test
+    public void testCacheDirMaxSizePaging() throws Exception {
+        index.setMaxSizeBytes(132);
+
+        for (int i = 0; i < 12; i++) {
+            addFileToProductCache("rr" + i, "10bytes.txt", i + "10bytes.txt");
+        }
+        for (int i = 0; i < 12; i++) {
+            verifyCached("rr" + i, i + "10bytes.txt");
+        }
+
+        // Evicting the 125 byte product's worth of entries removes every other entry
+        addFileToProductCache("rr12", "125bytes.txt", "125bytes.txt");
+
+        verifyCached("rr12", "125bytes.txt");
+        for (int i = 0; i < 12; i++) {
+            verifyRemovedFromCache("rr" + i, i + "10bytes.txt");
+        }
+        assertThat(index.getSizeBytes(), is(125L));
+    }
+
+    @Test
+    public void testCacheDirMaxSize0() throws Exception {
+        addFileToProductCache("rr1", "10bytes.txt", "10bytes.txt");
+        addFileToProductCache("rr2", "125bytes.txt", "125bytes.txt");
+
+        verifyCached("rr1", "10bytes.txt");
+        verifyCached("rr2", "125bytes.txt");
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvictedFirst() throws Exception {
+        index.setMaxSizeBytes(30);
+        addFileToProductCache("rr1", "10bytes.txt", "1-10bytes.txt");
+        addFileToProductCache("rr2", "10bytes.txt", "2-10bytes.txt");
+        addFileToProductCache("rr3", "10bytes.txt", "3-10bytes.txt");
+
+        // rr2 becomes the least recently used entry
+        assertThat(index.get("rr1"), notNullValue());
+
+        addFileToProductCache("rr4", "10bytes.txt", "4-10bytes.txt");
+
+        verifyRemovedFromCache("rr2", "2-10bytes.txt");
+        verifyCached("rr1", "1-10bytes.txt");
+        verifyCached("rr3", "3-10bytes.txt");
+        verifyCached("rr4", "4-10bytes.txt");
+    }
+
+    @Test
+    public void testReducingMaxSizeEvicts() throws Exception {
+        addFileToProductCache("rr1", "10bytes.txt", "10bytes.txt");
+        addFileToProductCache("rr2", "15bytes.txt", "15bytes.txt");
+
+        index.setMaxSizeBytes(20);
+
+        verifyRemovedFromCache("rr1", "10bytes.txt");
+        verifyCached("rr2", "15bytes.txt");
+    }
+
+    @Test
+    public void testRecoveredAfterReopen() throws Exception {
+        addFileToProductCache("rr1", "10bytes.txt", "1-10bytes.txt");
+        addFileToProductCache("rr2", "10bytes.txt", "2-10bytes.txt");
+        addFileToProductCache("rr3", "15bytes.txt", "15bytes.txt");
+        index.remove("rr3");
+        assertThat(index.get("rr1"), notNullValue());
+
+        index.close();
+        index = new ProductCacheIndex(indexFile, 0);
+
+        assertThat(index.size(), is(2));
+        assertThat(index.getSizeBytes(), is(20L));
+        assertThat(index.contains("rr3"), is(false));
+
+        // The touch of rr1 was recovered, so rr2 is the least recently used entry
+        index.setMaxSizeBytes(10);
+        verifyCached("rr1", "1-10bytes.txt");
+        verifyRemovedFromCache("rr2", "2-10bytes.txt");
+    }
+
+    @Test
+    public void testIncompleteRecordTruncated() throws Exception {
+        addFileToProductCache("rr1", "10bytes.txt", "10bytes.txt");
+        long validLength = indexFile.toFile()
+                .length();
+        addFileToProductCache("rr2", "15bytes.txt", "15bytes.txt");
+        index.close();
+
+        // Simulate a crash while the last record was written
+        try (RandomAccessFile file = new RandomAccessFile(indexFile.toFile(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        index = new ProductCacheIndex(indexFile, 0);
+
+        verifyCached("rr1", "10bytes.txt");
+        assertThat(index.contains("rr2"), is(false));
+        assertThat(index.size(), is(1));
+
+        // Appending after recovery starts where the valid records end
+        addFileToProductCache("rr3", "15bytes_B.txt", "15bytes_B.txt");
+        index.close();
+        index = new ProductCacheIndex(indexFile, 0);
+        assertThat(indexFile.toFile()
+                .length() > validLength, is(true));
+        verifyCached("rr3", "15bytes_B.txt");
+    }
+
+    @Test
+    public void testCorruptIndexStartsEmpty() throws Exception {
+        index.close();
+        FileUtils.writeStringToFile(indexFile.toFile(), "not an index");
+
+        index = new ProductCacheIndex(indexFile, 0);
+
+        assertThat(index.size(), is(0));
+        addFileToProductCache("rr1", "10bytes.txt", "10bytes.txt");
+        verifyCached("rr1", "10bytes.txt");
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            addFileToProductCache("rr1", "10bytes.txt", "1-10bytes.txt");
+        }
+        addFileToProductCache("rr2", "10bytes.txt", "2-10bytes.txt");
+        long length = indexFile.toFile()
+                .length();
+
+        index.compact();
+
+        assertThat(indexFile.toFile()
+                .length() < length, is(true));
+        verifyCached("rr1", "1-10bytes.txt");
+        verifyCached("rr2", "2-10bytes.txt");
+
+        index.close();
+        index = new ProductCacheIndex(indexFile, 0);
+        assertThat(index.size(), is(2));
+        assertThat(index.get("rr2")
+                .getName(), is("10bytes.txt"));
+    }
+
+    @Test
+    public void testReadsNotWrittenUntilClose() throws Exception {
+        addFileToProductCache("rr1", "10bytes.txt", "1-10bytes.txt");
+        addFileToProductCache("rr2", "10bytes.txt", "2-10bytes.txt");
+        long length = indexFile.toFile()
+                .length();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(index.get("rr1"), notNullValue());
+        }
+        assertThat(indexFile.toFile()
+                .length(), is(length));
+
+        index.close();
+        index = new ProductCacheIndex(indexFile, 0);
+
+        // The reads of rr1 were kept, so rr2 is the least recently used entry
+        index.setMaxSizeBytes(10);
+        verifyCached("rr1", "1-10bytes.txt");
+        verifyRemovedFromCache("rr2", "2-10bytes.txt");
+    }
+
+    @Test
+    public void testLegacyEntriesAdded() throws Exception {
+        index.close();
+        Files.delete(indexFile);
+        ReliableResource cached = createResource("rr1", "10bytes.txt", "10bytes.txt");
+        ReliableResource missing = createResource("rr2", "15bytes.txt", "15bytes.txt");
+        Files.delete(new File(missing.getFilePath()).toPath());
+        writeLegacyEntry(cached);
+        writeLegacyEntry(missing);
+        FileUtils.writeStringToFile(new File(productCacheDir, "rr3.ser"), "not an entry");
+
+        index = new ProductCacheIndex(indexFile, 0);
+
+        verifyCached("rr1", "10bytes.txt");
+        assertThat(index.contains("rr2"), is(false));
+        assertThat(index.size(), is(1));
+        assertThat(index.getSizeBytes(), is(10L));
+        assertThat(new File(productCacheDir, "rr1.ser").exists(), is(false));
+        assertThat(new File(productCacheDir, "rr2.ser").exists(), is(false));
+        assertThat(new File(productCacheDir, "rr3.ser").exists(), is(false));
+    }
+
+    private void writeLegacyEntry(ReliableResource resource) throws IOException {
+        try (OutputStream out = Files.newOutputStream(new File(productCacheDir,
+                resource.getKey() + ".ser").toPath());
+                ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(resource);
+        }
+    }
+
+    private ReliableResource createResource(String key, String fileName, String destFileName)
+            throws Exception {
+        File rrCachedFile = new File(productCacheDir, destFileName);
+        FileUtils.copyFile(new File(getClass().getClassLoader()
+                .getResource(fileName)
+                .toURI()), rrCachedFile);
+        ReliableResource rr = new ReliableResource(key,
+                rrCachedFile.getAbsolutePath(),
+                new MimeType(),
+                fileName,
+                new MetacardImpl());
+        rr.setSize(rrCachedFile.length());
+        rr.setLastTouchedMillis(System.currentTimeMillis());
+        return rr;
+    }
+
+    private ReliableResource addFileToProductCache(String key, String fileName,
+            String destFileName) throws Exception {
+        ReliableResource rr = createResource(key, fileName, destFileName);
+        index.put(rr);
+        return rr;
+    }
+
+    private void verifyCached(String rrKey, String rrFileName) throws IOException {
+        assertThat(index.get(rrKey), notNullValue());
+        assertThat(new File(productCacheDir, rrFileName).exists(), is(true));
+    }
+
+    private void verifyRemovedFromCache(String rrKey, String rrFileName) throws IOException {
+        assertThat(index.get(rrKey), nullValue());
+        assertThat(new File(productCacheDir, rrFileName).exists(), is(false));
+    }
+}
\ No newline at end of file
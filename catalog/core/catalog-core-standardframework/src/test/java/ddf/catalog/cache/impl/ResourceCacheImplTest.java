@@ -20,16 +20,11 @@
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
-import static org.mockito.Matchers.anyString;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.nio.file.Paths;
 import java.util.Calendar;
 import java.util.Optional;
@@ -40,8 +35,6 @@
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
-import org.osgi.framework.Bundle;
-import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,8 +49,6 @@ public class ResourceCacheImplTest {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ResourceCacheImplTest.class);
 
-    private static final String TEST_PATH = "/src/main/resources/";
-
     private static final String SOURCE_ID = "ddf-1";
 
     private static final String METACARD_ID = "abc123";
@@ -83,14 +74,10 @@ public class ResourceCacheImplTest {
     private Metacard notCachedMetacard;
 
     @Before
-    public void setUp() throws MalformedURLException, URISyntaxException {
+    public void setUp() throws URISyntaxException {
         cachedMetacard = createMetacard(SOURCE_ID, METACARD_ID);
         notCachedMetacard = createMetacard(SOURCE_ID, NOT_CACHED_METACARD_ID);
 
-        // Set system property that Hazelcast uses for its XML Config file
-        String xmlConfigFilename = "reliableResource-hazelcast.xml";
-        String xmlConfigLocation = System.getProperty("user.dir") + TEST_PATH + xmlConfigFilename;
-
         // Simulates how DDF script starts up setting KARAF_HOME
         workingDir = System.getProperty("user.dir");
         System.setProperty("karaf.home", workingDir);
@@ -105,17 +92,9 @@ public void setUp() throws MalformedURLException, URISyntaxException {
         }
 
         // Simulates how blueprint creates the ResourceCacheImpl instance
-        Bundle bundle = mock(Bundle.class);
-        URL url = new URL("file:///" + new File(xmlConfigLocation).getAbsolutePath());
-        when(bundle.getResource(anyString())).thenReturn(url);
-        BundleContext context = mock(BundleContext.class);
-        when(context.getBundle()).thenReturn(bundle);
-
         resourceCache = new ResourceCacheImpl();
-        resourceCache.setContext(context);
-        resourceCache.setXmlConfigFilename(xmlConfigFilename);
         resourceCache.setProductCacheDirectory("");
-        resourceCache.setCache(null);
+        resourceCache.setupCache();
 
         newResourceCache = new org.codice.ddf.catalog.resource.cache.impl.ResourceCacheImpl(
                 resourceCache);
@@ -123,6 +102,7 @@ public void setUp() throws MalformedURLException, URISyntaxException {
 
     @After
     public void teardownTest() {
+        resourceCache.teardownCache();
         try {
             FileUtils.cleanDirectory(new File(defaultProductCacheDirectory));
             File windowsTempFileNeedsCleaning = new File(
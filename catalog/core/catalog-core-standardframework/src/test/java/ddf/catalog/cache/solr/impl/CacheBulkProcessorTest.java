@@ -56,7 +56,7 @@ public class CacheBulkProcessorTest {
 
     @Before
     public void setUp() throws Exception {
-        cacheBulkProcessor = new CacheBulkProcessor(mockSolrCache, 1, TimeUnit.MILLISECONDS);
+        cacheBulkProcessor = new CacheBulkProcessor(mockSolrCache, 2, 1, TimeUnit.MILLISECONDS);
         cacheBulkProcessor.setBatchSize(10);
     }
 
@@ -114,6 +114,57 @@ public void exceedsBacklog() throws Exception {
         verify(mockSolrCache, never()).create(anyCollectionOf(Metacard.class));
     }
 
+    @Test
+    public void exceedsBacklogDropsOldest() throws Exception {
+        cacheBulkProcessor.setFlushInterval(TimeUnit.MINUTES.toMillis(1));
+        cacheBulkProcessor.setBatchSize(5);
+        cacheBulkProcessor.setMaximumBacklogSize(5);
+        List<Result> mockResults = getMockResults(10);
+
+        cacheBulkProcessor.add(mockResults);
+        waitForPendingMetacardsToCache();
+
+        verify(mockSolrCache).create(capturedMetacards.capture());
+        assertThat(capturedMetacards.getValue()).containsExactlyElementsOf(getMetacards(
+                mockResults.subList(5, 10)));
+        assertThat(cacheBulkProcessor.getMetrics()
+                .getDroppedCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void parallelWriters() throws Exception {
+        cacheBulkProcessor.setFlushInterval(TimeUnit.MINUTES.toMillis(1));
+        cacheBulkProcessor.setWriterCount(4);
+        List<Result> mockResults = getMockResults(40);
+
+        cacheBulkProcessor.add(mockResults);
+        waitForPendingMetacardsToCache();
+
+        verify(mockSolrCache, times(4)).create(capturedMetacards.capture());
+        List<Metacard> cached = new ArrayList<>();
+        capturedMetacards.getAllValues()
+                .forEach(cached::addAll);
+        assertThat(cached).containsOnlyElementsOf(getMetacards(mockResults))
+                .hasSize(40);
+    }
+
+    @Test
+    public void metrics() throws Exception {
+        cacheBulkProcessor.setFlushInterval(TimeUnit.MINUTES.toMillis(1));
+        List<Result> mockResults = getMockResults(10);
+
+        cacheBulkProcessor.add(mockResults);
+        waitForPendingMetacardsToCache();
+
+        CacheBulkMetrics metrics = cacheBulkProcessor.getMetrics();
+        assertThat(metrics.getEnqueuedCount()).isEqualTo(10);
+        assertThat(metrics.getFlushedCount()).isEqualTo(10);
+        assertThat(metrics.getBatchCount()).isEqualTo(1);
+        assertThat(metrics.getDroppedCount()).isEqualTo(0);
+        assertThat(metrics.getBacklogSize()).isEqualTo(0);
+        verify(mockSolrCache).setBulkMetrics(metrics);
+    }
+
     @Test
     public void cacheThrowsExcpetion() throws Exception {
         doThrow(new RuntimeException()).doNothing()
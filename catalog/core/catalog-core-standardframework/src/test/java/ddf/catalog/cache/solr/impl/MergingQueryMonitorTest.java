@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+
+public class MergingQueryMonitorTest {
+
+    private CompletionService<SourceResponse> completionService;
+
+    private Map<Future<SourceResponse>, QueryRequest> futures;
+
+    private QueryResponseImpl queryResponse;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        completionService = mock(CompletionService.class);
+        futures = new LinkedHashMap<>();
+
+        addSource("Source-0", 0.9, 0.5, 0.1);
+        addSource("Source-1", 0.8, 0.7, 0.6, 0.2);
+        addSource("Source-2");
+
+        final Iterator<Future<SourceResponse>> futureIter = new ArrayList<>(futures.keySet())
+                .iterator();
+        when(completionService.take()).thenAnswer(invocationOnMock -> futureIter.next());
+        when(completionService.poll(anyLong(), eq(TimeUnit.MILLISECONDS))).thenAnswer(
+                invocationOnMock -> futureIter.hasNext() ? futureIter.next() : null);
+    }
+
+    @Test
+    public void mergesPageAcrossSources() {
+        queryResponse = new QueryResponseImpl(request(4, 0));
+
+        new MergingQueryMonitor(null,
+                completionService,
+                futures,
+                queryResponse,
+                request(4, 0),
+                new ArrayList<>()).run();
+
+        assertThat(queryResponse.getHits()).isEqualTo(7);
+        assertThat(scores(queryResponse.getResults())).containsExactly(0.9, 0.8, 0.7, 0.6);
+    }
+
+    @Test
+    public void returnsAllResultsWithoutPageSize() {
+        queryResponse = new QueryResponseImpl(request(0, 5000));
+
+        new MergingQueryMonitor(null,
+                completionService,
+                futures,
+                queryResponse,
+                request(0, 5000),
+                new ArrayList<>()).run();
+
+        assertThat(scores(queryResponse.getResults())).containsExactly(0.9,
+                0.8,
+                0.7,
+                0.6,
+                0.5,
+                0.2,
+                0.1);
+    }
+
+    @Test
+    public void matchesSortedQueryMonitor() throws Exception {
+        QueryResponseImpl sortedResponse = new QueryResponseImpl(request(5, 0));
+        new SortedQueryMonitor(null,
+                completionService,
+                new LinkedHashMap<>(futures),
+                sortedResponse,
+                request(5, 0),
+                new ArrayList<>()).run();
+
+        setUp();
+        queryResponse = new QueryResponseImpl(request(5, 0));
+        new MergingQueryMonitor(null,
+                completionService,
+                futures,
+                queryResponse,
+                request(5, 0),
+                new ArrayList<>()).run();
+
+        assertThat(scores(queryResponse.getResults())).containsExactlyElementsOf(scores(
+                sortedResponse.getResults()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addSource(String sourceId, double... scores) throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (double score : scores) {
+            ResultImpl result = new ResultImpl(new MetacardImpl());
+            result.setRelevanceScore(score);
+            results.add(result);
+        }
+
+        QueryRequest sourceRequest = new QueryRequestImpl(new QueryImpl(Filter.INCLUDE),
+                false,
+                Collections.singleton(sourceId),
+                null);
+        Future<SourceResponse> future = mock(Future.class);
+        when(future.get()).thenReturn(new SourceResponseImpl(sourceRequest,
+                results,
+                (long) results.size()));
+        futures.put(future, sourceRequest);
+    }
+
+    private QueryRequest request(int pageSize, long timeout) {
+        return new QueryRequestImpl(new QueryImpl(Filter.INCLUDE,
+                1,
+                pageSize,
+                null,
+                true,
+                timeout));
+    }
+
+    private static List<Double> scores(List<Result> results) {
+        List<Double> scores = new ArrayList<>();
+        for (Result result : results) {
+            scores.add(result.getRelevanceScore());
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.opengis.filter.Filter;
+import org.opengis.filter.sort.SortOrder;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.util.impl.RelevanceResultComparator;
+
+/**
+ * Compares the {@link SortedQueryMonitor} with the {@link MergingQueryMonitor} for a page of
+ * results federated from many sources. Benchmarks are not run as part of the build; run them
+ * through {@link #main(String[])} with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class QueryMonitorBenchmark {
+
+    @Param({"5", "20", "50"})
+    private int sourceCount;
+
+    @Param({"1000"})
+    private int pageSize;
+
+    private List<SourceResponse> sourceResponses;
+
+    private QueryRequest request;
+
+    private Map<Future<SourceResponse>, QueryRequest> futures;
+
+    private CompletionService<SourceResponse> completionService;
+
+    private QueryResponseImpl queryResponse;
+
+    @Setup(Level.Trial)
+    public void createSourceResponses() {
+        Random random = new Random(7);
+        RelevanceResultComparator comparator = new RelevanceResultComparator(SortOrder.DESCENDING);
+        request = new QueryRequestImpl(new QueryImpl(Filter.INCLUDE,
+                1,
+                pageSize,
+                null,
+                true,
+                0));
+
+        sourceResponses = new ArrayList<>();
+        for (int source = 0; source < sourceCount; source++) {
+            List<Result> results = new ArrayList<>(pageSize);
+            for (int i = 0; i < pageSize; i++) {
+                ResultImpl result = new ResultImpl(new MetacardImpl());
+                result.setRelevanceScore(random.nextDouble());
+                results.add(result);
+            }
+            results.sort(comparator);
+            QueryRequest sourceRequest = new QueryRequestImpl(request.getQuery(),
+                    false,
+                    Collections.singleton("Source-" + source),
+                    null);
+            sourceResponses.add(new SourceResponseImpl(sourceRequest,
+                    results,
+                    (long) pageSize));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createFutures() {
+        futures = new LinkedHashMap<>();
+        CompletedResponses completed = new CompletedResponses();
+        for (SourceResponse sourceResponse : sourceResponses) {
+            Future<SourceResponse> future = CompletableFuture.completedFuture(sourceResponse);
+            futures.put(future, sourceResponse.getRequest());
+            completed.add(future);
+        }
+        completionService = completed;
+        queryResponse = new QueryResponseImpl(request);
+    }
+
+    @Benchmark
+    public List<Result> sortedQueryMonitor() {
+        new SortedQueryMonitor(null,
+                completionService,
+                futures,
+                queryResponse,
+                request,
+                Collections.emptyList()).run();
+        return queryResponse.getResults();
+    }
+
+    @Benchmark
+    public List<Result> mergingQueryMonitor() {
+        new MergingQueryMonitor(null,
+                completionService,
+                futures,
+                queryResponse,
+                request,
+                Collections.emptyList()).run();
+        return queryResponse.getResults();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(QueryMonitorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * {@link CompletionService} over futures that have already completed, handed out in the order
+     * they were added.
+     */
+    private static class CompletedResponses implements CompletionService<SourceResponse> {
+
+        private final BlockingQueue<Future<SourceResponse>> completed =
+                new LinkedBlockingQueue<>();
+
+        void add(Future<SourceResponse> future) {
+            completed.add(future);
+        }
+
+        @Override
+        public Future<SourceResponse> submit(Callable<SourceResponse> task) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<SourceResponse> submit(Runnable task, SourceResponse result) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<SourceResponse> take() throws InterruptedException {
+            return completed.take();
+        }
+
+        @Override
+        public Future<SourceResponse> poll() {
+            return completed.poll();
+        }
+
+        @Override
+        public Future<SourceResponse> poll(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return completed.poll(timeout, unit);
+        }
+    }
+}
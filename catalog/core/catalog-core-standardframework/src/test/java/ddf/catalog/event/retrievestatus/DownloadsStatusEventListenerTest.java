@@ -33,8 +33,6 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.hazelcast.test.TestHazelcastInstanceFactory;
-
 import ddf.catalog.cache.impl.ResourceCacheImpl;
 import ddf.catalog.data.impl.BasicTypes;
 import ddf.catalog.data.impl.MetacardImpl;
@@ -54,8 +52,6 @@ public class DownloadsStatusEventListenerTest {
 
     private static ReliableResourceDownloadManager testDownloadManager;
 
-    private static TestHazelcastInstanceFactory hcInstanceFactory;
-
     private static String productCacheDir;
 
     private static DownloadsStatusEventListener testEventListener;
@@ -67,12 +63,11 @@ public static void setUp() {
 
         ReliableResourceDownloaderConfig downloaderConfig = new ReliableResourceDownloaderConfig();
         testDownloadStatusInfo = new DownloadStatusInfoImpl();
-        hcInstanceFactory = new TestHazelcastInstanceFactory(10);
         ResourceCacheImpl testResourceCache = new ResourceCacheImpl();
-        testResourceCache.setCache(hcInstanceFactory.newHazelcastInstance());
         productCacheDir = System.getProperty("user.dir") + "/target" + File.separator
                 + ResourceCacheImpl.DEFAULT_PRODUCT_CACHE_DIRECTORY;
         testResourceCache.setProductCacheDirectory(productCacheDir);
+        testResourceCache.setupCache();
         DownloadsStatusEventPublisher testEventPublisher =
                 mock(DownloadsStatusEventPublisher.class);
         testEventListener = new DownloadsStatusEventListener();
@@ -77,6 +77,8 @@ public class CatalogFrameworkQueryTest {
 
     private CatalogFrameworkImpl framework;
 
+    private FrameworkProperties props;
+
     @Before
     public void initFramework() {
         MockMemoryProvider provider = new MockMemoryProvider("Provider",
@@ -94,7 +96,7 @@ public void initFramework() {
         when(source.isAvailable()).thenReturn(Boolean.TRUE);
         when(mockPoller.getCachedSource(isA(Source.class))).thenReturn(source);
         ArrayList<PostIngestPlugin> postIngestPlugins = new ArrayList<>();
-        FrameworkProperties props = new FrameworkProperties();
+        props = new FrameworkProperties();
         props.setCatalogProviders(Collections.singletonList(provider));
         props.setPostIngest(postIngestPlugins);
         props.setFederationStrategy(new MockFederationStrategy());
@@ -246,6 +248,25 @@ public void testAfterQuery() throws Exception {
         }
     }
 
+    @Test
+    public void testFailedQueryRecordsTotalLatency() throws Exception {
+        props.setFederationStrategy(null);
+        FilterFactory filterFactory = new FilterFactoryImpl();
+        QueryImpl query = new QueryImpl(filterFactory.equals(filterFactory.property(Metacard.TITLE),
+                filterFactory.literal("title")));
+        QueryRequest queryReq = new QueryRequestImpl(query, false);
+
+        try {
+            framework.query(queryReq);
+            fail();
+        } catch (FederationException e) {
+            assertEquals(1,
+                    props.getLatencyMetrics()
+                            .timer("query", "Total")
+                            .getCount());
+        }
+    }
+
     @Test
     public void testBeforeQuery() {
         Calendar beforeCal = Calendar.getInstance();
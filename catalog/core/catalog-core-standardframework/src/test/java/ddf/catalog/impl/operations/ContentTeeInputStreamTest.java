@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Adler32;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ContentTeeInputStreamTest {
+
+    private static final int HEAD_LIMIT = 16;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testChecksumsAndSize() throws Exception {
+        byte[] content = "The quick brown fox jumps over the lazy dog".getBytes("UTF-8");
+        ContentTeeInputStream teeStream = new ContentTeeInputStream(new ByteArrayInputStream(
+                content), HEAD_LIMIT, Arrays.asList("Adler32", "MD5"));
+
+        copy(teeStream);
+
+        Adler32 adler32 = new Adler32();
+        adler32.update(content);
+        Map<String, String> checksums = teeStream.getChecksums();
+        assertThat(teeStream.getSize(), is((long) content.length));
+        assertThat(checksums.get("Adler32"), is(Long.toHexString(adler32.getValue())));
+        assertThat(checksums.get("MD5"), is("9e107d9d372bb6826bd81d3542a419d6"));
+    }
+
+    @Test
+    public void testHeadIsBounded() throws Exception {
+        byte[] content = randomBytes(100);
+        ContentTeeInputStream teeStream = newTeeStream(content);
+
+        copy(teeStream);
+
+        assertThat(teeStream.getHead(), is(Arrays.copyOf(content, HEAD_LIMIT)));
+        assertThat(teeStream.isHeadComplete(), is(false));
+    }
+
+    @Test
+    public void testOpenStreamReadsRestFromCopy() throws Exception {
+        byte[] content = randomBytes(100);
+        ContentTeeInputStream teeStream = newTeeStream(content);
+
+        Path copy = copy(teeStream);
+
+        try (InputStream inputStream = teeStream.openStream(copy)) {
+            assertThat(IOUtils.toByteArray(inputStream), is(content));
+        }
+    }
+
+    @Test
+    public void testOpenStreamOfContentInHead() throws Exception {
+        byte[] content = randomBytes(HEAD_LIMIT);
+        ContentTeeInputStream teeStream = newTeeStream(content);
+
+        Path copy = copy(teeStream);
+        Files.delete(copy);
+
+        assertThat(teeStream.isHeadComplete(), is(true));
+        try (InputStream inputStream = teeStream.openStream(copy)) {
+            assertThat(IOUtils.toByteArray(inputStream), is(content));
+        }
+    }
+
+    @Test
+    public void testSkippedBytesAreInspected() throws Exception {
+        byte[] content = randomBytes(100);
+        ContentTeeInputStream teeStream = newTeeStream(content);
+
+        assertThat(teeStream.skip(40), is(40L));
+        assertThat(teeStream.read(), is(content[40] & 0xFF));
+
+        assertThat(teeStream.getSize(), is(41L));
+        assertThat(teeStream.getHead(), is(Arrays.copyOf(content, HEAD_LIMIT)));
+    }
+
+    @Test(expected = NoSuchAlgorithmException.class)
+    public void testUnsupportedAlgorithm() throws Exception {
+        new ContentTeeInputStream(new ByteArrayInputStream(new byte[0]),
+                HEAD_LIMIT,
+                Collections.singletonList("NotAnAlgorithm"));
+    }
+
+    private ContentTeeInputStream newTeeStream(byte[] content) throws NoSuchAlgorithmException {
+        return new ContentTeeInputStream(new ByteArrayInputStream(content),
+                HEAD_LIMIT,
+                Collections.singletonList("Adler32"));
+    }
+
+    private Path copy(InputStream inputStream) throws IOException {
+        Path copy = temporaryFolder.newFile()
+                .toPath();
+        Files.copy(inputStream, copy, StandardCopyOption.REPLACE_EXISTING);
+        return copy;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+import ddf.catalog.content.data.ContentItem;
+
+public class OperationsMetacardSupportTest {
+
+    @Test
+    public void testUnchangedContentItemsKeepIngestHints() {
+        // given
+        List<ContentItem> generated = Arrays.asList(contentItem("content:a"),
+                contentItem("content:b"));
+        HashMap<String, HashMap<String, String>> checksums = checksums("content:a", "content:b");
+        HashMap<String, String> mimeHints = mimeHints("content:a", "content:b");
+
+        // when
+        OperationsMetacardSupport.removeReplacedContentHints(generated,
+                new ArrayList<>(generated),
+                checksums,
+                mimeHints);
+
+        // then
+        assertThat(checksums.keySet(), containsInAnyOrder("content:a", "content:b"));
+        assertThat(mimeHints.keySet(), containsInAnyOrder("content:a", "content:b"));
+    }
+
+    @Test
+    public void testReplacedContentItemLosesIngestHints() {
+        // given
+        List<ContentItem> generated = Arrays.asList(contentItem("content:a"),
+                contentItem("content:b"));
+        HashMap<String, HashMap<String, String>> checksums = checksums("content:a", "content:b");
+        HashMap<String, String> mimeHints = mimeHints("content:a", "content:b");
+        List<ContentItem> processed = Arrays.asList(generated.get(0), contentItem("content:b"));
+
+        // when
+        OperationsMetacardSupport.removeReplacedContentHints(generated,
+                processed,
+                checksums,
+                mimeHints);
+
+        // then
+        assertThat(checksums.keySet(), containsInAnyOrder("content:a"));
+        assertThat(mimeHints.keySet(), containsInAnyOrder("content:a"));
+    }
+
+    @Test
+    public void testAddedContentItemWithSameUriRemovesIngestHints() {
+        // given
+        List<ContentItem> generated = Arrays.asList(contentItem("content:a"));
+        HashMap<String, HashMap<String, String>> checksums = checksums("content:a");
+        HashMap<String, String> mimeHints = mimeHints("content:a");
+        List<ContentItem> processed = Arrays.asList(generated.get(0), contentItem("content:a"));
+
+        // when
+        OperationsMetacardSupport.removeReplacedContentHints(generated,
+                processed,
+                checksums,
+                mimeHints);
+
+        // then
+        assertThat(checksums.isEmpty(), is(true));
+        assertThat(mimeHints.isEmpty(), is(true));
+    }
+
+    private static ContentItem contentItem(String uri) {
+        ContentItem contentItem = mock(ContentItem.class);
+        when(contentItem.getUri()).thenReturn(uri);
+        return contentItem;
+    }
+
+    private static HashMap<String, HashMap<String, String>> checksums(String... uris) {
+        HashMap<String, HashMap<String, String>> checksums = new HashMap<>();
+        for (String uri : uris) {
+            HashMap<String, String> itemChecksums = new HashMap<>();
+            itemChecksums.put("Adler32", "1");
+            checksums.put(uri, itemChecksums);
+        }
+        return checksums;
+    }
+
+    private static HashMap<String, String> mimeHints(String... uris) {
+        HashMap<String, String> mimeHints = new HashMap<>();
+        for (String uri : uris) {
+            mimeHints.put(uri, "text/plain");
+        }
+        return mimeHints;
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteResponse;
+import ddf.catalog.operation.UpdateResponse;
+import ddf.catalog.plugin.PluginExecutionException;
+import ddf.catalog.plugin.PostIngestPlugin;
+
+public class PostIngestPluginExecutorTest {
+
+    private static final List<String> IDS = Collections.singletonList("id");
+
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private PostIngestPluginExecutor executor;
+
+    @Before
+    public void setup() {
+        executor = new PostIngestPluginExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.destroy();
+    }
+
+    @Test
+    public void testExecuteDoesNotWaitForPlugins() {
+        RecordingPlugin slowPlugin = new RecordingPlugin("slow", true);
+
+        executor.execute(Collections.singletonList(slowPlugin),
+                mock(CreateResponse.class),
+                IDS,
+                PostIngestPlugin::process);
+
+        assertThat(calls, is(empty()));
+
+        release.countDown();
+        executor.destroy();
+
+        assertThat(calls, contains("slow:create"));
+    }
+
+    @Test
+    public void testPluginOrderIsPreservedForMetacard() {
+        executor.setPoolSize(4);
+        List<PostIngestPlugin> plugins = Arrays.asList(new RecordingPlugin("first", true),
+                new RecordingPlugin("second", false));
+
+        executor.execute(plugins, mock(CreateResponse.class), IDS, PostIngestPlugin::process);
+        executor.execute(plugins, mock(UpdateResponse.class), IDS, PostIngestPlugin::process);
+        executor.execute(plugins, mock(DeleteResponse.class), IDS, PostIngestPlugin::process);
+
+        release.countDown();
+        executor.destroy();
+
+        assertThat(calls,
+                contains("first:create",
+                        "second:create",
+                        "first:update",
+                        "second:update",
+                        "first:delete",
+                        "second:delete"));
+    }
+
+    @Test
+    public void testOtherMetacardsDoNotWait() throws Exception {
+        executor.execute(Collections.singletonList(new RecordingPlugin("slow", true)),
+                mock(CreateResponse.class),
+                IDS,
+                PostIngestPlugin::process);
+        CountDownLatch fastDone = new CountDownLatch(1);
+        PostIngestPlugin fastPlugin = new RecordingPlugin("fast", false) {
+            @Override
+            public CreateResponse process(CreateResponse input) {
+                CreateResponse response = super.process(input);
+                fastDone.countDown();
+                return response;
+            }
+        };
+
+        executor.execute(Collections.singletonList(fastPlugin),
+                mock(CreateResponse.class),
+                Collections.singletonList("other"),
+                PostIngestPlugin::process);
+
+        assertThat(fastDone.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(calls, contains("fast:create"));
+    }
+
+    @Test
+    public void testFailingPluginDoesNotStopLaterPlugins() {
+        PostIngestPlugin failingPlugin = new RecordingPlugin("failing", false) {
+            @Override
+            public CreateResponse process(CreateResponse input) {
+                throw new IllegalStateException("failed");
+            }
+        };
+
+        executor.execute(Arrays.asList(failingPlugin, new RecordingPlugin("next", false)),
+                mock(CreateResponse.class),
+                IDS,
+                PostIngestPlugin::process);
+        executor.destroy();
+
+        assertThat(calls, contains("next:create"));
+    }
+
+    @Test
+    public void testExecuteBlocksWhenQueueIsFull() throws Exception {
+        executor.setQueueSize(1);
+        executor.execute(Collections.singletonList(new RecordingPlugin("slow", true)),
+                mock(CreateResponse.class),
+                IDS,
+                PostIngestPlugin::process);
+
+        AtomicBoolean submitted = new AtomicBoolean();
+        Thread thread = new Thread(() -> {
+            executor.execute(Collections.singletonList(new RecordingPlugin("next", false)),
+                    mock(CreateResponse.class),
+                    Collections.singletonList("other"),
+                    PostIngestPlugin::process);
+            submitted.set(true);
+        });
+        thread.start();
+        thread.join(500);
+
+        assertThat(submitted.get(), is(false));
+
+        release.countDown();
+        thread.join(10000);
+
+        assertThat(submitted.get(), is(true));
+    }
+
+    @Test
+    public void testPluginSubmittingWhenQueueIsFullDoesNotDeadlock() throws Exception {
+        executor.setPoolSize(1);
+        executor.setQueueSize(1);
+        CountDownLatch nestedDone = new CountDownLatch(1);
+        PostIngestPlugin ingestingPlugin = new RecordingPlugin("ingesting", false) {
+            @Override
+            public CreateResponse process(CreateResponse input) {
+                CreateResponse response = super.process(input);
+                executor.execute(Collections.singletonList(new RecordingPlugin("nested", false)),
+                        mock(CreateResponse.class),
+                        Collections.singletonList("nested"),
+                        PostIngestPlugin::process);
+                nestedDone.countDown();
+                return response;
+            }
+        };
+
+        executor.execute(Collections.singletonList(ingestingPlugin),
+                mock(CreateResponse.class),
+                IDS,
+                PostIngestPlugin::process);
+
+        assertThat(nestedDone.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(calls, contains("ingesting:create", "nested:create"));
+    }
+
+    @Test
+    public void testRunsOnCallingThreadWhenDisabled() {
+        executor.setPoolSize(0);
+
+        executor.execute(Collections.singletonList(new RecordingPlugin("plugin", false)),
+                mock(DeleteResponse.class),
+                IDS,
+                PostIngestPlugin::process);
+
+        assertThat(calls, contains("plugin:delete"));
+    }
+
+    @Test
+    public void testRunsOnCallingThreadAfterDestroy() {
+        executor.destroy();
+
+        executor.execute(Collections.singletonList(new RecordingPlugin("plugin", false)),
+                mock(UpdateResponse.class),
+                IDS,
+                PostIngestPlugin::process);
+
+        assertThat(calls, contains("plugin:update"));
+    }
+
+    private class RecordingPlugin implements PostIngestPlugin {
+
+        private final String name;
+
+        private final boolean slow;
+
+        RecordingPlugin(String name, boolean slow) {
+            this.name = name;
+            this.slow = slow;
+        }
+
+        @Override
+        public CreateResponse process(CreateResponse input) {
+            record("create");
+            return input;
+        }
+
+        @Override
+        public UpdateResponse process(UpdateResponse input) {
+            record("update");
+            return input;
+        }
+
+        @Override
+        public DeleteResponse process(DeleteResponse input) throws PluginExecutionException {
+            record("delete");
+            return input;
+        }
+
+        private void record(String operation) {
+            if (slow) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread()
+                            .interrupt();
+                }
+            }
+            calls.add(name + ":" + operation);
+        }
+    }
+}
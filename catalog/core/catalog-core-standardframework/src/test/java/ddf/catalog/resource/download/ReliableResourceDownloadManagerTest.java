@@ -14,13 +14,17 @@
 package ddf.catalog.resource.download;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.timeout;
@@ -29,6 +33,7 @@
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
@@ -69,6 +74,7 @@
 import ddf.catalog.event.retrievestatus.DownloadStatusInfoImpl;
 import ddf.catalog.event.retrievestatus.DownloadsStatusEventListener;
 import ddf.catalog.event.retrievestatus.DownloadsStatusEventPublisher;
+import ddf.catalog.event.retrievestatus.DownloadsStatusEventPublisher.ProductRetrievalStatus;
 import ddf.catalog.operation.ResourceRequest;
 import ddf.catalog.operation.ResourceResponse;
 import ddf.catalog.resource.Resource;
@@ -263,6 +269,50 @@ public void testDownloadWithoutCaching() throws Exception {
         cleanup();
     }
 
+    @Test
+    public void testDownloadLocalFile() throws Exception {
+        Metacard metacard = getMockMetacard(EXPECTED_METACARD_ID, EXPECTED_METACARD_SOURCE_ID);
+        resourceResponse = getMockResourceResponse();
+        when(resource.getInputStream()).thenReturn(new FileInputStream(productInputFilename));
+        when(resource.getSize()).thenReturn(expectedFileSize);
+
+        ResourceRetriever retriever = mock(ResourceRetriever.class);
+        when(retriever.retrieveResource()).thenReturn(resourceResponse);
+
+        ResourceResponse newResourceResponse = downloadMgr.download(resourceRequest,
+                metacard,
+                retriever);
+        assertThat((String) newResourceResponse.getPropertyValue(Metacard.ID),
+                is(EXPECTED_METACARD_ID));
+        String downloadId = (String) newResourceResponse.getPropertyValue(
+                ReliableResourceDownloadManager.DOWNLOAD_ID_PROPERTY_KEY);
+        assertThat(downloadId, is(notNullValue()));
+        assertThat(downloadStatusInfo.getAllDownloads(), hasItem(downloadId));
+        verify(eventPublisher).postRetrievalStatus(any(ResourceResponse.class),
+                eq(ProductRetrievalStatus.STARTED),
+                eq(metacard),
+                isNull(String.class),
+                eq(0L),
+                eq(downloadId));
+
+        productInputStream = newResourceResponse.getResource()
+                .getInputStream();
+        assertThat(productInputStream, is(instanceOf(FileInputStream.class)));
+        assertEquals(expectedFileContents, IOUtils.toString(productInputStream));
+        productInputStream.close();
+
+        assertThat(downloadStatusInfo.getDownloadStatus(downloadId)
+                .get(BYTES_DOWNLOADED_KEY), is(Long.toString(expectedFileSize)));
+        assertThat(downloadStatusInfo.getDownloadStatus(downloadId)
+                .get(STATUS_KEY), is(DownloadState.COMPLETED.name()));
+        verify(eventPublisher).postRetrievalStatus(any(ResourceResponse.class),
+                eq(ProductRetrievalStatus.COMPLETE),
+                eq(metacard),
+                isNull(String.class),
+                eq(expectedFileSize),
+                eq(downloadId));
+    }
+
     @Test
     //@Ignore
     public void testDownloadWithCaching() throws Exception {
@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.resource.download;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.CountingOutputStream;
+
+import ddf.catalog.operation.ResourceResponse;
+import ddf.catalog.operation.impl.ResourceResponseImpl;
+import ddf.catalog.resource.ResourceNotFoundException;
+import ddf.catalog.resource.impl.ResourceImpl;
+import ddf.catalog.resourceretriever.ResourceRetriever;
+
+public class SegmentedResourceCallableTest {
+
+    private static final int PRODUCT_SIZE = 10000;
+
+    private static final int SEGMENT_COUNT = 4;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private byte[] product;
+
+    private File cacheFile;
+
+    private FileOutputStream fos;
+
+    private ByteArrayOutputStream clientOutput;
+
+    private ReliableResourceDownloaderConfig downloaderConfig;
+
+    private ExecutorService segmentExecutor;
+
+    @Before
+    public void setUp() throws IOException {
+        product = new byte[PRODUCT_SIZE];
+        new Random(42).nextBytes(product);
+        cacheFile = temporaryFolder.newFile("product");
+        fos = new FileOutputStream(cacheFile);
+        clientOutput = new ByteArrayOutputStream();
+
+        downloaderConfig = new ReliableResourceDownloaderConfig();
+        downloaderConfig.setChunkSize(100);
+        downloaderConfig.setMaxRetryAttempts(3);
+        downloaderConfig.setDelayBetweenAttemptsMS(0);
+        segmentExecutor = Executors.newFixedThreadPool(SEGMENT_COUNT);
+        downloaderConfig.setSegmentExecutor(segmentExecutor);
+    }
+
+    @After
+    public void tearDown() {
+        segmentExecutor.shutdownNow();
+        IOUtils.closeQuietly(fos);
+    }
+
+    @Test
+    public void testSegmentsDeliveredInOrder() throws Exception {
+        TestRetriever retriever = new TestRetriever(0);
+
+        ReliableResourceStatus status = newCallable(retriever).call();
+
+        assertThat(status.getDownloadStatus(), is(DownloadStatus.RESOURCE_DOWNLOAD_COMPLETE));
+        assertThat(status.getBytesRead(), is((long) PRODUCT_SIZE));
+        assertThat(clientOutput.toByteArray(), is(product));
+        assertThat(Files.readAllBytes(cacheFile.toPath()), is(product));
+        assertThat(fos.getChannel()
+                .position(), is((long) PRODUCT_SIZE));
+        assertThat(retriever.getRetrievals(), is(SEGMENT_COUNT - 1));
+    }
+
+    @Test
+    public void testFailedSegmentRetried() throws Exception {
+        TestRetriever retriever = new TestRetriever(2);
+
+        ReliableResourceStatus status = newCallable(retriever).call();
+
+        assertThat(status.getDownloadStatus(), is(DownloadStatus.RESOURCE_DOWNLOAD_COMPLETE));
+        assertThat(clientOutput.toByteArray(), is(product));
+        assertThat(Files.readAllBytes(cacheFile.toPath()), is(product));
+    }
+
+    @Test
+    public void testSegmentFailureReturnsDeliveredPrefix() throws Exception {
+        TestRetriever retriever = new TestRetriever(Integer.MAX_VALUE);
+
+        ReliableResourceStatus status = newCallable(retriever).call();
+
+        // Only the first segment, read from the product's InputStream, can be delivered
+        long segmentSize = PRODUCT_SIZE / SEGMENT_COUNT;
+        assertThat(status.getDownloadStatus(),
+                is(DownloadStatus.PRODUCT_INPUT_STREAM_EXCEPTION));
+        assertThat(status.getBytesRead(), is(segmentSize));
+        assertThat(clientOutput.toByteArray(),
+                is(Arrays.copyOf(product, (int) segmentSize)));
+        assertThat(fos.getChannel()
+                .position(), is(segmentSize));
+    }
+
+    @Test(timeout = 10000)
+    public void testUnexpectedSegmentFailureFailsDownload() throws Exception {
+        TestRetriever retriever = new TestRetriever(0) {
+            @Override
+            public ResourceResponse retrieveResource(long bytesToSkip, long bytesToRead) {
+                throw new IllegalStateException("Unexpected");
+            }
+        };
+
+        ReliableResourceStatus status = newCallable(retriever).call();
+
+        assertThat(status.getDownloadStatus(),
+                is(DownloadStatus.PRODUCT_INPUT_STREAM_EXCEPTION));
+    }
+
+    @Test
+    public void testSegmentsShareExecutor() throws Exception {
+        ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        downloaderConfig.setSegmentExecutor(singleThread);
+        try {
+            ReliableResourceStatus status = newCallable(new TestRetriever(0)).call();
+
+            assertThat(status.getDownloadStatus(),
+                    is(DownloadStatus.RESOURCE_DOWNLOAD_COMPLETE));
+            assertThat(clientOutput.toByteArray(), is(product));
+        } finally {
+            singleThread.shutdownNow();
+        }
+    }
+
+    private SegmentedResourceCallable newCallable(ResourceRetriever retriever) {
+        return new SegmentedResourceCallable(new ByteArrayInputStream(product),
+                retriever,
+                new CountingOutputStream(clientOutput),
+                fos,
+                cacheFile.toPath(),
+                PRODUCT_SIZE,
+                SEGMENT_COUNT,
+                downloaderConfig,
+                new Object());
+    }
+
+    /**
+     * Serves byte ranges of the product, failing the given number of retrievals first.
+     */
+    private class TestRetriever implements ResourceRetriever {
+
+        private final AtomicInteger failures;
+
+        private final AtomicInteger retrievals = new AtomicInteger();
+
+        TestRetriever(int failures) {
+            this.failures = new AtomicInteger(failures);
+        }
+
+        int getRetrievals() {
+            return retrievals.get();
+        }
+
+        @Override
+        public ResourceResponse retrieveResource() throws ResourceNotFoundException {
+            return retrieveResource(0, -1);
+        }
+
+        @Override
+        public ResourceResponse retrieveResource(long bytesToSkip)
+                throws ResourceNotFoundException {
+            return retrieveResource(bytesToSkip, -1);
+        }
+
+        @Override
+        public ResourceResponse retrieveResource(long bytesToSkip, long bytesToRead)
+                throws ResourceNotFoundException {
+            if (failures.getAndDecrement() > 0) {
+                throw new ResourceNotFoundException("Unavailable");
+            }
+            retrievals.incrementAndGet();
+            int length = bytesToRead < 0 ? PRODUCT_SIZE : (int) bytesToRead;
+            return new ResourceResponseImpl(new ResourceImpl(new ByteArrayInputStream(product,
+                    (int) bytesToSkip,
+                    length), "product"));
+        }
+    }
+}
@@ -23,6 +23,7 @@
 import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -34,7 +35,9 @@
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
 import org.apache.tika.Tika;
@@ -84,6 +87,12 @@ public class URLResourceReader implements ResourceReader {
 
     private static final String BYTES_TO_SKIP = "BytesToSkip";
 
+    private static final String BYTES_TO_READ = "BytesToRead";
+
+    private static final String ACCEPTS_BYTE_RANGES = "AcceptsByteRanges";
+
+    private static final String BYTES_UNIT = "bytes";
+
     private static final String USERNAME = "username";
 
     private static final String PASSWORD = "password";
@@ -338,6 +347,17 @@ private ResourceResponse retrieveHttpProduct(URI resourceURI, String productName
 
             WebClient client = getWebClient(resourceURI.toString(), properties);
 
+            long skip = Long.parseLong(bytesToSkip);
+            long bytesToRead = getBytesToRead(properties);
+            if (skip > 0 || bytesToRead >= 0) {
+                String range = BYTES_UNIT + "=" + skip + "-";
+                if (bytesToRead > 0) {
+                    range += skip + bytesToRead - 1;
+                }
+                LOGGER.debug("Requesting range {}", range);
+                client.header(HttpHeaders.RANGE, range);
+            }
+
             Object subjectObj = properties.get(SecurityConstants.SECURITY_SUBJECT);
             if (subjectObj != null) {
                 Subject subject = (Subject) subjectObj;
@@ -391,11 +411,27 @@ private ResourceResponse retrieveHttpProduct(URI resourceURI, String productName
                         "bytes ",
                         "-"));
             }
-            alignStream(is, Long.parseLong(bytesToSkip), responseBytesSkipped);
+            alignStream(is, skip, responseBytesSkipped);
 
-            return new ResourceResponseImpl(new ResourceImpl(new BufferedInputStream(is),
+            if (bytesToRead >= 0) {
+                // The server may not honor the end of the range
+                is = new BoundedInputStream(is, bytesToRead);
+            }
+
+            ResourceImpl resource = new ResourceImpl(new BufferedInputStream(is),
                     mimeType,
-                    FilenameUtils.getName(productName)));
+                    FilenameUtils.getName(productName));
+            Object contentLength = headers.getFirst(HttpHeaders.CONTENT_LENGTH);
+            if (contentLength != null && skip == 0 && bytesToRead < 0
+                    && Response.Status.OK.getStatusCode() == clientResponse.getStatus()) {
+                resource.setSize(NumberUtils.toLong(String.valueOf(contentLength), -1));
+            }
+
+            Map<String, Serializable> responseProperties = new HashMap<>();
+            Object acceptRanges = headers.getFirst(HttpHeaders.ACCEPT_RANGES);
+            responseProperties.put(ACCEPTS_BYTE_RANGES,
+                    BYTES_UNIT.equalsIgnoreCase(String.valueOf(acceptRanges)));
+            return new ResourceResponseImpl(null, responseProperties, resource);
         } catch (MimeTypeResolutionException | IOException | WebApplicationException e) {
             LOGGER.info("Error retrieving resource", e);
             throw new ResourceNotFoundException(
@@ -480,6 +516,15 @@ private void skipBytes(InputStream is, String bytesToSkip) throws IOException {
         }
     }
 
+    private long getBytesToRead(Map<String, Serializable> properties) {
+        Serializable bytesToRead = properties.get(BYTES_TO_READ);
+        if (bytesToRead == null) {
+            return -1;
+        }
+        LOGGER.debug("bytesToRead: {}", bytesToRead);
+        return NumberUtils.toLong(bytesToRead.toString(), -1);
+    }
+
     private void alignStream(InputStream in, long requestedBytesToSkip, long responseBytesSkipped)
             throws IOException {
         long misalignment = requestedBytesToSkip - responseBytesSkipped;
@@ -22,7 +22,11 @@
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
@@ -115,6 +119,10 @@ public class ResourceReaderTest {
 
     private static final String BYTES_TO_SKIP = "BytesToSkip";
 
+    private static final String BYTES_TO_READ = "BytesToRead";
+
+    private static final String ACCEPTS_BYTE_RANGES = "AcceptsByteRanges";
+
     @Rule
     public MethodRule watchman = new TestWatchman() {
         public void starting(FrameworkMethod method) {
@@ -457,6 +465,73 @@ public void testServerSupportsPartialContentResponseWithNotEnoughOffset() throws
                         .getByteArray().length);
     }
 
+    /**
+     * Tests that a request for a number of bytes sends a bounded Range header and returns only
+     * the requested bytes, even when the server sends more.
+     * @throws Exception
+     */
+    @Test
+    public void testBytesToReadRequestsBoundedRange() throws Exception {
+        URI uri = new URI(HTTP_SCHEME_PLUS_SEP + HOST + TEST_PATH + BAD_FILE_NAME);
+
+        Response mockResponse = mock(Response.class);
+        when(mockWebClient.get()).thenReturn(mockResponse);
+        MultivaluedMap<String, Object> map = new MultivaluedHashMap<>();
+        map.put(HttpHeaders.CONTENT_DISPOSITION,
+                Arrays.asList("inline; filename=\"" + JPEG_FILE_NAME_1 + "\""));
+        map.put(HttpHeaders.CONTENT_RANGE, Arrays.asList("bytes 1-4/5"));
+        map.put(HttpHeaders.ACCEPT_RANGES, Arrays.asList("bytes"));
+        when(mockResponse.getHeaders()).thenReturn(map);
+        when(mockResponse.getStatus()).thenReturn(Response.Status.PARTIAL_CONTENT.getStatusCode());
+
+        when(mockResponse.getEntity()).thenReturn(getBinaryDataWithOffset(1));
+
+        Map<String, Serializable> arguments = new HashMap<>();
+        arguments.put(BYTES_TO_SKIP, "1");
+        arguments.put(BYTES_TO_READ, 2L);
+
+        ResourceResponse response = doVerification(uri,
+                JPEG_FILE_NAME_1,
+                JPEG_MIME_TYPE,
+                arguments);
+
+        verify(mockWebClient).header(HttpHeaders.RANGE, "bytes=1-2");
+        assertThat(response.getResource()
+                .getByteArray(), is(new byte[] {66, 67}));
+        assertThat(response.getPropertyValue(ACCEPTS_BYTE_RANGES), is(true));
+    }
+
+    /**
+     * Tests that a full response reports its size and that the server does not accept byte
+     * ranges when it does not send an Accept-Ranges header.
+     * @throws Exception
+     */
+    @Test
+    public void testFullResponseReportsSizeAndRangeSupport() throws Exception {
+        URI uri = new URI(HTTP_SCHEME_PLUS_SEP + HOST + TEST_PATH + BAD_FILE_NAME);
+
+        Response mockResponse = mock(Response.class);
+        when(mockWebClient.get()).thenReturn(mockResponse);
+        MultivaluedMap<String, Object> map = new MultivaluedHashMap<>();
+        map.put(HttpHeaders.CONTENT_DISPOSITION,
+                Arrays.asList("inline; filename=\"" + JPEG_FILE_NAME_1 + "\""));
+        map.put(HttpHeaders.CONTENT_LENGTH, Arrays.asList("5"));
+        when(mockResponse.getHeaders()).thenReturn(map);
+        when(mockResponse.getStatus()).thenReturn(Response.Status.OK.getStatusCode());
+
+        when(mockResponse.getEntity()).thenReturn(getBinaryData());
+
+        ResourceResponse response = verifyFileFromURLResourceReader(uri,
+                JPEG_FILE_NAME_1,
+                JPEG_MIME_TYPE,
+                null);
+
+        verify(mockWebClient, never()).header(eq(HttpHeaders.RANGE), anyVararg());
+        assertThat(response.getResource()
+                .getSize(), is(5L));
+        assertThat(response.getPropertyValue(ACCEPTS_BYTE_RANGES), is(false));
+    }
+
     /**
      * Tests that a Partial Content response that has a higher byte offset as what was requested
      * throws an IOException in order to prevent data loss.
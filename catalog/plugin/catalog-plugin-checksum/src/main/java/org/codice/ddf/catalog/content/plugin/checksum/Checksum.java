@@ -15,11 +15,14 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
+import java.util.Map;
 
 import org.codice.ddf.checksum.ChecksumProvider;
 
+import ddf.catalog.Constants;
 import ddf.catalog.content.data.ContentItem;
 import ddf.catalog.content.operation.CreateStorageRequest;
 import ddf.catalog.content.operation.UpdateStorageRequest;
@@ -42,7 +45,7 @@ public CreateStorageRequest process(CreateStorageRequest input)
         if (input == null) {
             throw new IllegalArgumentException("CreateStorageRequest cannot be null");
         }
-        runChecksum(input.getContentItems());
+        runChecksum(input.getContentItems(), input.getProperties());
 
         return input;
     }
@@ -53,33 +56,61 @@ public UpdateStorageRequest process(UpdateStorageRequest input)
         if (input == null) {
             throw new IllegalArgumentException("UpdateStorageRequest cannot be null");
         }
-        runChecksum(input.getContentItems());
+        runChecksum(input.getContentItems(), input.getProperties());
 
         return input;
     }
 
-    private void runChecksum(List<ContentItem> contentItems) throws PluginExecutionException {
+    private void runChecksum(List<ContentItem> contentItems, Map<String, Serializable> properties)
+            throws PluginExecutionException {
+        String checksumAlgorithm = checksumProvider.getChecksumAlgorithm();
         for (ContentItem contentItem : contentItems) {
-            try (InputStream inputStream = contentItem.getInputStream()) {
-                //calculate checksum so that it can be added as an attribute on metacard
-                String checksumAlgorithm = checksumProvider.getChecksumAlgorithm();
-                String checksumValue;
-
-                try {
-                    checksumValue = checksumProvider.calculateChecksum(inputStream);
-                } catch (IOException e) {
-                    throw new PluginExecutionException("Error calculating checksum", e);
-                } catch (NoSuchAlgorithmException e) {
-                    throw new PluginExecutionException("Unsupported algorithm", e);
-                }
-
-                addChecksumAttributes(contentItem.getMetacard(), checksumAlgorithm, checksumValue);
+            // use the checksum calculated while the content was ingested, if there is one
+            String checksumValue = getIngestChecksum(properties,
+                    contentItem.getUri(),
+                    checksumAlgorithm);
+            if (checksumValue == null) {
+                checksumValue = calculateChecksum(contentItem);
+            }
+
+            addChecksumAttributes(contentItem.getMetacard(), checksumAlgorithm, checksumValue);
+        }
+    }
+
+    private String calculateChecksum(ContentItem contentItem) throws PluginExecutionException {
+        try (InputStream inputStream = contentItem.getInputStream()) {
+            //calculate checksum so that it can be added as an attribute on metacard
+            try {
+                return checksumProvider.calculateChecksum(inputStream);
             } catch (IOException e) {
-                throw new PluginExecutionException(
-                        "Unable to retrieve input stream for content item",
-                        e);
+                throw new PluginExecutionException("Error calculating checksum", e);
+            } catch (NoSuchAlgorithmException e) {
+                throw new PluginExecutionException("Unsupported algorithm", e);
             }
+        } catch (IOException e) {
+            throw new PluginExecutionException("Unable to retrieve input stream for content item",
+                    e);
+        }
+    }
+
+    private String getIngestChecksum(Map<String, Serializable> properties, String uri,
+            String checksumAlgorithm) {
+        if (properties == null || uri == null) {
+            return null;
+        }
+
+        Serializable checksums = properties.get(Constants.CONTENT_CHECKSUMS);
+        if (!(checksums instanceof Map)) {
+            return null;
         }
+
+        Object itemChecksums = ((Map<?, ?>) checksums).get(uri);
+        if (!(itemChecksums instanceof Map)) {
+            return null;
+        }
+
+        Object checksumValue = ((Map<?, ?>) itemChecksums).get(checksumAlgorithm);
+        return checksumValue instanceof String ? (String) checksumValue : null;
     }
 
     private void addChecksumAttributes(Metacard metacard, final String checksumAlgorithm,
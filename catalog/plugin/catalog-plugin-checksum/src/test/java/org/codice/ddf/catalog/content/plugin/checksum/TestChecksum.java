@@ -21,18 +21,24 @@
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.codice.ddf.checksum.ChecksumProvider;
 import org.junit.Before;
 import org.junit.Test;
 
+import ddf.catalog.Constants;
 import ddf.catalog.content.data.ContentItem;
 import ddf.catalog.content.operation.CreateStorageRequest;
 import ddf.catalog.content.operation.UpdateStorageRequest;
@@ -53,6 +59,10 @@ public class TestChecksum {
 
     private static final String SAMPLE_CHECKSUM_VALUE = "324D54D92B2D97471F9F4624596EA9F5";
 
+    private static final String INGEST_CHECKSUM_VALUE = "9e107d9d372bb6826bd81d3542a419d6";
+
+    private static final String SAMPLE_CONTENT_URI = "content:sample";
+
     @Before
     public void initialize() throws IOException, NoSuchAlgorithmException {
         mockChecksumProvider = mock(ChecksumProvider.class);
@@ -113,6 +123,52 @@ public void testProcessUpdateWithValidInput() throws PluginExecutionException {
         assertThat(checksumAlgorithm, is(SAMPLE_CHECKSUM_ALGORITHM));
     }
 
+    @Test
+    public void testProcessCreateWithIngestChecksum() throws Exception {
+        ContentItem contentItem = mockCreateRequest.getContentItems()
+                .get(0);
+        when(contentItem.getUri()).thenReturn(SAMPLE_CONTENT_URI);
+        HashMap<String, String> itemChecksums = new HashMap<>();
+        itemChecksums.put(SAMPLE_CHECKSUM_ALGORITHM, INGEST_CHECKSUM_VALUE);
+        HashMap<String, HashMap<String, String>> checksums = new HashMap<>();
+        checksums.put(SAMPLE_CONTENT_URI, itemChecksums);
+        Map<String, Serializable> properties = new HashMap<>();
+        properties.put(Constants.CONTENT_CHECKSUMS, checksums);
+        when(mockCreateRequest.getProperties()).thenReturn(properties);
+
+        CreateStorageRequest request = checksum.process(mockCreateRequest);
+
+        assertThat(request.getContentItems()
+                .get(0)
+                .getMetacard()
+                .getAttribute(Metacard.CHECKSUM)
+                .getValue(), is(INGEST_CHECKSUM_VALUE));
+        verify(mockChecksumProvider, never()).calculateChecksum(any(InputStream.class));
+        verify(contentItem, never()).getInputStream();
+    }
+
+    @Test
+    public void testProcessUpdateWithIngestChecksumOfOtherAlgorithm() throws Exception {
+        when(mockUpdateRequest.getContentItems()
+                .get(0)
+                .getUri()).thenReturn(SAMPLE_CONTENT_URI);
+        HashMap<String, String> itemChecksums = new HashMap<>();
+        itemChecksums.put("Adler32", INGEST_CHECKSUM_VALUE);
+        HashMap<String, HashMap<String, String>> checksums = new HashMap<>();
+        checksums.put(SAMPLE_CONTENT_URI, itemChecksums);
+        Map<String, Serializable> properties = new HashMap<>();
+        properties.put(Constants.CONTENT_CHECKSUMS, checksums);
+        when(mockUpdateRequest.getProperties()).thenReturn(properties);
+
+        UpdateStorageRequest request = checksum.process(mockUpdateRequest);
+
+        assertThat(request.getContentItems()
+                .get(0)
+                .getMetacard()
+                .getAttribute(Metacard.CHECKSUM)
+                .getValue(), is(SAMPLE_CHECKSUM_VALUE));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testProcessCreateWithNullInput() throws PluginExecutionException {
         checksum.process((CreateStorageRequest)null);
@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.endpoints.rest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * A byte range of an HTTP {@code Range} header: a closed range ({@code first-last}), an open
+ * range ({@code first-}) or a suffix range ({@code -length}).
+ */
+class ByteRange {
+
+    private static final String BYTES_EQUAL = "bytes=";
+
+    private static final long UNSPECIFIED = -1;
+
+    /**
+     * The most ranges accepted in one header. Every range of a multipart body costs a part header
+     * and a seek, so a header with thousands of small ranges is rejected rather than served.
+     */
+    static final int MAX_RANGES = 100;
+
+    private final long first;
+
+    private final long last;
+
+    private final long suffixLength;
+
+    private ByteRange(long first, long last, long suffixLength) {
+        this.first = first;
+        this.last = last;
+        this.suffixLength = suffixLength;
+    }
+
+    /**
+     * Parses the ranges of a {@code Range} header.
+     *
+     * @param rangeHeader the value of the header, or {@code null}
+     * @return the ranges in the order requested, or an empty list if there is no header
+     * @throws IllegalArgumentException if the header is not a valid byte range header or has
+     *                                  more than {@link #MAX_RANGES} ranges
+     */
+    static List<ByteRange> parse(String rangeHeader) {
+        if (rangeHeader == null) {
+            return Collections.emptyList();
+        }
+        if (!StringUtils.startsWithIgnoreCase(rangeHeader, BYTES_EQUAL)) {
+            throw new IllegalArgumentException("Invalid range header: " + rangeHeader);
+        }
+
+        String[] specs = rangeHeader.substring(BYTES_EQUAL.length())
+                .split(",");
+        if (specs.length > MAX_RANGES) {
+            throw new IllegalArgumentException(
+                    "Range header has more than " + MAX_RANGES + " ranges");
+        }
+        List<ByteRange> ranges = new ArrayList<>(specs.length);
+        for (String spec : specs) {
+            ranges.add(parseSpec(spec.trim(), rangeHeader));
+        }
+        return ranges;
+    }
+
+    private static ByteRange parseSpec(String spec, String rangeHeader) {
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            throw new IllegalArgumentException("Invalid range header: " + rangeHeader);
+        }
+        String firstValue = spec.substring(0, dash);
+        String lastValue = spec.substring(dash + 1);
+        try {
+            if (firstValue.isEmpty()) {
+                return new ByteRange(UNSPECIFIED, UNSPECIFIED, parseOffset(lastValue));
+            }
+            long first = parseOffset(firstValue);
+            if (lastValue.isEmpty()) {
+                return new ByteRange(first, UNSPECIFIED, UNSPECIFIED);
+            }
+            long last = parseOffset(lastValue);
+            if (last < first) {
+                throw new IllegalArgumentException("Invalid range header: " + rangeHeader);
+            }
+            return new ByteRange(first, last, UNSPECIFIED);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid range header: " + rangeHeader, e);
+        }
+    }
+
+    private static long parseOffset(String value) {
+        if (!StringUtils.isNumeric(value) || value.isEmpty()) {
+            throw new NumberFormatException("Invalid byte offset: " + value);
+        }
+        return Long.parseLong(value);
+    }
+
+    /**
+     * @return {@code true} if the range counts bytes back from the end of the resource
+     */
+    boolean isSuffix() {
+        return suffixLength != UNSPECIFIED;
+    }
+
+    /**
+     * @return {@code true} if the range has a last byte offset
+     */
+    boolean isClosed() {
+        return last != UNSPECIFIED;
+    }
+
+    /**
+     * @return the requested first byte offset, or -1 for a suffix range
+     */
+    long getFirst() {
+        return first;
+    }
+
+    /**
+     * @param size the size of the resource
+     * @return {@code true} if the range contains at least one byte of the resource
+     */
+    boolean isSatisfiable(long size) {
+        if (isSuffix()) {
+            return suffixLength > 0 && size > 0;
+        }
+        return first < size;
+    }
+
+    /**
+     * @param size the size of the resource
+     * @return the offset of the first byte of the range in the resource
+     */
+    long getFirst(long size) {
+        return isSuffix() ? Math.max(0, size - suffixLength) : first;
+    }
+
+    /**
+     * @param size the size of the resource
+     * @return the offset of the last byte of the range in the resource
+     */
+    long getLast(long size) {
+        return isClosed() ? Math.min(last, size - 1) : size - 1;
+    }
+
+    /**
+     * @param size the size of the resource
+     * @return the number of bytes of the resource in the range
+     */
+    long getLength(long size) {
+        return getLast(size) - getFirst(size) + 1;
+    }
+
+    /**
+     * @param size the size of the resource
+     * @return the value of the {@code Content-Range} header of the range
+     */
+    String toContentRange(long size) {
+        return "bytes " + getFirst(size) + "-" + getLast(size) + "/" + size;
+    }
+
+    /**
+     * Returns the ranges that contain at least one byte of a resource, with ranges that overlap or
+     * touch coalesced into one. A single satisfiable range is returned as requested; several are
+     * returned as closed ranges in the order of their first byte, so no byte of the resource is
+     * written more than once.
+     *
+     * @param ranges the requested ranges
+     * @param size   the size of the resource
+     * @return the satisfiable ranges
+     */
+    static List<ByteRange> satisfiable(List<ByteRange> ranges, long size) {
+        List<ByteRange> satisfiable = new ArrayList<>(ranges.size());
+        for (ByteRange range : ranges) {
+            if (range.isSatisfiable(size)) {
+                satisfiable.add(range);
+            }
+        }
+        if (satisfiable.size() <= 1) {
+            return satisfiable;
+        }
+
+        satisfiable.sort(Comparator.comparingLong(range -> range.getFirst(size)));
+        List<ByteRange> coalesced = new ArrayList<>(satisfiable.size());
+        long first = satisfiable.get(0)
+                .getFirst(size);
+        long last = satisfiable.get(0)
+                .getLast(size);
+        for (ByteRange range : satisfiable.subList(1, satisfiable.size())) {
+            if (range.getFirst(size) <= last + 1) {
+                last = Math.max(last, range.getLast(size));
+            } else {
+                coalesced.add(new ByteRange(first, last, UNSPECIFIED));
+                first = range.getFirst(size);
+                last = range.getLast(size);
+            }
+        }
+        coalesced.add(new ByteRange(first, last, UNSPECIFIED));
+        return coalesced;
+    }
+}
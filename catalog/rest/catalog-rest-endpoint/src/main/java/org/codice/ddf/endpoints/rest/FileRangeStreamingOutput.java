@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.endpoints.rest;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Writes byte ranges of a file, reading each range from its absolute position in the file. A
+ * single range is written as is; several ranges are written as a {@code multipart/byteranges}
+ * body. The ranges are copied through a single buffer.
+ */
+class FileRangeStreamingOutput implements StreamingOutput {
+
+    private static final String CRLF = "\r\n";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileInputStream input;
+
+    private final long size;
+
+    private final List<ByteRange> ranges;
+
+    private final String mimeType;
+
+    private final String boundary;
+
+    /**
+     * @param input    the file to write, closed once written
+     * @param size     the size of the file
+     * @param ranges   the satisfiable ranges to write, or an empty list to write the whole file
+     * @param mimeType the mime type of the file, used in the parts of a multipart body
+     */
+    FileRangeStreamingOutput(FileInputStream input, long size, List<ByteRange> ranges,
+            String mimeType) {
+        this.input = input;
+        this.size = size;
+        this.ranges = ranges;
+        this.mimeType = mimeType;
+        this.boundary = ranges.size() > 1 ?
+                UUID.randomUUID()
+                        .toString()
+                        .replace("-", "") :
+                null;
+    }
+
+    /**
+     * @return {@code true} if the ranges are written as a multipart body
+     */
+    boolean isMultipart() {
+        return boundary != null;
+    }
+
+    /**
+     * @return the content type of the response body
+     */
+    String getContentType() {
+        return isMultipart() ? "multipart/byteranges; boundary=" + boundary : mimeType;
+    }
+
+    /**
+     * @return the number of bytes written to the response body
+     */
+    long getContentLength() {
+        if (ranges.isEmpty()) {
+            return size;
+        }
+        if (!isMultipart()) {
+            return ranges.get(0)
+                    .getLength(size);
+        }
+        long length = 0;
+        for (ByteRange range : ranges) {
+            length += partHeader(range).length + range.getLength(size);
+        }
+        return length + closingBoundary().length;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            if (ranges.isEmpty()) {
+                copy(0, size, output, buffer);
+            } else if (!isMultipart()) {
+                ByteRange range = ranges.get(0);
+                copy(range.getFirst(size), range.getLength(size), output, buffer);
+            } else {
+                for (ByteRange range : ranges) {
+                    output.write(partHeader(range));
+                    copy(range.getFirst(size), range.getLength(size), output, buffer);
+                }
+                output.write(closingBoundary());
+            }
+            output.flush();
+        } finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    private void copy(long position, long count, OutputStream output, byte[] buffer)
+            throws IOException {
+        input.getChannel()
+                .position(position);
+        long copied = IOUtils.copyLarge(input, output, 0, count, buffer);
+        if (copied < count) {
+            throw new IOException("File ended before byte " + (position + count));
+        }
+    }
+
+    private byte[] partHeader(ByteRange range) {
+        StringBuilder header = new StringBuilder().append(CRLF)
+                .append("--")
+                .append(boundary)
+                .append(CRLF);
+        if (mimeType != null) {
+            header.append("Content-Type: ")
+                    .append(mimeType)
+                    .append(CRLF);
+        }
+        header.append("Content-Range: ")
+                .append(range.toContentRange(size))
+                .append(CRLF)
+                .append(CRLF);
+        return header.toString()
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private byte[] closingBoundary() {
+        return (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+    }
+}
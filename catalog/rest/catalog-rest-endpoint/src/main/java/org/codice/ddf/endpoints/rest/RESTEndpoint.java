@@ -14,6 +14,7 @@
 package org.codice.ddf.endpoints.rest;
 
 import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
@@ -59,6 +60,7 @@
 import org.apache.commons.codec.CharEncoding;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang.StringUtils;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.ext.multipart.MultipartBody;
@@ -144,6 +146,8 @@ public class RESTEndpoint implements RESTService {
 
     private static final String HEADER_CONTENT_LENGTH = "Content-Length";
 
+    private static final String HEADER_CONTENT_RANGE = "Content-Range";
+
     private static final String HEADER_CONTENT_DISPOSITION = "Content-Disposition";
 
     private static final String FILE_ATTACHMENT_CONTENT_ID = "file";
@@ -152,8 +156,6 @@ public class RESTEndpoint implements RESTService {
 
     private static final String BYTES = "bytes";
 
-    private static final String BYTES_EQUAL = "bytes=";
-
     private static final String JSON_MIME_TYPE_STRING = "application/json";
 
     private static final String DEFAULT_MIME_TYPE = "application/octet-stream";
@@ -514,11 +516,12 @@ public Response getDocument(@Encoded @PathParam("sourceid") String encodedSource
 
                 // Check for Range header set the value in the map appropriately so that the catalogFramework
                 // can take care of the skipping
-                long bytesToSkip = getRangeStart(httpRequest);
+                List<ByteRange> ranges = getRanges(httpRequest);
+                ByteRange skippedRange = getSkippedRange(ranges);
 
-                if (bytesToSkip > 0) {
-                    LOGGER.debug("Bytes to skip: {}", String.valueOf(bytesToSkip));
-                    convertedMap.put(BYTES_TO_SKIP, bytesToSkip);
+                if (skippedRange != null && skippedRange.getFirst() > 0) {
+                    LOGGER.debug("Bytes to skip: {}", skippedRange.getFirst());
+                    convertedMap.put(BYTES_TO_SKIP, skippedRange.getFirst());
                 }
 
                 LOGGER.debug("Calling transform.");
@@ -527,7 +530,51 @@ public Response getDocument(@Encoded @PathParam("sourceid") String encodedSource
                         convertedMap);
                 LOGGER.debug("Read and transform complete, preparing response.");
 
-                responseBuilder = Response.ok(content.getInputStream(), content.getMimeTypeValue());
+                InputStream contentStream = content.getInputStream();
+                long contentLength;
+                if (contentStream instanceof FileInputStream) {
+                    // Files are served from their channel, so every range can be served no
+                    // matter how the resource reader handled the bytes to skip
+                    FileInputStream fileStream = (FileInputStream) contentStream;
+                    long size = fileStream.getChannel()
+                            .size();
+                    List<ByteRange> satisfiableRanges = ByteRange.satisfiable(ranges, size);
+                    if (!ranges.isEmpty() && satisfiableRanges.isEmpty()) {
+                        IOUtils.closeQuietly(fileStream);
+                        return Response.status(Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                                .header(HEADER_CONTENT_RANGE, BYTES + " */" + size)
+                                .build();
+                    }
+
+                    FileRangeStreamingOutput output = new FileRangeStreamingOutput(fileStream,
+                            size,
+                            satisfiableRanges,
+                            content.getMimeTypeValue());
+                    responseBuilder = Response.status(
+                            satisfiableRanges.isEmpty() ? Status.OK : Status.PARTIAL_CONTENT)
+                            .entity(output)
+                            .type(output.getContentType());
+                    if (satisfiableRanges.size() == 1) {
+                        responseBuilder.header(HEADER_CONTENT_RANGE,
+                                satisfiableRanges.get(0)
+                                        .toContentRange(size));
+                    }
+                    contentLength = output.getContentLength();
+                } else if (skippedRange != null && skippedRange.isClosed()) {
+                    // The source skipped to the start of the range; end the stream at the end of
+                    // the range. The metacard's resource size may be stale, so the total is left
+                    // unspecified and no Content-Length is sent.
+                    long first = skippedRange.getFirst();
+                    long last = skippedRange.getLast(Long.MAX_VALUE);
+                    responseBuilder = Response.status(Status.PARTIAL_CONTENT)
+                            .entity(new BoundedInputStream(contentStream, last - first + 1))
+                            .type(content.getMimeTypeValue())
+                            .header(HEADER_CONTENT_RANGE, BYTES + " " + first + "-" + last + "/*");
+                    contentLength = -1;
+                } else {
+                    responseBuilder = Response.ok(contentStream, content.getMimeTypeValue());
+                    contentLength = content.getSize();
+                }
 
                 // Add the Accept-ranges header to let the client know that we accept ranges in bytes
                 responseBuilder.header(HEADER_ACCEPT_RANGES, BYTES);
@@ -550,12 +597,15 @@ public Response getDocument(@Encoded @PathParam("sourceid") String encodedSource
                             "inline; filename=\"" + filename + "\"");
                 }
 
-                long size = content.getSize();
-                if (size > 0) {
-                    responseBuilder.header(HEADER_CONTENT_LENGTH, size);
+                if (contentLength > 0) {
+                    responseBuilder.header(HEADER_CONTENT_LENGTH, contentLength);
                 }
 
                 response = responseBuilder.build();
+            } catch (IOException e) {
+                String exceptionMessage = "Unable to read resource: ";
+                LOGGER.info(exceptionMessage, e);
+                throw new ServerErrorException(exceptionMessage, Status.INTERNAL_SERVER_ERROR);
             } catch (FederationException e) {
                 String exceptionMessage = "READ failed due to unexpected exception: ";
                 LOGGER.info(exceptionMessage, e);
@@ -1232,54 +1282,26 @@ private String getFileExtensionForMimeType(String mimeType) {
         return fileExtension;
     }
 
-    private boolean rangeHeaderExists(HttpServletRequest httpRequest) {
-        boolean response = false;
-
-        if (null != httpRequest) {
-            if (null != httpRequest.getHeader(HEADER_RANGE)) {
-                response = true;
-            }
+    private List<ByteRange> getRanges(HttpServletRequest httpRequest)
+            throws UnsupportedQueryException {
+        if (httpRequest == null) {
+            return Collections.emptyList();
         }
-
-        return response;
-    }
-
-    // Return 0 (beginning of stream) if the range header does not exist.
-    private long getRangeStart(HttpServletRequest httpRequest) throws UnsupportedQueryException {
-        long response = 0;
-
-        if (httpRequest != null) {
-            if (rangeHeaderExists(httpRequest)) {
-                String rangeHeader = httpRequest.getHeader(HEADER_RANGE);
-                String range = getRange(rangeHeader);
-
-                if (range != null) {
-                    response = Long.parseLong(range);
-                }
-            }
+        try {
+            return ByteRange.parse(httpRequest.getHeader(HEADER_RANGE));
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedQueryException(e.getMessage());
         }
-
-        return response;
     }
 
-    private String getRange(String rangeHeader) throws UnsupportedQueryException {
-        String response = null;
-
-        if (rangeHeader != null) {
-            if (rangeHeader.startsWith(BYTES_EQUAL)) {
-                String tempString = rangeHeader.substring(BYTES_EQUAL.length());
-                if (tempString.contains("-")) {
-                    response = rangeHeader.substring(BYTES_EQUAL.length(),
-                            rangeHeader.lastIndexOf("-"));
-                } else {
-                    response = rangeHeader.substring(BYTES_EQUAL.length());
-                }
-            } else {
-                throw new UnsupportedQueryException("Invalid range header: " + rangeHeader);
-            }
+    // The source can only skip to the start of a single range; suffix and multiple ranges are
+    // served from the whole resource
+    private ByteRange getSkippedRange(List<ByteRange> ranges) {
+        if (ranges.size() == 1 && !ranges.get(0)
+                .isSuffix()) {
+            return ranges.get(0);
         }
-
-        return response;
+        return null;
     }
 
     public MimeTypeToTransformerMapper getMimeTypeToTransformerMapper() {
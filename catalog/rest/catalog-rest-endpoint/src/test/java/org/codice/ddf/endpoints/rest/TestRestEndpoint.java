@@ -13,6 +13,7 @@
  */
 package org.codice.ddf.endpoints.rest;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.notNullValue;
@@ -28,6 +29,9 @@
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
@@ -48,16 +52,20 @@
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
 import org.apache.cxf.jaxrs.ext.multipart.MultipartBody;
 import org.apache.tika.io.IOUtils;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.osgi.framework.BundleContext;
@@ -107,6 +115,9 @@
  * Tests methods of the {@link RESTEndpoint}
  */
 public class TestRestEndpoint {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private static final int OK = 200;
 
     private static final int NO_CONTENT = 204;
@@ -115,6 +126,10 @@ public class TestRestEndpoint {
 
     private static final int BAD_REQUEST = 400;
 
+    private static final int PARTIAL_CONTENT = 206;
+
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+
     private static final String SAMPLE_ID = "12345678900987654321abcdeffedcba";
 
     private static final String ENDPOINT_ADDRESS = "http://localhost:8181/services/catalog";
@@ -152,6 +167,10 @@ public class TestRestEndpoint {
 
     private static final String HEADER_ACCEPT_RANGES = "Accept-Ranges";
 
+    private static final String HEADER_CONTENT_RANGE = "Content-Range";
+
+    private static final String HEADER_CONTENT_LENGTH = "Content-Length";
+
     private static final String ACCEPT_RANGES_VALUE = "bytes";
 
     private static final String HEADER_CONTENT_DISPOSITION = "Content-Disposition";
@@ -582,6 +601,147 @@ public void testGetDocumentResourceFedSuccess()
                 .toString());
     }
 
+    /**
+     * Tests that a closed range of a file is served as partial content
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetDocumentFileClosedRange() throws Exception {
+        Response response = executeFileRangeTest("bytes=2-5");
+
+        assertEquals(PARTIAL_CONTENT, response.getStatus());
+        assertEquals("bytes 2-5/" + GET_STREAM.length(),
+                response.getHeaderString(HEADER_CONTENT_RANGE));
+        assertEquals("4", response.getHeaderString(HEADER_CONTENT_LENGTH));
+        assertEquals(GET_STREAM.substring(2, 6), writeEntity(response));
+    }
+
+    /**
+     * Tests that a suffix range of a file is served as partial content
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetDocumentFileSuffixRange() throws Exception {
+        Response response = executeFileRangeTest("bytes=-7");
+
+        int length = GET_STREAM.length();
+        assertEquals(PARTIAL_CONTENT, response.getStatus());
+        assertEquals("bytes " + (length - 7) + "-" + (length - 1) + "/" + length,
+                response.getHeaderString(HEADER_CONTENT_RANGE));
+        assertEquals(GET_STREAM.substring(length - 7), writeEntity(response));
+    }
+
+    /**
+     * Tests that several ranges of a file are served as a multipart/byteranges body
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetDocumentFileMultipleRanges() throws Exception {
+        Response response = executeFileRangeTest("bytes=0-3, 10-");
+
+        assertEquals(PARTIAL_CONTENT, response.getStatus());
+        MediaType mediaType = response.getMediaType();
+        assertEquals("multipart/byteranges", mediaType.getType() + "/" + mediaType.getSubtype());
+        assertThat(mediaType.getParameters()
+                .get("boundary"), notNullValue());
+        String body = writeEntity(response);
+        assertThat(body, containsString("Content-Range: bytes 0-3/" + GET_STREAM.length()));
+        assertThat(body, containsString(GET_STREAM.substring(0, 4)));
+        assertThat(body, containsString(GET_STREAM.substring(10)));
+        assertEquals(String.valueOf(body.length()),
+                response.getHeaderString(HEADER_CONTENT_LENGTH));
+    }
+
+    /**
+     * Tests that overlapping and adjacent ranges of a file are coalesced into one range
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetDocumentFileOverlappingRangesCoalesced() throws Exception {
+        Response response = executeFileRangeTest("bytes=4-7, 0-3, 2-5");
+
+        assertEquals(PARTIAL_CONTENT, response.getStatus());
+        assertEquals("bytes 0-7/" + GET_STREAM.length(),
+                response.getHeaderString(HEADER_CONTENT_RANGE));
+        assertEquals(GET_STREAM.substring(0, 8), writeEntity(response));
+    }
+
+    /**
+     * Tests that a range header with too many ranges is rejected
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetDocumentFileTooManyRanges() throws Exception {
+        StringBuilder range = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= ByteRange.MAX_RANGES; i++) {
+            range.append(", ")
+                    .append(i)
+                    .append("-")
+                    .append(i);
+        }
+
+        try {
+            executeFileRangeTest(range.toString());
+            fail();
+        } catch (ServerErrorException e) {
+            assertThat(e.getResponse()
+                    .getStatus(), equalTo(BAD_REQUEST));
+        }
+    }
+
+    /**
+     * Tests that a range starting after the end of a file is not satisfiable
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetDocumentFileUnsatisfiableRange() throws Exception {
+        Response response = executeFileRangeTest("bytes=1000-");
+
+        assertEquals(RANGE_NOT_SATISFIABLE, response.getStatus());
+        assertEquals("bytes */" + GET_STREAM.length(),
+                response.getHeaderString(HEADER_CONTENT_RANGE));
+    }
+
+    /**
+     * Tests that a closed range of a stream is served as partial content without trusting the
+     * resource size of the metacard
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetDocumentStreamClosedRange() throws Exception {
+        Response response = executeStreamRangeTest("bytes=2-5", "10");
+
+        assertEquals(PARTIAL_CONTENT, response.getStatus());
+        assertEquals("bytes 2-5/*", response.getHeaderString(HEADER_CONTENT_RANGE));
+        assertEquals(null, response.getHeaderString(HEADER_CONTENT_LENGTH));
+        // The mocked source does not skip, so the range is read from the start of the stream
+        assertEquals(GET_STREAM.substring(0, 4),
+                IOUtils.toString((InputStream) response.getEntity(), GET_OUTPUT_TYPE));
+    }
+
+    /**
+     * Tests that an open range of a stream is served as the stream returned by the source when
+     * the metacard's resource size is wrong
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetDocumentStreamOpenRangeIgnoresResourceSize() throws Exception {
+        Response response = executeStreamRangeTest("bytes=5-", "1000");
+
+        assertEquals(OK, response.getStatus());
+        assertEquals(null, response.getHeaderString(HEADER_CONTENT_RANGE));
+        assertEquals(GET_STREAM,
+                IOUtils.toString((InputStream) response.getEntity(), GET_OUTPUT_TYPE));
+    }
+
     /**
      * Tests that a geojson input has its InputTransformer invoked by the REST endpoint to create
      * a metacard that is then converted to XML and returned from the REST endpoint.
@@ -996,6 +1156,49 @@ private MimeTypeToTransformerMapper addMatchingService(RESTEndpoint rest,
         return matchingService;
     }
 
+    private Response executeFileRangeTest(String range) throws Exception {
+        File file = temporaryFolder.newFile(GET_FILENAME);
+        FileUtils.writeStringToFile(file, GET_STREAM, GET_OUTPUT_TYPE);
+
+        CatalogFramework framework = givenCatalogFramework(SAMPLE_ID);
+        String transformer = mockTestSetup(framework, TestType.RESOURCE_TEST);
+        Resource resource = mock(Resource.class);
+        when(resource.getInputStream()).thenReturn(new FileInputStream(file));
+        when(resource.getMimeTypeValue()).thenReturn(GET_MIME_TYPE);
+        when(resource.getName()).thenReturn(GET_FILENAME);
+        when(framework.transform(isA(Metacard.class), anyString(), isA(Map.class))).thenReturn(
+                resource);
+
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader(HEADER_RANGE)).thenReturn(range);
+        return executeTest(framework, transformer, true, request);
+    }
+
+    private Response executeStreamRangeTest(String range, String resourceSize) throws Exception {
+        CatalogFramework framework = givenCatalogFramework(SAMPLE_ID);
+        String transformer = mockTestSetup(framework, TestType.RESOURCE_TEST);
+
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setSourceId(GET_SITENAME);
+        metacard.setResourceSize(resourceSize);
+        Result result = mock(Result.class);
+        when(result.getMetacard()).thenReturn(metacard);
+        QueryResponse queryResponse = mock(QueryResponse.class);
+        when(queryResponse.getResults()).thenReturn(Collections.singletonList(result));
+        when(framework.query(isA(QueryRequest.class), isNull(FederationStrategy.class))).thenReturn(
+                queryResponse);
+
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader(HEADER_RANGE)).thenReturn(range);
+        return executeTest(framework, transformer, true, request);
+    }
+
+    private String writeEntity(Response response) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        return output.toString(GET_OUTPUT_TYPE);
+    }
+
     private HttpServletRequest createServletRequest(String bytesToSkip) {
         HttpServletRequest request = mock(HttpServletRequest.class);
         when(request.getHeader(HEADER_RANGE)).thenReturn("bytes=" + bytesToSkip + "-");
@@ -15,13 +15,17 @@
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
+import org.apache.shiro.authz.Permission;
 import org.apache.shiro.subject.Subject;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
@@ -85,26 +89,26 @@ protected Subject getSystemSubject() {
 
     @Override
     public CreateRequest processPreCreate(CreateRequest input) throws StopProcessingException {
-        KeyValueCollectionPermission securityPermission = new KeyValueCollectionPermission(
-                CollectionPermission.CREATE_ACTION);
         List<Metacard> metacards = input.getMetacards();
         Subject subject = getSubject(input);
         Subject systemSubject = getSystemSubject();
+        List<Attribute> attrs = getSecurityAttributes(metacards);
+        boolean[] userPermitted = checkPermissions(attrs,
+                subject,
+                CollectionPermission.CREATE_ACTION);
+        boolean[] systemPermitted = checkPermissions(attrs,
+                systemSubject,
+                CollectionPermission.CREATE_ACTION);
         List<String> userNotPermittedTitles = new ArrayList<>();
         List<String> systemNotPermittedTitles = new ArrayList<>();
-        for (Metacard metacard : metacards) {
-            Attribute attr = metacard.getAttribute(Metacard.SECURITY);
-            if (!checkPermissions(attr,
-                    securityPermission,
-                    subject,
-                    CollectionPermission.CREATE_ACTION)) {
-                userNotPermittedTitles.add(metacard.getTitle());
+        for (int i = 0; i < metacards.size(); i++) {
+            if (!userPermitted[i]) {
+                userNotPermittedTitles.add(metacards.get(i)
+                        .getTitle());
             }
-            if (!checkPermissions(attr,
-                    securityPermission,
-                    systemSubject,
-                    CollectionPermission.CREATE_ACTION)) {
-                systemNotPermittedTitles.add(metacard.getTitle());
+            if (!systemPermitted[i]) {
+                systemNotPermittedTitles.add(metacards.get(i)
+                        .getTitle());
             }
         }
         if (!userNotPermittedTitles.isEmpty()) {
@@ -124,17 +128,14 @@ public CreateRequest processPreCreate(CreateRequest input) throws StopProcessing
     @Override
     public UpdateRequest processPreUpdate(UpdateRequest input, Map<String, Metacard> metacards)
             throws StopProcessingException {
-        KeyValueCollectionPermission securityPermission = new KeyValueCollectionPermission(
-                CollectionPermission.UPDATE_ACTION);
         List<Map.Entry<Serializable, Metacard>> updates = input.getUpdates();
         Subject subject = getSubject(input);
         Subject systemSubject = getSystemSubject();
         List<String> unknownIds = new ArrayList<>();
-        List<String> userNotPermittedIds = new ArrayList<>();
-        List<String> systemNotPermittedIds = new ArrayList<>();
+        List<Metacard> newMetacards = new ArrayList<>();
+        List<Metacard> oldMetacards = new ArrayList<>();
         for (Map.Entry<Serializable, Metacard> entry : updates) {
             Metacard newMetacard = entry.getValue();
-            Attribute attr = newMetacard.getAttribute(Metacard.SECURITY);
             String id = null;
             if (entry.getKey() != null && !entry.getKey()
                     .equals("null")) {
@@ -147,22 +148,30 @@ public UpdateRequest processPreUpdate(UpdateRequest input, Map<String, Metacard>
             if (oldMetacard == null) {
                 unknownIds.add(id);
             } else {
-                Attribute oldAttr = oldMetacard.getAttribute(Metacard.SECURITY);
-                if (!checkPermissions(attr,
-                        securityPermission,
-                        subject,
-                        CollectionPermission.UPDATE_ACTION) || !checkPermissions(oldAttr,
-                        securityPermission,
-                        subject,
-                        CollectionPermission.UPDATE_ACTION)) {
-                    userNotPermittedIds.add(newMetacard.getId());
-                }
-                if (!checkPermissions(attr,
-                        securityPermission,
-                        systemSubject,
-                        CollectionPermission.UPDATE_ACTION)) {
-                    systemNotPermittedIds.add(newMetacard.getId());
-                }
+                newMetacards.add(newMetacard);
+                oldMetacards.add(oldMetacard);
+            }
+        }
+
+        // new and old markings are checked together so that shared markings are checked once
+        List<Attribute> attrs = getSecurityAttributes(newMetacards);
+        attrs.addAll(getSecurityAttributes(oldMetacards));
+        boolean[] userPermitted = checkPermissions(attrs,
+                subject,
+                CollectionPermission.UPDATE_ACTION);
+        boolean[] systemPermitted = checkPermissions(attrs.subList(0, newMetacards.size()),
+                systemSubject,
+                CollectionPermission.UPDATE_ACTION);
+        List<String> userNotPermittedIds = new ArrayList<>();
+        List<String> systemNotPermittedIds = new ArrayList<>();
+        for (int i = 0; i < newMetacards.size(); i++) {
+            if (!userPermitted[i] || !userPermitted[newMetacards.size() + i]) {
+                userNotPermittedIds.add(newMetacards.get(i)
+                        .getId());
+            }
+            if (!systemPermitted[i]) {
+                systemNotPermittedIds.add(newMetacards.get(i)
+                        .getId());
             }
         }
         if (!unknownIds.isEmpty() || !userNotPermittedIds.isEmpty()) {
@@ -195,15 +204,13 @@ public DeleteResponse processPostDelete(DeleteResponse input) throws StopProcess
 
         List<Metacard> results = input.getDeletedMetacards();
         List<Metacard> newResults = new ArrayList<>(results.size());
-        KeyValueCollectionPermission securityPermission = new KeyValueCollectionPermission(
+        boolean[] permitted = checkPermissions(getSecurityAttributes(results),
+                subject,
                 CollectionPermission.READ_ACTION);
         int filteredMetacards = 0;
-        for (Metacard metacard : results) {
-            Attribute attr = metacard.getAttribute(Metacard.SECURITY);
-            if (!checkPermissions(attr,
-                    securityPermission,
-                    subject,
-                    CollectionPermission.READ_ACTION)) {
+        for (int i = 0; i < results.size(); i++) {
+            Metacard metacard = results.get(i);
+            if (!permitted[i]) {
                 for (FilterStrategy filterStrategy : filterStrategies.values()) {
                     FilterResult filterResult = filterStrategy.process(input, metacard);
                     if (filterResult.processed()) {
@@ -250,17 +257,16 @@ public QueryResponse processPostQuery(QueryResponse input) throws StopProcessing
 
         List<Result> results = input.getResults();
         List<Result> newResults = new ArrayList<>(results.size());
-        Metacard metacard;
-        KeyValueCollectionPermission securityPermission = new KeyValueCollectionPermission(
+        List<Metacard> metacards = new ArrayList<>(results.size());
+        results.forEach(result -> metacards.add(result.getMetacard()));
+        boolean[] permitted = checkPermissions(getSecurityAttributes(metacards),
+                subject,
                 CollectionPermission.READ_ACTION);
         int filteredMetacards = 0;
-        for (Result result : results) {
-            metacard = result.getMetacard();
-            Attribute attr = metacard.getAttribute(Metacard.SECURITY);
-            if (!checkPermissions(attr,
-                    securityPermission,
-                    subject,
-                    CollectionPermission.READ_ACTION)) {
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            Metacard metacard = result.getMetacard();
+            if (!permitted[i]) {
                 for (FilterStrategy filterStrategy : filterStrategies.values()) {
                     FilterResult filterResult = filterStrategy.process(input, metacard);
                     if (filterResult.processed()) {
@@ -305,14 +311,11 @@ public ResourceResponse processPostResource(ResourceResponse input, Metacard met
             throw new StopProcessingException(
                     "Unable to filter contents of current message, no user Subject available.");
         }
-        KeyValueCollectionPermission securityPermission = new KeyValueCollectionPermission(
-                CollectionPermission.READ_ACTION);
         Subject subject = getSubject(input);
         Attribute attr = metacard.getAttribute(Metacard.SECURITY);
-        if (!checkPermissions(attr,
-                securityPermission,
+        if (!checkPermissions(Collections.singletonList(attr),
                 subject,
-                CollectionPermission.READ_ACTION)) {
+                CollectionPermission.READ_ACTION)[0]) {
             for (FilterStrategy filterStrategy : filterStrategies.values()) {
                 FilterResult filterResult = filterStrategy.process(input, metacard);
                 if (filterResult.processed()) {
@@ -357,16 +360,61 @@ private Subject getSubject(Request input) throws StopProcessingException {
         return subject;
     }
 
-    private boolean checkPermissions(Attribute attr,
-            KeyValueCollectionPermission securityPermission, Subject subject, String action) {
-        Map<String, Set<String>> map = null;
+    private List<Attribute> getSecurityAttributes(List<Metacard> metacards) {
+        List<Attribute> attrs = new ArrayList<>(metacards.size());
+        metacards.forEach(metacard -> attrs.add(metacard.getAttribute(Metacard.SECURITY)));
+        return attrs;
+    }
+
+    /**
+     * Checks whether the subject may perform the action on metacards with the given security
+     * attributes. Metacards usually share a few sets of security markings, so each distinct set of
+     * markings is only checked once, and all of them are checked in a single call to the subject.
+     *
+     * @return whether the action is permitted, for each attribute in order
+     */
+    private boolean[] checkPermissions(List<Attribute> attrs, Subject subject, String action) {
+        Map<Map<String, Set<String>>, Integer> permissionIndexes = new HashMap<>();
+        List<Permission> permissions = new ArrayList<>();
+        int[] indexes = new int[attrs.size()];
+        for (int i = 0; i < attrs.size(); i++) {
+            Map<String, Collection<String>> map = getSecurityMarkings(attrs.get(i));
+            indexes[i] = permissionIndexes.computeIfAbsent(getFingerprint(map), fingerprint -> {
+                permissions.add(new KeyValueCollectionPermission(action, map));
+                return permissions.size() - 1;
+            });
+        }
+
+        LOGGER.debug("Checking {} distinct security markings for {} metacards",
+                permissions.size(),
+                attrs.size());
+        boolean[] permissionDecisions = permissions.isEmpty() ?
+                new boolean[0] :
+                subject.isPermitted(permissions);
 
-        if (attr != null) {
-            map = (Map<String, Set<String>>) attr.getValue();
+        boolean[] decisions = new boolean[attrs.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            decisions[i] = permissionDecisions[indexes[i]];
         }
-        if (map != null) {
-            securityPermission = new KeyValueCollectionPermission(action, map);
+        return decisions;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Collection<String>> getSecurityMarkings(Attribute attr) {
+        if (attr == null || attr.getValue() == null) {
+            return Collections.emptyMap();
         }
-        return subject.isPermitted(securityPermission);
+        return (Map<String, Collection<String>>) attr.getValue();
+    }
+
+    /**
+     * Returns the security markings in a form that does not depend on the order of the keys and
+     * values, so that equal markings are found whatever collections they are stored in.
+     */
+    private Map<String, Set<String>> getFingerprint(Map<String, Collection<String>> map) {
+        Map<String, Set<String>> fingerprint = new TreeMap<>();
+        map.forEach((key, values) -> fingerprint.put(key,
+                values == null ? Collections.emptySet() : new TreeSet<>(values)));
+        return fingerprint;
     }
 }
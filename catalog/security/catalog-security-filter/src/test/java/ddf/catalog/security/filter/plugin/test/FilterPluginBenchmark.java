@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.security.filter.plugin.test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.support.DelegatingSubject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.opengis.filter.Filter;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.catalog.plugin.StopProcessingException;
+import ddf.catalog.security.filter.plugin.FilterPlugin;
+import ddf.security.SecurityConstants;
+import ddf.security.Subject;
+import ddf.security.permission.CollectionPermission;
+import ddf.security.permission.KeyValueCollectionPermission;
+
+/**
+ * Compares filtering a page of query results with the {@link FilterPlugin}, which checks each
+ * distinct set of security markings once, with checking the markings of every result. The user
+ * is permitted to read every result, so the response is the same after each invocation.
+ * Benchmarks are not run as part of the build; run them through {@link #main(String[])} with the
+ * test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FilterPluginBenchmark {
+
+    private static final String ROLES = "Roles";
+
+    @Param({"1", "10", "1000"})
+    private int distinctMarkings;
+
+    @Param({"1000"})
+    private int resultCount;
+
+    private FilterPlugin plugin;
+
+    private Subject subject;
+
+    private QueryResponse response;
+
+    @Setup(Level.Trial)
+    public void createResponse() {
+        List<String> userRoles = new ArrayList<>();
+        for (int i = 0; i < distinctMarkings; i++) {
+            userRoles.add("role" + i);
+        }
+        Map<String, List<String>> userAttributes = new HashMap<>();
+        userAttributes.put(ROLES, userRoles);
+
+        DefaultSecurityManager manager = new DefaultSecurityManager();
+        manager.setRealm(new AttributeRealm(new KeyValueCollectionPermission(
+                CollectionPermission.READ_ACTION,
+                userAttributes)));
+        subject = new BenchmarkSubject(manager,
+                new SimplePrincipalCollection("benchmarkuser", AttributeRealm.NAME));
+
+        plugin = new FilterPlugin() {
+            @Override
+            protected Subject getSystemSubject() {
+                return subject;
+            }
+        };
+
+        QueryRequestImpl request = new QueryRequestImpl(new QueryImpl(Filter.INCLUDE));
+        Map<String, Serializable> properties = new HashMap<>();
+        properties.put(SecurityConstants.SECURITY_SUBJECT, subject);
+        request.setProperties(properties);
+
+        QueryResponseImpl queryResponse = new QueryResponseImpl(request);
+        for (int i = 0; i < resultCount; i++) {
+            MetacardImpl metacard = new MetacardImpl();
+            metacard.setId("metacard" + i);
+            HashMap<String, List<String>> security = new HashMap<>();
+            security.put(ROLES, Collections.singletonList("role" + i % distinctMarkings));
+            metacard.setSecurity(security);
+            queryResponse.addResult(new ResultImpl(metacard), i == resultCount - 1);
+        }
+        response = queryResponse;
+    }
+
+    @Benchmark
+    public QueryResponse filterPlugin() throws StopProcessingException {
+        return plugin.processPostQuery(response);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public int perResultChecks() {
+        int permitted = 0;
+        for (Result result : response.getResults()) {
+            Map<String, Collection<String>> markings =
+                    (Map<String, Collection<String>>) result.getMetacard()
+                            .getAttribute(Metacard.SECURITY)
+                            .getValue();
+            if (subject.isPermitted(new KeyValueCollectionPermission(
+                    CollectionPermission.READ_ACTION,
+                    markings))) {
+                permitted++;
+            }
+        }
+        return permitted;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FilterPluginBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Realm that permits whatever the user's attributes imply.
+     */
+    private static class AttributeRealm extends AuthorizingRealm {
+
+        static final String NAME = "benchmarkRealm";
+
+        private final KeyValueCollectionPermission userPermission;
+
+        AttributeRealm(KeyValueCollectionPermission userPermission) {
+            this.userPermission = userPermission;
+            setName(NAME);
+        }
+
+        @Override
+        public boolean isPermitted(PrincipalCollection principals, Permission permission) {
+            return userPermission.implies(permission);
+        }
+
+        @Override
+        protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+            return null;
+        }
+
+        @Override
+        protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) {
+            return null;
+        }
+    }
+
+    private static class BenchmarkSubject extends DelegatingSubject implements Subject {
+
+        BenchmarkSubject(SecurityManager manager, PrincipalCollection principals) {
+            super(principals,
+                    true,
+                    null,
+                    new SimpleSession(UUID.randomUUID()
+                            .toString()),
+                    manager);
+        }
+
+        @Override
+        public boolean isGuest() {
+            return false;
+        }
+    }
+}
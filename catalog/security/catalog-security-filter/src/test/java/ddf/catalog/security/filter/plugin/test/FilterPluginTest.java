@@ -18,6 +18,8 @@
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.Serializable;
@@ -99,9 +101,11 @@ public class FilterPluginTest {
 
     DeleteResponse badDeleteResponse;
 
+    AuthorizingRealm realm;
+
     @Before
     public void setup() {
-        AuthorizingRealm realm = mock(AuthorizingRealm.class);
+        realm = mock(AuthorizingRealm.class);
 
         when(realm.getName()).thenReturn("mockRealm");
         when(realm.isPermitted(any(PrincipalCollection.class), any(Permission.class))).then(
@@ -217,6 +221,36 @@ public void testPluginFilterNoStrategies() {
         }
     }
 
+    @Test
+    public void testPluginFilterChecksDistinctMarkingsOnce() throws StopProcessingException {
+        QueryResponseImpl response = new QueryResponseImpl(incomingResponse.getRequest());
+        int resultCount = 1000;
+        for (int i = 0; i < resultCount; i++) {
+            Metacard metacard;
+            switch (i % 3) {
+            case 0:
+                metacard = getExactRolesMetacard();
+                break;
+            case 1:
+                metacard = getMoreRolesMetacard();
+                break;
+            default:
+                metacard = getExactRolesMetacard();
+                HashMap<String, List<String>> security = new HashMap<>();
+                security.put("Roles", Arrays.asList("B", "A"));
+                ((MetacardImpl) metacard).setSecurity(security);
+            }
+            response.addResult(new ResultImpl(metacard), i == resultCount - 1);
+        }
+
+        QueryResponse filteredResponse = plugin.processPostQuery(response);
+
+        assertThat(filteredResponse.getResults()
+                .size(), is(resultCount - resultCount / 3));
+        verify(realm, times(2)).isPermitted(any(PrincipalCollection.class),
+                any(Permission.class));
+    }
+
     @Test
     public void testPluginFilterResourceGood() throws StopProcessingException {
         ResourceResponse response = plugin.processPostResource(resourceResponse, getExactRolesMetacard());
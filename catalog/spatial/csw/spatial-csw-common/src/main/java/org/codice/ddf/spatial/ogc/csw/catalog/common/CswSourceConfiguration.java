@@ -50,6 +50,8 @@ public class CswSourceConfiguration {
 
     private Integer receiveTimeout;
 
+    private int clientPoolSize;
+
     private boolean isCqlForced;
 
     private String outputSchema;
@@ -177,6 +179,14 @@ public void setReceiveTimeout(Integer receiveTimeout) {
         this.receiveTimeout = receiveTimeout;
     }
 
+    public int getClientPoolSize() {
+        return clientPoolSize;
+    }
+
+    public void setClientPoolSize(int clientPoolSize) {
+        this.clientPoolSize = clientPoolSize;
+    }
+
     public void setIsCqlForced(boolean isForceCql) {
         this.isCqlForced = isForceCql;
     }
@@ -175,6 +175,8 @@ public abstract class AbstractCswSource extends MaskableImpl
 
     protected static final String RECEIVE_TIMEOUT_PROPERTY = "receiveTimeout";
 
+    protected static final String CLIENT_POOL_SIZE_PROPERTY = "clientPoolSize";
+
     protected static final String QUERY_TYPE_NAME_PROPERTY = "queryTypeName";
 
     protected static final String QUERY_TYPE_NAMESPACE_PROPERTY = "queryTypeNamespace";
@@ -381,6 +383,7 @@ private void initClientFactory() {
                     cswSourceConfiguration.getConnectionTimeout(),
                     cswSourceConfiguration.getReceiveTimeout());
         }
+        factory.setClientPoolSize(cswSourceConfiguration.getClientPoolSize());
     }
 
     protected void initSubscribeClientFactory() {
@@ -429,6 +432,9 @@ private void setConsumerMap() {
         consumerMap.put(RECEIVE_TIMEOUT_PROPERTY,
                 value -> cswSourceConfiguration.setReceiveTimeout((Integer) value));
 
+        consumerMap.put(CLIENT_POOL_SIZE_PROPERTY,
+                value -> cswSourceConfiguration.setClientPoolSize((Integer) value));
+
         consumerMap.put(OUTPUT_SCHEMA_PROPERTY,
                 value -> setConsumerOutputSchemaProperty((String) value));
 
@@ -713,6 +719,20 @@ public Integer getReceiveTimeout() {
         return this.cswSourceConfiguration.getReceiveTimeout();
     }
 
+    /**
+     * Sets the number of idle clients kept for reuse by queries, so queries to this source reuse
+     * their connections and TLS sessions. A size of 0 constructs a new client for every query.
+     *
+     * @param clientPoolSize the maximum number of idle clients
+     */
+    public void setClientPoolSize(Integer clientPoolSize) {
+        this.cswSourceConfiguration.setClientPoolSize(clientPoolSize != null ? clientPoolSize : 0);
+    }
+
+    public Integer getClientPoolSize() {
+        return this.cswSourceConfiguration.getClientPoolSize();
+    }
+
     public void setContext(BundleContext context) {
         this.context = context;
     }
@@ -760,9 +780,14 @@ public boolean isAvailable(SourceMonitor sourceMonitor) {
     public SourceResponse query(QueryRequest queryRequest) throws UnsupportedQueryException {
         Subject subject =
                 (Subject) queryRequest.getPropertyValue(SecurityConstants.SECURITY_SUBJECT);
-        Csw csw = factory.getClientForSubject(subject);
-
-        return query(queryRequest, ElementSetType.FULL, null, csw);
+        // The factory is replaced when the source is refreshed, so release to the one used
+        SecureCxfClientFactory<Csw> clientFactory = factory;
+        Csw csw = clientFactory.getClientForSubject(subject);
+        try {
+            return query(queryRequest, ElementSetType.FULL, null, csw);
+        } finally {
+            clientFactory.releaseClient(csw);
+        }
     }
 
     protected SourceResponse query(QueryRequest queryRequest, ElementSetType elementSetName,
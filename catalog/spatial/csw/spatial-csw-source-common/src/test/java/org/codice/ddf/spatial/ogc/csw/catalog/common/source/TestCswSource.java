@@ -995,6 +995,44 @@ public void testTimeoutConfiguration() throws SecurityServiceException {
                 .intValue(), is(10000));
     }
 
+    @Test
+    public void testClientPoolSizeConfiguration() throws CswException, SecurityServiceException {
+        setupMockContextForMetacardTypeRegistrationAndUnregistration(getDefaultContentTypes());
+        configureMockCsw(1, 1L, CswConstants.VERSION_2_0_2);
+
+        AbstractCswSource cswSource = getCswSource(mockCsw, mockContext);
+        cswSource.setCswUrl(URL);
+        cswSource.setId(ID);
+        assertThat(cswSource.getClientPoolSize(), is(0));
+
+        HashMap<String, Object> configuration = new HashMap<>();
+        configuration.put("clientPoolSize", 4);
+        configuration.put("pollInterval", 5);
+        cswSource.refresh(configuration);
+
+        assertThat(cswSource.getClientPoolSize(), is(4));
+        assertThat(cswSource.factory.getClientPoolSize(), is(4));
+    }
+
+    @Test
+    public void testQueryReleasesClient()
+            throws CswException, UnsupportedQueryException, SecurityServiceException {
+        configureMockCsw(1, 1L, CswConstants.VERSION_2_0_2);
+
+        AbstractCswSource cswSource = getCswSource(mockCsw, mockContext);
+        cswSource.setCswUrl(URL);
+        cswSource.setId(ID);
+        QueryImpl propertyIsLikeQuery = new QueryImpl(builder.attribute(Metacard.ANY_TEXT)
+                .is()
+                .like()
+                .text("junk"));
+        propertyIsLikeQuery.setPageSize(10);
+
+        cswSource.query(new QueryRequestImpl(propertyIsLikeQuery));
+
+        verify(cswSource.factory).releaseClient(mockCsw);
+    }
+
     @Test
     public void testRefreshWithNullConfiguration() throws SecurityServiceException {
         AbstractCswSource cswSource = getCswSource(null,
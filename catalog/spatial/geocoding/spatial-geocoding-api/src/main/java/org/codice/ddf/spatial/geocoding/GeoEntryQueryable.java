@@ -15,7 +15,10 @@
 package org.codice.ddf.spatial.geocoding;
 
 import java.text.ParseException;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.codice.ddf.spatial.geocoding.context.NearbyLocation;
@@ -67,4 +70,34 @@ List<NearbyLocation> getNearestCities(String location, int radiusInKm, int maxRe
      */
     Optional<String> getCountryCode(String wktLocation, int radius)
             throws GeoEntryQueryException, ParseException;
+
+    /**
+     * Retrieves the country codes for many locations at once, as
+     * {@link #getCountryCode(String, int)} does for one. Implementations should override this to
+     * answer the whole batch against one view of the GeoNames resource.
+     *
+     * @param wktLocations WKT locations
+     * @param radius       the radius in kilometers to search from each location
+     * @return the country code in ISO 3166-1 alpha-2 format of each location that has one;
+     * locations that are not found or cannot be parsed are left out
+     * @throws GeoEntryQueryException if an exception occurs while querying the GeoNames resource
+     */
+    default Map<String, String> getCountryCodes(Collection<String> wktLocations, int radius)
+            throws GeoEntryQueryException {
+        final Map<String, String> countryCodes = new HashMap<>();
+        for (String wktLocation : wktLocations) {
+            if (countryCodes.containsKey(wktLocation)) {
+                continue;
+            }
+
+            try {
+                getCountryCode(wktLocation, radius).ifPresent(countryCode -> countryCodes.put(
+                        wktLocation,
+                        countryCode));
+            } catch (ParseException e) {
+                // Leave the location out, as documented.
+            }
+        }
+        return countryCodes;
+    }
 }
@@ -13,6 +13,9 @@
  **/
 package org.codice.ddf.spatial.geocoder;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import org.codice.ddf.spatial.geocoding.GeoEntryQueryException;
@@ -44,4 +47,21 @@ public interface GeoCoder {
      * @return a country code in ISO 3166-1 alpha-3 format or null if not found (for example, a location in the ocean)
      */
     Optional<String> getCountryCode(String locationWKT, int radius);
+
+    /**
+     * Retrieves the country codes for many locations at once, e.g., for all the metacards of an
+     * ingest request. The center point is used for polygons.
+     *
+     * @param locationWKTs WKT locations for which to get the country codes of
+     * @param radius       Radius in kilometers to search from the center of each location
+     * @return the country code in ISO 3166-1 alpha-3 format of each location that has one
+     */
+    default Map<String, String> getCountryCodes(Collection<String> locationWKTs, int radius) {
+        final Map<String, String> countryCodes = new HashMap<>();
+        locationWKTs.stream()
+                .distinct()
+                .forEach(locationWKT -> getCountryCode(locationWKT, radius).ifPresent(
+                        countryCode -> countryCodes.put(locationWKT, countryCode)));
+        return countryCodes;
+    }
 }
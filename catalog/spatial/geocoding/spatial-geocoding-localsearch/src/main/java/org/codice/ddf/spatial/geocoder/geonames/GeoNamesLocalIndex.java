@@ -15,8 +15,11 @@
 package org.codice.ddf.spatial.geocoder.geonames;
 
 import java.text.ParseException;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.Optional;
 
@@ -93,16 +96,7 @@ public Optional<String> getCountryCode(String locationWKT, int radius) {
                     radius);
 
             if (alpha2CountryCode.isPresent()) {
-                try {
-                    String alpha3CountryCode = new Locale(Locale.ENGLISH.getLanguage(),
-                            alpha2CountryCode.get()).getISO3Country();
-                    return Optional.of(alpha3CountryCode);
-                } catch (MissingResourceException e) {
-                    LOGGER.debug(
-                            "Failed to convert country code {} to alpha-3 format. Returning empty value",
-                            alpha2CountryCode.get(),
-                            e);
-                }
+                return toAlpha3CountryCode(alpha2CountryCode.get());
             }
         } catch (GeoEntryQueryException e) {
             LOGGER.debug("Error querying the local GeoNames index", e);
@@ -112,4 +106,38 @@ public Optional<String> getCountryCode(String locationWKT, int radius) {
 
         return Optional.empty();
     }
+
+    @Override
+    public Map<String, String> getCountryCodes(Collection<String> locationWKTs, int radius) {
+        final Map<String, String> alpha3CountryCodes = new HashMap<>();
+
+        try {
+            final Map<String, String> alpha2CountryCodes =
+                    geoEntryQueryable.getCountryCodes(locationWKTs, radius);
+
+            // Many locations share a country, so convert each country code once.
+            final Map<String, Optional<String>> conversions = new HashMap<>();
+            alpha2CountryCodes.forEach((locationWKT, alpha2CountryCode) -> conversions
+                    .computeIfAbsent(alpha2CountryCode, this::toAlpha3CountryCode)
+                    .ifPresent(alpha3CountryCode -> alpha3CountryCodes.put(locationWKT,
+                            alpha3CountryCode)));
+        } catch (GeoEntryQueryException e) {
+            LOGGER.debug("Error querying the local GeoNames index", e);
+        }
+
+        return alpha3CountryCodes;
+    }
+
+    private Optional<String> toAlpha3CountryCode(String alpha2CountryCode) {
+        try {
+            return Optional.of(new Locale(Locale.ENGLISH.getLanguage(),
+                    alpha2CountryCode).getISO3Country());
+        } catch (MissingResourceException e) {
+            LOGGER.debug(
+                    "Failed to convert country code {} to alpha-3 format. Returning empty value",
+                    alpha2CountryCode,
+                    e);
+            return Optional.empty();
+        }
+    }
 }
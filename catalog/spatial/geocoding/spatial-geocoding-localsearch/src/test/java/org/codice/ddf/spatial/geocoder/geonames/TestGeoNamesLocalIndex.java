@@ -26,7 +26,9 @@
 import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.codice.ddf.spatial.geocoder.GeoResult;
@@ -43,6 +45,8 @@
 public class TestGeoNamesLocalIndex {
     private static final String TEST_POINT = "POINT (1.0 2.0)";
 
+    private static final String OTHER_TEST_POINT = "POINT (3.0 4.0)";
+
     private Optional<String> countryCode;
 
     private GeoNamesLocalIndex geoNamesLocalIndex;
@@ -196,4 +200,28 @@ public void testGetCountryCodeInvalidCountryCode()
 
         assertThat(countryCode.isPresent(), is(false));
     }
+
+    @Test
+    public void testGetCountryCodes() throws GeoEntryQueryException {
+        final List<String> locations = Arrays.asList(TEST_POINT, OTHER_TEST_POINT);
+        final Map<String, String> alpha2CountryCodes = new HashMap<>();
+        alpha2CountryCodes.put(TEST_POINT, "US");
+        alpha2CountryCodes.put(OTHER_TEST_POINT, "not a country code");
+        when(geoEntryQueryable.getCountryCodes(locations, 50)).thenReturn(alpha2CountryCodes);
+
+        final Map<String, String> countryCodes = geoNamesLocalIndex.getCountryCodes(locations, 50);
+
+        assertThat(countryCodes, is(Collections.singletonMap(TEST_POINT, "USA")));
+    }
+
+    @Test
+    public void testGetCountryCodesGeoEntryQueryException() throws GeoEntryQueryException {
+        final List<String> locations = Collections.singletonList(TEST_POINT);
+        when(geoEntryQueryable.getCountryCodes(locations, 50)).thenThrow(new GeoEntryQueryException(
+                ""));
+
+        final Map<String, String> countryCodes = geoNamesLocalIndex.getCountryCodes(locations, 50);
+
+        assertThat(countryCodes.isEmpty(), is(true));
+    }
 }
@@ -0,0 +1,244 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+
+package org.codice.ddf.spatial.geocoding.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SimpleCollector;
+import org.codice.ddf.spatial.geocoding.index.GeoNamesLuceneConstants;
+import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.distance.DistanceCalculator;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+
+/**
+ * A compact in-memory index of the cities in a GeoNames Lucene index, bucketed into a grid of
+ * one-degree cells, for finding the cities within a radius of a point without running a spatial
+ * query. Each city is kept as its coordinates, population, country code and Lucene document ID,
+ * so an instance is only valid for searchers over the index reader it was loaded from.
+ */
+final class GeoNamesCityIndex {
+    private static final SpatialContext SPATIAL_CONTEXT = SpatialContext.GEO;
+
+    private static final DistanceCalculator DISTANCE_CALCULATOR = SPATIAL_CONTEXT.getDistCalc();
+
+    private static final int ROWS = 180;
+
+    private static final int COLUMNS = 360;
+
+    private static final Set<String> FIELDS_TO_LOAD = new HashSet<>(Arrays.asList(
+            GeoNamesLuceneConstants.LATITUDE_FIELD,
+            GeoNamesLuceneConstants.LONGITUDE_FIELD,
+            GeoNamesLuceneConstants.POPULATION_FIELD,
+            GeoNamesLuceneConstants.COUNTRY_CODE_FIELD));
+
+    private final double[] latitudes;
+
+    private final double[] longitudes;
+
+    private final long[] populations;
+
+    private final int[] docIds;
+
+    private final String[] countryCodes;
+
+    // The cities of cell c are at positions cellStarts[c] (inclusive) to cellStarts[c + 1]
+    // (exclusive) of the arrays above.
+    private final int[] cellStarts;
+
+    private GeoNamesCityIndex(int size) {
+        latitudes = new double[size];
+        longitudes = new double[size];
+        populations = new long[size];
+        docIds = new int[size];
+        countryCodes = new String[size];
+        cellStarts = new int[ROWS * COLUMNS + 1];
+    }
+
+    /**
+     * Loads the documents matching {@code cityQuery} into a new index.
+     *
+     * @param indexSearcher the searcher to load the cities from
+     * @param cityQuery     a query matching the city documents
+     * @param maxCities     the maximum number of cities to hold in memory
+     * @return the index, or null if more than {@code maxCities} documents match
+     * @throws IOException if an exception occurs while reading the Lucene index
+     */
+    static GeoNamesCityIndex load(final IndexSearcher indexSearcher, final Query cityQuery,
+            final int maxCities) throws IOException {
+        final int count = indexSearcher.count(cityQuery);
+        if (count > maxCities) {
+            return null;
+        }
+
+        final int[] cityDocIds = new int[count];
+        indexSearcher.search(cityQuery, new SimpleCollector() {
+            private int docBase;
+
+            private int next;
+
+            @Override
+            protected void doSetNextReader(LeafReaderContext context) throws IOException {
+                docBase = context.docBase;
+            }
+
+            @Override
+            public void collect(int doc) {
+                cityDocIds[next++] = docBase + doc;
+            }
+
+            @Override
+            public boolean needsScores() {
+                return false;
+            }
+        });
+
+        final double[] cityLatitudes = new double[count];
+        final double[] cityLongitudes = new double[count];
+        final long[] cityPopulations = new long[count];
+        final String[] cityCountryCodes = new String[count];
+        final int[] cells = new int[count];
+        final int[] cellSizes = new int[ROWS * COLUMNS];
+        // There are only a few hundred distinct country codes, so share one instance of each.
+        final Map<String, String> countryCodeInstances = new HashMap<>();
+
+        for (int i = 0; i < count; i++) {
+            final Document document = indexSearcher.doc(cityDocIds[i], FIELDS_TO_LOAD);
+            cityLatitudes[i] =
+                    Double.parseDouble(document.get(GeoNamesLuceneConstants.LATITUDE_FIELD));
+            cityLongitudes[i] =
+                    Double.parseDouble(document.get(GeoNamesLuceneConstants.LONGITUDE_FIELD));
+            cityPopulations[i] =
+                    Long.parseLong(document.get(GeoNamesLuceneConstants.POPULATION_FIELD));
+            final String countryCode = document.get(GeoNamesLuceneConstants.COUNTRY_CODE_FIELD);
+            if (countryCode != null) {
+                cityCountryCodes[i] = countryCodeInstances.computeIfAbsent(countryCode, c -> c);
+            }
+            cells[i] = cell(row(cityLatitudes[i]), column(cityLongitudes[i]));
+            cellSizes[cells[i]]++;
+        }
+
+        final GeoNamesCityIndex cityIndex = new GeoNamesCityIndex(count);
+        for (int cell = 0; cell < cellSizes.length; cell++) {
+            cityIndex.cellStarts[cell + 1] = cityIndex.cellStarts[cell] + cellSizes[cell];
+        }
+
+        final int[] nextPositions = Arrays.copyOf(cityIndex.cellStarts, cellSizes.length);
+        for (int i = 0; i < count; i++) {
+            final int position = nextPositions[cells[i]]++;
+            cityIndex.latitudes[position] = cityLatitudes[i];
+            cityIndex.longitudes[position] = cityLongitudes[i];
+            cityIndex.populations[position] = cityPopulations[i];
+            cityIndex.docIds[position] = cityDocIds[i];
+            cityIndex.countryCodes[position] = cityCountryCodes[i];
+        }
+
+        return cityIndex;
+    }
+
+    int size() {
+        return docIds.length;
+    }
+
+    /**
+     * Finds the most populous cities within {@code radiusInDegrees} of {@code center}.
+     *
+     * @return the positions of up to {@code maxResults} cities, in descending order of population
+     */
+    List<Integer> findCities(final Point center, final double radiusInDegrees,
+            final int maxResults) {
+        final List<Integer> cities = citiesWithin(center, radiusInDegrees);
+        // Lucene breaks population ties by document ID, so do the same.
+        cities.sort((a, b) -> populations[a] != populations[b] ?
+                Long.compare(populations[b], populations[a]) :
+                Integer.compare(docIds[a], docIds[b]));
+        return cities.size() > maxResults ? cities.subList(0, maxResults) : cities;
+    }
+
+    /**
+     * Returns the country code of the most populous city within {@code radiusInDegrees} of
+     * {@code center}, or null if there are no cities within the radius.
+     */
+    String findCountryCode(final Point center, final double radiusInDegrees) {
+        final List<Integer> cities = findCities(center, radiusInDegrees, 1);
+        return cities.isEmpty() ? null : countryCodes[cities.get(0)];
+    }
+
+    double getLatitude(final int position) {
+        return latitudes[position];
+    }
+
+    double getLongitude(final int position) {
+        return longitudes[position];
+    }
+
+    int getDocId(final int position) {
+        return docIds[position];
+    }
+
+    private List<Integer> citiesWithin(final Point center, final double radiusInDegrees) {
+        final Rectangle box = DISTANCE_CALCULATOR.calcBoxByDistFromPt(center,
+                radiusInDegrees,
+                SPATIAL_CONTEXT,
+                null);
+
+        final List<Integer> cities = new ArrayList<>();
+        for (int row = row(box.getMinY()); row <= row(box.getMaxY()); row++) {
+            if (box.getCrossesDateLine()) {
+                addCitiesWithin(center, radiusInDegrees, row, column(box.getMinX()), COLUMNS - 1,
+                        cities);
+                addCitiesWithin(center, radiusInDegrees, row, 0, column(box.getMaxX()), cities);
+            } else {
+                addCitiesWithin(center, radiusInDegrees, row, column(box.getMinX()),
+                        column(box.getMaxX()), cities);
+            }
+        }
+        return cities;
+    }
+
+    private void addCitiesWithin(final Point center, final double radiusInDegrees, final int row,
+            final int minColumn, final int maxColumn, final List<Integer> cities) {
+        for (int position = cellStarts[cell(row, minColumn)];
+                position < cellStarts[cell(row, maxColumn) + 1]; position++) {
+            if (DISTANCE_CALCULATOR.distance(center, longitudes[position], latitudes[position])
+                    <= radiusInDegrees) {
+                cities.add(position);
+            }
+        }
+    }
+
+    private static int row(final double latitude) {
+        return Math.min(ROWS - 1, Math.max(0, (int) Math.floor(latitude + 90)));
+    }
+
+    private static int column(final double longitude) {
+        return Math.min(COLUMNS - 1, Math.max(0, (int) Math.floor(longitude + 180)));
+    }
+
+    private static int cell(final int row, final int column) {
+        return row * COLUMNS + column;
+    }
+}
@@ -17,7 +17,9 @@
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.text.ParseException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.apache.lucene.index.DirectoryReader;
@@ -31,17 +33,14 @@
 import org.codice.ddf.spatial.geocoding.index.GeoNamesLuceneIndexer;
 import org.locationtech.spatial4j.context.SpatialContext;
 import org.locationtech.spatial4j.shape.Shape;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class GeoNamesQueryLuceneDirectoryIndex extends GeoNamesQueryLuceneIndex {
-    private static final Logger LOGGER =
-            LoggerFactory.getLogger(GeoNamesQueryLuceneDirectoryIndex.class);
-
     private String indexLocation;
 
     public void setIndexLocation(final String indexLocation) {
         this.indexLocation = indexLocation;
+        // Searchers over the previous location are no longer wanted.
+        close();
     }
 
     @Override
@@ -49,28 +48,8 @@ protected Directory openDirectory() throws IOException {
         return FSDirectory.open(Paths.get(indexLocation));
     }
 
-    private Directory openDirectoryAndCheckForIndex() throws GeoEntryQueryException {
-        Directory directory;
-
-        try {
-            directory = openDirectory();
-            if (!indexExists(directory)) {
-                directory.close();
-                LOGGER.debug(
-                        "There is no index at {}. Load a Geonames file into the offline gazetteer",
-                        indexLocation);
-                return null;
-            }
-
-            return directory;
-        } catch (IOException e) {
-            throw new GeoEntryQueryException(
-                    "Error opening the index directory at " + indexLocation, e);
-        }
-    }
-
     @Override
-    protected IndexReader createIndexReader(final Directory directory) throws IOException {
+    protected DirectoryReader createIndexReader(final Directory directory) throws IOException {
         return DirectoryReader.open(directory);
     }
 
@@ -84,9 +63,9 @@ protected IndexSearcher createIndexSearcher(final IndexReader indexReader) {
     @Override
     public List<GeoEntry> query(final String queryString, final int maxResults)
             throws GeoEntryQueryException {
-        final Directory directory = openDirectoryAndCheckForIndex();
-
-        return doQuery(queryString, maxResults, directory);
+        return withIndexSearcher(indexSearcher -> doQuery(queryString,
+                maxResults,
+                indexSearcher));
     }
 
     @Override
@@ -99,19 +78,29 @@ public List<NearbyLocation> getNearestCities(final String location, final int ra
         }
 
         Shape shape = SpatialContext.GEO.readShapeFromWkt(location);
-        final Directory directory = openDirectoryAndCheckForIndex();
 
-        return doGetNearestCities(shape, radiusInKm, maxResults, directory);
+        return withIndexSearcher(indexSearcher -> doGetNearestCities(shape,
+                radiusInKm,
+                maxResults,
+                indexSearcher));
     }
 
     @Override
     public Optional<String> getCountryCode(String wktLocation, int radius)
             throws GeoEntryQueryException, ParseException {
-        final Directory directory = openDirectoryAndCheckForIndex();
-
         Shape shape = SpatialContext.GEO.readShapeFromWkt(wktLocation);
-        String countryCode = doGetCountryCode(shape, radius, directory);
+        String countryCode = withIndexSearcher(indexSearcher -> indexSearcher == null ?
+                null :
+                doGetCountryCode(shape, radius, indexSearcher));
 
         return Optional.ofNullable(countryCode);
     }
+
+    @Override
+    public Map<String, String> getCountryCodes(Collection<String> wktLocations, int radius)
+            throws GeoEntryQueryException {
+        return withIndexSearcher(indexSearcher -> doGetCountryCodes(wktLocations,
+                radius,
+                indexSearcher));
+    }
 }
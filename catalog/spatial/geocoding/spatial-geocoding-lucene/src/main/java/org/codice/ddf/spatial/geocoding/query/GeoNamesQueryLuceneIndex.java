@@ -19,8 +19,12 @@
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
@@ -40,6 +44,8 @@
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
@@ -47,10 +53,10 @@
 import org.apache.lucene.spatial.SpatialStrategy;
 import org.apache.lucene.spatial.prefix.RecursivePrefixTreeStrategy;
 import org.apache.lucene.spatial.prefix.tree.GeohashPrefixTree;
-import org.apache.lucene.spatial.prefix.tree.SpatialPrefixTree;
 import org.apache.lucene.spatial.query.SpatialArgs;
 import org.apache.lucene.spatial.query.SpatialOperation;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
 import org.codice.ddf.spatial.geocoding.GeoEntry;
 import org.codice.ddf.spatial.geocoding.GeoEntryQueryException;
 import org.codice.ddf.spatial.geocoding.GeoEntryQueryable;
@@ -65,11 +71,25 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Queries a GeoNames Lucene index through one long-lived {@link IndexSearcher}, which is opened on
+ * first use and refreshed whenever the index has changed. Next to each searcher it keeps a
+ * {@link GeoNamesCityIndex} of the index's cities, so nearest-city and country-code lookups near a
+ * city are answered from memory.
+ */
 public abstract class GeoNamesQueryLuceneIndex implements GeoEntryQueryable {
     private static final Logger LOGGER = LoggerFactory.getLogger(GeoNamesQueryLuceneIndex.class);
 
     private static final SpatialContext SPATIAL_CONTEXT = SpatialContext.GEO;
 
+    private static final SpatialStrategy SPATIAL_STRATEGY = new RecursivePrefixTreeStrategy(
+            new GeohashPrefixTree(SPATIAL_CONTEXT, GeoNamesLuceneConstants.GEOHASH_LEVELS),
+            GeoNamesLuceneConstants.GEO_FIELD);
+
+    // About 32 bytes per city, so the largest in-memory index is about 32 MB. GeoNames' cities
+    // files fit; the full allCountries file does not and is only queried through Lucene.
+    private static final int DEFAULT_MAX_IN_MEMORY_CITIES = 1_000_000;
+
     private static final Sort SORT =
             new Sort(new SortField(GeoNamesLuceneConstants.POPULATION_DOCVALUES_FIELD,
                     SortField.Type.LONG,
@@ -94,9 +114,26 @@ public abstract class GeoNamesQueryLuceneIndex implements GeoEntryQueryable {
         PPL_QUERY = builder.build();
     }
 
+    private final Object searcherLock = new Object();
+
+    // The in-memory city index of each open reader. Readers compare by identity, and entries go
+    // away once the SearcherManager has closed and dropped a reader.
+    private final Map<IndexReader, GeoNamesCityIndex> cityIndexes =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private volatile SearcherManager searcherManager;
+
+    private Directory directory;
+
+    private int maxInMemoryCities = DEFAULT_MAX_IN_MEMORY_CITIES;
+
+    public void setMaxInMemoryCities(final int maxInMemoryCities) {
+        this.maxInMemoryCities = maxInMemoryCities;
+    }
+
     protected abstract Directory openDirectory() throws IOException;
 
-    protected abstract IndexReader createIndexReader(Directory directory) throws IOException;
+    protected abstract DirectoryReader createIndexReader(Directory directory) throws IOException;
 
     protected abstract IndexSearcher createIndexSearcher(IndexReader indexReader);
 
@@ -104,8 +141,106 @@ protected boolean indexExists(final Directory directory) throws IOException {
         return DirectoryReader.indexExists(directory);
     }
 
+    /**
+     * Calls {@code function} with the current searcher, after refreshing it if the index has
+     * changed since it was opened, and releases the searcher afterwards. The function is called
+     * with null if there is no index yet.
+     */
+    protected <T> T withIndexSearcher(final IndexSearcherFunction<T> function)
+            throws GeoEntryQueryException {
+        final SearcherManager manager = getSearcherManager();
+        if (manager == null) {
+            return function.apply(null);
+        }
+
+        final IndexSearcher indexSearcher;
+        try {
+            manager.maybeRefresh();
+            indexSearcher = manager.acquire();
+        } catch (IOException e) {
+            // Reopen the index on the next call instead of failing every call from now on.
+            closeSearcherManager(manager);
+            throw new GeoEntryQueryException("Error reading the index", e);
+        }
+
+        try {
+            return function.apply(indexSearcher);
+        } finally {
+            try {
+                manager.release(indexSearcher);
+            } catch (IOException e) {
+                LOGGER.debug("Error releasing the index searcher", e);
+            }
+        }
+    }
+
+    /**
+     * Closes the current searcher and the index directory. The next query opens them again.
+     */
+    public void close() {
+        final SearcherManager manager = searcherManager;
+        if (manager != null) {
+            closeSearcherManager(manager);
+        }
+    }
+
+    private SearcherManager getSearcherManager() throws GeoEntryQueryException {
+        final SearcherManager manager = searcherManager;
+        if (manager != null) {
+            return manager;
+        }
+
+        synchronized (searcherLock) {
+            if (searcherManager == null) {
+                searcherManager = openSearcherManager();
+            }
+            return searcherManager;
+        }
+    }
+
+    private SearcherManager openSearcherManager() throws GeoEntryQueryException {
+        Directory indexDirectory = null;
+        try {
+            indexDirectory = openDirectory();
+            if (!indexExists(indexDirectory)) {
+                indexDirectory.close();
+                LOGGER.debug("There is no GeoNames index. "
+                        + "Load a Geonames file into the offline gazetteer");
+                return null;
+            }
+
+            final SearcherManager manager = new SearcherManager(createIndexReader(indexDirectory),
+                    new CityIndexSearcherFactory());
+            directory = indexDirectory;
+            return manager;
+        } catch (IOException e) {
+            IOUtils.closeWhileHandlingException(indexDirectory);
+            throw new GeoEntryQueryException("Error opening the index", e);
+        }
+    }
+
+    private void closeSearcherManager(final SearcherManager manager) {
+        synchronized (searcherLock) {
+            if (searcherManager != manager) {
+                return;
+            }
+
+            searcherManager = null;
+            try {
+                IOUtils.close(manager, directory);
+            } catch (IOException e) {
+                LOGGER.debug("Error closing the index", e);
+            }
+            directory = null;
+        }
+    }
+
+    private GeoNamesCityIndex getCityIndex(final IndexSearcher indexSearcher) {
+        return cityIndexes.get(indexSearcher.getIndexReader());
+    }
+
     protected List<GeoEntry> doQuery(final String queryString, final int maxResults,
-            final Directory directory) throws GeoEntryQueryException {
+            final IndexSearcher indexSearcher) throws GeoEntryQueryException {
         if (StringUtils.isBlank(queryString)) {
             throw new IllegalArgumentException("The query string cannot be null or empty.");
         }
@@ -114,13 +249,11 @@ protected List<GeoEntry> doQuery(final String queryString, final int maxResults,
             throw new IllegalArgumentException("maxResults must be positive.");
         }
 
-        if (directory == null) {
+        if (indexSearcher == null) {
             return Collections.emptyList();
         }
 
-        try (final IndexReader indexReader = createIndexReader(directory)) {
-            final IndexSearcher indexSearcher = createIndexSearcher(indexReader);
-
+        try {
             final Query query = createQuery(queryString);
 
             final TopDocs topDocs = indexSearcher.search(query, maxResults);
@@ -217,7 +350,8 @@ query searching for any of the terms in the query string (the OR query). We take
     }
 
     protected List<NearbyLocation> doGetNearestCities(final Shape shape, final int radiusInKm,
-            final int maxResults, final Directory directory) throws GeoEntryQueryException {
+            final int maxResults, final IndexSearcher indexSearcher)
+            throws GeoEntryQueryException {
 
         notNull(shape,
                 "GeoNamesQueryLuceneIndex.doGetNearestCities(): argument 'shape' may not be null.");
@@ -232,17 +366,32 @@ protected List<NearbyLocation> doGetNearestCities(final Shape shape, final int r
                     "GeoNamesQueryLuceneIndex.doGetNearestCities(): maxResults must be positive.");
         }
 
-        if (directory == null) {
+        if (indexSearcher == null) {
             return Collections.emptyList();
         }
 
-        try (final IndexReader indexReader = createIndexReader(directory)) {
-            final IndexSearcher indexSearcher = createIndexSearcher(indexReader);
-
+        try {
             final List<NearbyLocation> closestCities = new ArrayList<>();
 
             final Point center = shape.getCenter();
 
+            final GeoNamesCityIndex cityIndex = getCityIndex(indexSearcher);
+            if (cityIndex != null) {
+                for (int city : cityIndex.findCities(center,
+                        radiusInKm * DistanceUtils.KM_TO_DEG,
+                        maxResults)) {
+                    final String name = indexSearcher.doc(cityIndex.getDocId(city))
+                            .get(GeoNamesLuceneConstants.NAME_FIELD);
+
+                    closestCities.add(new NearbyLocationImpl(center,
+                            new PointImpl(cityIndex.getLongitude(city),
+                                    cityIndex.getLatitude(city),
+                                    SPATIAL_CONTEXT),
+                            name));
+                }
+                return closestCities;
+            }
+
             final Query filter = createSpatialQuery(center, radiusInKm);
 
             // Query for all the documents in the index that are cities, then filter those
@@ -256,13 +405,13 @@ protected List<NearbyLocation> doGetNearestCities(final Shape shape, final int r
 
             if (topDocs.totalHits > 0) {
                 for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-                    final double lat = Double.parseDouble(indexSearcher.doc(scoreDoc.doc)
-                            .get(GeoNamesLuceneConstants.LATITUDE_FIELD));
-                    final double lon = Double.parseDouble(indexSearcher.doc(scoreDoc.doc)
-                            .get(GeoNamesLuceneConstants.LONGITUDE_FIELD));
+                    final Document document = indexSearcher.doc(scoreDoc.doc);
+                    final double lat = Double.parseDouble(document.get(
+                            GeoNamesLuceneConstants.LATITUDE_FIELD));
+                    final double lon = Double.parseDouble(document.get(
+                            GeoNamesLuceneConstants.LONGITUDE_FIELD));
 
-                    final String name = indexSearcher.doc(scoreDoc.doc)
-                            .get(GeoNamesLuceneConstants.NAME_FIELD);
+                    final String name = document.get(GeoNamesLuceneConstants.NAME_FIELD);
 
                     final NearbyLocation city = new NearbyLocationImpl(center,
                             new PointImpl(lon, lat, SPATIAL_CONTEXT),
@@ -278,25 +427,33 @@ protected List<NearbyLocation> doGetNearestCities(final Shape shape, final int r
         }
     }
 
-    protected String doGetCountryCode(Shape shape, int radiusInKm, Directory directory)
+    protected String doGetCountryCode(Shape shape, int radiusInKm, IndexSearcher indexSearcher)
             throws GeoEntryQueryException {
         notNull(shape,
                 "GeoNamesQueryLuceneIndex.doGetCountryCode(): argument 'shape' may not be null.");
 
-        notNull(directory,
-                "GeoNamesQueryLuceneIndex.doGetCountryCode(): argument 'directory' may not be null.");
+        notNull(indexSearcher,
+                "GeoNamesQueryLuceneIndex.doGetCountryCode(): argument 'indexSearcher' may not be null.");
 
         if (radiusInKm <= 0) {
             throw new IllegalArgumentException(
                     "GeoNamesQueryLuceneIndex.doGetCountryCode(): radiusInKm must be positive.");
         }
 
-        try (final IndexReader indexReader = createIndexReader(directory)) {
-
-            final IndexSearcher indexSearcher = createIndexSearcher(indexReader);
-
+        try {
             final Point center = shape.getCenter();
 
+            // A location near a city gets the country of the most populous one. Otherwise, e.g.,
+            // in sparsely populated areas, fall back to the most populous GeoNames feature.
+            final GeoNamesCityIndex cityIndex = getCityIndex(indexSearcher);
+            if (cityIndex != null) {
+                final String countryCode = cityIndex.findCountryCode(center,
+                        radiusInKm * DistanceUtils.KM_TO_DEG);
+                if (countryCode != null) {
+                    return countryCode;
+                }
+            }
+
             final Query filter = createSpatialQuery(center, radiusInKm);
 
             final BooleanQuery booleanQuery = new BooleanQuery.Builder().add(filter,
@@ -319,13 +476,37 @@ protected String doGetCountryCode(Shape shape, int radiusInKm, Directory directo
         }
     }
 
-    private Query createSpatialQuery(Point shapeCenter, int radiusInKm) {
-        final SpatialPrefixTree grid = new GeohashPrefixTree(SPATIAL_CONTEXT,
-                GeoNamesLuceneConstants.GEOHASH_LEVELS);
+    /**
+     * Looks up the country codes of many locations with one searcher, parsing each distinct
+     * location once.
+     */
+    protected Map<String, String> doGetCountryCodes(Collection<String> wktLocations,
+            int radiusInKm, IndexSearcher indexSearcher) throws GeoEntryQueryException {
+        final Map<String, String> countryCodes = new HashMap<>();
+        if (indexSearcher == null) {
+            return countryCodes;
+        }
+
+        for (String wktLocation : wktLocations) {
+            if (wktLocation == null || countryCodes.containsKey(wktLocation)) {
+                continue;
+            }
 
-        final SpatialStrategy strategy = new RecursivePrefixTreeStrategy(grid,
-                GeoNamesLuceneConstants.GEO_FIELD);
+            try {
+                final Shape shape = SPATIAL_CONTEXT.readShapeFromWkt(wktLocation);
+                final String countryCode = doGetCountryCode(shape, radiusInKm, indexSearcher);
+                if (countryCode != null) {
+                    countryCodes.put(wktLocation, countryCode);
+                }
+            } catch (java.text.ParseException e) {
+                LOGGER.debug("Error parsing WKT: {}", wktLocation, e);
+            }
+        }
+
+        return countryCodes;
+    }
 
+    private Query createSpatialQuery(Point shapeCenter, int radiusInKm) {
         // Create a spatial filter that will select the documents that are in the specified
         // search radius around the metacard's center.
         final double searchRadiusDegrees = radiusInKm * DistanceUtils.KM_TO_DEG;
@@ -333,6 +514,35 @@ private Query createSpatialQuery(Point shapeCenter, int radiusInKm) {
                 SPATIAL_CONTEXT.getShapeFactory()
                         .circle(shapeCenter, searchRadiusDegrees));
 
-        return strategy.makeQuery(args);
+        return SPATIAL_STRATEGY.makeQuery(args);
+    }
+
+    /**
+     * A query run against a searcher. See {@link #withIndexSearcher(IndexSearcherFunction)}.
+     */
+    @FunctionalInterface
+    protected interface IndexSearcherFunction<T> {
+        T apply(IndexSearcher indexSearcher) throws GeoEntryQueryException;
+    }
+
+    private class CityIndexSearcherFactory extends SearcherFactory {
+        @Override
+        public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader)
+                throws IOException {
+            final IndexSearcher indexSearcher = createIndexSearcher(reader);
+
+            final GeoNamesCityIndex cityIndex = GeoNamesCityIndex.load(indexSearcher,
+                    PPL_QUERY,
+                    maxInMemoryCities);
+            if (cityIndex != null) {
+                LOGGER.debug("Loaded {} cities from the GeoNames index", cityIndex.size());
+                cityIndexes.put(reader, cityIndex);
+            } else {
+                LOGGER.debug("The GeoNames index has more than {} cities; querying it directly",
+                        maxInMemoryCities);
+            }
+
+            return indexSearcher;
+        }
     }
 }
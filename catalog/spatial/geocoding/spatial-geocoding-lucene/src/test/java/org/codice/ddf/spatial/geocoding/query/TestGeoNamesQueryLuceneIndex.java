@@ -26,10 +26,14 @@
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
@@ -44,6 +48,7 @@
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.spatial.SpatialStrategy;
 import org.apache.lucene.spatial.prefix.RecursivePrefixTreeStrategy;
 import org.apache.lucene.spatial.prefix.tree.GeohashPrefixTree;
@@ -155,6 +160,15 @@ private void initializeIndex() throws IOException {
         indexWriter.close();
     }
 
+    private void addToIndex(final GeoEntry geoEntry) throws IOException {
+        final IndexWriterConfig indexWriterConfig = new IndexWriterConfig(new StandardAnalyzer());
+        indexWriterConfig.setOpenMode(OpenMode.APPEND);
+
+        try (IndexWriter indexWriter = new IndexWriter(directory, indexWriterConfig)) {
+            indexWriter.addDocument(createDocumentFromGeoEntry(geoEntry));
+        }
+    }
+
     @Before
     public void setUp() throws IOException {
         directoryIndex = spy(new GeoNamesQueryLuceneDirectoryIndex());
@@ -461,20 +475,20 @@ public void testNearestCitiesWithBlankWKT()
 
     @Test(expected = IllegalArgumentException.class)
     public void testDoGetNearestCitiesNullShape() throws GeoEntryQueryException {
-        directoryIndex.doGetNearestCities(null, 10, 10, directory);
+        directoryIndex.doGetNearestCities(null, 10, 10, null);
     }
 
     @Test(expected = GeoEntryQueryException.class)
     public void testDoGetNearestCitiesIOExceptionBranch()
-            throws IOException, GeoEntryQueryException {
+            throws IOException, GeoEntryQueryException, java.text.ParseException {
         doThrow(IOException.class).when(directoryIndex)
                 .createIndexReader(directory);
-        Shape shape = mock(Shape.class);
-        directoryIndex.doGetNearestCities(shape, 10, 10, directory);
+        directoryIndex.getNearestCities(TEST_POINT, 10, 10);
     }
 
     @Test
-    public void testDoGetNearestCitiesNullDirectory() throws IOException, GeoEntryQueryException {
+    public void testDoGetNearestCitiesNullIndexSearcher()
+            throws IOException, GeoEntryQueryException {
         Shape shape = mock(Shape.class);
         List<NearbyLocation> nearestCities = directoryIndex.doGetNearestCities(shape, 10, 10, null);
 
@@ -488,10 +502,10 @@ public void testDoGetCountryCodeNullShape() throws GeoEntryQueryException {
     }
 
     @Test(expected = IllegalArgumentException.class)
-    public void testDoGetCountryCodeNullLuceneDirectory() throws GeoEntryQueryException {
+    public void testDoGetCountryCodeNullIndexSearcher() throws GeoEntryQueryException {
         Shape shape = mock(Shape.class);
-        Directory directory = null;
-        directoryIndex.doGetCountryCode(shape, 10, directory);
+        IndexSearcher indexSearcher = null;
+        directoryIndex.doGetCountryCode(shape, 10, indexSearcher);
     }
 
     @Test
@@ -538,4 +552,99 @@ public void testDoQueryNullDirectory() throws GeoEntryQueryException {
         List<GeoEntry> result = directoryIndex.doQuery("test", 1, null);
         assertThat(result, empty());
     }
+
+    @Test
+    public void testSearcherIsReused()
+            throws IOException, GeoEntryQueryException, java.text.ParseException {
+        directoryIndex.query("phoenix", 1);
+        directoryIndex.getNearestCities(TEST_POINT, 50, 1);
+        directoryIndex.getCountryCode(TEST_POINT, 50);
+
+        verify(directoryIndex, times(1)).openDirectory();
+        verify(directoryIndex, times(1)).createIndexReader(directory);
+    }
+
+    @Test
+    public void testSearcherIsRefreshedWhenIndexChanges()
+            throws IOException, GeoEntryQueryException, java.text.ParseException {
+        assertThat(directoryIndex.query("tempe", 1), empty());
+
+        addToIndex(new GeoEntry.Builder().name("Tempe")
+                .latitude(1.3)
+                .longitude(56.9)
+                .featureCode("PPLA")
+                .population(POP_1 * 2)
+                .alternateNames("")
+                .countryCode("C4")
+                .build());
+
+        assertThat(directoryIndex.query("tempe", 1)
+                .size(), is(1));
+        assertThat(directoryIndex.getCountryCode(TEST_POINT, 50)
+                .get(), is("C4"));
+    }
+
+    @Test
+    public void testGetCountryCodes() throws GeoEntryQueryException {
+        final Map<String, String> countryCodes = directoryIndex.getCountryCodes(Arrays.asList(
+                TEST_POINT,
+                TEST_POINT,
+                "POINT (0 1)",
+                "POINT 56.78 1.5)"), 50);
+
+        assertThat(countryCodes, is(Collections.singletonMap(TEST_POINT, COUNTRY_CODE1)));
+    }
+
+    @Test
+    public void testCountryCodeWithoutNearbyCity()
+            throws GeoEntryQueryException, java.text.ParseException {
+        // Only "Phoenix Airport" (GEO_ENTRY_2), which is not a city, is within 15 km.
+        final Optional<String> countryCode = directoryIndex.getCountryCode("POINT (56.45 1.25)",
+                15);
+
+        assertThat(countryCode.get(), is(COUNTRY_CODE2));
+    }
+
+    @Test
+    public void testNearestCitiesAcrossDateLine()
+            throws IOException, GeoEntryQueryException, java.text.ParseException {
+        addToIndex(new GeoEntry.Builder().name("Dateline")
+                .latitude(0)
+                .longitude(179.9)
+                .featureCode("PPL")
+                .population(POP_3)
+                .alternateNames("")
+                .countryCode("C5")
+                .build());
+
+        final List<NearbyLocation> nearestCities = directoryIndex.getNearestCities(
+                "POINT (-179.9 0)",
+                50,
+                2);
+
+        assertThat(nearestCities.size(), is(1));
+        assertThat(nearestCities.get(0)
+                .getName(), is("Dateline"));
+        assertThat(directoryIndex.getCountryCode("POINT (-179.9 0)", 50)
+                .get(), is("C5"));
+    }
+
+    @Test
+    public void testLookupsWithoutInMemoryCities()
+            throws GeoEntryQueryException, java.text.ParseException {
+        directoryIndex.setMaxInMemoryCities(0);
+
+        final List<NearbyLocation> nearestCities = directoryIndex.getNearestCities(
+                "POINT (56.78 1)",
+                50,
+                2);
+
+        assertThat(nearestCities.size(), is(2));
+        assertThat(nearestCities.get(0)
+                .getName(), is(NAME_1));
+        assertThat(nearestCities.get(1)
+                .getName(), is(NAME_3));
+        assertThat(directoryIndex.getCountryCode(TEST_POINT, 50)
+                .get(), is(COUNTRY_CODE1));
+    }
 }
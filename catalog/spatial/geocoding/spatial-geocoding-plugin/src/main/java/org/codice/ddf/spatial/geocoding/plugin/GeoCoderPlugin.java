@@ -13,8 +13,11 @@
  */
 package org.codice.ddf.spatial.geocoding.plugin;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.codice.ddf.spatial.geocoder.GeoCoder;
 import org.slf4j.Logger;
@@ -45,8 +48,6 @@ public class GeoCoderPlugin implements PreIngestPlugin {
 
     private int radiusInKm = 10;
 
-    private GeoCoder geoCoder;
-
     public GeoCoderPlugin(ServiceSelector<GeoCoder> geoCoderFactory) {
         if (geoCoderFactory == null) {
             throw new IllegalArgumentException(
@@ -63,9 +64,7 @@ public CreateRequest process(CreateRequest input)
             return input;
         }
 
-        geoCoder = geoCoderFactory.getService();
-        input.getMetacards()
-                .forEach(this::setCountryCode);
+        setCountryCodes(input.getMetacards());
 
         return input;
     }
@@ -77,11 +76,10 @@ public UpdateRequest process(UpdateRequest input)
             return input;
         }
 
-        geoCoder = geoCoderFactory.getService();
-        input.getUpdates()
+        setCountryCodes(input.getUpdates()
                 .stream()
                 .map(Map.Entry::getValue)
-                .forEach(this::setCountryCode);
+                .collect(Collectors.toList()));
 
         return input;
     }
@@ -111,28 +109,40 @@ public int getRadius() {
     }
 
     /**
-     * Sets the country code attribute of the {@param metacard} when the {@param metacard} has a
-     * location and there is not already a country code attribute. Does not update the country code
-     * if the country code attribute is already set.
+     * Sets the country code attribute of each of the {@param metacards} that has a location and
+     * does not already have a country code attribute. The distinct locations of all the metacards
+     * are geocoded in one batch. Does not update the country code if the country code attribute
+     * is already set.
      *
-     * @param metacard
+     * @param metacards
      */
-    private void setCountryCode(Metacard metacard) {
-        Optional<String> wktLocation = Optional.ofNullable(metacard.getLocation());
-
-        if (geoCoder != null && wktLocation.isPresent() && !hasCountryCode(metacard)) {
-            Optional<String> alpha3CountryCode = geoCoder.getCountryCode(wktLocation.get(),
-                    radiusInKm);
-
-            geoCoder.getCountryCode(wktLocation.get(), radiusInKm)
-                    .ifPresent(countryCode -> {
-                        LOGGER.trace("Setting metacard country code to {} for metacard with id {}",
-                                alpha3CountryCode.get(),
-                                metacard.getId());
-
-                        metacard.setAttribute(new AttributeImpl(Location.COUNTRY_CODE,
-                                alpha3CountryCode.get()));
-                    });
+    private void setCountryCodes(List<Metacard> metacards) {
+        GeoCoder geoCoder = geoCoderFactory.getService();
+        if (geoCoder == null) {
+            return;
+        }
+
+        List<Metacard> metacardsToGeocode = metacards.stream()
+                .filter(metacard -> metacard.getLocation() != null && !hasCountryCode(metacard))
+                .collect(Collectors.toList());
+        if (metacardsToGeocode.isEmpty()) {
+            return;
+        }
+
+        Set<String> wktLocations = metacardsToGeocode.stream()
+                .map(Metacard::getLocation)
+                .collect(Collectors.toSet());
+        Map<String, String> countryCodes = geoCoder.getCountryCodes(wktLocations, radiusInKm);
+
+        for (Metacard metacard : metacardsToGeocode) {
+            String countryCode = countryCodes.get(metacard.getLocation());
+            if (countryCode != null) {
+                LOGGER.trace("Setting metacard country code to {} for metacard with id {}",
+                        countryCode,
+                        metacard.getId());
+
+                metacard.setAttribute(new AttributeImpl(Location.COUNTRY_CODE, countryCode));
+            }
         }
     }
 
@@ -36,6 +36,8 @@ class GeoCoderPluginTest extends Specification {
 
     private static String locationWKT = 'POINT(10.402439 63.418399)'
 
+    private static String otherLocationWKT = 'POINT(-60.5 -30.25)'
+
     private CreateRequest createRequest
 
     private UpdateRequest updateRequest
@@ -199,6 +201,32 @@ class GeoCoderPluginTest extends Specification {
         processedMetacard.getAttribute(Location.COUNTRY_CODE) == null
     }
 
+    def 'test metacards CreateRequest geocoded in one batch'() {
+        setup:
+        def geoCoder = Mock(GeoCoder)
+        geocoderFactory = Mock(ServiceSelector) {
+            getService() >> geoCoder
+        }
+        geoCoderPlugin = new GeoCoderPlugin(geocoderFactory)
+        def metacards = [locationWKT, locationWKT, otherLocationWKT].collect { location ->
+            def metacard = new MetacardImpl()
+            metacard.setAttribute(new AttributeImpl(Core.LOCATION, location))
+            metacard
+        }
+        createRequest.getMetacards() >> metacards
+
+        when:
+        geoCoderPlugin.process(createRequest)
+
+        then:
+        1 * geoCoder.getCountryCodes({ it as Set == [locationWKT, otherLocationWKT] as Set },
+                10) >> [(locationWKT): countryCode.get()]
+        0 * geoCoder.getCountryCode(_, _)
+        metacards[0].getAttribute(Location.COUNTRY_CODE).getValue() == countryCode.get()
+        metacards[1].getAttribute(Location.COUNTRY_CODE).getValue() == countryCode.get()
+        metacards[2].getAttribute(Location.COUNTRY_CODE) == null
+    }
+
     def 'test update configuration'() {
         setup:
         def map = new HashMap<String, Object>()
@@ -215,6 +243,9 @@ class GeoCoderPluginTest extends Specification {
     def initGeoCoderPlugin(Optional<String> countryCode, boolean overrideDefaultGeocoder) {
         GeoCoder geocoder = (overrideDefaultGeocoder == true) ? null : Mock(GeoCoder) {
             getCountryCode(_ as String, _ as Integer) >> countryCode
+            getCountryCodes(_ as Collection, _ as Integer) >> { Collection<String> locations, int radius ->
+                countryCode.isPresent() ? locations.collectEntries { [(it): countryCode.get()] } : [:]
+            }
         }
 
         geocoderFactory = Mock(ServiceSelector) {
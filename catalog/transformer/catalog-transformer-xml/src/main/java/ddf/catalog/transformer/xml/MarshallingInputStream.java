@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.xmlpull.v1.XmlPullParserException;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.transform.CatalogTransformerException;
+import ddf.catalog.transformer.api.MetacardMarshaller;
+
+/**
+ * {@link InputStream} of the UTF-8 XML of a list of results, marshalled as the stream is read.
+ * <p>
+ * The results are marshalled in chunks on a {@link ForkJoinPool}, with at most {@code window}
+ * chunks in flight ahead of the reader, so the memory used does not depend on the number of
+ * results. Chunks are returned in the order of the results.
+ * <p>
+ * MarshallingInputStream is not thread-safe; it should be read by a single thread.
+ */
+class MarshallingInputStream extends InputStream {
+
+    private static final Map<String, Serializable> MARSHAL_ARGS;
+
+    static {
+        Map<String, Serializable> args = new HashMap<>();
+        args.put(MetacardMarshallerImpl.OMIT_XML_DECL, Boolean.TRUE);
+        MARSHAL_ARGS = args;
+    }
+
+    private final Iterator<List<Result>> chunks;
+
+    private final ForkJoinPool fjp;
+
+    private final MetacardMarshaller metacardMarshaller;
+
+    private final int window;
+
+    private final Deque<ForkJoinTask<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] footer;
+
+    private byte[] current;
+
+    private int position;
+
+    private boolean closed;
+
+    /**
+     * @param header             bytes returned before the first result
+     * @param chunks             the results to marshal, in chunks
+     * @param footer             bytes returned after the last result
+     * @param fjp                the pool that marshals the chunks
+     * @param window             the maximum number of chunks marshalled ahead of the reader
+     * @param metacardMarshaller the marshaller of each result's metacard
+     */
+    MarshallingInputStream(byte[] header, Iterator<List<Result>> chunks, byte[] footer,
+            ForkJoinPool fjp, int window, MetacardMarshaller metacardMarshaller) {
+        this.current = header;
+        this.chunks = chunks;
+        this.footer = footer;
+        this.fjp = fjp;
+        this.window = Math.max(window, 1);
+        this.metacardMarshaller = metacardMarshaller;
+        fill();
+    }
+
+    /**
+     * Marshals a chunk of results in the calling thread.
+     *
+     * @param chunk              the results to marshal
+     * @param metacardMarshaller the marshaller of each result's metacard
+     * @return the UTF-8 XML of the chunk's metacards, without XML declarations
+     * @throws CatalogTransformerException if a metacard cannot be marshalled
+     */
+    static byte[] marshal(List<Result> chunk, MetacardMarshaller metacardMarshaller)
+            throws CatalogTransformerException {
+        StringBuilder xml = new StringBuilder(XmlResponseQueueTransformer.BUFFER_SIZE);
+        try {
+            for (Result result : chunk) {
+                xml.append(metacardMarshaller.marshal(result.getMetacard(), MARSHAL_ARGS));
+            }
+        } catch (XmlPullParserException | IOException e) {
+            throw new CatalogTransformerException("Failure to write node; operation aborted", e);
+        }
+        return xml.toString()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureBytes()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureBytes()) {
+            return -1;
+        }
+
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - position;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        current = null;
+        footer = null;
+        for (ForkJoinTask<byte[]> task : pending) {
+            task.cancel(true);
+        }
+        pending.clear();
+    }
+
+    private boolean ensureBytes() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        while (current == null || position >= current.length) {
+            current = next();
+            position = 0;
+            if (current == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] next() throws IOException {
+        fill();
+
+        ForkJoinTask<byte[]> task = pending.poll();
+        if (task != null) {
+            try {
+                byte[] bytes = task.get();
+                fill();
+                return bytes;
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                        .interrupt();
+                close();
+                throw new InterruptedIOException("Interrupted while marshalling metacards");
+            } catch (ExecutionException e) {
+                close();
+                throw new IOException("Failure to write node; operation aborted", e.getCause());
+            }
+        }
+
+        byte[] last = footer;
+        footer = null;
+        return last;
+    }
+
+    private void fill() {
+        while (pending.size() < window && chunks.hasNext()) {
+            List<Result> chunk = chunks.next();
+            pending.add(fjp.submit(() -> marshal(chunk, metacardMarshaller)));
+        }
+    }
+}
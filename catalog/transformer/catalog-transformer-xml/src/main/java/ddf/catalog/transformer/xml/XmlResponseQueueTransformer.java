@@ -21,6 +21,8 @@
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveTask;
@@ -36,6 +38,7 @@
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 
 import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.Metacard;
@@ -159,6 +162,8 @@ private void readObject(ObjectInputStream stream)
 
     private int threshold;
 
+    private boolean streaming = false;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(XmlResponseQueueTransformer.class);
 
     private final MimeType mimeType;
@@ -167,6 +172,12 @@ private void readObject(ObjectInputStream stream)
 
     private static final String GML_PREFIX = "gml";
 
+    private static final String XML_DECLARATION =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+    private static final byte[] METACARDS_END_TAG =
+            "</metacards>".getBytes(StandardCharsets.UTF_8);
+
     static {
         String nsPrefix = "xmlns";
 
@@ -215,12 +226,29 @@ public void setThreshold(int threshold) {
         this.threshold = threshold <= 1 ? 2 : threshold;
     }
 
+    /**
+     * Streaming is off by default. When it is on, results after the first chunk are marshalled
+     * while the returned content is read, so a failure to marshal them surfaces as an
+     * {@link IOException} from the content's stream instead of a
+     * {@link CatalogTransformerException} from {@link #transform}.
+     *
+     * @param streaming {@code true} to marshal results while the returned content is read,
+     *                  {@code false} to marshal all results before returning
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
     @Override
     public BinaryContent transform(SourceResponse response, Map<String, Serializable> args)
             throws CatalogTransformerException {
+        if (streaming) {
+            return streamingTransform(response);
+        }
+
         try {
             PrintWriter writer = printWriterProvider.build(Metacard.class);
-            writer.setRawValue("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+            writer.setRawValue(XML_DECLARATION);
 
             writer.startNode("metacards");
             for (Map.Entry<String, String> nsRow : NAMESPACE_MAP.entrySet()) {
@@ -251,4 +279,48 @@ public BinaryContent transform(SourceResponse response, Map<String, Serializable
             throw new CatalogTransformerException("Failed Query response transformation");
         }
     }
+
+    /**
+     * Returns content that marshals the results in threshold-sized chunks as it is read, so the
+     * whole response is never held in memory. The first chunk is marshalled before returning so
+     * that responses failing early are still reported as a {@link CatalogTransformerException};
+     * later failures surface as an {@link IOException} from the content's stream.
+     */
+    private BinaryContent streamingTransform(SourceResponse response)
+            throws CatalogTransformerException {
+        try {
+            PrintWriter writer = printWriterProvider.build(Metacard.class);
+            writer.setRawValue(XML_DECLARATION);
+
+            writer.startNode("metacards");
+            for (Map.Entry<String, String> nsRow : NAMESPACE_MAP.entrySet()) {
+                writer.addAttribute(nsRow.getKey(), nsRow.getValue());
+            }
+
+            List<Result> results = response.getResults() == null ? ImmutableList.of()
+                    : ImmutableList.copyOf(response.getResults());
+            Iterator<List<Result>> chunks = Lists.partition(results, Math.max(threshold, 2))
+                    .iterator();
+            if (!chunks.hasNext()) {
+                writer.endNode(); // metacards
+                return new BinaryContentImpl(new ByteArrayInputStream(writer.makeString()
+                        .getBytes(StandardCharsets.UTF_8)), mimeType);
+            }
+
+            writer.setRawValue(new String(MarshallingInputStream.marshal(chunks.next(),
+                    metacardMarshaller), StandardCharsets.UTF_8));
+            byte[] header = writer.makeString()
+                    .getBytes(StandardCharsets.UTF_8);
+
+            return new BinaryContentImpl(new MarshallingInputStream(header,
+                    chunks,
+                    METACARDS_END_TAG,
+                    fjp,
+                    fjp.getParallelism(),
+                    metacardMarshaller), mimeType);
+        } catch (Exception e) {
+            LOGGER.info("Failed Query response transformation", e);
+            throw new CatalogTransformerException("Failed Query response transformation");
+        }
+    }
 }
@@ -22,8 +22,11 @@
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atMost;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
@@ -32,6 +35,7 @@
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -531,6 +535,142 @@ public void testMetacardMarshallThrowsXmlPullParserException()
         // then exception
     }
 
+    @Test
+    public void testStreamingMatchesBuffered() throws Exception {
+        List<Metacard> metacards = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            metacards.add(new MetacardStub("source" + i, "id" + i));
+        }
+        SourceResponse response =
+                givenSourceResponse(metacards.toArray(new Metacard[metacards.size()]));
+
+        PrintWriterProvider pwp = new PrintWriterProviderImpl();
+        MetacardMarshaller mcm = new MetacardMarshallerImpl(parser, pwp);
+
+        XmlResponseQueueTransformer bufferedXform = new XmlResponseQueueTransformer(parser,
+                FJP,
+                pwp,
+                mcm,
+                getMimeType());
+        bufferedXform.setThreshold(4);
+        bufferedXform.setStreaming(false);
+
+        XmlResponseQueueTransformer streamingXform = new XmlResponseQueueTransformer(parser,
+                FJP,
+                pwp,
+                mcm,
+                getMimeType());
+        streamingXform.setThreshold(4);
+        streamingXform.setStreaming(true);
+
+        String bufferedOutput = new String(bufferedXform.transform(response, null)
+                .getByteArray(), StandardCharsets.UTF_8);
+        String streamingOutput = new String(streamingXform.transform(response, null)
+                .getByteArray(), StandardCharsets.UTF_8);
+
+        assertEquals(bufferedOutput.replaceAll("\\s", ""),
+                streamingOutput.replaceAll("\\s", ""));
+        assertXpathEvaluatesTo("25", "count(/mc:metacards/mc:metacard)", streamingOutput);
+        assertXpathEvaluatesTo("id24", "/mc:metacards/mc:metacard[25]/@gml:id", streamingOutput);
+    }
+
+    @Test
+    public void testStreamingMarshalsWhileRead() throws Exception {
+        List<Metacard> metacards = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            metacards.add(new MetacardStub("source" + i, "id" + i));
+        }
+        SourceResponse response =
+                givenSourceResponse(metacards.toArray(new Metacard[metacards.size()]));
+
+        MetacardMarshaller mockMetacardMarshaller = mock(MetacardMarshaller.class);
+        when(mockMetacardMarshaller.marshal(any(Metacard.class), any(Map.class))).thenReturn(
+                "<metacard/>");
+
+        XmlResponseQueueTransformer xrqt = new XmlResponseQueueTransformer(parser,
+                new ForkJoinPool(1),
+                new PrintWriterProviderImpl(),
+                mockMetacardMarshaller,
+                getMimeType());
+        xrqt.setThreshold(2);
+        xrqt.setStreaming(true);
+
+        BinaryContent bc = xrqt.transform(response, null);
+
+        verify(mockMetacardMarshaller, atMost(4)).marshal(any(Metacard.class), any(Map.class));
+
+        String output = new String(bc.getByteArray(), StandardCharsets.UTF_8);
+
+        verify(mockMetacardMarshaller, times(10)).marshal(any(Metacard.class), any(Map.class));
+        assertXpathEvaluatesTo("10", "count(/mc:metacards/mc:metacard)", output);
+    }
+
+    @Test(expected = IOException.class)
+    public void testStreamingMarshalFailureAfterFirstChunk() throws Exception {
+        SourceResponse response = givenSourceResponse(new MetacardStub("source1", "id1"),
+                new MetacardStub("source2", "id2"),
+                new MetacardStub("source3", "id3"),
+                new MetacardStub("source4", "id4"));
+
+        MetacardMarshaller mockMetacardMarshaller = mock(MetacardMarshaller.class);
+        when(mockMetacardMarshaller.marshal(any(Metacard.class), any(Map.class))).thenReturn(
+                "<metacard/>",
+                "<metacard/>")
+                .thenThrow(new XmlPullParserException(""));
+
+        XmlResponseQueueTransformer xrqt = new XmlResponseQueueTransformer(parser,
+                FJP,
+                new PrintWriterProviderImpl(),
+                mockMetacardMarshaller,
+                getMimeType());
+        xrqt.setThreshold(2);
+        xrqt.setStreaming(true);
+
+        BinaryContent bc = xrqt.transform(response, null);
+
+        bc.getByteArray();
+    }
+
+    @Test(expected = CatalogTransformerException.class)
+    public void testMarshalFailureAfterFirstChunkNotStreaming() throws Exception {
+        SourceResponse response = givenSourceResponse(new MetacardStub("source1", "id1"),
+                new MetacardStub("source2", "id2"),
+                new MetacardStub("source3", "id3"),
+                new MetacardStub("source4", "id4"));
+
+        MetacardMarshaller mockMetacardMarshaller = mock(MetacardMarshaller.class);
+        when(mockMetacardMarshaller.marshal(any(Metacard.class), any(Map.class))).thenReturn(
+                "<metacard/>",
+                "<metacard/>")
+                .thenThrow(new XmlPullParserException(""));
+
+        XmlResponseQueueTransformer xrqt = new XmlResponseQueueTransformer(parser,
+                FJP,
+                new PrintWriterProviderImpl(),
+                mockMetacardMarshaller,
+                getMimeType());
+        xrqt.setThreshold(2);
+
+        xrqt.transform(response, null);
+    }
+
+    @Test
+    public void testStreamingEmptyResponse() throws Exception {
+        SourceResponse response = givenSourceResponse();
+
+        XmlResponseQueueTransformer xrqt = new XmlResponseQueueTransformer(parser,
+                FJP,
+                new PrintWriterProviderImpl(),
+                new MetacardMarshallerImpl(parser, new PrintWriterProviderImpl()),
+                getMimeType());
+        xrqt.setStreaming(true);
+
+        String output = new String(xrqt.transform(response, null)
+                .getByteArray(), StandardCharsets.UTF_8);
+
+        assertXpathEvaluatesTo("0", "count(/mc:metacards/mc:metacard)", output);
+    }
+
     /**
      * @return
      */
@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.ui.query.monitor.impl;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.CatalogFramework;
+import ddf.catalog.federation.FederationException;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.source.SourceUnavailableException;
+import ddf.catalog.source.UnsupportedQueryException;
+
+/**
+ * Runs hit count queries through the catalog framework on a dedicated, bounded thread pool. The
+ * queries for each source are split into at most {@code maxQueriesPerSource} lanes that run one
+ * query at a time, so that a single slow source cannot take every thread of the pool.
+ */
+class HitCountQueryExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HitCountQueryExecutor.class);
+
+    private static final int DEFAULT_MAX_CONCURRENT_QUERIES = 8;
+
+    private static final int DEFAULT_MAX_QUERIES_PER_SOURCE = 2;
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final CatalogFramework catalogFramework;
+
+    private final ThreadPoolExecutor executor;
+
+    private volatile int maxQueriesPerSource = DEFAULT_MAX_QUERIES_PER_SOURCE;
+
+    /**
+     * @param catalogFramework must be non-null
+     */
+    HitCountQueryExecutor(CatalogFramework catalogFramework) {
+        notNull(catalogFramework, "catalogFramework must be non-null");
+        this.catalogFramework = catalogFramework;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(DEFAULT_MAX_CONCURRENT_QUERIES,
+                DEFAULT_MAX_CONCURRENT_QUERIES,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "workspaceQueryMonitor-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param maxConcurrentQueries must be greater than 0
+     */
+    synchronized void setMaxConcurrentQueries(int maxConcurrentQueries) {
+        isTrue(maxConcurrentQueries > 0, "maxConcurrentQueries must be greater than 0");
+        if (maxConcurrentQueries > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(maxConcurrentQueries);
+            executor.setCorePoolSize(maxConcurrentQueries);
+        } else {
+            executor.setCorePoolSize(maxConcurrentQueries);
+            executor.setMaximumPoolSize(maxConcurrentQueries);
+        }
+    }
+
+    /**
+     * @param maxQueriesPerSource must be greater than 0
+     */
+    void setMaxQueriesPerSource(int maxQueriesPerSource) {
+        isTrue(maxQueriesPerSource > 0, "maxQueriesPerSource must be greater than 0");
+        this.maxQueriesPerSource = maxQueriesPerSource;
+    }
+
+    /**
+     * Runs each query request once and returns its hit count. Queries that fail count as 0 hits.
+     * Queries that have not completed when the timeout expires are left out of the returned map,
+     * and queued queries that have not started yet are skipped.
+     *
+     * @param queryRequests the query requests to run, by key
+     * @param sourceOf      returns the source a key's query runs against
+     * @param timeout       the time to wait for all the queries to complete
+     * @param timeoutUnit   the unit of {@code timeout}
+     * @return the hit counts of the queries that completed, by key
+     */
+    <K> Map<K, Long> countHits(Map<K, QueryRequest> queryRequests, Function<K, String> sourceOf,
+            long timeout, TimeUnit timeoutUnit) {
+        Map<K, Long> hits = new ConcurrentHashMap<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        Map<String, List<K>> keysBySource = new HashMap<>();
+        queryRequests.keySet()
+                .forEach(key -> keysBySource.computeIfAbsent(sourceOf.apply(key),
+                        source -> new ArrayList<>())
+                        .add(key));
+
+        List<CompletableFuture<Void>> lanes = new ArrayList<>();
+        for (List<K> keys : keysBySource.values()) {
+            int laneCount = Math.min(maxQueriesPerSource, keys.size());
+            for (int lane = 0; lane < laneCount; lane++) {
+                CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+                for (int i = lane; i < keys.size(); i += laneCount) {
+                    K key = keys.get(i);
+                    future = future.thenRunAsync(() -> {
+                        if (!cancelled.get()) {
+                            hits.put(key, countHits(queryRequests.get(key)));
+                        }
+                    }, executor);
+                }
+                lanes.add(future);
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(lanes.toArray(new CompletableFuture[lanes.size()]))
+                    .get(timeout, timeoutUnit);
+        } catch (TimeoutException e) {
+            LOGGER.warn("Timed out waiting for workspace queries: completed={} total={}",
+                    hits.size(),
+                    queryRequests.size());
+        } catch (ExecutionException e) {
+            LOGGER.warn("Workspace query error", e);
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted waiting for workspace queries", e);
+            Thread.currentThread()
+                    .interrupt();
+        } finally {
+            cancelled.set(true);
+        }
+
+        return new HashMap<>(hits);
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private long countHits(QueryRequest queryRequest) {
+        try {
+            return catalogFramework.query(queryRequest)
+                    .getHits();
+        } catch (UnsupportedQueryException | FederationException | SourceUnavailableException
+                | RuntimeException e) {
+            LOGGER.warn("Query error", e);
+            return 0L;
+        }
+    }
+}
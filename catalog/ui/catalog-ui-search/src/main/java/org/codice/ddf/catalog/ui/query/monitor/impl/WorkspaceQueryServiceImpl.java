@@ -23,23 +23,19 @@
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinTask;
-import java.util.concurrent.RecursiveTask;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.function.BiFunction;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -53,7 +49,6 @@
 import org.codice.ddf.security.common.Security;
 import org.geotools.filter.text.cql2.CQLException;
 import org.geotools.filter.text.ecql.ECQL;
-import org.opengis.filter.And;
 import org.opengis.filter.Filter;
 import org.quartz.CronTrigger;
 import org.quartz.JobDetail;
@@ -62,17 +57,11 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Lists;
-
 import ddf.catalog.CatalogFramework;
-import ddf.catalog.federation.FederationException;
 import ddf.catalog.filter.FilterBuilder;
 import ddf.catalog.operation.QueryRequest;
-import ddf.catalog.operation.QueryResponse;
 import ddf.catalog.operation.impl.QueryImpl;
 import ddf.catalog.operation.impl.QueryRequestImpl;
-import ddf.catalog.source.SourceUnavailableException;
-import ddf.catalog.source.UnsupportedQueryException;
 import ddf.security.Subject;
 
 public class WorkspaceQueryServiceImpl implements WorkspaceQueryService {
@@ -93,6 +82,8 @@ public class WorkspaceQueryServiceImpl implements WorkspaceQueryService {
 
     private final FilterBuilder filterBuilder;
 
+    private final HitCountQueryExecutor hitCountQueryExecutor;
+
     @SuppressWarnings("FieldCanBeLocal")
     private Scheduler scheduler;
 
@@ -137,6 +128,7 @@ public WorkspaceQueryServiceImpl(QueryUpdateSubscriber queryUpdateSubscriber,
         this.filterBuilder = filterBuilder;
         this.securityService = securityService;
         this.filterService = filterService;
+        this.hitCountQueryExecutor = new HitCountQueryExecutor(catalogFramework);
 
         Optional<Scheduler> schedulerOptional = schedulerSupplier.get();
 
@@ -199,6 +191,27 @@ public void setQueryTimeoutMinutes(Long queryTimeoutMinutes) {
         this.queryTimeoutMinutes = queryTimeoutMinutes;
     }
 
+    /**
+     * @param maxConcurrentQueries the number of queries to run at once (must be greater than 0)
+     */
+    @SuppressWarnings("unused")
+    public void setMaxConcurrentQueries(Integer maxConcurrentQueries) {
+        notNull(maxConcurrentQueries, "maxConcurrentQueries must be non-null");
+        LOGGER.debug("Setting maxConcurrentQueries : {}", maxConcurrentQueries);
+        hitCountQueryExecutor.setMaxConcurrentQueries(maxConcurrentQueries);
+    }
+
+    /**
+     * @param maxQueriesPerSource the number of queries to run at once against a single source
+     *                            (must be greater than 0)
+     */
+    @SuppressWarnings("unused")
+    public void setMaxQueriesPerSource(Integer maxQueriesPerSource) {
+        notNull(maxQueriesPerSource, "maxQueriesPerSource must be non-null");
+        LOGGER.debug("Setting maxQueriesPerSource : {}", maxQueriesPerSource);
+        hitCountQueryExecutor.setMaxQueriesPerSource(maxQueriesPerSource);
+    }
+
     public void setSubject(Subject subject) {
         this.subject = subject;
     }
@@ -210,6 +223,7 @@ public void destroy() {
         } catch (SchedulerException e) {
             LOGGER.warn("Unable to shut down scheduler", e);
         }
+        hitCountQueryExecutor.shutdown();
     }
 
     /**
@@ -232,12 +246,8 @@ public void run() {
 
                 LOGGER.debug("queryMetacards: size={}", queryMetacards.size());
 
-                List<WorkspaceTask> workspaceTasks = createWorkspaceTasks(queryMetacards);
-
-                LOGGER.debug("workspaceTasks: size={}", workspaceTasks.size());
-
-                Map<String, Pair<WorkspaceMetacardImpl, Long>> results = executeWorkspaceTasks(
-                        workspaceTasks,
+                Map<String, Pair<WorkspaceMetacardImpl, Long>> results = countWorkspaceHits(
+                        queryMetacards,
                         queryTimeoutMinutes,
                         TimeUnit.MINUTES);
 
@@ -251,115 +261,116 @@ public void run() {
 
     }
 
-    private Map<String, Pair<WorkspaceMetacardImpl, Long>> executeWorkspaceTasks(
-            List<WorkspaceTask> workspaceTasks, long timeout, TimeUnit timeoutUnit) {
-        Map<String, Pair<WorkspaceMetacardImpl, Long>> results = new ConcurrentHashMap<>();
-
-        workspaceTasks.stream()
-                .map(ForkJoinPool.commonPool()::submit)
-                .map(task -> getTaskResult(task, timeout, timeoutUnit))
-                .filter(Objects::nonNull)
-                .forEach(pair -> results.put(pair.getLeft()
-                        .getId(), new ImmutablePair<>(pair.getLeft(), pair.getRight())));
-
-        return results;
-    }
+    /**
+     * Runs each distinct source query once and adds up the hits of the queries of each workspace.
+     * Workspaces whose queries did not all complete within the timeout are left out.
+     */
+    private Map<String, Pair<WorkspaceMetacardImpl, Long>> countWorkspaceHits(
+            Map<String, Pair<WorkspaceMetacardImpl, List<QueryMetacardImpl>>> queryMetacards,
+            long timeout, TimeUnit timeoutUnit) {
+        CanonicalFilters canonicalFilters = new CanonicalFilters();
 
-    private Pair<WorkspaceMetacardImpl, Long> getTaskResult(
-            ForkJoinTask<Pair<WorkspaceMetacardImpl, Long>> workspaceTask, long timeout,
-            TimeUnit timeoutUnit) {
-        try {
-            return workspaceTask.get(timeout, timeoutUnit);
-        } catch (TimeoutException e) {
-            LOGGER.warn("Timeout", e);
-        } catch (ExecutionException | InterruptedException e) {
-            LOGGER.warn("ForkJoinPool error", e);
+        List<Pair<WorkspaceMetacardImpl, Set<SourceQuery>>> workspaceQueries = new ArrayList<>();
+        for (Pair<WorkspaceMetacardImpl, List<QueryMetacardImpl>> workspaceQueryPair : queryMetacards.values()) {
+            Set<SourceQuery> sourceQueries = toSourceQueries(workspaceQueryPair.getRight(),
+                    canonicalFilters);
+            if (!sourceQueries.isEmpty()) {
+                workspaceQueries.add(Pair.of(workspaceQueryPair.getLeft(), sourceQueries));
+            }
         }
-        return null;
-    }
 
-    private List<WorkspaceTask> createWorkspaceTasks(
-            Map<String, Pair<WorkspaceMetacardImpl, List<QueryMetacardImpl>>> queryMetacards) {
-        List<WorkspaceTask> workspaceTasks = new ArrayList<>();
+        final Filter modifiedFilter =
+                filterService.getModifiedDateFilter(calculateQueryTimeInterval());
+        Map<SourceQuery, QueryRequest> queryRequests = new HashMap<>();
+        for (Pair<WorkspaceMetacardImpl, Set<SourceQuery>> workspaceQueryPair : workspaceQueries) {
+            workspaceQueryPair.getRight()
+                    .forEach(sourceQuery -> queryRequests.computeIfAbsent(sourceQuery,
+                            key -> toQueryRequest(key, modifiedFilter, canonicalFilters)));
+        }
 
-        for (Pair<WorkspaceMetacardImpl, List<QueryMetacardImpl>> workspaceQueryPair : queryMetacards.values()) {
-            Map<String, List<QueryMetacardImpl>> queryMetacardsGroupedBySource = groupBySource(
-                    workspaceQueryPair.getRight());
-            List<QueryRequest> queryRequests =
-                    getQueryRequests(queryMetacardsGroupedBySource.values()
-                            .stream());
-            if (!queryRequests.isEmpty()) {
-                workspaceTasks.add(new WorkspaceTask(workspaceQueryPair.getLeft(), queryRequests));
+        LOGGER.debug("workspaces: size={}, distinct queries: size={}",
+                workspaceQueries.size(),
+                queryRequests.size());
+
+        Map<SourceQuery, Long> hits = hitCountQueryExecutor.countHits(queryRequests,
+                SourceQuery::getSourceId,
+                timeout,
+                timeoutUnit);
+
+        Map<String, Pair<WorkspaceMetacardImpl, Long>> results = new HashMap<>();
+        for (Pair<WorkspaceMetacardImpl, Set<SourceQuery>> workspaceQueryPair : workspaceQueries) {
+            WorkspaceMetacardImpl workspaceMetacard = workspaceQueryPair.getLeft();
+            Set<SourceQuery> sourceQueries = workspaceQueryPair.getRight();
+            if (hits.keySet()
+                    .containsAll(sourceQueries)) {
+                long workspaceHits = sourceQueries.stream()
+                        .mapToLong(hits::get)
+                        .sum();
+                results.put(workspaceMetacard.getId(),
+                        new ImmutablePair<>(workspaceMetacard, workspaceHits));
+            } else {
+                LOGGER.debug("Queries did not complete for workspace: id={}",
+                        workspaceMetacard.getId());
             }
         }
-
-        return workspaceTasks;
+        return results;
     }
 
-    private Map<String, List<QueryMetacardImpl>> groupBySource(
-            List<QueryMetacardImpl> queryMetacards) {
-        final Map<String, List<QueryMetacardImpl>> groupedBySource = new HashMap<>();
+    /**
+     * Groups the queries of a workspace by source, identifying each group by its source and the
+     * canonical form of its query filters so that identical groups of other workspaces share it.
+     */
+    private Set<SourceQuery> toSourceQueries(List<QueryMetacardImpl> queryMetacards,
+            CanonicalFilters canonicalFilters) {
+        final Map<String, SortedSet<String>> cqlBySource = new HashMap<>();
         for (QueryMetacardImpl queryMetacard : queryMetacards) {
+            String cql = canonicalFilters.canonicalize(queryMetacard.getCql());
+            if (cql == null) {
+                continue;
+            }
+
             List<String> sources = queryMetacard.getSources();
             if (!sources.isEmpty()) {
-                sources.forEach(sourceId -> groupedBySource.compute(sourceId,
-                        addToList(queryMetacard)));
+                sources.forEach(sourceId -> cqlBySource.computeIfAbsent(sourceId,
+                        id -> new TreeSet<>())
+                        .add(cql));
             } else {
-                groupedBySource.compute(UNKNOWN_SOURCE, addToList(queryMetacard));
+                cqlBySource.computeIfAbsent(UNKNOWN_SOURCE, id -> new TreeSet<>())
+                        .add(cql);
             }
         }
-        return groupedBySource;
-    }
 
-    private BiFunction<String, List<QueryMetacardImpl>, List<QueryMetacardImpl>> addToList(
-            QueryMetacardImpl queryMetacard) {
-        return (id, queries) -> {
-            if (queries == null) {
-                return Lists.newArrayList(queryMetacard);
-            } else {
-                queries.add(queryMetacard);
-                return queries;
-            }
-        };
+        return cqlBySource.entrySet()
+                .stream()
+                .map(entry -> new SourceQuery(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toSet());
     }
 
-    private List<QueryRequest> getQueryRequests(
-            Stream<List<QueryMetacardImpl>> queriesGroupedBySource) {
-        final Filter modifiedFilter = filterService.getModifiedDateFilter(calculateQueryTimeInterval());
-        return queriesGroupedBySource.map(this::queryMetacardsToFilters)
-                .map(filterBuilder::anyOf)
-                .map(filter -> filterBuilder.allOf(modifiedFilter, filter))
-                .map(this::filterToQuery)
-                .map(this::queryToQueryRequest)
+    /**
+     * Creates a request that only asks the source for the number of hits. A page size of 0 means
+     * all results in the catalog framework, so a single result is requested instead.
+     */
+    private QueryRequest toQueryRequest(SourceQuery sourceQuery, Filter modifiedFilter,
+            CanonicalFilters canonicalFilters) {
+        List<Filter> filters = sourceQuery.getCql()
+                .stream()
+                .map(canonicalFilters::getFilter)
                 .collect(Collectors.toList());
-    }
 
-    private List<Filter> queryMetacardsToFilters(List<QueryMetacardImpl> queriesForSource) {
-        return queriesForSource.stream()
-                .map(this::metacardToFilter)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-    }
+        final QueryImpl query = new QueryImpl(filterBuilder.allOf(modifiedFilter,
+                filterBuilder.anyOf(filters)));
+        query.setPageSize(1);
+        query.setRequestsTotalResultsCount(true);
 
-    private QueryRequestImpl queryToQueryRequest(QueryImpl query) {
         final Map<String, Serializable> properties =
                 securityService.addSystemSubject(new HashMap<>());
-        return new QueryRequestImpl(query, properties);
-    }
-
-    private QueryImpl filterToQuery(And filter) {
-        final QueryImpl query = new QueryImpl(filter);
-        query.setRequestsTotalResultsCount(true);
-        return query;
-    }
-
-    private Filter metacardToFilter(QueryMetacardImpl queryMetacard) {
-        try {
-            return ECQL.toFilter(queryMetacard.getCql());
-        } catch (CQLException e) {
-            LOGGER.warn("Error parsing CQL", e);
-            return null;
+        if (UNKNOWN_SOURCE.equals(sourceQuery.getSourceId())) {
+            return new QueryRequestImpl(query, properties);
         }
+        return new QueryRequestImpl(query,
+                false,
+                Collections.singletonList(sourceQuery.getSourceId()),
+                properties);
     }
 
     private Date calculateQueryTimeInterval() {
@@ -367,48 +378,75 @@ private Date calculateQueryTimeInterval() {
                 .minus(queryTimeInterval, ChronoUnit.MINUTES));
     }
 
-    private class QueryTask extends RecursiveTask<Long> {
-        private final QueryRequest queryRequest;
+    /**
+     * Parses each distinct CQL string once per run and maps it to the CQL of the parsed filter, so
+     * that queries that only differ in formatting are run once.
+     */
+    private static class CanonicalFilters {
+        private final Map<String, Optional<String>> canonicalCql = new HashMap<>();
 
-        private QueryTask(QueryRequest queryRequest) {
-            this.queryRequest = queryRequest;
+        private final Map<String, Filter> filters = new HashMap<>();
+
+        /**
+         * @return the canonical CQL, or null if the CQL cannot be parsed
+         */
+        private String canonicalize(String cql) {
+            return canonicalCql.computeIfAbsent(cql, this::parse)
+                    .orElse(null);
         }
 
-        @Override
-        protected Long compute() {
+        private Filter getFilter(String canonicalCql) {
+            return filters.get(canonicalCql);
+        }
+
+        private Optional<String> parse(String cql) {
             try {
-                final QueryResponse response = catalogFramework.query(queryRequest);
-                return response.getHits();
-            } catch (UnsupportedQueryException | FederationException | SourceUnavailableException e) {
-                LOGGER.warn("Query error", e);
-                return 0L;
+                Filter filter = ECQL.toFilter(cql);
+                String canonical = ECQL.toCQL(filter);
+                filters.putIfAbsent(canonical, filter);
+                return Optional.of(canonical);
+            } catch (CQLException e) {
+                LOGGER.warn("Error parsing CQL", e);
+                return Optional.empty();
             }
         }
     }
 
-    private class WorkspaceTask extends RecursiveTask<Pair<WorkspaceMetacardImpl, Long>> {
-        private final WorkspaceMetacardImpl workspaceMetacard;
+    private static class SourceQuery {
+        private final String sourceId;
 
-        private final List<QueryRequest> queryRequests;
+        private final SortedSet<String> cql;
+
+        private SourceQuery(String sourceId, SortedSet<String> cql) {
+            notNull(sourceId, "sourceId must be non-null");
+            notEmpty(cql, "cql must be non-empty");
+            this.sourceId = sourceId;
+            this.cql = cql;
+        }
 
-        private WorkspaceTask(WorkspaceMetacardImpl workspaceMetacard,
-                List<QueryRequest> queryRequests) {
-            notNull(workspaceMetacard, "WorkspaceMetacardImpl must be non-null");
-            notNull(queryRequests, "queryRequests must be non-null");
-            notEmpty(queryRequests, "queryRequests must be non-empty");
-            this.workspaceMetacard = workspaceMetacard;
-            this.queryRequests = queryRequests;
+        private String getSourceId() {
+            return sourceId;
+        }
+
+        private SortedSet<String> getCql() {
+            return cql;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            SourceQuery that = (SourceQuery) o;
+            return sourceId.equals(that.sourceId) && cql.equals(that.cql);
         }
 
         @Override
-        protected Pair<WorkspaceMetacardImpl, Long> compute() {
-            final long result = queryRequests.stream()
-                    .map(QueryTask::new)
-                    .map(QueryTask::fork)
-                    .mapToLong(ForkJoinTask::join)
-                    .sum();
-
-            return Pair.of(workspaceMetacard, result);
+        public int hashCode() {
+            return Objects.hash(sourceId, cql);
         }
     }
 }
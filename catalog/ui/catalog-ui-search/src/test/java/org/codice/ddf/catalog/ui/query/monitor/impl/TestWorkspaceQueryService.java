@@ -17,6 +17,7 @@
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -24,6 +25,7 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -339,4 +341,77 @@ public PrincipalCollection releaseRunAs() {
                 .getRight(), is(hitCount1 + hitCount2));
     }
 
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRunDeduplicatesQueries()
+            throws SchedulerException, UnsupportedQueryException, SourceUnavailableException,
+            FederationException {
+
+        QueryUpdateSubscriber queryUpdateSubscriber = mock(QueryUpdateSubscriber.class);
+        WorkspaceService workspaceService = mock(WorkspaceService.class);
+        CatalogFramework catalogFramework = mock(CatalogFramework.class);
+        FilterBuilder filterBuilder = mock(FilterBuilder.class);
+        Scheduler scheduler = mock(Scheduler.class);
+        when(scheduler.getContext()).thenReturn(mock(SchedulerContext.class));
+        SecurityService securityService = mock(SecurityService.class);
+        when(securityService.addSystemSubject(any())).thenReturn(new HashMap<>());
+        FilterService filterService = mock(FilterService.class);
+        when(filterService.getModifiedDateFilter(any())).thenReturn(mock(Filter.class));
+        when(filterBuilder.allOf(Mockito.<Filter>anyVararg())).thenReturn(mock(And.class));
+
+        WorkspaceQueryServiceImpl workspaceQueryServiceImpl = new WorkspaceQueryServiceImpl(
+                queryUpdateSubscriber,
+                workspaceService,
+                catalogFramework,
+                filterBuilder,
+                () -> Optional.of(scheduler),
+                securityService,
+                filterService);
+        workspaceQueryServiceImpl.setQueryTimeInterval(60);
+        workspaceQueryServiceImpl.setQueryTimeoutMinutes(5L);
+
+        Subject subject = mock(Subject.class);
+        when(subject.execute(any(Callable.class))).thenAnswer(
+                invocation -> ((Callable) invocation.getArguments()[0]).call());
+        workspaceQueryServiceImpl.setSubject(subject);
+
+        Map<String, Pair<WorkspaceMetacardImpl, List<QueryMetacardImpl>>> queryMetacards =
+                new HashMap<>();
+        queryMetacards.put("1", workspaceWithQuery("1", "title LIKE 'foo'"));
+        queryMetacards.put("2", workspaceWithQuery("2", "( title   LIKE 'foo' )"));
+        when(workspaceService.getQueryMetacards()).thenReturn(queryMetacards);
+
+        QueryResponse queryResponse = mock(QueryResponse.class);
+        when(queryResponse.getHits()).thenReturn(7L);
+        when(catalogFramework.query(any())).thenReturn(queryResponse);
+
+        workspaceQueryServiceImpl.run();
+
+        verify(catalogFramework, times(1)).query(any());
+
+        ArgumentCaptor<Map> argumentCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(queryUpdateSubscriber).notify(argumentCaptor.capture());
+
+        Map<String, Pair<WorkspaceMetacardImpl, Long>> queryUpdateSubscriberArgument =
+                (Map<String, Pair<WorkspaceMetacardImpl, Long>>) argumentCaptor.getValue();
+
+        assertThat(queryUpdateSubscriberArgument.get("1")
+                .getRight(), is(7L));
+        assertThat(queryUpdateSubscriberArgument.get("2")
+                .getRight(), is(7L));
+    }
+
+    private Pair<WorkspaceMetacardImpl, List<QueryMetacardImpl>> workspaceWithQuery(
+            String workspaceId, String cql) {
+        WorkspaceMetacardImpl workspaceMetacard = mock(WorkspaceMetacardImpl.class);
+        when(workspaceMetacard.getId()).thenReturn(workspaceId);
+
+        QueryMetacardImpl queryMetacard = mock(QueryMetacardImpl.class);
+        when(queryMetacard.getSources()).thenReturn(Collections.emptyList());
+        when(queryMetacard.getCql()).thenReturn(cql);
+
+        return new ImmutablePair<>(workspaceMetacard, Collections.singletonList(queryMetacard));
+    }
+
 }
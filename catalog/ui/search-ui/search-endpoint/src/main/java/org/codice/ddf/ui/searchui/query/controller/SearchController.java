@@ -23,11 +23,10 @@
 import java.util.concurrent.TimeoutException;
 
 import org.codice.ddf.ui.searchui.query.controller.search.CacheQueryRunnable;
-import org.codice.ddf.ui.searchui.query.controller.search.FilteringSolrIndexCallable;
 import org.codice.ddf.ui.searchui.query.controller.search.SourceQueryRunnable;
+import org.codice.ddf.ui.searchui.query.index.ResultIndex;
 import org.codice.ddf.ui.searchui.query.model.Search;
 import org.codice.ddf.ui.searchui.query.model.SearchRequest;
-import org.codice.ddf.ui.searchui.query.solr.FilteringSolrIndex;
 import org.cometd.bayeux.server.BayeuxServer;
 import org.cometd.bayeux.server.ConfigurableServerChannel;
 import org.cometd.bayeux.server.ServerMessage;
@@ -44,6 +43,7 @@
 import ddf.catalog.data.Result;
 import ddf.catalog.filter.FilterAdapter;
 import ddf.catalog.operation.Query;
+import ddf.catalog.source.UnsupportedQueryException;
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.security.Subject;
 
@@ -130,14 +130,7 @@ public void executeQuery(final SearchRequest request, final ServerSession sessio
         final Map<String, Result> results =
                 Collections.synchronizedMap(new HashMap<String, Result>());
 
-        final Future<FilteringSolrIndex> solrIndexFuture;
-        if (shouldNormalizeRelevance(request)) {
-            // Create in memory Solr instance asynchronously
-            solrIndexFuture = executorService.submit(new FilteringSolrIndexCallable(request,
-                    filterAdapter));
-        } else {
-            solrIndexFuture = Futures.immediateFuture(null);
-        }
+        final ResultIndex resultIndex = createResultIndex(request);
 
         final Future cacheFuture;
         if (!cacheDisabled) {
@@ -148,7 +141,7 @@ public void executeQuery(final SearchRequest request, final ServerSession sessio
                     search,
                     session,
                     results,
-                    solrIndexFuture));
+                    resultIndex));
         } else {
             cacheFuture = Futures.immediateFuture(null);
         }
@@ -169,7 +162,7 @@ public void executeQuery(final SearchRequest request, final ServerSession sessio
                             search,
                             session,
                             cacheFuture,
-                            solrIndexFuture)));
+                            resultIndex)));
         }
 
         for (Map.Entry<String, Future> entry : futures.entrySet()) {
@@ -193,6 +186,17 @@ public void executeQuery(final SearchRequest request, final ServerSession sessio
         }
     }
 
+    private ResultIndex createResultIndex(SearchRequest request) {
+        if (shouldNormalizeRelevance(request)) {
+            try {
+                return new ResultIndex(filterAdapter, request.getQuery());
+            } catch (UnsupportedQueryException e) {
+                LOGGER.debug("Unable to index results for relevance normalization", e);
+            }
+        }
+        return null;
+    }
+
     private void failSource(SearchRequest request, ServerSession session, Search search,
             String sourceId, Exception cause) {
         search.failSource(sourceId, cause);
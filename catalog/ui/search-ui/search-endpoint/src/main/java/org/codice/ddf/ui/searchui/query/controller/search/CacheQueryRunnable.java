@@ -15,32 +15,31 @@
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 import org.codice.ddf.ui.searchui.query.controller.SearchController;
+import org.codice.ddf.ui.searchui.query.index.ResultIndex;
 import org.codice.ddf.ui.searchui.query.model.Search;
 import org.codice.ddf.ui.searchui.query.model.SearchRequest;
-import org.codice.ddf.ui.searchui.query.solr.FilteringSolrIndex;
 import org.cometd.bayeux.server.ServerSession;
 
 import ddf.catalog.data.Result;
 import ddf.catalog.operation.QueryResponse;
-import ddf.catalog.source.IngestException;
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.security.Subject;
 
 public class CacheQueryRunnable extends QueryRunnable {
 
-    private final Future<FilteringSolrIndex> solrIndexFuture;
+    private final ResultIndex resultIndex;
 
+    /**
+     * @param resultIndex the index to add the cached results to for relevance normalization, or
+     *                    null if relevance is not normalized
+     */
     public CacheQueryRunnable(SearchController searchController, SearchRequest request,
             Subject subject, Search search, ServerSession session, Map<String, Result> results,
-            Future<FilteringSolrIndex> solrIndexFuture) {
+            ResultIndex resultIndex) {
         super(searchController, request, subject, search, session, results);
-        this.solrIndexFuture = solrIndexFuture;
+        this.resultIndex = resultIndex;
     }
 
     @Override
@@ -66,15 +65,8 @@ public void run() {
     }
 
     private void indexResults(QueryResponse response) {
-        if (searchController.shouldNormalizeRelevance(request)) {
-            try {
-                solrIndexFuture.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
-                        .add(response.getResults());
-            } catch (InterruptedException | IngestException e) {
-                LOGGER.info("Failed adding cached search results.", e);
-            } catch (ExecutionException | TimeoutException e) {
-                LOGGER.info("Failed to create index.", e);
-            }
+        if (resultIndex != null) {
+            resultIndex.add(response.getResults());
         }
     }
 }
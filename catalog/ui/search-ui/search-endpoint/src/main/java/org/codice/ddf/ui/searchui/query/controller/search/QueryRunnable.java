@@ -26,7 +26,6 @@
 import org.codice.ddf.ui.searchui.query.controller.SearchController;
 import org.codice.ddf.ui.searchui.query.model.Search;
 import org.codice.ddf.ui.searchui.query.model.SearchRequest;
-import org.codice.ddf.ui.searchui.query.solr.FilteringDynamicSchemaResolver;
 import org.cometd.bayeux.server.ServerSession;
 import org.locationtech.spatial4j.context.jts.JtsSpatialContext;
 import org.locationtech.spatial4j.context.jts.JtsSpatialContextFactory;
@@ -157,10 +156,7 @@ protected void normalizeDistances(Filter query, Map<String, Result> results) {
 
     protected void normalizeRelevance(List<Result> indexResults, Map<String, Result> results) {
         for (Result indexResult : indexResults) {
-            String resultKey = indexResult.getMetacard()
-                    .getAttribute(FilteringDynamicSchemaResolver.SOURCE_ID)
-                    .getValue() + indexResult.getMetacard()
-                    .getId();
+            String resultKey = getResultKey(indexResult.getMetacard());
 
             if (results.containsKey(resultKey)) {
                 MetacardImpl metacard = new MetacardImpl(results.get(resultKey)
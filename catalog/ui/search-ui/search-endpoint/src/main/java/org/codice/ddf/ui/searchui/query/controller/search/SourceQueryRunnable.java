@@ -24,9 +24,9 @@
 import java.util.concurrent.TimeoutException;
 
 import org.codice.ddf.ui.searchui.query.controller.SearchController;
+import org.codice.ddf.ui.searchui.query.index.ResultIndex;
 import org.codice.ddf.ui.searchui.query.model.Search;
 import org.codice.ddf.ui.searchui.query.model.SearchRequest;
-import org.codice.ddf.ui.searchui.query.solr.FilteringSolrIndex;
 import org.cometd.bayeux.server.ServerSession;
 
 import com.google.common.collect.Ordering;
@@ -34,9 +34,6 @@
 import ddf.catalog.data.Result;
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.QueryResponse;
-import ddf.catalog.operation.impl.QueryRequestImpl;
-import ddf.catalog.source.IngestException;
-import ddf.catalog.source.UnsupportedQueryException;
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.security.Subject;
 
@@ -48,7 +45,7 @@ public class SourceQueryRunnable extends QueryRunnable {
 
     private final Future cacheFuture;
 
-    private final Future<FilteringSolrIndex> solrIndexFuture;
+    private final ResultIndex resultIndex;
 
     private final Comparator<Result> sortComparator;
 
@@ -60,11 +57,11 @@ public class SourceQueryRunnable extends QueryRunnable {
 
     public SourceQueryRunnable(SearchController searchController, String sourceId,
             SearchRequest request, Subject subject, Map<String, Result> results, Search search,
-            ServerSession session, Future cacheFuture, Future<FilteringSolrIndex> solrIndexFuture) {
+            ServerSession session, Future cacheFuture, ResultIndex resultIndex) {
         super(searchController, request, subject, search, session, results);
         this.sourceId = sourceId;
         this.cacheFuture = cacheFuture;
-        this.solrIndexFuture = solrIndexFuture;
+        this.resultIndex = resultIndex;
 
         sortComparator = getResultComparator(request.getQuery());
         maxResults = getMaxResults(request);
@@ -87,7 +84,6 @@ public void run() {
         normalize(request.getQuery(), sourceResponse.getResults());
         sort(sourceResponse.getResults());
         sendResults(sourceResponse);
-        cleanup();
     }
 
     private void sendResults(QueryResponse sourceResponse) {
@@ -109,17 +105,6 @@ private void waitForCache() {
         }
     }
 
-    private void cleanup() {
-        if (shouldNormalizeRelevance && search.isFinished()) {
-            try {
-                solrIndexFuture.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
-                        .shutdown();
-            } catch (ExecutionException | InterruptedException | TimeoutException e) {
-                LOGGER.debug("Waiting for solr index failed", e);
-            }
-        }
-    }
-
     private void sort(List<Result> responseResults) {
         List<Result> sortedResults = Ordering.from(sortComparator)
                 .immutableSortedCopy(results.values());
@@ -132,21 +117,9 @@ private void sort(List<Result> responseResults) {
 
     private void normalize(Query query, List<Result> responseResults) {
         if (shouldNormalizeRelevance) {
-            FilteringSolrIndex index = null;
-            try {
-                index = solrIndexFuture.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-                index.add(responseResults);
-
-                List<Result> indexResults = index.query(new QueryRequestImpl(query))
-                        .getResults();
-
-                normalizeRelevance(indexResults, results);
-            } catch (InterruptedException | ExecutionException | TimeoutException e) {
-                LOGGER.debug("Failed to get index for relevance normalization", e);
-            } catch (UnsupportedQueryException e) {
-                LOGGER.debug("Failed to parse query for relevance normalization", e);
-            } catch (IngestException e) {
-                LOGGER.debug("Failed to ingest results for relevance normalization", e);
+            if (resultIndex != null) {
+                resultIndex.add(responseResults);
+                normalizeRelevance(resultIndex.getResults(), results);
             }
         } else if (shouldNormalizeDistance) {
             normalizeDistances(query, results);
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+package org.codice.ddf.ui.searchui.query.index;
+
+import java.util.BitSet;
+
+import ddf.catalog.data.Metacard;
+
+/**
+ * A metacard added to a {@link ResultIndex}, with what each node of the compiled query filter
+ * found when it was evaluated against the metacard.
+ */
+final class IndexedResult {
+
+    private final Metacard metacard;
+
+    private final long sequence;
+
+    private final BitSet matchedNodes = new BitSet();
+
+    private final Object[] nodeData;
+
+    private Comparable<?> sortKey;
+
+    private Double distanceInMeters;
+
+    IndexedResult(Metacard metacard, long sequence, int nodeCount) {
+        this.metacard = metacard;
+        this.sequence = sequence;
+        this.nodeData = new Object[nodeCount];
+    }
+
+    Metacard getMetacard() {
+        return metacard;
+    }
+
+    /**
+     * Returns the order in which the result was added, which breaks ties between sort keys.
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    boolean isMatched(int nodeId) {
+        return matchedNodes.get(nodeId);
+    }
+
+    void setMatched(int nodeId) {
+        matchedNodes.set(nodeId);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T getData(int nodeId) {
+        return (T) nodeData[nodeId];
+    }
+
+    void setData(int nodeId, Object data) {
+        nodeData[nodeId] = data;
+    }
+
+    Comparable<?> getSortKey() {
+        return sortKey;
+    }
+
+    void setSortKey(Comparable<?> sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    Double getDistanceInMeters() {
+        return distanceInMeters;
+    }
+
+    void setDistanceInMeters(Double distanceInMeters) {
+        this.distanceInMeters = distanceInMeters;
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+package org.codice.ddf.ui.searchui.query.index;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import ddf.catalog.data.Metacard;
+
+/**
+ * A node of a query filter compiled by {@link MetacardFilterDelegate}. Each node has an ID that is
+ * unique within its tree, under which it records in an {@link IndexedResult} whether it matched
+ * the result's metacard.
+ * <p>
+ * Scores follow Lucene's boolean queries: conjunctions and disjunctions add up the scores of their
+ * matching operands, negations score nothing, and every predicate other than a text phrase scores
+ * a constant 1. Like a Solr filter query, the filter of a {@link Filtered} node adds no score.
+ */
+abstract class MetacardFilter {
+
+    private final int id;
+
+    MetacardFilter(int id) {
+        this.id = id;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    /**
+     * Evaluates this node against a result and records whether it matched. Every node of the tree
+     * is evaluated, so that text nodes see every result that is added to the index. This must not
+     * change the state of the node since results are evaluated concurrently.
+     */
+    final boolean evaluate(IndexedResult result) {
+        boolean matches = matches(result);
+        if (matches) {
+            result.setMatched(id);
+        }
+        return matches;
+    }
+
+    final boolean matched(IndexedResult result) {
+        return result.isMatched(id);
+    }
+
+    abstract boolean matches(IndexedResult result);
+
+    /**
+     * Scores a result this node matched.
+     */
+    abstract double score(IndexedResult result);
+
+    /**
+     * Adds an evaluated result to the collection statistics of this node. Called under the lock of
+     * the owning {@link ResultIndex}.
+     */
+    void addStatistics(IndexedResult result) {
+    }
+
+    /**
+     * Removes a result added with {@link #addStatistics(IndexedResult)}. Called under the lock of
+     * the owning {@link ResultIndex}.
+     */
+    void removeStatistics(IndexedResult result) {
+    }
+
+    static final class And extends MetacardFilter {
+
+        private final List<MetacardFilter> operands;
+
+        And(int id, List<MetacardFilter> operands) {
+            super(id);
+            this.operands = operands;
+        }
+
+        @Override
+        boolean matches(IndexedResult result) {
+            boolean matches = true;
+            for (MetacardFilter operand : operands) {
+                matches &= operand.evaluate(result);
+            }
+            return matches;
+        }
+
+        @Override
+        double score(IndexedResult result) {
+            double score = 0;
+            for (MetacardFilter operand : operands) {
+                score += operand.score(result);
+            }
+            return score;
+        }
+
+        @Override
+        void addStatistics(IndexedResult result) {
+            operands.forEach(operand -> operand.addStatistics(result));
+        }
+
+        @Override
+        void removeStatistics(IndexedResult result) {
+            operands.forEach(operand -> operand.removeStatistics(result));
+        }
+    }
+
+    static final class Or extends MetacardFilter {
+
+        private final List<MetacardFilter> operands;
+
+        Or(int id, List<MetacardFilter> operands) {
+            super(id);
+            this.operands = operands;
+        }
+
+        @Override
+        boolean matches(IndexedResult result) {
+            boolean matches = false;
+            for (MetacardFilter operand : operands) {
+                matches |= operand.evaluate(result);
+            }
+            return matches;
+        }
+
+        @Override
+        double score(IndexedResult result) {
+            double score = 0;
+            for (MetacardFilter operand : operands) {
+                if (operand.matched(result)) {
+                    score += operand.score(result);
+                }
+            }
+            return score;
+        }
+
+        @Override
+        void addStatistics(IndexedResult result) {
+            operands.forEach(operand -> operand.addStatistics(result));
+        }
+
+        @Override
+        void removeStatistics(IndexedResult result) {
+            operands.forEach(operand -> operand.removeStatistics(result));
+        }
+    }
+
+    static final class Not extends MetacardFilter {
+
+        private final MetacardFilter operand;
+
+        Not(int id, MetacardFilter operand) {
+            super(id);
+            this.operand = operand;
+        }
+
+        @Override
+        boolean matches(IndexedResult result) {
+            return !operand.evaluate(result);
+        }
+
+        @Override
+        double score(IndexedResult result) {
+            return 0;
+        }
+
+        @Override
+        void addStatistics(IndexedResult result) {
+            operand.addStatistics(result);
+        }
+
+        @Override
+        void removeStatistics(IndexedResult result) {
+            operand.removeStatistics(result);
+        }
+    }
+
+    static final class Filtered extends MetacardFilter {
+
+        private final MetacardFilter query;
+
+        private final MetacardFilter filter;
+
+        Filtered(int id, MetacardFilter query, MetacardFilter filter) {
+            super(id);
+            this.query = query;
+            this.filter = filter;
+        }
+
+        @Override
+        boolean matches(IndexedResult result) {
+            boolean matches = query.evaluate(result);
+            matches &= filter.evaluate(result);
+            return matches;
+        }
+
+        @Override
+        double score(IndexedResult result) {
+            return query.score(result);
+        }
+
+        @Override
+        void addStatistics(IndexedResult result) {
+            query.addStatistics(result);
+            filter.addStatistics(result);
+        }
+
+        @Override
+        void removeStatistics(IndexedResult result) {
+            query.removeStatistics(result);
+            filter.removeStatistics(result);
+        }
+    }
+
+    static final class Condition extends MetacardFilter {
+
+        private final Predicate<Metacard> predicate;
+
+        Condition(int id, Predicate<Metacard> predicate) {
+            super(id);
+            this.predicate = predicate;
+        }
+
+        @Override
+        boolean matches(IndexedResult result) {
+            return predicate.test(result.getMetacard());
+        }
+
+        @Override
+        double score(IndexedResult result) {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,680 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+package org.codice.ddf.ui.searchui.query.index;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang.StringUtils;
+import org.locationtech.spatial4j.distance.DistanceUtils;
+import org.opengis.filter.sort.SortBy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.filter.FilterDelegate;
+import ddf.measure.Distance;
+import ddf.measure.Distance.LinearUnit;
+
+/**
+ * Compiles a query filter into a tree of {@link MetacardFilter}s that can be evaluated against
+ * metacards in memory. It supports the same operations as the {@code SolrFilterDelegate} of the
+ * catalog Solr provider, and gives them the same semantics as that delegate does against the
+ * catalog Solr schema. Unsupported operations throw {@link UnsupportedOperationException}.
+ * <p>
+ * Like the Solr delegate, it also remembers the point that distance sorting is relative to. A new
+ * instance must be used for each filter.
+ */
+class MetacardFilterDelegate extends FilterDelegate<MetacardFilter> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetacardFilterDelegate.class);
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private static final String WILDCARD_CHAR = "*";
+
+    private static final String SINGLE_WILDCARD_CHAR = "?";
+
+    private static final double DEFAULT_ERROR_IN_DEGREES = metersToDegrees(1);
+
+    private static final double NEAREST_NEIGHBOR_DISTANCE_LIMIT = metersToDegrees(new Distance(1000,
+            LinearUnit.NAUTICAL_MILE).getAs(LinearUnit.METER));
+
+    // Lucene's default for fuzzy queries
+    private static final int MAX_EDITS = 2;
+
+    private final SortBy sortBy;
+
+    private int nodeCount;
+
+    private Point distanceSortPoint;
+
+    MetacardFilterDelegate(SortBy sortBy) {
+        this.sortBy = sortBy;
+    }
+
+    /**
+     * Returns the number of nodes compiled so far, which bounds their IDs.
+     */
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the point to sort by distance from, or null if the results are not sorted by
+     * distance.
+     */
+    Point getDistanceSortPoint() {
+        return distanceSortPoint;
+    }
+
+    private static double metersToDegrees(double distance) {
+        return DistanceUtils.dist2Degrees((new Distance(distance,
+                LinearUnit.METER).getAs(LinearUnit.KILOMETER)), DistanceUtils.EARTH_MEAN_RADIUS_KM);
+    }
+
+    @Override
+    public MetacardFilter and(List<MetacardFilter> operands) {
+        verifyOperands(operands, "And");
+        return new MetacardFilter.And(nodeCount++, new ArrayList<>(operands));
+    }
+
+    @Override
+    public MetacardFilter or(List<MetacardFilter> operands) {
+        verifyOperands(operands, "Or");
+        return new MetacardFilter.Or(nodeCount++, new ArrayList<>(operands));
+    }
+
+    @Override
+    public MetacardFilter not(MetacardFilter operand) {
+        if (operand == null) {
+            throw new UnsupportedOperationException("Null operand found");
+        }
+        return new MetacardFilter.Not(nodeCount++, operand);
+    }
+
+    @Override
+    public MetacardFilter propertyIsFuzzy(String propertyName, String searchPhrase) {
+        // On fuzzy searches, no text analysis is performed on the search phrase. Expect fuzzy
+        // terms to be case insensitive.
+        List<String> fuzzyTerms = Stream.of(StringUtils.split(searchPhrase))
+                .map(term -> term.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+
+        TextAnalysis analysis = TextAnalysis.STANDARD;
+        if (hasWildcard(searchPhrase) || Metacard.ANY_TEXT.equals(propertyName)) {
+            analysis = TextAnalysis.WHITESPACE;
+        }
+
+        return anyField(propertyName, analysis, false, terms -> fuzzyTerms.stream()
+                .allMatch(fuzzyTerm -> terms.stream()
+                        .anyMatch(term -> StringUtils.getLevenshteinDistance(fuzzyTerm, term)
+                                <= MAX_EDITS)));
+    }
+
+    @Override
+    public MetacardFilter propertyIsLike(String propertyName, String pattern,
+            boolean isCaseSensitive) {
+        verifyInputData(propertyName, pattern);
+
+        if (hasWildcard(pattern)) {
+            return wildcard(propertyName, pattern, isCaseSensitive);
+        } else if (Metacard.ANY_TEXT.equals(propertyName)) {
+            return phrase(propertyName, pattern, TextAnalysis.WHITESPACE, isCaseSensitive);
+        } else {
+            return phrase(propertyName, pattern, TextAnalysis.STANDARD, isCaseSensitive);
+        }
+    }
+
+    @Override
+    public MetacardFilter propertyIsEqualTo(String propertyName, String literal,
+            boolean isCaseSensitive) {
+        if (!isCaseSensitive) {
+            throw new UnsupportedOperationException(
+                    "Case insensitive exact searches are not supported.");
+        }
+        verifyInputData(propertyName, literal);
+
+        if (hasWildcard(literal) || Metacard.ANY_TEXT.equals(propertyName)) {
+            return phrase(propertyName, literal, TextAnalysis.WHITESPACE, true);
+        }
+        return anyValue(propertyName, value -> literal.equals(value.toString()));
+    }
+
+    @Override
+    public MetacardFilter propertyIsEqualTo(String propertyName, Date exactDate) {
+        return dateRange(propertyName, exactDate, true, exactDate, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsEqualTo(String propertyName, int literal) {
+        return numberRange(propertyName, literal, true, literal, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsEqualTo(String propertyName, short literal) {
+        return numberRange(propertyName, literal, true, literal, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsEqualTo(String propertyName, long literal) {
+        return numberRange(propertyName, literal, true, literal, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsEqualTo(String propertyName, float literal) {
+        return numberRange(propertyName, literal, true, literal, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsEqualTo(String propertyName, double literal) {
+        return numberRange(propertyName, literal, true, literal, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsEqualTo(String propertyName, boolean literal) {
+        return anyValue(propertyName, value -> Boolean.valueOf(literal)
+                .equals(value));
+    }
+
+    @Override
+    public MetacardFilter propertyIsGreaterThan(String propertyName, Date startDate) {
+        return dateRange(propertyName, startDate, false, null, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsGreaterThan(String propertyName, int literal) {
+        return numberRange(propertyName, literal, false, null, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsGreaterThan(String propertyName, short literal) {
+        return numberRange(propertyName, literal, false, null, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsGreaterThan(String propertyName, long literal) {
+        return numberRange(propertyName, literal, false, null, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsGreaterThan(String propertyName, float literal) {
+        return numberRange(propertyName, literal, false, null, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsGreaterThan(String propertyName, double literal) {
+        return numberRange(propertyName, literal, false, null, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsGreaterThanOrEqualTo(String propertyName, Date startDate) {
+        return dateRange(propertyName, startDate, true, null, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsGreaterThanOrEqualTo(String propertyName, int literal) {
+        return numberRange(propertyName, literal, true, null, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsGreaterThanOrEqualTo(String propertyName, short literal) {
+        return numberRange(propertyName, literal, true, null, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsGreaterThanOrEqualTo(String propertyName, long literal) {
+        return numberRange(propertyName, literal, true, null, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsGreaterThanOrEqualTo(String propertyName, float literal) {
+        return numberRange(propertyName, literal, true, null, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsGreaterThanOrEqualTo(String propertyName, double literal) {
+        return numberRange(propertyName, literal, true, null, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsLessThan(String propertyName, Date endDate) {
+        return dateRange(propertyName, null, true, endDate, false);
+    }
+
+    @Override
+    public MetacardFilter propertyIsLessThan(String propertyName, int literal) {
+        return numberRange(propertyName, null, true, literal, false);
+    }
+
+    @Override
+    public MetacardFilter propertyIsLessThan(String propertyName, short literal) {
+        return numberRange(propertyName, null, true, literal, false);
+    }
+
+    @Override
+    public MetacardFilter propertyIsLessThan(String propertyName, long literal) {
+        return numberRange(propertyName, null, true, literal, false);
+    }
+
+    @Override
+    public MetacardFilter propertyIsLessThan(String propertyName, float literal) {
+        return numberRange(propertyName, null, true, literal, false);
+    }
+
+    @Override
+    public MetacardFilter propertyIsLessThan(String propertyName, double literal) {
+        return numberRange(propertyName, null, true, literal, false);
+    }
+
+    @Override
+    public MetacardFilter propertyIsLessThanOrEqualTo(String propertyName, Date endDate) {
+        return dateRange(propertyName, null, true, endDate, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsLessThanOrEqualTo(String propertyName, int literal) {
+        return numberRange(propertyName, null, true, literal, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsLessThanOrEqualTo(String propertyName, short literal) {
+        return numberRange(propertyName, null, true, literal, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsLessThanOrEqualTo(String propertyName, long literal) {
+        return numberRange(propertyName, null, true, literal, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsLessThanOrEqualTo(String propertyName, float literal) {
+        return numberRange(propertyName, null, true, literal, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsLessThanOrEqualTo(String propertyName, double literal) {
+        return numberRange(propertyName, null, true, literal, true);
+    }
+
+    @Override
+    public MetacardFilter propertyIsBetween(String propertyName, Date lowerBoundary,
+            Date upperBoundary) {
+        // The lower and upper boundary values are inclusive.
+        return dateRange(propertyName, lowerBoundary, true, upperBoundary, true);
+    }
+
+    @Override
+    public MetacardFilter during(String propertyName, Date startDate, Date endDate) {
+        return dateRange(propertyName, startDate, false, endDate, false);
+    }
+
+    @Override
+    public MetacardFilter before(String propertyName, Date date) {
+        return dateRange(propertyName, null, true, date, false);
+    }
+
+    @Override
+    public MetacardFilter after(String propertyName, Date startDate) {
+        return dateRange(propertyName, startDate, false, null, true);
+    }
+
+    @Override
+    public MetacardFilter relative(String propertyName, long duration) {
+        Date end = new Date();
+        Date start = new Date(end.getTime() - duration);
+        return dateRange(propertyName, start, true, end, true);
+    }
+
+    /**
+     * Matches metacards without a value for the property.
+     */
+    @Override
+    public MetacardFilter propertyIsNull(String propertyName) {
+        return condition(metacard -> {
+            Attribute attribute = metacard.getAttribute(propertyName);
+            return attribute == null || attribute.getValues() == null || attribute.getValues()
+                    .stream()
+                    .allMatch(value -> value == null);
+        });
+    }
+
+    @Override
+    public MetacardFilter nearestNeighbor(String propertyName, String wkt) {
+        Geometry geo = getGeometry(wkt);
+        Point pnt = isPoint(geo) ? (Point) geo : geo.getCentroid();
+
+        updateDistanceSort(propertyName, pnt);
+        return spatial(propertyName,
+                geometry -> geometry.isWithinDistance(pnt, NEAREST_NEIGHBOR_DISTANCE_LIMIT));
+    }
+
+    @Override
+    public MetacardFilter contains(String propertyName, String wkt) {
+        return spatialOperation(propertyName, wkt, Geometry::contains);
+    }
+
+    @Override
+    public MetacardFilter dwithin(String propertyName, String wkt, double distance) {
+        Geometry geo = getGeometry(wkt);
+        double distanceInDegrees = metersToDegrees(distance);
+
+        if (isPoint(geo)) {
+            updateDistanceSort(propertyName, (Point) geo);
+        }
+        return spatial(propertyName, geometry -> geometry.isWithinDistance(geo,
+                distanceInDegrees));
+    }
+
+    @Override
+    public MetacardFilter intersects(String propertyName, String wkt) {
+        // The Solr delegate converts points to a point-radius to account for the error in
+        // spatial4j's point intersections, so do the same.
+        Geometry geo = getGeometry(wkt);
+        Point pnt = null;
+        if (isPoint(geo)) {
+            pnt = (Point) geo;
+        } else if (MultiPoint.class.getSimpleName()
+                .equals(geo.getGeometryType()) && geo.getCoordinates().length == 1) {
+            pnt = GEOMETRY_FACTORY.createPoint(geo.getCoordinate());
+        }
+
+        if (pnt != null) {
+            Point center = pnt;
+            updateDistanceSort(propertyName, center);
+            return spatial(propertyName,
+                    geometry -> geometry.isWithinDistance(center, DEFAULT_ERROR_IN_DEGREES));
+        }
+        return spatialOperation(propertyName, wkt, Geometry::intersects);
+    }
+
+    @Override
+    public MetacardFilter within(String propertyName, String wkt) {
+        return spatialOperation(propertyName, wkt, Geometry::within);
+    }
+
+    @Override
+    public MetacardFilter disjoint(String propertyName, String wkt) {
+        return spatialOperation(propertyName, wkt, Geometry::disjoint);
+    }
+
+    @Override
+    public MetacardFilter overlaps(String propertyName, String wkt) {
+        return spatialOperation(propertyName, wkt, Geometry::overlaps);
+    }
+
+    @Override
+    public MetacardFilter xpathExists(String xpath) {
+        return xpath(xpath, null, true);
+    }
+
+    @Override
+    public MetacardFilter xpathIsLike(String xpath, String pattern, boolean isCaseSensitive) {
+        return xpath(xpath, pattern, isCaseSensitive);
+    }
+
+    @Override
+    public MetacardFilter xpathIsFuzzy(String xpath, String literal) {
+        // XPath does not support fuzzy matching, so evaluate it case insensitively instead
+        return xpath(xpath, literal, false);
+    }
+
+    private MetacardFilter phrase(String propertyName, String phrase, TextAnalysis analysis,
+            boolean isCaseSensitive) {
+        return new PhraseFilter(nodeCount++, propertyName, phrase, analysis, isCaseSensitive);
+    }
+
+    /**
+     * Matches the terms of a pattern against the whitespace separated terms of the text. Terms with
+     * wildcards match any term they match as a whole, and the other terms match equal terms.
+     */
+    private MetacardFilter wildcard(String propertyName, String pattern,
+            boolean isCaseSensitive) {
+        List<Predicate<String>> termMatchers = new ArrayList<>();
+        for (String term : StringUtils.split(pattern)) {
+            if (hasWildcard(term)) {
+                Pattern regex = toRegex(isCaseSensitive ? term : term.toLowerCase(Locale.ROOT));
+                termMatchers.add(text -> regex.matcher(text)
+                        .matches());
+            } else {
+                termMatchers.addAll(TextAnalysis.WHITESPACE.analyze(term, isCaseSensitive)
+                        .stream()
+                        .map(analyzedTerm -> (Predicate<String>) analyzedTerm::equals)
+                        .collect(Collectors.toList()));
+            }
+        }
+
+        return anyField(propertyName,
+                TextAnalysis.WHITESPACE,
+                isCaseSensitive,
+                terms -> terms.stream()
+                        .anyMatch(term -> termMatchers.stream()
+                                .anyMatch(matcher -> matcher.test(term))));
+    }
+
+    private MetacardFilter dateRange(String propertyName, Date lower, boolean isLowerInclusive,
+            Date upper, boolean isUpperInclusive) {
+        return range(propertyName,
+                lower == null ? null : lower.getTime(),
+                isLowerInclusive,
+                upper == null ? null : upper.getTime(),
+                isUpperInclusive,
+                value -> value instanceof Date ? ((Date) value).getTime() : null);
+    }
+
+    private MetacardFilter numberRange(String propertyName, Number lower,
+            boolean isLowerInclusive, Number upper, boolean isUpperInclusive) {
+        return range(propertyName,
+                lower == null ? null : lower.doubleValue(),
+                isLowerInclusive,
+                upper == null ? null : upper.doubleValue(),
+                isUpperInclusive,
+                value -> value instanceof Number ? ((Number) value).doubleValue() : null);
+    }
+
+    private <T extends Comparable<T>> MetacardFilter range(String propertyName, T lower,
+            boolean isLowerInclusive, T upper, boolean isUpperInclusive,
+            Function<Serializable, T> toComparable) {
+        return anyValue(propertyName, value -> {
+            T comparable = toComparable.apply(value);
+            if (comparable == null) {
+                return false;
+            }
+            if (lower != null) {
+                int comparison = comparable.compareTo(lower);
+                if (comparison < 0 || (comparison == 0 && !isLowerInclusive)) {
+                    return false;
+                }
+            }
+            if (upper != null) {
+                int comparison = comparable.compareTo(upper);
+                if (comparison > 0 || (comparison == 0 && !isUpperInclusive)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    private MetacardFilter spatialOperation(String propertyName, String wkt,
+            BiPredicate<Geometry, Geometry> operation) {
+        if (StringUtils.isEmpty(wkt)) {
+            throw new UnsupportedOperationException("Wkt should not be null or empty.");
+        }
+
+        Geometry geo = getGeometry(wkt);
+        updateDistanceSort(propertyName, geo.getCentroid());
+        return spatial(propertyName, geometry -> operation.test(geometry, geo));
+    }
+
+    private MetacardFilter spatial(String propertyName, Predicate<Geometry> predicate) {
+        String attributeName = Metacard.ANY_GEO.equals(propertyName) ?
+                Metacard.GEOGRAPHY :
+                propertyName;
+
+        return anyValue(attributeName, value -> {
+            Geometry geometry = readGeometry(value.toString());
+            return geometry != null && predicate.test(geometry);
+        });
+    }
+
+    private MetacardFilter anyValue(String propertyName, Predicate<Serializable> predicate) {
+        return condition(metacard -> {
+            Attribute attribute = metacard.getAttribute(propertyName);
+            return attribute != null && attribute.getValues() != null && attribute.getValues()
+                    .stream()
+                    .anyMatch(value -> value != null && predicate.test(value));
+        });
+    }
+
+    private MetacardFilter condition(Predicate<Metacard> predicate) {
+        return new MetacardFilter.Condition(nodeCount++, predicate);
+    }
+
+    /**
+     * Matches metacards with an attribute searched by the property whose terms match.
+     */
+    private MetacardFilter anyField(String propertyName, TextAnalysis analysis,
+            boolean isCaseSensitive, Predicate<List<String>> predicate) {
+        return condition(metacard -> MetacardText.attributeNames(metacard, propertyName)
+                .stream()
+                .anyMatch(attributeName -> predicate.test(analyze(metacard,
+                        attributeName,
+                        analysis,
+                        isCaseSensitive))));
+    }
+
+    private MetacardFilter xpath(String xpath, String searchPhrase, boolean isCaseSensitive) {
+        MetacardFilter xpathFilter = new XPathFilter(nodeCount++,
+                xpath,
+                searchPhrase,
+                isCaseSensitive);
+        if (StringUtils.isBlank(searchPhrase)) {
+            return xpathFilter;
+        }
+
+        // The Solr delegate also searches the metadata for the phrase, which is what scores
+        return new MetacardFilter.Filtered(nodeCount++,
+                phrase(Metacard.METADATA, searchPhrase, TextAnalysis.STANDARD, false),
+                xpathFilter);
+    }
+
+    private List<String> analyze(Metacard metacard, String attributeName, TextAnalysis analysis,
+            boolean isCaseSensitive) {
+        List<String> terms = new ArrayList<>();
+        for (String value : MetacardText.values(metacard, attributeName)) {
+            for (String term : analysis.analyze(value, isCaseSensitive)) {
+                if (term != null) {
+                    terms.add(term);
+                }
+            }
+        }
+        return terms;
+    }
+
+    private void updateDistanceSort(String propertyName, Point point) {
+        if (sortBy != null && sortBy.getPropertyName() != null) {
+            String sortByPropertyName = sortBy.getPropertyName()
+                    .getPropertyName();
+            if (Result.DISTANCE.equals(sortByPropertyName) || propertyName.equals(
+                    sortByPropertyName)) {
+                distanceSortPoint = point;
+            }
+        }
+    }
+
+    private Geometry getGeometry(String wkt) {
+        Geometry geo = readGeometry(wkt);
+        if (geo == null) {
+            throw new UnsupportedOperationException("Unable to read given WKT: " + wkt);
+        }
+        return geo;
+    }
+
+    private static Geometry readGeometry(String wkt) {
+        try {
+            return new WKTReader(GEOMETRY_FACTORY).read(wkt);
+        } catch (ParseException e) {
+            LOGGER.debug("Failed to read WKT: {}", wkt, e);
+            return null;
+        }
+    }
+
+    private static boolean isPoint(Geometry geo) {
+        return geo != null && Point.class.getSimpleName()
+                .equals(geo.getGeometryType());
+    }
+
+    private static boolean hasWildcard(String text) {
+        return text.contains(WILDCARD_CHAR) || text.contains(SINGLE_WILDCARD_CHAR);
+    }
+
+    /**
+     * Converts a wildcard term, where {@code *} matches any characters, {@code ?} matches one
+     * character and {@code \} escapes the next character, to a regular expression.
+     */
+    private static Pattern toRegex(String term) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c == '\\' && i + 1 < term.length()) {
+                regex.append(Pattern.quote(String.valueOf(term.charAt(++i))));
+            } else if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static void verifyOperands(List<MetacardFilter> operands, String operator) {
+        if (operands == null || operands.isEmpty()) {
+            throw new UnsupportedOperationException(
+                    "[" + operator + "] operation must contain 1 or more filters.");
+        }
+        if (operands.contains(null)) {
+            throw new UnsupportedOperationException("Null operand found");
+        }
+    }
+
+    private static void verifyInputData(String propertyName, String pattern) {
+        if (propertyName == null || propertyName.isEmpty()) {
+            throw new UnsupportedOperationException("PropertyName is required for search.");
+        }
+        if (pattern == null || pattern.isEmpty()) {
+            throw new UnsupportedOperationException("Literal value is required for search.");
+        }
+    }
+}
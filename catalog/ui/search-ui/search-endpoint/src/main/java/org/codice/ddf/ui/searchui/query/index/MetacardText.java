@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+package org.codice.ddf.ui.searchui.query.index;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringEscapeUtils;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.Metacard;
+
+/**
+ * Reads the text of metacard attributes the way the catalog Solr provider indexes it.
+ */
+final class MetacardText {
+
+    private static final Pattern XML_TAG = Pattern.compile("<[^>]*>");
+
+    private MetacardText() {
+    }
+
+    /**
+     * Returns the names of the attributes a property searches. {@link Metacard#ANY_TEXT} searches
+     * every string attribute and {@link Metacard#METADATA}, each as a separate field, and any
+     * other property searches the attribute of the same name.
+     */
+    static List<String> attributeNames(Metacard metacard, String propertyName) {
+        if (!Metacard.ANY_TEXT.equals(propertyName)) {
+            return Collections.singletonList(propertyName);
+        }
+
+        List<String> names = new ArrayList<>();
+        for (AttributeDescriptor descriptor : metacard.getMetacardType()
+                .getAttributeDescriptors()) {
+            if (Metacard.METADATA.equals(descriptor.getName())
+                    || AttributeFormat.STRING.equals(getFormat(descriptor))) {
+                names.add(descriptor.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Returns the text values of an attribute. The tags of XML attributes are removed so only their
+     * text is searched.
+     */
+    static List<String> values(Metacard metacard, String attributeName) {
+        List<String> values = new ArrayList<>();
+        addValues(metacard, attributeName, values);
+        return values;
+    }
+
+    private static void addValues(Metacard metacard, String name, List<String> values) {
+        Attribute attribute = metacard.getAttribute(name);
+        if (attribute == null || attribute.getValues() == null) {
+            return;
+        }
+
+        boolean isXml = AttributeFormat.XML.equals(getFormat(metacard.getMetacardType()
+                .getAttributeDescriptor(name)));
+        for (Serializable value : attribute.getValues()) {
+            if (value != null) {
+                values.add(isXml ? stripTags(value.toString()) : value.toString());
+            }
+        }
+    }
+
+    private static AttributeFormat getFormat(AttributeDescriptor descriptor) {
+        if (descriptor == null || descriptor.getType() == null) {
+            return null;
+        }
+        return descriptor.getType()
+                .getAttributeFormat();
+    }
+
+    private static String stripTags(String xml) {
+        return StringEscapeUtils.unescapeXml(XML_TAG.matcher(xml)
+                .replaceAll(" "));
+    }
+}
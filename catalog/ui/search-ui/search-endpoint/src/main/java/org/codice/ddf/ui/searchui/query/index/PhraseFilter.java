@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+package org.codice.ddf.ui.searchui.query.index;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches metacards whose text contains a phrase, and scores them with BM25, the default
+ * similarity of the catalog Solr provider. The values of an attribute are searched as one field,
+ * and {@link ddf.catalog.data.Metacard#ANY_TEXT} searches each of its attributes as a separate
+ * field, adding up the scores of the fields that match, as the Solr provider's disjunction over
+ * those fields does. Term and document frequencies are collected per field over every result added
+ * to the index, whether or not it matches.
+ * <p>
+ * Null terms are the gaps left by removed stop words. They match any term, and are dropped from
+ * the ends of the phrase.
+ */
+final class PhraseFilter extends MetacardFilter {
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private final String propertyName;
+
+    private final TextAnalysis analysis;
+
+    private final boolean isCaseSensitive;
+
+    private final List<String> phrase;
+
+    private final Map<String, FieldStatistics> fieldStatistics = new HashMap<>();
+
+    PhraseFilter(int id, String propertyName, String phrase, TextAnalysis analysis,
+            boolean isCaseSensitive) {
+        super(id);
+        this.propertyName = propertyName;
+        this.analysis = analysis;
+        this.isCaseSensitive = isCaseSensitive;
+        this.phrase = trimGaps(analysis.analyze(phrase, isCaseSensitive));
+    }
+
+    @Override
+    boolean matches(IndexedResult result) {
+        Map<String, TermFrequencies> fields = new HashMap<>();
+        boolean matches = false;
+        for (String attributeName : MetacardText.attributeNames(result.getMetacard(),
+                propertyName)) {
+            TermFrequencies frequencies = new TermFrequencies();
+            for (String value : MetacardText.values(result.getMetacard(), attributeName)) {
+                frequencies.add(analysis.analyze(value, isCaseSensitive));
+            }
+
+            if (frequencies.fieldLength > 0) {
+                fields.put(attributeName, frequencies);
+                matches |= frequencies.phraseFrequency > 0;
+            }
+        }
+        result.setData(getId(), fields);
+        return matches;
+    }
+
+    @Override
+    double score(IndexedResult result) {
+        Map<String, TermFrequencies> fields = result.getData(getId());
+
+        double score = 0;
+        for (Map.Entry<String, TermFrequencies> field : fields.entrySet()) {
+            if (field.getValue().phraseFrequency > 0) {
+                score += fieldStatistics.get(field.getKey())
+                        .score(field.getValue());
+            }
+        }
+        return score;
+    }
+
+    @Override
+    void addStatistics(IndexedResult result) {
+        updateStatistics(result, 1);
+    }
+
+    @Override
+    void removeStatistics(IndexedResult result) {
+        updateStatistics(result, -1);
+    }
+
+    private void updateStatistics(IndexedResult result, int increment) {
+        Map<String, TermFrequencies> fields = result.getData(getId());
+        if (fields == null) {
+            return;
+        }
+
+        for (Map.Entry<String, TermFrequencies> field : fields.entrySet()) {
+            FieldStatistics statistics = fieldStatistics.computeIfAbsent(field.getKey(),
+                    name -> new FieldStatistics());
+            statistics.update(field.getValue(), increment);
+            if (statistics.documentCount == 0) {
+                fieldStatistics.remove(field.getKey());
+            }
+        }
+    }
+
+    private static List<String> trimGaps(List<String> terms) {
+        int start = 0;
+        int end = terms.size();
+        while (start < end && terms.get(start) == null) {
+            start++;
+        }
+        while (end > start && terms.get(end - 1) == null) {
+            end--;
+        }
+        return terms.subList(start, end);
+    }
+
+    private final class FieldStatistics {
+
+        private final long[] documentFrequencies = new long[phrase.size()];
+
+        private long documentCount;
+
+        private long totalFieldLength;
+
+        private void update(TermFrequencies frequencies, int increment) {
+            documentCount += increment;
+            totalFieldLength += increment * frequencies.fieldLength;
+            for (int i = 0; i < documentFrequencies.length; i++) {
+                if (frequencies.containsTerm[i]) {
+                    documentFrequencies[i] += increment;
+                }
+            }
+        }
+
+        private double score(TermFrequencies frequencies) {
+            double idf = 0;
+            for (int i = 0; i < documentFrequencies.length; i++) {
+                if (phrase.get(i) != null) {
+                    idf += Math.log(1 + (documentCount - documentFrequencies[i] + 0.5) / (
+                            documentFrequencies[i] + 0.5));
+                }
+            }
+
+            double averageFieldLength = (double) totalFieldLength / documentCount;
+            double lengthNorm = K1 * (1 - B + B * frequencies.fieldLength / averageFieldLength);
+
+            return idf * frequencies.phraseFrequency * (K1 + 1) / (frequencies.phraseFrequency
+                    + lengthNorm);
+        }
+    }
+
+    private final class TermFrequencies {
+
+        private final boolean[] containsTerm = new boolean[phrase.size()];
+
+        private int fieldLength;
+
+        private int phraseFrequency;
+
+        private void add(List<String> terms) {
+            for (String term : terms) {
+                if (term != null) {
+                    fieldLength++;
+                }
+            }
+            if (phrase.isEmpty()) {
+                return;
+            }
+
+            for (int start = 0; start < terms.size(); start++) {
+                for (int i = 0; i < phrase.size(); i++) {
+                    if (phrase.get(i) != null && phrase.get(i)
+                            .equals(terms.get(start))) {
+                        containsTerm[i] = true;
+                    }
+                }
+
+                if (start + phrase.size() <= terms.size() && matchesAt(terms, start)) {
+                    phraseFrequency++;
+                }
+            }
+        }
+
+        private boolean matchesAt(List<String> terms, int start) {
+            for (int i = 0; i < phrase.size(); i++) {
+                if (phrase.get(i) != null && !phrase.get(i)
+                        .equals(terms.get(start + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+package org.codice.ddf.ui.searchui.query.index;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import org.locationtech.spatial4j.distance.DistanceUtils;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.filter.FilterAdapter;
+import ddf.catalog.operation.Query;
+import ddf.catalog.source.UnsupportedQueryException;
+
+/**
+ * An in-memory index of the results of one query, used to filter, score and sort results from
+ * several sources as if they had all come from one catalog Solr provider.
+ * <p>
+ * The query filter is compiled once by a {@link MetacardFilterDelegate} and each added result is
+ * evaluated against it as it arrives. Matching results are kept in sort order, except when sorting
+ * by relevance, since the scores of all the results change as collection statistics grow; they are
+ * sorted when the index is read. Results are identified by metacard ID, so adding a metacard again
+ * replaces it. This class is thread safe.
+ */
+public class ResultIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultIndex.class);
+
+    private static final int METERS_IN_KILOMETERS = 1000;
+
+    private final MetacardFilter filter;
+
+    private final int nodeCount;
+
+    private final String sortProperty;
+
+    private final boolean isRelevanceSorted;
+
+    private final boolean isAscending;
+
+    private final Point distanceSortPoint;
+
+    private final int startIndex;
+
+    private final int pageSize;
+
+    private final Map<String, IndexedResult> indexedResults = new HashMap<>();
+
+    private final NavigableSet<IndexedResult> matchingResults;
+
+    private long sequence;
+
+    /**
+     * @param filterAdapter the adapter to compile the query filter with
+     * @param query         the query to filter, sort and page the results by
+     * @throws UnsupportedQueryException if the query cannot be evaluated in memory
+     */
+    public ResultIndex(FilterAdapter filterAdapter, Query query) throws UnsupportedQueryException {
+        if (query.getStartIndex() < 1) {
+            throw new UnsupportedQueryException("Start index must be greater than 0");
+        }
+
+        MetacardFilterDelegate delegate = new MetacardFilterDelegate(query.getSortBy());
+        filter = filterAdapter.adapt(query, delegate);
+        nodeCount = delegate.getNodeCount();
+        distanceSortPoint = delegate.getDistanceSortPoint();
+        startIndex = query.getStartIndex();
+        pageSize = query.getPageSize();
+
+        SortBy sortBy = query.getSortBy();
+        if (sortBy != null && sortBy.getPropertyName() != null) {
+            sortProperty = sortBy.getPropertyName()
+                    .getPropertyName();
+            isAscending = sortBy.getSortOrder() == SortOrder.ASCENDING;
+        } else {
+            sortProperty = Result.RELEVANCE;
+            isAscending = false;
+        }
+
+        // Solr falls back to relevance when there is nothing to sort by distance from
+        isRelevanceSorted = Result.RELEVANCE.equals(sortProperty) || (
+                Result.DISTANCE.equals(sortProperty) && distanceSortPoint == null);
+
+        Comparator<IndexedResult> sequenceComparator =
+                Comparator.comparingLong(IndexedResult::getSequence);
+        matchingResults = new TreeSet<>(isRelevanceSorted ?
+                sequenceComparator :
+                sortKeyComparator().thenComparing(sequenceComparator));
+    }
+
+    /**
+     * Evaluates results against the query and adds them to the index.
+     */
+    public void add(Collection<Result> results) {
+        List<IndexedResult> evaluatedResults = new ArrayList<>(results.size());
+        List<Boolean> matches = new ArrayList<>(results.size());
+
+        for (Result result : results) {
+            if (result == null || result.getMetacard() == null) {
+                continue;
+            }
+
+            IndexedResult indexedResult = new IndexedResult(result.getMetacard(),
+                    nextSequence(),
+                    nodeCount);
+            matches.add(filter.evaluate(indexedResult));
+            indexedResult.setDistanceInMeters(getDistanceInMeters(result.getMetacard()));
+            indexedResult.setSortKey(getSortKey(indexedResult));
+            evaluatedResults.add(indexedResult);
+        }
+
+        synchronized (this) {
+            for (int i = 0; i < evaluatedResults.size(); i++) {
+                IndexedResult indexedResult = evaluatedResults.get(i);
+                IndexedResult replaced = indexedResults.put(indexedResult.getMetacard()
+                        .getId(), indexedResult);
+                if (replaced != null) {
+                    filter.removeStatistics(replaced);
+                    matchingResults.remove(replaced);
+                }
+
+                filter.addStatistics(indexedResult);
+                if (matches.get(i)) {
+                    matchingResults.add(indexedResult);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the page of matching results requested by the query, in sort order, with their
+     * relevance scores and, when sorting by distance, their distances.
+     */
+    public synchronized List<Result> getResults() {
+        List<ScoredResult> scoredResults = new ArrayList<>(matchingResults.size());
+        for (IndexedResult indexedResult : matchingResults) {
+            scoredResults.add(new ScoredResult(indexedResult, filter.score(indexedResult)));
+        }
+
+        if (isRelevanceSorted) {
+            Comparator<ScoredResult> scoreComparator =
+                    Comparator.comparingDouble(ScoredResult::getScore);
+            scoredResults.sort((isAscending ? scoreComparator : scoreComparator.reversed())
+                    .thenComparingLong(scoredResult -> scoredResult.indexedResult.getSequence()));
+        }
+
+        int fromIndex = Math.min(startIndex - 1, scoredResults.size());
+        int toIndex = pageSize < 1 ?
+                scoredResults.size() :
+                (int) Math.min((long) fromIndex + pageSize, scoredResults.size());
+
+        List<Result> results = new ArrayList<>(toIndex - fromIndex);
+        for (ScoredResult scoredResult : scoredResults.subList(fromIndex, toIndex)) {
+            ResultImpl result = new ResultImpl(scoredResult.indexedResult.getMetacard());
+            result.setRelevanceScore(scoredResult.score);
+            result.setDistanceInMeters(scoredResult.indexedResult.getDistanceInMeters());
+            results.add(result);
+        }
+        return results;
+    }
+
+    public synchronized int size() {
+        return matchingResults.size();
+    }
+
+    private synchronized long nextSequence() {
+        return sequence++;
+    }
+
+    /**
+     * Orders results by their sort keys, with results that have no sort key last.
+     */
+    @SuppressWarnings("unchecked")
+    private Comparator<IndexedResult> sortKeyComparator() {
+        Comparator<Comparable<Object>> keyComparator = Comparator.naturalOrder();
+        if (!isAscending) {
+            keyComparator = keyComparator.reversed();
+        }
+        Comparator<Comparable<Object>> nullsLast = Comparator.nullsLast(keyComparator);
+        return (a, b) -> nullsLast.compare((Comparable<Object>) a.getSortKey(),
+                (Comparable<Object>) b.getSortKey());
+    }
+
+    private Comparable<?> getSortKey(IndexedResult indexedResult) {
+        if (isRelevanceSorted) {
+            return null;
+        }
+
+        // The delegate only finds a point when sorting by distance or by the spatial property
+        if (distanceSortPoint != null) {
+            return indexedResult.getDistanceInMeters();
+        }
+
+        String attributeName = Result.TEMPORAL.equals(sortProperty) ?
+                Metacard.EFFECTIVE :
+                sortProperty;
+        Attribute attribute = indexedResult.getMetacard()
+                .getAttribute(attributeName);
+        if (attribute == null || attribute.getValue() == null) {
+            return null;
+        }
+
+        Serializable value = attribute.getValue();
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value.toString();
+    }
+
+    /**
+     * Returns the great circle distance between the center of the metacard's location and the
+     * point sorted by, or null if either is missing.
+     */
+    private Double getDistanceInMeters(Metacard metacard) {
+        if (distanceSortPoint == null || metacard.getLocation() == null) {
+            return null;
+        }
+
+        Geometry location;
+        try {
+            location = new WKTReader().read(metacard.getLocation());
+        } catch (ParseException e) {
+            LOGGER.debug("Unable to parse metacard WKT to calculate distance", e);
+            return null;
+        }
+
+        Point center = location.getCentroid();
+        return DistanceUtils.distHaversineRAD(Math.toRadians(center.getY()),
+                Math.toRadians(center.getX()),
+                Math.toRadians(distanceSortPoint.getY()),
+                Math.toRadians(distanceSortPoint.getX())) * DistanceUtils.EARTH_MEAN_RADIUS_KM
+                * METERS_IN_KILOMETERS;
+    }
+
+    private static final class ScoredResult {
+
+        private final IndexedResult indexedResult;
+
+        private final double score;
+
+        private ScoredResult(IndexedResult indexedResult, double score) {
+            this.indexedResult = indexedResult;
+            this.score = score;
+        }
+
+        private double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+package org.codice.ddf.ui.searchui.query.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * The ways the catalog Solr schema breaks text into terms, so that text can be matched the same way
+ * in memory. Like Lucene's stop filter, the standard analysis leaves a gap where it removes a stop
+ * word, so phrases only match terms that are the same distance apart. The query time synonyms of
+ * the schema are not applied; its synonyms file only holds examples.
+ */
+enum TextAnalysis {
+
+    /**
+     * The {@code *_txt_ws} fields: split on whitespace and trim leading and trailing punctuation
+     * from each term.
+     */
+    WHITESPACE {
+        @Override
+        List<String> split(String text) {
+            List<String> terms = new ArrayList<>();
+            for (String term : StringUtils.split(text)) {
+                terms.add(PUNCTUATION.matcher(term)
+                        .replaceAll("$1"));
+            }
+            return terms;
+        }
+    },
+
+    /**
+     * The {@code *_txt_tokenized} fields: split into words on anything that is not a letter or a
+     * digit, and replace stop words, whatever their case, with null.
+     */
+    STANDARD {
+        @Override
+        List<String> split(String text) {
+            List<String> terms = new ArrayList<>();
+            for (String term : NON_WORD.split(text)) {
+                if (!term.isEmpty()) {
+                    terms.add(STOP_WORDS.contains(term.toLowerCase(Locale.ROOT)) ? null : term);
+                }
+            }
+            return terms;
+        }
+    };
+
+    // The stopwords.txt of the catalog Solr schema
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList("stopworda",
+            "stopwordb",
+            "a",
+            "an",
+            "and",
+            "are",
+            "as",
+            "at",
+            "be",
+            "but",
+            "by",
+            "for",
+            "if",
+            "in",
+            "into",
+            "is",
+            "it",
+            "no",
+            "not",
+            "of",
+            "on",
+            "or",
+            "s",
+            "such",
+            "t",
+            "that",
+            "the",
+            "their",
+            "then",
+            "there",
+            "these",
+            "they",
+            "this",
+            "to",
+            "was",
+            "will",
+            "with"));
+
+    private static final Pattern PUNCTUATION = Pattern.compile("^\\p{Punct}*(.*?)\\p{Punct}*$");
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    abstract List<String> split(String text);
+
+    /**
+     * Splits {@code text} into terms, lower casing them unless {@code isCaseSensitive} is set.
+     * Removed stop words are null.
+     */
+    List<String> analyze(String text, boolean isCaseSensitive) {
+        List<String> terms = split(text);
+        if (!isCaseSensitive) {
+            terms.replaceAll(term -> term == null ? null : term.toLowerCase(Locale.ROOT));
+        }
+        return terms;
+    }
+}
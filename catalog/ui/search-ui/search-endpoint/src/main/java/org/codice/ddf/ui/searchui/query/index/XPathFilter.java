@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.ui.searchui.query.index;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+
+/**
+ * Matches metacards whose {@link Metacard#METADATA} an XPath selects, and optionally whose selected
+ * nodes contain a phrase, the way the XPath filter queries of the catalog Solr provider do.
+ * Namespaces are ignored: prefixes are removed from the XPath and from the names in the metadata.
+ * Like a filter query, it scores a constant 1.
+ */
+final class XPathFilter extends MetacardFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(XPathFilter.class);
+
+    private static final String XMLNS = "xmlns";
+
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY =
+            DocumentBuilderFactory.newInstance();
+
+    static {
+        DOCUMENT_BUILDER_FACTORY.setNamespaceAware(false);
+        try {
+            DOCUMENT_BUILDER_FACTORY.setFeature(
+                    "http://apache.org/xml/features/nonvalidating/load-dtd-grammar",
+                    false);
+            DOCUMENT_BUILDER_FACTORY.setFeature(
+                    "http://apache.org/xml/features/nonvalidating/load-external-dtd",
+                    false);
+        } catch (ParserConfigurationException e) {
+            LOGGER.debug("Unable to configure features on document builder.", e);
+        }
+    }
+
+    private final String xpath;
+
+    private final String phrase;
+
+    private final boolean isCaseSensitive;
+
+    // XPath expressions are not thread safe, and results are evaluated concurrently
+    private final ThreadLocal<XPathExpression> expression;
+
+    /**
+     * @param phrase the text the selected nodes must contain, or blank to only require that the
+     *               XPath selects something
+     * @throws UnsupportedOperationException if the XPath is invalid
+     */
+    XPathFilter(int id, String xpath, String phrase, boolean isCaseSensitive) {
+        super(id);
+        // As in the Solr delegate, prefix-like text inside quoted literals is removed too
+        this.xpath = xpath.replaceAll("[\\w]+:(?!:)", "");
+        this.isCaseSensitive = isCaseSensitive;
+        if (StringUtils.isBlank(phrase)) {
+            this.phrase = null;
+        } else {
+            this.phrase = isCaseSensitive ? phrase : phrase.toLowerCase(Locale.ROOT);
+        }
+
+        compile(this.xpath);
+        expression = ThreadLocal.withInitial(() -> compile(this.xpath));
+    }
+
+    @Override
+    boolean matches(IndexedResult result) {
+        Attribute metadata = result.getMetacard()
+                .getAttribute(Metacard.METADATA);
+        if (metadata == null || metadata.getValue() == null) {
+            return false;
+        }
+
+        try {
+            Document document = parse(metadata.getValue()
+                    .toString());
+            if (phrase == null) {
+                return (Boolean) expression.get()
+                        .evaluate(document, XPathConstants.BOOLEAN);
+            }
+
+            NodeList nodes = (NodeList) expression.get()
+                    .evaluate(document, XPathConstants.NODESET);
+            for (int i = 0; i < nodes.getLength(); i++) {
+                String text = nodes.item(i)
+                        .getTextContent();
+                if (text != null && (isCaseSensitive ? text : text.toLowerCase(Locale.ROOT))
+                        .contains(phrase)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException | SAXException | XPathExpressionException e) {
+            LOGGER.debug("Unable to evaluate XPath [{}] against the metadata of metacard {}",
+                    xpath,
+                    result.getMetacard()
+                            .getId(),
+                    e);
+            return false;
+        }
+    }
+
+    @Override
+    double score(IndexedResult result) {
+        return 1;
+    }
+
+    private static XPathExpression compile(String xpath) {
+        try {
+            return XPathFactory.newInstance()
+                    .newXPath()
+                    .compile(xpath);
+        } catch (XPathExpressionException e) {
+            throw new UnsupportedOperationException("Invalid XPath: " + xpath, e);
+        }
+    }
+
+    private static Document parse(String xml) throws IOException, SAXException {
+        Document document = newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+        removePrefixes(document.getDocumentElement());
+        return document;
+    }
+
+    private static synchronized DocumentBuilder newDocumentBuilder() throws SAXException {
+        try {
+            DocumentBuilder documentBuilder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            // Fail on fatal errors without printing them to standard error
+            documentBuilder.setErrorHandler(new DefaultHandler());
+            return documentBuilder;
+        } catch (ParserConfigurationException e) {
+            throw new SAXException("Unable to create a document builder", e);
+        }
+    }
+
+    /**
+     * Removes the prefixes from the names of an element, its attributes and its descendants, and
+     * returns the element, which may have been replaced.
+     */
+    private static Node removePrefixes(Node element) {
+        NamedNodeMap attributeMap = element.getAttributes();
+        List<Node> attributes = new ArrayList<>();
+        for (int i = 0; i < attributeMap.getLength(); i++) {
+            attributes.add(attributeMap.item(i));
+        }
+        for (Node attribute : attributes) {
+            String name = attribute.getNodeName();
+            if (XMLNS.equals(name) || name.startsWith(XMLNS + ":")) {
+                attributeMap.removeNamedItem(name);
+            } else {
+                removePrefix(attribute);
+            }
+        }
+
+        Node renamed = removePrefix(element);
+        for (Node child = renamed.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                child = removePrefixes(child);
+            }
+        }
+        return renamed;
+    }
+
+    private static Node removePrefix(Node node) {
+        String name = node.getNodeName();
+        int colon = name.indexOf(':');
+        if (colon < 0) {
+            return node;
+        }
+        return node.getOwnerDocument()
+                .renameNode(node, null, name.substring(colon + 1));
+    }
+}
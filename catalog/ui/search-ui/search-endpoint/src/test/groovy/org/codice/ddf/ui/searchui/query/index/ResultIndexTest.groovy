@@ -0,0 +1,371 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.ui.searchui.query.index
+
+import ddf.catalog.data.Metacard
+import ddf.catalog.data.Result
+import ddf.catalog.data.impl.MetacardImpl
+import ddf.catalog.data.impl.ResultImpl
+import ddf.catalog.filter.FilterAdapter
+import ddf.catalog.filter.impl.SortByImpl
+import ddf.catalog.filter.proxy.adapter.GeotoolsFilterAdapterImpl
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder
+import ddf.catalog.operation.impl.QueryImpl
+import ddf.catalog.source.UnsupportedQueryException
+import org.opengis.filter.Filter
+import org.opengis.filter.sort.SortOrder
+import spock.lang.Specification
+
+class ResultIndexTest extends Specification {
+
+    def filterBuilder = new GeotoolsFilterBuilder()
+
+    def filterAdapter = new GeotoolsFilterAdapterImpl()
+
+    def "Filters results by phrase"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("Red Fox"))
+
+        when:
+        index.add([result("1", "the red fox"), result("2", "a red dog"), result("3", "RED, fox!")])
+
+        then:
+        ids(index.getResults()) == ["1", "3"] as Set
+    }
+
+    def "Removes stop words from tokenized text"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.TITLE).is().like().text(phrase))
+
+        when:
+        index.add([result("1", "The Cat in the Hat"), result("2", "cat on a hat"),
+                   result("3", "cat hat"), result("4", "the")])
+
+        then:
+        ids(index.getResults()) == expected as Set
+
+        where:
+        phrase           | expected
+        "cat in the hat" | ["1", "2"]
+        "the cat"        | ["1", "2", "3"]
+        "the"            | []
+    }
+
+    def "Keeps stop words in anyText"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("the"))
+
+        when:
+        index.add([result("1", "the"), result("2", "cat")])
+
+        then:
+        ids(index.getResults()) == ["1"] as Set
+    }
+
+    def "Matches case sensitive phrases"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.TITLE)
+                .is().like().caseSensitiveText("Red Fox"))
+
+        when:
+        index.add([result("1", "the Red Fox"), result("2", "the red fox")])
+
+        then:
+        ids(index.getResults()) == ["1"] as Set
+    }
+
+    def "Searches each anyText attribute as a separate field"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("red fox"))
+        def split = result("split", "red")
+        split.metacard.setAttribute(Metacard.DESCRIPTION, "fox")
+        def both = result("both", "red fox")
+        both.metacard.setAttribute(Metacard.DESCRIPTION, "red fox")
+        def title = result("title", "red fox")
+        title.metacard.setAttribute(Metacard.DESCRIPTION, "grey wolf")
+
+        when:
+        index.add([split, both, title])
+        def results = index.getResults()
+
+        then:
+        results*.metacard*.id == ["both", "title"]
+        results[0].relevanceScore > results[1].relevanceScore
+    }
+
+    def "Only searches anyText attributes of the metacard type"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("fox"))
+        def outside = result("1", "wolf")
+        outside.metacard.setAttribute("unknown", "fox")
+
+        when:
+        index.add([outside])
+
+        then:
+        index.size() == 0
+    }
+
+    def "Matches fuzzy anyText terms within one field"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().fuzzyText("red fox"))
+        def split = result("split", "red")
+        split.metacard.setAttribute(Metacard.DESCRIPTION, "fox")
+
+        when:
+        index.add([result("1", "reds foxes"), split])
+
+        then:
+        ids(index.getResults()) == ["1"] as Set
+    }
+
+    def "Evaluates XPath against the metadata ignoring namespaces"() {
+        setup:
+        def index = newIndex(filter)
+        def titled = result("1", "a")
+        titled.metacard.setMetadata(
+                "<ns:record xmlns:ns='urn:ns'><ns:title>Red Fox</ns:title></ns:record>")
+        def untitled = result("2", "b")
+        untitled.metacard.setMetadata("<record><subject>Red Fox</subject></record>")
+
+        when:
+        index.add([titled, untitled, result("3", "c")])
+
+        then:
+        ids(index.getResults()) == expected as Set
+
+        where:
+        filter                                                                     | expected
+        filterBuilder.xpath("/record/title").exists()                              | ["1"]
+        filterBuilder.xpath("//x:title").exists()                                  | ["1"]
+        filterBuilder.xpath("/record").is().like().text("red fox")                 | ["1", "2"]
+        filterBuilder.xpath("//title").is().like().text("red fox")                 | ["1"]
+        filterBuilder.xpath("//title").is().like().caseSensitiveText("red fox")    | []
+        filterBuilder.xpath("//subject").is().like().fuzzyText("RED FOX")          | ["2"]
+    }
+
+    def "Scores XPath phrases by the metadata text"() {
+        setup:
+        def index = newIndex(filterBuilder.xpath("//title").is().like().text("fox"))
+        def twice = result("twice", "a")
+        twice.metacard.setMetadata("<record><title>fox</title><subject>fox</subject></record>")
+        def once = result("once", "b")
+        once.metacard.setMetadata("<record><title>fox</title><subject>wolf</subject></record>")
+
+        when:
+        index.add([once, twice])
+        def results = index.getResults()
+
+        then:
+        results*.metacard*.id == ["twice", "once"]
+        results[0].relevanceScore > results[1].relevanceScore
+    }
+
+    def "Rejects invalid XPath"() {
+        when:
+        newIndex(filterBuilder.xpath("//record[").exists())
+
+        then:
+        thrown UnsupportedQueryException
+    }
+
+    def "Matches wildcards against whole terms"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.TITLE).is().like().text("fo*"))
+
+        when:
+        index.add([result("1", "the fox"), result("2", "a wolf"), result("3", "info")])
+
+        then:
+        ids(index.getResults()) == ["1"] as Set
+    }
+
+    def "Matches fuzzy terms within two edits"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().fuzzyText("foxes"))
+
+        when:
+        index.add([result("1", "fox"), result("2", "boxer"), result("3", "wolf")])
+
+        then:
+        ids(index.getResults()) == ["1", "2"] as Set
+    }
+
+    def "Combines logical operators"() {
+        setup:
+        def filter = filterBuilder.allOf(
+                filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("fox"),
+                filterBuilder.not(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("red")))
+        def index = newIndex(filter)
+
+        when:
+        index.add([result("1", "red fox"), result("2", "grey fox"), result("3", "grey wolf")])
+
+        then:
+        ids(index.getResults()) == ["2"] as Set
+    }
+
+    def "Uses exclusive bounds for after"() {
+        setup:
+        def date = new Date(1000)
+        def index = newIndex(filterBuilder.attribute(Metacard.EFFECTIVE).is().after().date(date))
+
+        when:
+        index.add([result("1", "a", new Date(999)), result("2", "b", date),
+                   result("3", "c", new Date(1001))])
+
+        then:
+        ids(index.getResults()) == ["3"] as Set
+    }
+
+    def "Buffers point intersections"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.ANY_GEO).intersecting().wkt("POINT(10 10)"))
+        def near = result("1", "near")
+        near.metacard.setLocation("POINT(10 10.000001)")
+        def far = result("2", "far")
+        far.metacard.setLocation("POINT(11 11)")
+
+        when:
+        index.add([near, far])
+
+        then:
+        ids(index.getResults()) == ["1"] as Set
+    }
+
+    def "Scores frequent and short matches higher"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("fox"))
+
+        when:
+        index.add([result("long", "fox and a lot of other words that are not relevant"),
+                   result("twice", "fox fox"), result("none", "wolf")])
+        def results = index.getResults()
+
+        then:
+        results*.metacard*.id == ["twice", "long"]
+        results[0].relevanceScore > results[1].relevanceScore
+        results[1].relevanceScore > 0
+    }
+
+    def "Keeps results sorted by attribute as they are added"() {
+        setup:
+        def filter = filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("fox")
+        def index = newIndex(filter, new SortByImpl(Result.TEMPORAL, SortOrder.ASCENDING))
+
+        when:
+        index.add([result("2", "fox", new Date(2000)), result("none", "fox")])
+        index.add([result("1", "fox", new Date(1000)), result("3", "fox", new Date(3000))])
+
+        then:
+        index.getResults()*.metacard*.id == ["1", "2", "3", "none"]
+    }
+
+    def "Replaces results with the same ID"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("fox"))
+
+        when:
+        index.add([result("1", "fox")])
+        index.add([result("1", "wolf")])
+
+        then:
+        index.size() == 0
+    }
+
+    def "Pages results"() {
+        setup:
+        def filter = filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("fox")
+        def index = new ResultIndex(filterAdapter,
+                new QueryImpl(filter, 2, 2, new SortByImpl(Metacard.TITLE, SortOrder.ASCENDING),
+                        false, 0))
+
+        when:
+        index.add([result("1", "fox a"), result("2", "fox b"), result("3", "fox c"),
+                   result("4", "fox d")])
+
+        then:
+        index.getResults()*.metacard*.id == ["2", "3"]
+    }
+
+    def "Ignores invalid results"() {
+        setup:
+        def index = newIndex(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("fox"))
+
+        when:
+        index.add([result("1", "fox"), invalidResult])
+
+        then:
+        index.size() == 1
+
+        where:
+        invalidResult    | _
+        Mock(Result)     | _
+        new ResultImpl() | _
+        null             | _
+    }
+
+    def "Compiles the query filter once"() {
+        setup:
+        def adapter = Mock(FilterAdapter)
+
+        when:
+        new ResultIndex(adapter, new QueryImpl(filterBuilder.attribute(Metacard.ANY_TEXT)
+                .is().like().text("fox")))
+
+        then:
+        1 * adapter.adapt(_, _ as MetacardFilterDelegate)
+    }
+
+    def "Throws exception if the adapter rejects the query"() {
+        setup:
+        def adapter = Mock(FilterAdapter) {
+            adapt(_, _) >> { throw new UnsupportedQueryException() }
+        }
+
+        when:
+        new ResultIndex(adapter, new QueryImpl(filterBuilder.attribute(Metacard.ANY_TEXT)
+                .is().like().text("fox")))
+
+        then:
+        thrown UnsupportedQueryException
+    }
+
+    def "Rejects unsupported queries"() {
+        when:
+        newIndex(filterBuilder.attribute(Metacard.TITLE).is().notEqualTo().text("fox"))
+
+        then:
+        thrown UnsupportedQueryException
+    }
+
+    private ResultIndex newIndex(Filter filter,
+            SortByImpl sortBy = new SortByImpl(Result.RELEVANCE, SortOrder.DESCENDING)) {
+        new ResultIndex(filterAdapter, new QueryImpl(filter, 1, 0, sortBy, false, 0))
+    }
+
+    private static Result result(String id, String title, Date effective = null) {
+        def metacard = new MetacardImpl()
+        metacard.setId(id)
+        metacard.setSourceId("source")
+        metacard.setTitle(title)
+        metacard.setEffectiveDate(effective)
+        new ResultImpl(metacard)
+    }
+
+    private static Set<String> ids(List<Result> results) {
+        results*.metacard*.id as Set
+    }
+}
@@ -44,7 +44,7 @@ public class KlvContext {
 
     private final Map<String, KlvDataElement> nameToDataElementMap;
 
-    private final Map<String, KlvDataElement> keyToDataElementMap;
+    private final KlvKeyTrie keyToDataElementTrie;
 
     /**
      * Constructs a {@code KlvContext} containing the properties of a specific KLV-encoded data set.
@@ -79,7 +79,7 @@ public KlvContext(final KeyLength keyLength, final LengthEncoding lengthEncoding
         this.lengthEncoding = lengthEncoding;
 
         this.nameToDataElementMap = new HashMap<>();
-        this.keyToDataElementMap = new HashMap<>();
+        this.keyToDataElementTrie = new KlvKeyTrie();
 
         addDataElements(dataElements);
     }
@@ -93,7 +93,7 @@ public KlvContext(final KeyLength keyLength, final LengthEncoding lengthEncoding
     public void addDataElement(final KlvDataElement dataElement) {
         Preconditions.checkArgument(dataElement != null, "The data element cannot be null.");
         nameToDataElementMap.put(dataElement.getName(), dataElement);
-        keyToDataElementMap.put(dataElement.getKeyAsString(), dataElement);
+        keyToDataElementTrie.put(dataElement.keyBytes, dataElement);
     }
 
     /**
@@ -107,7 +107,7 @@ public void addDataElements(final Collection<? extends KlvDataElement> dataEleme
                 "The collection of data elements cannot be null.");
         dataElements.forEach(dataElement -> {
             nameToDataElementMap.put(dataElement.getName(), dataElement);
-            keyToDataElementMap.put(dataElement.getKeyAsString(), dataElement);
+            keyToDataElementTrie.put(dataElement.keyBytes, dataElement);
         });
     }
 
@@ -152,7 +152,7 @@ public KlvDataElement getDataElementByName(final String name) {
         return nameToDataElementMap.get(name);
     }
 
-    Map<String, KlvDataElement> getKeyToDataElementMap() {
-        return keyToDataElementMap;
+    KlvKeyTrie getKeyToDataElementTrie() {
+        return keyToDataElementTrie;
     }
 }
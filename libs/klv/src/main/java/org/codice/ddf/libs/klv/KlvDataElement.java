@@ -64,6 +64,19 @@ public final String getName() {
 
     protected abstract void decodeValue(Klv klv);
 
+    /**
+     * Decodes the value of the given {@link Klv} into this data element and passes this data
+     * element to the given {@link KlvHandler}. Data elements that contain other data elements
+     * override this to pass those data elements to the handler instead.
+     *
+     * @param klv     the KLV set to decode
+     * @param handler the handler to pass the decoded data element to
+     */
+    protected void decodeValue(final Klv klv, final KlvHandler handler) {
+        decodeValue(klv);
+        handler.handle(this);
+    }
+
     public T getValue() {
         return value;
     }
@@ -13,10 +13,7 @@
  */
 package org.codice.ddf.libs.klv;
 
-import java.util.List;
-import java.util.Map;
-
-import javax.xml.bind.DatatypeConverter;
+import java.nio.ByteBuffer;
 
 import org.codice.ddf.libs.klv.data.Klv;
 
@@ -28,6 +25,10 @@
 public class KlvDecoder {
     private final KlvContext klvContext;
 
+    private KlvKeyTrie reusableDataElements;
+
+    private Klv reusableKlv;
+
     /**
      * Creates a {@code KlvDecoder} with the given {@link KlvContext}.
      *
@@ -58,36 +59,98 @@ public KlvContext decode(final byte[] klvBytes) throws KlvDecodingException {
         Preconditions.checkArgument(klvBytes != null,
                 "The array of bytes to decode cannot be null.");
 
-        List<Klv> klvDataElements;
+        return decode(ByteBuffer.wrap(klvBytes));
+    }
 
-        try {
-            klvDataElements = Klv.bytesToList(klvBytes,
-                    0,
-                    klvBytes.length,
-                    klvContext.getKeyLength(),
-                    klvContext.getLengthEncoding());
-        } catch (RuntimeException e) {
-            throw new KlvDecodingException(String.format(
-                    "Could not decode KLV using the given key length %s and length encoding %s",
-                    klvContext.getKeyLength(),
-                    klvContext.getLengthEncoding()), e);
-        }
+    /**
+     * Decodes the KLV data remaining in {@code klvBuffer}, as {@link #decode(byte[])} does,
+     * without copying it. The position and limit of {@code klvBuffer} are not changed.
+     *
+     * @param klvBuffer a buffer encoding data in KLV format between its position and its limit
+     * @return a new {@code KlvContext} containing the decoded KLV data elements
+     * @throws IllegalArgumentException if {@code klvBuffer} is null
+     * @throws KlvDecodingException     if the KLV cannot be decoded using the given context
+     *                                  information
+     */
+    public KlvContext decode(final ByteBuffer klvBuffer) throws KlvDecodingException {
+        Preconditions.checkArgument(klvBuffer != null, "The buffer to decode cannot be null.");
 
         final KlvContext decodedContext = new KlvContext(klvContext.getKeyLength(),
                 klvContext.getLengthEncoding());
-        final Map<String, KlvDataElement> keyToDataElementMap = klvContext.getKeyToDataElementMap();
+        final KlvKeyTrie keyToDataElementTrie = klvContext.getKeyToDataElementTrie();
+
+        final ByteBuffer buffer = klvBuffer.duplicate();
+        final Klv klv = new Klv(klvContext.getKeyLength(), klvContext.getLengthEncoding());
 
-        klvDataElements.forEach(klv -> {
-            final String key = DatatypeConverter.printHexBinary(klv.getFullKey());
+        while (readNext(buffer, klv)) {
+            final KlvDataElement dataElement = keyToDataElementTrie.get(klv);
 
-            if (keyToDataElementMap.containsKey(key)) {
-                final KlvDataElement dataElementCopy = keyToDataElementMap.get(key)
-                        .copy();
+            if (dataElement != null) {
+                final KlvDataElement dataElementCopy = dataElement.copy();
                 dataElementCopy.decodeValue(klv);
                 decodedContext.addDataElement(dataElementCopy);
             }
-        });
+        }
 
         return decodedContext;
     }
+
+    /**
+     * Decodes the KLV data remaining in {@code klvBuffer} and passes each decoded
+     * {@link KlvDataElement} to {@code handler} as soon as it is decoded, instead of collecting
+     * them in a new {@link KlvContext}. The position and limit of {@code klvBuffer} are not
+     * changed.
+     * <p>
+     * Nothing is copied or allocated per data element: each data element in the
+     * {@code KlvContext} is copied once, the first time this method is called, and the copies are
+     * reused for every call after that. Data elements added to the {@code KlvContext} after the
+     * first call are not decoded. Because of that reuse, this method must not be called by more
+     * than one thread at a time on the same {@code KlvDecoder}.
+     * <p>
+     * If the KLV cannot be decoded, the data elements before the one that couldn't be decoded
+     * have already been passed to {@code handler} when the exception is thrown.
+     *
+     * @param klvBuffer a buffer encoding data in KLV format between its position and its limit
+     * @param handler   the handler to pass the decoded data elements to
+     * @throws IllegalArgumentException if any of the arguments are null
+     * @throws KlvDecodingException     if the KLV cannot be decoded using the given context
+     *                                  information
+     */
+    public void decode(final ByteBuffer klvBuffer, final KlvHandler handler)
+            throws KlvDecodingException {
+        Preconditions.checkArgument(klvBuffer != null, "The buffer to decode cannot be null.");
+        Preconditions.checkArgument(handler != null, "The handler cannot be null.");
+
+        if (reusableDataElements == null) {
+            reusableDataElements = klvContext.getKeyToDataElementTrie()
+                    .map(KlvDataElement::copy);
+            reusableKlv = new Klv(klvContext.getKeyLength(), klvContext.getLengthEncoding());
+        }
+
+        final ByteBuffer buffer = klvBuffer.duplicate();
+
+        while (readNext(buffer, reusableKlv)) {
+            final KlvDataElement dataElement = reusableDataElements.get(reusableKlv);
+
+            if (dataElement != null) {
+                dataElement.decodeValue(reusableKlv, handler);
+            }
+        }
+    }
+
+    private boolean readNext(final ByteBuffer buffer, final Klv klv) throws KlvDecodingException {
+        if (!buffer.hasRemaining()) {
+            return false;
+        }
+
+        try {
+            klv.read(buffer);
+            return true;
+        } catch (RuntimeException e) {
+            throw new KlvDecodingException(String.format(
+                    "Could not decode KLV using the given key length %s and length encoding %s",
+                    klvContext.getKeyLength(),
+                    klvContext.getLengthEncoding()), e);
+        }
+    }
 }
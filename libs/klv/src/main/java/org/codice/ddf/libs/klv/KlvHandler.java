@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.klv;
+
+import org.codice.ddf.libs.klv.data.set.KlvLocalSet;
+
+/**
+ * Receives the {@link KlvDataElement}s decoded by
+ * {@link KlvDecoder#decode(java.nio.ByteBuffer, KlvHandler)} in the order in which they are
+ * encoded.
+ * <p>
+ * The data elements passed to a {@code KlvHandler} are reused by the {@link KlvDecoder} for the
+ * next data element with the same key, so a handler must take what it needs from a data element
+ * before returning and must not keep a reference to the data element itself.
+ */
+@FunctionalInterface
+public interface KlvHandler {
+    /**
+     * Called with each decoded data element that isn't a {@link KlvLocalSet}.
+     *
+     * @param dataElement the decoded data element, only valid until this method returns
+     */
+    void handle(KlvDataElement dataElement);
+
+    /**
+     * Called before the data elements of a {@link KlvLocalSet} are passed to
+     * {@link #handle(KlvDataElement)}. The value of the local set is not decoded into a
+     * {@link KlvContext}.
+     *
+     * @param localSet the local set whose data elements follow
+     */
+    default void startLocalSet(KlvLocalSet localSet) {
+    }
+
+    /**
+     * Called after the data elements of a {@link KlvLocalSet} have been passed to
+     * {@link #handle(KlvDataElement)}.
+     *
+     * @param localSet the local set whose data elements were handled
+     */
+    default void endLocalSet(KlvLocalSet localSet) {
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.klv;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.codice.ddf.libs.klv.data.Klv;
+
+/**
+ * Maps binary keys to {@link KlvDataElement}s, one key byte per level, so that the data element
+ * for a {@link Klv} can be found by walking the key bytes in place instead of converting the key
+ * to a {@code String}. Keys in a {@link KlvContext} share their leading bytes (16-byte universal
+ * keys all begin with the same SMPTE prefix), so the levels above the last few bytes are shared.
+ */
+class KlvKeyTrie {
+    private static final int FANOUT = 256;
+
+    private final Node root = new Node();
+
+    private int size;
+
+    /**
+     * Maps the given key to the given data element, replacing any data element already mapped to
+     * the key.
+     */
+    void put(final byte[] key, final KlvDataElement dataElement) {
+        Node node = root;
+        for (final byte keyByte : key) {
+            if (node.children == null) {
+                node.children = new Node[FANOUT];
+            }
+            final int index = keyByte & 0xFF;
+            if (node.children[index] == null) {
+                node.children[index] = new Node();
+            }
+            node = node.children[index];
+        }
+
+        if (node.dataElement == null) {
+            size++;
+        }
+        node.dataElement = dataElement;
+    }
+
+    /**
+     * Returns the data element mapped to the given key, or null if there isn't one.
+     */
+    KlvDataElement get(final byte[] key) {
+        Node node = root;
+        for (int i = 0; i < key.length && node != null; i++) {
+            node = node.child(key[i]);
+        }
+        return node == null ? null : node.dataElement;
+    }
+
+    /**
+     * Returns the data element mapped to the key of the given {@link Klv}, or null if there isn't
+     * one. The key is read in place.
+     */
+    KlvDataElement get(final Klv klv) {
+        final int keyLength = klv.getKeyLength()
+                .value();
+        Node node = root;
+        for (int i = 0; i < keyLength && node != null; i++) {
+            node = node.child(klv.getKeyByte(i));
+        }
+        return node == null ? null : node.dataElement;
+    }
+
+    /**
+     * Returns the number of keys mapped to data elements.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Calls the given consumer with each data element in the trie.
+     */
+    void forEach(final Consumer<KlvDataElement> consumer) {
+        forEach(root, consumer);
+    }
+
+    /**
+     * Returns a trie with the same keys whose data elements are the results of applying the given
+     * function to the data elements of this trie.
+     */
+    KlvKeyTrie map(final Function<KlvDataElement, KlvDataElement> function) {
+        final KlvKeyTrie mapped = new KlvKeyTrie();
+        mapped.size = size;
+        copy(root, mapped.root, function);
+        return mapped;
+    }
+
+    private static void forEach(final Node node, final Consumer<KlvDataElement> consumer) {
+        if (node.dataElement != null) {
+            consumer.accept(node.dataElement);
+        }
+        if (node.children != null) {
+            for (final Node child : node.children) {
+                if (child != null) {
+                    forEach(child, consumer);
+                }
+            }
+        }
+    }
+
+    private static void copy(final Node from, final Node to,
+            final Function<KlvDataElement, KlvDataElement> function) {
+        if (from.dataElement != null) {
+            to.dataElement = function.apply(from.dataElement);
+        }
+        if (from.children != null) {
+            to.children = new Node[FANOUT];
+            for (int i = 0; i < FANOUT; i++) {
+                if (from.children[i] != null) {
+                    to.children[i] = new Node();
+                    copy(from.children[i], to.children[i], function);
+                }
+            }
+        }
+    }
+
+    private static class Node {
+        private Node[] children;
+
+        private KlvDataElement dataElement;
+
+        private Node child(final byte keyByte) {
+            return children == null ? null : children[keyByte & 0xFF];
+        }
+    }
+}
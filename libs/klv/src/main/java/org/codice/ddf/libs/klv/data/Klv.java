@@ -14,7 +14,7 @@
 package org.codice.ddf.libs.klv.data;
 
 import java.io.UnsupportedEncodingException;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -32,9 +32,10 @@
  * SMPTE 336M-2001, but it also greatly eases the burden of non-TV-related
  * applications for an easy, interchangeable binary format.
  * <p>
- * The underlying byte array is always king. If you change the key
- * length or the length encoding, you only change how the underlying
- * byte array is interpreted on subsequent calls.
+ * The underlying byte array is always king. A {@code Klv} reads its
+ * key and value from the bytes it was read from rather than copying
+ * them, so a single {@code Klv} can be reused to read any number of
+ * KLV sets from a {@link ByteBuffer} with {@link #read(ByteBuffer)}.
  * <p>
  * Everything in KLV is Big Endian.
  * <p>
@@ -102,79 +103,108 @@ public int value() {
     /**
      * Number of bytes in key.
      */
-    private KeyLength keyLength;
+    private final KeyLength keyLength;
 
     /**
-     * The key if the key length is greater than four bytes.
+     * The encoding of the length field.
      */
-    private byte[] keyIfLong;
+    private final LengthEncoding lengthEncoding;
 
     /**
-     * The key if the key length is four bytes or fewer.
+     * The bytes from which the KLV set was read.
+     * May include irrelevant bytes, such as other KLV sets, so that
+     * the bytes can be passed around without copying.
      */
-    private int keyIfShort;
+    private ByteBuffer bytes = ByteBuffer.allocate(0);
 
     /**
-     * The bytes from which the KLV set is made up.
-     * May include irrelevant bytes so that byte arrays
-     * with offset and length specified separately so arrays
-     * can be passed around with a minimum of copying.
+     * The index of the first byte of the key in {@link #bytes}.
      */
-    private byte[] value;
+    private int keyOffset;
 
     /**
-     * When instantiated by reading a byte array, this private
-     * field will record the offset of the next byte in the array
-     * where perhaps another KLV set begins. This is used by the
-     * {@link #bytesToList} method to create a list of KLV sets
-     * from a long byte array.
+     * The index of the first byte of the value in {@link #bytes}.
      */
-    private int offsetAfterInstantiation;
+    private int valueOffset;
 
     /**
-     * Creates a KLV set from the given byte array, the given offset in that array,
-     * the total length of the KLV set in the byte array, the specified key length,
-     * and the specified length field encoding.
-     * <p>
-     * If there are not as many bytes in the array as the length field
-     * suggests, as many bytes as possible will be stored as the value, and
-     * the length field will reflect the actual length.
+     * The number of bytes in the value.
+     */
+    private int valueLength;
+
+    /**
+     * Creates an empty {@code Klv} that reads KLV sets with the given
+     * key length and length field encoding through {@link #read(ByteBuffer)}.
      *
-     * @param theBytes       The bytes that make up the entire KLV set
-     * @param offset         The offset from beginning of theBytes
      * @param keyLength      The number of bytes in the key.
      * @param lengthEncoding The length field encoding type.
-     * @throws IndexOutOfBoundsException If offset is out of range of the byte array.
+     * @throws IllegalArgumentException If any of the arguments are null.
      */
-    private Klv(final byte[] theBytes, final int offset, final KeyLength keyLength,
-            final LengthEncoding lengthEncoding) {
-        Preconditions.checkElementIndex(offset,
-                theBytes.length,
-                String.format("Offset %d is out of range (byte array length: %d).",
-                        offset,
-                        theBytes.length));
-
-        // These methods will interpret the byte array
-        // and set the appropriate key length and length encoding flags.
-        // setLength returns the offset of where the length field ends
-        // and the value portion begins. It also initializes an array in
-        // this.value of the appropriate length.
-        setKey(theBytes, offset, keyLength);
-
-        // Set length and verify enough bytes exist
-        // setLength(..) also establishes a this.value array.
-        final int valueOffset = setLength(theBytes, offset + keyLength.value(), lengthEncoding);
-        final int remaining = theBytes.length - valueOffset;
+    public Klv(final KeyLength keyLength, final LengthEncoding lengthEncoding) {
+        Preconditions.checkArgument(keyLength != null, "Key length cannot be null");
+        Preconditions.checkArgument(lengthEncoding != null, "Length encoding cannot be null");
+
+        this.keyLength = keyLength;
+        this.lengthEncoding = lengthEncoding;
+    }
+
+    /**
+     * Reads the KLV set that begins at the position of the given buffer into
+     * this {@code Klv} and moves the position of the buffer past the KLV set.
+     * The key and value are not copied, so they are only valid for as long as
+     * the contents of the buffer are not changed.
+     * <p>
+     * Only the position of the buffer is changed; its byte order is ignored.
+     *
+     * @param buffer The buffer to read the KLV set from
+     * @return <tt>this</tt> to aid in stringing together commands
+     * @throws IndexOutOfBoundsException If there are fewer bytes remaining in the
+     *                                   buffer than the KLV set needs. The position
+     *                                   of the buffer is not changed and the
+     *                                   previous contents of this {@code Klv} are lost.
+     */
+    public Klv read(final ByteBuffer buffer) {
+        final int offset = buffer.position();
+        final int limit = buffer.limit();
+
+        checkEnoughBytesRemaining(limit - offset,
+                keyLength.value(),
+                String.format("Not enough bytes for %d-byte key.", keyLength.value()));
+
+        this.bytes = buffer;
+        this.keyOffset = offset;
+        this.valueOffset = readLength(buffer, offset + keyLength.value(), limit);
+
+        final int remaining = limit - this.valueOffset;
         checkEnoughBytesRemaining(remaining,
-                this.value.length,
+                this.valueLength,
                 String.format("Not enough bytes left in array (%d) for the declared length (%d).",
                         remaining,
-                        this.value.length));
+                        this.valueLength));
 
-        System.arraycopy(theBytes, valueOffset, this.value, 0, this.value.length);
+        buffer.position(this.valueOffset + this.valueLength);
+        return this;
+    }
+
+    /**
+     * Returns the key length of this KLV set.
+     *
+     * @return the key length
+     */
+    public KeyLength getKeyLength() {
+        return this.keyLength;
+    }
 
-        // Private field used when creating a list of KLVs from a long array.
-        this.offsetAfterInstantiation = valueOffset + this.value.length;
+    /**
+     * Returns the byte at the given index of the key without copying the key.
+     *
+     * @param index the index of the byte in the key
+     * @return the byte of the key
+     * @throws IndexOutOfBoundsException If the index is not in the key.
+     */
+    public byte getKeyByte(final int index) {
+        Preconditions.checkElementIndex(index, this.keyLength.value);
+        return this.bytes.get(this.keyOffset + index);
     }
 
     /**
@@ -184,32 +214,7 @@ private Klv(final byte[] theBytes, final int offset, final KeyLength keyLength,
      * @return the key
      */
     public byte[] getFullKey() {
-        final int length = this.keyLength.value;
-        final byte[] key = new byte[length];
-
-        switch (this.keyLength) {
-        case OneByte:
-            key[0] = (byte) this.keyIfShort;
-            break;
-
-        case TwoBytes:
-            key[0] = (byte) (this.keyIfShort >> 8);
-            key[1] = (byte) this.keyIfShort;
-            break;
-
-        case FourBytes:
-            key[0] = (byte) (this.keyIfShort >> 24);
-            key[1] = (byte) (this.keyIfShort >> 16);
-            key[2] = (byte) (this.keyIfShort >> 8);
-            key[3] = (byte) this.keyIfShort;
-            break;
-
-        case SixteenBytes:
-            System.arraycopy(this.keyIfLong, 0, key, 0, 16);
-            break;
-        }
-
-        return key;
+        return copyOf(this.keyOffset, this.keyLength.value);
     }
 
     /**
@@ -218,7 +223,30 @@ public byte[] getFullKey() {
      * @return the value
      */
     public byte[] getValue() {
-        return Arrays.copyOf(this.value, this.value.length);
+        return copyOf(this.valueOffset, this.valueLength);
+    }
+
+    /**
+     * Returns the number of bytes in the value of this KLV set.
+     *
+     * @return the length of the value
+     */
+    public int getValueLength() {
+        return this.valueLength;
+    }
+
+    /**
+     * Returns the value of this KLV set as a buffer that shares the
+     * underlying bytes rather than copying them. The buffer's position
+     * is zero and its limit is the length of the value.
+     *
+     * @return the value
+     */
+    public ByteBuffer getValueAsByteBuffer() {
+        final ByteBuffer value = this.bytes.duplicate();
+        value.limit(this.valueOffset + this.valueLength);
+        value.position(this.valueOffset);
+        return value.slice();
     }
 
     /**
@@ -227,10 +255,9 @@ public byte[] getValue() {
      * @return the value as an 8-bit signed integer
      */
     public int getValueAs8bitSignedInt() {
-        final byte[] bytes = getValue();
         byte value = 0;
-        if (bytes.length > 0) {
-            value = bytes[0];
+        if (this.valueLength > 0) {
+            value = this.bytes.get(this.valueOffset);
         }
         return value;
     }
@@ -241,10 +268,9 @@ public int getValueAs8bitSignedInt() {
      * @return the value as an 8-bit unsigned integer
      */
     public int getValueAs8bitUnsignedInt() {
-        final byte[] bytes = getValue();
         int value = 0;
-        if (bytes.length > 0) {
-            value = bytes[0] & 0xFF;
+        if (this.valueLength > 0) {
+            value = this.bytes.get(this.valueOffset) & 0xFF;
         }
         return value;
     }
@@ -255,14 +281,7 @@ public int getValueAs8bitUnsignedInt() {
      * @return the value as a 16-bit signed integer
      */
     public int getValueAs16bitSignedInt() {
-        final byte[] bytes = getValue();
-        final int length = bytes.length;
-        final int shortLen = length < 2 ? length : 2;
-        short value = 0;
-        for (int i = 0; i < shortLen; i++) {
-            value |= (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-        }
-        return value;
+        return (short) getValueAs16bitUnsignedInt();
     }
 
     /**
@@ -271,14 +290,7 @@ public int getValueAs16bitSignedInt() {
      * @return the value as a 16-bit unsigned integer
      */
     public int getValueAs16bitUnsignedInt() {
-        final byte[] bytes = getValue();
-        final int length = bytes.length;
-        final int shortLen = length < 2 ? length : 2;
-        int value = 0;
-        for (int i = 0; i < shortLen; i++) {
-            value |= (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-        }
-        return value;
+        return (int) getValueAsUnsignedBits(2);
     }
 
     /**
@@ -289,14 +301,7 @@ public int getValueAs16bitUnsignedInt() {
      * @return the value as an int
      */
     public int getValueAs32bitInt() {
-        final byte[] bytes = getValue();
-        final int length = bytes.length;
-        final int shortLen = length < 4 ? length : 4;
-        int value = 0;
-        for (int i = 0; i < shortLen; i++) {
-            value |= (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-        }
-        return value;
+        return (int) getValueAsUnsignedBits(4);
     }
 
     /**
@@ -307,14 +312,7 @@ public int getValueAs32bitInt() {
      * @return the value as a long
      */
     public long getValueAs64bitLong() {
-        final byte[] bytes = getValue();
-        final int length = bytes.length;
-        final int shortLen = length < 8 ? length : 8;
-        long value = 0;
-        for (int i = 0; i < shortLen; i++) {
-            value |= (long) (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-        }
-        return value;
+        return getValueAsUnsignedBits(8);
     }
 
     /**
@@ -328,7 +326,7 @@ public long getValueAs64bitLong() {
      * @return the value as a float
      */
     public float getValueAsFloat() {
-        return this.getValue().length < 4 ? Float.NaN : Float.intBitsToFloat(getValueAs32bitInt());
+        return this.valueLength < 4 ? Float.NaN : Float.intBitsToFloat(getValueAs32bitInt());
     }
 
     /**
@@ -342,7 +340,7 @@ public float getValueAsFloat() {
      * @return the value as a double
      */
     public double getValueAsDouble() {
-        return this.getValue().length < 8 ?
+        return this.valueLength < 8 ?
                 Double.NaN :
                 Double.longBitsToDouble(getValueAs64bitLong());
     }
@@ -356,89 +354,50 @@ public double getValueAsDouble() {
      *                                      given encoding
      */
     public String getValueAsString(final String charsetName) throws UnsupportedEncodingException {
+        if (this.bytes.hasArray()) {
+            return new String(this.bytes.array(),
+                    this.bytes.arrayOffset() + this.valueOffset,
+                    this.valueLength,
+                    charsetName);
+        }
         return new String(getValue(), charsetName);
     }
 
     /**
-     * Sets the key according to the key found in the byte array
-     * and of the given length. If <tt>keyLength</tt> is different
-     * than what was previously set for this KLV, then this KLV's
-     * key length parameter will be updated.
-     *
-     * @param inTheseBytes The byte array containing the key (and other stuff)
-     * @param offset       The offset where to look for the key
-     * @param keyLength    The length of the key
-     * @return <tt>this</tt> to aid in stringing together commands
-     * @throws IndexOutOfBoundsException If offset is invalid
+     * Returns up to the first <tt>maxBytes</tt> bytes of the value, big endian,
+     * in the low bytes of a long.
      */
-    private Klv setKey(final byte[] inTheseBytes, final int offset, final KeyLength keyLength) {
-        Preconditions.checkElementIndex(offset,
-                inTheseBytes.length,
-                String.format("Offset %d is out of range (byte array length: %d).",
-                        offset,
-                        inTheseBytes.length));
-
-        final int remaining = inTheseBytes.length - offset;
-        checkEnoughBytesRemaining(remaining,
-                keyLength.value(),
-                String.format("Not enough bytes for %d-byte key.", keyLength.value()));
-
-        // Set key according to length of key
-        this.keyLength = keyLength;
-        switch (keyLength) {
-        case OneByte:
-            this.keyIfShort = inTheseBytes[offset] & 0xFF;
-            this.keyIfLong = null;
-            break;
-
-        case TwoBytes:
-            this.keyIfShort = (inTheseBytes[offset] & 0xFF) << 8;
-            this.keyIfShort |= inTheseBytes[offset + 1] & 0xFF;
-            this.keyIfLong = null;
-            break;
-
-        case FourBytes:
-            this.keyIfShort = (inTheseBytes[offset] & 0xFF) << 24;
-            this.keyIfShort |= (inTheseBytes[offset + 1] & 0xFF) << 16;
-            this.keyIfShort |= (inTheseBytes[offset + 2] & 0xFF) << 8;
-            this.keyIfShort |= inTheseBytes[offset + 3] & 0xFF;
-            this.keyIfLong = null;
-            break;
+    private long getValueAsUnsignedBits(final int maxBytes) {
+        final int length = this.valueLength < maxBytes ? this.valueLength : maxBytes;
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (this.bytes.get(this.valueOffset + i) & 0xFF);
+        }
+        return value;
+    }
 
-        case SixteenBytes:
-            this.keyIfLong = new byte[16];
-            System.arraycopy(inTheseBytes, offset, this.keyIfLong, 0, 16);
-            this.keyIfShort = 0;
-            break;
+    private byte[] copyOf(final int offset, final int length) {
+        final byte[] copy = new byte[length];
+        for (int i = 0; i < length; i++) {
+            copy[i] = this.bytes.get(offset + i);
         }
-        return this;
+        return copy;
     }
 
     /**
-     * Sets the length according to the length found in the byte array
-     * and of the given length encoding.
-     * If <tt>lengthEncoding</tt> is different
-     * than what was previously set for this KLV, then this KLV's
-     * length encoding parameter will be updated.
-     * An array of the appropriate length will be initialized.
+     * Reads the length field that begins at the given offset according to
+     * the length encoding of this KLV and records it as the value length.
      *
-     * @param inTheseBytes   The byte array containing the key (and other stuff)
-     * @param offset         The offset where to look for the key
-     * @param lengthEncoding The length of the key
+     * @param inTheseBytes The buffer containing the length field (and other stuff)
+     * @param offset       The offset where to look for the length field
+     * @param limit        The index after the last byte that may be read
      * @return Offset where value field would begin after length
-     * @throws IndexOutOfBoundsException If offset is invalid
+     * @throws IndexOutOfBoundsException If there are not enough bytes for the length field
      */
-    private int setLength(final byte[] inTheseBytes, final int offset,
-            final LengthEncoding lengthEncoding) {
-        Preconditions.checkElementIndex(offset,
-                inTheseBytes.length,
-                String.format("Offset %d is out of range (byte array length: %d).",
-                        offset,
-                        inTheseBytes.length));
-
-        int length = 0;
+    private int readLength(final ByteBuffer inTheseBytes, final int offset, final int limit) {
+        long length = 0;
         int valueOffset = 0;
-        final int remaining = inTheseBytes.length - offset;
+        final int remaining = limit - offset;
         final String lengthEncodingErrorMessage = String.format(
                 "Not enough bytes for %s length encoding.",
                 lengthEncoding);
@@ -447,28 +406,21 @@ private int setLength(final byte[] inTheseBytes, final int offset,
         case OneByte:
             checkEnoughBytesRemaining(remaining, 1, lengthEncodingErrorMessage);
 
-            length = inTheseBytes[offset] & 0xFF;
-            setLength(length, lengthEncoding);
+            length = inTheseBytes.get(offset) & 0xFF;
             valueOffset = offset + 1;
             break;
 
         case TwoBytes:
             checkEnoughBytesRemaining(remaining, 2, lengthEncodingErrorMessage);
 
-            length = (inTheseBytes[offset] & 0xFF) << 8;
-            length |= inTheseBytes[offset + 1] & 0xFF;
-            setLength(length, lengthEncoding);
+            length = readUnsigned(inTheseBytes, offset, 2);
             valueOffset = offset + 2;
             break;
 
         case FourBytes:
             checkEnoughBytesRemaining(remaining, 4, lengthEncodingErrorMessage);
 
-            length = (inTheseBytes[offset] & 0xFF) << 24;
-            length |= (inTheseBytes[offset + 1] & 0xFF) << 16;
-            length |= (inTheseBytes[offset + 2] & 0xFF) << 8;
-            length |= inTheseBytes[offset + 3] & 0xFF;
-            setLength(length, lengthEncoding);
+            length = readUnsigned(inTheseBytes, offset, 4);
             valueOffset = offset + 4;
             break;
 
@@ -483,50 +435,42 @@ private int setLength(final byte[] inTheseBytes, final int offset,
             // is not supported in this code, though it's not
             // exactly illegal KLV notation either.
             checkEnoughBytesRemaining(remaining, 1, lengthEncodingErrorMessage);
-            final int ber = inTheseBytes[offset] & 0xFF;
+            final int ber = inTheseBytes.get(offset) & 0xFF;
 
             // Easy case: low seven bits is length
             if ((ber & 0x80) == 0) {
-                setLength(ber, lengthEncoding);
+                length = ber;
                 valueOffset = offset + 1;
             } else {
                 final int following = ber & 0x7F; // Low seven bits
                 checkEnoughBytesRemaining(remaining, following + 1, lengthEncodingErrorMessage);
 
-                for (int i = 0; i < following; i++) {
-                    length |= (inTheseBytes[offset + 1 + i] & 0xFF) << (following - 1 - i) * 8;
-                }
-                setLength(length, lengthEncoding);
+                length = readUnsigned(inTheseBytes, offset + 1, following);
                 valueOffset = offset + 1 + following;
             }
             break;
         }
 
+        // Lengths are read as unsigned, so anything that doesn't fit in an
+        // int can't be satisfied by the bytes remaining either.
+        this.valueLength = (int) Math.min(length, Integer.MAX_VALUE);
         return valueOffset;
     }
 
-    /**
-     * Sets the length of the value, copying or truncating the old value
-     * as appropriate for the new length.
-     *
-     * @param length         The new number of bytes in the Value
-     * @param lengthEncoding The length encoding to use
-     * @return <tt>this</tt> to aid in stringing commands together
-     */
-    private Klv setLength(final int length, final LengthEncoding lengthEncoding) {
-        // Copy old value
-        final byte[] bytes = new byte[length];
-        if (this.value != null) {
-            System.arraycopy(value, 0, bytes, 0, Math.min(length, this.value.length));
+    private static long readUnsigned(final ByteBuffer inTheseBytes, final int offset,
+            final int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 8) | (inTheseBytes.get(offset + i) & 0xFF);
         }
-        this.value = bytes;
-
-        return this;
+        return value;
     }
 
     /**
      * Returns a list of KLV sets in the supplied byte array
      * assuming the provided key length and length field encoding.
+     * The KLV sets share the supplied byte array rather than
+     * copying it.
      *
      * @param bytes          The byte array to parse
      * @param offset         Where to start parsing
@@ -539,11 +483,10 @@ public static List<Klv> bytesToList(final byte[] bytes, final int offset, final
             final KeyLength keyLength, LengthEncoding lengthEncoding) {
         final List<Klv> list = new LinkedList<>();
 
-        int currentPos = offset;
-        while (currentPos < offset + length) {
-            final Klv klv = new Klv(bytes, currentPos, keyLength, lengthEncoding);
-            currentPos = klv.offsetAfterInstantiation;
-            list.add(klv);
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(offset);
+        while (buffer.position() < offset + length) {
+            list.add(new Klv(keyLength, lengthEncoding).read(buffer));
         }
 
         return list;
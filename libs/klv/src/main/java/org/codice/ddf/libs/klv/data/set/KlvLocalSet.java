@@ -17,6 +17,7 @@
 import org.codice.ddf.libs.klv.KlvDataElement;
 import org.codice.ddf.libs.klv.KlvDecoder;
 import org.codice.ddf.libs.klv.KlvDecodingException;
+import org.codice.ddf.libs.klv.KlvHandler;
 import org.codice.ddf.libs.klv.data.Klv;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +30,8 @@ public class KlvLocalSet extends KlvDataElement<KlvContext> {
 
     private final KlvContext localSetKlvContext;
 
+    private KlvDecoder localSetDecoder;
+
     /**
      * Constructs a {@code KlvLocalSet} whose value is a chain of KLV data elements.
      *
@@ -45,10 +48,27 @@ public KlvLocalSet(final byte[] key, final String name, final KlvContext localSe
     @Override
     protected void decodeValue(final Klv klv) {
         try {
-            value = new KlvDecoder(localSetKlvContext).decode(klv.getValue());
+            value = new KlvDecoder(localSetKlvContext).decode(klv.getValueAsByteBuffer());
+        } catch (KlvDecodingException e) {
+            LOGGER.debug("Couldn't decode the KLV local set named {}", name, e);
+        }
+    }
+
+    @Override
+    protected void decodeValue(final Klv klv, final KlvHandler handler) {
+        // The decoder, and the data elements it reuses, belong to this copy of the local set and
+        // live as long as the KlvDecoder that made the copy.
+        if (localSetDecoder == null) {
+            localSetDecoder = new KlvDecoder(localSetKlvContext);
+        }
+
+        handler.startLocalSet(this);
+        try {
+            localSetDecoder.decode(klv.getValueAsByteBuffer(), handler);
         } catch (KlvDecodingException e) {
             LOGGER.debug("Couldn't decode the KLV local set named {}", name, e);
         }
+        handler.endLocalSet(this);
     }
 
     @Override
@@ -16,7 +16,6 @@
 import static org.codice.ddf.libs.klv.data.Klv.KeyLength;
 import static org.codice.ddf.libs.klv.data.Klv.LengthEncoding;
 import static org.hamcrest.CoreMatchers.is;
-import static org.hamcrest.Matchers.hasKey;
 import static org.junit.Assert.assertThat;
 
 import java.util.Collection;
@@ -51,16 +50,15 @@ private void verifyKLVContextDataElements(final KlvContext klvContext,
             final KlvDataElement... dataElements) {
         assertThat(klvContext.getDataElements()
                 .size(), is(dataElements.length));
-        assertThat(klvContext.getKeyToDataElementMap()
+        assertThat(klvContext.getKeyToDataElementTrie()
                 .size(), is(dataElements.length));
 
         for (final KlvDataElement dataElement : dataElements) {
             assertThat(klvContext.hasDataElement(dataElement.getName()), is(true));
             assertThat(klvContext.getDataElementByName(dataElement.getName()), is(dataElement));
 
-            assertThat(klvContext.getKeyToDataElementMap(), hasKey(dataElement.getKeyAsString()));
-            assertThat(klvContext.getKeyToDataElementMap()
-                    .get(dataElement.getKeyAsString()), is(dataElement));
+            assertThat(klvContext.getKeyToDataElementTrie()
+                    .get(dataElement.getKey()), is(dataElement));
         }
     }
 
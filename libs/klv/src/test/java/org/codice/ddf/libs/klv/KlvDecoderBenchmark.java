@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.klv;
+
+import static org.codice.ddf.libs.klv.data.Klv.KeyLength;
+import static org.codice.ddf.libs.klv.data.Klv.LengthEncoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.codice.ddf.libs.klv.data.numerical.KlvByte;
+import org.codice.ddf.libs.klv.data.numerical.KlvInt;
+import org.codice.ddf.libs.klv.data.numerical.KlvIntegerEncodedFloatingPoint;
+import org.codice.ddf.libs.klv.data.numerical.KlvLong;
+import org.codice.ddf.libs.klv.data.numerical.KlvShort;
+import org.codice.ddf.libs.klv.data.numerical.KlvUnsignedByte;
+import org.codice.ddf.libs.klv.data.numerical.KlvUnsignedShort;
+import org.codice.ddf.libs.klv.data.set.KlvLocalSet;
+import org.codice.ddf.libs.klv.data.text.KlvString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures decoding a UAS Datalink Local Set (MISB ST 0601), the metadata packet found in full
+ * motion video, into a new {@link KlvContext} and through a {@link KlvHandler}. Benchmarks are
+ * not run as part of the build; run them through {@link #main(String[])} with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class KlvDecoderBenchmark {
+
+    private static final byte[] UAS_DATALINK_LOCAL_SET_UNIVERSAL_KEY =
+            {0x06, 0x0E, 0x2B, 0x34, 0x02, 0x0B, 0x01, 0x01, 0x0E, 0x01, 0x03, 0x01, 0x01, 0x00,
+                    0x00, 0x00};
+
+    private byte[] klvBytes;
+
+    private ByteBuffer klvBuffer;
+
+    private KlvDecoder decoder;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream inputStream = getClass().getClassLoader()
+                .getResourceAsStream("testKLV.klv")) {
+            klvBytes = IOUtils.toByteArray(inputStream);
+        }
+        klvBuffer = ByteBuffer.wrap(klvBytes);
+        decoder = new KlvDecoder(getUasDatalinkContext());
+    }
+
+    @Benchmark
+    public KlvContext decodeBytes() throws KlvDecodingException {
+        return decoder.decode(klvBytes);
+    }
+
+    @Benchmark
+    public KlvContext decodeBuffer() throws KlvDecodingException {
+        return decoder.decode(klvBuffer);
+    }
+
+    @Benchmark
+    public void decodeBufferWithHandler(final Blackhole blackhole) throws KlvDecodingException {
+        decoder.decode(klvBuffer, dataElement -> blackhole.consume(dataElement.getValue()));
+    }
+
+    private static KlvContext getUasDatalinkContext() {
+        final List<KlvDataElement> dataElements = Arrays.asList(
+                new KlvUnsignedShort(new byte[] {0x01}, "checksum"),
+                new KlvLong(new byte[] {0x02}, "timestamp"),
+                new KlvIntegerEncodedFloatingPoint(new KlvUnsignedShort(new byte[] {0x05},
+                        "platform heading angle"), 0, 65535, 0, 360),
+                new KlvIntegerEncodedFloatingPoint(new KlvShort(new byte[] {0x06},
+                        "platform pitch angle"), -32767, 32767, -20, 20),
+                new KlvIntegerEncodedFloatingPoint(new KlvShort(new byte[] {0x07},
+                        "platform roll angle"), -32767, 32767, -50, 50),
+                new KlvString(new byte[] {0x0b}, "image source sensor"),
+                new KlvString(new byte[] {0x0c}, "image coordinate system"),
+                new KlvIntegerEncodedFloatingPoint(new KlvInt(new byte[] {0x0d},
+                        "sensor latitude"), -2147483647, 2147483647, -90, 90),
+                new KlvIntegerEncodedFloatingPoint(new KlvInt(new byte[] {0x0e},
+                        "sensor longitude"), -2147483647, 2147483647, -180, 180),
+                new KlvIntegerEncodedFloatingPoint(new KlvUnsignedShort(new byte[] {0x0f},
+                        "sensor true altitude"), 0, 65535, -900, 19000),
+                new KlvUnsignedShort(new byte[] {0x10}, "sensor horizontal fov"),
+                new KlvUnsignedShort(new byte[] {0x11}, "sensor vertical fov"),
+                new KlvLong(new byte[] {0x12}, "sensor relative azimuth angle"),
+                new KlvInt(new byte[] {0x13}, "sensor relative elevation angle"),
+                new KlvLong(new byte[] {0x14}, "sensor relative roll angle"),
+                new KlvLong(new byte[] {0x15}, "slant range"),
+                new KlvInt(new byte[] {0x16}, "target width"),
+                new KlvIntegerEncodedFloatingPoint(new KlvInt(new byte[] {0x17},
+                        "frame center latitude"), -2147483647, 2147483647, -90, 90),
+                new KlvIntegerEncodedFloatingPoint(new KlvInt(new byte[] {0x18},
+                        "frame center longitude"), -2147483647, 2147483647, -180, 180),
+                new KlvUnsignedShort(new byte[] {0x19}, "frame center elevation"),
+                new KlvInt(new byte[] {0x28}, "target location latitude"),
+                new KlvInt(new byte[] {0x29}, "target location longitude"),
+                new KlvUnsignedShort(new byte[] {0x2a}, "target location elevation"),
+                new KlvUnsignedByte(new byte[] {0x38}, "platform ground speed"),
+                new KlvLong(new byte[] {0x39}, "ground range"),
+                new KlvByte(new byte[] {0x41}, "UAS LS version number"));
+
+        final KlvContext localSetContext = new KlvContext(KeyLength.OneByte,
+                LengthEncoding.OneByte,
+                dataElements);
+
+        return new KlvContext(KeyLength.SixteenBytes,
+                LengthEncoding.BER,
+                Collections.singleton(new KlvLocalSet(UAS_DATALINK_LOCAL_SET_UNIVERSAL_KEY,
+                        "UAS Datalink Local Set Universal Key",
+                        localSetContext)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(KlvDecoderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
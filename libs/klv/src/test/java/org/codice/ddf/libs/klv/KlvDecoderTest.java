@@ -26,12 +26,16 @@
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -221,6 +225,109 @@ public void testKLVSet() throws Exception {
         });
     }
 
+    @Test
+    public void testKLVSetFromDirectBuffer() throws Exception {
+        final byte[] klvBytes = getTestKlvBytes();
+        final ByteBuffer klvBuffer = ByteBuffer.allocateDirect(klvBytes.length);
+        klvBuffer.put(klvBytes)
+                .flip();
+
+        final KlvContext decodedContext = new KlvDecoder(getKLVContext(DATA_ELEMENTS)).decode(
+                klvBuffer);
+
+        assertThat(klvBuffer.position(), is(0));
+        final KlvContext localSet = ((KlvLocalSet) decodedContext.getDataElementByName(
+                UAS_DATALINK_LOCAL_SET_UNIVERSAL_KEY)).getValue();
+        assertThat(localSet.getDataElements()
+                .size(), is(DATA_ELEMENTS.size()));
+        localSet.getDataElements()
+                .forEach((name, dataElement) -> assertThat(name,
+                        dataElement.getValue(),
+                        is(EXPECTED_VALUES.get(name))));
+    }
+
+    @Test
+    public void testKLVSetWithHandler() throws Exception {
+        final ByteBuffer klvBuffer = ByteBuffer.wrap(getTestKlvBytes());
+        final KlvDecoder decoder = new KlvDecoder(getKLVContext(DATA_ELEMENTS));
+        final RecordingHandler firstHandler = new RecordingHandler();
+
+        decoder.decode(klvBuffer, firstHandler);
+
+        assertThat(firstHandler.localSets,
+                is(Arrays.asList("start " + UAS_DATALINK_LOCAL_SET_UNIVERSAL_KEY,
+                        "end " + UAS_DATALINK_LOCAL_SET_UNIVERSAL_KEY)));
+        assertThat(firstHandler.values, is(EXPECTED_VALUES));
+
+        // The second decode reuses the data elements of the first
+        final RecordingHandler secondHandler = new RecordingHandler();
+        decoder.decode(klvBuffer, secondHandler);
+
+        assertThat(secondHandler.values, is(EXPECTED_VALUES));
+        assertThat(secondHandler.dataElements, is(firstHandler.dataElements));
+    }
+
+    @Test
+    public void testHandlerSkipsUnknownKeys() throws KlvDecodingException {
+        final KlvContext klvContext = new KlvContext(KeyLength.TwoBytes, LengthEncoding.OneByte);
+        klvContext.addDataElement(new KlvUnsignedByte(new byte[] {1, 2}, "known"));
+        // A key that shares its first byte with the known key but isn't known
+        final byte[] klvBytes = {1, 3, 1, 7, 1, 2, 1, 9};
+        final RecordingHandler handler = new RecordingHandler();
+
+        new KlvDecoder(klvContext).decode(ByteBuffer.wrap(klvBytes), handler);
+
+        assertThat(handler.values, is(Collections.singletonMap("known", (short) 9)));
+    }
+
+    @Test
+    public void testHandlerMissingBytes() {
+        final KlvContext klvContext = new KlvContext(KeyLength.OneByte, LengthEncoding.OneByte);
+        klvContext.addDataElement(new KlvUnsignedByte(new byte[] {1}, "first"));
+        klvContext.addDataElement(new KlvInt(new byte[] {2}, "second"));
+        final byte[] klvBytes = {1, 1, 5, 2, 4, 0, 0};
+        final RecordingHandler handler = new RecordingHandler();
+
+        try {
+            new KlvDecoder(klvContext).decode(ByteBuffer.wrap(klvBytes), handler);
+            fail("Should have thrown a KlvDecodingException.");
+        } catch (KlvDecodingException e) {
+            assertThat(e.getCause(), instanceOf(IndexOutOfBoundsException.class));
+        }
+        assertThat(handler.values, is(Collections.singletonMap("first", (short) 5)));
+    }
+
+    private byte[] getTestKlvBytes() throws IOException {
+        try (final InputStream inputStream = getClass().getClassLoader()
+                .getResourceAsStream("testKLV.klv")) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    private static class RecordingHandler implements KlvHandler {
+        private final Map<String, Object> values = new HashMap<>();
+
+        private final Set<KlvDataElement> dataElements = new HashSet<>();
+
+        private final List<String> localSets = new ArrayList<>();
+
+        @Override
+        public void handle(final KlvDataElement dataElement) {
+            values.put(dataElement.getName(), dataElement.getValue());
+            dataElements.add(dataElement);
+        }
+
+        @Override
+        public void startLocalSet(final KlvLocalSet localSet) {
+            localSets.add("start " + localSet.getName());
+        }
+
+        @Override
+        public void endLocalSet(final KlvLocalSet localSet) {
+            localSets.add("end " + localSet.getName());
+        }
+    }
+
     private KlvContext decodeKLV(final KeyLength keyLength, final LengthEncoding lengthEncoding,
             final KlvDataElement dataElement, final byte[] encodedBytes)
             throws KlvDecodingException {
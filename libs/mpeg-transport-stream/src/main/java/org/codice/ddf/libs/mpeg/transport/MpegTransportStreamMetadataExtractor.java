@@ -13,6 +13,7 @@
  */
 package org.codice.ddf.libs.mpeg.transport;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -23,7 +24,6 @@
 import java.util.function.BiConsumer;
 
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.jcodec.api.JCodecException;
 import org.jcodec.containers.mps.MTSUtils.StreamType;
 import org.jcodec.containers.mps.psi.PMTSection;
@@ -53,7 +53,8 @@ public class MpegTransportStreamMetadataExtractor {
 
     private final Map<Integer, PMTStream> programElementaryStreams = new HashMap<>();
 
-    private final Map<Integer, byte[]> currentMetadataPacketBytesByStream = new HashMap<>();
+    private final Map<Integer, MetadataPacketBuffer> currentMetadataPacketBytesByStream =
+            new HashMap<>();
 
     /**
      * Constructs an {@code MpegTransportStreamMetadataExtractor} with the given {@link ByteSource}
@@ -77,6 +78,32 @@ public MpegTransportStreamMetadataExtractor(final ByteSource byteSource) {
      * @throws Exception if an error occurs while parsing the transport stream
      */
     public void getMetadata(final BiConsumer<Integer, byte[]> callback) throws Exception {
+        getMetadataBuffers((streamId, metadataPacket) -> {
+            final byte[] metadataPacketBytes = new byte[metadataPacket.remaining()];
+            metadataPacket.get(metadataPacketBytes);
+            callback.accept(streamId, metadataPacketBytes);
+        });
+    }
+
+    /**
+     * Parses the transport stream and calls the given callback for each metadata packet in each
+     * metadata stream found in the transport stream, as {@link #getMetadata(BiConsumer)} does,
+     * but without copying the metadata packet's payload.
+     * <p>
+     * The payload is passed as a {@link ByteBuffer} whose position is the start of the payload and
+     * whose limit is the end of the payload. The buffer shares its bytes with a buffer that is
+     * reused for the next metadata packet of the same stream, so it is only valid until the
+     * callback returns. This makes it possible to decode the metadata packets as the transport
+     * stream is read without copying or collecting them.
+     *
+     * @param callback a callback that will be called for each metadata packet in each metadata
+     *                 stream found in the transport stream, where the first parameter is the packet
+     *                 ID of the metadata stream and the second parameter is the metadata packet's
+     *                 payload
+     * @throws Exception if an error occurs while parsing the transport stream
+     */
+    public void getMetadataBuffers(final BiConsumer<Integer, ByteBuffer> callback)
+            throws Exception {
         extractTransportStreamMetadata(callback);
     }
 
@@ -103,7 +130,7 @@ public Map<Integer, List<byte[]>> getMetadata() throws Exception {
         return metadataPacketsByStream;
     }
 
-    private void extractTransportStreamMetadata(final BiConsumer<Integer, byte[]> callback)
+    private void extractTransportStreamMetadata(final BiConsumer<Integer, ByteBuffer> callback)
             throws Exception {
         final ResettableMTSSource source = MTSSources.from(byteSource);
 
@@ -208,38 +235,30 @@ private boolean isElementaryStreamPacket(final int packetId) {
         return packetId != 0 && !programMapTablePacketIdDirectory.contains(packetId);
     }
 
-    private byte[] getByteBufferAsBytes(final ByteBuffer buffer) {
-        final byte[] bytes = new byte[buffer.remaining()];
-        buffer.get(bytes);
-        return bytes;
-    }
-
     private void handleElementaryStreamPacket(final MTSPacket packet, final int packetId,
-            final BiConsumer<Integer, byte[]> callback) {
+            final BiConsumer<Integer, ByteBuffer> callback) {
         if (programElementaryStreams.containsKey(packetId)) {
             final PMTStream stream = programElementaryStreams.get(packetId);
 
             if (isMetadataStream(stream)) {
-                final byte[] currentMetadataPacketBytes = currentMetadataPacketBytesByStream.get(
-                        packetId);
+                final MetadataPacketBuffer currentMetadataPacketBytes =
+                        currentMetadataPacketBytesByStream.get(packetId);
 
                 final boolean startingNewMetadataPacket = packet.isPayloadUnitStartIndicator();
                 final boolean currentMetadataPacketToHandle = currentMetadataPacketBytes != null;
                 final boolean reachedEndOfCurrentMetadataPacket =
                         startingNewMetadataPacket && currentMetadataPacketToHandle;
 
-                final byte[] payloadBytes = getByteBufferAsBytes(packet.getPayload());
+                final ByteBuffer payload = packet.getPayload();
 
                 if (reachedEndOfCurrentMetadataPacket) {
-                    callback.accept(packetId, currentMetadataPacketBytes);
-                    startNewMetadataPacketBytes(packetId, payloadBytes);
+                    callback.accept(packetId, currentMetadataPacketBytes.asByteBuffer());
+                    currentMetadataPacketBytes.reset();
+                    currentMetadataPacketBytes.write(payload);
                 } else if (startingNewMetadataPacket) {
-                    startNewMetadataPacketBytes(packetId, payloadBytes);
+                    startNewMetadataPacketBytes(packetId, payload);
                 } else if (currentMetadataPacketToHandle) {
-                    final byte[] concatenatedMetadataPacket = ArrayUtils.addAll(
-                            currentMetadataPacketBytes,
-                            payloadBytes);
-                    currentMetadataPacketBytesByStream.put(packetId, concatenatedMetadataPacket);
+                    currentMetadataPacketBytes.write(payload);
                 }
             }
         }
@@ -257,8 +276,11 @@ private boolean isMetadataStream(final PMTStream stream) {
         return isPrivateDataStream(stream) || isMetadataPesStream(stream);
     }
 
-    private void startNewMetadataPacketBytes(final int packetId, final byte[] newMetadataBytes) {
-        currentMetadataPacketBytesByStream.put(packetId, newMetadataBytes);
+    private void startNewMetadataPacketBytes(final int packetId,
+            final ByteBuffer newMetadataBytes) {
+        final MetadataPacketBuffer metadataPacketBytes = new MetadataPacketBuffer();
+        metadataPacketBytes.write(newMetadataBytes);
+        currentMetadataPacketBytesByStream.put(packetId, metadataPacketBytes);
     }
 
     /*
@@ -269,7 +291,31 @@ private void startNewMetadataPacketBytes(final int packetId, final byte[] newMet
      * This means that the last metadata packet for each stream won't be handled during the pass
      * over the transport stream and they will need to be handled separately.
      */
-    private void handleLastPacketOfEachStream(final BiConsumer<Integer, byte[]> callback) {
-        currentMetadataPacketBytesByStream.forEach(callback);
+    private void handleLastPacketOfEachStream(final BiConsumer<Integer, ByteBuffer> callback) {
+        currentMetadataPacketBytesByStream.forEach((packetId, metadataPacketBytes) ->
+                callback.accept(packetId, metadataPacketBytes.asByteBuffer()));
+    }
+
+    /**
+     * Collects the payloads of the transport stream packets that make up a metadata packet. The
+     * buffer is reused for each metadata packet of a stream, so it only grows until it can hold
+     * the largest metadata packet in the stream.
+     */
+    private static class MetadataPacketBuffer extends ByteArrayOutputStream {
+        private void write(final ByteBuffer payload) {
+            if (payload.hasArray()) {
+                write(payload.array(),
+                        payload.arrayOffset() + payload.position(),
+                        payload.remaining());
+            } else {
+                while (payload.hasRemaining()) {
+                    write(payload.get());
+                }
+            }
+        }
+
+        private ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
     }
 }
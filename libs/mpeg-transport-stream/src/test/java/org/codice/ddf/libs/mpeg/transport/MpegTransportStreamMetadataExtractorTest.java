@@ -22,6 +22,7 @@
 import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -74,6 +75,22 @@ public void testExtractAll() throws Exception {
         verifyExtractedBytes(metadataStreams.get(497));
     }
 
+    @Test
+    public void testExtractBuffers() throws Exception {
+        final MpegTransportStreamMetadataExtractor extractor = getExtractor();
+
+        // The buffers are only valid during the callback, so copy them.
+        final List<byte[]> metadataPackets = new ArrayList<>();
+        extractor.getMetadataBuffers((packetId, metadataPacket) -> {
+            assertThat(packetId, is(497));
+            final byte[] metadataPacketBytes = new byte[metadataPacket.remaining()];
+            metadataPacket.get(metadataPacketBytes);
+            metadataPackets.add(metadataPacketBytes);
+        });
+
+        verifyExtractedBytes(metadataPackets);
+    }
+
     private void verifyExtractedBytes(final List<byte[]> metadataPackets) {
         assertThat(metadataPackets.size(), is(12));
 
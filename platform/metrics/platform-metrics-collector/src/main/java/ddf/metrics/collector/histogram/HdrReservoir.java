@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector.histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+/**
+ * A {@link Reservoir} that counts the values recorded in a recent time window in fixed buckets,
+ * the way HdrHistogram does, instead of keeping every value like
+ * {@link com.codahale.metrics.SlidingTimeWindowReservoir}. Its memory use does not grow with the
+ * number of values recorded, and recording a value only increments a few counters, so it never
+ * blocks or allocates.
+ * <p>
+ * Values below 16 have a bucket each; larger values are split into 16 buckets per power of two,
+ * so the percentiles of a {@link Snapshot} are within about 3% of the recorded values. The mean,
+ * minimum and maximum are exact. Values up to 2<sup>44</sup>, about 4.9 hours in nanoseconds, are
+ * told apart; larger values are counted in the last bucket.
+ * <p>
+ * The window is divided into slots that are reused as time passes, so a snapshot covers between
+ * the last three quarters of the window and all of it. Values recorded at the instant a slot is
+ * reused may be lost.
+ */
+public class HdrReservoir implements Reservoir {
+
+    static final int SUB_BUCKET_BITS = 4;
+
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    static final int MAX_EXPONENT = 44;
+
+    static final int BUCKET_COUNT =
+            SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private static final int DEFAULT_SLOTS = 4;
+
+    private final Slot[] slots;
+
+    private final long slotNanos;
+
+    private final Clock clock;
+
+    /**
+     * Creates a reservoir of the values recorded in the last minute.
+     */
+    public HdrReservoir() {
+        this(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Creates a reservoir of the values recorded in the given window.
+     */
+    public HdrReservoir(long window, TimeUnit windowUnit) {
+        this(window, windowUnit, DEFAULT_SLOTS, Clock.defaultClock());
+    }
+
+    HdrReservoir(long window, TimeUnit windowUnit, int slotCount, Clock clock) {
+        if (window <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("Window and slot count must be positive.");
+        }
+        this.slotNanos = Math.max(1, windowUnit.toNanos(window) / slotCount);
+        this.clock = clock;
+        this.slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    @Override
+    public int size() {
+        long epoch = currentEpoch();
+        long count = 0;
+        for (Slot slot : slots) {
+            if (slot.isInWindow(epoch, slots.length)) {
+                count += slot.count.sum();
+            }
+        }
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void update(long value) {
+        long epoch = currentEpoch();
+        Slot slot = slots[(int) (epoch % slots.length)];
+        slot.rollTo(epoch);
+        slot.record(value);
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        long epoch = currentEpoch();
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (Slot slot : slots) {
+            if (!slot.isInWindow(epoch, slots.length)) {
+                continue;
+            }
+            long slotCount = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                int bucketCount = slot.counts.get(i);
+                counts[i] += bucketCount;
+                slotCount += bucketCount;
+            }
+            if (slotCount > 0) {
+                count += slotCount;
+                sum += slot.sum.sum();
+                min = Math.min(min, slot.min.get());
+                max = Math.max(max, slot.max.get());
+            }
+        }
+        return new HdrSnapshot(counts, count, sum, min, max);
+    }
+
+    private long currentEpoch() {
+        return clock.getTick() / slotNanos;
+    }
+
+    /**
+     * @return the index of the bucket the given value is counted in
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) Math.max(value, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return the smallest value counted in the bucket with the given index
+     */
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+    }
+
+    /**
+     * @return the value reported for the values counted in the bucket with the given index, the
+     * middle of the bucket
+     */
+    static long bucketValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        return bucketLowerBound(index) + ((1L << shift) >>> 1);
+    }
+
+    /**
+     * The values recorded in one slot of the window.
+     */
+    private static class Slot {
+
+        private final AtomicLong epoch = new AtomicLong(-1);
+
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(BUCKET_COUNT);
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder sum = new LongAdder();
+
+        private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+        private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        boolean isInWindow(long currentEpoch, int slotCount) {
+            long slotEpoch = epoch.get();
+            return slotEpoch <= currentEpoch && slotEpoch > currentEpoch - slotCount;
+        }
+
+        void rollTo(long newEpoch) {
+            long slotEpoch = epoch.get();
+            // Only the thread that moves the slot to the new epoch clears it
+            if (slotEpoch < newEpoch && epoch.compareAndSet(slotEpoch, newEpoch)) {
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    counts.set(i, 0);
+                }
+                count.reset();
+                sum.reset();
+                min.reset();
+                max.reset();
+            }
+        }
+
+        void record(long value) {
+            counts.incrementAndGet(bucketIndex(value));
+            count.increment();
+            sum.add(value);
+            min.accumulate(value);
+            max.accumulate(value);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector.histogram;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import com.codahale.metrics.Snapshot;
+
+/**
+ * A {@link Snapshot} of the bucket counts of an {@link HdrReservoir}. Percentiles are the value
+ * of the bucket holding the value at that rank, bounded by the exact minimum and maximum.
+ */
+class HdrSnapshot extends Snapshot {
+
+    private final long[] counts;
+
+    private final long count;
+
+    private final long sum;
+
+    private final long min;
+
+    private final long max;
+
+    HdrSnapshot(long[] counts, long count, long sum, long min, long max) {
+        this.counts = counts;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    @Override
+    public double getValue(double quantile) {
+        if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+            throw new IllegalArgumentException(quantile + " is not in [0..1]");
+        }
+        if (count == 0) {
+            return 0.0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, HdrReservoir.bucketValue(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns one value per non-empty bucket rather than every value recorded, since the
+     * reservoir only keeps counts.
+     */
+    @Override
+    public long[] getValues() {
+        int size = 0;
+        for (long bucketCount : counts) {
+            if (bucketCount > 0) {
+                size++;
+            }
+        }
+
+        long[] values = new long[size];
+        int index = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                values[index++] = Math.max(min, Math.min(max, HdrReservoir.bucketValue(i)));
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    @Override
+    public double getMean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    @Override
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    @Override
+    public double getStdDev() {
+        if (count <= 1) {
+            return 0.0;
+        }
+
+        double mean = getMean();
+        double variance = 0.0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                double diff = HdrReservoir.bucketValue(i) - mean;
+                variance += counts[i] * diff * diff;
+            }
+        }
+        return Math.sqrt(variance / (count - 1));
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output,
+                StandardCharsets.UTF_8))) {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    out.printf("%d\t%d%n", HdrReservoir.bucketValue(i), counts[i]);
+                }
+            }
+        }
+    }
+}
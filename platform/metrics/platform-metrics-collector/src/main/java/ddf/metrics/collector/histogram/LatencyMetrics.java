@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector.histogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Latency {@link Timer}s backed by {@link HdrReservoir}s, created on first use and keyed by a
+ * dotted name such as {@code query.federation} or {@code csw.GetRecords}. Once started, every
+ * timer is exported as a JMX MBean in the given domain with its count, mean and percentiles in
+ * milliseconds, where the metrics reporting endpoint reads them.
+ */
+public class LatencyMetrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LatencyMetrics.class);
+
+    private final MetricRegistry registry = new MetricRegistry();
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final JmxReporter reporter;
+
+    private final Clock clock;
+
+    /**
+     * @param jmxDomain JMX domain the timers are registered in, e.g.,
+     *                  {@code ddf.metrics.latency.catalog}
+     */
+    public LatencyMetrics(String jmxDomain) {
+        this(jmxDomain, Clock.defaultClock());
+    }
+
+    LatencyMetrics(String jmxDomain, Clock clock) {
+        this.clock = clock;
+        this.reporter = JmxReporter.forRegistry(registry)
+                .inDomain(jmxDomain)
+                .convertDurationsTo(TimeUnit.MILLISECONDS)
+                .convertRatesTo(TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Starts exporting the timers through JMX. Called by blueprint.
+     */
+    public void start() {
+        LOGGER.debug("Starting latency metrics reporter");
+        reporter.start();
+    }
+
+    /**
+     * Stops exporting the timers through JMX. Called by blueprint.
+     */
+    public void stop() {
+        LOGGER.debug("Stopping latency metrics reporter");
+        reporter.stop();
+    }
+
+    /**
+     * Returns the timer with the given name, creating it if it does not exist.
+     *
+     * @param name  first part of the timer's name, e.g., the operation or endpoint
+     * @param names remaining parts of the timer's name, e.g., the stage
+     */
+    public Timer timer(String name, String... names) {
+        return timers.computeIfAbsent(MetricRegistry.name(name, names),
+                key -> registry.register(key, new Timer(new HdrReservoir(), clock)));
+    }
+
+    /**
+     * Starts timing the stages of one execution of an operation.
+     *
+     * @param operation name of the operation, e.g., {@code query}
+     */
+    public StageTimer time(String operation) {
+        return new StageTimer(this, operation, clock);
+    }
+
+    MetricRegistry getRegistry() {
+        return registry;
+    }
+}
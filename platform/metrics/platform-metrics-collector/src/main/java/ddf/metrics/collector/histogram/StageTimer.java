@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector.histogram;
+
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Clock;
+
+/**
+ * Times the stages of one execution of an operation. Each call to {@link #stage(String)} records
+ * the time since the previous stage ended, or since the operation started, in the
+ * {@code <operation>.<stage>} timer, and {@link #stop()} records the time since the operation
+ * started in the {@code <operation>.Total} timer. Not thread safe; use one per execution.
+ */
+public class StageTimer {
+
+    static final String TOTAL = "Total";
+
+    private final LatencyMetrics latencyMetrics;
+
+    private final String operation;
+
+    private final Clock clock;
+
+    private final long start;
+
+    private long lastMark;
+
+    StageTimer(LatencyMetrics latencyMetrics, String operation, Clock clock) {
+        this.latencyMetrics = latencyMetrics;
+        this.operation = operation;
+        this.clock = clock;
+        this.start = clock.getTick();
+        this.lastMark = start;
+    }
+
+    /**
+     * Records the time since the previous stage ended as the latency of the given stage.
+     */
+    public void stage(String stage) {
+        long now = clock.getTick();
+        latencyMetrics.timer(operation, stage)
+                .update(now - lastMark, TimeUnit.NANOSECONDS);
+        lastMark = now;
+    }
+
+    /**
+     * Records the time since the operation started as its total latency.
+     */
+    public void stop() {
+        long now = clock.getTick();
+        latencyMetrics.timer(operation, TOTAL)
+                .update(now - start, TimeUnit.NANOSECONDS);
+        lastMark = now;
+    }
+}
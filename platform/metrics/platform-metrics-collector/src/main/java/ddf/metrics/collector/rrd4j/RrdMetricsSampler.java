@@ -0,0 +1,380 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector.rrd4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+import org.apache.commons.lang.StringUtils;
+import org.rrd4j.ConsolFun;
+import org.rrd4j.DsType;
+import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdDbPool;
+import org.rrd4j.core.RrdDef;
+import org.rrd4j.core.Sample;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.metrics.collector.MetricsUtil;
+
+/**
+ * Samples metrics into RRD files on one shared scheduler thread. Unlike {@link RrdJmxCollector},
+ * which polls a JMX MBean attribute on its own executor, metrics are registered with a
+ * {@link DoubleSupplier} that reads the value straight from the metric, e.g., a Dropwizard
+ * {@code Meter}'s count or a {@code Histogram}'s mean.
+ *
+ * Metrics registered with the same sample rate are sampled together: each sampling pass reads
+ * every metric of that rate with the same timestamp and writes the RRD files one after another.
+ * Sample rates below one minute are supported for metrics, such as latencies, that need a finer
+ * resolution; the rate must divide a minute evenly so that the 15 minute archives line up.
+ *
+ * Registering, unregistering and writing all happen on the scheduler thread, so registering a
+ * metric never blocks the caller on RRD file I/O.
+ *
+ * An existing RRD file whose step differs from the metric's sample rate is moved aside to
+ * {@code <metric>.rrd.<step>s.old} and replaced with a new file, since the step of an RRD file
+ * cannot be changed after it is created.
+ */
+public class RrdMetricsSampler {
+
+    public static final int DEFAULT_SAMPLE_RATE = 60;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RrdMetricsSampler.class);
+
+    private static final int MILLIS_PER_SECOND = 1000;
+
+    private static final int SECONDS_PER_MINUTE = 60;
+
+    private static final int SECONDS_PER_HOUR = 3600;
+
+    private static final int SECONDS_PER_15_MINUTES = 900;
+
+    private static final int HEARTBEAT_SECONDS = 90;
+
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private static final String RETIRED_FILENAME_SUFFIX = "s.old";
+
+    /**
+     * RRD default X-Files factor, see {@link RrdJmxCollector}.
+     */
+    private static final double DEFAULT_XFF_FACTOR = 0.5;
+
+    private static final ConsolFun[] CONSOLIDATION_FUNCTIONS =
+            {ConsolFun.TOTAL, ConsolFun.AVERAGE, ConsolFun.MAX, ConsolFun.MIN};
+
+    private final String metricsDir;
+
+    private final RrdDbPool pool;
+
+    private final ScheduledExecutorService scheduler;
+
+    // Only accessed on the scheduler thread
+    private final Map<Integer, SampleBatch> batches = new HashMap<>();
+
+    // Only accessed on the scheduler thread
+    private final Map<String, SampledMetric> sampledMetrics = new HashMap<>();
+
+    public RrdMetricsSampler() {
+        this(RrdJmxCollector.DEFAULT_METRICS_DIR);
+    }
+
+    RrdMetricsSampler(String metricsDir) {
+        this.metricsDir = metricsDir;
+        this.pool = RrdDbPool.getInstance();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rrdMetricsSampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Registers a metric to be sampled once a minute.
+     *
+     * @see #register(String, String, int, DoubleSupplier)
+     */
+    public void register(String metricName, String dataSourceType, DoubleSupplier value) {
+        register(metricName, dataSourceType, DEFAULT_SAMPLE_RATE, value);
+    }
+
+    /**
+     * Registers a metric to be sampled into the RRD file {@code <metricName>.rrd} in the metrics
+     * directory, replacing any metric already registered with the same name. The RRD file is
+     * created the first time the metric is sampled if it does not already exist.
+     *
+     * @param metricName     name of the RRD file, without its suffix
+     * @param dataSourceType "DERIVE" or "COUNTER" for values that always increment, e.g., a count
+     *                       of queries, or "GAUGE" for values that vary, e.g., a mean latency
+     * @param sampleRate     seconds between samples; must divide one minute evenly
+     * @param value          reads the metric's current value
+     * @throws IllegalArgumentException if the metric name is blank, the data source type is not
+     *                                  supported or the sample rate does not divide one minute
+     */
+    public void register(String metricName, String dataSourceType, int sampleRate,
+            DoubleSupplier value) {
+        if (StringUtils.isBlank(metricName)) {
+            throw new IllegalArgumentException("Metric name must be specified.");
+        }
+        DsType dsType = toDsType(dataSourceType);
+        if (sampleRate <= 0 || SECONDS_PER_MINUTE % sampleRate != 0) {
+            throw new IllegalArgumentException(
+                    "Sample rate of " + sampleRate + " seconds for metric " + metricName
+                            + " must divide one minute evenly.");
+        }
+
+        SampledMetric sampledMetric = new SampledMetric(metricName,
+                dsType,
+                sampleRate,
+                value);
+        LOGGER.debug("Registering metric {} sampled every {} seconds", metricName, sampleRate);
+        execute(() -> {
+            remove(metricName);
+            sampledMetrics.put(metricName, sampledMetric);
+            SampleBatch batch = batches.computeIfAbsent(sampleRate, SampleBatch::new);
+            batch.metrics.put(metricName, sampledMetric);
+        });
+    }
+
+    /**
+     * Stops sampling a metric. The metric's RRD file is kept.
+     *
+     * @param metricName name the metric was registered with
+     */
+    public void unregister(String metricName) {
+        LOGGER.debug("Unregistering metric {}", metricName);
+        execute(() -> remove(metricName));
+    }
+
+    /**
+     * Stops sampling and releases the RRD files of all registered metrics. Called by blueprint.
+     */
+    public void destroy() {
+        LOGGER.trace("ENTERING: destroy");
+
+        execute(() -> {
+            sampledMetrics.values()
+                    .forEach(SampledMetric::close);
+            sampledMetrics.clear();
+            batches.values()
+                    .forEach(batch -> batch.future.cancel(false));
+            batches.clear();
+        });
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread()
+                    .interrupt();
+        }
+
+        LOGGER.trace("EXITING: destroy");
+    }
+
+    private void execute(Runnable task) {
+        try {
+            scheduler.execute(task);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Metrics sampler has been destroyed, ignoring task", e);
+        }
+    }
+
+    private void remove(String metricName) {
+        SampledMetric sampledMetric = sampledMetrics.remove(metricName);
+        if (sampledMetric == null) {
+            return;
+        }
+
+        SampleBatch batch = batches.get(sampledMetric.sampleRate);
+        batch.metrics.remove(metricName);
+        if (batch.metrics.isEmpty()) {
+            batch.future.cancel(false);
+            batches.remove(sampledMetric.sampleRate);
+        }
+        sampledMetric.close();
+    }
+
+    private static DsType toDsType(String dataSourceType) {
+        try {
+            DsType dsType = DsType.valueOf(dataSourceType);
+            if (dsType == DsType.DERIVE || dsType == DsType.COUNTER || dsType == DsType.GAUGE) {
+                return dsType;
+            }
+        } catch (IllegalArgumentException | NullPointerException e) {
+            LOGGER.debug("Unknown data source type {}", dataSourceType, e);
+        }
+        throw new IllegalArgumentException(
+                "Data Source type must be either DERIVE, COUNTER or GAUGE, not " + dataSourceType);
+    }
+
+    /**
+     * The metrics sampled at one sample rate.
+     */
+    private class SampleBatch implements Runnable {
+
+        private final Map<String, SampledMetric> metrics = new LinkedHashMap<>();
+
+        private final ScheduledFuture<?> future;
+
+        SampleBatch(int sampleRate) {
+            future = scheduler.scheduleAtFixedRate(this, 0, sampleRate, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void run() {
+            long now = System.currentTimeMillis() / MILLIS_PER_SECOND;
+            for (SampledMetric sampledMetric : metrics.values()) {
+                sampledMetric.sample(now);
+            }
+        }
+    }
+
+    /**
+     * A metric and the RRD file it is sampled into.
+     */
+    private class SampledMetric {
+
+        private final String metricName;
+
+        private final DsType dsType;
+
+        private final int sampleRate;
+
+        private final DoubleSupplier value;
+
+        private RrdDb rrdDb;
+
+        private Sample sample;
+
+        SampledMetric(String metricName, DsType dsType, int sampleRate, DoubleSupplier value) {
+            this.metricName = metricName;
+            this.dsType = dsType;
+            this.sampleRate = sampleRate;
+            this.value = value;
+        }
+
+        void sample(long now) {
+            try {
+                if (rrdDb == null) {
+                    rrdDb = open();
+                    sample = rrdDb.createSample();
+                }
+
+                // RRD rejects samples that are not newer than the last update
+                if (now <= rrdDb.getLastUpdateTime()) {
+                    LOGGER.debug("Skipping sample of metric {} at {}", metricName, now);
+                    return;
+                }
+
+                double val = value.getAsDouble();
+                LOGGER.trace("Sample time is [{}], updating metric [{}] with value [{}]",
+                        MetricsUtil.getCalendarTime(now),
+                        metricName,
+                        val);
+                sample.setTime(now);
+                sample.setValue(RrdJmxCollector.DEFAULT_DATA_SOURCE_NAME, val);
+                sample.update();
+            } catch (IOException | RuntimeException e) {
+                // Keep sampling the other metrics in the batch
+                LOGGER.info("Unable to sample metric {}", metricName, e);
+            }
+        }
+
+        private RrdDb open() throws IOException {
+            String rrdPath = metricsDir + metricName + RrdJmxCollector.RRD_FILENAME_SUFFIX;
+            File file = new File(rrdPath);
+            if (file.exists()) {
+                LOGGER.debug("Opening existing RRD file {}", rrdPath);
+                RrdDb existing = pool.requestRrdDb(rrdPath);
+                long step = existing.getHeader()
+                        .getStep();
+                if (step == sampleRate) {
+                    return existing;
+                }
+
+                // An RRD file's step is fixed when it is created, so a file created at a different
+                // sample rate (e.g. before an upgrade changed it) would never be updated more often
+                // than its old step. Keep its history next to the new file under a name the
+                // metrics endpoint does not list.
+                pool.release(existing);
+                File retired = new File(rrdPath + "." + step + RETIRED_FILENAME_SUFFIX);
+                Files.move(file.toPath(), retired.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                LOGGER.info("RRD file {} has a {} second step but metric {} is sampled every {} "
+                                + "seconds, moved it to {} and creating a new RRD file",
+                        rrdPath,
+                        step,
+                        metricName,
+                        sampleRate,
+                        retired);
+            }
+
+            if (!file.getParentFile()
+                    .exists() && !file.getParentFile()
+                    .mkdirs()) {
+                LOGGER.debug("Could not create parent file: {}",
+                        file.getParentFile()
+                                .getAbsolutePath());
+            }
+
+            LOGGER.debug("Creating new RRD file {}", rrdPath);
+            RrdDef def = new RrdDef(rrdPath, sampleRate);
+            def.addDatasource(RrdJmxCollector.DEFAULT_DATA_SOURCE_NAME,
+                    dsType,
+                    Math.max(HEARTBEAT_SECONDS, sampleRate),
+                    0,
+                    Double.NaN);
+
+            // Full resolution for the last hour and 15 minute resolution for the last year,
+            // the same archives RrdJmxCollector creates at its one minute step
+            for (ConsolFun consolFun : CONSOLIDATION_FUNCTIONS) {
+                def.addArchive(consolFun,
+                        DEFAULT_XFF_FACTOR,
+                        1,
+                        SECONDS_PER_HOUR / sampleRate);
+                def.addArchive(consolFun,
+                        DEFAULT_XFF_FACTOR,
+                        SECONDS_PER_15_MINUTES / sampleRate,
+                        RrdJmxCollector.ONE_YEAR_IN_15_MINUTE_STEPS);
+            }
+            return pool.requestRrdDb(def);
+        }
+
+        void close() {
+            if (rrdDb == null) {
+                return;
+            }
+            try {
+                pool.release(rrdDb);
+            } catch (IOException e) {
+                LOGGER.info("Unable to release RRD DB for metric {}", metricName, e);
+            }
+            rrdDb = null;
+            sample = null;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector.histogram;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Snapshot;
+
+public class HdrReservoirTest {
+
+    private ManualClock clock;
+
+    private HdrReservoir reservoir;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock();
+        reservoir = new HdrReservoir(4, TimeUnit.SECONDS, 4, clock);
+    }
+
+    @Test
+    public void testBucketsCoverValues() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int index = HdrReservoir.bucketIndex(value);
+            assertThat(HdrReservoir.bucketLowerBound(index), lessThanOrEqualTo(value));
+            assertThat(HdrReservoir.bucketLowerBound(index + 1), greaterThanOrEqualTo(value + 1));
+        }
+    }
+
+    @Test
+    public void testBucketValueWithinThreePercent() {
+        for (long value = 16; value < 100_000_000L; value = value * 3 / 2 + 1) {
+            double bucketValue = HdrReservoir.bucketValue(HdrReservoir.bucketIndex(value));
+            assertThat(Math.abs(bucketValue - value) / value, lessThan(0.033));
+        }
+    }
+
+    @Test
+    public void testOutOfRangeValues() {
+        assertThat(HdrReservoir.bucketIndex(-5), is(0));
+        assertThat(HdrReservoir.bucketIndex(Long.MAX_VALUE), is(HdrReservoir.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    public void testSnapshotPercentiles() {
+        for (long value = 1; value <= 1000; value++) {
+            reservoir.update(value);
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(snapshot.size(), is(1000));
+        assertThat(snapshot.getMin(), is(1L));
+        assertThat(snapshot.getMax(), is(1000L));
+        assertThat(snapshot.getMean(), is(500.5));
+        assertThat(snapshot.getMedian(), closeTo(500, 500 * 0.033));
+        assertThat(snapshot.get99thPercentile(), closeTo(990, 990 * 0.033));
+        assertThat(snapshot.getValue(1.0), is(1000.0));
+        assertThat(snapshot.getValue(0.0), is(1.0));
+    }
+
+    @Test
+    public void testEmptySnapshot() {
+        Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(snapshot.size(), is(0));
+        assertThat(snapshot.getMin(), is(0L));
+        assertThat(snapshot.getMax(), is(0L));
+        assertThat(snapshot.getMean(), is(0.0));
+        assertThat(snapshot.getMedian(), is(0.0));
+        assertThat(snapshot.getValues().length, is(0));
+    }
+
+    @Test
+    public void testValuesExpireAfterWindow() {
+        reservoir.update(100);
+        clock.advance(2, TimeUnit.SECONDS);
+        reservoir.update(200);
+
+        assertThat(reservoir.size(), is(2));
+
+        clock.advance(2, TimeUnit.SECONDS);
+        assertThat(reservoir.size(), is(1));
+        assertThat(reservoir.getSnapshot()
+                .getMin(), is(200L));
+
+        clock.advance(2, TimeUnit.SECONDS);
+        assertThat(reservoir.size(), is(0));
+    }
+
+    @Test
+    public void testReusedSlotIsCleared() {
+        reservoir.update(100);
+        clock.advance(4, TimeUnit.SECONDS);
+        reservoir.update(300);
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.size(), is(1));
+        assertThat(snapshot.getMin(), is(300L));
+        assertThat(snapshot.getMax(), is(300L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQuantile() {
+        reservoir.getSnapshot()
+                .getValue(1.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWindow() {
+        new HdrReservoir(0, TimeUnit.SECONDS);
+    }
+
+    static class ManualClock extends Clock {
+
+        private long tick = TimeUnit.HOURS.toNanos(1);
+
+        void advance(long duration, TimeUnit unit) {
+            tick += unit.toNanos(duration);
+        }
+
+        @Override
+        public long getTick() {
+            return tick;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector.histogram;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.Timer;
+
+public class LatencyMetricsTest {
+
+    private static final String DOMAIN = "ddf.metrics.latency.test";
+
+    private HdrReservoirTest.ManualClock clock;
+
+    private LatencyMetrics latencyMetrics;
+
+    @Before
+    public void setUp() {
+        clock = new HdrReservoirTest.ManualClock();
+        latencyMetrics = new LatencyMetrics(DOMAIN, clock);
+    }
+
+    @Test
+    public void testTimerIsReused() {
+        Timer timer = latencyMetrics.timer("query", "federation");
+
+        assertThat(latencyMetrics.timer("query", "federation"), sameInstance(timer));
+        assertThat(latencyMetrics.getRegistry()
+                .getTimers()
+                .keySet(), containsInAnyOrder("query.federation"));
+    }
+
+    @Test
+    public void testStageTimer() {
+        StageTimer stageTimer = latencyMetrics.time("query");
+        clock.advance(10, TimeUnit.MILLISECONDS);
+        stageTimer.stage("validation");
+        clock.advance(30, TimeUnit.MILLISECONDS);
+        stageTimer.stage("federation");
+        stageTimer.stop();
+
+        assertThat(latencyMetrics.timer("query", "validation")
+                .getSnapshot()
+                .getMax(), is(TimeUnit.MILLISECONDS.toNanos(10)));
+        assertThat(latencyMetrics.timer("query", "federation")
+                .getSnapshot()
+                .getMax(), is(TimeUnit.MILLISECONDS.toNanos(30)));
+        assertThat(latencyMetrics.timer("query", StageTimer.TOTAL)
+                .getSnapshot()
+                .getMax(), is(TimeUnit.MILLISECONDS.toNanos(40)));
+        assertThat(latencyMetrics.timer("query", StageTimer.TOTAL)
+                .getCount(), is(1L));
+    }
+
+    @Test
+    public void testTimersExportedThroughJmx() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(DOMAIN, "name", "create.ingest");
+
+        latencyMetrics.start();
+        try {
+            latencyMetrics.timer("create", "ingest")
+                    .update(5, TimeUnit.MILLISECONDS);
+
+            assertThat(mBeanServer.isRegistered(objectName), is(true));
+            assertThat(mBeanServer.getAttribute(objectName, "Max"), is(5.0));
+            assertThat(mBeanServer.getAttribute(objectName, "Count"), is(1L));
+        } finally {
+            latencyMetrics.stop();
+        }
+
+        assertThat(mBeanServer.isRegistered(objectName), is(false));
+    }
+}
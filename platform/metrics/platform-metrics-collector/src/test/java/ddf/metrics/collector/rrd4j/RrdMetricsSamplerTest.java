@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector.rrd4j;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rrd4j.ConsolFun;
+import org.rrd4j.DsType;
+import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdDbPool;
+import org.rrd4j.core.RrdDef;
+
+public class RrdMetricsSamplerTest {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private RrdMetricsSampler sampler;
+
+    private String metricsDir;
+
+    @Before
+    public void setUp() throws Exception {
+        metricsDir = temporaryFolder.getRoot()
+                .getAbsolutePath() + File.separator;
+        sampler = new RrdMetricsSampler(metricsDir);
+    }
+
+    @After
+    public void tearDown() {
+        sampler.destroy();
+    }
+
+    @Test
+    public void testMinuteMetricArchives() throws Exception {
+        sampler.register("queries", RrdJmxCollector.DERIVE_DATA_SOURCE_TYPE, () -> 5);
+
+        RrdDb rrdDb = awaitRrdDb("queries");
+        try {
+            assertThat(rrdDb.getHeader()
+                    .getStep(), is(60L));
+            assertThat(rrdDb.getDatasource(0)
+                    .getType(), is(DsType.DERIVE));
+            assertThat(rrdDb.getArchive(ConsolFun.TOTAL, 1)
+                    .getRows(), is(60));
+            assertThat(rrdDb.getArchive(ConsolFun.TOTAL, 15)
+                    .getRows(), is(RrdJmxCollector.ONE_YEAR_IN_15_MINUTE_STEPS));
+        } finally {
+            RrdDbPool.getInstance()
+                    .release(rrdDb);
+        }
+    }
+
+    @Test
+    public void testSubMinuteMetricArchives() throws Exception {
+        sampler.register("latency", RrdJmxCollector.GAUGE_DATA_SOURCE_TYPE, 15, () -> 42);
+
+        RrdDb rrdDb = awaitRrdDb("latency");
+        try {
+            assertThat(rrdDb.getHeader()
+                    .getStep(), is(15L));
+            assertThat(rrdDb.getDatasource(0)
+                    .getType(), is(DsType.GAUGE));
+            assertThat(rrdDb.getArchive(ConsolFun.AVERAGE, 1)
+                    .getRows(), is(240));
+            assertThat(rrdDb.getArchive(ConsolFun.AVERAGE, 60)
+                    .getRows(), is(RrdJmxCollector.ONE_YEAR_IN_15_MINUTE_STEPS));
+            assertThat(rrdDb.getDatasource(0)
+                    .getLastValue(), is(42.0));
+        } finally {
+            RrdDbPool.getInstance()
+                    .release(rrdDb);
+        }
+    }
+
+    @Test
+    public void testExistingRrdFileWithDifferentStepIsRecreated() throws Exception {
+        // given
+        String rrdPath = metricsDir + "latency" + RrdJmxCollector.RRD_FILENAME_SUFFIX;
+        RrdDef def = new RrdDef(rrdPath, 60);
+        def.addDatasource(RrdJmxCollector.DEFAULT_DATA_SOURCE_NAME,
+                DsType.GAUGE,
+                90,
+                0,
+                Double.NaN);
+        def.addArchive(ConsolFun.AVERAGE, 0.5, 1, 60);
+        new RrdDb(def).close();
+
+        // when
+        sampler.register("latency", RrdJmxCollector.GAUGE_DATA_SOURCE_TYPE, 15, () -> 42);
+
+        // then
+        RrdDb rrdDb = awaitRrdDb("latency");
+        try {
+            assertThat(rrdDb.getHeader()
+                    .getStep(), is(15L));
+        } finally {
+            RrdDbPool.getInstance()
+                    .release(rrdDb);
+        }
+        assertThat(new File(rrdPath + ".60s.old").exists(), is(true));
+    }
+
+    @Test
+    public void testUnregisterStopsSampling() throws Exception {
+        AtomicInteger samples = new AtomicInteger();
+        sampler.register("queries",
+                RrdJmxCollector.DERIVE_DATA_SOURCE_TYPE,
+                1,
+                samples::incrementAndGet);
+        await(() -> samples.get() >= 1);
+
+        sampler.unregister("queries");
+        Thread.sleep(1500);
+        int sampled = samples.get();
+        Thread.sleep(2500);
+
+        assertThat(samples.get(), is(sampled));
+    }
+
+    @Test
+    public void testFailingMetricDoesNotStopBatch() throws Exception {
+        AtomicInteger samples = new AtomicInteger();
+        sampler.register("failing", RrdJmxCollector.GAUGE_DATA_SOURCE_TYPE, 1, () -> {
+            throw new IllegalStateException("unavailable");
+        });
+        sampler.register("queries",
+                RrdJmxCollector.DERIVE_DATA_SOURCE_TYPE,
+                1,
+                samples::incrementAndGet);
+
+        await(() -> samples.get() >= 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterUnsupportedSampleRate() {
+        sampler.register("queries", RrdJmxCollector.DERIVE_DATA_SOURCE_TYPE, 7, () -> 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterUnsupportedDataSourceType() {
+        sampler.register("queries", "ABSOLUTE", () -> 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterNullDataSourceType() {
+        sampler.register("queries", null, () -> 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterBlankMetricName() {
+        sampler.register(" ", RrdJmxCollector.DERIVE_DATA_SOURCE_TYPE, () -> 0);
+    }
+
+    private RrdDb awaitRrdDb(String metricName) throws Exception {
+        String rrdPath = metricsDir + metricName + RrdJmxCollector.RRD_FILENAME_SUFFIX;
+        await(() -> new File(rrdPath).exists());
+        RrdDb rrdDb = RrdDbPool.getInstance()
+                .requestRrdDb(rrdPath);
+        await(() -> {
+            try {
+                return !Double.isNaN(rrdDb.getDatasource(0)
+                        .getLastValue());
+            } catch (Exception e) {
+                return false;
+            }
+        });
+        return rrdDb;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out waiting for condition");
+            }
+            Thread.sleep(100);
+        }
+    }
+}
@@ -15,14 +15,19 @@
 
 import java.util.concurrent.TimeUnit;
 
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.service.model.BindingOperationInfo;
 
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.SlidingTimeWindowReservoir;
+
+import ddf.metrics.collector.histogram.HdrReservoir;
+import ddf.metrics.collector.histogram.LatencyMetrics;
 
 /**
  * This class is extended by the METRICS interceptors used for capturing round trip message latency.
@@ -43,7 +48,20 @@ public abstract class AbstractMetricsInterceptor extends AbstractPhaseIntercepto
             .build();
 
     static final Histogram MESSAGE_LATENCY = METRICS.register(MetricRegistry.name(HISTOGRAM_NAME),
-            new Histogram(new SlidingTimeWindowReservoir(1, TimeUnit.MINUTES)));
+            new Histogram(new HdrReservoir()));
+
+    static final String UNKNOWN_ENDPOINT = "unknown";
+
+    /**
+     * Latency of each endpoint, and of each operation of an endpoint when the operation is known,
+     * exported in the {@code ddf.metrics.latency.services} JMX domain.
+     */
+    static final LatencyMetrics ENDPOINT_LATENCY =
+            new LatencyMetrics("ddf.metrics.latency.services");
+
+    static {
+        ENDPOINT_LATENCY.start();
+    }
 
     /**
      * Constructor to pass the phase to {@code AbstractPhaseInterceptor} and creates a new
@@ -93,7 +111,42 @@ protected void endHandlingMessage(Exchange ex) {
     }
 
     private void increaseCounter(Exchange ex, LatencyTimeRecorder ltr) {
-        MESSAGE_LATENCY.update(ltr.getLatencyTime());
+        long latency = ltr.getLatencyTime();
+        MESSAGE_LATENCY.update(latency);
+        ENDPOINT_LATENCY.timer(getEndpointName(ex), getOperationName(ex))
+                .update(latency, TimeUnit.MILLISECONDS);
+    }
+
+    static String getEndpointName(Exchange ex) {
+        Endpoint endpoint = ex.getEndpoint();
+        if (endpoint == null || endpoint.getEndpointInfo() == null
+                || endpoint.getEndpointInfo()
+                .getName() == null) {
+            return UNKNOWN_ENDPOINT;
+        }
+        return endpoint.getEndpointInfo()
+                .getName()
+                .getLocalPart();
+    }
+
+    /**
+     * @return the name of the SOAP operation or JAX-RS resource method handling the exchange, or
+     * null if it is not known
+     */
+    static String getOperationName(Exchange ex) {
+        BindingOperationInfo bindingOperationInfo = ex.getBindingOperationInfo();
+        if (bindingOperationInfo != null && bindingOperationInfo.getName() != null) {
+            return bindingOperationInfo.getName()
+                    .getLocalPart();
+        }
+
+        OperationResourceInfo operationResourceInfo = ex.get(OperationResourceInfo.class);
+        if (operationResourceInfo != null
+                && operationResourceInfo.getMethodToInvoke() != null) {
+            return operationResourceInfo.getMethodToInvoke()
+                    .getName();
+        }
+        return null;
     }
 
 }
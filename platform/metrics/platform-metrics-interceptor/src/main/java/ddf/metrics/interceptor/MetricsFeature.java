@@ -19,8 +19,13 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ddf.metrics.collector.rrd4j.RrdJmxCollector;
+import ddf.metrics.collector.rrd4j.RrdMetricsSampler;
+
 /**
- * Used to register interceptors with the cxf InterceptorProviders.
+ * Used to register interceptors with the cxf InterceptorProviders. The round trip message latency
+ * they record is sampled into the {@code servicesLatency} RRD file every
+ * {@value #LATENCY_SAMPLE_RATE} seconds.
  *
  * @author willisod
  *
@@ -35,6 +40,16 @@ public class MetricsFeature extends AbstractFeature {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MetricsFeature.class);
 
+    static final int LATENCY_SAMPLE_RATE = 15;
+
+    public MetricsFeature(RrdMetricsSampler sampler) {
+        sampler.register("servicesLatency",
+                RrdJmxCollector.GAUGE_DATA_SOURCE_TYPE,
+                LATENCY_SAMPLE_RATE,
+                () -> AbstractMetricsInterceptor.MESSAGE_LATENCY.getSnapshot()
+                        .getMean());
+    }
+
     @Override
     protected void initializeProvider(InterceptorProvider provider, Bus bus) {
         LOGGER.debug("ENTERING: {}.initializeProvider", CLASS_NAME);
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.interceptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import javax.xml.namespace.QName;
+
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.jaxrs.model.OperationResourceInfo;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AbstractMetricsInterceptorTest {
+
+    private static final String NAMESPACE = "http://www.opengis.net/cat/csw/2.0.2";
+
+    private Exchange ex;
+
+    @Before
+    public void setUp() {
+        ex = new ExchangeImpl();
+    }
+
+    @Test
+    public void testEndpointNameWithoutEndpoint() {
+        assertThat(AbstractMetricsInterceptor.getEndpointName(ex),
+                is(AbstractMetricsInterceptor.UNKNOWN_ENDPOINT));
+    }
+
+    @Test
+    public void testEndpointNameWithoutEndpointInfo() {
+        ex.put(Endpoint.class, mock(Endpoint.class));
+
+        assertThat(AbstractMetricsInterceptor.getEndpointName(ex),
+                is(AbstractMetricsInterceptor.UNKNOWN_ENDPOINT));
+    }
+
+    @Test
+    public void testEndpointName() {
+        putEndpoint("CswEndpointPort");
+
+        assertThat(AbstractMetricsInterceptor.getEndpointName(ex), is("CswEndpointPort"));
+    }
+
+    @Test
+    public void testSoapOperationName() {
+        BindingOperationInfo bindingOperationInfo = mock(BindingOperationInfo.class);
+        when(bindingOperationInfo.getName()).thenReturn(new QName(NAMESPACE, "GetRecords"));
+        ex.put(BindingOperationInfo.class, bindingOperationInfo);
+
+        assertThat(AbstractMetricsInterceptor.getOperationName(ex), is("GetRecords"));
+    }
+
+    @Test
+    public void testJaxRsOperationName() throws Exception {
+        OperationResourceInfo operationResourceInfo = mock(OperationResourceInfo.class);
+        when(operationResourceInfo.getMethodToInvoke()).thenReturn(Object.class.getMethod(
+                "toString"));
+        ex.put(OperationResourceInfo.class, operationResourceInfo);
+
+        assertThat(AbstractMetricsInterceptor.getOperationName(ex), is("toString"));
+    }
+
+    @Test
+    public void testUnknownOperationName() {
+        assertThat(AbstractMetricsInterceptor.getOperationName(ex), nullValue());
+    }
+
+    @Test
+    public void testLatencyRecordedPerEndpoint() {
+        putEndpoint("LatencyTestPort");
+        LatencyTimeRecorder ltr = mock(LatencyTimeRecorder.class);
+        when(ltr.getLatencyTime()).thenReturn(25L);
+        ex.put(LatencyTimeRecorder.class, ltr);
+        Message message = mock(Message.class);
+        when(message.getExchange()).thenReturn(ex);
+
+        new MetricsOutInterceptor().handleMessage(message);
+
+        assertThat(AbstractMetricsInterceptor.ENDPOINT_LATENCY.timer("LatencyTestPort")
+                .getCount(), is(1L));
+    }
+
+    private void putEndpoint(String name) {
+        Endpoint endpoint = mock(Endpoint.class);
+        EndpointInfo endpointInfo = mock(EndpointInfo.class);
+        when(endpoint.getEndpointInfo()).thenReturn(endpointInfo);
+        when(endpointInfo.getName()).thenReturn(new QName(NAMESPACE, name));
+        ex.put(Endpoint.class, endpoint);
+    }
+}
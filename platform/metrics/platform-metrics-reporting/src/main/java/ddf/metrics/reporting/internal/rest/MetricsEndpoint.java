@@ -21,6 +21,7 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -36,6 +37,12 @@
 import java.util.TimeZone;
 import java.util.TreeMap;
 
+import javax.management.Attribute;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -115,6 +122,13 @@ public class MetricsEndpoint {
 
     private static final String CSV_FORMAT = "csv";
 
+    private static final ObjectName LATENCY_METRICS_NAME =
+            createObjectName("ddf.metrics.latency.*:*");
+
+    private static final String[] LATENCY_ATTRIBUTES =
+            {"Count", "Mean", "Min", "Max", "50thPercentile", "75thPercentile", "95thPercentile",
+                    "98thPercentile", "99thPercentile", "999thPercentile", "DurationUnit"};
+
     static {
         TIME_RANGES.put("15m", FIFTEEN_MINUTES_IN_SECONDS);
         TIME_RANGES.put("1h", ONE_HOUR_IN_SECONDS);
@@ -134,6 +148,8 @@ public class MetricsEndpoint {
 
     private double metricsMaxThreshold;
 
+    private MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
     /**
      * Retrieve data for the specified metric over the given time range. The URL to access this
      * method is of the form http://<host>:<port>/<metricName>.<outputFormat> So the desired metric
@@ -383,6 +399,44 @@ public Response getMetricsList(@Context UriInfo uriInfo) {
         return response;
     }
 
+    /**
+     * Get the latency of the catalog operation stages and service endpoints over the last minute,
+     * as recorded in the {@code ddf.metrics.latency.*} JMX domains.
+     *
+     * @return JSON-formatted response mapping each domain to its latency metrics, e.g.,
+     * {@code query.federation}, and each latency metric to its count and its mean, minimum,
+     * maximum and percentile latencies in milliseconds
+     */
+    @GET
+    @Path("/latency")
+    @Produces({JSON_MIME_TYPE})
+    public Response getLatencyMetrics() {
+        Map<String, Map<String, Map<String, Object>>> latencies = new TreeMap<>();
+
+        for (ObjectName objectName : mBeanServer.queryNames(LATENCY_METRICS_NAME, null)) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            try {
+                for (Attribute attribute : mBeanServer.getAttributes(objectName,
+                        LATENCY_ATTRIBUTES)
+                        .asList()) {
+                    values.put(attribute.getName(), attribute.getValue());
+                }
+            } catch (InstanceNotFoundException | ReflectionException e) {
+                LOGGER.debug("Unable to read latency metric {}", objectName, e);
+                continue;
+            }
+
+            latencies.computeIfAbsent(objectName.getDomain(), domain -> new TreeMap<>())
+                    .put(objectName.getKeyProperty("name"), values);
+        }
+
+        String jsonText = JSONValue.toJSONString(latencies);
+        LOGGER.trace(jsonText);
+
+        return Response.ok(jsonText)
+                .build();
+    }
+
     /**
      * Retrieve data for the all metrics over the given time range. The URL to access this method is
      * of the form http://<host>:<port>/report.<outputFormat> The filename extension defines the
@@ -677,6 +731,10 @@ void setMetricsRetriever(MetricsRetriever metricsRetriever) {
         this.metricsRetriever = metricsRetriever;
     }
 
+    void setMBeanServer(MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+    }
+
     public void setMetricsMaxThreshold(double metricsMaxThreshold) {
         LOGGER.debug("Creating new RrdMetricsRetriever with metricsMaxThreshold = {}",
                 metricsMaxThreshold);
@@ -684,6 +742,14 @@ public void setMetricsMaxThreshold(double metricsMaxThreshold) {
         metricsRetriever = new RrdMetricsRetriever(metricsMaxThreshold);
     }
 
+    private static ObjectName createObjectName(String name) {
+        try {
+            return new ObjectName(name);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid object name " + name, e);
+        }
+    }
+
     /**
      * Comparator used to sort metric time ranges by chronological order rather than the default
      * lexigraphical order.
@@ -39,6 +39,9 @@
 import java.util.Map;
 import java.util.Set;
 
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
@@ -93,6 +96,37 @@ public void testParseDate() {
         assertThat(time, equalTo(900000000L));
     }
 
+    @Test
+    public void testGetLatencyMetrics() throws Exception {
+        MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        mBeanServer.registerMBean(new LatencyTimer(3, 12.5),
+                new ObjectName("ddf.metrics.latency.catalog", "name", "query.federation"));
+        mBeanServer.registerMBean(new LatencyTimer(1, 40.0),
+                new ObjectName("ddf.metrics.latency.services", "name", "CswEndpointPort"));
+        mBeanServer.registerMBean(new LatencyTimer(5, 1.0),
+                new ObjectName("ddf.METRICS.services", "name", "Latency"));
+
+        MetricsEndpoint endpoint = getEndpoint();
+        endpoint.setMBeanServer(mBeanServer);
+        Response response = endpoint.getLatencyMetrics();
+
+        JSONObject latencies = (JSONObject) new JSONParser().parse((String) response.getEntity());
+        assertThat(latencies.keySet(), not(hasItem("ddf.METRICS.services")));
+
+        JSONObject federation =
+                (JSONObject) ((JSONObject) latencies.get("ddf.metrics.latency.catalog")).get(
+                        "query.federation");
+        assertThat(federation.get("Count"), is(3L));
+        assertThat(federation.get("50thPercentile"), is(12.5));
+        assertThat(federation.get("DurationUnit"), is("milliseconds"));
+
+        JSONObject csw =
+                (JSONObject) ((JSONObject) latencies.get("ddf.metrics.latency.services")).get(
+                        "CswEndpointPort");
+        assertThat(csw.get("Count"), is(1L));
+        assertThat(csw.get("50thPercentile"), is(40.0));
+    }
+
     @SuppressWarnings("rawtypes")
     @Test
     // @Ignore
@@ -868,4 +902,38 @@ private MetricsEndpoint getEndpoint() {
         System.setProperty(SystemInfo.SITE_NAME, "siteName");
         return me;
     }
+
+    public interface LatencyTimerMBean {
+        long getCount();
+
+        double get50thPercentile();
+
+        String getDurationUnit();
+    }
+
+    public static class LatencyTimer implements LatencyTimerMBean {
+        private final long count;
+
+        private final double median;
+
+        LatencyTimer(long count, double median) {
+            this.count = count;
+            this.median = median;
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public double get50thPercentile() {
+            return median;
+        }
+
+        @Override
+        public String getDurationUnit() {
+            return "milliseconds";
+        }
+    }
 }
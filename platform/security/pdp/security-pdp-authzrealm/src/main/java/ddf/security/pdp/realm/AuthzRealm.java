@@ -511,4 +511,31 @@ public void setEnvironmentAttributes(List<String> environmentAttributes) {
         this.environmentAttributes.clear();
         this.environmentAttributes.addAll(environmentAttributes);
     }
+
+    /**
+     * @param decisionCacheSize the maximum number of XACML decisions to cache, 0 to disable caching
+     */
+    public void setDecisionCacheSize(Long decisionCacheSize) {
+        xacmlPdp.getDecisionCache()
+                .setMaximumSize(decisionCacheSize);
+    }
+
+    /**
+     * @param decisionCacheExpirationSeconds the number of seconds to cache a XACML decision for, 0 to
+     *                                       disable caching
+     */
+    public void setDecisionCacheExpirationSeconds(Long decisionCacheExpirationSeconds) {
+        xacmlPdp.getDecisionCache()
+                .setExpirationSeconds(decisionCacheExpirationSeconds);
+    }
+
+    public void init() {
+        xacmlPdp.getDecisionCache()
+                .init();
+    }
+
+    public void destroy() {
+        xacmlPdp.getDecisionCache()
+                .destroy();
+    }
 }
@@ -0,0 +1,257 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.pdp.realm.xacml;
+
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributeType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributeValueType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributesType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.DecisionType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.RequestType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.ResultType;
+
+/**
+ * Caches XACML decisions by a digest of the request, which holds the action, the subject
+ * attributes, the resource security attributes and the environment attributes. The digest does not
+ * depend on the order of the attributes or of their values, since XACML treats both as bags.
+ * <p>
+ * Cached decisions expire after a configurable time and are all discarded when the policies change.
+ * A decision evaluated while the policies were reloaded is not cached. Only Permit and Deny
+ * decisions evaluated without an error are cached, so that a transient PDP error does not deny
+ * access until the entry expires.
+ */
+public class DecisionCache implements DecisionCacheMBean {
+
+    public static final String MBEAN_NAME = "ddf.security.pdp.realm.xacml:service=DecisionCache";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DecisionCache.class);
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+    private static final long DEFAULT_EXPIRATION_SECONDS = 300;
+
+    private static final String STATUS_OK = "urn:oasis:names:tc:xacml:1.0:status:ok";
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Cache<String, Boolean> decisions;
+
+    private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    private long expirationSeconds = DEFAULT_EXPIRATION_SECONDS;
+
+    private ObjectName objectName;
+
+    private MBeanServer mBeanServer;
+
+    public DecisionCache() {
+        decisions = buildCache();
+    }
+
+    public void init() {
+        try {
+            objectName = new ObjectName(MBEAN_NAME);
+            mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(this, objectName);
+            LOGGER.debug("Registered decision cache MBean under object name: {}", objectName);
+        } catch (MalformedObjectNameException | MBeanRegistrationException
+                | InstanceNotFoundException | InstanceAlreadyExistsException
+                | NotCompliantMBeanException e) {
+            LOGGER.info("Could not register MBean [{}].", MBEAN_NAME, e);
+        }
+    }
+
+    public void destroy() {
+        try {
+            if (objectName != null && mBeanServer != null && mBeanServer.isRegistered(
+                    objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+            LOGGER.info("Exception unregistering MBean [{}].", MBEAN_NAME, e);
+        }
+    }
+
+    /**
+     * @param maximumSize the maximum number of decisions to cache, or 0 to disable the cache
+     */
+    public synchronized void setMaximumSize(long maximumSize) {
+        this.maximumSize = Math.max(0, maximumSize);
+        decisions = buildCache();
+    }
+
+    /**
+     * @param expirationSeconds the number of seconds to keep a decision, or 0 to disable the cache
+     */
+    public synchronized void setExpirationSeconds(long expirationSeconds) {
+        this.expirationSeconds = Math.max(0, expirationSeconds);
+        decisions = buildCache();
+    }
+
+    /**
+     * Returns the digest of the request that decisions are cached by.
+     */
+    public String getKey(RequestType request) {
+        List<String> attributes = new ArrayList<>();
+        for (AttributesType attributesType : request.getAttributes()) {
+            for (AttributeType attributeType : attributesType.getAttribute()) {
+                List<String> values = new ArrayList<>();
+                for (AttributeValueType valueType : attributeType.getAttributeValue()) {
+                    StringBuilder value = new StringBuilder();
+                    append(value, valueType.getDataType());
+                    for (Serializable content : valueType.getContent()) {
+                        append(value, String.valueOf(content));
+                    }
+                    values.add(value.toString());
+                }
+                Collections.sort(values);
+
+                StringBuilder attribute = new StringBuilder();
+                append(attribute, attributesType.getCategory());
+                append(attribute, attributeType.getAttributeId());
+                append(attribute, attributeType.getIssuer());
+                values.forEach(value -> append(attribute, value));
+                attributes.add(attribute.toString());
+            }
+        }
+        Collections.sort(attributes);
+
+        StringBuilder canonicalRequest = new StringBuilder();
+        attributes.forEach(attribute -> append(canonicalRequest, attribute));
+        return Hashing.sha256()
+                .hashString(canonicalRequest, StandardCharsets.UTF_8)
+                .toString();
+    }
+
+    /**
+     * @return the cached decision, or null if there is none
+     */
+    public Boolean getDecision(String key) {
+        Boolean decision = decisions.getIfPresent(key);
+        if (decision != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return decision;
+    }
+
+    /**
+     * Returns a token to pass to {@link #putDecision(String, boolean, long)} for a decision about
+     * to be evaluated.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @param result the result evaluated by the PDP, or null if there is none
+     * @return whether the result is a Permit or Deny decision without an error status
+     */
+    public static boolean isCacheable(ResultType result) {
+        if (result == null || (result.getDecision() != DecisionType.PERMIT
+                && result.getDecision() != DecisionType.DENY)) {
+            return false;
+        }
+        return result.getStatus() == null || result.getStatus()
+                .getStatusCode() == null || STATUS_OK.equals(result.getStatus()
+                .getStatusCode()
+                .getValue());
+    }
+
+    /**
+     * Caches a decision, unless the cache was invalidated since {@code generation} was read.
+     */
+    public void putDecision(String key, boolean decision, long generation) {
+        Cache<String, Boolean> currentDecisions = decisions;
+        if (this.generation.get() == generation) {
+            currentDecisions.put(key, decision);
+            if (this.generation.get() != generation) {
+                currentDecisions.invalidate(key);
+            }
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    @Override
+    public long getSize() {
+        return decisions.size();
+    }
+
+    @Override
+    public void invalidateAll() {
+        LOGGER.debug("Invalidating cached XACML decisions");
+        generation.incrementAndGet();
+        decisions.invalidateAll();
+    }
+
+    private Cache<String, Boolean> buildCache() {
+        generation.incrementAndGet();
+        return CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expirationSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Appends a length-prefixed string, so that no two different lists of strings are appended as
+     * the same characters.
+     */
+    private static void append(StringBuilder builder, String value) {
+        String nonNullValue = value == null ? "" : value;
+        builder.append(nonNullValue.length())
+                .append(':')
+                .append(nonNullValue);
+    }
+}
@@ -45,6 +45,7 @@
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.DecisionType;
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.RequestType;
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.ResponseType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.ResultType;
 
 /**
  * Performs authorization backed by a XACML-based PDP.
@@ -57,6 +58,8 @@ public class XacmlPdp {
 
     private List<String> environmentAttributes;
 
+    private final DecisionCache decisionCache = new DecisionCache();
+
     /**
      * Creates a general
      */
@@ -64,6 +67,7 @@ public XacmlPdp(String dirPath, Parser parser, List<String> environmentAttribute
             throws PdpException {
         super();
         pdp = new XacmlClient(dirPath, parser);
+        pdp.addPolicyChangeListener(decisionCache::invalidateAll);
         this.environmentAttributes = environmentAttributes;
         LOGGER.debug("Creating new PDP-backed Authorizing Realm");
     }
@@ -199,23 +203,44 @@ protected RequestType createXACMLRequest(String subject, AuthorizationInfo info,
         return xacmlRequestType;
     }
 
+    public DecisionCache getDecisionCache() {
+        return decisionCache;
+    }
+
+    /**
+     * Returns the cached decision for the request, or evaluates the request if it has not been
+     * decided since the policies last changed.
+     */
     protected boolean isPermitted(RequestType xacmlRequest) {
-        boolean permitted;
-        ResponseType xacmlResponse;
+        String key = decisionCache.getKey(xacmlRequest);
+        Boolean cachedDecision = decisionCache.getDecision(key);
+        if (cachedDecision != null) {
+            LOGGER.debug("Permitted (cached): {}", cachedDecision);
+            return cachedDecision;
+        }
 
+        long generation = decisionCache.getGeneration();
+        ResponseType xacmlResponse;
         try {
             LOGGER.debug("Calling PDP to evaluate XACML request.");
             xacmlResponse = pdp.evaluate(xacmlRequest);
             LOGGER.debug("Received response from PDP.");
-            permitted = xacmlResponse != null && xacmlResponse.getResult()
-                    .get(0)
-                    .getDecision() == DecisionType.PERMIT;
-            LOGGER.debug("Permitted: {}", permitted);
         } catch (PdpException e) {
             LOGGER.debug(e.getMessage(), e);
-            permitted = false;
+            return false;
         }
 
+        ResultType result = null;
+        if (xacmlResponse != null && !xacmlResponse.getResult()
+                .isEmpty()) {
+            result = xacmlResponse.getResult()
+                    .get(0);
+        }
+        boolean permitted = result != null && result.getDecision() == DecisionType.PERMIT;
+        LOGGER.debug("Permitted: {}", permitted);
+        if (DecisionCache.isCacheable(result)) {
+            decisionCache.putDecision(key, permitted, generation);
+        }
         return permitted;
     }
 
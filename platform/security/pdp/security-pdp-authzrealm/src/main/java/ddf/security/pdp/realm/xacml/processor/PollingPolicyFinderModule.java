@@ -19,7 +19,9 @@
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.io.monitor.FileAlterationListener;
 import org.apache.commons.io.monitor.FileAlterationMonitor;
@@ -48,6 +50,8 @@ public class PollingPolicyFinderModule extends FileBasedPolicyFinderModule
 
     private Set<String> xacmlPolicyDirectories;
 
+    private final List<Runnable> policyChangeListeners = new CopyOnWriteArrayList<>();
+
     /**
      * @param xacmlPolicyDirectories - to search for policies
      * @param pollingInterval        - in seconds
@@ -199,9 +203,17 @@ private FileFilter getXmlFileFilter() {
                 .endsWith(".xml");
     }
 
+    /**
+     * @param policyChangeListener called after the policies have been reloaded
+     */
+    public void addPolicyChangeListener(Runnable policyChangeListener) {
+        policyChangeListeners.add(policyChangeListener);
+    }
+
     public void reloadPolicies() {
         LOGGER.debug("Reloading XACML policies");
         this.loadPolicies();
+        policyChangeListeners.forEach(Runnable::run);
     }
 
 }
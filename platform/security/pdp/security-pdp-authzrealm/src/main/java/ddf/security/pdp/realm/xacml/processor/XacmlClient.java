@@ -13,24 +13,17 @@
  */
 package ddf.security.pdp.realm.xacml.processor;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
-import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBElement;
-import javax.xml.bind.Marshaller;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMResult;
-import javax.xml.transform.sax.SAXSource;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
@@ -39,15 +32,16 @@
 import org.codice.ddf.parser.ParserException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.Attributes;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.XMLFilterImpl;
-import org.xml.sax.helpers.XMLReaderFactory;
+import org.w3c.dom.Document;
 
 import com.connexta.arbitro.PDP;
 import com.connexta.arbitro.PDPConfig;
+import com.connexta.arbitro.ParsingException;
+import com.connexta.arbitro.ctx.AbstractRequestCtx;
+import com.connexta.arbitro.ctx.AbstractResult;
+import com.connexta.arbitro.ctx.RequestCtxFactory;
+import com.connexta.arbitro.ctx.ResponseCtx;
+import com.connexta.arbitro.ctx.Status;
 import com.connexta.arbitro.finder.AttributeFinder;
 import com.connexta.arbitro.finder.AttributeFinderModule;
 import com.connexta.arbitro.finder.PolicyFinder;
@@ -56,9 +50,13 @@
 import com.connexta.arbitro.finder.impl.SelectorModule;
 import com.google.common.collect.ImmutableList;
 
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.DecisionType;
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.ObjectFactory;
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.RequestType;
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.ResponseType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.ResultType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.StatusCodeType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.StatusType;
 
 /**
  * Implementation of a XACML Policy Decision Point (PDP). This class acts as a proxy to the
@@ -67,12 +65,14 @@
 public class XacmlClient {
     private static final Logger LOGGER = LoggerFactory.getLogger(XacmlClient.class);
 
-    private static final String XACML30_NAMESPACE =
-            "urn:oasis:names:tc:xacml:3.0:core:schema:wd-17";
+    private static final ObjectFactory OBJECT_FACTORY = new ObjectFactory();
 
-    private static final String XACML_PREFIX = "xacml";
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY =
+            DocumentBuilderFactory.newInstance();
 
-    private static JAXBContext jaxbContext;
+    static {
+        DOCUMENT_BUILDER_FACTORY.setNamespaceAware(true);
+    }
 
     private static final long DEFAULT_POLLING_INTERVAL_IN_SECONDS = 60;
 
@@ -83,10 +83,14 @@ public class XacmlClient {
 
     private PDP pdp;
 
+    private PollingPolicyFinderModule policyFinderModule;
+
     private Set<String> xacmlPolicyDirectories;
 
     private final Parser parser;
 
+    private final ParserConfigurator parserConfigurator;
+
     /**
      * Creates the proxy to the real XACML PDP.
      *
@@ -97,6 +101,10 @@ public class XacmlClient {
     public XacmlClient(String relativeXacmlPoliciesDirectoryPath, Parser parser)
             throws PdpException {
         this.parser = parser;
+        this.parserConfigurator = parser == null ?
+                null :
+                parser.configureParser(ImmutableList.of(RequestType.class.getPackage()
+                        .getName()), XacmlClient.class.getClassLoader());
         if (StringUtils.isEmpty(relativeXacmlPoliciesDirectoryPath)) {
             throw new PdpException(NULL_DIRECTORY_EXCEPTION_MSG);
         }
@@ -135,22 +143,29 @@ private void initialize(File xacmlPoliciesDirectory) throws PdpException {
     }
 
     /**
-     * Evaluates the XACML request and returns a XACML response.
+     * Evaluates the XACML request and returns a XACML response. The request is handed to the PDP
+     * as a DOM and the response is built from the PDP's result objects, so that neither is
+     * serialized and parsed again.
      *
      * @param xacmlRequestType XACML request
      * @return XACML response
      * @throws PdpException
      */
     public ResponseType evaluate(RequestType xacmlRequestType) throws PdpException {
-        String xacmlRequest = this.marshal(xacmlRequestType);
+        AbstractRequestCtx xacmlRequest = toRequestCtx(xacmlRequestType);
 
-        String xacmlResponse = this.callPdp(xacmlRequest);
+        ResponseCtx xacmlResponse = pdp.evaluate(xacmlRequest);
 
-        LOGGER.debug("\nXACML 3.0 Response from XACML PDP:\n {}", xacmlResponse);
-
-        DOMResult domResult = addNamespaceAndPrefixes(xacmlResponse);
+        return toResponseType(xacmlResponse);
+    }
 
-        return unmarshal(domResult);
+    /**
+     * Registers a listener that is called whenever the XACML policies are reloaded.
+     *
+     * @param policyChangeListener the listener
+     */
+    public void addPolicyChangeListener(Runnable policyChangeListener) {
+        policyFinderModule.addPolicyChangeListener(policyChangeListener);
     }
 
     /**
@@ -188,8 +203,7 @@ private PolicyFinder createPolicyFinder() {
         LOGGER.debug("XACML policies will be looked for in the following location(s): {}",
                 xacmlPolicyDirectories);
         PolicyFinder policyFinder = new PolicyFinder();
-        PollingPolicyFinderModule policyFinderModule = new PollingPolicyFinderModule(
-                xacmlPolicyDirectories,
+        policyFinderModule = new PollingPolicyFinderModule(xacmlPolicyDirectories,
                 defaultPollingIntervalInSeconds);
         policyFinderModule.start();
         Set<PolicyFinderModule> policyFinderModules = new HashSet<>(1);
@@ -229,142 +243,88 @@ private void checkXacmlPoliciesDirectory(File xacmlPoliciesDirectory) throws Pdp
     }
 
     /**
-     * Calls the real XACML PDP to evaluate the XACML request.
+     * Converts the XACML request to the PDP's request object through a DOM.
      *
-     * @param xacmlRequest The XACML request as a string.
-     * @return The XACML response as a string.
-     */
-    private String callPdp(String xacmlRequest) {
-
-        return pdp.evaluate(xacmlRequest);
-    }
-
-    /**
-     * Adds namespaces and namespace prefixes to the XACML response returned by the XACML PDP. The
-     * XACML PDP returns a response with no namespaces, so we need to add them to unmarshal the
-     * response.
-     *
-     * @param xacmlResponse The XACML response as a string.
-     * @return DOM representation of the XACML response with namespaces and namespace prefixes.
+     * @param xacmlRequestType The XACML request to convert.
+     * @return The PDP's representation of the XACML request.
      * @throws PdpException
      */
-    private DOMResult addNamespaceAndPrefixes(String xacmlResponse) throws PdpException {
-        XMLReader xmlReader = null;
-
-        try {
-            XMLReader xmlParser = XMLReaderFactory.createXMLReader();
-            xmlParser.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            xmlParser.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            xmlParser.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd",
-                    false);
-            xmlReader = new XMLFilterImpl(xmlParser) {
-                @Override
-                public void startElement(String uri, String localName, String qName,
-                        Attributes attributes) throws SAXException {
-                    super.startElement(XACML30_NAMESPACE,
-                            localName,
-                            XACML_PREFIX + ":" + qName,
-                            attributes);
-                }
-
-                @Override
-                public void endElement(String uri, String localName, String qName)
-                        throws SAXException {
-                    super.endElement(XACML30_NAMESPACE, localName, XACML_PREFIX + ":" + qName);
-                }
-            };
-        } catch (SAXException e) {
-            String message = "Unable to read XACML response:\n" + xacmlResponse;
-            LOGGER.info(message);
-            throw new PdpException(message, e);
+    private AbstractRequestCtx toRequestCtx(RequestType xacmlRequestType) throws PdpException {
+        if (null == parser) {
+            throw new IllegalStateException("XMLParser must be configured.");
         }
 
-        DOMResult domResult;
-        ClassLoader tccl = Thread.currentThread()
-                .getContextClassLoader();
-        Thread.currentThread()
-                .setContextClassLoader(XacmlClient.class.getClassLoader());
         try {
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-
-            domResult = new DOMResult();
-
-            Transformer transformer = transformerFactory.newTransformer();
-            transformer.transform(new SAXSource(xmlReader,
-                    new InputSource(new StringReader(xacmlResponse))), domResult);
-        } catch (TransformerException e) {
-            String message = "Unable to transform XACML response:\n" + xacmlResponse;
-            LOGGER.info(message);
+            Document document = getDocumentBuilder().newDocument();
+            parser.marshal(parserConfigurator,
+                    OBJECT_FACTORY.createRequest(xacmlRequestType),
+                    document);
+            return RequestCtxFactory.getFactory()
+                    .getRequestCtx(document.getDocumentElement());
+        } catch (ParserException | ParsingException e) {
+            String message = "Unable to convert XACML request.";
+            LOGGER.info(message, e);
             throw new PdpException(message, e);
-        } finally {
-            Thread.currentThread()
-                    .setContextClassLoader(tccl);
         }
-
-        return domResult;
     }
 
     /**
-     * Marshalls the XACML request to a string.
+     * Converts the PDP's response object to a XACML response. Only the decision and the status of
+     * each result are copied, which is all that is used from the response.
      *
-     * @param xacmlRequestType The XACML request to marshal.
-     * @return A string representation of the XACML request.
+     * @param xacmlResponse The PDP's response.
+     * @return The XACML response.
      */
-    private String marshal(RequestType xacmlRequestType) throws PdpException {
-        if (null == parser) {
-            throw new IllegalStateException("XMLParser must be configured.");
-        }
-        String xacmlRequest = null;
-        try {
-            List<String> ctxPath = new ArrayList<>(1);
-            ctxPath.add(ResponseType.class.getPackage()
-                    .getName());
-            ParserConfigurator configurator = parser.configureParser(ctxPath,
-                    XacmlClient.class.getClassLoader());
-            configurator.addProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            ByteArrayOutputStream os = new ByteArrayOutputStream();
-            ObjectFactory objectFactory = new ObjectFactory();
-            parser.marshal(configurator, objectFactory.createRequest(xacmlRequestType), os);
-            xacmlRequest = os.toString("UTF-8");
-        } catch (ParserException | UnsupportedEncodingException e) {
-            String message = "Unable to marshal XACML request.";
-            LOGGER.info(message, e);
-            throw new PdpException(message, e);
+    private ResponseType toResponseType(ResponseCtx xacmlResponse) {
+        ResponseType responseType = new ResponseType();
+        for (AbstractResult result : xacmlResponse.getResults()) {
+            ResultType resultType = new ResultType();
+            resultType.setDecision(toDecisionType(result.getDecision()));
+
+            Status status = result.getStatus();
+            if (status != null && status.getCode() != null && !status.getCode()
+                    .isEmpty()) {
+                StatusCodeType statusCodeType = new StatusCodeType();
+                statusCodeType.setValue(status.getCode()
+                        .get(0));
+                StatusType statusType = new StatusType();
+                statusType.setStatusCode(statusCodeType);
+                statusType.setStatusMessage(status.getMessage());
+                resultType.setStatus(statusType);
+            }
+
+            responseType.getResult()
+                    .add(resultType);
         }
 
-        LOGGER.debug("\nXACML 3.0 Request:\n{}", xacmlRequest);
+        LOGGER.debug("XACML 3.0 decisions from XACML PDP: {}",
+                responseType.getResult()
+                        .stream()
+                        .map(ResultType::getDecision)
+                        .collect(Collectors.toList()));
 
-        return xacmlRequest;
+        return responseType;
     }
 
-    /**
-     * Unmarshalls the XACML response.
-     *
-     * @param xacmlResponse The XACML response with all namespaces and namespace prefixes added.
-     * @return The XACML response.
-     * @throws PdpException
-     */
-    @SuppressWarnings("unchecked")
-    private ResponseType unmarshal(DOMResult xacmlResponse) throws PdpException {
-        List<String> ctxPath = ImmutableList.of(ResponseType.class.getPackage()
-                .getName());
-
-        if (null == parser) {
-            throw new IllegalStateException("XMLParser must be configured.");
+    private DecisionType toDecisionType(int decision) {
+        switch (decision) {
+        case AbstractResult.DECISION_PERMIT:
+            return DecisionType.PERMIT;
+        case AbstractResult.DECISION_DENY:
+            return DecisionType.DENY;
+        case AbstractResult.DECISION_NOT_APPLICABLE:
+            return DecisionType.NOT_APPLICABLE;
+        default:
+            return DecisionType.INDETERMINATE;
         }
+    }
 
-        ParserConfigurator configurator = parser.configureParser(ctxPath,
-                XacmlClient.class.getClassLoader());
-
+    private DocumentBuilder getDocumentBuilder() throws PdpException {
         try {
-            JAXBElement<ResponseType> xacmlResponseTypeElement = parser.unmarshal(configurator,
-                    JAXBElement.class,
-                    xacmlResponse.getNode());
-            return xacmlResponseTypeElement.getValue();
-
-        } catch (ParserException e) {
-            String message = "Unable to unmarshal XACML response.";
-            LOGGER.info(message);
+            return DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            String message = "Unable to create XACML request document.";
+            LOGGER.info(message, e);
             throw new PdpException(message, e);
         }
     }
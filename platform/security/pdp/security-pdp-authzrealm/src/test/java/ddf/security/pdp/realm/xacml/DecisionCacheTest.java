@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.pdp.realm.xacml;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributeType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributeValueType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributesType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.DecisionType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.RequestType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.ResultType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.StatusCodeType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.StatusType;
+
+public class DecisionCacheTest {
+
+    private static final String ROLE = "role";
+
+    private static final String COUNTRY = "country";
+
+    private DecisionCache decisionCache;
+
+    @Before
+    public void setup() {
+        decisionCache = new DecisionCache();
+    }
+
+    @Test
+    public void testKeyIgnoresAttributeAndValueOrder() {
+        RequestType request = request(attribute(ROLE, "admin", "user"),
+                attribute(COUNTRY, "USA"));
+        RequestType reordered = request(attribute(COUNTRY, "USA"),
+                attribute(ROLE, "user", "admin"));
+
+        assertThat(decisionCache.getKey(request), is(decisionCache.getKey(reordered)));
+    }
+
+    @Test
+    public void testKeyDependsOnValues() {
+        RequestType request = request(attribute(ROLE, "admin", "user"));
+        RequestType otherValues = request(attribute(ROLE, "adminuser"));
+
+        assertThat(decisionCache.getKey(request), not(decisionCache.getKey(otherValues)));
+    }
+
+    @Test
+    public void testCountsHitsAndMisses() {
+        String key = decisionCache.getKey(request(attribute(ROLE, "admin")));
+
+        assertThat(decisionCache.getDecision(key), nullValue());
+        decisionCache.putDecision(key, true, decisionCache.getGeneration());
+
+        assertThat(decisionCache.getDecision(key), is(true));
+        assertThat(decisionCache.getHitCount(), is(1L));
+        assertThat(decisionCache.getMissCount(), is(1L));
+        assertThat(decisionCache.getSize(), is(1L));
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        String key = decisionCache.getKey(request(attribute(ROLE, "admin")));
+        decisionCache.putDecision(key, true, decisionCache.getGeneration());
+
+        decisionCache.invalidateAll();
+
+        assertThat(decisionCache.getDecision(key), nullValue());
+    }
+
+    @Test
+    public void testDecisionEvaluatedBeforeInvalidationIsNotCached() {
+        String key = decisionCache.getKey(request(attribute(ROLE, "admin")));
+        long generation = decisionCache.getGeneration();
+
+        decisionCache.invalidateAll();
+        decisionCache.putDecision(key, true, generation);
+
+        assertThat(decisionCache.getDecision(key), nullValue());
+    }
+
+    @Test
+    public void testDisabled() {
+        decisionCache.setMaximumSize(0);
+        String key = decisionCache.getKey(request(attribute(ROLE, "admin")));
+
+        decisionCache.putDecision(key, true, decisionCache.getGeneration());
+
+        assertThat(decisionCache.getDecision(key), nullValue());
+    }
+
+    @Test
+    public void testPermitAndDenyAreCacheable() {
+        assertThat(DecisionCache.isCacheable(result(DecisionType.PERMIT, null)), is(true));
+        assertThat(DecisionCache.isCacheable(result(DecisionType.DENY, null)), is(true));
+        assertThat(DecisionCache.isCacheable(result(DecisionType.DENY,
+                "urn:oasis:names:tc:xacml:1.0:status:ok")), is(true));
+    }
+
+    @Test
+    public void testIndeterminateAndErrorsAreNotCacheable() {
+        assertThat(DecisionCache.isCacheable(null), is(false));
+        assertThat(DecisionCache.isCacheable(result(DecisionType.INDETERMINATE, null)), is(false));
+        assertThat(DecisionCache.isCacheable(result(DecisionType.NOT_APPLICABLE, null)),
+                is(false));
+        assertThat(DecisionCache.isCacheable(result(DecisionType.DENY,
+                "urn:oasis:names:tc:xacml:1.0:status:processing-error")), is(false));
+    }
+
+    private ResultType result(DecisionType decision, String statusCode) {
+        ResultType result = new ResultType();
+        result.setDecision(decision);
+        if (statusCode != null) {
+            StatusCodeType statusCodeType = new StatusCodeType();
+            statusCodeType.setValue(statusCode);
+            StatusType status = new StatusType();
+            status.setStatusCode(statusCodeType);
+            result.setStatus(status);
+        }
+        return result;
+    }
+
+    private RequestType request(AttributeType... attributes) {
+        AttributesType attributesType = new AttributesType();
+        attributesType.setCategory(XACMLConstants.ACCESS_SUBJECT_CATEGORY);
+        for (AttributeType attribute : attributes) {
+            attributesType.getAttribute()
+                    .add(attribute);
+        }
+
+        RequestType request = new RequestType();
+        request.getAttributes()
+                .add(attributesType);
+        return request;
+    }
+
+    private AttributeType attribute(String id, String... values) {
+        AttributeType attribute = new AttributeType();
+        attribute.setAttributeId(id);
+        for (String value : values) {
+            AttributeValueType attributeValue = new AttributeValueType();
+            attributeValue.setDataType(XACMLConstants.STRING_DATA_TYPE);
+            attributeValue.getContent()
+                    .add(value);
+            attribute.getAttributeValue()
+                    .add(attributeValue);
+        }
+        return attribute;
+    }
+}
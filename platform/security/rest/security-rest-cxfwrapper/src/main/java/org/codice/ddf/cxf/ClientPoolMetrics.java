@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.cxf;
+
+/**
+ * Snapshot of the client pool of a {@link SecureCxfClientFactory}. The connection and handshake
+ * counts are shared by every pooled factory of the same https endpoint, and are 0 for http
+ * endpoints.
+ */
+public class ClientPoolMetrics {
+
+    private final int inUseClients;
+
+    private final int idleClients;
+
+    private final long createdClients;
+
+    private final long connections;
+
+    private final long handshakes;
+
+    private final long resumedHandshakes;
+
+    ClientPoolMetrics(int inUseClients, int idleClients, long createdClients, long connections,
+            long handshakes, long resumedHandshakes) {
+        this.inUseClients = inUseClients;
+        this.idleClients = idleClients;
+        this.createdClients = createdClients;
+        this.connections = connections;
+        this.handshakes = handshakes;
+        this.resumedHandshakes = resumedHandshakes;
+    }
+
+    /**
+     * @return the number of pooled clients handed out and not yet released
+     */
+    public int getInUseClients() {
+        return inUseClients;
+    }
+
+    /**
+     * @return the number of clients waiting in the pool to be reused
+     */
+    public int getIdleClients() {
+        return idleClients;
+    }
+
+    /**
+     * @return the number of clients the factory has constructed
+     */
+    public long getCreatedClients() {
+        return createdClients;
+    }
+
+    /**
+     * @return the number of connections opened to the endpoint
+     */
+    public long getConnections() {
+        return connections;
+    }
+
+    /**
+     * @return the number of TLS handshakes completed with the endpoint
+     */
+    public long getHandshakes() {
+        return handshakes;
+    }
+
+    /**
+     * @return the number of TLS handshakes that resumed an earlier session
+     */
+    public long getResumedHandshakes() {
+        return resumedHandshakes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "inUse=%d, idle=%d, created=%d, connections=%d, handshakes=%d, resumed=%d",
+                inUseClients,
+                idleClients,
+                createdClients,
+                connections,
+                handshakes,
+                resumedHandshakes);
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.cxf;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link SSLSocketFactory} shared by the pooled clients of one {@link SecureCxfClientFactory}.
+ * <p>
+ * {@link HttpsURLConnection} only reuses a kept-alive connection, and an {@link SSLContext} only
+ * resumes a TLS session, for connections created through the same socket factory. Every conduit
+ * otherwise builds its own socket factory, so each client pays for a new connection and a full
+ * handshake. The clients of a {@link SecureCxfClientFactory} all have the same endpoint and TLS
+ * settings, so sharing one factory between them lets them reuse both without leaking one
+ * client's key or trust managers to another. The factory also counts the connections it opens
+ * and the handshakes completed on them.
+ */
+class EndpointSSLSocketFactory extends SSLSocketFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EndpointSSLSocketFactory.class);
+
+    private final SSLSocketFactory delegate;
+
+    private final AtomicLong connections = new AtomicLong();
+
+    private final AtomicLong handshakes = new AtomicLong();
+
+    private final AtomicLong resumedHandshakes = new AtomicLong();
+
+    EndpointSSLSocketFactory(SSLSocketFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Creates a socket factory from a conduit's TLS parameters.
+     *
+     * @param tlsParams the TLS parameters of the conduit, or {@code null} to use the default key
+     *                  and trust stores
+     * @return the new socket factory
+     */
+    static EndpointSSLSocketFactory create(TLSClientParameters tlsParams) {
+        return new EndpointSSLSocketFactory(createDelegate(tlsParams));
+    }
+
+    long getConnectionCount() {
+        return connections.get();
+    }
+
+    long getHandshakeCount() {
+        return handshakes.get();
+    }
+
+    long getResumedHandshakeCount() {
+        return resumedHandshakes.get();
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return delegate.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return delegate.getSupportedCipherSuites();
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+        return track(delegate.createSocket());
+    }
+
+    @Override
+    public Socket createSocket(Socket socket, String host, int port, boolean autoClose)
+            throws IOException {
+        return track(delegate.createSocket(socket, host, port, autoClose));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return track(delegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort)
+            throws IOException {
+        return track(delegate.createSocket(host, port, localHost, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return track(delegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress,
+            int localPort) throws IOException {
+        return track(delegate.createSocket(address, port, localAddress, localPort));
+    }
+
+    private Socket track(Socket socket) {
+        connections.incrementAndGet();
+        if (socket instanceof SSLSocket) {
+            long createdMillis = System.currentTimeMillis();
+            ((SSLSocket) socket).addHandshakeCompletedListener(event -> {
+                handshakes.incrementAndGet();
+                // A resumed session was negotiated before this connection was opened
+                if (event.getSession()
+                        .getCreationTime() < createdMillis) {
+                    resumedHandshakes.incrementAndGet();
+                }
+            });
+        }
+        return socket;
+    }
+
+    private static SSLSocketFactory createDelegate(TLSClientParameters tlsParams) {
+        if (tlsParams == null || (tlsParams.getKeyManagers() == null
+                && tlsParams.getTrustManagers() == null)) {
+            return HttpsURLConnection.getDefaultSSLSocketFactory();
+        }
+
+        try {
+            String protocol = tlsParams.getSecureSocketProtocol();
+            SSLContext sslContext = SSLContext.getInstance(protocol == null ? "TLS" : protocol);
+            sslContext.init(tlsParams.getKeyManagers(),
+                    tlsParams.getTrustManagers(),
+                    tlsParams.getSecureRandom());
+            return sslContext.getSocketFactory();
+        } catch (GeneralSecurityException e) {
+            LOGGER.info("Unable to create a socket factory from the TLS parameters.", e);
+            return HttpsURLConnection.getDefaultSSLSocketFactory();
+        }
+    }
+}
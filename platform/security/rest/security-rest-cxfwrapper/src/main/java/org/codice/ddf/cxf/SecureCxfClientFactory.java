@@ -13,7 +13,13 @@
  */
 package org.codice.ddf.cxf;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -42,6 +48,13 @@
  *     <li>We do not yet support the open standard for REST security, SAML ECP.</li>
  *     <li>Most non-DDF systems do not know how to handle SAML assertions in the auth header.</li>
  * </ol>
+ * <p>
+ * By default, every client is constructed for a single request, with its own connection. When a
+ * client pool size is set with {@link #setClientPoolSize(int)}, clients returned by
+ * {@link #getClientForSubject(Subject)} are instead reused after they are released with
+ * {@link #releaseClient(Object)}, and the https clients of an endpoint share one socket factory,
+ * so they keep their connections alive and resume TLS sessions. {@link WebClient}s are never
+ * pooled, but share the socket factory.
  */
 public class SecureCxfClientFactory<T> {
 
@@ -65,6 +78,17 @@
 
     private Integer receiveTimeout;
 
+    private final BlockingDeque<T> idleClients = new LinkedBlockingDeque<>();
+
+    private final Set<T> borrowedClients =
+            Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    private final AtomicLong createdClients = new AtomicLong();
+
+    private volatile int clientPoolSize;
+
+    private volatile EndpointSSLSocketFactory socketFactory;
+
     /**
      * @see #SecureCxfClientFactory(String, Class, java.util.List, Interceptor, boolean, boolean)
      */
@@ -215,19 +239,14 @@ public WebClient getWebClient() {
      * The returned client should NOT be reused between requests!
      * This method should be called for each new request in order to ensure
      * that the security token is up-to-date each time.
+     * <p>
+     * When client pooling is enabled, the client is taken from the pool with its headers reset,
+     * so it only carries the token of the provided subject, and should be returned with
+     * {@link #releaseClient(Object)} once the request completes.
      */
     public T getClientForSubject(Subject subject) {
-        String asciiString = clientFactory.getAddress();
-
-        T newClient = getNewClient();
-
-        if (!basicAuth && StringUtils.startsWithIgnoreCase(asciiString, "https")) {
-            if (subject instanceof ddf.security.Subject) {
-                RestSecurity.setSubjectOnClient((ddf.security.Subject) subject,
-                        WebClient.client(newClient));
-            }
-        }
-
+        T newClient = clientPoolSize > 0 ? borrowClient() : getNewClient();
+        setSubjectOnClient(subject, newClient);
         return newClient;
     }
 
@@ -237,7 +256,100 @@ public T getClientForSubject(Subject subject) {
      * @see #getClientForSubject(Subject subject)
      */
     public WebClient getWebClientForSubject(Subject subject) {
-        return getWebClient(getClientForSubject(subject));
+        // The web client shares the configuration and conduit of the client, so the client is
+        // never taken from or returned to the pool
+        T client = getNewClient();
+        setSubjectOnClient(subject, client);
+        return getWebClient(client);
+    }
+
+    /**
+     * Returns a client obtained from {@link #getClientForSubject(Subject)} to the pool, to be
+     * reused by a later request. Clients released once the pool is full are discarded. Clients
+     * that were not taken from the pool, or were already released, are ignored.
+     *
+     * @param client the client to release
+     */
+    public void releaseClient(T client) {
+        if (client == null || !borrowedClients.remove(client)) {
+            return;
+        }
+
+        if (idleClients.size() < clientPoolSize) {
+            WebClient.client(client)
+                    .reset();
+            WebClient.getConfig(client)
+                    .getRequestContext()
+                    .put(Message.MAINTAIN_SESSION, Boolean.FALSE);
+            idleClients.offerFirst(client);
+        }
+    }
+
+    /**
+     * Sets the maximum number of idle clients kept for reuse. A size of 0, the default, disables
+     * client pooling so every request constructs a new client.
+     * <p>
+     * Pooled clients do not maintain an HTTP session, since they are shared between subjects.
+     *
+     * @param clientPoolSize the maximum number of idle clients
+     */
+    public void setClientPoolSize(int clientPoolSize) {
+        this.clientPoolSize = Math.max(clientPoolSize, 0);
+        while (idleClients.size() > this.clientPoolSize) {
+            idleClients.pollLast();
+        }
+        if (this.clientPoolSize == 0) {
+            // Clients created from now on build their own socket factories
+            socketFactory = null;
+        }
+    }
+
+    public int getClientPoolSize() {
+        return clientPoolSize;
+    }
+
+    public ClientPoolMetrics getPoolMetrics() {
+        EndpointSSLSocketFactory socketFactory = this.socketFactory;
+        if (socketFactory == null) {
+            return new ClientPoolMetrics(borrowedClients.size(),
+                    idleClients.size(),
+                    createdClients.get(),
+                    0,
+                    0,
+                    0);
+        }
+        return new ClientPoolMetrics(borrowedClients.size(),
+                idleClients.size(),
+                createdClients.get(),
+                socketFactory.getConnectionCount(),
+                socketFactory.getHandshakeCount(),
+                socketFactory.getResumedHandshakeCount());
+    }
+
+    private synchronized EndpointSSLSocketFactory getSocketFactory(
+            TLSClientParameters tlsParams) {
+        if (socketFactory == null) {
+            socketFactory = EndpointSSLSocketFactory.create(tlsParams);
+        }
+        return socketFactory;
+    }
+
+    private T borrowClient() {
+        T client = idleClients.pollFirst();
+        if (client == null) {
+            client = getNewClient();
+        }
+        borrowedClients.add(client);
+        return client;
+    }
+
+    private void setSubjectOnClient(Subject subject, Object client) {
+        if (!basicAuth && StringUtils.startsWithIgnoreCase(clientFactory.getAddress(), "https")) {
+            if (subject instanceof ddf.security.Subject) {
+                RestSecurity.setSubjectOnClient((ddf.security.Subject) subject,
+                        WebClient.client(client));
+            }
+        }
     }
 
     private WebClient getWebClient(Object client) {
@@ -246,10 +358,11 @@ private WebClient getWebClient(Object client) {
 
     private T getNewClient() {
         T clientImpl = JAXRSClientFactory.fromClient(clientFactory.create(), interfaceClass);
+        createdClients.incrementAndGet();
 
         ClientConfiguration clientConfig = WebClient.getConfig(clientImpl);
         clientConfig.getRequestContext()
-                .put(Message.MAINTAIN_SESSION, Boolean.TRUE);
+                .put(Message.MAINTAIN_SESSION, clientPoolSize == 0);
 
         configureConduit(clientConfig);
         configureTimeouts(clientConfig, connectionTimeout, receiveTimeout);
@@ -263,12 +376,20 @@ private void configureConduit(ClientConfiguration clientConfig) {
             return;
         }
 
-        if (disableCnCheck) {
+        boolean sharedSocketFactory = clientPoolSize > 0 && StringUtils.startsWithIgnoreCase(
+                clientFactory.getAddress(),
+                "https");
+        if (disableCnCheck || sharedSocketFactory) {
             TLSClientParameters tlsParams = httpConduit.getTlsClientParameters();
             if (tlsParams == null) {
                 tlsParams = new TLSClientParameters();
             }
-            tlsParams.setDisableCNCheck(true);
+            if (disableCnCheck) {
+                tlsParams.setDisableCNCheck(true);
+            }
+            if (sharedSocketFactory && tlsParams.getSSLSocketFactory() == null) {
+                tlsParams.setSSLSocketFactory(getSocketFactory(tlsParams));
+            }
             httpConduit.setTlsClientParameters(tlsParams);
         }
 
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.cxf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.core.Response;
+
+import org.apache.commons.lang.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Compares constructing a client for every request with reusing pooled clients. By default the
+ * requests go to an http server started by the benchmark; set the {@code endpoint} parameter to
+ * an https endpoint to include the cost of the TLS handshakes pooled clients avoid. Benchmarks
+ * are not run as part of the build; run them through {@link #main(String[])} with the test
+ * classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Threads(4)
+@Fork(1)
+public class SecureCxfClientFactoryBenchmark {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(SecureCxfClientFactoryBenchmark.class);
+
+    @Param({""})
+    private String endpoint;
+
+    private HttpServer server;
+
+    private SecureCxfClientFactory<Ping> perRequestFactory;
+
+    private SecureCxfClientFactory<Ping> pooledFactory;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        String endpointUrl = endpoint;
+        if (StringUtils.isEmpty(endpointUrl)) {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/ping", exchange -> {
+                byte[] body = "pong".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream responseBody = exchange.getResponseBody()) {
+                    responseBody.write(body);
+                }
+            });
+            server.start();
+            endpointUrl = "http://localhost:" + server.getAddress()
+                    .getPort() + "/ping";
+        }
+
+        perRequestFactory = new SecureCxfClientFactory<>(endpointUrl, Ping.class);
+        pooledFactory = new SecureCxfClientFactory<>(endpointUrl, Ping.class);
+        pooledFactory.setClientPoolSize(8);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        LOGGER.info("Pooled clients: {}", pooledFactory.getPoolMetrics());
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Benchmark
+    public int perRequestClient() {
+        return ping(perRequestFactory.getClient());
+    }
+
+    @Benchmark
+    public int pooledClient() {
+        Ping client = pooledFactory.getClient();
+        try {
+            return ping(client);
+        } finally {
+            pooledFactory.releaseClient(client);
+        }
+    }
+
+    private static int ping(Ping client) {
+        Response response = client.ping();
+        try {
+            return response.readEntity(String.class)
+                    .length();
+        } finally {
+            response.close();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SecureCxfClientFactoryBenchmark.class
+                .getSimpleName())
+                .build()).run();
+    }
+
+    public interface Ping {
+        @GET
+        Response ping();
+    }
+}
@@ -13,7 +13,10 @@
  */
 package org.codice.ddf.cxf;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.IsNull.notNullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -26,8 +29,10 @@
 import javax.ws.rs.GET;
 import javax.ws.rs.core.Response;
 
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
 import org.apache.cxf.jaxrs.client.Client;
 import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.message.Message;
 import org.apache.cxf.transport.http.HTTPConduit;
 import org.apache.shiro.mgt.DefaultSecurityManager;
 import org.apache.shiro.session.mgt.SimpleSession;
@@ -213,6 +218,192 @@ public void testHttpsClientWithSystemProperty() {
         assertThat(result, notNullValue());
     }
 
+    @Test
+    public void testClientsNotPooledByDefault() {
+        SecureCxfClientFactory<IDummy> secureCxfClientFactory = new SecureCxfClientFactory<>(
+                INSECURE_ENDPOINT,
+                IDummy.class);
+        IDummy client = secureCxfClientFactory.getClient();
+        secureCxfClientFactory.releaseClient(client);
+
+        assertThat(secureCxfClientFactory.getClient(), not(sameInstance(client)));
+        assertThat(secureCxfClientFactory.getPoolMetrics()
+                .getCreatedClients(), is(2L));
+        assertThat(WebClient.getConfig(client)
+                .getRequestContext()
+                .get(Message.MAINTAIN_SESSION), is(true));
+    }
+
+    @Test
+    public void testPooledClientReused() {
+        SecureCxfClientFactory<IDummy> secureCxfClientFactory = new SecureCxfClientFactory<>(
+                INSECURE_ENDPOINT,
+                IDummy.class);
+        secureCxfClientFactory.setClientPoolSize(2);
+        IDummy client = secureCxfClientFactory.getClientForSubject(getSubject());
+        WebClient.client(client)
+                .header("X-Previous-Request", "value");
+        secureCxfClientFactory.releaseClient(client);
+
+        IDummy reused = secureCxfClientFactory.getClientForSubject(getSubject());
+
+        assertThat(reused, sameInstance(client));
+        assertThat(WebClient.client(reused)
+                .getHeaders()
+                .containsKey("X-Previous-Request"), is(false));
+        assertThat(WebClient.getConfig(reused)
+                .getRequestContext()
+                .get(Message.MAINTAIN_SESSION), is(false));
+        assertThat(secureCxfClientFactory.getPoolMetrics()
+                .getCreatedClients(), is(1L));
+    }
+
+    @Test
+    public void testPoolMetrics() {
+        SecureCxfClientFactory<IDummy> secureCxfClientFactory = new SecureCxfClientFactory<>(
+                INSECURE_ENDPOINT,
+                IDummy.class);
+        secureCxfClientFactory.setClientPoolSize(1);
+        IDummy first = secureCxfClientFactory.getClient();
+        IDummy second = secureCxfClientFactory.getClient();
+
+        ClientPoolMetrics metrics = secureCxfClientFactory.getPoolMetrics();
+        assertThat(metrics.getInUseClients(), is(2));
+        assertThat(metrics.getIdleClients(), is(0));
+
+        secureCxfClientFactory.releaseClient(first);
+        secureCxfClientFactory.releaseClient(second);
+
+        metrics = secureCxfClientFactory.getPoolMetrics();
+        assertThat(metrics.getInUseClients(), is(0));
+        assertThat(metrics.getIdleClients(), is(1));
+        assertThat(metrics.getCreatedClients(), is(2L));
+    }
+
+    @Test
+    public void testReleaseIgnoresClientsNotBorrowed() {
+        SecureCxfClientFactory<IDummy> secureCxfClientFactory = new SecureCxfClientFactory<>(
+                INSECURE_ENDPOINT,
+                IDummy.class);
+        SecureCxfClientFactory<IDummy> otherFactory = new SecureCxfClientFactory<>(
+                INSECURE_ENDPOINT,
+                IDummy.class);
+        secureCxfClientFactory.setClientPoolSize(2);
+        otherFactory.setClientPoolSize(2);
+        IDummy client = secureCxfClientFactory.getClient();
+        IDummy foreign = otherFactory.getClient();
+
+        secureCxfClientFactory.releaseClient(foreign);
+        secureCxfClientFactory.releaseClient(client);
+        secureCxfClientFactory.releaseClient(client);
+
+        ClientPoolMetrics metrics = secureCxfClientFactory.getPoolMetrics();
+        assertThat(metrics.getInUseClients(), is(0));
+        assertThat(metrics.getIdleClients(), is(1));
+        assertThat(otherFactory.getPoolMetrics()
+                .getInUseClients(), is(1));
+    }
+
+    @Test
+    public void testWebClientsNotPooled() {
+        SecureCxfClientFactory<IDummy> secureCxfClientFactory = new SecureCxfClientFactory<>(
+                INSECURE_ENDPOINT,
+                IDummy.class);
+        secureCxfClientFactory.setClientPoolSize(2);
+
+        WebClient webClient = secureCxfClientFactory.getWebClientForSubject(getSubject());
+
+        assertThat(webClient, notNullValue());
+        ClientPoolMetrics metrics = secureCxfClientFactory.getPoolMetrics();
+        assertThat(metrics.getInUseClients(), is(0));
+        assertThat(metrics.getIdleClients(), is(0));
+        assertThat(metrics.getCreatedClients(), is(1L));
+    }
+
+    @Test
+    public void testShrinkingPoolDiscardsIdleClients() {
+        SecureCxfClientFactory<IDummy> secureCxfClientFactory = new SecureCxfClientFactory<>(
+                INSECURE_ENDPOINT,
+                IDummy.class);
+        secureCxfClientFactory.setClientPoolSize(2);
+        IDummy first = secureCxfClientFactory.getClient();
+        IDummy second = secureCxfClientFactory.getClient();
+        secureCxfClientFactory.releaseClient(first);
+        secureCxfClientFactory.releaseClient(second);
+
+        secureCxfClientFactory.setClientPoolSize(0);
+
+        assertThat(secureCxfClientFactory.getPoolMetrics()
+                .getIdleClients(), is(0));
+        assertThat(secureCxfClientFactory.getClient(), not(sameInstance(first)));
+    }
+
+    @Test
+    public void testPooledHttpsClientsShareSocketFactory() {
+        SecureCxfClientFactory<IDummy> secureCxfClientFactory = new SecureCxfClientFactory<>(
+                SECURE_ENDPOINT,
+                IDummy.class,
+                null,
+                null,
+                true,
+                false);
+        secureCxfClientFactory.setClientPoolSize(2);
+
+        TLSClientParameters firstParams =
+                getTlsClientParameters(secureCxfClientFactory.getClient());
+        TLSClientParameters secondParams =
+                getTlsClientParameters(secureCxfClientFactory.getClient());
+
+        assertThat(firstParams.isDisableCNCheck(), is(true));
+        assertThat(firstParams.getSSLSocketFactory(), instanceOf(EndpointSSLSocketFactory.class));
+        assertThat(secondParams.getSSLSocketFactory(),
+                sameInstance(firstParams.getSSLSocketFactory()));
+    }
+
+    @Test
+    public void testFactoriesForSameEndpointDoNotShareSocketFactory() {
+        SecureCxfClientFactory<IDummy> firstFactory = new SecureCxfClientFactory<>(SECURE_ENDPOINT,
+                IDummy.class,
+                null,
+                null,
+                true,
+                false);
+        firstFactory.setClientPoolSize(1);
+        SecureCxfClientFactory<IDummy> secondFactory = new SecureCxfClientFactory<>(
+                SECURE_ENDPOINT,
+                IDummy.class);
+        secondFactory.setClientPoolSize(1);
+
+        TLSClientParameters firstParams = getTlsClientParameters(firstFactory.getClient());
+        TLSClientParameters secondParams = getTlsClientParameters(secondFactory.getClient());
+
+        assertThat(secondParams.getSSLSocketFactory(),
+                not(sameInstance(firstParams.getSSLSocketFactory())));
+    }
+
+    @Test
+    public void testDisablingPoolReleasesSocketFactory() {
+        SecureCxfClientFactory<IDummy> secureCxfClientFactory = new SecureCxfClientFactory<>(
+                SECURE_ENDPOINT,
+                IDummy.class);
+        secureCxfClientFactory.setClientPoolSize(1);
+        TLSClientParameters pooledParams =
+                getTlsClientParameters(secureCxfClientFactory.getClient());
+
+        secureCxfClientFactory.setClientPoolSize(0);
+        secureCxfClientFactory.setClientPoolSize(1);
+        TLSClientParameters newParams = getTlsClientParameters(secureCxfClientFactory.getClient());
+
+        assertThat(newParams.getSSLSocketFactory(),
+                not(sameInstance(pooledParams.getSSLSocketFactory())));
+    }
+
+    private TLSClientParameters getTlsClientParameters(IDummy client) {
+        return WebClient.getConfig(WebClient.client(client))
+                .getHttpConduit()
+                .getTlsClientParameters();
+    }
+
     private DummySubject getSubject() {
         return new DummySubject(new DefaultSecurityManager(), new SimplePrincipalCollection());
     }